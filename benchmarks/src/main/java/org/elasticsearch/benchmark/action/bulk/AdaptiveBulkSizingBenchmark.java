@@ -0,0 +1,204 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.action.bulk;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.xcontent.XContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Indexes documents through a {@link BulkProcessor} into a local stub http server that behaves like an overloaded node: it executes a
+ * fixed number of bulk requests at a time at a cost of a fixed overhead plus a cost per byte, queues a bounded number of requests, and
+ * rejects requests with {@code 429 Too Many Requests} once its queue is full. Compares fixed bulk sizes with adaptive bulk sizing.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class AdaptiveBulkSizingBenchmark {
+
+    private static final int NUM_DOCS = 50_000;
+    private static final long REQUEST_OVERHEAD_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long NANOS_PER_KB = TimeUnit.MICROSECONDS.toNanos(5);
+
+    /**
+     * {@code fixed_<size>} uses the given fixed bulk size, {@code adaptive} tunes it between 16kb and 8mb.
+     */
+    @Param({ "fixed_64kb", "fixed_5mb", "adaptive" })
+    public String mode;
+
+    @Param({ "8" })
+    public int concurrentRequests;
+
+    @Param({ "2" })
+    public int serverWorkers;
+
+    @Param({ "4" })
+    public int serverQueueSize;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private HttpClient client;
+    private URI uri;
+
+    @Setup
+    public void setup() throws IOException {
+        final Semaphore workers = new Semaphore(serverWorkers);
+        final AtomicInteger queued = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        // enough threads to handle every request the client can have in flight at once
+        serverExecutor = Executors.newFixedThreadPool(concurrentRequests + 1);
+        server.setExecutor(serverExecutor);
+        server.createContext("/_bulk", exchange -> {
+            final long bytes = drain(exchange);
+            if (queued.incrementAndGet() > serverWorkers + serverQueueSize) {
+                queued.decrementAndGet();
+                respond(exchange, 429);
+                return;
+            }
+            try {
+                workers.acquireUninterruptibly();
+                try {
+                    LockSupport.parkNanos(REQUEST_OVERHEAD_NANOS + bytes / 1024 * NANOS_PER_KB);
+                } finally {
+                    workers.release();
+                }
+            } finally {
+                queued.decrementAndGet();
+            }
+            respond(exchange, 200);
+        });
+        server.start();
+        uri = URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/_bulk");
+        client = HttpClient.newHttpClient();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public long index() throws InterruptedException {
+        final AtomicLong indexed = new AtomicLong();
+        final BulkProcessor.Builder builder = BulkProcessor.builder(this::send, new BulkProcessor.Listener() {
+            @Override
+            public void beforeBulk(long executionId, BulkRequest request) {}
+
+            @Override
+            public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+                indexed.addAndGet(request.numberOfActions());
+            }
+
+            @Override
+            public void afterBulk(long executionId, BulkRequest request, Throwable failure) {}
+        }, "benchmark")
+            .setConcurrentRequests(concurrentRequests)
+            .setBulkActions(-1)
+            .setBackoffPolicy(BackoffPolicy.exponentialBackoff(TimeValue.timeValueMillis(10), 16));
+        if (mode.equals("adaptive")) {
+            builder.setAdaptiveBulkSizing(new ByteSizeValue(16, ByteSizeUnit.KB), new ByteSizeValue(8, ByteSizeUnit.MB));
+        } else {
+            builder.setBulkSize(ByteSizeValue.parseBytesSizeValue(mode.substring("fixed_".length()), "bulk_size"));
+        }
+        final BulkProcessor processor = builder.build();
+        final String source = "{\"message\":\"" + "x".repeat(200) + "\"}";
+        for (int i = 0; i < NUM_DOCS; i++) {
+            processor.add(new IndexRequest("index").id(Integer.toString(i)).source(source, XContentType.JSON));
+        }
+        if (processor.awaitClose(5, TimeUnit.MINUTES) == false) {
+            throw new IllegalStateException("bulk requests didn't complete");
+        }
+        return indexed.get();
+    }
+
+    private void send(BulkRequest request, ActionListener<BulkResponse> listener) {
+        final byte[] body = new byte[Math.toIntExact(request.estimatedSizeInBytes())];
+        final java.net.http.HttpRequest httpRequest = java.net.http.HttpRequest.newBuilder(uri)
+            .POST(java.net.http.HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        client.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding()).whenComplete((response, e) -> {
+            if (e != null) {
+                listener.onFailure(new IOException(e));
+            } else if (response.statusCode() == 429) {
+                listener.onFailure(new EsRejectedExecutionException("rejected by the stub server"));
+            } else {
+                final BulkItemResponse[] items = new BulkItemResponse[request.numberOfActions()];
+                final ShardId shardId = new ShardId("index", "_na_", 0);
+                for (int i = 0; i < items.length; i++) {
+                    final IndexResponse indexResponse = new IndexResponse(shardId, request.requests().get(i).id(), i, 1, 1, true);
+                    items[i] = BulkItemResponse.success(i, DocWriteRequest.OpType.INDEX, indexResponse);
+                }
+                listener.onResponse(new BulkResponse(items, 0));
+            }
+        });
+    }
+
+    private static long drain(HttpExchange exchange) throws IOException {
+        long bytes = 0;
+        try (InputStream in = exchange.getRequestBody()) {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes += read;
+            }
+        }
+        return bytes;
+    }
+
+    private static void respond(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+}
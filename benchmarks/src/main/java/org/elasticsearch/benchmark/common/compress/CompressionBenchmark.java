@@ -0,0 +1,180 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.common.compress;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.Zstd;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.transport.BytesRefRecycler;
+import org.elasticsearch.transport.Compression;
+import org.elasticsearch.transport.TransportDecompressor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of compressing and decompressing log {@code _source} documents with the transport compression schemes. The
+ * documents are read from the newline delimited json file given by {@code samples}, for instance the {@code _source} of real log
+ * documents exported from a cluster, or generated as web server access logs if it is empty. Every operation compresses or decompresses
+ * all documents at once, the compression ratio is printed once per trial.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+
+    private static final String[] METHODS = { "GET", "GET", "GET", "POST", "PUT", "DELETE" };
+    private static final String[] PATHS = { "/", "/index.html", "/api/v1/orders", "/api/v1/users", "/static/app.js", "/login" };
+    private static final String[] AGENTS = {
+        "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/96.0.4664.110 Safari/537.36",
+        "Mozilla/5.0 (Macintosh; Intel Mac OS X 10.15; rv:95.0) Gecko/20100101 Firefox/95.0",
+        "curl/7.79.1" };
+    private static final int[] STATUS_CODES = { 200, 200, 200, 200, 301, 404, 500 };
+
+    @Param({ "deflate", "lz4", "zstd" })
+    public String scheme;
+
+    @Param({ "" })
+    public String samples;
+
+    @Param({ "10000" })
+    public int generatedDocs;
+
+    private BytesReference uncompressed;
+    private BytesReference compressed;
+    private BytesStreamOutput output;
+    private BytesRefRecycler recycler;
+
+    @Setup
+    public void setup() throws IOException {
+        if (scheme.equals("zstd") && Zstd.isAvailable() == false) {
+            throw new IllegalStateException("the native zstd library is not available");
+        }
+        uncompressed = samples.isEmpty() ? generateAccessLogs(generatedDocs) : new BytesArray(Files.readAllBytes(Path.of(samples)));
+        output = new BytesStreamOutput(uncompressed.length());
+        recycler = new BytesRefRecycler(new PageCacheRecycler(Settings.EMPTY));
+        compress();
+        compressed = output.copyBytes();
+        System.out.printf(
+            Locale.ROOT,
+            "%n[%s] compressed [%d] bytes to [%d] bytes, ratio [%.2f]%n",
+            scheme,
+            uncompressed.length(),
+            compressed.length(),
+            (double) uncompressed.length() / compressed.length()
+        );
+    }
+
+    @Benchmark
+    public int compress() throws IOException {
+        output.reset();
+        try (OutputStream out = compressingStream(Streams.noCloseStream(output))) {
+            uncompressed.writeTo(out);
+        }
+        return output.size();
+    }
+
+    @Benchmark
+    public int decompress() throws IOException {
+        int length = 0;
+        try (TransportDecompressor decompressor = TransportDecompressor.getDecompressor(recycler, compressed)) {
+            final int consumed = decompressor.decompress(compressed);
+            assert consumed == compressed.length();
+            ReleasableBytesReference page;
+            while ((page = decompressor.pollDecompressedPage(false)) != null) {
+                length += page.length();
+                page.close();
+            }
+            page = decompressor.pollDecompressedPage(true);
+            if (page != null) {
+                length += page.length();
+                page.close();
+            }
+        }
+        return length;
+    }
+
+    private OutputStream compressingStream(OutputStream out) throws IOException {
+        switch (scheme) {
+            case "deflate":
+                return CompressorFactory.COMPRESSOR.threadLocalOutputStream(out);
+            case "lz4":
+                return Compression.Scheme.lz4OutputStream(out);
+            case "zstd":
+                return CompressorFactory.ZSTD_COMPRESSOR.threadLocalOutputStream(out);
+            default:
+                throw new IllegalArgumentException("Unknown scheme [" + scheme + "]");
+        }
+    }
+
+    private static BytesReference generateAccessLogs(int numDocs) {
+        final Random random = new Random(0);
+        final StringBuilder sb = new StringBuilder();
+        long timestamp = 1640995200000L;
+        for (int i = 0; i < numDocs; i++) {
+            timestamp += random.nextInt(200);
+            final String clientIp = "10." + random.nextInt(4) + "." + random.nextInt(256) + "." + random.nextInt(256);
+            final String method = METHODS[random.nextInt(METHODS.length)];
+            final String path = PATHS[random.nextInt(PATHS.length)] + (random.nextInt(3) == 0 ? "?id=" + random.nextInt(100000) : "");
+            final int status = STATUS_CODES[random.nextInt(STATUS_CODES.length)];
+            final int bytes = random.nextInt(50000);
+            final String agent = AGENTS[random.nextInt(AGENTS.length)];
+            sb.append(
+                String.format(
+                    Locale.ROOT,
+                    "{\"@timestamp\":%d,\"host\":{\"name\":\"web-%02d\"},\"source\":{\"ip\":\"%s\"},"
+                        + "\"http\":{\"request\":{\"method\":\"%s\"},\"response\":{\"status_code\":%d,\"body\":{\"bytes\":%d}}},"
+                        + "\"url\":{\"original\":\"%s\"},"
+                        + "\"user_agent\":{\"original\":\"%s\"},\"message\":\"%s - - [%d] \\\"%s %s HTTP/1.1\\\" %d %d\"}%n",
+                    timestamp,
+                    random.nextInt(8),
+                    clientIp,
+                    method,
+                    status,
+                    bytes,
+                    path,
+                    agent,
+                    clientIp,
+                    timestamp,
+                    method,
+                    path,
+                    status,
+                    bytes
+                )
+            );
+        }
+        return new BytesArray(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
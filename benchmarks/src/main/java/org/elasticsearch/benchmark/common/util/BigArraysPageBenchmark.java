@@ -0,0 +1,98 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.common.util;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.LongHash;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link BigArrays} backed by heap pages with {@link BigArrays} backed by off-heap pages
+ * (see {@link PageCacheRecycler#OFF_HEAP_SETTING}).
+ */
+@Fork(2)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(1_000_000)
+@State(Scope.Benchmark)
+public class BigArraysPageBenchmark {
+    private static final int OPERATIONS = 1_000_000;
+
+    @Param({ "false", "true" })
+    public boolean offHeap;
+
+    @Param({ "1000", "100000", "1000000" })
+    public int distinctValues;
+
+    private BigArrays bigArrays;
+    private BytesRef[] terms;
+
+    @Setup
+    public void setup() {
+        PageCacheRecycler recycler = new PageCacheRecycler(
+            Settings.builder().put(PageCacheRecycler.OFF_HEAP_SETTING.getKey(), offHeap).build()
+        );
+        bigArrays = new BigArrays(recycler, null, "REQUEST");
+        terms = new BytesRef[distinctValues];
+        for (int i = 0; i < distinctValues; i++) {
+            terms[i] = new BytesRef("term-" + i);
+        }
+    }
+
+    @Benchmark
+    public void longArrayIncrement(Blackhole bh) {
+        try (LongArray array = bigArrays.newLongArray(distinctValues)) {
+            for (int i = 0; i < OPERATIONS; i++) {
+                array.increment(i % distinctValues, 1);
+            }
+            bh.consume(array.get(distinctValues - 1));
+        }
+    }
+
+    @Benchmark
+    public void longHashAdd(Blackhole bh) {
+        try (LongHash hash = new LongHash(1, bigArrays)) {
+            for (int i = 0; i < OPERATIONS; i++) {
+                hash.add(i % distinctValues);
+            }
+            bh.consume(hash.size());
+        }
+    }
+
+    @Benchmark
+    public void bytesRefHashAdd(Blackhole bh) {
+        try (BytesRefHash hash = new BytesRefHash(1, bigArrays)) {
+            for (int i = 0; i < OPERATIONS; i++) {
+                hash.add(terms[i % distinctValues]);
+            }
+            bh.consume(hash.size());
+        }
+    }
+}
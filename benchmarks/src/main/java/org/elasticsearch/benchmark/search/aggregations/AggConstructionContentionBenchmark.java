@@ -46,6 +46,7 @@ import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBuc
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.aggregations.support.AggregationCursors;
 import org.elasticsearch.search.aggregations.support.ValuesSourceRegistry;
 import org.elasticsearch.search.internal.SubSearchContext;
 import org.elasticsearch.search.lookup.SearchLookup;
@@ -354,6 +355,11 @@ public class AggConstructionContentionBenchmark {
             return true;
         }
 
+        @Override
+        public AggregationCursors cursors() {
+            return null;
+        }
+
         @Override
         public void close() {
             List<Releasable> releaseMe = new ArrayList<>(this.releaseMe);
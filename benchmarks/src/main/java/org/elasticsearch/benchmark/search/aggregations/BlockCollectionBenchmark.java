@@ -0,0 +1,122 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.elasticsearch.index.fielddata.FieldData;
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.search.aggregations.BlockLeafBucketCollector;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.metrics.CompensatedSum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares collecting a {@code sum} one document at a time with collecting it
+ * through a {@link BlockLeafBucketCollector}.
+ */
+@Fork(2)
+@Warmup(iterations = 10)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(BlockCollectionBenchmark.NUM_DOCS)
+@State(Scope.Benchmark)
+public class BlockCollectionBenchmark {
+    static final int NUM_DOCS = 1_000_000;
+
+    /**
+     * Fraction of the documents that have a value.
+     */
+    @Param({ "1.0", "0.5" })
+    public double density;
+
+    private double[] docValues;
+    private boolean[] hasValue;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        docValues = new double[NUM_DOCS];
+        hasValue = new boolean[NUM_DOCS];
+        for (int i = 0; i < NUM_DOCS; i++) {
+            docValues[i] = random.nextDouble() * 1000;
+            hasValue[i] = random.nextDouble() < density;
+        }
+    }
+
+    @Benchmark
+    public double perDoc() throws IOException {
+        SortedNumericDoubleValues values = values();
+        CompensatedSum sum = new CompensatedSum(0, 0);
+        LeafBucketCollector collector = new LeafBucketCollector() {
+            @Override
+            public void collect(int doc, long owningBucketOrd) throws IOException {
+                if (values.advanceExact(doc)) {
+                    for (int i = 0; i < values.docValueCount(); i++) {
+                        sum.add(values.nextValue());
+                    }
+                }
+            }
+        };
+        for (int doc = 0; doc < NUM_DOCS; doc++) {
+            collector.collect(doc);
+        }
+        return sum.value();
+    }
+
+    @Benchmark
+    public double block() throws IOException {
+        CompensatedSum sum = new CompensatedSum(0, 0);
+        BlockLeafBucketCollector collector = new BlockLeafBucketCollector(values()) {
+            @Override
+            protected void collectBlock(int[] docs, int[] docValueCounts, int docCount, double[] values, int valueCount) {
+                for (int i = 0; i < valueCount; i++) {
+                    sum.add(values[i]);
+                }
+            }
+        };
+        for (int doc = 0; doc < NUM_DOCS; doc++) {
+            collector.collect(doc);
+        }
+        collector.flush();
+        return sum.value();
+    }
+
+    private SortedNumericDoubleValues values() {
+        return FieldData.singleton(new NumericDoubleValues() {
+            private int doc;
+
+            @Override
+            public boolean advanceExact(int target) {
+                doc = target;
+                return hasValue[target];
+            }
+
+            @Override
+            public double doubleValue() {
+                return docValues[doc];
+            }
+        });
+    }
+}
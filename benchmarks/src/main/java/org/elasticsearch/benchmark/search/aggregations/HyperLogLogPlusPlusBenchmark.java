@@ -0,0 +1,112 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.search.aggregations.metrics.AbstractHyperLogLogPlusPlus;
+import org.elasticsearch.search.aggregations.metrics.HyperLogLogPlusPlus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures collecting hashes into the {@code HyperLogLogPlusPlus} of a {@code cardinality} aggregation under a bucket aggregation,
+ * merging its buckets like the reduction on the coordinating node does, and serializing its buckets like the shards do.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class HyperLogLogPlusPlusBenchmark {
+
+    @Param({ "1", "1000", "100000" })
+    private int buckets;
+    @Param({ "10", "1000", "100000" })
+    private int valuesPerBucket;
+    @Param({ "14" })
+    private int precision;
+
+    private long[] hashes;
+    private HyperLogLogPlusPlus collected;
+
+    @Setup
+    public void setup() {
+        // keep the total number of values reasonable when there are many buckets
+        long totalValues = Math.min((long) buckets * valuesPerBucket, 10_000_000L);
+        Random random = new Random(42);
+        hashes = new long[(int) totalValues];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = random.nextLong();
+        }
+        collected = collect();
+    }
+
+    @TearDown
+    public void tearDown() {
+        collected.close();
+    }
+
+    @Benchmark
+    public long collectAll() {
+        try (HyperLogLogPlusPlus counts = collect()) {
+            return counts.maxOrd();
+        }
+    }
+
+    @Benchmark
+    public long mergeAll() {
+        try (HyperLogLogPlusPlus reduced = new HyperLogLogPlusPlus(precision, BigArrays.NON_RECYCLING_INSTANCE, 1)) {
+            for (long bucket = 0; bucket < buckets; bucket++) {
+                reduced.merge(0, collected, bucket);
+            }
+            return reduced.cardinality(0);
+        }
+    }
+
+    @Benchmark
+    public long serializeAll() throws IOException {
+        long cardinality = 0;
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            for (long bucket = 0; bucket < buckets; bucket++) {
+                out.reset();
+                collected.writeTo(bucket, out);
+                StreamInput in = out.bytes().streamInput();
+                try (AbstractHyperLogLogPlusPlus read = AbstractHyperLogLogPlusPlus.readFrom(in, BigArrays.NON_RECYCLING_INSTANCE)) {
+                    cardinality += read.cardinality(0);
+                }
+            }
+        }
+        return cardinality;
+    }
+
+    private HyperLogLogPlusPlus collect() {
+        HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(precision, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        for (int i = 0; i < hashes.length; i++) {
+            counts.collect(i % buckets, hashes[i]);
+        }
+        return counts;
+    }
+}
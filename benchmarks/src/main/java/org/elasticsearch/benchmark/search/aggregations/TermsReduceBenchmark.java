@@ -17,7 +17,11 @@ import org.elasticsearch.action.search.SearchProgressListener;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.PageCacheRecycler;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
@@ -26,6 +30,7 @@ import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.AggregationReduceContext;
 import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
 import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
@@ -42,6 +47,7 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 
 import java.util.AbstractList;
@@ -49,6 +55,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
@@ -65,21 +72,46 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @Fork(value = 1)
 public class TermsReduceBenchmark {
 
-    private final SearchPhaseController controller = new SearchPhaseController((task, req) -> new AggregationReduceContext.Builder() {
-        @Override
-        public AggregationReduceContext forPartialReduction() {
-            return new AggregationReduceContext.ForPartial(null, null, task);
-        }
+    private static final NamedWriteableRegistry REGISTRY = new NamedWriteableRegistry(
+        List.of(new NamedWriteableRegistry.Entry(InternalAggregation.class, StringTerms.NAME, StringTerms::new))
+    );
 
-        @Override
-        public AggregationReduceContext forFinalReduction() {
-            final MultiBucketConsumerService.MultiBucketConsumer bucketConsumer = new MultiBucketConsumerService.MultiBucketConsumer(
-                Integer.MAX_VALUE,
-                new NoneCircuitBreakerService().getBreaker(CircuitBreaker.REQUEST)
-            );
-            return new AggregationReduceContext.ForFinal(null, null, bucketConsumer, PipelineAggregator.PipelineTree.EMPTY, task);
-        }
-    });
+    /**
+     * Whether the partially reduced aggregations are kept as {@code objects} or {@code serialized} between two partial reduces.
+     */
+    @Param({ "objects", "serialized" })
+    private String partialResults;
+
+    private SearchPhaseController controller;
+    private PeakCircuitBreaker circuitBreaker;
+
+    @Setup
+    public void setup() {
+        // the consumer accounts the serialized partial results itself, so their recycled pages are not accounted in a breaker
+        final BigArrays bigArrays = new BigArrays(new PageCacheRecycler(Settings.EMPTY), null, CircuitBreaker.REQUEST);
+        controller = new SearchPhaseController((task, req) -> new AggregationReduceContext.Builder() {
+            @Override
+            public AggregationReduceContext forPartialReduction() {
+                return new AggregationReduceContext.ForPartial(null, null, task);
+            }
+
+            @Override
+            public AggregationReduceContext forFinalReduction() {
+                final MultiBucketConsumerService.MultiBucketConsumer bucketConsumer = new MultiBucketConsumerService.MultiBucketConsumer(
+                    Integer.MAX_VALUE,
+                    new NoneCircuitBreakerService().getBreaker(CircuitBreaker.REQUEST)
+                );
+                return new AggregationReduceContext.ForFinal(null, null, bucketConsumer, PipelineAggregator.PipelineTree.EMPTY, task);
+            }
+        }, partialResults.equals("serialized") ? REGISTRY : null, bigArrays);
+        circuitBreaker = new PeakCircuitBreaker();
+    }
+
+    @TearDown
+    public void tearDown() {
+        // the memory that the coordinating node accounts in its request breaker while it reduces
+        System.out.printf(Locale.ROOT, "%n[%s] peak of the request breaker [%d] bytes%n", partialResults, circuitBreaker.peak);
+    }
 
     @State(Scope.Benchmark)
     public static class TermsList extends AbstractList<InternalAggregations> {
@@ -185,7 +217,7 @@ public class TermsReduceBenchmark {
         QueryPhaseResultConsumer consumer = new QueryPhaseResultConsumer(
             request,
             executor,
-            new NoopCircuitBreaker(CircuitBreaker.REQUEST),
+            circuitBreaker,
             controller,
             isCanceled::get,
             SearchProgressListener.NOOP,
@@ -198,7 +230,32 @@ public class TermsReduceBenchmark {
         }
         latch.await();
         SearchPhaseController.ReducedQueryPhase phase = consumer.reduce();
+        // releases the bytes accounted in the breaker
+        consumer.close();
         executor.shutdownNow();
         return phase;
     }
+
+    /**
+     * A breaker without limit that records the highest number of bytes that were accounted at once.
+     */
+    private static class PeakCircuitBreaker extends NoopCircuitBreaker {
+        private long used;
+        private long peak;
+
+        PeakCircuitBreaker() {
+            super(CircuitBreaker.REQUEST);
+        }
+
+        @Override
+        public void addEstimateBytesAndMaybeBreak(long bytes, String label) {
+            addWithoutBreaking(bytes);
+        }
+
+        @Override
+        public synchronized void addWithoutBreaking(long bytes) {
+            used += bytes;
+            peak = Math.max(peak, used);
+        }
+    }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.search.fetch;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.fetch.ConcurrentStoredFieldsLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the stored fields of a page of hits of a shard with 8 segments, like the fetch phase of a large export does, with one thread
+ * and with the concurrent loading of the fetch phase.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ConcurrentStoredFieldsLoaderBenchmark {
+    private static final int NUM_SEGMENTS = 8;
+    private static final int DOCS_PER_SEGMENT = 50_000;
+
+    @Param({ "1", "4" })
+    private int threads;
+    @Param({ "1000", "10000" })
+    private int hits;
+    @Param({ "sequential", "random" })
+    private String pattern;
+
+    private Directory directory;
+    private DirectoryReader reader;
+    private ExecutorService executor;
+    private int[] docIds;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        directory = new ByteBuffersDirectory();
+        try (IndexWriter w = new IndexWriter(directory, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            for (int i = 0; i < NUM_SEGMENTS; i++) {
+                for (int j = 0; j < DOCS_PER_SEGMENT; j++) {
+                    Document doc = new Document();
+                    StringBuilder source = new StringBuilder("{\"message\":\"");
+                    for (int k = 0; k < 50; k++) {
+                        source.append(Integer.toString(random.nextInt(), 36)).append(' ');
+                    }
+                    doc.add(new StoredField(SourceFieldMapper.NAME, new BytesRef(source.append("\"}").toString())));
+                    w.addDocument(doc);
+                }
+                w.commit();
+            }
+        }
+        reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(directory), new ShardId("index", "_na_", 0));
+        int maxDoc = reader.maxDoc();
+        docIds = new int[hits];
+        switch (pattern) {
+            case "sequential":
+                int start = random.nextInt(maxDoc - hits);
+                for (int i = 0; i < hits; i++) {
+                    docIds[i] = start + i;
+                }
+                break;
+            case "random":
+                // hits spread over the whole shard, sorted like the fetch phase sorts them
+                docIds = random.ints(0, maxDoc).distinct().limit(hits).sorted().toArray();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown pattern [" + pattern + "]");
+        }
+        // a single thread loads all chunks on the calling thread, like the sequential fetch phase
+        executor = threads == 1
+            ? EsExecutors.DIRECT_EXECUTOR_SERVICE
+            : EsExecutors.newFixed(
+                "benchmark",
+                threads - 1,
+                1000,
+                EsExecutors.daemonThreadFactory("benchmark"),
+                new ThreadContext(Settings.EMPTY),
+                false
+            );
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (executor != EsExecutors.DIRECT_EXECUTOR_SERVICE) {
+            executor.shutdown();
+        }
+        IOUtils.close(reader, directory);
+    }
+
+    @Benchmark
+    public FieldsVisitor[] load() throws IOException {
+        return ConcurrentStoredFieldsLoader.load(
+            reader.leaves(),
+            docIds,
+            () -> new FieldsVisitor(true),
+            field -> null,
+            () -> false,
+            executor,
+            threads
+        );
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.search.fetch.subphase;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MapperBuilderContext;
+import org.elasticsearch.index.mapper.Mapping;
+import org.elasticsearch.index.mapper.MetadataFieldMapper;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.mapper.ObjectMapper;
+import org.elasticsearch.index.mapper.RootObjectMapper;
+import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.mapper.SyntheticSourceLoader;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.script.ScriptCompiler;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.search.lookup.SourceLookup;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares fetching the {@code _source} of a page of hits from a metrics index that stores its {@code _source} with fetching it from
+ * the same index with a synthetic {@code _source} that is rebuilt from doc values. Every document has its fields in doc values, like
+ * metrics documents usually do, so the only difference on disk is the stored {@code _source}. The size of the force merged index is
+ * printed once per trial to compare the disk usage, the benchmarks measure the latency of loading a page of hits. Filtering the loaded
+ * source works like {@link FetchSourcePhaseBenchmark#filterObjects()}.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SyntheticSourceFetchBenchmark {
+
+    private static final String[] DATASETS = { "system.cpu", "system.memory", "system.network", "system.load" };
+
+    @Param({ "stored", "synthetic" })
+    public String source;
+
+    @Param({ "100000" })
+    public int numDocs;
+
+    @Param({ "100" })
+    public int hits;
+
+    @Param({ "host" })
+    public String includes;
+
+    private Path path;
+    private Directory directory;
+    private DirectoryReader reader;
+    private SyntheticSourceLoader syntheticSourceLoader;
+    private FetchSourceContext fetchContext;
+    private int[] docIds;
+
+    @Setup
+    public void setup() throws IOException {
+        path = Files.createTempDirectory("synthetic_source");
+        directory = new MMapDirectory(path);
+        Random random = new Random(0);
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig().setOpenMode(IndexWriterConfig.OpenMode.CREATE))) {
+            long timestamp = 1640995200000L;
+            for (int i = 0; i < numDocs; i++) {
+                timestamp += random.nextInt(1000);
+                writer.addDocument(metricsDocument(random, timestamp, source.equals("stored")));
+            }
+            writer.forceMerge(1);
+            writer.commit();
+        }
+        long sizeInBytes = 0;
+        for (String file : directory.listAll()) {
+            sizeInBytes += directory.fileLength(file);
+        }
+        System.out.printf(Locale.ROOT, "%n[%s] index of [%d] documents takes [%d] bytes%n", source, numDocs, sizeInBytes);
+
+        reader = DirectoryReader.open(directory);
+        syntheticSourceLoader = new SyntheticSourceLoader(
+            mapping(),
+            fieldType -> fieldType.fielddataBuilder("test", () -> { throw new UnsupportedOperationException(); })
+                .build(new IndexFieldDataCache.None(), new NoneCircuitBreakerService())
+        );
+        fetchContext = new FetchSourceContext(true, new String[] { includes }, new String[0]);
+        // a page of hits spread over the whole index, fetched in doc id order like the fetch phase does
+        docIds = random.ints(hits, 0, numDocs).sorted().toArray();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        directory.close();
+        IOUtils.rm(path);
+    }
+
+    @Benchmark
+    public long loadSource() throws IOException {
+        long length = 0;
+        SourceLoader loader = new SourceLoader();
+        for (int docId : docIds) {
+            length += loader.source(docId).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public long loadAndFilterSource() throws IOException {
+        long size = 0;
+        SourceLoader loader = new SourceLoader();
+        for (int docId : docIds) {
+            SourceLookup lookup = new SourceLookup();
+            lookup.setSource(loader.source(docId));
+            size += ((Map<?, ?>) lookup.filter(fetchContext)).size();
+        }
+        return size;
+    }
+
+    /**
+     * Loads the source of documents in increasing doc id order, either from the stored {@code _source} or rebuilt from the doc values
+     * with one {@link SyntheticSourceLoader.Leaf} per segment.
+     */
+    private class SourceLoader {
+        private final List<LeafReaderContext> leaves = reader.leaves();
+        private LeafReaderContext leaf;
+        private SyntheticSourceLoader.Leaf syntheticSource;
+
+        BytesReference source(int docId) throws IOException {
+            if (leaf == null || docId >= leaf.docBase + leaf.reader().maxDoc()) {
+                leaf = leaves.get(ReaderUtil.subIndex(docId, leaves));
+                syntheticSource = syntheticSourceLoader.leaf(leaf);
+            }
+            int subDocId = docId - leaf.docBase;
+            if (source.equals("synthetic")) {
+                return syntheticSource.source(subDocId);
+            }
+            FieldsVisitor visitor = new FieldsVisitor(true);
+            leaf.reader().document(subDocId, visitor);
+            return visitor.source();
+        }
+    }
+
+    private static Document metricsDocument(Random random, long timestamp, boolean storeSource) throws IOException {
+        String hostName = "host-" + random.nextInt(50);
+        String dataset = DATASETS[random.nextInt(DATASETS.length)];
+        double cpu = random.nextInt(10000) / 10000d;
+        long memory = random.nextInt(1 << 30);
+        long load = random.nextInt(100);
+
+        Document document = new Document();
+        document.add(new SortedNumericDocValuesField("@timestamp", timestamp));
+        document.add(new SortedSetDocValuesField("host.name", new BytesRef(hostName)));
+        document.add(new SortedSetDocValuesField("event.dataset", new BytesRef(dataset)));
+        document.add(new SortedNumericDocValuesField("system.cpu.pct", NumericUtils.doubleToSortableLong(cpu)));
+        document.add(new SortedNumericDocValuesField("system.memory.used.bytes", memory));
+        document.add(new SortedNumericDocValuesField("system.load.1", load));
+        if (storeSource) {
+            XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+            builder.field("@timestamp", DateFieldMapper.DEFAULT_DATE_TIME_FORMATTER.formatMillis(timestamp));
+            builder.startObject("event").field("dataset", dataset).endObject();
+            builder.startObject("host").field("name", hostName).endObject();
+            builder.startObject("system");
+            builder.startObject("cpu").field("pct", cpu).endObject();
+            builder.startObject("load").field("1", load).endObject();
+            builder.startObject("memory").startObject("used").field("bytes", memory).endObject().endObject();
+            builder.endObject();
+            BytesRef source = BytesReference.bytes(builder.endObject()).toBytesRef();
+            document.add(new StoredField(SourceFieldMapper.NAME, source.bytes, source.offset, source.length));
+        }
+        return document;
+    }
+
+    private static Mapping mapping() {
+        RootObjectMapper.Builder root = new RootObjectMapper.Builder("_doc");
+        root.add(
+            new DateFieldMapper.Builder(
+                "@timestamp",
+                DateFieldMapper.Resolution.MILLISECONDS,
+                DateFieldMapper.DEFAULT_DATE_TIME_FORMATTER,
+                ScriptCompiler.NONE,
+                true,
+                Version.CURRENT
+            )
+        );
+        root.add(new ObjectMapper.Builder("host").add(new KeywordFieldMapper.Builder("name")));
+        root.add(new ObjectMapper.Builder("event").add(new KeywordFieldMapper.Builder("dataset")));
+        root.add(
+            new ObjectMapper.Builder("system").add(
+                new ObjectMapper.Builder("cpu").add(
+                    new NumberFieldMapper.Builder("pct", NumberFieldMapper.NumberType.DOUBLE, ScriptCompiler.NONE, false, true)
+                )
+            )
+                .add(
+                    new ObjectMapper.Builder("memory").add(
+                        new ObjectMapper.Builder("used").add(
+                            new NumberFieldMapper.Builder("bytes", NumberFieldMapper.NumberType.LONG, ScriptCompiler.NONE, false, true)
+                        )
+                    )
+                )
+                .add(
+                    new ObjectMapper.Builder("load").add(
+                        new NumberFieldMapper.Builder("1", NumberFieldMapper.NumberType.LONG, ScriptCompiler.NONE, false, true)
+                    )
+                )
+        );
+        return new Mapping(root.build(MapperBuilderContext.ROOT), new MetadataFieldMapper[0], Map.of());
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.core.Releasable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures concurrent puts and gets on the {@link LiveVersionMap} of a single hot shard while it is being refreshed.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Group)
+public class LiveVersionMapBenchmark {
+    private static final int NUM_UIDS = 1 << 20;
+
+    private LiveVersionMap map;
+    private BytesRef[] uids;
+
+    @Setup
+    public void setup() {
+        map = new LiveVersionMap();
+        map.enforceSafeAccess();
+        uids = new BytesRef[NUM_UIDS];
+        for (int i = 0; i < NUM_UIDS; i++) {
+            uids[i] = new BytesRef("doc-" + i);
+        }
+    }
+
+    @Benchmark
+    @Group("indexing")
+    @GroupThreads(16)
+    public void put() {
+        final BytesRef uid = uids[ThreadLocalRandom.current().nextInt(NUM_UIDS)];
+        try (Releasable ignored = map.acquireLock(uid)) {
+            final VersionValue previous = map.getUnderLock(uid);
+            final long version = previous == null ? 1 : previous.version + 1;
+            map.putIndexUnderLock(uid, new IndexVersionValue(null, version, version, 1));
+        }
+    }
+
+    @Benchmark
+    @Group("indexing")
+    @GroupThreads(15)
+    public VersionValue get() {
+        final BytesRef uid = uids[ThreadLocalRandom.current().nextInt(NUM_UIDS)];
+        try (Releasable ignored = map.acquireLock(uid)) {
+            return map.getUnderLock(uid);
+        }
+    }
+
+    @Benchmark
+    @Group("indexing")
+    @GroupThreads(1)
+    public void refresh() throws IOException, InterruptedException {
+        map.beforeRefresh();
+        Thread.sleep(1);
+        map.afterRefresh(true);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.directbuffers;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Frees the native memory behind direct and memory mapped {@link ByteBuffer}s eagerly via {@code sun.misc.Unsafe#invokeCleaner},
+ * like Lucene's {@code MMapDirectory} unmaps its buffers, rather than whenever the garbage collector notices that a buffer is
+ * unreachable. If the JVM does not let us free buffers eagerly, they are left to the garbage collector.
+ * <p>
+ * This class lives in its own jar so that the permissions to reach {@code sun.misc.Unsafe} are only granted to this jar rather than
+ * to all of the server code. The lookup runs in a privileged block so that callers don't need these permissions.
+ */
+public final class DirectBuffers {
+
+    private static final MethodHandle INVOKE_CLEANER = AccessController.doPrivileged(
+        (PrivilegedAction<MethodHandle>) DirectBuffers::lookupInvokeCleaner
+    );
+
+    private DirectBuffers() {}
+
+    /**
+     * Free the native memory of a buffer returned by {@link ByteBuffer#allocateDirect} or
+     * {@link java.nio.channels.FileChannel#map}, but not of a slice or duplicate of such a buffer. Neither the buffer nor any
+     * slice or duplicate of it may be accessed anymore after this call, doing so may crash the JVM.
+     */
+    public static void free(ByteBuffer buffer) {
+        assert buffer.isDirect();
+        if (INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invokeExact(buffer);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new AssertionError(t);
+            }
+        }
+    }
+
+    /** Whether buffers are freed eagerly by {@link #free(ByteBuffer)}. */
+    public static boolean canFreeEagerly() {
+        return INVOKE_CLEANER != null;
+    }
+
+    private static MethodHandle lookupInvokeCleaner() {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(unsafeClass, MethodHandles.lookup());
+            final Object theUnsafe = lookup.findStaticVarHandle(unsafeClass, "theUnsafe", unsafeClass).get();
+            return lookup.findVirtual(unsafeClass, "invokeCleaner", methodType(void.class, ByteBuffer.class)).bindTo(theUnsafe);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // not allowed or not supported, buffers will be freed by the garbage collector
+            return null;
+        }
+    }
+}
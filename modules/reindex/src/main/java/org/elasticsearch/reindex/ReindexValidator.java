@@ -20,18 +20,24 @@ import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.support.AutoCreateIndex;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.metadata.MappingMetadata;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.logging.DeprecationCategory;
 import org.elasticsearch.common.logging.DeprecationLogger;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexNotFoundException;
+import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.reindex.ReindexAction;
 import org.elasticsearch.index.reindex.ReindexRequest;
 import org.elasticsearch.index.reindex.RemoteInfo;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 
 import java.util.List;
+import java.util.Map;
 
 public class ReindexValidator {
     private static final DeprecationLogger deprecationLogger = DeprecationLogger.getLogger(ReindexValidator.class);
@@ -66,6 +72,9 @@ public class ReindexValidator {
             autoCreateIndex,
             state
         );
+        if (request.getRemoteInfo() == null) {
+            validateSourceIsStored(ReindexAction.NAME, request.getSearchRequest(), resolver, state);
+        }
         SearchSourceBuilder searchSource = request.getSearchRequest().source();
         if (searchSource != null && searchSource.sorts() != null && searchSource.sorts().isEmpty() == false) {
             deprecationLogger.warn(DeprecationCategory.API, "reindex_sort", SORT_DEPRECATED_MESSAGE);
@@ -146,4 +155,33 @@ public class ReindexValidator {
             }
         }
     }
+
+    /**
+     * Throws an IllegalArgumentException if one of the indices that the request reads from has a synthetic {@code _source}, since
+     * writing the documents back would replace their original {@code _source} with the one rebuilt from their fields.
+     */
+    static void validateSourceIsStored(
+        String action,
+        SearchRequest source,
+        IndexNameExpressionResolver indexNameExpressionResolver,
+        ClusterState clusterState
+    ) {
+        for (Index index : indexNameExpressionResolver.concreteIndices(clusterState, source)) {
+            MappingMetadata mapping = clusterState.metadata().getIndexSafe(index).mapping();
+            if (mapping != null && hasSyntheticSource(mapping)) {
+                throw new IllegalArgumentException(
+                    "[" + action + "] doesn't support index [" + index.getName() + "] since its [_source] is synthetic"
+                );
+            }
+        }
+    }
+
+    private static boolean hasSyntheticSource(MappingMetadata mapping) {
+        Object sourceMapping = mapping.sourceAsMap().get(SourceFieldMapper.NAME);
+        if (sourceMapping instanceof Map == false) {
+            return false;
+        }
+        Object synthetic = ((Map<?, ?>) sourceMapping).get("synthetic");
+        return XContentMapValues.nodeBooleanValue(synthetic, SourceFieldMapper.NAME + ".synthetic", false);
+    }
 }
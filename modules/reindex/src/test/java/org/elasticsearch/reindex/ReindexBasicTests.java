@@ -11,6 +11,7 @@ package org.elasticsearch.reindex;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.index.reindex.AbstractBulkByScrollRequest;
 import org.elasticsearch.index.reindex.BulkByScrollResponse;
+import org.elasticsearch.index.reindex.ReindexAction;
 import org.elasticsearch.index.reindex.ReindexRequestBuilder;
 
 import java.util.ArrayList;
@@ -21,7 +22,9 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
@@ -156,4 +159,16 @@ public class ReindexBasicTests extends ReindexTestCase {
         assertThat(response, matcher().created(0).slices(hasSize(0)));
     }
 
+    public void testRefusesSyntheticSource() throws Exception {
+        assertAcked(prepareCreate("source").setMapping("""
+            { "_source": { "synthetic": true }, "properties": { "foo": { "type": "keyword" } } }"""));
+        indexRandom(true, client().prepareIndex("source").setId("1").setSource("foo", "a"));
+
+        ReindexRequestBuilder request = reindex().source("source").destination("dest").refresh(true);
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, request::get);
+        assertThat(
+            e.getMessage(),
+            equalTo("[" + ReindexAction.NAME + "] doesn't support index [source] since its [_source] is synthetic")
+        );
+    }
 }
@@ -11,6 +11,7 @@ package org.elasticsearch.reindex;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.index.reindex.AbstractBulkByScrollRequest;
 import org.elasticsearch.index.reindex.BulkByScrollResponse;
+import org.elasticsearch.index.reindex.UpdateByQueryAction;
 import org.elasticsearch.index.reindex.UpdateByQueryRequestBuilder;
 import org.elasticsearch.search.sort.SortOrder;
 
@@ -22,7 +23,9 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 
 public class UpdateByQueryBasicTests extends ReindexTestCase {
@@ -149,4 +152,17 @@ public class UpdateByQueryBasicTests extends ReindexTestCase {
             .get();
         assertThat(response, matcher().updated(0).slices(hasSize(0)));
     }
+
+    public void testRefusesSyntheticSource() throws Exception {
+        assertAcked(prepareCreate("source").setMapping("""
+            { "_source": { "synthetic": true }, "properties": { "foo": { "type": "keyword" } } }"""));
+        indexRandom(true, client().prepareIndex("source").setId("1").setSource("foo", "a"));
+
+        UpdateByQueryRequestBuilder request = updateByQuery().source("source").refresh(true);
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, request::get);
+        assertThat(
+            e.getMessage(),
+            equalTo("[" + UpdateByQueryAction.NAME + "] doesn't support index [source] since its [_source] is synthetic")
+        );
+    }
 }
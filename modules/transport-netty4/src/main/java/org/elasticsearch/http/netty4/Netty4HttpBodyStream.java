@@ -0,0 +1,153 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.http.HttpBodyStream;
+import org.elasticsearch.transport.netty4.Netty4Utils;
+
+import java.util.ArrayDeque;
+
+/**
+ * A {@link HttpBodyStream} over the {@link HttpContent} messages of a request. Auto-read is disabled on the channel while the body is
+ * streamed, so that the channel is only read from when the consumer asks for the next chunk. A single read may decode several
+ * messages, which are held until they are asked for.
+ * <p>
+ * All state but the handler, which is set by the consumer, is only accessed on the event loop of the channel.
+ */
+final class Netty4HttpBodyStream implements HttpBodyStream {
+
+    private final Channel channel;
+    private final ArrayDeque<HttpContent> pending = new ArrayDeque<>();
+
+    private volatile ChunkHandler handler;
+    private boolean requested;
+    private boolean lastReceived;
+    private boolean lastDelivered;
+    private boolean discarded;
+
+    Netty4HttpBodyStream(Channel channel) {
+        assert channel.eventLoop().inEventLoop();
+        this.channel = channel;
+        channel.config().setAutoRead(false);
+        channel.closeFuture().addListener(f -> onChannelClosed());
+    }
+
+    @Override
+    public void setHandler(ChunkHandler handler) {
+        assert this.handler == null : "handler is already set";
+        this.handler = handler;
+    }
+
+    @Override
+    public void next() {
+        assert handler != null : "handler must be set before requesting chunks";
+        channel.eventLoop().execute(() -> {
+            assert requested == false : "requested another chunk before the previous one was delivered";
+            if (discarded || lastDelivered) {
+                return;
+            }
+            if (channel.isActive() == false) {
+                // the channel was closed before the handler was set
+                discarded = true;
+                releasePending();
+                handler.onClose();
+                return;
+            }
+            requested = true;
+            if (pending.isEmpty()) {
+                channel.read();
+            } else {
+                deliver();
+            }
+        });
+    }
+
+    /**
+     * Called with the next message of the body as it is decoded.
+     */
+    void offer(HttpContent content) {
+        assert channel.eventLoop().inEventLoop();
+        assert lastReceived == false : "received content after the last content";
+        if (content instanceof LastHttpContent) {
+            lastReceived = true;
+        }
+        if (discarded) {
+            content.release();
+            return;
+        }
+        pending.add(content);
+        if (requested) {
+            deliver();
+        }
+    }
+
+    /**
+     * Called once a read from the channel completed, which may not have decoded any message if only a part of one was received.
+     */
+    void onReadComplete() {
+        assert channel.eventLoop().inEventLoop();
+        if (requested && pending.isEmpty() && lastReceived == false && discarded == false) {
+            channel.read();
+        }
+    }
+
+    boolean isLastReceived() {
+        return lastReceived;
+    }
+
+    /**
+     * Releases the remaining body, and reads it from the channel without handing it out so that the next request on the channel can be
+     * decoded. Called once the request was released, possibly before the consumer read the whole body if the request failed early.
+     */
+    void discard() {
+        channel.eventLoop().execute(() -> {
+            if (discarded) {
+                return;
+            }
+            discarded = true;
+            releasePending();
+            channel.config().setAutoRead(true);
+        });
+    }
+
+    private void deliver() {
+        final HttpContent content = pending.poll();
+        requested = false;
+        final boolean isLast = content instanceof LastHttpContent;
+        if (isLast) {
+            lastDelivered = true;
+            channel.config().setAutoRead(true);
+        }
+        final ByteBuf buf = content.content();
+        handler.onNext(new ReleasableBytesReference(Netty4Utils.toBytesReference(buf), buf::release), isLast);
+    }
+
+    private void onChannelClosed() {
+        channel.eventLoop().execute(() -> {
+            releasePending();
+            if (lastDelivered == false && discarded == false && handler != null) {
+                discarded = true;
+                handler.onClose();
+            }
+        });
+    }
+
+    private void releasePending() {
+        HttpContent content;
+        while ((content = pending.poll()) != null) {
+            content.release();
+        }
+    }
+}
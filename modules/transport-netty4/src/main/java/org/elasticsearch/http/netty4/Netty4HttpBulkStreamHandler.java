@@ -0,0 +1,110 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+
+import org.elasticsearch.common.Strings;
+
+/**
+ * Hands the bodies of bulk requests to the rest layer as a {@link Netty4HttpBodyStream} instead of letting the aggregator further down
+ * the pipeline collect them in memory. A streamed request is passed on as a {@link FullHttpRequest} with an empty body, which the
+ * aggregator lets through unchanged, and the content messages that follow it are fed to its body stream. All other requests are passed
+ * on untouched.
+ */
+final class Netty4HttpBulkStreamHandler extends ChannelInboundHandlerAdapter {
+
+    private Netty4HttpBodyStream current;
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (current != null && msg instanceof HttpContent) {
+            final Netty4HttpBodyStream stream = current;
+            stream.offer((HttpContent) msg);
+            if (stream.isLastReceived()) {
+                current = null;
+            }
+        } else if (msg instanceof HttpRequest && msg instanceof FullHttpRequest == false && isStreamedBulk((HttpRequest) msg)) {
+            final HttpRequest request = (HttpRequest) msg;
+            if (HttpUtil.is100ContinueExpected(request)) {
+                ctx.writeAndFlush(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE, Unpooled.EMPTY_BUFFER));
+                HttpUtil.set100ContinueExpected(request, false);
+            }
+            current = new Netty4HttpBodyStream(ctx.channel());
+            ctx.fireChannelRead(new StreamedHttpRequest(request, current));
+        } else {
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        if (current != null) {
+            current.onReadComplete();
+        }
+        ctx.fireChannelReadComplete();
+    }
+
+    private static boolean isStreamedBulk(HttpRequest request) {
+        if (request.decoderResult().isFailure() || HttpUtil.isUnsupportedExpectation(request)) {
+            return false;
+        }
+        if (request.method() != HttpMethod.POST && request.method() != HttpMethod.PUT) {
+            return false;
+        }
+        // only the routes of the bulk api, i.e. /_bulk, /{index}/_bulk and /{index}/{type}/_bulk, other apis may end with _bulk too
+        final String[] segments = Strings.tokenizeToStringArray(new QueryStringDecoder(request.uri()).path(), "/");
+        if (segments.length == 0 || segments.length > 3 || segments[segments.length - 1].equals("_bulk") == false) {
+            return false;
+        }
+        for (int i = 0; i < segments.length - 1; i++) {
+            if (segments[i].startsWith("_")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A request with an empty body whose actual body is read through its {@link Netty4HttpBodyStream}.
+     */
+    static final class StreamedHttpRequest extends DefaultFullHttpRequest {
+
+        private final Netty4HttpBodyStream bodyStream;
+
+        private StreamedHttpRequest(HttpRequest request, Netty4HttpBodyStream bodyStream) {
+            super(
+                request.protocolVersion(),
+                request.method(),
+                request.uri(),
+                Unpooled.EMPTY_BUFFER,
+                request.headers(),
+                EmptyHttpHeaders.INSTANCE
+            );
+            this.bodyStream = bodyStream;
+        }
+
+        Netty4HttpBodyStream bodyStream() {
+            return bodyStream;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
 
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.http.HttpBodyStream;
 import org.elasticsearch.http.HttpRequest;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
@@ -43,6 +44,7 @@ public class Netty4HttpRequest implements HttpRequest {
     private final AtomicBoolean released;
     private final Exception inboundException;
     private final boolean pooled;
+    private final Netty4HttpBodyStream bodyStream;
 
     Netty4HttpRequest(FullHttpRequest request) {
         this(
@@ -61,7 +63,20 @@ public class Netty4HttpRequest implements HttpRequest {
             new AtomicBoolean(false),
             true,
             Netty4Utils.toBytesReference(request.content()),
-            inboundException
+            inboundException,
+            null
+        );
+    }
+
+    Netty4HttpRequest(FullHttpRequest request, Netty4HttpBodyStream bodyStream) {
+        this(
+            request,
+            new HttpHeadersMap(request.headers()),
+            new AtomicBoolean(false),
+            true,
+            Netty4Utils.toBytesReference(request.content()),
+            null,
+            bodyStream
         );
     }
 
@@ -70,9 +85,10 @@ public class Netty4HttpRequest implements HttpRequest {
         HttpHeadersMap headers,
         AtomicBoolean released,
         boolean pooled,
-        BytesReference content
+        BytesReference content,
+        Netty4HttpBodyStream bodyStream
     ) {
-        this(request, headers, released, pooled, content, null);
+        this(request, headers, released, pooled, content, null, bodyStream);
     }
 
     private Netty4HttpRequest(
@@ -81,7 +97,8 @@ public class Netty4HttpRequest implements HttpRequest {
         AtomicBoolean released,
         boolean pooled,
         BytesReference content,
-        Exception inboundException
+        Exception inboundException,
+        Netty4HttpBodyStream bodyStream
     ) {
         this.request = request;
         this.headers = headers;
@@ -89,6 +106,7 @@ public class Netty4HttpRequest implements HttpRequest {
         this.pooled = pooled;
         this.released = released;
         this.inboundException = inboundException;
+        this.bodyStream = bodyStream;
     }
 
     @Override
@@ -136,8 +154,20 @@ public class Netty4HttpRequest implements HttpRequest {
         return content;
     }
 
+    @Override
+    public HttpBodyStream bodyStream() {
+        return bodyStream;
+    }
+
     @Override
     public void release() {
+        releaseContent();
+        if (bodyStream != null) {
+            bodyStream.discard();
+        }
+    }
+
+    private void releaseContent() {
         if (pooled && released.compareAndSet(false, true)) {
             request.release();
         }
@@ -163,10 +193,12 @@ public class Netty4HttpRequest implements HttpRequest {
                 headers,
                 new AtomicBoolean(false),
                 false,
-                Netty4Utils.toBytesReference(copiedContent)
+                Netty4Utils.toBytesReference(copiedContent),
+                bodyStream
             );
         } finally {
-            release();
+            // the copy takes over the body stream, only the aggregated content is released
+            releaseContent();
         }
     }
 
@@ -214,7 +246,14 @@ public class Netty4HttpRequest implements HttpRequest {
             headersWithoutContentTypeHeader,
             trailingHeaders
         );
-        return new Netty4HttpRequest(requestWithoutHeader, new HttpHeadersMap(requestWithoutHeader.headers()), released, pooled, content);
+        return new Netty4HttpRequest(
+            requestWithoutHeader,
+            new HttpHeadersMap(requestWithoutHeader.headers()),
+            released,
+            pooled,
+            content,
+            bodyStream
+        );
     }
 
     @Override
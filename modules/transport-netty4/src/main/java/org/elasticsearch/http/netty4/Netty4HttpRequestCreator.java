@@ -36,6 +36,8 @@ final class Netty4HttpRequestCreator extends MessageToMessageDecoder<FullHttpReq
                 nonError = (Exception) cause;
             }
             out.add(new Netty4HttpRequest(msg.retain(), nonError));
+        } else if (msg instanceof Netty4HttpBulkStreamHandler.StreamedHttpRequest) {
+            out.add(new Netty4HttpRequest(msg.retain(), ((Netty4HttpBulkStreamHandler.StreamedHttpRequest) msg).bodyStream()));
         } else {
             out.add(new Netty4HttpRequest(msg.retain()));
         }
@@ -0,0 +1,125 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.http.HttpBodyStream;
+import org.elasticsearch.test.ESTestCase;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class Netty4HttpBodyStreamTests extends ESTestCase {
+
+    public void testDeliversChunksOnlyWhenRequested() {
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final Netty4HttpBodyStream stream = new Netty4HttpBodyStream(channel);
+        assertFalse(channel.config().isAutoRead());
+        final RecordingHandler handler = new RecordingHandler();
+        stream.setHandler(handler);
+
+        final HttpContent first = content("first");
+        stream.offer(first);
+        channel.runPendingTasks();
+        assertThat(handler.chunks.size(), equalTo(0));
+
+        stream.next();
+        channel.runPendingTasks();
+        assertThat(handler.chunks, equalTo(List.of("first")));
+        assertFalse(handler.last);
+        // the handler is responsible for releasing the chunk
+        assertThat(first.refCnt(), equalTo(0));
+
+        stream.next();
+        channel.runPendingTasks();
+        assertThat(handler.chunks.size(), equalTo(1));
+        final HttpContent last = new DefaultLastHttpContent(Unpooled.copiedBuffer("last", StandardCharsets.UTF_8));
+        stream.offer(last);
+        assertTrue(stream.isLastReceived());
+        assertThat(handler.chunks, equalTo(List.of("first", "last")));
+        assertTrue(handler.last);
+        assertThat(last.refCnt(), equalTo(0));
+        // the next request on the channel is read as usual
+        assertTrue(channel.config().isAutoRead());
+        assertFalse(handler.closed);
+    }
+
+    public void testDiscardReleasesPendingContent() {
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final Netty4HttpBodyStream stream = new Netty4HttpBodyStream(channel);
+        final RecordingHandler handler = new RecordingHandler();
+        stream.setHandler(handler);
+        final List<HttpContent> contents = new ArrayList<>();
+        for (int i = between(1, 5); i > 0; i--) {
+            final HttpContent content = content("chunk");
+            contents.add(content);
+            stream.offer(content);
+        }
+        stream.discard();
+        channel.runPendingTasks();
+        for (HttpContent content : contents) {
+            assertThat(content.refCnt(), equalTo(0));
+        }
+        assertTrue(channel.config().isAutoRead());
+
+        // content that arrives after the body was discarded is released right away
+        final HttpContent late = content("late");
+        stream.offer(late);
+        assertThat(late.refCnt(), equalTo(0));
+        stream.next();
+        channel.runPendingTasks();
+        assertThat(handler.chunks.size(), equalTo(0));
+    }
+
+    public void testNotifiesHandlerWhenChannelCloses() {
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final Netty4HttpBodyStream stream = new Netty4HttpBodyStream(channel);
+        final RecordingHandler handler = new RecordingHandler();
+        stream.setHandler(handler);
+        final HttpContent pending = content("pending");
+        stream.offer(pending);
+        channel.close();
+        channel.runPendingTasks();
+        assertTrue(handler.closed);
+        assertThat(pending.refCnt(), equalTo(0));
+        assertThat(handler.chunks.size(), equalTo(0));
+    }
+
+    private static HttpContent content(String content) {
+        return new DefaultHttpContent(Unpooled.copiedBuffer(content, StandardCharsets.UTF_8));
+    }
+
+    private static class RecordingHandler implements HttpBodyStream.ChunkHandler {
+        final List<String> chunks = new ArrayList<>();
+        boolean last;
+        boolean closed;
+
+        @Override
+        public void onNext(ReleasableBytesReference chunk, boolean isLast) {
+            try (chunk) {
+                chunks.add(chunk.utf8ToString());
+                last = isLast;
+            }
+        }
+
+        @Override
+        public void onClose() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.http.HttpBodyStream;
+import org.elasticsearch.test.ESTestCase;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class Netty4HttpBulkStreamHandlerTests extends ESTestCase {
+
+    public void testStreamsBulkRequestBodies() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new Netty4HttpBulkStreamHandler());
+        final String uri = randomFrom("/_bulk", "/index/_bulk", "/index/_doc/_bulk", "/_bulk?refresh=true");
+        channel.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, randomFrom(HttpMethod.POST, HttpMethod.PUT), uri));
+        final Object request = channel.readInbound();
+        assertThat(request, instanceOf(Netty4HttpBulkStreamHandler.StreamedHttpRequest.class));
+        final Netty4HttpBodyStream stream = ((Netty4HttpBulkStreamHandler.StreamedHttpRequest) request).bodyStream();
+        final List<String> chunks = new ArrayList<>();
+        stream.setHandler(new HttpBodyStream.ChunkHandler() {
+            @Override
+            public void onNext(ReleasableBytesReference chunk, boolean isLast) {
+                try (chunk) {
+                    chunks.add(chunk.utf8ToString());
+                }
+            }
+
+            @Override
+            public void onClose() {
+                fail("channel should not be closed");
+            }
+        });
+
+        // the body goes to the stream rather than down the pipeline
+        channel.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer("first", StandardCharsets.UTF_8)));
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.copiedBuffer("last", StandardCharsets.UTF_8)));
+        assertNull(channel.readInbound());
+        stream.next();
+        channel.runPendingTasks();
+        stream.next();
+        channel.runPendingTasks();
+        assertThat(chunks, equalTo(List.of("first", "last")));
+
+        // the next request on the channel is handled as usual
+        final HttpContent next = new DefaultHttpContent(Unpooled.copiedBuffer("next", StandardCharsets.UTF_8));
+        channel.writeInbound(next);
+        assertThat(channel.readInbound(), sameInstance(next));
+        next.release();
+        channel.finishAndReleaseAll();
+    }
+
+    public void testPassesOtherRequestsThrough() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new Netty4HttpBulkStreamHandler());
+        final List<HttpRequest> requests = List.of(
+            new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/_bulk"),
+            new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/_search"),
+            new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/_security/role/_bulk"),
+            new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/a/b/c/_bulk"),
+            new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/_bulk")
+        );
+        for (HttpRequest request : requests) {
+            channel.writeInbound(request);
+            final Object passed = channel.readInbound();
+            assertThat(passed, sameInstance(request));
+            ReferenceCountUtil.release(passed);
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    public void testAnswersExpectContinue() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new Netty4HttpBulkStreamHandler());
+        final HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/_bulk");
+        request.headers().set(HttpHeaderNames.EXPECT, HttpHeaderValues.CONTINUE);
+        channel.writeInbound(request);
+        final Object response = channel.readOutbound();
+        assertThat(response, instanceOf(FullHttpResponse.class));
+        assertThat(((FullHttpResponse) response).status(), equalTo(HttpResponseStatus.CONTINUE));
+        ((FullHttpResponse) response).release();
+        final Object streamed = channel.readInbound();
+        assertThat(streamed, instanceOf(Netty4HttpBulkStreamHandler.StreamedHttpRequest.class));
+        assertFalse(((HttpRequest) streamed).headers().contains(HttpHeaderNames.EXPECT));
+        channel.finishAndReleaseAll();
+    }
+}
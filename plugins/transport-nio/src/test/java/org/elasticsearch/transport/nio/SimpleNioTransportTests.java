@@ -66,12 +66,12 @@ public class SimpleNioTransportTests extends AbstractSimpleTransportTestCase {
                 DiscoveryNode node,
                 TcpChannel channel,
                 ConnectionProfile profile,
-                ActionListener<Version> listener
+                ActionListener<TcpTransport.HandshakeResult> listener
             ) {
                 if (doHandshake) {
                     super.executeHandshake(node, channel, profile, listener);
                 } else {
-                    listener.onResponse(version.minimumCompatibilityVersion());
+                    listener.onResponse(new TcpTransport.HandshakeResult(version.minimumCompatibilityVersion(), false));
                 }
             }
         };
@@ -22,6 +22,8 @@ import org.elasticsearch.search.aggregations.bucket.global.GlobalAggregationBuil
 import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
 import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
 import org.elasticsearch.search.aggregations.bucket.histogram.Histogram.Bucket;
+import org.elasticsearch.search.aggregations.bucket.terms.SignificantTerms;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.test.ESIntegTestCase;
 import org.elasticsearch.test.hamcrest.ElasticsearchAssertions;
 
@@ -35,6 +37,8 @@ import java.util.List;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.dateHistogram;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.dateRange;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.filter;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.significantTerms;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
 import static org.hamcrest.Matchers.equalTo;
@@ -586,6 +590,120 @@ public class IndicesRequestCacheIT extends ESIntegTestCase {
         }
     }
 
+    public void testSegmentCacheFallsBackForCutTerms() throws Exception {
+        Client client = client();
+        createSegmentCacheIndices(client);
+        // the most frequent tag of the shard is never the most frequent tag of a segment
+        indexSegment(client, "a", "a", "a", "b", "b");
+        indexSegment(client, "c", "c", "c", "b", "b");
+
+        SearchResponse uncached = client.prepareSearch("uncached")
+            .setSize(0)
+            .addAggregation(terms("tags").field("tag").size(1).shardSize(1))
+            .get();
+        SearchResponse cached = client.prepareSearch("cached")
+            .setSize(0)
+            .addAggregation(terms("tags").field("tag").size(1).shardSize(1))
+            .get();
+        assertSearchResponse(cached);
+        Terms uncachedTerms = uncached.getAggregations().get("tags");
+        Terms cachedTerms = cached.getAggregations().get("tags");
+        assertThat(uncachedTerms.getBuckets().get(0).getKeyAsString(), equalTo("b"));
+        assertSameTerms(uncachedTerms, cachedTerms);
+
+        // terms that segments don't cut are reduced from the cached segment results
+        long segmentMisses = segmentCacheStats(client, "cached").getSegmentMissCount();
+        uncached = client.prepareSearch("uncached").setSize(0).addAggregation(terms("tags").field("tag").size(10)).get();
+        cached = client.prepareSearch("cached").setSize(0).addAggregation(terms("tags").field("tag").size(10)).get();
+        assertSearchResponse(cached);
+        assertSameTerms(uncached.getAggregations().get("tags"), cached.getAggregations().get("tags"));
+        assertThat(segmentCacheStats(client, "cached").getSegmentMissCount(), greaterThan(segmentMisses));
+    }
+
+    public void testSegmentCacheSkipsSignificantTerms() throws Exception {
+        Client client = client();
+        createSegmentCacheIndices(client);
+        indexSegment(client, "a", "a", "b", "c");
+        indexSegment(client, "a", "b", "c", "c");
+
+        for (String index : new String[] { "uncached", "cached" }) {
+            client.prepareIndex(index).setSource("tag", "a", "group", "x").get();
+            client.prepareIndex(index).setSource("tag", "a", "group", "x").get();
+            client.prepareIndex(index).setSource("tag", "c", "group", "x").get();
+        }
+        refresh("uncached", "cached");
+
+        SearchResponse uncached = client.prepareSearch("uncached")
+            .setSize(0)
+            .setQuery(QueryBuilders.termQuery("group", "x"))
+            .addAggregation(significantTerms("sig").field("tag").minDocCount(1))
+            .get();
+        SearchResponse cached = client.prepareSearch("cached")
+            .setSize(0)
+            .setQuery(QueryBuilders.termQuery("group", "x"))
+            .addAggregation(significantTerms("sig").field("tag").minDocCount(1))
+            .get();
+        assertSearchResponse(cached);
+        SignificantTerms uncachedTerms = uncached.getAggregations().get("sig");
+        SignificantTerms cachedTerms = cached.getAggregations().get("sig");
+        assertThat(cachedTerms.getBuckets().size(), equalTo(uncachedTerms.getBuckets().size()));
+        for (int i = 0; i < uncachedTerms.getBuckets().size(); i++) {
+            SignificantTerms.Bucket expected = uncachedTerms.getBuckets().get(i);
+            SignificantTerms.Bucket actual = cachedTerms.getBuckets().get(i);
+            assertThat(actual.getKeyAsString(), equalTo(expected.getKeyAsString()));
+            assertThat(actual.getSubsetDf(), equalTo(expected.getSubsetDf()));
+            assertThat(actual.getSupersetDf(), equalTo(expected.getSupersetDf()));
+            assertThat(actual.getSignificanceScore(), equalTo(expected.getSignificanceScore()));
+        }
+        // the scores of significant terms depend on the whole shard, so they are never cached by segment
+        assertThat(segmentCacheStats(client, "cached").getSegmentMissCount(), equalTo(0L));
+    }
+
+    private void createSegmentCacheIndices(Client client) {
+        for (String index : new String[] { "uncached", "cached" }) {
+            assertAcked(
+                client.admin()
+                    .indices()
+                    .prepareCreate(index)
+                    .setMapping("tag", "type=keyword", "group", "type=keyword")
+                    .setSettings(
+                        Settings.builder()
+                            .put(IndicesRequestCache.INDEX_CACHE_REQUEST_ENABLED_SETTING.getKey(), true)
+                            .put(IndicesSegmentRequestCache.INDEX_CACHE_REQUEST_SEGMENTS_ENABLED_SETTING.getKey(), index.equals("cached"))
+                            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+                            .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+                    )
+                    .get()
+            );
+        }
+        ensureGreen("uncached", "cached");
+    }
+
+    /**
+     * Indexes a document per tag into both indices and refreshes them, so that the documents make up a segment of their own.
+     */
+    private void indexSegment(Client client, String... tags) {
+        for (String index : new String[] { "uncached", "cached" }) {
+            for (String tag : tags) {
+                client.prepareIndex(index).setSource("tag", tag, "group", "y").get();
+            }
+        }
+        refresh("uncached", "cached");
+    }
+
+    private static void assertSameTerms(Terms expected, Terms actual) {
+        assertThat(actual.getSumOfOtherDocCounts(), equalTo(expected.getSumOfOtherDocCounts()));
+        assertThat(actual.getBuckets().size(), equalTo(expected.getBuckets().size()));
+        for (int i = 0; i < expected.getBuckets().size(); i++) {
+            assertThat(actual.getBuckets().get(i).getKeyAsString(), equalTo(expected.getBuckets().get(i).getKeyAsString()));
+            assertThat(actual.getBuckets().get(i).getDocCount(), equalTo(expected.getBuckets().get(i).getDocCount()));
+        }
+    }
+
+    private static RequestCacheStats segmentCacheStats(Client client, String index) {
+        return client.admin().indices().prepareStats(index).setRequestCache(true).get().getTotal().getRequestCache();
+    }
+
     private static void assertCacheState(Client client, String index, long expectedHits, long expectedMisses) {
         RequestCacheStats requestCacheStats = client.admin()
             .indices()
@@ -0,0 +1,160 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.rest.RestStatus;
+
+/**
+ * Tunes the size of the bulk requests of a {@link BulkProcessor} and the number of requests it executes concurrently from the responses
+ * to the previous requests, in the way TCP congestion control tunes its window:
+ * <ul>
+ *     <li>Starting from the minimum size and a single request, the size doubles with every accepted request until the maximum size is
+ *     reached or the cluster pushes back for the first time ("slow start").</li>
+ *     <li>After that the size grows by the minimum size with every accepted request, and once it reached the maximum size, the number of
+ *     concurrent requests grows by one every time as many requests were accepted as are executed concurrently ("additive increase").</li>
+ *     <li>Requests or items that are rejected with {@code 429 Too Many Requests} because the {@code write} thread pool queue of a node is
+ *     full halve the number of concurrent requests, or the size if only a single request is executed ("multiplicative decrease").</li>
+ *     <li>Requests whose latency per byte grows beyond {@link #LATENCY_THRESHOLD} times the lowest seen so far indicate that the
+ *     requests queue up on the nodes before they are rejected, which reduces the number of concurrent requests by one.</li>
+ * </ul>
+ * The number of concurrent requests is reduced at most once per round of requests, only requests that were started after the last
+ * reduction can reduce it again, so that the requests that were in flight during a reduction don't reduce it several times over.
+ */
+final class AdaptiveBulkSizer {
+
+    static final double LATENCY_THRESHOLD = 2.0;
+    // weight of the latest sample in the moving average of the latency per byte
+    private static final double LATENCY_ALPHA = 0.3;
+
+    private final long minBulkSizeInBytes;
+    private final long maxBulkSizeInBytes;
+    private final int maxConcurrentRequests;
+
+    private long bulkSizeInBytes;
+    private int concurrentRequests = 1;
+    private boolean slowStart = true;
+    private long generation;
+    private int acceptedSinceIncrease;
+    private double latencyPerByte = Double.NaN;
+    private double minLatencyPerByte = Double.POSITIVE_INFINITY;
+
+    AdaptiveBulkSizer(long minBulkSizeInBytes, long maxBulkSizeInBytes, int maxConcurrentRequests) {
+        if (minBulkSizeInBytes <= 0) {
+            throw new IllegalArgumentException("min bulk size must be positive but was [" + minBulkSizeInBytes + "]");
+        }
+        if (maxBulkSizeInBytes < minBulkSizeInBytes) {
+            throw new IllegalArgumentException(
+                "max bulk size [" + maxBulkSizeInBytes + "] must not be smaller than min bulk size [" + minBulkSizeInBytes + "]"
+            );
+        }
+        this.minBulkSizeInBytes = minBulkSizeInBytes;
+        this.maxBulkSizeInBytes = maxBulkSizeInBytes;
+        this.maxConcurrentRequests = Math.max(1, maxConcurrentRequests);
+        this.bulkSizeInBytes = minBulkSizeInBytes;
+    }
+
+    /**
+     * The size in bytes at which the next bulk request should be executed.
+     */
+    synchronized long bulkSizeInBytes() {
+        return bulkSizeInBytes;
+    }
+
+    /**
+     * The number of bulk requests that should be executed concurrently.
+     */
+    synchronized int concurrentRequests() {
+        return concurrentRequests;
+    }
+
+    /**
+     * The round a request belongs to, which must be taken when the request is started and passed back when it completed.
+     */
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Called with the response to a request of the given size that was started in the given round and took the given time.
+     */
+    synchronized void onResponse(long generation, long sizeInBytes, long tookInNanos, BulkResponse response) {
+        boolean rejected = false;
+        for (BulkItemResponse item : response) {
+            if (item.isFailed() && item.status() == RestStatus.TOO_MANY_REQUESTS) {
+                rejected = true;
+                break;
+            }
+        }
+        if (rejected) {
+            onRejected(generation);
+            return;
+        }
+        if (sizeInBytes > 0) {
+            final double sample = (double) tookInNanos / sizeInBytes;
+            latencyPerByte = Double.isNaN(latencyPerByte) ? sample : LATENCY_ALPHA * sample + (1 - LATENCY_ALPHA) * latencyPerByte;
+            minLatencyPerByte = Math.min(minLatencyPerByte, latencyPerByte);
+            if (latencyPerByte > minLatencyPerByte * LATENCY_THRESHOLD) {
+                onQueueing(generation);
+                return;
+            }
+        }
+        onAccepted();
+    }
+
+    /**
+     * Called if a request that was started in the given round failed as a whole.
+     */
+    synchronized void onFailure(long generation, Exception e) {
+        if (ExceptionsHelper.status(e) == RestStatus.TOO_MANY_REQUESTS) {
+            onRejected(generation);
+        }
+    }
+
+    private void onAccepted() {
+        if (slowStart) {
+            bulkSizeInBytes = Math.min(maxBulkSizeInBytes, bulkSizeInBytes * 2);
+            if (bulkSizeInBytes == maxBulkSizeInBytes) {
+                slowStart = false;
+            }
+        } else if (bulkSizeInBytes < maxBulkSizeInBytes) {
+            bulkSizeInBytes = Math.min(maxBulkSizeInBytes, bulkSizeInBytes + minBulkSizeInBytes);
+        } else if (concurrentRequests < maxConcurrentRequests && ++acceptedSinceIncrease >= concurrentRequests) {
+            concurrentRequests++;
+            acceptedSinceIncrease = 0;
+        }
+    }
+
+    private void onRejected(long generation) {
+        slowStart = false;
+        if (generation != this.generation) {
+            // started before the last reduction, which already accounted for it
+            return;
+        }
+        this.generation++;
+        acceptedSinceIncrease = 0;
+        if (concurrentRequests > 1) {
+            concurrentRequests = Math.max(1, concurrentRequests / 2);
+        } else {
+            bulkSizeInBytes = Math.max(minBulkSizeInBytes, bulkSizeInBytes / 2);
+        }
+    }
+
+    private void onQueueing(long generation) {
+        slowStart = false;
+        if (generation != this.generation) {
+            return;
+        }
+        this.generation++;
+        acceptedSinceIncrease = 0;
+        if (concurrentRequests > 1) {
+            concurrentRequests--;
+        }
+    }
+}
@@ -15,6 +15,7 @@ import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
 import org.elasticsearch.action.support.replication.TransportWriteAction;
 import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.translog.Translog;
 
@@ -64,6 +65,7 @@ class BulkPrimaryExecutionContext {
     private DocWriteRequest<?> requestToExecute;
     private BulkItemResponse executionResult;
     private int retryCounter;
+    private BulkShardDocumentParser preParsedDocuments;
 
     BulkPrimaryExecutionContext(BulkShardRequest request, IndexShard primary) {
         this.request = request;
@@ -186,6 +188,33 @@ class BulkPrimaryExecutionContext {
         assert assertInvariants(ItemProcessingState.TRANSLATED);
     }
 
+    /** sets the documents that were parsed ahead of executing the items */
+    public void setPreParsedDocuments(BulkShardDocumentParser preParsedDocuments) {
+        this.preParsedDocuments = preParsedDocuments;
+    }
+
+    /**
+     * returns the document that was parsed for the current item ahead of executing it, or {@code null} if the request to execute needs
+     * to be parsed. The document is only returned once, and only if the request to execute is the untranslated item request and the
+     * mapping didn't change since the document was parsed.
+     */
+    public ParsedDocument takePreParsedDocument() {
+        assert assertInvariants(ItemProcessingState.TRANSLATED);
+        if (preParsedDocuments == null || requestToExecute != getCurrent()) {
+            return null;
+        }
+        return preParsedDocuments.take(currentIndex, primary.mapperService().documentMapper());
+    }
+
+    /** stops parsing documents ahead of time, releases the documents that weren't used and returns the time spent parsing them */
+    public long stopPreParsing() {
+        if (preParsedDocuments == null) {
+            return 0;
+        }
+        preParsedDocuments.stop();
+        return preParsedDocuments.parseTimeInNanos();
+    }
+
     /** returns the request that should be executed on the shard. */
     @SuppressWarnings("unchecked")
     public <T extends DocWriteRequest<T>> T getRequestToExecute() {
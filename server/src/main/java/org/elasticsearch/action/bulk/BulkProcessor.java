@@ -89,6 +89,8 @@ public class BulkProcessor implements Closeable {
         private String globalRouting;
         private String globalPipeline;
         private Supplier<Boolean> flushCondition = () -> true;
+        private ByteSizeValue minAdaptiveBulkSize = null;
+        private ByteSizeValue maxAdaptiveBulkSize = null;
 
         private Builder(
             BiConsumer<BulkRequest, ActionListener<BulkResponse>> consumer,
@@ -174,10 +176,31 @@ public class BulkProcessor implements Closeable {
             return this;
         }
 
+        /**
+         * Tunes the size of the bulk requests between the given bounds, and the number of concurrent requests between one and
+         * {@link #setConcurrentRequests(int)}, from the latency of the previous requests and the requests that were rejected because the
+         * cluster is overloaded. The fixed {@link #setBulkSize(ByteSizeValue) bulk size} is ignored once enabled. Disabled by default.
+         */
+        public Builder setAdaptiveBulkSizing(ByteSizeValue minBulkSize, ByteSizeValue maxBulkSize) {
+            Objects.requireNonNull(minBulkSize, "minBulkSize");
+            Objects.requireNonNull(maxBulkSize, "maxBulkSize");
+            if (maxBulkSize.getBytes() < minBulkSize.getBytes()) {
+                throw new IllegalArgumentException(
+                    "max bulk size [" + maxBulkSize + "] must not be smaller than min bulk size [" + minBulkSize + "]"
+                );
+            }
+            this.minAdaptiveBulkSize = minBulkSize;
+            this.maxAdaptiveBulkSize = maxBulkSize;
+            return this;
+        }
+
         /**
          * Builds a new bulk processor.
          */
         public BulkProcessor build() {
+            final AdaptiveBulkSizer sizer = minAdaptiveBulkSize == null
+                ? null
+                : new AdaptiveBulkSizer(minAdaptiveBulkSize.getBytes(), maxAdaptiveBulkSize.getBytes(), concurrentRequests);
             return new BulkProcessor(
                 consumer,
                 backoffPolicy,
@@ -190,7 +213,8 @@ public class BulkProcessor implements Closeable {
                 retryScheduler,
                 onClose,
                 createBulkRequestWithGlobalDefaults(),
-                flushCondition
+                flushCondition,
+                sizer
             );
         }
 
@@ -270,6 +294,8 @@ public class BulkProcessor implements Closeable {
 
     private final int bulkActions;
     private final long bulkSize;
+    @Nullable
+    private final AdaptiveBulkSizer sizer;
 
     private final Scheduler.Cancellable cancellableFlushTask;
 
@@ -297,13 +323,46 @@ public class BulkProcessor implements Closeable {
         Runnable onClose,
         Supplier<BulkRequest> bulkRequestSupplier,
         Supplier<Boolean> flushSupplier
+    ) {
+        this(
+            consumer,
+            backoffPolicy,
+            listener,
+            concurrentRequests,
+            bulkActions,
+            bulkSize,
+            flushInterval,
+            flushScheduler,
+            retryScheduler,
+            onClose,
+            bulkRequestSupplier,
+            flushSupplier,
+            null
+        );
+    }
+
+    BulkProcessor(
+        BiConsumer<BulkRequest, ActionListener<BulkResponse>> consumer,
+        BackoffPolicy backoffPolicy,
+        Listener listener,
+        int concurrentRequests,
+        int bulkActions,
+        ByteSizeValue bulkSize,
+        @Nullable TimeValue flushInterval,
+        Scheduler flushScheduler,
+        Scheduler retryScheduler,
+        Runnable onClose,
+        Supplier<BulkRequest> bulkRequestSupplier,
+        Supplier<Boolean> flushSupplier,
+        @Nullable AdaptiveBulkSizer sizer
     ) {
         this.bulkActions = bulkActions;
         this.bulkSize = bulkSize.getBytes();
+        this.sizer = sizer;
         this.bulkRequest = bulkRequestSupplier.get();
         this.bulkRequestSupplier = bulkRequestSupplier;
         this.flushSupplier = flushSupplier;
-        this.bulkRequestHandler = new BulkRequestHandler(consumer, backoffPolicy, listener, retryScheduler, concurrentRequests);
+        this.bulkRequestHandler = new BulkRequestHandler(consumer, backoffPolicy, listener, retryScheduler, concurrentRequests, sizer);
         // Start period flushing task after everything is setup
         this.cancellableFlushTask = startFlushTask(flushInterval, flushScheduler);
         this.onClose = onClose;
@@ -542,6 +601,9 @@ public class BulkProcessor implements Closeable {
         if (bulkActions != -1 && bulkRequest.numberOfActions() >= bulkActions) {
             return true;
         }
+        if (sizer != null) {
+            return bulkRequest.estimatedSizeInBytes() >= sizer.bulkSizeInBytes();
+        }
         if (bulkSize != -1 && bulkRequest.estimatedSizeInBytes() >= bulkSize) {
             return true;
         }
@@ -274,6 +274,43 @@ public class BulkRequest extends ActionRequest
         return this;
     }
 
+    /**
+     * Adds the complete items at the start of the given framed data, which may end with an incomplete item unless it is the
+     * {@code lastData} of the request. Returns the number of bytes that were consumed.
+     *
+     * @see BulkRequestParser#incrementalParse
+     */
+    public int incrementalAdd(
+        BytesReference data,
+        @Nullable String defaultIndex,
+        @Nullable String defaultRouting,
+        @Nullable FetchSourceContext defaultFetchSourceContext,
+        @Nullable String defaultPipeline,
+        @Nullable Boolean defaultRequireAlias,
+        boolean allowExplicitIndex,
+        XContentType xContentType,
+        RestApiVersion restApiVersion,
+        boolean lastData
+    ) throws IOException {
+        String routing = valueOrDefault(defaultRouting, globalRouting);
+        String pipeline = valueOrDefault(defaultPipeline, globalPipeline);
+        Boolean requireAlias = valueOrDefault(defaultRequireAlias, globalRequireAlias);
+        return new BulkRequestParser(true, restApiVersion).incrementalParse(
+            data,
+            defaultIndex,
+            routing,
+            defaultFetchSourceContext,
+            pipeline,
+            requireAlias,
+            allowExplicitIndex,
+            xContentType,
+            (indexRequest, type) -> internalAdd(indexRequest),
+            this::internalAdd,
+            this::add,
+            lastData
+        );
+    }
+
     /**
      * Sets the number of shard copies that must be active before proceeding with the write.
      * See {@link ReplicationRequest#waitForActiveShards(ActiveShardCount)} for details.
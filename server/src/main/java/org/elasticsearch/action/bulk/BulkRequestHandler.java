@@ -11,6 +11,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.util.concurrent.AdjustableSemaphore;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.threadpool.Scheduler;
 
 import java.util.concurrent.CountDownLatch;
@@ -28,6 +30,9 @@ public final class BulkRequestHandler {
     private final Semaphore semaphore;
     private final Retry retry;
     private final int concurrentRequests;
+    @Nullable
+    private final AdaptiveBulkSizer sizer;
+    private boolean closing; // guarded by semaphore
 
     BulkRequestHandler(
         BiConsumer<BulkRequest, ActionListener<BulkResponse>> consumer,
@@ -35,14 +40,70 @@ public final class BulkRequestHandler {
         BulkProcessor.Listener listener,
         Scheduler scheduler,
         int concurrentRequests
+    ) {
+        this(consumer, backoffPolicy, listener, scheduler, concurrentRequests, null);
+    }
+
+    BulkRequestHandler(
+        BiConsumer<BulkRequest, ActionListener<BulkResponse>> consumer,
+        BackoffPolicy backoffPolicy,
+        BulkProcessor.Listener listener,
+        Scheduler scheduler,
+        int concurrentRequests,
+        @Nullable AdaptiveBulkSizer sizer
     ) {
         assert concurrentRequests >= 0;
         this.logger = LogManager.getLogger(getClass());
-        this.consumer = consumer;
         this.listener = listener;
         this.concurrentRequests = concurrentRequests;
         this.retry = new Retry(backoffPolicy, scheduler);
-        this.semaphore = new Semaphore(concurrentRequests > 0 ? concurrentRequests : 1);
+        this.sizer = sizer;
+        if (sizer != null && concurrentRequests > 0) {
+            // the number of concurrent requests is tuned between one and the configured number of concurrent requests
+            this.semaphore = new AdjustableSemaphore(sizer.concurrentRequests(), false);
+        } else {
+            this.semaphore = new Semaphore(concurrentRequests > 0 ? concurrentRequests : 1);
+        }
+        this.consumer = sizer == null ? consumer : observingConsumer(consumer, sizer);
+    }
+
+    /**
+     * Reports every attempt to execute a request, including retries, to the sizer so that it sees all rejections.
+     */
+    private BiConsumer<BulkRequest, ActionListener<BulkResponse>> observingConsumer(
+        BiConsumer<BulkRequest, ActionListener<BulkResponse>> delegate,
+        AdaptiveBulkSizer sizer
+    ) {
+        return (bulkRequest, bulkListener) -> {
+            final long generation = sizer.generation();
+            final long sizeInBytes = bulkRequest.estimatedSizeInBytes();
+            final long startNanos = System.nanoTime();
+            delegate.accept(bulkRequest, new ActionListener<>() {
+                @Override
+                public void onResponse(BulkResponse response) {
+                    sizer.onResponse(generation, sizeInBytes, System.nanoTime() - startNanos, response);
+                    adjustConcurrentRequests();
+                    bulkListener.onResponse(response);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    sizer.onFailure(generation, e);
+                    adjustConcurrentRequests();
+                    bulkListener.onFailure(e);
+                }
+            });
+        };
+    }
+
+    private void adjustConcurrentRequests() {
+        if (semaphore instanceof AdjustableSemaphore) {
+            synchronized (semaphore) {
+                if (closing == false) {
+                    ((AdjustableSemaphore) semaphore).setMaxPermits(sizer.concurrentRequests());
+                }
+            }
+        }
     }
 
     public void execute(BulkRequest bulkRequest, long executionId) {
@@ -86,6 +147,13 @@ public final class BulkRequestHandler {
     }
 
     boolean awaitClose(long timeout, TimeUnit unit) throws InterruptedException {
+        if (semaphore instanceof AdjustableSemaphore) {
+            synchronized (semaphore) {
+                // stop tuning so that acquiring all permits means that all requests completed
+                closing = true;
+                ((AdjustableSemaphore) semaphore).setMaxPermits(this.concurrentRequests);
+            }
+        }
         if (semaphore.tryAcquire(this.concurrentRequests, timeout, unit)) {
             semaphore.release(this.concurrentRequests);
             return true;
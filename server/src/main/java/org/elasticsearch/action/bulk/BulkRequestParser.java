@@ -83,13 +83,13 @@ public final class BulkRequestParser {
             .withRestApiVersion(restApiVersion);
     }
 
-    private static int findNextMarker(byte marker, int from, BytesReference data) {
+    private static int findNextMarker(byte marker, int from, BytesReference data, boolean lastData) {
         final int res = data.indexOf(marker, from);
         if (res != -1) {
             assert res >= 0;
             return res;
         }
-        if (from != data.length()) {
+        if (from != data.length() && lastData) {
             throw new IllegalArgumentException("The bulk request must be terminated by a newline [\\n]");
         }
         return res;
@@ -131,6 +131,71 @@ public final class BulkRequestParser {
         BiConsumer<IndexRequest, String> indexRequestConsumer,
         Consumer<UpdateRequest> updateRequestConsumer,
         Consumer<DeleteRequest> deleteRequestConsumer
+    ) throws IOException {
+        parse(
+            data,
+            defaultIndex,
+            defaultRouting,
+            defaultFetchSourceContext,
+            defaultPipeline,
+            defaultRequireAlias,
+            allowExplicitIndex,
+            xContentType,
+            indexRequestConsumer,
+            updateRequestConsumer,
+            deleteRequestConsumer,
+            true
+        );
+    }
+
+    /**
+     * Parse the complete items at the start of the provided {@code data}, which may end with an incomplete item unless it is the
+     * {@code lastData} of the bulk request. Returns the number of bytes that were consumed, the remaining bytes must be passed again
+     * together with the data that follows them.
+     */
+    public int incrementalParse(
+        BytesReference data,
+        @Nullable String defaultIndex,
+        @Nullable String defaultRouting,
+        @Nullable FetchSourceContext defaultFetchSourceContext,
+        @Nullable String defaultPipeline,
+        @Nullable Boolean defaultRequireAlias,
+        boolean allowExplicitIndex,
+        XContentType xContentType,
+        BiConsumer<IndexRequest, String> indexRequestConsumer,
+        Consumer<UpdateRequest> updateRequestConsumer,
+        Consumer<DeleteRequest> deleteRequestConsumer,
+        boolean lastData
+    ) throws IOException {
+        return parse(
+            data,
+            defaultIndex,
+            defaultRouting,
+            defaultFetchSourceContext,
+            defaultPipeline,
+            defaultRequireAlias,
+            allowExplicitIndex,
+            xContentType,
+            indexRequestConsumer,
+            updateRequestConsumer,
+            deleteRequestConsumer,
+            lastData
+        );
+    }
+
+    private int parse(
+        BytesReference data,
+        @Nullable String defaultIndex,
+        @Nullable String defaultRouting,
+        @Nullable FetchSourceContext defaultFetchSourceContext,
+        @Nullable String defaultPipeline,
+        @Nullable Boolean defaultRequireAlias,
+        boolean allowExplicitIndex,
+        XContentType xContentType,
+        BiConsumer<IndexRequest, String> indexRequestConsumer,
+        Consumer<UpdateRequest> updateRequestConsumer,
+        Consumer<DeleteRequest> deleteRequestConsumer,
+        boolean lastData
     ) throws IOException {
         XContent xContent = xContentType.xContent();
         int line = 0;
@@ -143,9 +208,10 @@ public final class BulkRequestParser {
         boolean typesDeprecationLogged = false;
 
         while (true) {
-            int nextMarker = findNextMarker(marker, from, data);
+            final int itemFrom = from;
+            int nextMarker = findNextMarker(marker, from, data, lastData);
             if (nextMarker == -1) {
-                break;
+                return from;
             }
             line++;
 
@@ -322,9 +388,13 @@ public final class BulkRequestParser {
                             .setIfPrimaryTerm(ifPrimaryTerm)
                     );
                 } else {
-                    nextMarker = findNextMarker(marker, from, data);
+                    nextMarker = findNextMarker(marker, from, data, lastData);
                     if (nextMarker == -1) {
-                        break;
+                        if (lastData == false) {
+                            // the source of this item is still incomplete, parse its action line again with the data that follows
+                            return itemFrom;
+                        }
+                        return from;
                     }
                     line++;
 
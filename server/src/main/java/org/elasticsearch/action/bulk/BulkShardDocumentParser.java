@@ -0,0 +1,291 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.SourceToParse;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Parses the documents of the index requests of a shard bulk request ahead of applying them to the engine. The items are split into
+ * chunks that up to {@code parallelism} helper tasks on the given executor claim in order and parse while the write thread applies the
+ * previous items. Helpers never run more than {@link #MAX_CHUNKS_AHEAD} chunks ahead of the item that is being applied, which bounds the
+ * number of parsed documents held in memory, and they are forked again as the write thread moves on. Rejected helpers only reduce the
+ * parallelism.
+ * <p>
+ * The write thread never waits for a helper. If the chunk of the item it applies was not claimed yet it claims it so that helpers skip
+ * it, and if a helper is still parsing it, the item is parsed inline as if there was no parser at all.
+ * <p>
+ * Parsing doesn't assign sequence numbers, the documents are still applied to the engine one after the other in the order of the
+ * request. A document is only handed out if the mapping of the shard didn't change since it was parsed, and parsing stops once the
+ * mapping changed. Documents that failed to parse or that were parsed against an outdated mapping are parsed again when they are
+ * applied, which reports the failure or the required dynamic mapping update the same way as if they had not been parsed ahead of time.
+ */
+final class BulkShardDocumentParser {
+
+    private static final Logger logger = LogManager.getLogger(BulkShardDocumentParser.class);
+
+    static final int CHUNK_SIZE = 8;
+    static final int MAX_CHUNKS_AHEAD = 16;
+
+    private final DocumentMapper documentMapper;
+    private final BulkItemRequest[] items;
+    /** the indices of the items to parse */
+    private final int[] indices;
+    /** the position of each item in {@link #indices}, or {@code -1} if it isn't parsed ahead of time */
+    private final int[] positions;
+    /** the documents of each chunk, published once the whole chunk is parsed */
+    private final AtomicReferenceArray<ParsedDocument[]> chunks;
+    private final Executor executor;
+    private final int parallelism;
+    /**
+     * the next chunk to claim, chunks are claimed in order by both helpers and the write thread. The write thread starts applying the
+     * first chunk right away, so helpers start with the second one.
+     */
+    private final AtomicInteger nextChunk = new AtomicInteger(1);
+    private final AtomicInteger activeHelpers = new AtomicInteger();
+    private final AtomicLong parseTimeInNanos = new AtomicLong();
+    /** the chunk of the item that is being applied, only written by the write thread */
+    private volatile int currentChunk;
+    private volatile boolean stopped;
+
+    private BulkShardDocumentParser(
+        DocumentMapper documentMapper,
+        BulkItemRequest[] items,
+        int[] indices,
+        Executor executor,
+        int parallelism
+    ) {
+        this.documentMapper = documentMapper;
+        this.items = items;
+        this.indices = indices;
+        this.positions = new int[items.length];
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < indices.length; i++) {
+            positions[indices[i]] = i;
+        }
+        this.chunks = new AtomicReferenceArray<>((indices.length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Starts parsing the documents of all index requests of the given request in the background, returns {@code null} if there is
+     * nothing worth parsing ahead of time. Never blocks the calling thread.
+     */
+    static BulkShardDocumentParser parse(BulkShardRequest request, DocumentMapper documentMapper, Executor executor, int parallelism) {
+        if (documentMapper == null || parallelism <= 0) {
+            // the first document creates the mapping, all documents need to be parsed again anyway
+            return null;
+        }
+        final BulkItemRequest[] items = request.items();
+        final int[] indices = new int[items.length];
+        int count = 0;
+        for (int i = 0; i < items.length; i++) {
+            if (items[i].request() instanceof IndexRequest && items[i].getPrimaryResponse() == null) {
+                indices[count++] = i;
+            }
+        }
+        // the write thread applies the first chunk while the helpers start, there is no point in parsing a single chunk ahead of time
+        if (count <= CHUNK_SIZE) {
+            return null;
+        }
+        final BulkShardDocumentParser parser = new BulkShardDocumentParser(
+            documentMapper,
+            items,
+            Arrays.copyOf(indices, count),
+            executor,
+            parallelism
+        );
+        parser.forkHelpers();
+        return parser;
+    }
+
+    static SourceToParse sourceToParse(IndexRequest request) {
+        return new SourceToParse(
+            request.id(),
+            request.source(),
+            request.getContentType(),
+            request.routing(),
+            request.getDynamicTemplates()
+        );
+    }
+
+    private boolean canClaimChunk() {
+        final int chunk = nextChunk.get();
+        return stopped == false && chunk < chunks.length() && chunk < currentChunk + MAX_CHUNKS_AHEAD;
+    }
+
+    /**
+     * Claims the next chunk to parse unless parsing stopped, all chunks were claimed or helpers are too far ahead of the write thread.
+     */
+    private int claimChunk() {
+        while (true) {
+            final int chunk = nextChunk.get();
+            if (stopped || chunk >= chunks.length() || chunk >= currentChunk + MAX_CHUNKS_AHEAD) {
+                return -1;
+            }
+            if (nextChunk.compareAndSet(chunk, chunk + 1)) {
+                return chunk;
+            }
+        }
+    }
+
+    private boolean tryAddHelper() {
+        while (true) {
+            final int helpers = activeHelpers.get();
+            if (helpers >= parallelism) {
+                return false;
+            }
+            if (activeHelpers.compareAndSet(helpers, helpers + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void forkHelpers() {
+        while (canClaimChunk() && tryAddHelper()) {
+            try {
+                executor.execute(new AbstractRunnable() {
+                    @Override
+                    public void onFailure(Exception e) {
+                        assert false : e;
+                        logger.warn("unexpected failure while parsing bulk documents", e);
+                    }
+
+                    @Override
+                    public void onRejection(Exception e) {
+                        // the write thread parses the documents inline, and forks again once it moved on
+                        activeHelpers.decrementAndGet();
+                    }
+
+                    @Override
+                    protected void doRun() {
+                        parseChunks();
+                    }
+                });
+            } catch (Exception e) {
+                // the write thread parses the documents inline, and forks again once it moved on
+                activeHelpers.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private void parseChunks() {
+        do {
+            int chunk;
+            while ((chunk = claimChunk()) >= 0) {
+                parseChunk(chunk);
+            }
+            activeHelpers.decrementAndGet();
+            // the write thread may have moved on while this helper gave up, without forking a new one since it still counted
+        } while (canClaimChunk() && tryAddHelper());
+    }
+
+    private void parseChunk(int chunk) {
+        final long startTime = System.nanoTime();
+        final int start = chunk * CHUNK_SIZE;
+        final ParsedDocument[] documents = new ParsedDocument[Math.min(indices.length - start, CHUNK_SIZE)];
+        for (int i = 0; i < documents.length && stopped == false; i++) {
+            try {
+                documents[i] = documentMapper.parse(sourceToParse((IndexRequest) items[indices[start + i]].request()));
+            } catch (Exception e) {
+                // parsed again, and failed the usual way, when the item is applied
+                logger.trace("failed to parse bulk document ahead of time", e);
+            }
+        }
+        if (stopped == false && chunk >= currentChunk) {
+            chunks.set(chunk, documents);
+        }
+        parseTimeInNanos.addAndGet(System.nanoTime() - startTime);
+    }
+
+    /**
+     * Returns the document parsed for the item at the given index, unless it failed to parse, was parsed against another mapping than
+     * the given one or was not parsed yet. Each document is only handed out once. Must be called by the write thread, in the order of
+     * the items.
+     */
+    ParsedDocument take(int index, DocumentMapper currentMapper) {
+        final int position = positions[index];
+        if (position < 0 || stopped) {
+            return null;
+        }
+        if (currentMapper != documentMapper) {
+            // all remaining documents were parsed against an outdated mapping
+            stop();
+            return null;
+        }
+        final int chunk = position / CHUNK_SIZE;
+        if (chunk > currentChunk) {
+            // release the documents of the chunks the write thread is done with, which makes room for helpers to parse further ahead
+            for (int i = currentChunk; i < chunk; i++) {
+                chunks.set(i, null);
+            }
+            currentChunk = chunk;
+        }
+        // make sure no helper starts parsing this chunk or the previous ones, the write thread parses them inline instead
+        int claimed;
+        while ((claimed = nextChunk.get()) <= chunk) {
+            if (nextChunk.compareAndSet(claimed, chunk + 1)) {
+                break;
+            }
+        }
+        forkHelpers();
+        final ParsedDocument[] documents = chunks.get(chunk);
+        if (documents == null) {
+            // still being parsed by a helper, or claimed by the write thread
+            return null;
+        }
+        final ParsedDocument document = documents[position % CHUNK_SIZE];
+        documents[position % CHUNK_SIZE] = null;
+        return document;
+    }
+
+    /**
+     * The number of chunks whose parsed documents are currently held.
+     */
+    int parsedChunks() {
+        int count = 0;
+        for (int i = 0; i < chunks.length(); i++) {
+            if (chunks.get(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The time helpers spent parsing documents so far.
+     */
+    long parseTimeInNanos() {
+        return parseTimeInNanos.get();
+    }
+
+    /**
+     * Stops parsing ahead of time and releases all documents that were parsed. Helpers that are still running finish the document they
+     * are parsing.
+     */
+    void stop() {
+        stopped = true;
+        for (int i = 0; i < chunks.length(); i++) {
+            chunks.set(i, null);
+        }
+    }
+}
@@ -179,8 +179,24 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
 
             final long startBulkTime = System.nanoTime();
 
+            boolean preParsingStarted = false;
+
             @Override
             protected void doRun() throws Exception {
+                if (preParsingStarted == false) {
+                    // only parse ahead of time once, items that run into a mapping update are parsed again when they are retried
+                    preParsingStarted = true;
+                    if (primary.indexSettings().isBulkParallelParse()) {
+                        context.setPreParsedDocuments(
+                            BulkShardDocumentParser.parse(
+                                request,
+                                primary.mapperService().documentMapper(),
+                                threadPool.executor(ThreadPool.Names.BULK_PARSE),
+                                threadPool.info(ThreadPool.Names.BULK_PARSE).getMax()
+                            )
+                        );
+                    }
+                }
                 while (context.hasMoreOperationsToExecute()) {
                     if (executeBulkItemRequest(
                         context,
@@ -196,7 +212,9 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
                     }
                     assert context.isInitial(); // either completed and moved to next or reset
                 }
-                primary.getBulkOperationListener().afterBulk(request.totalSizeInBytes(), System.nanoTime() - startBulkTime);
+                final long parseTimeInNanos = context.stopPreParsing();
+                primary.getBulkOperationListener()
+                    .afterBulk(request.totalSizeInBytes(), System.nanoTime() - startBulkTime, parseTimeInNanos);
                 // We're done, there's no more operations to execute so we resolve the wrapped listener
                 finishRequest();
             }
@@ -209,6 +227,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
 
                     @Override
                     protected void doRun() {
+                        context.stopPreParsing();
                         // Fail all operations after a bulk rejection hit an action that waited for a mapping update and finish the request
                         while (context.hasMoreOperationsToExecute()) {
                             context.setRequestToExecute(context.getCurrent());
@@ -310,17 +329,11 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             );
         } else {
             final IndexRequest request = context.getRequestToExecute();
-            final SourceToParse sourceToParse = new SourceToParse(
-                request.id(),
-                request.source(),
-                request.getContentType(),
-                request.routing(),
-                request.getDynamicTemplates()
-            );
             result = primary.applyIndexOperationOnPrimary(
                 version,
                 request.versionType(),
-                sourceToParse,
+                BulkShardDocumentParser.sourceToParse(request),
+                context.takePreParsedDocument(),
                 request.ifSeqNo(),
                 request.ifPrimaryTerm(),
                 request.getAutoGeneratedTimestamp(),
@@ -510,7 +523,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         ActionListener.completeWith(listener, () -> {
             final long startBulkTime = System.nanoTime();
             final Translog.Location location = performOnReplica(request, replica);
-            replica.getBulkOperationListener().afterBulk(request.totalSizeInBytes(), System.nanoTime() - startBulkTime);
+            replica.getBulkOperationListener().afterBulk(request.totalSizeInBytes(), System.nanoTime() - startBulkTime, 0);
             return new WriteReplicaResult<>(request, location, null, replica, logger);
         });
     }
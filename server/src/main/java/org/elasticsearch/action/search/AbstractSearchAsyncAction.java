@@ -25,8 +25,11 @@ import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.SearchContextMissingException;
 import org.elasticsearch.search.SearchPhaseResult;
@@ -38,6 +41,7 @@ import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchContextId;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.transport.Transport;
 
 import java.util.ArrayDeque;
@@ -255,9 +259,16 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
                 int shardIndex = shardIndexMap.get(shardRoutings);
                 performPhaseOnShard(shardIndex, shardRoutings, shardRoutings.nextOrNull());
             }
+            onInitialShardRequestsExecuted();
         }
     }
 
+    /**
+     * Called once {@link #executePhaseOnShard} was called for the first copy of every shard of this phase. Implementations that defer
+     * sending the initial shard requests must send them at the latest here.
+     */
+    protected void onInitialShardRequestsExecuted() {}
+
     void skipShard(SearchShardIterator iterator) {
         successfulOps.incrementAndGet();
         skippedOps.incrementAndGet();
@@ -319,17 +330,29 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
             SearchShardTarget unassignedShard = new SearchShardTarget(null, shardIt.shardId(), shardIt.getClusterAlias());
             onShardFailure(shardIndex, unassignedShard, shardIt, new NoShardAvailableActionException(shardIt.shardId()));
         } else {
-            final PendingExecutions pendingExecutions = throttleConcurrentRequests
+            final boolean batched = isBatched(shard);
+            final PendingExecutions pendingExecutions = throttleConcurrentRequests && batched == false
                 ? pendingExecutionsPerNode.computeIfAbsent(shard.getNodeId(), n -> new PendingExecutions(maxConcurrentRequestsPerNode))
                 : null;
             Runnable r = () -> {
                 final Thread thread = Thread.currentThread();
+                // the shards of a node level request only return with the whole request, so they are neither timed nor hedged
+                final ShardRequestHedging hedging = batched ? null : getHedging();
+                final long startNanos = System.nanoTime();
+                final HedgedShardRequest hedgedRequest = hedging == null ? null : maybeHedge(hedging, shardIndex, shardIt);
                 try {
                     executePhaseOnShard(shardIt, shard, new SearchActionListener<Result>(shard, shardIndex) {
                         @Override
                         public void innerOnResponse(Result result) {
+                            if (hedging != null) {
+                                hedging.onShardResponse(System.nanoTime() - startNanos);
+                            }
                             try {
-                                onShardResult(result, shardIt);
+                                if (hedgedRequest == null) {
+                                    onShardResult(result, shardIt);
+                                } else {
+                                    hedgedRequest.onResponse(false, shard, result);
+                                }
                             } catch (Exception exc) {
                                 onShardFailure(shardIndex, shard, shardIt, exc);
                             } finally {
@@ -340,7 +363,11 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
                         @Override
                         public void onFailure(Exception t) {
                             try {
-                                onShardFailure(shardIndex, shard, shardIt, t);
+                                if (hedgedRequest == null) {
+                                    onShardFailure(shardIndex, shard, shardIt, t);
+                                } else {
+                                    hedgedRequest.onFailure(false, shard, t);
+                                }
                             } finally {
                                 executeNext(pendingExecutions, thread);
                             }
@@ -352,13 +379,17 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
                          * It is possible to run into connection exceptions here because we are getting the connection early and might
                          * run into nodes that are not connected. In this case, on shard failure will move us to the next shard copy.
                          */
-                        fork(() -> onShardFailure(shardIndex, shard, shardIt, e));
+                        if (hedgedRequest == null) {
+                            fork(() -> onShardFailure(shardIndex, shard, shardIt, e));
+                        } else {
+                            fork(() -> hedgedRequest.onFailure(false, shard, e));
+                        }
                     } finally {
                         executeNext(pendingExecutions, thread);
                     }
                 }
             };
-            if (throttleConcurrentRequests) {
+            if (pendingExecutions != null) {
                 pendingExecutions.tryRun(r);
             } else {
                 r.run();
@@ -366,6 +397,16 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         }
     }
 
+    /**
+     * Returns whether the request for the given shard is sent together with the requests of the other shards of its node in a single
+     * request. These requests don't count against the maximum number of concurrent shard requests per node, the node then bounds the
+     * number of shards it searches concurrently itself. They are also never hedged, since their response only returns once the node
+     * searched all the shards of the request.
+     */
+    protected boolean isBatched(SearchShardTarget shard) {
+        return false;
+    }
+
     /**
      * Sends the request to the actual shard.
      * @param shardIt the shards iterator
@@ -378,6 +419,47 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         SearchActionListener<Result> listener
     );
 
+    /**
+     * Returns how the shard requests of this phase are hedged on other copies of their shard, or {@code null} if they are not hedged.
+     */
+    @Nullable
+    protected ShardRequestHedging getHedging() {
+        return null;
+    }
+
+    /**
+     * Sends a hedged request to another copy of a shard whose request didn't return in time. The request must be sent with the given
+     * task rather than the search task, so that it can be cancelled without cancelling the other shard requests of the search. This is
+     * only called if {@link #getHedging()} isn't {@code null}.
+     * @param shardIt the shards iterator
+     * @param shard the shard routing to send the hedged request to
+     * @param hedgeTask the task to send the hedged request with
+     * @param listener the listener to notify on response
+     */
+    protected void executeHedgedPhaseOnShard(
+        SearchShardIterator shardIt,
+        SearchShardTarget shard,
+        SearchTask hedgeTask,
+        SearchActionListener<Result> listener
+    ) {
+        throw new UnsupportedOperationException("phase [" + getName() + "] doesn't hedge shard requests");
+    }
+
+    /**
+     * Schedules the hedging of the request that is about to be sent to a copy of the given shard, if the shard has another copy and
+     * enough shard requests were sent recently to know how long the request is expected to take.
+     */
+    @Nullable
+    private HedgedShardRequest maybeHedge(ShardRequestHedging hedging, int shardIndex, SearchShardIterator shardIt) {
+        final TimeValue delay = hedging.onShardRequest();
+        if (delay == null || shardIt.remaining() == 0) {
+            return null;
+        }
+        final HedgedShardRequest hedgedRequest = new HedgedShardRequest(hedging, shardIndex, shardIt);
+        hedgedRequest.schedule(delay);
+        return hedgedRequest;
+    }
+
     protected void fork(final Runnable runnable) {
         executor.execute(new AbstractRunnable() {
             @Override
@@ -831,6 +913,171 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         }
     }
 
+    /**
+     * A shard request that is hedged on another copy of its shard if it didn't return after a delay. The first request that returns a
+     * result provides the result of the shard, the other request is cancelled if it is the hedged request, or its result is discarded
+     * and its reader context released once it returns otherwise. A failed request only moves on to the next copy of the shard once
+     * neither request is pending anymore. A request that returns after the shard got its result is counted when the shard gets its
+     * result, so that the total number of operations is reached exactly once.
+     */
+    private final class HedgedShardRequest {
+        private final ShardRequestHedging hedging;
+        private final int shardIndex;
+        private final SearchShardIterator shardIt;
+        // the number of requests that didn't return yet
+        private int pending = 1;
+        // whether the shard got its result, or moved on to its next copy
+        private boolean done;
+        private Scheduler.Cancellable scheduled;
+        private SearchTask hedgeTask;
+
+        HedgedShardRequest(ShardRequestHedging hedging, int shardIndex, SearchShardIterator shardIt) {
+            this.hedging = hedging;
+            this.shardIndex = shardIndex;
+            this.shardIt = shardIt;
+        }
+
+        void schedule(TimeValue delay) {
+            try {
+                final Scheduler.Cancellable cancellable = hedging.schedule(() -> fork(this::hedge), delay);
+                synchronized (this) {
+                    scheduled = cancellable;
+                }
+            } catch (EsRejectedExecutionException e) {
+                logger.debug("failed to schedule the hedging of a shard request", e);
+            }
+        }
+
+        private void hedge() {
+            final SearchShardTarget hedgeShard;
+            synchronized (this) {
+                if (done || requestCancelled.get() || task.isCancelled() || shardIt.remaining() == 0 || hedging.tryHedge() == false) {
+                    return;
+                }
+                hedgeShard = shardIt.nextOrNull();
+                pending++;
+            }
+            logger.trace("hedging the request of shard [{}] on [{}]", shardIt.shardId(), hedgeShard);
+            final SearchTask hedgeTask;
+            try {
+                hedgeTask = getSearchTransport().registerHedgedRequestTask(task, hedgeShard);
+            } catch (Exception e) {
+                onFailure(true, hedgeShard, e);
+                return;
+            }
+            final boolean alreadyDone;
+            synchronized (this) {
+                this.hedgeTask = hedgeTask;
+                alreadyDone = done;
+            }
+            if (alreadyDone) {
+                getSearchTransport().unregisterHedgedRequestTask(hedgeTask);
+                onFailure(true, hedgeShard, new TaskCancelledException("the original request returned first"));
+                return;
+            }
+            final long startNanos = System.nanoTime();
+            try {
+                executeHedgedPhaseOnShard(shardIt, hedgeShard, hedgeTask, new SearchActionListener<Result>(hedgeShard, shardIndex) {
+                    @Override
+                    protected void innerOnResponse(Result result) {
+                        getSearchTransport().unregisterHedgedRequestTask(hedgeTask);
+                        hedging.onShardResponse(System.nanoTime() - startNanos);
+                        try {
+                            HedgedShardRequest.this.onResponse(true, hedgeShard, result);
+                        } catch (Exception exc) {
+                            onShardFailure(shardIndex, hedgeShard, shardIt, exc);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        getSearchTransport().unregisterHedgedRequestTask(hedgeTask);
+                        HedgedShardRequest.this.onFailure(true, hedgeShard, e);
+                    }
+                });
+            } catch (Exception e) {
+                getSearchTransport().unregisterHedgedRequestTask(hedgeTask);
+                onFailure(true, hedgeShard, e);
+            }
+        }
+
+        void onResponse(boolean hedged, SearchShardTarget shard, Result result) {
+            final boolean won;
+            final boolean otherPending;
+            final SearchTask toCancel;
+            synchronized (this) {
+                pending--;
+                won = done == false;
+                done = true;
+                otherPending = pending > 0;
+                toCancel = won && hedged == false && otherPending ? hedgeTask : null;
+                if (scheduled != null) {
+                    scheduled.cancel();
+                }
+            }
+            if (won == false) {
+                releaseDiscardedResult(shard, result);
+                return;
+            }
+            if (hedged) {
+                hedging.onHedgeWon();
+            }
+            if (toCancel != null) {
+                getSearchTransport().cancelHedgedRequestTask(toCancel, "the original request returned first");
+            }
+            if (otherPending) {
+                // the request that is still pending is counted now, it will be ignored once it returns
+                countDiscardedRequest();
+            }
+            onShardResult(result, shardIt);
+        }
+
+        void onFailure(boolean hedged, SearchShardTarget shard, Exception e) {
+            final boolean ignore;
+            final boolean otherPending;
+            final SearchTask toCancel;
+            synchronized (this) {
+                pending--;
+                ignore = done;
+                otherPending = pending > 0;
+                done = done || otherPending == false;
+                toCancel = hedged == false && otherPending && (requestCancelled.get() || task.isCancelled()) ? hedgeTask : null;
+                if (done && scheduled != null) {
+                    scheduled.cancel();
+                }
+            }
+            if (ignore) {
+                logger.trace(() -> new ParameterizedMessage("{}: discarded failure of request of shard that returned already", shard), e);
+            } else if (otherPending) {
+                // wait for the other request, it becomes the request of the shard
+                if (toCancel != null) {
+                    getSearchTransport().cancelHedgedRequestTask(toCancel, "the search was cancelled");
+                }
+                onShardFailure(shardIndex, shard, e);
+                countDiscardedRequest();
+            } else {
+                onShardFailure(shardIndex, shard, shardIt, e);
+            }
+        }
+
+        private void countDiscardedRequest() {
+            final int totalOps = AbstractSearchAsyncAction.this.totalOps.incrementAndGet();
+            assert totalOps < expectedTotalOps : "the other request of the shard must not be counted yet";
+        }
+
+        private void releaseDiscardedResult(SearchShardTarget shard, Result result) {
+            final ShardSearchContextId contextId = result.getContextId();
+            if (contextId != null && isPartOfPointInTime(contextId) == false) {
+                try {
+                    final Transport.Connection connection = getConnection(shard.getClusterAlias(), shard.getNodeId());
+                    sendReleaseSearchContext(contextId, connection, getOriginalIndices(shardIndex));
+                } catch (Exception e) {
+                    logger.trace("failed to release context", e);
+                }
+            }
+        }
+    }
+
     private static final class PendingExecutions {
         private final int permits;
         private int permitsTaken = 0;
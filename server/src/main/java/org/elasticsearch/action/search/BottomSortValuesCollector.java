@@ -14,13 +14,16 @@ import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopFieldDocs;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchSortValuesAndFormats;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.internal.ShardSearchRequest;
 
 import static org.elasticsearch.core.Types.forciblyCast;
 
 /**
- * Utility class to keep track of the bottom doc's sort values in a distributed search.
+ * Utility class to keep track of the bottom doc's sort values in a distributed search. The coordinating node tracks the bottom of the
+ * shards that replied and data nodes track the bottom of the shards of a {@link QueryNodeRequest} that completed their query phase.
  */
-class BottomSortValuesCollector {
+public class BottomSortValuesCollector {
     private final int topNSize;
     private final SortField[] sortFields;
     private final FieldComparator<?>[] comparators;
@@ -29,7 +32,7 @@ class BottomSortValuesCollector {
     private volatile long totalHits;
     private volatile SearchSortValuesAndFormats bottomSortValues;
 
-    BottomSortValuesCollector(int topNSize, SortField[] sortFields) {
+    public BottomSortValuesCollector(int topNSize, SortField[] sortFields) {
         this.topNSize = topNSize;
         this.comparators = new FieldComparator<?>[sortFields.length];
         this.reverseMuls = new int[sortFields.length];
@@ -51,7 +54,7 @@ class BottomSortValuesCollector {
         return bottomSortValues;
     }
 
-    synchronized void consumeTopDocs(TopFieldDocs topDocs, DocValueFormat[] sortValuesFormat) {
+    public synchronized void consumeTopDocs(TopFieldDocs topDocs, DocValueFormat[] sortValuesFormat) {
         totalHits += topDocs.totalHits.value;
         if (validateShardSortFields(topDocs.fields) == false) {
             return;
@@ -66,6 +69,24 @@ class BottomSortValuesCollector {
         }
     }
 
+    /**
+     * Rewrites a shard request that didn't start yet with the results consumed so far: tracking the total hits is disabled if the
+     * consumed hits already reached <code>trackTotalHitsUpTo</code> and the best bottom sort values are sent to the shard, so that it
+     * can skip the documents that can't make it into the top docs.
+     */
+    public ShardSearchRequest rewriteShardSearchRequest(ShardSearchRequest request, int trackTotalHitsUpTo) {
+        // disable tracking total hits if we already reached the required estimation.
+        if (trackTotalHitsUpTo != SearchContext.TRACK_TOTAL_HITS_ACCURATE && totalHits > trackTotalHitsUpTo) {
+            request.source(request.source().shallowCopy().trackTotalHits(false));
+        }
+
+        // set the current best bottom field doc
+        if (bottomSortValues != null) {
+            request.setBottomSortValues(bottomSortValues);
+        }
+        return request;
+    }
+
     /**
      * @return <code>false</code> if the provided {@link SortField} array differs
      * from the initial {@link BottomSortValuesCollector#sortFields}.
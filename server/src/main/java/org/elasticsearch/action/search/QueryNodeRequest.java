@@ -0,0 +1,104 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.IndicesRequest;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.transport.TransportRequest;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Node-level request used during the query phase. It holds the requests of all the shards of the search that the query phase targets
+ * on a single node, so that the node can reduce their results before it replies.
+ */
+public class QueryNodeRequest extends TransportRequest implements IndicesRequest {
+
+    private final List<ShardSearchRequest> shards;
+    private final int maxConcurrentShardRequests;
+    private final String[] indices;
+
+    /**
+     * @param maxConcurrentShardRequests the maximum number of shards of this request that the node searches concurrently, see
+     *                                   {@link SearchRequest#getMaxConcurrentShardRequests()}
+     */
+    public QueryNodeRequest(List<ShardSearchRequest> shards, int maxConcurrentShardRequests) {
+        assert shards.isEmpty() == false;
+        assert shards.stream().allMatch(shard -> shard.numberOfShards() > 1) : "single shard searches fetch during the query phase";
+        assert maxConcurrentShardRequests > 0 : "max concurrent shard requests must be positive: " + maxConcurrentShardRequests;
+        this.shards = List.copyOf(shards);
+        this.maxConcurrentShardRequests = maxConcurrentShardRequests;
+        this.indices = buildIndices(shards);
+    }
+
+    public QueryNodeRequest(StreamInput in) throws IOException {
+        super(in);
+        shards = in.readList(ShardSearchRequest::new);
+        maxConcurrentShardRequests = in.readVInt();
+        indices = buildIndices(shards);
+    }
+
+    private static String[] buildIndices(List<ShardSearchRequest> shards) {
+        return shards.stream().map(ShardSearchRequest::indices).flatMap(Arrays::stream).distinct().toArray(String[]::new);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeList(shards);
+        out.writeVInt(maxConcurrentShardRequests);
+    }
+
+    /**
+     * Returns the requests of the shards, each one with the parent task of this request.
+     */
+    public List<ShardSearchRequest> getShardSearchRequests() {
+        for (ShardSearchRequest shard : shards) {
+            shard.setParentTask(getParentTask());
+        }
+        return shards;
+    }
+
+    /**
+     * Returns the maximum number of shards of this request that the node searches concurrently.
+     */
+    public int getMaxConcurrentShardRequests() {
+        return maxConcurrentShardRequests;
+    }
+
+    @Override
+    public String[] indices() {
+        return indices;
+    }
+
+    @Override
+    public IndicesOptions indicesOptions() {
+        return shards.get(0).indicesOptions();
+    }
+
+    @Override
+    public Task createTask(long id, String type, String action, TaskId parentTaskId, Map<String, String> headers) {
+        return new SearchShardTask(id, type, action, getDescription(), parentTaskId, headers);
+    }
+
+    @Override
+    public String getDescription() {
+        // Shard id is enough here, the request itself can be found by looking at the parent task description
+        return "shardIds[" + shards.stream().map(ShardSearchRequest::shardId).collect(Collectors.toList()) + "]";
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.transport.TransportResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Node-level response of the query phase, holds the result or the failure of every shard of the {@link QueryNodeRequest} in the
+ * order of the request.
+ */
+public class QueryNodeResponse extends TransportResponse {
+
+    private final List<ResponseOrFailure> responses;
+
+    public QueryNodeResponse(StreamInput in) throws IOException {
+        this(in, false);
+    }
+
+    /**
+     * Read the response, but using delayed aggregations when delayedAggregations=true, see
+     * {@link QuerySearchResult#QuerySearchResult(StreamInput, boolean)}.
+     */
+    public QueryNodeResponse(StreamInput in, boolean delayedAggregations) throws IOException {
+        super(in);
+        responses = in.readList(input -> new ResponseOrFailure(input, delayedAggregations));
+    }
+
+    public QueryNodeResponse(List<ResponseOrFailure> responses) {
+        this.responses = responses;
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeList(responses);
+    }
+
+    public List<ResponseOrFailure> getResponses() {
+        return responses;
+    }
+
+    public static class ResponseOrFailure implements Writeable {
+
+        private final QuerySearchResult result;
+        private final Exception exception;
+
+        public ResponseOrFailure(QuerySearchResult result) {
+            this.result = result;
+            this.exception = null;
+        }
+
+        public ResponseOrFailure(Exception exception) {
+            this.exception = exception;
+            this.result = null;
+        }
+
+        public ResponseOrFailure(StreamInput in, boolean delayedAggregations) throws IOException {
+            if (in.readBoolean()) {
+                result = new QuerySearchResult(in, delayedAggregations);
+                exception = null;
+            } else {
+                exception = in.readException();
+                result = null;
+            }
+        }
+
+        @Nullable
+        public QuerySearchResult getResult() {
+            return result;
+        }
+
+        @Nullable
+        public Exception getException() {
+            return exception;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            final boolean hasResult = result != null;
+            out.writeBoolean(hasResult);
+            if (hasResult) {
+                result.writeTo(out);
+            } else {
+                out.writeException(exception);
+            }
+        }
+    }
+}
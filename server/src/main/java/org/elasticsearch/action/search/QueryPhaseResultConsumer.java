@@ -15,8 +15,10 @@ import org.elasticsearch.action.search.SearchPhaseController.TopDocsStats;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.io.stream.DelayableWriteable;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.search.SearchPhaseResult;
@@ -49,16 +51,31 @@ import static org.elasticsearch.action.search.SearchPhaseController.setShardInde
  * in the {@link CircuitBreaker#REQUEST} circuit breaker. Before any partial or final reduce, the memory
  * needed to reduce the aggregations is estimated and a {@link CircuitBreakingException} is thrown if it
  * exceeds the maximum memory allowed in this breaker.
+ * <p>
+ * Shard results are buffered until {@link SearchRequest#getBatchedReduceSize()} of them are waiting or until their aggregations
+ * take more than {@link #MAX_BUFFERED_AGGS_BREAKER_RATIO} of the limit of the breaker, whichever comes first, so that very wide
+ * aggregations are merged as they arrive rather than after a full batch. If the {@link SearchPhaseController} has a
+ * {@link NamedWriteableRegistry} the partially reduced aggregations are kept serialized in recycled pages until the next reduce,
+ * which is far more compact than the objects, and the breaker accounts for exactly the bytes that are held.
  */
 public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhaseResult> implements Releasable {
     private static final Logger logger = LogManager.getLogger(QueryPhaseResultConsumer.class);
 
+    /**
+     * The share of the limit of the request circuit breaker that the buffered shard aggregations may take before they are reduced,
+     * even if fewer than {@link SearchRequest#getBatchedReduceSize()} shard results are buffered.
+     */
+    static final double MAX_BUFFERED_AGGS_BREAKER_RATIO = 0.1;
+
     private final Executor executor;
     private final CircuitBreaker circuitBreaker;
     private final SearchPhaseController controller;
     private final SearchProgressListener progressListener;
     private final AggregationReduceContext.Builder aggReduceContextBuilder;
+    @Nullable
+    private final NamedWriteableRegistry namedWriteableRegistry;
 
+    private final long maxBufferedAggsSize;
     private final int topNSize;
     private final boolean hasTopDocs;
     private final boolean hasAggs;
@@ -87,6 +104,11 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         this.controller = controller;
         this.progressListener = progressListener;
         this.aggReduceContextBuilder = controller.getReduceContext(isCanceled, request);
+        this.namedWriteableRegistry = controller.getNamedWriteableRegistry();
+        // a breaker without limit doesn't bound the buffer
+        this.maxBufferedAggsSize = circuitBreaker.getLimit() > 0
+            ? (long) (circuitBreaker.getLimit() * MAX_BUFFERED_AGGS_BREAKER_RATIO)
+            : Long.MAX_VALUE;
         this.topNSize = getTopDocsSize(request);
         this.performFinalReduce = request.isFinalReduce();
         this.onPartialMergeFailure = onPartialMergeFailure;
@@ -196,7 +218,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         if (hasAggs) {
             List<InternalAggregations> aggsList = new ArrayList<>();
             if (lastMerge != null) {
-                aggsList.add(lastMerge.reducedAggs);
+                aggsList.add(lastMerge.consumeAggs());
             }
             for (QuerySearchResult result : toConsume) {
                 aggsList.add(result.consumeAggs());
@@ -214,10 +236,20 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             processedShards.add(new SearchShard(target.getClusterAlias(), target.getShardId()));
         }
         progressListener.notifyPartialReduce(processedShards, topDocsStats.getTotalHits(), newAggs, numReducePhases);
-        // we leave the results un-serialized because serializing is slow but we compute the serialized
-        // size as an estimate of the memory used by the newly reduced aggregations.
-        long serializedSize = hasAggs ? DelayableWriteable.getSerializedSize(newAggs) : 0;
-        return new MergeResult(processedShards, newTopDocs, newAggs, hasAggs ? serializedSize : 0);
+        final DelayableWriteable<InternalAggregations> reducedAggs;
+        if (hasAggs == false) {
+            reducedAggs = null;
+        } else if (namedWriteableRegistry != null) {
+            // computing the size of the reduced aggregations already costs a serialization so we keep the bytes,
+            // which take far less memory than the objects until the next reduce expands them
+            reducedAggs = DelayableWriteable.referencing(newAggs)
+                .asSerialized(InternalAggregations::readFrom, namedWriteableRegistry, controller.getBigArrays());
+        } else {
+            // without registry the results stay un-serialized and their serialized size estimates the memory they use
+            reducedAggs = DelayableWriteable.referencing(newAggs);
+        }
+        long estimatedSize = hasAggs ? reducedAggs.getSerializedSize() : 0;
+        return new MergeResult(processedShards, newTopDocs, reducedAggs, estimatedSize);
     }
 
     public int getNumReducePhases() {
@@ -257,6 +289,10 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             }
 
             List<Releasable> toRelease = new ArrayList<>(buffer.stream().<Releasable>map(b -> b::releaseAggs).collect(Collectors.toList()));
+            final MergeResult lastMerge = mergeResult;
+            if (lastMerge != null) {
+                toRelease.add(lastMerge::releaseAggs);
+            }
             toRelease.add(() -> {
                 circuitBreaker.addWithoutBreaking(-circuitBreakerBytes);
                 circuitBreakerBytes = 0;
@@ -348,7 +384,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                     }
                     // add one if a partial merge is pending
                     int size = buffer.size() + (hasPartialReduce ? 1 : 0);
-                    if (size >= batchReduceSize) {
+                    if (size >= batchReduceSize || (buffer.isEmpty() == false && aggsCurrentBufferSize >= maxBufferedAggsSize)) {
                         hasPartialReduce = true;
                         executeNextImmediately = false;
                         QuerySearchResult[] clone = buffer.toArray(QuerySearchResult[]::new);
@@ -389,6 +425,9 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             while ((mergeTask = queue.pollFirst()) != null) {
                 toCancels.add(mergeTask::cancel);
             }
+            if (mergeResult != null) {
+                toCancels.add(mergeResult::releaseAggs);
+            }
             mergeResult = null;
             Releasables.close(toCancels);
         }
@@ -396,6 +435,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         private void onAfterMerge(MergeTask task, MergeResult newResult, long estimatedSize) {
             synchronized (this) {
                 if (hasFailure()) {
+                    newResult.releaseAggs();
                     return;
                 }
                 runningTask.compareAndSet(task, null);
@@ -489,7 +529,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             }
             List<InternalAggregations> aggsList = new ArrayList<>();
             if (mergeResult != null) {
-                aggsList.add(mergeResult.reducedAggs);
+                aggsList.add(mergeResult.consumeAggs());
             }
             for (QuerySearchResult result : buffer) {
                 aggsList.add(result.consumeAggs());
@@ -501,13 +541,13 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
     private static class MergeResult {
         private final List<SearchShard> processedShards;
         private final TopDocs reducedTopDocs;
-        private final InternalAggregations reducedAggs;
+        private DelayableWriteable<InternalAggregations> reducedAggs;
         private final long estimatedSize;
 
         private MergeResult(
             List<SearchShard> processedShards,
             TopDocs reducedTopDocs,
-            InternalAggregations reducedAggs,
+            DelayableWriteable<InternalAggregations> reducedAggs,
             long estimatedSize
         ) {
             this.processedShards = processedShards;
@@ -515,6 +555,29 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             this.reducedAggs = reducedAggs;
             this.estimatedSize = estimatedSize;
         }
+
+        /**
+         * Returns the reduced aggregations and releases the memory that holds them.
+         * @throws IllegalStateException if the aggregations have already been consumed or released.
+         */
+        synchronized InternalAggregations consumeAggs() {
+            if (reducedAggs == null) {
+                throw new IllegalStateException("reduced aggregations already consumed");
+            }
+            try {
+                return reducedAggs.expand();
+            } finally {
+                reducedAggs.close();
+                reducedAggs = null;
+            }
+        }
+
+        synchronized void releaseAggs() {
+            if (reducedAggs != null) {
+                reducedAggs.close();
+                reducedAggs = null;
+            }
+        }
     }
 
     private static class MergeTask {
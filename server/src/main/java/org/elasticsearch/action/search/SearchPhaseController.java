@@ -24,7 +24,10 @@ import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.TotalHits.Relation;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.collect.HppcMaps;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.lucene.grouping.TopFieldGroups;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchHit;
@@ -64,11 +67,31 @@ public final class SearchPhaseController {
     private static final ScoreDoc[] EMPTY_DOCS = new ScoreDoc[0];
 
     private final BiFunction<Supplier<Boolean>, SearchRequest, AggregationReduceContext.Builder> requestToAggReduceContextBuilder;
+    @Nullable
+    private final NamedWriteableRegistry namedWriteableRegistry;
+    private final BigArrays bigArrays;
 
     public SearchPhaseController(
         BiFunction<Supplier<Boolean>, SearchRequest, AggregationReduceContext.Builder> requestToAggReduceContextBuilder
+    ) {
+        this(requestToAggReduceContextBuilder, null, BigArrays.NON_RECYCLING_INSTANCE);
+    }
+
+    /**
+     * @param namedWriteableRegistry the registry used to keep the partially reduced aggregations of
+     *                               {@link QueryPhaseResultConsumer} serialized between two partial reduces,
+     *                               or {@code null} to keep them as objects
+     * @param bigArrays              allocates the pages that hold the serialized partially reduced aggregations. The consumer
+     *                               accounts for them in the request circuit breaker itself so these must not be accounted again.
+     */
+    public SearchPhaseController(
+        BiFunction<Supplier<Boolean>, SearchRequest, AggregationReduceContext.Builder> requestToAggReduceContextBuilder,
+        @Nullable NamedWriteableRegistry namedWriteableRegistry,
+        BigArrays bigArrays
     ) {
         this.requestToAggReduceContextBuilder = requestToAggReduceContextBuilder;
+        this.namedWriteableRegistry = namedWriteableRegistry;
+        this.bigArrays = bigArrays;
     }
 
     public AggregatedDfs aggregateDfs(Collection<DfsSearchResult> results) {
@@ -678,6 +701,15 @@ public final class SearchPhaseController {
         }
     }
 
+    @Nullable
+    NamedWriteableRegistry getNamedWriteableRegistry() {
+        return namedWriteableRegistry;
+    }
+
+    BigArrays getBigArrays() {
+        return bigArrays;
+    }
+
     AggregationReduceContext.Builder getReduceContext(Supplier<Boolean> isCanceled, SearchRequest request) {
         return requestToAggReduceContextBuilder.apply(isCanceled, request);
     }
@@ -13,14 +13,18 @@ import org.apache.lucene.search.TopFieldDocs;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Tuple;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.internal.AliasFilter;
-import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.transport.Transport;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
@@ -37,6 +41,11 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
     private final int trackTotalHitsUpTo;
     private volatile BottomSortValuesCollector bottomSortCollector;
 
+    // the initial shard requests per cluster alias and node id that are sent in a single request per node, null once they were sent
+    private Map<Tuple<String, String>, List<PendingShardRequest>> pendingNodeRequests;
+    @Nullable
+    private final ShardRequestHedging hedging;
+
     SearchQueryThenFetchAsyncAction(
         final Logger logger,
         final SearchTransportService searchTransportService,
@@ -53,6 +62,54 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
         ClusterState clusterState,
         SearchTask task,
         SearchResponse.Clusters clusters
+    ) {
+        this(
+            logger,
+            searchTransportService,
+            nodeIdToConnection,
+            aliasFilter,
+            concreteIndexBoosts,
+            searchPhaseController,
+            executor,
+            resultConsumer,
+            request,
+            listener,
+            shardsIts,
+            timeProvider,
+            clusterState,
+            task,
+            clusters,
+            false,
+            null
+        );
+    }
+
+    /**
+     * @param batchQueryRequests whether the initial shard requests are sent in a single {@link QueryNodeRequest} per node. The node then
+     *                           reduces the results of its shards before it replies, searching at most
+     *                           {@link SearchRequest#getMaxConcurrentShardRequests()} of them concurrently. Shard requests that are
+     *                           retried on another copy and shard requests to nodes that don't support node level requests are sent
+     *                           individually and throttled as usual.
+     * @param hedging how the shard requests are hedged on other copies of their shard, or {@code null} if they are not hedged
+     */
+    SearchQueryThenFetchAsyncAction(
+        final Logger logger,
+        final SearchTransportService searchTransportService,
+        final BiFunction<String, String, Transport.Connection> nodeIdToConnection,
+        final Map<String, AliasFilter> aliasFilter,
+        final Map<String, Float> concreteIndexBoosts,
+        final SearchPhaseController searchPhaseController,
+        final Executor executor,
+        final QueryPhaseResultConsumer resultConsumer,
+        final SearchRequest request,
+        final ActionListener<SearchResponse> listener,
+        final GroupShardsIterator<SearchShardIterator> shardsIts,
+        final TransportSearchAction.SearchTimeProvider timeProvider,
+        ClusterState clusterState,
+        SearchTask task,
+        SearchResponse.Clusters clusters,
+        boolean batchQueryRequests,
+        @Nullable ShardRequestHedging hedging
     ) {
         super(
             "query",
@@ -72,6 +129,8 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
             request.getMaxConcurrentShardRequests(),
             clusters
         );
+        this.pendingNodeRequests = batchQueryRequests ? new HashMap<>() : null;
+        this.hedging = hedging;
         this.topDocsSize = getTopDocsSize(request);
         this.trackTotalHitsUpTo = request.resolveTrackTotalHitsUpTo();
         this.searchPhaseController = searchPhaseController;
@@ -96,7 +155,85 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
         final SearchActionListener<SearchPhaseResult> listener
     ) {
         ShardSearchRequest request = rewriteShardSearchRequest(super.buildShardSearchRequest(shardIt, listener.requestIndex));
-        getSearchTransport().sendExecuteQuery(getConnection(shard.getClusterAlias(), shard.getNodeId()), request, getTask(), listener);
+        Transport.Connection connection = getConnection(shard.getClusterAlias(), shard.getNodeId());
+        synchronized (this) {
+            if (pendingNodeRequests != null && SearchTransportService.supportsQueryNodeRequests(connection)) {
+                pendingNodeRequests.computeIfAbsent(new Tuple<>(shard.getClusterAlias(), shard.getNodeId()), k -> new ArrayList<>())
+                    .add(new PendingShardRequest(connection, request, listener));
+                return;
+            }
+        }
+        getSearchTransport().sendExecuteQuery(connection, request, getTask(), listener);
+    }
+
+    @Override
+    protected boolean isBatched(SearchShardTarget shard) {
+        synchronized (this) {
+            if (pendingNodeRequests == null) {
+                return false;
+            }
+        }
+        final Transport.Connection connection;
+        try {
+            connection = getConnection(shard.getClusterAlias(), shard.getNodeId());
+        } catch (Exception e) {
+            // the shard request fails once it is sent
+            return false;
+        }
+        // older nodes get a request per shard instead
+        return SearchTransportService.supportsQueryNodeRequests(connection);
+    }
+
+    @Override
+    protected ShardRequestHedging getHedging() {
+        return hedging;
+    }
+
+    @Override
+    protected void executeHedgedPhaseOnShard(
+        final SearchShardIterator shardIt,
+        final SearchShardTarget shard,
+        final SearchTask hedgeTask,
+        final SearchActionListener<SearchPhaseResult> listener
+    ) {
+        ShardSearchRequest request = rewriteShardSearchRequest(super.buildShardSearchRequest(shardIt, listener.requestIndex));
+        Transport.Connection connection = getConnection(shard.getClusterAlias(), shard.getNodeId());
+        // hedged requests are never batched, the initial requests were sent already when a request is hedged
+        getSearchTransport().sendExecuteQuery(connection, request, hedgeTask, listener);
+    }
+
+    @Override
+    protected void onInitialShardRequestsExecuted() {
+        final Map<Tuple<String, String>, List<PendingShardRequest>> nodeRequests;
+        synchronized (this) {
+            nodeRequests = pendingNodeRequests;
+            pendingNodeRequests = null;
+        }
+        if (nodeRequests == null) {
+            return;
+        }
+        for (List<PendingShardRequest> pendingRequests : nodeRequests.values()) {
+            final Transport.Connection connection = pendingRequests.get(0).connection;
+            if (pendingRequests.size() == 1) {
+                final PendingShardRequest pendingRequest = pendingRequests.get(0);
+                getSearchTransport().sendExecuteQuery(connection, pendingRequest.request, getTask(), pendingRequest.listener);
+                continue;
+            }
+            final List<ShardSearchRequest> shardRequests = new ArrayList<>(pendingRequests.size());
+            final List<SearchActionListener<? super SearchPhaseResult>> listeners = new ArrayList<>(pendingRequests.size());
+            for (PendingShardRequest pendingRequest : pendingRequests) {
+                shardRequests.add(pendingRequest.request);
+                listeners.add(pendingRequest.listener);
+            }
+            try {
+                final QueryNodeRequest nodeRequest = new QueryNodeRequest(shardRequests, getRequest().getMaxConcurrentShardRequests());
+                getSearchTransport().sendExecuteQuery(connection, nodeRequest, getTask(), listeners);
+            } catch (Exception e) {
+                for (SearchActionListener<? super SearchPhaseResult> listener : listeners) {
+                    fork(() -> listener.onFailure(e));
+                }
+            }
+        }
     }
 
     @Override
@@ -136,16 +273,18 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
         if (bottomSortCollector == null) {
             return request;
         }
+        return bottomSortCollector.rewriteShardSearchRequest(request, trackTotalHitsUpTo);
+    }
 
-        // disable tracking total hits if we already reached the required estimation.
-        if (trackTotalHitsUpTo != SearchContext.TRACK_TOTAL_HITS_ACCURATE && bottomSortCollector.getTotalHits() > trackTotalHitsUpTo) {
-            request.source(request.source().shallowCopy().trackTotalHits(false));
-        }
+    private static class PendingShardRequest {
+        final Transport.Connection connection;
+        final ShardSearchRequest request;
+        final SearchActionListener<SearchPhaseResult> listener;
 
-        // set the current best bottom field doc
-        if (bottomSortCollector.getBottomSortValues() != null) {
-            request.setBottomSortValues(bottomSortCollector.getBottomSortValues());
+        PendingShardRequest(Transport.Connection connection, ShardSearchRequest request, SearchActionListener<SearchPhaseResult> listener) {
+            this.connection = connection;
+            this.request = request;
+            this.listener = listener;
         }
-        return request;
     }
 }
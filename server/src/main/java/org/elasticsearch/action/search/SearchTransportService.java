@@ -30,6 +30,7 @@ import org.elasticsearch.core.Nullable;
 import org.elasticsearch.search.CanMatchShardResponse;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.dfs.DfsSearchResult;
 import org.elasticsearch.search.fetch.FetchSearchResult;
 import org.elasticsearch.search.fetch.QueryFetchSearchResult;
@@ -42,6 +43,8 @@ import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.search.query.QuerySearchRequest;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.search.query.ScrollQuerySearchResult;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskAwareRequest;
 import org.elasticsearch.tasks.TaskId;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.RemoteClusterService;
@@ -54,6 +57,7 @@ import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -73,6 +77,7 @@ public class SearchTransportService {
     public static final String CLEAR_SCROLL_CONTEXTS_ACTION_NAME = "indices:data/read/search[clear_scroll_contexts]";
     public static final String DFS_ACTION_NAME = "indices:data/read/search[phase/dfs]";
     public static final String QUERY_ACTION_NAME = "indices:data/read/search[phase/query]";
+    public static final String QUERY_NODE_ACTION_NAME = "indices:data/read/search[phase/query][n]";
     public static final String QUERY_ID_ACTION_NAME = "indices:data/read/search[phase/query/id]";
     public static final String QUERY_SCROLL_ACTION_NAME = "indices:data/read/search[phase/query/scroll]";
     public static final String QUERY_FETCH_SCROLL_ACTION_NAME = "indices:data/read/search[phase/query+fetch/scroll]";
@@ -256,6 +261,67 @@ public class SearchTransportService {
         );
     }
 
+    /**
+     * Returns whether the node of the given connection can execute the query phase of several shards in a single
+     * {@link QueryNodeRequest}. The query phase of older nodes is executed with a request per shard instead.
+     */
+    static boolean supportsQueryNodeRequests(Transport.Connection connection) {
+        return connection.getVersion().onOrAfter(Version.V_8_1_0) && connection.getNode().getVersion().onOrAfter(Version.V_8_1_0);
+    }
+
+    /**
+     * Sends the query phase requests of several shards to the node of the given connection in a single request. The response of every
+     * shard is passed to the listener at the same position as its request in {@link QueryNodeRequest#getShardSearchRequests()}.
+     * The node must {@link #supportsQueryNodeRequests support} node level query requests.
+     */
+    public void sendExecuteQuery(
+        Transport.Connection connection,
+        final QueryNodeRequest request,
+        SearchTask task,
+        final List<SearchActionListener<? super SearchPhaseResult>> listeners
+    ) {
+        assert supportsQueryNodeRequests(connection) : "node [" + connection.getNode() + "] doesn't support node level query requests";
+        assert request.getShardSearchRequests().size() == listeners.size();
+        final List<ActionListener<? super SearchPhaseResult>> handlers = new ArrayList<>(listeners.size());
+        for (SearchActionListener<? super SearchPhaseResult> listener : listeners) {
+            handlers.add(responseWrapper.apply(connection, listener));
+        }
+        final ActionListener<QueryNodeResponse> nodeListener = new ActionListener<>() {
+            @Override
+            public void onResponse(QueryNodeResponse response) {
+                final List<QueryNodeResponse.ResponseOrFailure> responses = response.getResponses();
+                assert responses.size() == handlers.size();
+                for (int i = 0; i < handlers.size(); i++) {
+                    final QueryNodeResponse.ResponseOrFailure shardResponse = responses.get(i);
+                    if (shardResponse.getResult() != null) {
+                        handlers.get(i).onResponse(shardResponse.getResult());
+                    } else {
+                        handlers.get(i).onFailure(shardResponse.getException());
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                for (ActionListener<? super SearchPhaseResult> handler : handlers) {
+                    handler.onFailure(e);
+                }
+            }
+        };
+        transportService.sendChildRequest(
+            connection,
+            QUERY_NODE_ACTION_NAME,
+            request,
+            task,
+            new ConnectionCountingHandler<>(
+                nodeListener,
+                in -> new QueryNodeResponse(in, true),
+                clientConnections,
+                connection.getNode().getId()
+            )
+        );
+    }
+
     public void sendExecuteQuery(
         Transport.Connection connection,
         final QuerySearchRequest request,
@@ -511,6 +577,18 @@ public class SearchTransportService {
             (request) -> ((ShardSearchRequest) request).numberOfShards() == 1 ? QueryFetchSearchResult::new : QuerySearchResult::new
         );
 
+        transportService.registerRequestHandler(
+            QUERY_NODE_ACTION_NAME,
+            ThreadPool.Names.SAME,
+            QueryNodeRequest::new,
+            (request, channel, task) -> searchService.executeQueryPhase(
+                request,
+                (SearchShardTask) task,
+                new ChannelActionListener<>(channel, QUERY_NODE_ACTION_NAME, request)
+            )
+        );
+        TransportActionProxy.registerProxyAction(transportService, QUERY_NODE_ACTION_NAME, true, QueryNodeResponse::new);
+
         transportService.registerRequestHandler(
             QUERY_ID_ACTION_NAME,
             ThreadPool.Names.SAME,
@@ -674,6 +752,44 @@ public class SearchTransportService {
         new OriginSettingClient(client, GetTaskAction.TASKS_ORIGIN).admin().cluster().cancelTasks(req, ActionListener.wrap(() -> {}));
     }
 
+    /**
+     * Registers a child task of the given search task to send a hedged shard request with. Cancelling this task cancels the hedged
+     * request without cancelling the other shard requests of the search, which are children of the search task itself.
+     */
+    public SearchTask registerHedgedRequestTask(SearchTask parentTask, SearchShardTarget shard) {
+        final TaskId parentTaskId = new TaskId(client.getLocalNodeId(), parentTask.getId());
+        return (SearchTask) transportService.getTaskManager().register("transport", QUERY_ACTION_NAME + "[hedged]", new TaskAwareRequest() {
+            @Override
+            public void setParentTask(TaskId taskId) {
+                throw new UnsupportedOperationException("the parent of a hedged request is the search task");
+            }
+
+            @Override
+            public TaskId getParentTask() {
+                return parentTaskId;
+            }
+
+            @Override
+            public Task createTask(long id, String type, String action, TaskId parentTaskId, Map<String, String> headers) {
+                return new SearchTask(id, type, action, () -> "hedged request to " + shard, parentTaskId, headers);
+            }
+        });
+    }
+
+    /**
+     * Cancels a hedged request that was sent with the given task.
+     */
+    public void cancelHedgedRequestTask(SearchTask task, String reason) {
+        transportService.getTaskManager().cancelTaskAndDescendants(task, reason, false, ActionListener.wrap(() -> {}));
+    }
+
+    /**
+     * Unregisters the task of a hedged request once the request returned.
+     */
+    public void unregisterHedgedRequestTask(SearchTask task) {
+        transportService.getTaskManager().unregister(task);
+    }
+
     public NamedWriteableRegistry getNamedWriteableRegistry() {
         return client.getNamedWriteableRegistry();
     }
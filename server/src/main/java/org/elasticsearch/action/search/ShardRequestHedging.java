@@ -0,0 +1,94 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.node.ResponseCollectorService;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
+
+/**
+ * Decides when the shard requests of a search are hedged. A shard request that didn't return within a percentile of the recent response
+ * times of shard requests is sent again to another copy of its shard, and the request that returns last is cancelled or discarded. This
+ * keeps a single slow copy, for instance one that is garbage collecting or merging heavily, from delaying the whole search.
+ * <p>
+ * Every shard request earns a share of a hedged request, and a request is only hedged if the shares saved up pay for it, so that the
+ * hedged requests never exceed the configured ratio of the shard requests and can't overload a cluster that is slow as a whole.
+ */
+final class ShardRequestHedging {
+
+    private final ResponseCollectorService responseCollectorService;
+    private final ThreadPool threadPool;
+    private final double percentile;
+    private final TimeValue minDelay;
+    private final double budget;
+
+    /**
+     * @param percentile the percentile of the recent response times of shard requests after which a shard request is hedged
+     * @param minDelay the minimum time to wait for before a shard request is hedged
+     * @param budget the maximum ratio of hedged requests to shard requests
+     */
+    ShardRequestHedging(
+        ResponseCollectorService responseCollectorService,
+        ThreadPool threadPool,
+        double percentile,
+        TimeValue minDelay,
+        double budget
+    ) {
+        this.responseCollectorService = responseCollectorService;
+        this.threadPool = threadPool;
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+        this.budget = budget;
+    }
+
+    /**
+     * Called for every shard request that can be hedged. Returns the time to wait for before the request is hedged, or {@code null} if
+     * it must not be hedged because too few shard requests were sent recently to know how long they usually take.
+     */
+    @Nullable
+    TimeValue onShardRequest() {
+        responseCollectorService.onShardRequest(budget);
+        final long percentileNanos = responseCollectorService.getShardResponseTimePercentile(percentile);
+        if (percentileNanos < 0) {
+            return null;
+        }
+        return TimeValue.timeValueNanos(Math.max(percentileNanos, minDelay.nanos()));
+    }
+
+    /**
+     * Records the response time of a shard request that was sent on its own, measured from the time it was sent like the delay of its
+     * hedged request.
+     */
+    void onShardResponse(long responseTimeNanos) {
+        responseCollectorService.addShardResponseTime(responseTimeNanos);
+    }
+
+    /**
+     * Returns whether the budget allows to hedge a shard request, and takes the hedged request out of the budget if it does.
+     */
+    boolean tryHedge() {
+        return responseCollectorService.tryHedgeRequest();
+    }
+
+    /**
+     * Called when a hedged request returned before the request that it duplicates.
+     */
+    void onHedgeWon() {
+        responseCollectorService.onHedgedRequestWon();
+    }
+
+    /**
+     * Runs the given command on the scheduler thread after the given delay, the command must fork if it does more than sending a request.
+     */
+    Scheduler.Cancellable schedule(Runnable command, TimeValue delay) {
+        return threadPool.schedule(command, delay, ThreadPool.Names.SAME);
+    }
+}
@@ -38,6 +38,7 @@ import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.logging.DeprecationCategory;
 import org.elasticsearch.common.logging.DeprecationLogger;
+import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
@@ -113,6 +114,57 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         Property.NodeScope
     );
 
+    /**
+     * Whether the query phase sends a single request per node for all the shards of the search on that node, so that the node can reduce
+     * the results of its shards before it replies.
+     */
+    public static final Setting<Boolean> BATCHED_QUERY_PHASE_SETTING = Setting.boolSetting(
+        "action.search.batched_query_phase",
+        false,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    /**
+     * Whether the query phase sends the request of a shard again to another copy of the shard when the request didn't return within a
+     * percentile of the recent response times of shard requests.
+     */
+    public static final Setting<Boolean> HEDGED_REQUESTS_ENABLED_SETTING = Setting.boolSetting(
+        "action.search.hedged_requests.enabled",
+        false,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    /** The percentile of the recent response times of shard requests after which a shard request is hedged. */
+    public static final Setting<Double> HEDGED_REQUESTS_PERCENTILE_SETTING = Setting.doubleSetting(
+        "action.search.hedged_requests.percentile",
+        95d,
+        50d,
+        100d,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    /** The minimum time to wait for before a shard request is hedged. */
+    public static final Setting<TimeValue> HEDGED_REQUESTS_MIN_DELAY_SETTING = Setting.timeSetting(
+        "action.search.hedged_requests.min_delay",
+        TimeValue.timeValueMillis(10),
+        TimeValue.ZERO,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    /** The maximum ratio of hedged requests to the shard requests of the query phase. */
+    public static final Setting<Double> HEDGED_REQUESTS_BUDGET_SETTING = Setting.doubleSetting(
+        "action.search.hedged_requests.budget",
+        0.05d,
+        0d,
+        1d,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     public static final Setting<Integer> DEFAULT_PRE_FILTER_SHARD_SIZE = Setting.intSetting(
         "action.search.pre_filter_shard_size.default",
         SearchRequest.DEFAULT_PRE_FILTER_SHARD_SIZE,
@@ -1229,7 +1281,12 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                         timeProvider,
                         clusterState,
                         task,
-                        clusters
+                        clusters,
+                        clusterService.getClusterSettings().get(BATCHED_QUERY_PHASE_SETTING)
+                            // scrolls need the reader context of every shard and single shard searches fetch during the query phase
+                            && searchRequest.scroll() == null
+                            && shardIterators.size() > 1,
+                        buildShardRequestHedging(searchRequest, threadPool)
                     );
                     break;
                 default:
@@ -1239,6 +1296,22 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         }
     }
 
+    @Nullable
+    private ShardRequestHedging buildShardRequestHedging(SearchRequest searchRequest, ThreadPool threadPool) {
+        final ClusterSettings clusterSettings = clusterService.getClusterSettings();
+        if (clusterSettings.get(HEDGED_REQUESTS_ENABLED_SETTING) == false || searchRequest.pointInTimeBuilder() != null) {
+            // the reader contexts of a point in time only exist on the copies that opened them
+            return null;
+        }
+        return new ShardRequestHedging(
+            searchService.getResponseCollectorService(),
+            threadPool,
+            clusterSettings.get(HEDGED_REQUESTS_PERCENTILE_SETTING),
+            clusterSettings.get(HEDGED_REQUESTS_MIN_DELAY_SETTING),
+            clusterSettings.get(HEDGED_REQUESTS_BUDGET_SETTING)
+        );
+    }
+
     private static void validateAndResolveWaitForCheckpoint(
         ClusterState clusterState,
         IndexNameExpressionResolver resolver,
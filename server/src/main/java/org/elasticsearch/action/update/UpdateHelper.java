@@ -57,8 +57,15 @@ public class UpdateHelper {
 
     /**
      * Prepares an update request by converting it into an index or delete request or an update response (no action).
+     * @throws IllegalArgumentException if the index has a synthetic {@code _source}, since the update would replace the original
+     *         {@code _source} with the one rebuilt from the fields of the document
      */
     public Result prepare(UpdateRequest request, IndexShard indexShard, LongSupplier nowInMillis) {
+        if (indexShard.mapperService().mappingLookup().isSourceSynthetic()) {
+            throw new IllegalArgumentException(
+                "the update API doesn't support index [" + indexShard.shardId().getIndexName() + "] since its [_source] is synthetic"
+            );
+        }
         final GetResult getResult = indexShard.getService().getForUpdate(request.id(), request.ifSeqNo(), request.ifPrimaryTerm());
         return prepare(indexShard.shardId(), request, getResult, nowInMillis);
     }
@@ -22,6 +22,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.bootstrap.plugins.PluginsManager;
 import org.elasticsearch.cli.UserException;
 import org.elasticsearch.common.PidFile;
+import org.elasticsearch.common.compress.Zstd;
 import org.elasticsearch.common.filesystem.FileSystemNatives;
 import org.elasticsearch.common.inject.CreationException;
 import org.elasticsearch.common.logging.LogConfigurator;
@@ -156,6 +157,9 @@ final class Bootstrap {
 
         // init filesystem natives
         FileSystemNatives.init();
+
+        // init the native zstd library
+        Zstd.init();
     }
 
     static void initializeProbes() {
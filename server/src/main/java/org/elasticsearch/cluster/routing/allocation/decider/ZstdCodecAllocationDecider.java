@@ -0,0 +1,101 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.decider;
+
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.common.compress.Zstd;
+import org.elasticsearch.index.codec.CodecService;
+import org.elasticsearch.index.codec.ZstdCodec;
+import org.elasticsearch.index.engine.EngineConfig;
+
+/**
+ * An allocation decider that prevents the shards of indices that compress their stored fields with zstd from being allocated to nodes
+ * that can't load the native zstd library, since these nodes can't read the segments of the shards. Nodes report that they can load the
+ * library through the {@link Zstd#NODE_ATTR} attribute, so nodes of older versions are never considered able to read these segments.
+ */
+public class ZstdCodecAllocationDecider extends AllocationDecider {
+
+    public static final String NAME = "zstd_codec";
+
+    @Override
+    public Decision canAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+        return canAllocate(allocation.metadata().getIndexSafe(shardRouting.index()), node, allocation);
+    }
+
+    @Override
+    public Decision canAllocate(IndexMetadata indexMetadata, RoutingNode node, RoutingAllocation allocation) {
+        return canAllocateToNode(indexMetadata, node.node(), allocation);
+    }
+
+    @Override
+    public Decision canForceAllocatePrimary(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+        // forcing the primary onto the node would only fail to open the shard
+        return canAllocate(shardRouting, node, allocation);
+    }
+
+    @Override
+    public Decision canForceAllocateDuringReplace(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+        return canAllocate(shardRouting, node, allocation);
+    }
+
+    @Override
+    public Decision shouldAutoExpandToNode(IndexMetadata indexMetadata, DiscoveryNode node, RoutingAllocation allocation) {
+        return canAllocateToNode(indexMetadata, node, allocation);
+    }
+
+    private static Decision canAllocateToNode(IndexMetadata indexMetadata, DiscoveryNode node, RoutingAllocation allocation) {
+        if (usesZstd(indexMetadata) == false) {
+            return allocation.decision(Decision.YES, NAME, "the index does not compress its stored fields with zstd");
+        }
+        if (canReadZstd(node)) {
+            return allocation.decision(Decision.YES, NAME, "node [%s] can read segments compressed with zstd", node.getId());
+        }
+        return allocation.decision(
+            Decision.NO,
+            NAME,
+            "the index compresses its stored fields with zstd but node [%s] does not have the native zstd library [libzstd]",
+            node.getId()
+        );
+    }
+
+    /**
+     * Whether the segments of the given index may be compressed with zstd.
+     */
+    public static boolean usesZstd(IndexMetadata indexMetadata) {
+        // the raw value, since the setting fails to parse zstd codecs on nodes that can't load the library
+        final String codec = indexMetadata.getSettings().get(EngineConfig.INDEX_CODEC_SETTING.getKey());
+        return CodecService.ZSTD_BEST_SPEED_CODEC.equals(codec)
+            || CodecService.ZSTD_BEST_COMPRESSION_CODEC.equals(codec)
+            || ZstdCodec.NAME.equals(codec);
+    }
+
+    /**
+     * Whether the given node reported that it can read segments compressed with zstd.
+     */
+    public static boolean canReadZstd(DiscoveryNode node) {
+        return Boolean.parseBoolean(node.getAttributes().get(Zstd.NODE_ATTR));
+    }
+
+    /**
+     * Whether any data node of the cluster can read segments compressed with zstd.
+     */
+    public static boolean anyDataNodeCanReadZstd(DiscoveryNodes nodes) {
+        for (DiscoveryNode node : nodes.getDataNodes().values()) {
+            if (canReadZstd(node)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -74,17 +74,22 @@ public class PagedBytesReference extends AbstractBytesReference {
             int position = 0;
             int nextFragmentSize = Math.min(length, initialFragmentSize);
             // this BytesRef is reused across the iteration on purpose - BytesRefIterator interface was designed for this
-            final BytesRef slice = new BytesRef();
+            BytesRef slice = new BytesRef();
 
             @Override
             public BytesRef next() throws IOException {
                 if (nextFragmentSize != 0) {
-                    final boolean materialized = byteArray.get(offset + position, nextFragmentSize, slice);
-                    assert materialized == false : "iteration should be page aligned but array got materialized";
+                    assert position == 0 || (offset + position) % PAGE_SIZE == 0 : "iteration should be page aligned";
+                    final BytesRef fragment = slice;
+                    if (byteArray.get(offset + position, nextFragmentSize, fragment)) {
+                        // pages that are not backed by a byte[] (off-heap pages) are copied into a buffer that would be reused if the
+                        // same BytesRef was passed again, but callers like Netty4Utils#toByteBuf hold on to all the fragments
+                        slice = new BytesRef();
+                    }
                     position += nextFragmentSize;
                     final int remaining = length - position;
                     nextFragmentSize = Math.min(remaining, PAGE_SIZE);
-                    return slice;
+                    return fragment;
                 } else {
                     assert nextFragmentSize == 0 : "fragmentSize expected [0] but was: [" + nextFragmentSize + "]";
                     return null; // we are done with this iteration
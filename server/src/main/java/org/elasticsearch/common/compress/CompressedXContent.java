@@ -8,6 +8,7 @@
 
 package org.elasticsearch.common.compress;
 
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesArray;
@@ -43,6 +44,29 @@ public final class CompressedXContent {
 
     private static final ThreadLocal<InflaterAndBuffer> inflater = ThreadLocal.withInitial(InflaterAndBuffer::new);
 
+    /**
+     * The compressor for new instances, {@code deflate} unless configured otherwise. Instances compressed with {@code zstd} are smaller
+     * and faster to compress, but can only be read on nodes that have the native zstd library. They are only kept in the memory of the
+     * node that created them and always recompressed with deflate when they are sent to other nodes, which may not have the library.
+     */
+    private static final Compressor COMPRESSOR = resolveCompressor(System.getProperty("es.compressed_xcontent.compressor", "deflate"));
+
+    private static Compressor resolveCompressor(String name) {
+        switch (name) {
+            case "deflate":
+                return CompressorFactory.COMPRESSOR;
+            case "zstd":
+                if (Zstd.isAvailable() == false) {
+                    throw new IllegalArgumentException("es.compressed_xcontent.compressor [zstd] requires the native zstd library");
+                }
+                return CompressorFactory.ZSTD_COMPRESSOR;
+            default:
+                throw new IllegalArgumentException(
+                    "es.compressed_xcontent.compressor must be one of [deflate, zstd] but was [" + name + "]"
+                );
+        }
+    }
+
     private static String sha256(BytesReference data) {
         MessageDigest messageDigest = MessageDigests.sha256();
         try {
@@ -55,6 +79,9 @@ public final class CompressedXContent {
     }
 
     private static String sha256FromCompressed(byte[] compressed) {
+        if (isDeflate(compressed) == false) {
+            return sha256(uncompress(compressed));
+        }
         MessageDigest messageDigest = MessageDigests.sha256();
         try (InflaterAndBuffer inflaterAndBuffer = inflater.get()) {
             final Inflater inflater = inflaterAndBuffer.inflater;
@@ -93,7 +120,7 @@ public final class CompressedXContent {
     public CompressedXContent(ToXContent xcontent, ToXContent.Params params) throws IOException {
         BytesStreamOutput bStream = new BytesStreamOutput();
         MessageDigest messageDigest = MessageDigests.sha256();
-        OutputStream checkedStream = new DigestOutputStream(CompressorFactory.COMPRESSOR.threadLocalOutputStream(bStream), messageDigest);
+        OutputStream checkedStream = new DigestOutputStream(COMPRESSOR.threadLocalOutputStream(bStream), messageDigest);
         try (XContentBuilder builder = XContentFactory.jsonBuilder(checkedStream)) {
             if (xcontent.isFragment()) {
                 builder.startObject();
@@ -119,7 +146,7 @@ public final class CompressedXContent {
             this.bytes = BytesReference.toBytes(data);
             this.sha256 = sha256FromCompressed(this.bytes);
         } else {
-            this.bytes = BytesReference.toBytes(CompressorFactory.COMPRESSOR.compress(data));
+            this.bytes = BytesReference.toBytes(COMPRESSOR.compress(data));
             this.sha256 = sha256(data);
         }
         assertConsistent();
@@ -151,13 +178,21 @@ public final class CompressedXContent {
 
     /** Return the uncompressed bytes. */
     public BytesReference uncompressed() {
+        return uncompress(bytes);
+    }
+
+    private static BytesReference uncompress(byte[] compressed) {
         try {
-            return CompressorFactory.uncompress(new BytesArray(bytes));
+            return CompressorFactory.uncompress(new BytesArray(compressed));
         } catch (IOException e) {
             throw new IllegalStateException("Cannot decompress compressed string", e);
         }
     }
 
+    private static boolean isDeflate(byte[] compressed) {
+        return CompressorFactory.COMPRESSOR.isCompressed(new BytesArray(compressed));
+    }
+
     public String string() {
         return uncompressed().utf8ToString();
     }
@@ -187,7 +222,11 @@ public final class CompressedXContent {
             int crc32 = crc32FromCompressed(bytes);
             out.writeInt(crc32);
         }
-        out.writeByteArray(bytes);
+        if (isDeflate(bytes) == false) {
+            out.writeBytesReference(CompressorFactory.COMPRESSOR.compress(uncompressed()));
+        } else {
+            out.writeByteArray(bytes);
+        }
     }
 
     @Override
@@ -211,6 +250,11 @@ public final class CompressedXContent {
 
     private static int crc32FromCompressed(byte[] compressed) {
         CRC32 crc32 = new CRC32();
+        if (isDeflate(compressed) == false) {
+            final BytesRef uncompressed = uncompress(compressed).toBytesRef();
+            crc32.update(uncompressed.bytes, uncompressed.offset, uncompressed.length);
+            return (int) crc32.getValue();
+        }
         try (InflaterAndBuffer inflaterAndBuffer = inflater.get()) {
             final Inflater inflater = inflaterAndBuffer.inflater;
             final ByteBuffer buffer = inflaterAndBuffer.buffer;
@@ -20,6 +20,12 @@ public class CompressorFactory {
 
     public static final Compressor COMPRESSOR = new DeflateCompressor();
 
+    /**
+     * Compressor based on the native zstd library, which can only be used if {@link Zstd#isAvailable()}. Bytes that were compressed with
+     * it are detected by {@link #compressor(BytesReference)} like the ones compressed with {@link #COMPRESSOR}.
+     */
+    public static final Compressor ZSTD_COMPRESSOR = new ZstdCompressor();
+
     public static boolean isCompressed(BytesReference bytes) {
         return compressor(bytes) != null;
     }
@@ -33,6 +39,10 @@ public class CompressorFactory {
             assert XContentHelper.xContentType(bytes) == null;
             return COMPRESSOR;
         }
+        if (ZSTD_COMPRESSOR.isCompressed(bytes)) {
+            assert XContentHelper.xContentType(bytes) == null;
+            return ZSTD_COMPRESSOR;
+        }
 
         XContentType contentType = XContentHelper.xContentType(bytes);
         if (contentType == null) {
@@ -0,0 +1,131 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.compress;
+
+import com.sun.jna.Native;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.util.Constants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Binds the block compression functions of the native zstd library ({@code libzstd}) of the system through JNA. The library is loaded
+ * once, before the security manager is installed, and all methods fail with an {@link IllegalStateException} if it is not available.
+ * The buffers that are passed to the methods may be heap buffers, the bytes between their position and limit are compressed or
+ * decompressed, and their positions are not changed.
+ */
+public final class Zstd {
+
+    /**
+     * The attribute through which nodes report whether they could load the library, and can therefore read segments compressed with
+     * zstd, see {@link org.elasticsearch.cluster.routing.allocation.decider.ZstdCodecAllocationDecider}.
+     */
+    public static final String NODE_ATTR = "zstd.available";
+
+    private static final Logger logger = LogManager.getLogger(Zstd.class);
+
+    private static final boolean AVAILABLE = load();
+
+    private static boolean load() {
+        if (Constants.JRE_IS_64BIT == false) {
+            // the bindings map size_t to a java long
+            logger.debug("native zstd compression is only supported on 64 bit platforms");
+            return false;
+        }
+        try {
+            // load one of the main JNA classes to see if the classes are available. this does not ensure that all native
+            // libraries are available, only the ones necessary by JNA to function
+            Class.forName("com.sun.jna.Native");
+            Native.register(ZstdLibrary.class, "zstd");
+            logger.debug("zstd library loaded, version [{}]", ZstdLibrary.ZSTD_versionNumber());
+            return true;
+        } catch (ClassNotFoundException e) {
+            logger.warn("JNA not found. native zstd compression will be disabled.", e);
+        } catch (LinkageError e) {
+            logger.warn("unable to link zstd library. native zstd compression will be disabled.", e);
+        }
+        return false;
+    }
+
+    private Zstd() {}
+
+    public static final class ZstdLibrary {
+
+        private ZstdLibrary() {}
+
+        static native int ZSTD_versionNumber();
+
+        static native long ZSTD_compressBound(long srcSize);
+
+        static native long ZSTD_compress(ByteBuffer dst, long dstCapacity, ByteBuffer src, long srcSize, int compressionLevel);
+
+        static native long ZSTD_decompress(ByteBuffer dst, long dstCapacity, ByteBuffer src, long compressedSize);
+
+        static native int ZSTD_isError(long code);
+
+        static native String ZSTD_getErrorName(long code);
+    }
+
+    /**
+     * Loads the native library, must be called before the security manager is installed.
+     */
+    public static void init() {
+        // the library is loaded by the static initializer
+    }
+
+    /**
+     * Whether the native zstd library could be loaded.
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    private static void ensureAvailable() {
+        if (AVAILABLE == false) {
+            throw new IllegalStateException("zstd compression requires the native zstd library [libzstd] which could not be loaded");
+        }
+    }
+
+    /**
+     * Returns the maximum size of the compressed form of {@code srcSize} bytes.
+     */
+    public static int compressBound(int srcSize) {
+        ensureAvailable();
+        return Math.toIntExact(ZstdLibrary.ZSTD_compressBound(srcSize));
+    }
+
+    /**
+     * Compresses the remaining bytes of {@code src} as a single zstd frame into {@code dst}, which must have at least
+     * {@link #compressBound} bytes remaining, and returns the number of bytes written to {@code dst}.
+     */
+    public static int compress(ByteBuffer dst, ByteBuffer src, int level) throws IOException {
+        ensureAvailable();
+        final long result = ZstdLibrary.ZSTD_compress(dst, dst.remaining(), src, src.remaining(), level);
+        if (ZstdLibrary.ZSTD_isError(result) != 0) {
+            throw new IOException("zstd compression failed: " + ZstdLibrary.ZSTD_getErrorName(result));
+        }
+        return Math.toIntExact(result);
+    }
+
+    /**
+     * Decompresses the zstd frame in the remaining bytes of {@code src} into {@code dst} and returns the number of bytes written to
+     * {@code dst}.
+     */
+    public static int decompress(ByteBuffer dst, ByteBuffer src) throws IOException {
+        ensureAvailable();
+        final long result = ZstdLibrary.ZSTD_decompress(dst, dst.remaining(), src, src.remaining());
+        if (ZstdLibrary.ZSTD_isError(result) != 0) {
+            throw new IOException("zstd decompression failed: " + ZstdLibrary.ZSTD_getErrorName(result));
+        }
+        return Math.toIntExact(result);
+    }
+}
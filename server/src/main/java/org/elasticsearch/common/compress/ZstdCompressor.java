@@ -0,0 +1,308 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.core.Releasable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * {@link Compressor} implementation based on the native zstd library, see {@link Zstd}. The content is split into blocks of at most
+ * {@link #BLOCK_SIZE} bytes that are compressed independently, each block is written as its uncompressed length, its compressed length,
+ * both as big endian ints, followed by the compressed zstd frame. Splitting the content bounds the memory needed to compress or
+ * decompress a stream, and allows flushing a compressing stream at any point.
+ */
+public class ZstdCompressor implements Compressor {
+
+    // An arbitrary header that we use to identify compressed streams, see DeflateCompressor
+    private static final byte[] HEADER = new byte[] { 'Z', 'S', 'T', '\0' };
+
+    public static final int HEADER_SIZE = HEADER.length;
+
+    public static final int BLOCK_SIZE = 64 * 1024;
+
+    public static final int BLOCK_HEADER_SIZE = 2 * Integer.BYTES;
+
+    // compresses faster than DEFLATE at the level DeflateCompressor uses, at a similar or better ratio
+    private static final int LEVEL = 1;
+
+    @Override
+    public boolean isCompressed(BytesReference bytes) {
+        if (bytes.length() < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; ++i) {
+            if (bytes.get(i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int headerLength() {
+        return HEADER.length;
+    }
+
+    /**
+     * The maximum compressed length of a block.
+     */
+    public static int maxCompressedBlockSize() {
+        return Zstd.compressBound(BLOCK_SIZE);
+    }
+
+    private static final ThreadLocal<Buffers> buffersRef = ThreadLocal.withInitial(Buffers::new);
+
+    // Buffers for the uncompressed and compressed bytes of a block, which are reused by the streams of a thread
+    private static final class Buffers implements Releasable {
+
+        final byte[] uncompressed = new byte[BLOCK_SIZE];
+        final byte[] compressed = new byte[maxCompressedBlockSize()];
+        final byte[] blockHeader = new byte[BLOCK_HEADER_SIZE];
+
+        // true if these buffers are currently in use and are not available for re-use
+        boolean inUse;
+
+        @Override
+        public void close() {
+            assert inUse;
+            inUse = false;
+        }
+    }
+
+    private static Buffers acquireBuffers() {
+        final Buffers current = buffersRef.get();
+        // Nested streams should not happen but we still handle them safely by using fresh buffers
+        final Buffers buffers = current.inUse ? new Buffers() : current;
+        buffers.inUse = true;
+        return buffers;
+    }
+
+    @Override
+    public InputStream threadLocalInputStream(InputStream in) throws IOException {
+        final byte[] headerBytes = new byte[HEADER.length];
+        final int len = Streams.readFully(in, headerBytes);
+        if (len != HEADER.length || Arrays.equals(headerBytes, HEADER) == false) {
+            throw new IllegalArgumentException("Input stream is not compressed with ZSTD!");
+        }
+        return new ZstdInputStream(in, acquireBuffers());
+    }
+
+    @Override
+    public OutputStream threadLocalOutputStream(OutputStream out) throws IOException {
+        out.write(HEADER);
+        return new ZstdOutputStream(out, acquireBuffers());
+    }
+
+    @Override
+    public BytesReference uncompress(BytesReference bytesReference) throws IOException {
+        try (InputStream in = threadLocalInputStream(bytesReference.streamInput())) {
+            return Streams.readFully(in);
+        }
+    }
+
+    @Override
+    public BytesReference compress(BytesReference bytesReference) throws IOException {
+        final BytesStreamOutput buffer = new BytesStreamOutput(Math.min(bytesReference.length(), BLOCK_SIZE) + HEADER_SIZE);
+        try (OutputStream out = threadLocalOutputStream(buffer)) {
+            bytesReference.writeTo(out);
+        }
+        return buffer.bytes();
+    }
+
+    /**
+     * Reads the uncompressed length of a block from its header, and validates it.
+     */
+    public static int readUncompressedLength(byte[] blockHeader, int offset) throws IOException {
+        final int uncompressedLength = readInt(blockHeader, offset);
+        if (uncompressedLength <= 0 || uncompressedLength > BLOCK_SIZE) {
+            throw new IOException("invalid uncompressed length [" + uncompressedLength + "] of zstd block, expected 1-" + BLOCK_SIZE);
+        }
+        return uncompressedLength;
+    }
+
+    /**
+     * Reads the compressed length of a block from its header, and validates it.
+     */
+    public static int readCompressedLength(byte[] blockHeader, int offset, int maxCompressedBlockSize) throws IOException {
+        final int compressedLength = readInt(blockHeader, offset + Integer.BYTES);
+        if (compressedLength <= 0 || compressedLength > maxCompressedBlockSize) {
+            throw new IOException(
+                "invalid compressed length [" + compressedLength + "] of zstd block, expected 1-" + maxCompressedBlockSize
+            );
+        }
+        return compressedLength;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24)
+            | ((bytes[offset + 1] & 0xFF) << 16)
+            | ((bytes[offset + 2] & 0xFF) << 8)
+            | (bytes[offset + 3] & 0xFF);
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static final class ZstdInputStream extends InputStream {
+
+        private final InputStream in;
+        private final Buffers buffers;
+        private int position;
+        private int limit;
+        private boolean closed;
+
+        ZstdInputStream(InputStream in, Buffers buffers) {
+            this.in = in;
+            this.buffers = buffers;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == limit && readBlock() == false) {
+                return -1;
+            }
+            return buffers.uncompressed[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position == limit && readBlock() == false) {
+                return -1;
+            }
+            final int read = Math.min(len, limit - position);
+            System.arraycopy(buffers.uncompressed, position, b, off, read);
+            position += read;
+            return read;
+        }
+
+        private boolean readBlock() throws IOException {
+            final int headerLength = Streams.readFully(in, buffers.blockHeader);
+            if (headerLength == 0) {
+                return false;
+            } else if (headerLength != BLOCK_HEADER_SIZE) {
+                throw new EOFException("unexpected end of zstd stream while reading a block header");
+            }
+            final int uncompressedLength = readUncompressedLength(buffers.blockHeader, 0);
+            final int compressedLength = readCompressedLength(buffers.blockHeader, 0, buffers.compressed.length);
+            if (Streams.readFully(in, buffers.compressed, 0, compressedLength) != compressedLength) {
+                throw new EOFException("unexpected end of zstd stream while reading a block");
+            }
+            final int decompressed = Zstd.decompress(
+                ByteBuffer.wrap(buffers.uncompressed, 0, uncompressedLength),
+                ByteBuffer.wrap(buffers.compressed, 0, compressedLength)
+            );
+            if (decompressed != uncompressedLength) {
+                throw new IOException("zstd block decompressed to [" + decompressed + "] bytes but expected [" + uncompressedLength + "]");
+            }
+            position = 0;
+            limit = uncompressedLength;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                in.close();
+            } finally {
+                buffers.close();
+            }
+        }
+    }
+
+    private static final class ZstdOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final Buffers buffers;
+        private int count;
+        private boolean closed;
+
+        ZstdOutputStream(OutputStream out, Buffers buffers) {
+            this.out = out;
+            this.buffers = buffers;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == BLOCK_SIZE) {
+                writeBlock();
+            }
+            buffers.uncompressed[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == BLOCK_SIZE) {
+                    writeBlock();
+                }
+                final int toCopy = Math.min(len, BLOCK_SIZE - count);
+                System.arraycopy(b, off, buffers.uncompressed, count, toCopy);
+                count += toCopy;
+                off += toCopy;
+                len -= toCopy;
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            final int compressedLength = Zstd.compress(
+                ByteBuffer.wrap(buffers.compressed),
+                ByteBuffer.wrap(buffers.uncompressed, 0, count),
+                LEVEL
+            );
+            writeInt(buffers.blockHeader, 0, count);
+            writeInt(buffers.blockHeader, Integer.BYTES, compressedLength);
+            out.write(buffers.blockHeader);
+            out.write(buffers.compressed, 0, compressedLength);
+            count = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeBlock();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writeBlock();
+                out.close();
+            } finally {
+                buffers.close();
+            }
+        }
+    }
+}
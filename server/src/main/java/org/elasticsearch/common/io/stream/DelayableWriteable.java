@@ -11,6 +11,7 @@ package org.elasticsearch.common.io.stream;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.core.Releasable;
 
 import java.io.IOException;
@@ -66,6 +67,13 @@ public abstract class DelayableWriteable<T extends Writeable> implements Writeab
      */
     public abstract Serialized<T> asSerialized(Writeable.Reader<T> reader, NamedWriteableRegistry registry);
 
+    /**
+     * Returns a {@linkplain DelayableWriteable} that stores its contents
+     * in serialized form, in pages allocated from the provided {@link BigArrays}.
+     * These pages are given back once the returned instance is closed.
+     */
+    public abstract Serialized<T> asSerialized(Writeable.Reader<T> reader, NamedWriteableRegistry registry, BigArrays bigArrays);
+
     /**
      * Expands the inner {@link Writeable} to its original representation and returns it
      */
@@ -111,6 +119,24 @@ public abstract class DelayableWriteable<T extends Writeable> implements Writeab
             return new Serialized<>(reader, Version.CURRENT, registry, ReleasableBytesReference.wrap(buffer.bytes()));
         }
 
+        @Override
+        public Serialized<T> asSerialized(Reader<T> reader, NamedWriteableRegistry registry, BigArrays bigArrays) {
+            final ReleasableBytesStreamOutput buffer = new ReleasableBytesStreamOutput(bigArrays);
+            boolean success = false;
+            try {
+                buffer.setVersion(Version.CURRENT);
+                reference.writeTo(buffer);
+                success = true;
+            } catch (IOException e) {
+                throw new RuntimeException("unexpected error writing writeable to buffer", e);
+            } finally {
+                if (success == false) {
+                    buffer.close();
+                }
+            }
+            return new Serialized<>(reader, Version.CURRENT, registry, new ReleasableBytesReference(buffer.bytes(), buffer));
+        }
+
         @Override
         public boolean isSerialized() {
             return false;
@@ -192,6 +218,11 @@ public abstract class DelayableWriteable<T extends Writeable> implements Writeab
             return this; // We're already serialized
         }
 
+        @Override
+        public Serialized<T> asSerialized(Reader<T> reader, NamedWriteableRegistry registry, BigArrays bigArrays) {
+            return this; // We're already serialized
+        }
+
         @Override
         public boolean isSerialized() {
             return true;
@@ -14,6 +14,7 @@ import org.elasticsearch.common.recycler.Recycler;
 import org.elasticsearch.core.Releasables;
 
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /** Common implementation for array lists that slice data into fixed-size blocks. */
@@ -110,6 +111,19 @@ abstract class AbstractBigArray extends AbstractArray {
         }
     }
 
+    protected final ByteBuffer newDirectBytePage(int page) {
+        // off-heap arrays only exist on top of an off-heap recycler, which frees the pages it does not keep
+        if (recycler == null) {
+            throw new IllegalStateException("off-heap pages require a page recycler");
+        }
+        final Recycler.V<ByteBuffer> v = recycler.directBytePage(clearOnResize);
+        cache = grow(cache, page + 1);
+        assert cache[page] == null;
+        cache[page] = v;
+        assert v.v().capacity() == PageCacheRecycler.BYTE_PAGE_SIZE;
+        return v.v();
+    }
+
     protected final Object[] newObjectPage(int page) {
         if (recycler != null) {
             final Recycler.V<Object[]> v = recycler.objectPage();
@@ -0,0 +1,172 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.util;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.elasticsearch.common.util.PageCacheRecycler.BYTE_PAGE_SIZE;
+
+/**
+ * Byte array abstraction able to support more than 2B values. Like {@link BigByteArray} this implementation slices data into
+ * fixed-sized blocks, but the blocks are allocated outside of the heap. Since pages are not backed by a {@code byte[]}, reading
+ * a slice always materializes a copy. The copy goes to a buffer that is reused by the next read that passes the same
+ * {@link BytesRef}, so the bytes of a slice are only valid until that {@link BytesRef} is used to read again.
+ */
+final class BigDirectByteArray extends AbstractBigArray implements ByteArray {
+
+    private ByteBuffer[] pages;
+    // the last buffer that a slice was materialized into, reused when the caller passes it back
+    private byte[] scratch = BytesRef.EMPTY_BYTES;
+
+    /** Constructor. */
+    BigDirectByteArray(long size, BigArrays bigArrays, boolean clearOnResize) {
+        super(BYTE_PAGE_SIZE, bigArrays, clearOnResize);
+        this.size = size;
+        pages = new ByteBuffer[numPages(size)];
+        for (int i = 0; i < pages.length; ++i) {
+            pages[i] = newDirectBytePage(i);
+        }
+    }
+
+    @Override
+    public byte get(long index) {
+        final int pageIndex = pageIndex(index);
+        final int indexInPage = indexInPage(index);
+        return pages[pageIndex].get(indexInPage);
+    }
+
+    @Override
+    public byte set(long index, byte value) {
+        final int pageIndex = pageIndex(index);
+        final int indexInPage = indexInPage(index);
+        final ByteBuffer page = pages[pageIndex];
+        final byte ret = page.get(indexInPage);
+        page.put(indexInPage, value);
+        return ret;
+    }
+
+    @Override
+    public boolean get(long index, int len, BytesRef ref) {
+        assert index + len <= size();
+        int pageIndex = pageIndex(index);
+        final int indexInPage = indexInPage(index);
+        ref.bytes = scratch(ref.bytes, len);
+        ref.offset = 0;
+        if (indexInPage + len <= pageSize()) {
+            pages[pageIndex].get(indexInPage, ref.bytes, 0, len);
+            ref.length = len;
+        } else {
+            ref.length = pageSize() - indexInPage;
+            pages[pageIndex].get(indexInPage, ref.bytes, 0, ref.length);
+            do {
+                ++pageIndex;
+                final int copyLength = Math.min(pageSize(), len - ref.length);
+                pages[pageIndex].get(0, ref.bytes, ref.length, copyLength);
+                ref.length += copyLength;
+            } while (ref.length < len);
+        }
+        return true;
+    }
+
+    /**
+     * Returns a buffer of at least {@code len} bytes to materialize a slice into. The buffer that the previous slice was
+     * materialized into is only reused if the caller hands it back, so slices that callers hold on to are never overwritten.
+     */
+    private byte[] scratch(byte[] current, int len) {
+        if (current != scratch || scratch.length < len) {
+            scratch = new byte[ArrayUtil.oversize(len, Byte.BYTES)];
+        }
+        return scratch;
+    }
+
+    @Override
+    public void set(long index, byte[] buf, int offset, int len) {
+        assert index + len <= size();
+        int pageIndex = pageIndex(index);
+        final int indexInPage = indexInPage(index);
+        if (indexInPage + len <= pageSize()) {
+            pages[pageIndex].put(indexInPage, buf, offset, len);
+        } else {
+            int copyLen = pageSize() - indexInPage;
+            pages[pageIndex].put(indexInPage, buf, offset, copyLen);
+            do {
+                ++pageIndex;
+                offset += copyLen;
+                len -= copyLen;
+                copyLen = Math.min(len, pageSize());
+                pages[pageIndex].put(0, buf, offset, copyLen);
+            } while (len > copyLen);
+        }
+    }
+
+    @Override
+    public void fill(long fromIndex, long toIndex, byte value) {
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException();
+        }
+        if (fromIndex == toIndex) {
+            return; // empty range
+        }
+        final int fromPage = pageIndex(fromIndex);
+        final int toPage = pageIndex(toIndex - 1);
+        if (fromPage == toPage) {
+            fill(pages[fromPage], indexInPage(fromIndex), indexInPage(toIndex - 1) + 1, value);
+        } else {
+            fill(pages[fromPage], indexInPage(fromIndex), pageSize(), value);
+            for (int i = fromPage + 1; i < toPage; ++i) {
+                fill(pages[i], 0, pageSize(), value);
+            }
+            fill(pages[toPage], 0, indexInPage(toIndex - 1) + 1, value);
+        }
+    }
+
+    private static void fill(ByteBuffer page, int from, int to, byte value) {
+        for (int i = from; i < to; ++i) {
+            page.put(i, value);
+        }
+    }
+
+    @Override
+    public boolean hasArray() {
+        return false;
+    }
+
+    @Override
+    public byte[] array() {
+        assert false;
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected int numBytesPerElement() {
+        return 1;
+    }
+
+    /** Change the size of this array. Content between indexes <code>0</code> and <code>min(size(), newSize)</code> will be preserved. */
+    @Override
+    public void resize(long newSize) {
+        final int numPages = numPages(newSize);
+        if (numPages > pages.length) {
+            pages = Arrays.copyOf(pages, ArrayUtil.oversize(numPages, RamUsageEstimator.NUM_BYTES_OBJECT_REF));
+        }
+        for (int i = numPages - 1; i >= 0 && pages[i] == null; --i) {
+            pages[i] = newDirectBytePage(i);
+        }
+        for (int i = numPages; i < pages.length && pages[i] != null; ++i) {
+            pages[i] = null;
+            releasePage(i);
+        }
+        this.size = newSize;
+    }
+}
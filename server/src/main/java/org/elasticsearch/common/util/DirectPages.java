@@ -0,0 +1,36 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.util;
+
+import org.elasticsearch.directbuffers.DirectBuffers;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Allocates and frees the off-heap pages used by {@link BigDirectByteArray}, {@link BigDirectIntArray} and
+ * {@link BigDirectLongArray}. Pages are freed eagerly through {@link DirectBuffers} so that native memory is given back as soon
+ * as a page is dropped.
+ */
+final class DirectPages {
+
+    private DirectPages() {}
+
+    /** Allocate a new page of {@link PageCacheRecycler#BYTE_PAGE_SIZE} bytes in the native byte order. */
+    static ByteBuffer allocate() {
+        return ByteBuffer.allocateDirect(PageCacheRecycler.BYTE_PAGE_SIZE).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Free the native memory of a page returned by {@link #allocate()}. The page must not be used anymore after this call.
+     */
+    static void free(ByteBuffer page) {
+        DirectBuffers.free(page);
+    }
+}
@@ -17,6 +17,8 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.Locale;
 
@@ -66,6 +68,14 @@ public class PageCacheRecycler {
         0d,
         Property.NodeScope
     );
+    /**
+     * Whether {@link BigArrays} should back its large byte, int and long arrays with pages allocated outside of the heap.
+     */
+    public static final Setting<Boolean> OFF_HEAP_SETTING = Setting.boolSetting(
+        "cache.recycler.page.off_heap",
+        false,
+        Property.NodeScope
+    );
 
     /** Page size in bytes: 16KB */
     public static final int PAGE_SIZE_IN_BYTES = 1 << 14;
@@ -78,6 +88,8 @@ public class PageCacheRecycler {
 
     private final Recycler<byte[]> bytePage;
     private final Recycler<Object[]> objectPage;
+    private final Recycler<ByteBuffer> directBytePage;
+    private final boolean offHeap;
 
     public static final PageCacheRecycler NON_RECYCLING_INSTANCE;
 
@@ -111,6 +123,27 @@ public class PageCacheRecycler {
             }
         });
 
+        // direct pages are only cached when off-heap pages are enabled, in which case they get the same budget as byte pages
+        offHeap = OFF_HEAP_SETTING.get(settings);
+        final int maxDirectBytePageCount = offHeap ? maxBytePageCount : 0;
+        directBytePage = build(type, maxDirectBytePageCount, allocatedProcessors, new AbstractRecyclerC<ByteBuffer>() {
+            @Override
+            public ByteBuffer newInstance() {
+                return DirectPages.allocate();
+            }
+
+            @Override
+            public void recycle(ByteBuffer value) {
+                value.clear();
+            }
+
+            @Override
+            public void destroy(ByteBuffer value) {
+                // give the native memory back right away instead of waiting for the buffer to be garbage collected
+                DirectPages.free(value);
+            }
+        });
+
         final int maxObjectPageCount = (int) (objectsWeight * maxPageCount / totalWeight);
         objectPage = build(type, maxObjectPageCount, allocatedProcessors, new AbstractRecyclerC<Object[]>() {
             @Override
@@ -135,6 +168,31 @@ public class PageCacheRecycler {
         return v;
     }
 
+    /**
+     * Obtain a page of {@link #BYTE_PAGE_SIZE} bytes allocated outside of the heap. The returned buffer uses the
+     * {@link ByteOrder#nativeOrder() native byte order}.
+     */
+    public Recycler.V<ByteBuffer> directBytePage(boolean clear) {
+        final Recycler.V<ByteBuffer> v = directBytePage.obtain();
+        if (v.isRecycled() && clear) {
+            clearDirectPage(v.v());
+        }
+        return v;
+    }
+
+    /**
+     * Whether {@link BigArrays} created on top of this recycler should use off-heap pages.
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    static void clearDirectPage(ByteBuffer page) {
+        for (int i = 0; i < BYTE_PAGE_SIZE; i += Long.BYTES) {
+            page.putLong(i, 0L);
+        }
+    }
+
     public Recycler.V<Object[]> objectPage() {
         // object pages are cleared on release anyway
         return objectPage.obtain();
@@ -9,11 +9,19 @@
 package org.elasticsearch.common.util.concurrent;
 
 import org.elasticsearch.ElasticsearchTimeoutException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.core.CheckedRunnable;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.SuppressForbidden;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -73,6 +81,64 @@ public class FutureUtils {
         }
     }
 
+    /**
+     * Runs the given tasks concurrently on the given executor and waits for all of them. The calling thread runs the last task and the
+     * tasks that the executor rejects. This method returns or throws only once every task is done, even if a task failed or the calling
+     * thread was interrupted, so that the callers can safely release the resources that the tasks use. The failure of the first task
+     * that failed is rethrown, with the failures of the other tasks as suppressed exceptions.
+     *
+     * @param tasks the tasks to run
+     * @param executor the executor to run all tasks but the last one on
+     */
+    public static void runAllAndWait(List<? extends CheckedRunnable<IOException>> tasks, Executor executor) throws IOException {
+        final List<FutureTask<Void>> futures = new ArrayList<>(tasks.size());
+        for (CheckedRunnable<IOException> task : tasks) {
+            futures.add(new FutureTask<>(() -> {
+                task.run();
+                return null;
+            }));
+        }
+        for (int i = 0; i < futures.size() - 1; i++) {
+            try {
+                executor.execute(futures.get(i));
+            } catch (RejectedExecutionException e) {
+                futures.get(i).run();
+            }
+        }
+        if (futures.isEmpty() == false) {
+            futures.get(futures.size() - 1).run();
+        }
+
+        Throwable failure = null;
+        boolean interrupted = false;
+        for (FutureTask<Void> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (ExecutionException e) {
+                    failure = ExceptionsHelper.useOrSuppress(failure, e.getCause());
+                    break;
+                } catch (InterruptedException e) {
+                    // keep waiting, the tasks may still use resources that the caller releases once this method returns
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new IllegalStateException("task failed", failure);
+        }
+    }
+
     public static RuntimeException rethrowExecutionException(ExecutionException e) {
         if (e.getCause() instanceof RuntimeException) {
             return (RuntimeException) e.getCause();
@@ -0,0 +1,47 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http;
+
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+
+/**
+ * The body of an http request that is handed to the rest layer chunk by chunk as it is read from the channel, rather than being
+ * aggregated in memory before the request is dispatched. Chunks are only read from the channel once the consumer asks for them with
+ * {@link #next()}, which applies backpressure to the client while the consumer is busy with the previous chunks.
+ */
+public interface HttpBodyStream {
+
+    /**
+     * Sets the handler that receives the chunks of the body. Must be called exactly once, before the first call to {@link #next()}.
+     */
+    void setHandler(ChunkHandler handler);
+
+    /**
+     * Asks for the next chunk of the body, which is passed to the handler once it was read, possibly on another thread. Must not be
+     * called again before the handler received the requested chunk, nor after it received the last chunk.
+     */
+    void next();
+
+    /**
+     * Receives the chunks of a {@link HttpBodyStream}.
+     */
+    interface ChunkHandler {
+
+        /**
+         * Called with the next chunk of the body, which the handler is responsible for releasing. {@code isLast} is set for the last
+         * chunk, after which no more chunks are read.
+         */
+        void onNext(ReleasableBytesReference chunk, boolean isLast);
+
+        /**
+         * Called if the channel was closed before the last chunk was received.
+         */
+        void onClose();
+    }
+}
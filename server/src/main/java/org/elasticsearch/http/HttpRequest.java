@@ -43,6 +43,15 @@ public interface HttpRequest {
 
     BytesReference content();
 
+    /**
+     * Returns the body of this request if it is read from the channel as it is consumed, in which case {@link #content()} is empty, or
+     * {@code null} if the body was read entirely before the request was dispatched.
+     */
+    @Nullable
+    default HttpBodyStream bodyStream() {
+        return null;
+    }
+
     /**
      * Get all of the headers and values associated with the headers. Modifications of this map are not supported.
      */
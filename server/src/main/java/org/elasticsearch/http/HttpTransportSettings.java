@@ -137,6 +137,32 @@ public final class HttpTransportSettings {
         Property.NodeScope
     );
 
+    /**
+     * Whether the bodies of bulk requests are parsed and dispatched in batches as they are read from the channel, rather than after the
+     * whole body was received.
+     */
+    public static final Setting<Boolean> SETTING_HTTP_BULK_STREAMING_ENABLED = boolSetting(
+        "http.bulk_streaming.enabled",
+        false,
+        Property.NodeScope
+    );
+    public static final Setting<ByteSizeValue> SETTING_HTTP_BULK_STREAMING_BATCH_SIZE = Setting.byteSizeSetting(
+        "http.bulk_streaming.batch_size",
+        new ByteSizeValue(5, ByteSizeUnit.MB),
+        new ByteSizeValue(1, ByteSizeUnit.KB),
+        new ByteSizeValue(Integer.MAX_VALUE, ByteSizeUnit.BYTES),
+        Property.NodeScope
+    );
+    /**
+     * How many batches of a streamed bulk request may be executing at the same time before no more of its body is read from the channel.
+     */
+    public static final Setting<Integer> SETTING_HTTP_BULK_STREAMING_MAX_IN_FLIGHT_BATCHES = intSetting(
+        "http.bulk_streaming.max_in_flight_batches",
+        2,
+        1,
+        Property.NodeScope
+    );
+
     // Tcp socket settings
 
     public static final Setting<Boolean> SETTING_HTTP_TCP_NO_DELAY = boolSetting(
@@ -85,6 +85,54 @@ public final class IndexSettings {
         Property.Dynamic,
         Property.IndexScope
     );
+    /**
+     * Whether recovering from the translog memory maps the translog generations and decodes operations ahead of applying them on a
+     * separate thread.
+     */
+    public static final Setting<Boolean> INDEX_TRANSLOG_MMAP_REPLAY_SETTING = Setting.boolSetting(
+        "index.translog.mmap_replay",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+    /**
+     * Whether the primary parses the documents of a shard bulk request on the {@code bulk_parse} thread pool ahead of applying them to the
+     * engine one after the other.
+     */
+    public static final Setting<Boolean> INDEX_BULK_PARALLEL_PARSE_SETTING = Setting.boolSetting(
+        "index.bulk.parallel_parse",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+    /**
+     * Whether the query phase searches slices of the segments of a shard concurrently on the {@code search_worker} thread pool.
+     */
+    public static final Setting<Boolean> INDEX_SEARCH_CONCURRENT_SEGMENT_SEARCH_SETTING = Setting.boolSetting(
+        "index.search.concurrent_segment_search",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+    /**
+     * Whether bool queries pick the execution strategy of expensive filter clauses based on the estimated cost of the other required
+     * clauses. Off by default until the cost estimates prove reliable.
+     */
+    public static final Setting<Boolean> INDEX_QUERY_PLANNER_ENABLED_SETTING = Setting.boolSetting(
+        "index.query.planner.enabled",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+    /**
+     * Whether the fetch phase loads the stored fields of large pages of hits concurrently on the {@code search_worker} thread pool.
+     */
+    public static final Setting<Boolean> INDEX_SEARCH_PARALLEL_FETCH_SETTING = Setting.boolSetting(
+        "index.search.parallel_fetch",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
     public static final Setting<TimeValue> INDEX_SEARCH_IDLE_AFTER = Setting.timeSetting(
         "index.search.idle.after",
         TimeValue.timeValueSeconds(30),
@@ -576,6 +624,11 @@ public final class IndexSettings {
     private final boolean defaultAllowUnmappedFields;
     private volatile Translog.Durability durability;
     private volatile TimeValue syncInterval;
+    private volatile boolean translogMmapReplay;
+    private volatile boolean bulkParallelParse;
+    private volatile boolean concurrentSegmentSearch;
+    private volatile boolean parallelFetch;
+    private volatile boolean queryPlannerEnabled;
     private volatile TimeValue refreshInterval;
     private volatile ByteSizeValue flushThresholdSize;
     private volatile ByteSizeValue generationThresholdSize;
@@ -716,6 +769,11 @@ public final class IndexSettings {
         this.durability = scopedSettings.get(INDEX_TRANSLOG_DURABILITY_SETTING);
         defaultFields = scopedSettings.get(DEFAULT_FIELD_SETTING);
         syncInterval = INDEX_TRANSLOG_SYNC_INTERVAL_SETTING.get(settings);
+        translogMmapReplay = INDEX_TRANSLOG_MMAP_REPLAY_SETTING.get(settings);
+        bulkParallelParse = INDEX_BULK_PARALLEL_PARSE_SETTING.get(settings);
+        concurrentSegmentSearch = INDEX_SEARCH_CONCURRENT_SEGMENT_SEARCH_SETTING.get(settings);
+        parallelFetch = INDEX_SEARCH_PARALLEL_FETCH_SETTING.get(settings);
+        queryPlannerEnabled = INDEX_QUERY_PLANNER_ENABLED_SETTING.get(settings);
         refreshInterval = scopedSettings.get(INDEX_REFRESH_INTERVAL_SETTING);
         flushThresholdSize = scopedSettings.get(INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING);
         generationThresholdSize = scopedSettings.get(INDEX_TRANSLOG_GENERATION_THRESHOLD_SIZE_SETTING);
@@ -786,6 +844,11 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(MergeSchedulerConfig.AUTO_THROTTLE_SETTING, mergeSchedulerConfig::setAutoThrottle);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_DURABILITY_SETTING, this::setTranslogDurability);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_SYNC_INTERVAL_SETTING, this::setTranslogSyncInterval);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_MMAP_REPLAY_SETTING, this::setTranslogMmapReplay);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_BULK_PARALLEL_PARSE_SETTING, this::setBulkParallelParse);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_SEARCH_CONCURRENT_SEGMENT_SEARCH_SETTING, this::setConcurrentSegmentSearch);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_SEARCH_PARALLEL_FETCH_SETTING, this::setParallelFetch);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_QUERY_PLANNER_ENABLED_SETTING, this::setQueryPlannerEnabled);
         scopedSettings.addSettingsUpdateConsumer(MAX_RESULT_WINDOW_SETTING, this::setMaxResultWindow);
         scopedSettings.addSettingsUpdateConsumer(MAX_INNER_RESULT_WINDOW_SETTING, this::setMaxInnerResultWindow);
         scopedSettings.addSettingsUpdateConsumer(MAX_RESCORE_WINDOW_SETTING, this::setMaxRescoreWindow);
@@ -1011,6 +1074,61 @@ public final class IndexSettings {
         this.syncInterval = translogSyncInterval;
     }
 
+    /**
+     * Returns whether recovering from the translog should memory map the translog and decode operations on a separate thread.
+     */
+    public boolean isTranslogMmapReplay() {
+        return translogMmapReplay;
+    }
+
+    private void setTranslogMmapReplay(boolean translogMmapReplay) {
+        this.translogMmapReplay = translogMmapReplay;
+    }
+
+    /**
+     * Returns whether the primary should parse the documents of shard bulk requests in parallel before applying them.
+     */
+    public boolean isBulkParallelParse() {
+        return bulkParallelParse;
+    }
+
+    private void setBulkParallelParse(boolean bulkParallelParse) {
+        this.bulkParallelParse = bulkParallelParse;
+    }
+
+    /**
+     * Returns whether the query phase should search slices of the segments of a shard concurrently.
+     */
+    public boolean isConcurrentSegmentSearch() {
+        return concurrentSegmentSearch;
+    }
+
+    private void setConcurrentSegmentSearch(boolean concurrentSegmentSearch) {
+        this.concurrentSegmentSearch = concurrentSegmentSearch;
+    }
+
+    /**
+     * Returns whether the fetch phase should load the stored fields of large pages of hits concurrently.
+     */
+    public boolean isParallelFetch() {
+        return parallelFetch;
+    }
+
+    private void setParallelFetch(boolean parallelFetch) {
+        this.parallelFetch = parallelFetch;
+    }
+
+    /**
+     * Returns whether bool queries plan the order and the execution strategy of their filter clauses.
+     */
+    public boolean isQueryPlannerEnabled() {
+        return queryPlannerEnabled;
+    }
+
+    private void setQueryPlannerEnabled(boolean queryPlannerEnabled) {
+        this.queryPlannerEnabled = queryPlannerEnabled;
+    }
+
     /**
      * Returns this interval in which the shards of this index are asynchronously refreshed. {@code -1} means async refresh is disabled.
      */
@@ -14,6 +14,9 @@ package org.elasticsearch.index.bulk.stats;
 public interface BulkOperationListener {
     /**
      * Called after the bulk operation occurred.
+     *
+     * @param parseTimeInNanos the time other threads spent parsing documents ahead of applying them to the engine, concurrently with
+     *                         {@code tookInNanos}
      */
-    default void afterBulk(long bulkShardSizeInBytes, long tookInNanos) {}
+    default void afterBulk(long bulkShardSizeInBytes, long tookInNanos, long parseTimeInNanos) {}
 }
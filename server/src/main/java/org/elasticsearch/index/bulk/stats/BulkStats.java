@@ -8,6 +8,7 @@
 
 package org.elasticsearch.index.bulk.stats;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -30,6 +31,8 @@ public class BulkStats implements Writeable, ToXContentFragment {
     private long totalSizeInBytes = 0;
     private long avgTimeInMillis = 0;
     private long avgSizeInBytes = 0;
+    private long totalParseTimeInMillis = 0;
+    private long totalApplyTimeInMillis = 0;
 
     public BulkStats() {
 
@@ -41,14 +44,30 @@ public class BulkStats implements Writeable, ToXContentFragment {
         totalSizeInBytes = in.readVLong();
         avgTimeInMillis = in.readVLong();
         avgSizeInBytes = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_1_0)) {
+            totalParseTimeInMillis = in.readVLong();
+            totalApplyTimeInMillis = in.readVLong();
+        } else {
+            totalApplyTimeInMillis = totalTimeInMillis;
+        }
     }
 
-    public BulkStats(long totalOperations, long totalTimeInMillis, long totalSizeInBytes, long avgTimeInMillis, long avgSizeInBytes) {
+    public BulkStats(
+        long totalOperations,
+        long totalTimeInMillis,
+        long totalSizeInBytes,
+        long avgTimeInMillis,
+        long avgSizeInBytes,
+        long totalParseTimeInMillis,
+        long totalApplyTimeInMillis
+    ) {
         this.totalOperations = totalOperations;
         this.totalTimeInMillis = totalTimeInMillis;
         this.totalSizeInBytes = totalSizeInBytes;
         this.avgTimeInMillis = avgTimeInMillis;
         this.avgSizeInBytes = avgSizeInBytes;
+        this.totalParseTimeInMillis = totalParseTimeInMillis;
+        this.totalApplyTimeInMillis = totalApplyTimeInMillis;
     }
 
     public void add(BulkStats bulkStats) {
@@ -68,6 +87,8 @@ public class BulkStats implements Writeable, ToXContentFragment {
         this.totalOperations += bulkStats.totalOperations;
         this.totalTimeInMillis += bulkStats.totalTimeInMillis;
         this.totalSizeInBytes += bulkStats.totalSizeInBytes;
+        this.totalParseTimeInMillis += bulkStats.totalParseTimeInMillis;
+        this.totalApplyTimeInMillis += bulkStats.totalApplyTimeInMillis;
     }
 
     public long getTotalSizeInBytes() {
@@ -98,6 +119,31 @@ public class BulkStats implements Writeable, ToXContentFragment {
         return avgSizeInBytes;
     }
 
+    /**
+     * The time helper threads spent parsing documents ahead of applying them to the engine, see
+     * {@link org.elasticsearch.index.IndexSettings#INDEX_BULK_PARALLEL_PARSE_SETTING}. This happens concurrently with applying
+     * operations, so it isn't part of {@link #getTotalApplyTime()}.
+     */
+    public TimeValue getTotalParseTime() {
+        return new TimeValue(totalParseTimeInMillis);
+    }
+
+    public long getTotalParseTimeInMillis() {
+        return totalParseTimeInMillis;
+    }
+
+    /**
+     * The time shard bulk requests spent applying operations to the engine, which includes parsing documents that weren't parsed ahead
+     * of time.
+     */
+    public TimeValue getTotalApplyTime() {
+        return new TimeValue(totalApplyTimeInMillis);
+    }
+
+    public long getTotalApplyTimeInMillis() {
+        return totalApplyTimeInMillis;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(totalOperations);
@@ -105,6 +151,10 @@ public class BulkStats implements Writeable, ToXContentFragment {
         out.writeVLong(totalSizeInBytes);
         out.writeVLong(avgTimeInMillis);
         out.writeVLong(avgSizeInBytes);
+        if (out.getVersion().onOrAfter(Version.V_8_1_0)) {
+            out.writeVLong(totalParseTimeInMillis);
+            out.writeVLong(totalApplyTimeInMillis);
+        }
     }
 
     @Override
@@ -115,6 +165,8 @@ public class BulkStats implements Writeable, ToXContentFragment {
         builder.field(Fields.TOTAL_SIZE_IN_BYTES, totalSizeInBytes);
         builder.humanReadableField(Fields.AVG_TIME_IN_MILLIS, Fields.AVG_TIME, getAvgTime());
         builder.field(Fields.AVG_SIZE_IN_BYTES, avgSizeInBytes);
+        builder.humanReadableField(Fields.TOTAL_PARSE_TIME_IN_MILLIS, Fields.TOTAL_PARSE_TIME, getTotalParseTime());
+        builder.humanReadableField(Fields.TOTAL_APPLY_TIME_IN_MILLIS, Fields.TOTAL_APPLY_TIME, getTotalApplyTime());
         builder.endObject();
         return builder;
     }
@@ -133,12 +185,22 @@ public class BulkStats implements Writeable, ToXContentFragment {
             && Objects.equals(this.totalTimeInMillis, that.totalTimeInMillis)
             && Objects.equals(this.totalSizeInBytes, that.totalSizeInBytes)
             && Objects.equals(this.avgTimeInMillis, that.avgTimeInMillis)
-            && Objects.equals(this.avgSizeInBytes, that.avgSizeInBytes);
+            && Objects.equals(this.avgSizeInBytes, that.avgSizeInBytes)
+            && Objects.equals(this.totalParseTimeInMillis, that.totalParseTimeInMillis)
+            && Objects.equals(this.totalApplyTimeInMillis, that.totalApplyTimeInMillis);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(totalOperations, totalTimeInMillis, totalSizeInBytes, avgTimeInMillis, avgSizeInBytes);
+        return Objects.hash(
+            totalOperations,
+            totalTimeInMillis,
+            totalSizeInBytes,
+            avgTimeInMillis,
+            avgSizeInBytes,
+            totalParseTimeInMillis,
+            totalApplyTimeInMillis
+        );
     }
 
     static final class Fields {
@@ -150,5 +212,9 @@ public class BulkStats implements Writeable, ToXContentFragment {
         static final String TOTAL_SIZE_IN_BYTES = "total_size_in_bytes";
         static final String AVG_TIME_IN_MILLIS = "avg_time_in_millis";
         static final String AVG_SIZE_IN_BYTES = "avg_size_in_bytes";
+        static final String TOTAL_PARSE_TIME = "total_parse_time";
+        static final String TOTAL_PARSE_TIME_IN_MILLIS = "total_parse_time_in_millis";
+        static final String TOTAL_APPLY_TIME = "total_apply_time";
+        static final String TOTAL_APPLY_TIME_IN_MILLIS = "total_apply_time_in_millis";
     }
 }
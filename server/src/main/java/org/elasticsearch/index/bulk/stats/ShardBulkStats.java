@@ -29,9 +29,12 @@ public class ShardBulkStats implements BulkOperationListener {
     }
 
     @Override
-    public void afterBulk(long shardBulkSizeInBytes, long tookInNanos) {
+    public void afterBulk(long shardBulkSizeInBytes, long tookInNanos, long parseTimeInNanos) {
         totalStats.totalSizeInBytes.inc(shardBulkSizeInBytes);
         totalStats.shardBulkMetric.inc(tookInNanos);
+        totalStats.parseTimeInNanos.inc(parseTimeInNanos);
+        // documents are parsed ahead of time on other threads while the write thread applies operations
+        totalStats.applyTimeInNanos.inc(tookInNanos);
         totalStats.timeInMillis.addValue(tookInNanos);
         totalStats.sizeInBytes.addValue(shardBulkSizeInBytes);
     }
@@ -39,6 +42,8 @@ public class ShardBulkStats implements BulkOperationListener {
     static final class StatsHolder {
         final MeanMetric shardBulkMetric = new MeanMetric();
         final CounterMetric totalSizeInBytes = new CounterMetric();
+        final CounterMetric parseTimeInNanos = new CounterMetric();
+        final CounterMetric applyTimeInNanos = new CounterMetric();
         ExponentiallyWeightedMovingAverage timeInMillis = new ExponentiallyWeightedMovingAverage(ALPHA, 0.0);
         ExponentiallyWeightedMovingAverage sizeInBytes = new ExponentiallyWeightedMovingAverage(ALPHA, 0.0);
 
@@ -48,7 +53,9 @@ public class ShardBulkStats implements BulkOperationListener {
                 TimeUnit.NANOSECONDS.toMillis(shardBulkMetric.sum()),
                 totalSizeInBytes.count(),
                 TimeUnit.NANOSECONDS.toMillis((long) timeInMillis.getAverage()),
-                (long) sizeInBytes.getAverage()
+                (long) sizeInBytes.getAverage(),
+                TimeUnit.NANOSECONDS.toMillis(parseTimeInNanos.count()),
+                TimeUnit.NANOSECONDS.toMillis(applyTimeInNanos.count())
             );
         }
     }
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.index.cache.request;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -23,6 +24,10 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
     private long evictions;
     private long hitCount;
     private long missCount;
+    private long segmentMemorySize;
+    private long segmentEvictions;
+    private long segmentHitCount;
+    private long segmentMissCount;
 
     public RequestCacheStats() {}
 
@@ -31,13 +36,36 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         evictions = in.readVLong();
         hitCount = in.readVLong();
         missCount = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_1_0)) {
+            segmentMemorySize = in.readVLong();
+            segmentEvictions = in.readVLong();
+            segmentHitCount = in.readVLong();
+            segmentMissCount = in.readVLong();
+        }
     }
 
     public RequestCacheStats(long memorySize, long evictions, long hitCount, long missCount) {
+        this(memorySize, evictions, hitCount, missCount, 0, 0, 0, 0);
+    }
+
+    public RequestCacheStats(
+        long memorySize,
+        long evictions,
+        long hitCount,
+        long missCount,
+        long segmentMemorySize,
+        long segmentEvictions,
+        long segmentHitCount,
+        long segmentMissCount
+    ) {
         this.memorySize = memorySize;
         this.evictions = evictions;
         this.hitCount = hitCount;
         this.missCount = missCount;
+        this.segmentMemorySize = segmentMemorySize;
+        this.segmentEvictions = segmentEvictions;
+        this.segmentHitCount = segmentHitCount;
+        this.segmentMissCount = segmentMissCount;
     }
 
     public void add(RequestCacheStats stats) {
@@ -45,6 +73,10 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         this.evictions += stats.evictions;
         this.hitCount += stats.hitCount;
         this.missCount += stats.missCount;
+        this.segmentMemorySize += stats.segmentMemorySize;
+        this.segmentEvictions += stats.segmentEvictions;
+        this.segmentHitCount += stats.segmentHitCount;
+        this.segmentMissCount += stats.segmentMissCount;
     }
 
     public long getMemorySizeInBytes() {
@@ -67,12 +99,38 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         return this.missCount;
     }
 
+    public long getSegmentMemorySizeInBytes() {
+        return this.segmentMemorySize;
+    }
+
+    public ByteSizeValue getSegmentMemorySize() {
+        return new ByteSizeValue(segmentMemorySize);
+    }
+
+    public long getSegmentEvictions() {
+        return this.segmentEvictions;
+    }
+
+    public long getSegmentHitCount() {
+        return this.segmentHitCount;
+    }
+
+    public long getSegmentMissCount() {
+        return this.segmentMissCount;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(memorySize);
         out.writeVLong(evictions);
         out.writeVLong(hitCount);
         out.writeVLong(missCount);
+        if (out.getVersion().onOrAfter(Version.V_8_1_0)) {
+            out.writeVLong(segmentMemorySize);
+            out.writeVLong(segmentEvictions);
+            out.writeVLong(segmentHitCount);
+            out.writeVLong(segmentMissCount);
+        }
     }
 
     @Override
@@ -82,6 +140,12 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         builder.field(Fields.EVICTIONS, getEvictions());
         builder.field(Fields.HIT_COUNT, getHitCount());
         builder.field(Fields.MISS_COUNT, getMissCount());
+        builder.startObject(Fields.SEGMENTS);
+        builder.humanReadableField(Fields.MEMORY_SIZE_IN_BYTES, Fields.MEMORY_SIZE, getSegmentMemorySize());
+        builder.field(Fields.EVICTIONS, getSegmentEvictions());
+        builder.field(Fields.HIT_COUNT, getSegmentHitCount());
+        builder.field(Fields.MISS_COUNT, getSegmentMissCount());
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -93,5 +157,6 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         static final String EVICTIONS = "evictions";
         static final String HIT_COUNT = "hit_count";
         static final String MISS_COUNT = "miss_count";
+        static final String SEGMENTS = "segments";
     }
 }
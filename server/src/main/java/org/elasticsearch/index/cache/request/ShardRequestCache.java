@@ -13,7 +13,7 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.metrics.CounterMetric;
 
 /**
- * Tracks the portion of the request cache in use for a particular shard.
+ * Tracks the portion of the request cache and of the segment request cache in use for a particular shard.
  */
 public final class ShardRequestCache {
 
@@ -21,9 +21,22 @@ public final class ShardRequestCache {
     final CounterMetric totalMetric = new CounterMetric();
     final CounterMetric hitCount = new CounterMetric();
     final CounterMetric missCount = new CounterMetric();
+    final CounterMetric segmentEvictionsMetric = new CounterMetric();
+    final CounterMetric segmentTotalMetric = new CounterMetric();
+    final CounterMetric segmentHitCount = new CounterMetric();
+    final CounterMetric segmentMissCount = new CounterMetric();
 
     public RequestCacheStats stats() {
-        return new RequestCacheStats(totalMetric.count(), evictionsMetric.count(), hitCount.count(), missCount.count());
+        return new RequestCacheStats(
+            totalMetric.count(),
+            evictionsMetric.count(),
+            hitCount.count(),
+            missCount.count(),
+            segmentTotalMetric.count(),
+            segmentEvictionsMetric.count(),
+            segmentHitCount.count(),
+            segmentMissCount.count()
+        );
     }
 
     public void onHit() {
@@ -51,4 +64,30 @@ public final class ShardRequestCache {
         }
         totalMetric.dec(dec);
     }
+
+    public void onSegmentHit() {
+        segmentHitCount.inc();
+    }
+
+    public void onSegmentMiss() {
+        segmentMissCount.inc();
+    }
+
+    public void onSegmentCached(Accountable key, BytesReference value) {
+        segmentTotalMetric.inc(key.ramBytesUsed() + value.ramBytesUsed());
+    }
+
+    public void onSegmentRemoval(Accountable key, BytesReference value, boolean evicted) {
+        if (evicted) {
+            segmentEvictionsMetric.inc();
+        }
+        long dec = 0;
+        if (key != null) {
+            dec += key.ramBytesUsed();
+        }
+        if (value != null) {
+            dec += value.ramBytesUsed();
+        }
+        segmentTotalMetric.dec(dec);
+    }
 }
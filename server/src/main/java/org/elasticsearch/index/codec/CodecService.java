@@ -28,6 +28,9 @@ public class CodecService {
 
     public static final String DEFAULT_CODEC = "default";
     public static final String BEST_COMPRESSION_CODEC = "best_compression";
+    /** compresses stored fields with the native zstd library, see {@link ZstdCodec} */
+    public static final String ZSTD_BEST_SPEED_CODEC = "zstd_best_speed";
+    public static final String ZSTD_BEST_COMPRESSION_CODEC = "zstd_best_compression";
     /** the raw unfiltered lucene default. useful for testing */
     public static final String LUCENE_DEFAULT_CODEC = "lucene_default";
 
@@ -36,9 +39,14 @@ public class CodecService {
         if (mapperService == null) {
             codecs.put(DEFAULT_CODEC, new Lucene90Codec());
             codecs.put(BEST_COMPRESSION_CODEC, new Lucene90Codec(Lucene90Codec.Mode.BEST_COMPRESSION));
+            codecs.put(ZSTD_BEST_SPEED_CODEC, new ZstdCodec(ZstdCodec.Mode.BEST_SPEED, new Lucene90Codec()));
+            codecs.put(ZSTD_BEST_COMPRESSION_CODEC, new ZstdCodec(ZstdCodec.Mode.BEST_COMPRESSION, new Lucene90Codec()));
         } else {
             codecs.put(DEFAULT_CODEC, new PerFieldMapperCodec(Lucene90Codec.Mode.BEST_SPEED, mapperService));
             codecs.put(BEST_COMPRESSION_CODEC, new PerFieldMapperCodec(Lucene90Codec.Mode.BEST_COMPRESSION, mapperService));
+            final Codec perFieldMapperCodec = new PerFieldMapperCodec(Lucene90Codec.Mode.BEST_SPEED, mapperService);
+            codecs.put(ZSTD_BEST_SPEED_CODEC, new ZstdCodec(ZstdCodec.Mode.BEST_SPEED, perFieldMapperCodec));
+            codecs.put(ZSTD_BEST_COMPRESSION_CODEC, new ZstdCodec(ZstdCodec.Mode.BEST_COMPRESSION, perFieldMapperCodec));
         }
         codecs.put(LUCENE_DEFAULT_CODEC, Codec.getDefault());
         for (String codec : Codec.availableCodecs()) {
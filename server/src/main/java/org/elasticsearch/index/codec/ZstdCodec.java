@@ -0,0 +1,74 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.FilterCodec;
+import org.apache.lucene.codecs.StoredFieldsFormat;
+import org.apache.lucene.codecs.lucene90.Lucene90Codec;
+import org.apache.lucene.codecs.lucene90.compressing.Lucene90CompressingStoredFieldsFormat;
+import org.elasticsearch.common.compress.Zstd;
+
+/**
+ * A codec that compresses stored fields with the native zstd library, see {@link Zstd}, and delegates everything else to another codec,
+ * usually a {@link PerFieldMapperCodec}. It is registered by name so that Lucene can read the segments it wrote, which only needs the
+ * stored fields format since the delegate records its per field formats in the segments itself.
+ */
+public final class ZstdCodec extends FilterCodec {
+
+    public static final String NAME = "ZstdLucene90";
+
+    /**
+     * Trades compression speed for ratio like {@link Lucene90Codec.Mode} does, through the compression level and the size of the chunks
+     * of documents that are compressed together. The chunks are small enough for best speed to make reading a single document cheap.
+     */
+    public enum Mode {
+        BEST_SPEED(1, 14 * 1024, 128),
+        BEST_COMPRESSION(3, 240 * 1024, 2048);
+
+        private final int level;
+        private final int chunkSize;
+        private final int maxDocsPerChunk;
+
+        Mode(int level, int chunkSize, int maxDocsPerChunk) {
+            this.level = level;
+            this.chunkSize = chunkSize;
+            this.maxDocsPerChunk = maxDocsPerChunk;
+        }
+    }
+
+    // the reader reads the chunk size from the segment, so the same format name can be used for all modes
+    private static final String STORED_FIELDS_FORMAT_NAME = "ZstdStoredFields90";
+    private static final int BLOCK_SHIFT = 10;
+
+    private final StoredFieldsFormat storedFieldsFormat;
+
+    /**
+     * Used by Lucene to read segments.
+     */
+    public ZstdCodec() {
+        this(Mode.BEST_SPEED, new Lucene90Codec());
+    }
+
+    public ZstdCodec(Mode mode, Codec delegate) {
+        super(NAME, delegate);
+        this.storedFieldsFormat = new Lucene90CompressingStoredFieldsFormat(
+            STORED_FIELDS_FORMAT_NAME,
+            new ZstdCompressionMode(mode.level),
+            mode.chunkSize,
+            mode.maxDocsPerChunk,
+            BLOCK_SHIFT
+        );
+    }
+
+    @Override
+    public StoredFieldsFormat storedFieldsFormat() {
+        return storedFieldsFormat;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Compressor;
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.compress.Zstd;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link CompressionMode} that compresses each chunk of stored fields as a single frame with the native zstd library, see {@link Zstd}.
+ * A chunk is written as its compressed length followed by the frame. The compression level only matters when writing.
+ */
+final class ZstdCompressionMode extends CompressionMode {
+
+    private final int level;
+
+    ZstdCompressionMode(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public Compressor newCompressor() {
+        return new ZstdChunkCompressor(level);
+    }
+
+    @Override
+    public Decompressor newDecompressor() {
+        return new ZstdChunkDecompressor();
+    }
+
+    @Override
+    public String toString() {
+        return "ZSTD(level=" + level + ")";
+    }
+
+    private static final class ZstdChunkCompressor extends Compressor {
+
+        private final int level;
+        private byte[] compressed = BytesRef.EMPTY_BYTES;
+
+        ZstdChunkCompressor(int level) {
+            this.level = level;
+        }
+
+        @Override
+        public void compress(byte[] bytes, int off, int len, DataOutput out) throws IOException {
+            compressed = ArrayUtil.grow(compressed, Zstd.compressBound(len));
+            final int compressedLength = Zstd.compress(ByteBuffer.wrap(compressed), ByteBuffer.wrap(bytes, off, len), level);
+            out.writeVInt(compressedLength);
+            out.writeBytes(compressed, compressedLength);
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    private static final class ZstdChunkDecompressor extends Decompressor {
+
+        private byte[] compressed = BytesRef.EMPTY_BYTES;
+
+        @Override
+        public void decompress(DataInput in, int originalLength, int offset, int length, BytesRef bytes) throws IOException {
+            final int compressedLength = in.readVInt();
+            compressed = ArrayUtil.grow(compressed, compressedLength);
+            in.readBytes(compressed, 0, compressedLength);
+            bytes.bytes = ArrayUtil.grow(bytes.bytes, originalLength);
+            final int decompressedLength = Zstd.decompress(
+                ByteBuffer.wrap(bytes.bytes, 0, originalLength),
+                ByteBuffer.wrap(compressed, 0, compressedLength)
+            );
+            if (decompressedLength != originalLength) {
+                throw new CorruptIndexException(
+                    "zstd chunk decompressed to [" + decompressedLength + "] bytes but expected [" + originalLength + "]",
+                    in
+                );
+            }
+            bytes.offset = offset;
+            bytes.length = length;
+        }
+
+        @Override
+        public Decompressor clone() {
+            return new ZstdChunkDecompressor();
+        }
+    }
+}
@@ -16,6 +16,7 @@ import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.similarities.Similarity;
+import org.elasticsearch.common.compress.Zstd;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.unit.ByteSizeValue;
@@ -98,10 +99,18 @@ public final class EngineConfig {
             case "best_compression":
             case "lucene_default":
                 return s;
+            case "zstd_best_speed":
+            case "zstd_best_compression":
+                if (Zstd.isAvailable() == false) {
+                    throw new IllegalArgumentException("[index.codec] [" + s + "] requires the native zstd library [libzstd]");
+                }
+                return s;
             default:
                 if (Codec.availableCodecs().contains(s) == false) { // we don't error message the not officially supported ones
                     throw new IllegalArgumentException(
-                        "unknown value for [index.codec] must be one of [default, best_compression] but was: " + s
+                        "unknown value for [index.codec] must be one of "
+                            + "[default, best_compression, zstd_best_speed, zstd_best_compression] but was: "
+                            + s
                     );
                 }
                 return s;
@@ -77,6 +77,7 @@ import org.elasticsearch.index.seqno.SeqNoStats;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardLongFieldRange;
+import org.elasticsearch.index.translog.PipelinedSnapshot;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogConfig;
 import org.elasticsearch.index.translog.TranslogCorruptedException;
@@ -488,7 +489,7 @@ public class InternalEngine extends Engine {
         final int opsRecovered;
         final long localCheckpoint = getProcessedLocalCheckpoint();
         if (localCheckpoint < recoverUpToSeqNo) {
-            try (Translog.Snapshot snapshot = translog.newSnapshot(localCheckpoint + 1, recoverUpToSeqNo)) {
+            try (Translog.Snapshot snapshot = newTranslogRecoverySnapshot(localCheckpoint + 1, recoverUpToSeqNo)) {
                 opsRecovered = translogRecoveryRunner.run(this, snapshot);
             } catch (Exception e) {
                 throw new EngineException(shardId, "failed to recover from translog", e);
@@ -511,6 +512,14 @@ public class InternalEngine extends Engine {
         translog.trimUnreferencedReaders();
     }
 
+    private Translog.Snapshot newTranslogRecoverySnapshot(long fromSeqNo, long toSeqNo) throws IOException {
+        if (engineConfig.getIndexSettings().isTranslogMmapReplay() == false) {
+            return translog.newSnapshot(fromSeqNo, toSeqNo);
+        }
+        // decode the mapped translog on another thread while operations are applied on this one
+        return new PipelinedSnapshot(translog.newSnapshot(fromSeqNo, toSeqNo, true), engineConfig.getThreadPool().generic());
+    }
+
     private Translog openTranslog(
         EngineConfig engineConfig,
         TranslogDeletionPolicy translogDeletionPolicy,
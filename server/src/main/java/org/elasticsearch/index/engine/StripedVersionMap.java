@@ -0,0 +1,338 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Maps _uid values to {@link IndexVersionValue}s without allocating an object per entry. Entries are spread over a fixed number of
+ * stripes, each of which is an open addressing hash table that packs the version, seqNo, primary term and translog location of each
+ * entry into a single {@code long[]}. Lookups are optimistic and don't block unless they race with a write to the same stripe; writes
+ * to different stripes never contend.
+ * <p>
+ * Callers are still expected to serialize operations on the same _uid, which is what {@link LiveVersionMap#acquireLock} is for.
+ */
+final class StripedVersionMap implements Accountable {
+
+    static final int NUM_STRIPES = 32;
+    private static final int STRIPE_SHIFT = Integer.SIZE - Integer.numberOfTrailingZeros(NUM_STRIPES);
+    private static final int MIN_CAPACITY = 8;
+
+    // offsets of the packed fields of an entry in Table#values
+    private static final int VERSION = 0;
+    private static final int SEQ_NO = 1;
+    private static final int TERM = 2;
+    private static final int LOCATION_GENERATION = 3;
+    private static final int LOCATION_OFFSET = 4;
+    private static final int LOCATION_SIZE = 5;
+    private static final int VALUES_PER_ENTRY = 6;
+    /** Marks an entry that has no translog location. The size of a real location always fits in an int. */
+    private static final long NO_LOCATION = Long.MIN_VALUE;
+
+    private final Stripe[] stripes;
+
+    StripedVersionMap() {
+        this(0);
+    }
+
+    /**
+     * @param expectedSize the number of entries the map is expected to hold, used to size the stripes up front
+     */
+    StripedVersionMap(int expectedSize) {
+        stripes = new Stripe[NUM_STRIPES];
+        final int expectedPerStripe = expectedSize / NUM_STRIPES;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(expectedPerStripe);
+        }
+    }
+
+    private Stripe stripe(int hash) {
+        return stripes[hash >>> STRIPE_SHIFT];
+    }
+
+    /**
+     * Returns the value for the given uid or {@code null} if there is none.
+     */
+    IndexVersionValue get(BytesRef uid) {
+        final int hash = uid.hashCode();
+        return stripe(hash).get(hash, uid);
+    }
+
+    /**
+     * Sets the value for the given uid.
+     * @return {@code true} if this replaced an existing value
+     */
+    boolean put(BytesRef uid, IndexVersionValue value) {
+        final int hash = uid.hashCode();
+        return stripe(hash).put(hash, uid, value);
+    }
+
+    /**
+     * Removes the value for the given uid.
+     * @return {@code true} if there was a value to remove
+     */
+    boolean remove(BytesRef uid) {
+        final int hash = uid.hashCode();
+        return stripe(hash).remove(hash, uid);
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    boolean isEmpty() {
+        for (Stripe stripe : stripes) {
+            if (stripe.size != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long ramBytesUsed = 0;
+        for (Stripe stripe : stripes) {
+            ramBytesUsed += stripe.ramBytesUsed;
+        }
+        return ramBytesUsed;
+    }
+
+    /**
+     * Materializes all entries. This allocates an object per entry and should only be used for testing and assertions.
+     */
+    Map<BytesRef, VersionValue> toMap() {
+        final Map<BytesRef, VersionValue> map = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            stripe.copyTo(map);
+        }
+        return map;
+    }
+
+    private static long keyRamBytesUsed(byte[] key) {
+        return RamUsageEstimator.sizeOf(key);
+    }
+
+    /**
+     * The arrays backing a stripe. A new table is built whenever the stripe grows so readers that grabbed a reference to a table can
+     * always index into it safely, even if they race with a writer.
+     */
+    private static final class Table {
+        final int mask;
+        final int[] hashes;
+        final byte[][] keys;
+        final long[] values;
+
+        Table(int capacity) {
+            assert Integer.bitCount(capacity) == 1 : "capacity must be a power of two but was " + capacity;
+            mask = capacity - 1;
+            hashes = new int[capacity];
+            keys = new byte[capacity][];
+            values = new long[capacity * VALUES_PER_ENTRY];
+        }
+
+        long ramBytesUsed() {
+            return RamUsageEstimator.sizeOf(hashes) + RamUsageEstimator.shallowSizeOf(keys) + RamUsageEstimator.sizeOf(values);
+        }
+
+        /**
+         * Returns the slot holding the given uid or {@code -1 - slot} where slot is the first free slot if the uid isn't present.
+         */
+        int find(int hash, BytesRef uid) {
+            int slot = hash & mask;
+            // bounding the probe keeps optimistic readers from spinning on a table that is being modified concurrently
+            for (int probes = 0; probes <= mask; probes++) {
+                final byte[] key = keys[slot];
+                if (key == null) {
+                    return -1 - slot;
+                }
+                if (hashes[slot] == hash && Arrays.equals(key, 0, key.length, uid.bytes, uid.offset, uid.offset + uid.length)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1 - slot;
+        }
+
+        IndexVersionValue read(int slot) {
+            final int offset = slot * VALUES_PER_ENTRY;
+            final long locationSize = values[offset + LOCATION_SIZE];
+            final Translog.Location location = locationSize == NO_LOCATION
+                ? null
+                : new Translog.Location(values[offset + LOCATION_GENERATION], values[offset + LOCATION_OFFSET], (int) locationSize);
+            return new IndexVersionValue(location, values[offset + VERSION], values[offset + SEQ_NO], values[offset + TERM]);
+        }
+
+        void write(int slot, IndexVersionValue value) {
+            final int offset = slot * VALUES_PER_ENTRY;
+            values[offset + VERSION] = value.version;
+            values[offset + SEQ_NO] = value.seqNo;
+            values[offset + TERM] = value.term;
+            final Translog.Location location = value.getLocation();
+            if (location == null) {
+                values[offset + LOCATION_SIZE] = NO_LOCATION;
+            } else {
+                values[offset + LOCATION_GENERATION] = location.generation;
+                values[offset + LOCATION_OFFSET] = location.translogLocation;
+                values[offset + LOCATION_SIZE] = location.size;
+            }
+        }
+
+        void move(int from, int to) {
+            hashes[to] = hashes[from];
+            keys[to] = keys[from];
+            System.arraycopy(values, from * VALUES_PER_ENTRY, values, to * VALUES_PER_ENTRY, VALUES_PER_ENTRY);
+        }
+    }
+
+    private static final class Stripe {
+        private final StampedLock lock = new StampedLock();
+        private final int initialCapacity;
+        /** Lazily allocated so that the many empty maps built on refresh don't cost anything. */
+        private volatile Table table;
+        private volatile int size;
+        private volatile long ramBytesUsed;
+
+        Stripe(int expectedSize) {
+            this.initialCapacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize)) << 2);
+        }
+
+        IndexVersionValue get(int hash, BytesRef uid) {
+            long stamp = lock.tryOptimisticRead();
+            IndexVersionValue value = find(hash, uid);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+            stamp = lock.readLock();
+            try {
+                return find(hash, uid);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private IndexVersionValue find(int hash, BytesRef uid) {
+            final Table table = this.table;
+            if (table == null) {
+                return null;
+            }
+            final int slot = table.find(hash, uid);
+            return slot >= 0 ? table.read(slot) : null;
+        }
+
+        boolean put(int hash, BytesRef uid, IndexVersionValue value) {
+            final long stamp = lock.writeLock();
+            try {
+                Table table = this.table;
+                if (table == null) {
+                    table = this.table = new Table(initialCapacity);
+                    ramBytesUsed += table.ramBytesUsed();
+                }
+                int slot = table.find(hash, uid);
+                if (slot >= 0) {
+                    table.write(slot, value);
+                    return true;
+                }
+                if ((size + 1) << 1 > table.keys.length) {
+                    table = grow(table);
+                    slot = table.find(hash, uid);
+                }
+                slot = -1 - slot;
+                final byte[] key = uid.offset == 0 && uid.length == uid.bytes.length
+                    ? uid.bytes
+                    : Arrays.copyOfRange(uid.bytes, uid.offset, uid.offset + uid.length);
+                table.hashes[slot] = hash;
+                table.write(slot, value);
+                table.keys[slot] = key;
+                size++;
+                ramBytesUsed += keyRamBytesUsed(key);
+                return false;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private Table grow(Table table) {
+            final Table newTable = new Table(table.keys.length << 1);
+            for (int slot = 0; slot < table.keys.length; slot++) {
+                if (table.keys[slot] != null) {
+                    int newSlot = table.hashes[slot] & newTable.mask;
+                    while (newTable.keys[newSlot] != null) {
+                        newSlot = (newSlot + 1) & newTable.mask;
+                    }
+                    newTable.hashes[newSlot] = table.hashes[slot];
+                    newTable.keys[newSlot] = table.keys[slot];
+                    System.arraycopy(table.values, slot * VALUES_PER_ENTRY, newTable.values, newSlot * VALUES_PER_ENTRY, VALUES_PER_ENTRY);
+                }
+            }
+            ramBytesUsed += newTable.ramBytesUsed() - table.ramBytesUsed();
+            this.table = newTable;
+            return newTable;
+        }
+
+        boolean remove(int hash, BytesRef uid) {
+            final long stamp = lock.writeLock();
+            try {
+                final Table table = this.table;
+                if (table == null) {
+                    return false;
+                }
+                int slot = table.find(hash, uid);
+                if (slot < 0) {
+                    return false;
+                }
+                ramBytesUsed -= keyRamBytesUsed(table.keys[slot]);
+                size--;
+                // backward shift deletion: move up the entries of the probe sequence that follows so that no tombstones are needed
+                int next = (slot + 1) & table.mask;
+                while (table.keys[next] != null) {
+                    final int ideal = table.hashes[next] & table.mask;
+                    final boolean canMove = slot <= next ? (ideal <= slot || ideal > next) : (ideal <= slot && ideal > next);
+                    if (canMove) {
+                        table.move(next, slot);
+                        slot = next;
+                    }
+                    next = (next + 1) & table.mask;
+                }
+                table.keys[slot] = null;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void copyTo(Map<BytesRef, VersionValue> map) {
+            final long stamp = lock.readLock();
+            try {
+                final Table table = this.table;
+                if (table != null) {
+                    for (int slot = 0; slot < table.keys.length; slot++) {
+                        if (table.keys[slot] != null) {
+                            map.put(new BytesRef(table.keys[slot]), table.read(slot));
+                        }
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+}
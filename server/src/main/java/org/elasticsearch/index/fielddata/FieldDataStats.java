@@ -8,12 +8,14 @@
 
 package org.elasticsearch.index.fielddata;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.FieldMemoryStats;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
 
@@ -27,10 +29,21 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
     private static final String MEMORY_SIZE_IN_BYTES = "memory_size_in_bytes";
     private static final String EVICTIONS = "evictions";
     private static final String FIELDS = "fields";
+    private static final String GLOBAL_ORDINALS = "global_ordinals";
+    private static final String BUILD_COUNT = "build_count";
+    private static final String BUILD_TIME = "build_time";
+    private static final String BUILD_TIME_IN_MILLIS = "build_time_in_millis";
+    private static final String INCREMENTAL_BUILD_COUNT = "incremental_build_count";
+    private static final String INCREMENTAL_BUILD_TIME = "incremental_build_time";
+    private static final String INCREMENTAL_BUILD_TIME_IN_MILLIS = "incremental_build_time_in_millis";
     private long memorySize;
     private long evictions;
     @Nullable
     private FieldMemoryStats fields;
+    private long globalOrdinalsBuildCount;
+    private long globalOrdinalsBuildTimeInMillis;
+    private long incrementalGlobalOrdinalsBuildCount;
+    private long incrementalGlobalOrdinalsBuildTimeInMillis;
 
     public FieldDataStats() {
 
@@ -40,17 +53,43 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
         memorySize = in.readVLong();
         evictions = in.readVLong();
         fields = in.readOptionalWriteable(FieldMemoryStats::new);
+        if (in.getVersion().onOrAfter(Version.V_8_1_0)) {
+            globalOrdinalsBuildCount = in.readVLong();
+            globalOrdinalsBuildTimeInMillis = in.readVLong();
+            incrementalGlobalOrdinalsBuildCount = in.readVLong();
+            incrementalGlobalOrdinalsBuildTimeInMillis = in.readVLong();
+        }
     }
 
     public FieldDataStats(long memorySize, long evictions, @Nullable FieldMemoryStats fields) {
+        this(memorySize, evictions, fields, 0, 0, 0, 0);
+    }
+
+    public FieldDataStats(
+        long memorySize,
+        long evictions,
+        @Nullable FieldMemoryStats fields,
+        long globalOrdinalsBuildCount,
+        long globalOrdinalsBuildTimeInMillis,
+        long incrementalGlobalOrdinalsBuildCount,
+        long incrementalGlobalOrdinalsBuildTimeInMillis
+    ) {
         this.memorySize = memorySize;
         this.evictions = evictions;
         this.fields = fields;
+        this.globalOrdinalsBuildCount = globalOrdinalsBuildCount;
+        this.globalOrdinalsBuildTimeInMillis = globalOrdinalsBuildTimeInMillis;
+        this.incrementalGlobalOrdinalsBuildCount = incrementalGlobalOrdinalsBuildCount;
+        this.incrementalGlobalOrdinalsBuildTimeInMillis = incrementalGlobalOrdinalsBuildTimeInMillis;
     }
 
     public void add(FieldDataStats stats) {
         this.memorySize += stats.memorySize;
         this.evictions += stats.evictions;
+        this.globalOrdinalsBuildCount += stats.globalOrdinalsBuildCount;
+        this.globalOrdinalsBuildTimeInMillis += stats.globalOrdinalsBuildTimeInMillis;
+        this.incrementalGlobalOrdinalsBuildCount += stats.incrementalGlobalOrdinalsBuildCount;
+        this.incrementalGlobalOrdinalsBuildTimeInMillis += stats.incrementalGlobalOrdinalsBuildTimeInMillis;
         if (stats.fields != null) {
             if (fields == null) {
                 fields = stats.fields.copy();
@@ -77,11 +116,39 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
         return fields;
     }
 
+    /**
+     * The number of times global ordinals were built, including the incremental builds.
+     */
+    public long getGlobalOrdinalsBuildCount() {
+        return globalOrdinalsBuildCount;
+    }
+
+    public TimeValue getGlobalOrdinalsBuildTime() {
+        return new TimeValue(globalOrdinalsBuildTimeInMillis);
+    }
+
+    /**
+     * The number of times global ordinals were built on top of the global ordinals of a previous reader.
+     */
+    public long getIncrementalGlobalOrdinalsBuildCount() {
+        return incrementalGlobalOrdinalsBuildCount;
+    }
+
+    public TimeValue getIncrementalGlobalOrdinalsBuildTime() {
+        return new TimeValue(incrementalGlobalOrdinalsBuildTimeInMillis);
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(memorySize);
         out.writeVLong(evictions);
         out.writeOptionalWriteable(fields);
+        if (out.getVersion().onOrAfter(Version.V_8_1_0)) {
+            out.writeVLong(globalOrdinalsBuildCount);
+            out.writeVLong(globalOrdinalsBuildTimeInMillis);
+            out.writeVLong(incrementalGlobalOrdinalsBuildCount);
+            out.writeVLong(incrementalGlobalOrdinalsBuildTimeInMillis);
+        }
     }
 
     @Override
@@ -92,6 +159,12 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
         if (fields != null) {
             fields.toXContent(builder, FIELDS, MEMORY_SIZE_IN_BYTES, MEMORY_SIZE);
         }
+        builder.startObject(GLOBAL_ORDINALS);
+        builder.field(BUILD_COUNT, getGlobalOrdinalsBuildCount());
+        builder.humanReadableField(BUILD_TIME_IN_MILLIS, BUILD_TIME, getGlobalOrdinalsBuildTime());
+        builder.field(INCREMENTAL_BUILD_COUNT, getIncrementalGlobalOrdinalsBuildCount());
+        builder.humanReadableField(INCREMENTAL_BUILD_TIME_IN_MILLIS, INCREMENTAL_BUILD_TIME, getIncrementalGlobalOrdinalsBuildTime());
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -101,11 +174,25 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         FieldDataStats that = (FieldDataStats) o;
-        return memorySize == that.memorySize && evictions == that.evictions && Objects.equals(fields, that.fields);
+        return memorySize == that.memorySize
+            && evictions == that.evictions
+            && Objects.equals(fields, that.fields)
+            && globalOrdinalsBuildCount == that.globalOrdinalsBuildCount
+            && globalOrdinalsBuildTimeInMillis == that.globalOrdinalsBuildTimeInMillis
+            && incrementalGlobalOrdinalsBuildCount == that.incrementalGlobalOrdinalsBuildCount
+            && incrementalGlobalOrdinalsBuildTimeInMillis == that.incrementalGlobalOrdinalsBuildTimeInMillis;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(memorySize, evictions, fields);
+        return Objects.hash(
+            memorySize,
+            evictions,
+            fields,
+            globalOrdinalsBuildCount,
+            globalOrdinalsBuildTimeInMillis,
+            incrementalGlobalOrdinalsBuildCount,
+            incrementalGlobalOrdinalsBuildTimeInMillis
+        );
     }
 }
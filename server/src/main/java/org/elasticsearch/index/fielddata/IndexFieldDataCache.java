@@ -44,6 +44,12 @@ public interface IndexFieldDataCache {
          * Called after the fielddata is unloaded
          */
         default void onRemoval(ShardId shardId, String fieldName, boolean wasEvicted, long sizeInBytes) {}
+
+        /**
+         * Called after global ordinals were built, {@code incremental} if they were built on top of the global
+         * ordinals of a previous reader
+         */
+        default void onGlobalOrdinalsBuilt(ShardId shardId, String fieldName, boolean incremental, long tookInNanos) {}
     }
 
     class None implements IndexFieldDataCache {
@@ -11,6 +11,7 @@ package org.elasticsearch.index.fielddata;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.util.LongValues;
 
 /**
  * Specialization of {@link IndexFieldData} for data that is indexed with ordinals.
@@ -30,12 +31,32 @@ public interface IndexOrdinalsFieldData extends IndexFieldData.Global<LeafOrdina
     @Override
     IndexOrdinalsFieldData loadGlobalDirect(DirectoryReader indexReader) throws Exception;
 
+    /**
+     * Load a global view of the ordinals for the given {@link IndexReader}, building it on top of
+     * the global view of a previous reader of the same shard if that's cheaper than building it
+     * from scratch.
+     */
+    default IndexOrdinalsFieldData loadGlobalDirect(DirectoryReader indexReader, IndexOrdinalsFieldData previous) throws Exception {
+        return loadGlobalDirect(indexReader);
+    }
+
     /**
      * Returns the underlying {@link OrdinalMap} for this fielddata
      * or null if global ordinals are not needed (constant value or single segment).
      */
     OrdinalMap getOrdinalMap();
 
+    /**
+     * Returns the global ordinals of the ordinals of the segment with the given index,
+     * or null if segment and global ordinals are the same. Prefer this to going through
+     * {@link #getOrdinalMap}, global ordinals that were built incrementally don't have
+     * an {@link OrdinalMap} until one is asked for.
+     */
+    default LongValues getGlobalOrds(int segmentIndex) {
+        OrdinalMap map = getOrdinalMap();
+        return map == null ? null : map.getGlobalOrds(segmentIndex);
+    }
+
     /**
      * Whether this field data is able to provide a mapping between global and segment ordinals,
      * by returning the underlying {@link OrdinalMap}. If this method returns false, then calling
@@ -20,12 +20,17 @@ import org.elasticsearch.index.shard.ShardId;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 public class ShardFieldData implements IndexFieldDataCache.Listener {
 
     private final CounterMetric evictionsMetric = new CounterMetric();
     private final CounterMetric totalMetric = new CounterMetric();
     private final ConcurrentMap<String, CounterMetric> perFieldTotals = ConcurrentCollections.newConcurrentMap();
+    private final CounterMetric globalOrdinalsBuildMetric = new CounterMetric();
+    private final CounterMetric globalOrdinalsBuildTimeMetric = new CounterMetric();
+    private final CounterMetric incrementalGlobalOrdinalsBuildMetric = new CounterMetric();
+    private final CounterMetric incrementalGlobalOrdinalsBuildTimeMetric = new CounterMetric();
 
     public FieldDataStats stats(String... fields) {
         ObjectLongHashMap<String> fieldTotals = null;
@@ -40,7 +45,11 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
         return new FieldDataStats(
             totalMetric.count(),
             evictionsMetric.count(),
-            fieldTotals == null ? null : new FieldMemoryStats(fieldTotals)
+            fieldTotals == null ? null : new FieldMemoryStats(fieldTotals),
+            globalOrdinalsBuildMetric.count(),
+            TimeUnit.NANOSECONDS.toMillis(globalOrdinalsBuildTimeMetric.count()),
+            incrementalGlobalOrdinalsBuildMetric.count(),
+            TimeUnit.NANOSECONDS.toMillis(incrementalGlobalOrdinalsBuildTimeMetric.count())
         );
     }
 
@@ -74,4 +83,14 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
             }
         }
     }
+
+    @Override
+    public void onGlobalOrdinalsBuilt(ShardId shardId, String fieldName, boolean incremental, long tookInNanos) {
+        globalOrdinalsBuildMetric.inc();
+        globalOrdinalsBuildTimeMetric.inc(tookInNanos);
+        if (incremental) {
+            incrementalGlobalOrdinalsBuildMetric.inc();
+            incrementalGlobalOrdinalsBuildTimeMetric.inc(tookInNanos);
+        }
+    }
 }
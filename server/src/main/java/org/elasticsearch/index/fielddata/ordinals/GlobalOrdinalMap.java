@@ -0,0 +1,115 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.LongValues;
+import org.elasticsearch.core.Nullable;
+
+import java.util.Collection;
+
+/**
+ * Maps the ordinals of the segments of a reader to global ordinals, like Lucene's {@link OrdinalMap} does. Lucene's
+ * {@link OrdinalMap} can only be built from all the segments of a reader, so global ordinals that are built on top
+ * of the global ordinals of a previous reader are an {@link IncrementalOrdinalMap} instead.
+ */
+abstract class GlobalOrdinalMap implements Accountable {
+
+    /**
+     * Wraps an {@link OrdinalMap} that was built from all the segments of a reader.
+     */
+    static GlobalOrdinalMap of(OrdinalMap ordinalMap) {
+        return new GlobalOrdinalMap() {
+            @Override
+            long getValueCount() {
+                return ordinalMap.getValueCount();
+            }
+
+            @Override
+            LongValues getGlobalOrds(int segmentIndex) {
+                return ordinalMap.getGlobalOrds(segmentIndex);
+            }
+
+            @Override
+            int getFirstSegmentNumber(long globalOrd) {
+                return ordinalMap.getFirstSegmentNumber(globalOrd);
+            }
+
+            @Override
+            long getFirstSegmentOrd(long globalOrd) {
+                return ordinalMap.getFirstSegmentOrd(globalOrd);
+            }
+
+            @Override
+            int generation() {
+                return 0;
+            }
+
+            @Override
+            OrdinalMap luceneOrdinalMap() {
+                return ordinalMap;
+            }
+
+            @Override
+            long mappingsRamBytesUsed() {
+                // the mappings of the segments hold a reference to the whole map
+                return ordinalMap.ramBytesUsed();
+            }
+
+            @Override
+            public long ramBytesUsed() {
+                return ordinalMap.ramBytesUsed();
+            }
+
+            @Override
+            public Collection<Accountable> getChildResources() {
+                return ordinalMap.getChildResources();
+            }
+        };
+    }
+
+    /**
+     * The number of global ordinals.
+     */
+    abstract long getValueCount();
+
+    /**
+     * Returns the global ordinals of the ordinals of the segment with the given index.
+     */
+    abstract LongValues getGlobalOrds(int segmentIndex);
+
+    /**
+     * Returns the index of a segment that holds the term of the given global ordinal.
+     */
+    abstract int getFirstSegmentNumber(long globalOrd);
+
+    /**
+     * Returns the ordinal of the term of the given global ordinal in the segment that {@link #getFirstSegmentNumber} returns.
+     */
+    abstract long getFirstSegmentOrd(long globalOrd);
+
+    /**
+     * The number of times in a row that these global ordinals were built on top of the global ordinals of a previous reader,
+     * {@code 0} if they were built from scratch.
+     */
+    abstract int generation();
+
+    /**
+     * Returns the {@link OrdinalMap} that these global ordinals wrap, or {@code null} if they were built incrementally.
+     */
+    @Nullable
+    abstract OrdinalMap luceneOrdinalMap();
+
+    /**
+     * The memory that the mappings from segment to global ordinals hold on to, which the global ordinals that are built on top
+     * of these ones share.
+     */
+    abstract long mappingsRamBytesUsed();
+}
@@ -16,6 +16,7 @@ import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.LeafOrdinalsFieldData;
@@ -34,6 +35,13 @@ import java.util.concurrent.TimeUnit;
 public enum GlobalOrdinalsBuilder {
     ;
 
+    /**
+     * The maximum number of times in a row that global ordinals are built on top of the global ordinals of a previous reader.
+     * Every incremental build adds a level of indirection to the global ordinals of the segments that the previous reader had,
+     * which makes looking them up a little slower, so global ordinals are built from scratch after that many incremental builds.
+     */
+    static final int MAX_INCREMENTAL_GENERATIONS = 4;
+
     /**
      * Build global ordinals for the provided {@link IndexReader}.
      */
@@ -43,34 +51,80 @@ public enum GlobalOrdinalsBuilder {
         CircuitBreakerService breakerService,
         Logger logger,
         ToScriptField<SortedSetDocValues> toScriptField
+    ) throws IOException {
+        return build(indexReader, indexFieldData, null, breakerService, logger, toScriptField);
+    }
+
+    /**
+     * Build global ordinals for the provided {@link IndexReader}, on top of the global ordinals of a previous reader of the same
+     * shard if the segments of the previous reader are the first segments of the provided reader. That's the case after a refresh
+     * that only flushed new segments or deleted documents, but not after a merge.
+     */
+    public static IndexOrdinalsFieldData build(
+        final IndexReader indexReader,
+        IndexOrdinalsFieldData indexFieldData,
+        @Nullable IndexOrdinalsFieldData previous,
+        CircuitBreakerService breakerService,
+        Logger logger,
+        ToScriptField<SortedSetDocValues> toScriptField
     ) throws IOException {
         assert indexReader.leaves().size() > 1;
         long startTimeNS = System.nanoTime();
 
         final LeafOrdinalsFieldData[] atomicFD = new LeafOrdinalsFieldData[indexReader.leaves().size()];
         final SortedSetDocValues[] subs = new SortedSetDocValues[indexReader.leaves().size()];
+        final IndexReader.CacheKey[] segmentKeys = new IndexReader.CacheKey[indexReader.leaves().size()];
         for (int i = 0; i < indexReader.leaves().size(); ++i) {
             atomicFD[i] = indexFieldData.load(indexReader.leaves().get(i));
             subs[i] = atomicFD[i].getOrdinalsValues();
+            IndexReader.CacheHelper cacheHelper = indexReader.leaves().get(i).reader().getCoreCacheHelper();
+            segmentKeys[i] = cacheHelper == null ? null : cacheHelper.getKey();
+        }
+
+        int previousSegments = -1;
+        GlobalOrdinalMap previousMap = null;
+        if (previous instanceof GlobalOrdinalsIndexFieldData) {
+            GlobalOrdinalsIndexFieldData previousGlobalOrdinals = (GlobalOrdinalsIndexFieldData) previous;
+            // don't bother building global ordinals incrementally for fields that need a Lucene OrdinalMap anyway
+            if (previousGlobalOrdinals.ordinalMapRequested() == false) {
+                previousSegments = previousGlobalOrdinals.sharedSegments(segmentKeys);
+                previousMap = previousGlobalOrdinals.globalOrdinalMap();
+            }
+        }
+        final GlobalOrdinalMap ordinalMap;
+        final boolean builtIncrementally;
+        if (previousSegments == subs.length) {
+            // the segments didn't change, only their deleted documents did
+            ordinalMap = previousMap;
+            builtIncrementally = true;
+        } else if (previousSegments > 0 && previousMap.generation() < MAX_INCREMENTAL_GENERATIONS) {
+            ordinalMap = IncrementalOrdinalMap.build(previousMap, subs, previousSegments);
+            builtIncrementally = true;
+        } else {
+            ordinalMap = GlobalOrdinalMap.of(OrdinalMap.build(null, subs, PackedInts.DEFAULT));
+            builtIncrementally = false;
         }
-        final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
         final long memorySizeInBytes = ordinalMap.ramBytesUsed();
         breakerService.getBreaker(CircuitBreaker.FIELDDATA).addWithoutBreaking(memorySizeInBytes);
 
         if (logger.isDebugEnabled()) {
             logger.debug(
-                "global-ordinals [{}][{}] took [{}]",
+                "global-ordinals [{}][{}] took [{}], built incrementally [{}]",
                 indexFieldData.getFieldName(),
                 ordinalMap.getValueCount(),
-                new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS)
+                new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS),
+                builtIncrementally
             );
         }
         return new GlobalOrdinalsIndexFieldData(
             indexFieldData.getFieldName(),
             indexFieldData.getValuesSourceType(),
             atomicFD,
+            segmentKeys,
             ordinalMap,
+            builtIncrementally,
             memorySizeInBytes,
+            breakerService,
             toScriptField
         );
     }
@@ -111,8 +165,11 @@ public enum GlobalOrdinalsBuilder {
             indexFieldData.getFieldName(),
             indexFieldData.getValuesSourceType(),
             atomicFD,
-            ordinalMap,
+            null,
+            GlobalOrdinalMap.of(ordinalMap),
+            false,
             0,
+            null,
             toScriptField
         );
     }
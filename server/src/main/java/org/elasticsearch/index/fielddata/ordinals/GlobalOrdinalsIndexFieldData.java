@@ -8,18 +8,24 @@
 package org.elasticsearch.index.fielddata.ordinals;
 
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
 import org.elasticsearch.index.fielddata.IndexFieldData.XFieldComparatorSource.Nested;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.LeafOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.plain.AbstractLeafOrdinalsFieldData;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.script.field.ToScriptField;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.MultiValueMode;
@@ -40,23 +46,39 @@ import java.util.Collections;
  * Each instance of {@link Consumer} uses a new set of {@link TermsEnum} that can be reused during the collection,
  * this is done to avoid creating all segment's {@link TermsEnum} each time we want to access the values of a single
  * segment.
+ * <p>
+ * Global ordinals may be built on top of the global ordinals of a previous reader of the same shard, see
+ * {@link GlobalOrdinalsBuilder}. Those don't have an {@link OrdinalMap}, so {@link #getOrdinalMap()} builds one the first time
+ * that it is called.
  */
-public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldData, Accountable {
+public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldData, Accountable, Releasable {
 
     private final String fieldName;
     private final ValuesSourceType valuesSourceType;
     private final long memorySizeInBytes;
 
-    private final OrdinalMap ordinalMap;
+    private final GlobalOrdinalMap ordinalMap;
     private final LeafOrdinalsFieldData[] segmentAfd;
+    @Nullable
+    private final IndexReader.CacheKey[] segmentKeys;
+    private final boolean builtIncrementally;
+    @Nullable
+    private final CircuitBreakerService breakerService;
     private final ToScriptField<SortedSetDocValues> toScriptField;
 
-    protected GlobalOrdinalsIndexFieldData(
+    private volatile boolean ordinalMapRequested;
+    private OrdinalMap builtOrdinalMap;
+    private long builtOrdinalMapBytes;
+
+    GlobalOrdinalsIndexFieldData(
         String fieldName,
         ValuesSourceType valuesSourceType,
         LeafOrdinalsFieldData[] segmentAfd,
-        OrdinalMap ordinalMap,
+        @Nullable IndexReader.CacheKey[] segmentKeys,
+        GlobalOrdinalMap ordinalMap,
+        boolean builtIncrementally,
         long memorySizeInBytes,
+        @Nullable CircuitBreakerService breakerService,
         ToScriptField<SortedSetDocValues> toScriptField
     ) {
         this.fieldName = fieldName;
@@ -64,6 +86,9 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
         this.memorySizeInBytes = memorySizeInBytes;
         this.ordinalMap = ordinalMap;
         this.segmentAfd = segmentAfd;
+        this.segmentKeys = segmentKeys;
+        this.builtIncrementally = builtIncrementally;
+        this.breakerService = breakerService;
         this.toScriptField = toScriptField;
     }
 
@@ -133,7 +158,47 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
 
     @Override
     public OrdinalMap getOrdinalMap() {
-        return ordinalMap;
+        ordinalMapRequested = true;
+        OrdinalMap map = ordinalMap.luceneOrdinalMap();
+        return map != null ? map : buildOrdinalMap();
+    }
+
+    /**
+     * Builds an {@link OrdinalMap} for global ordinals that were built incrementally. Only a few queries need one, so it is built
+     * the first time that it's needed and kept for as long as these global ordinals are cached.
+     */
+    private synchronized OrdinalMap buildOrdinalMap() {
+        if (builtOrdinalMap == null) {
+            final SortedSetDocValues[] subs = new SortedSetDocValues[segmentAfd.length];
+            for (int i = 0; i < segmentAfd.length; i++) {
+                subs[i] = segmentAfd[i].getOrdinalsValues();
+            }
+            try {
+                builtOrdinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to build the ordinal map", e);
+            }
+            builtOrdinalMapBytes = builtOrdinalMap.ramBytesUsed();
+            breakerService.getBreaker(CircuitBreaker.FIELDDATA).addWithoutBreaking(builtOrdinalMapBytes);
+        }
+        return builtOrdinalMap;
+    }
+
+    /**
+     * Releases the memory of the {@link OrdinalMap} that {@link #getOrdinalMap()} built, called when these global ordinals are
+     * removed from the cache.
+     */
+    @Override
+    public synchronized void close() {
+        if (builtOrdinalMapBytes > 0) {
+            breakerService.getBreaker(CircuitBreaker.FIELDDATA).addWithoutBreaking(-builtOrdinalMapBytes);
+            builtOrdinalMapBytes = 0;
+        }
+    }
+
+    @Override
+    public LongValues getGlobalOrds(int segmentIndex) {
+        return ordinalMap.getGlobalOrds(segmentIndex);
     }
 
     @Override
@@ -141,6 +206,41 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
         return true;
     }
 
+    /**
+     * Whether these global ordinals were built on top of the global ordinals of a previous reader.
+     */
+    public boolean isBuiltIncrementally() {
+        return builtIncrementally;
+    }
+
+    GlobalOrdinalMap globalOrdinalMap() {
+        return ordinalMap;
+    }
+
+    /**
+     * Whether {@link #getOrdinalMap()} was called, in which case the next global ordinals are better built from scratch since they
+     * would need an {@link OrdinalMap} too.
+     */
+    boolean ordinalMapRequested() {
+        return ordinalMapRequested;
+    }
+
+    /**
+     * Returns the number of segments of these global ordinals if they are the first of the given segments, or {@code -1} if they
+     * aren't and these global ordinals can't be extended to the given segments.
+     */
+    int sharedSegments(IndexReader.CacheKey[] keys) {
+        if (segmentKeys == null || segmentKeys.length > keys.length) {
+            return -1;
+        }
+        for (int i = 0; i < segmentKeys.length; i++) {
+            if (segmentKeys[i] == null || segmentKeys[i].equals(keys[i]) == false) {
+                return -1;
+            }
+        }
+        return segmentKeys.length;
+    }
+
     /**
      * A non-thread safe {@link IndexOrdinalsFieldData} for global ordinals that creates the {@link TermsEnum} of each
      * segment once and use them to provide a single lookup per segment.
@@ -267,7 +367,12 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
 
         @Override
         public OrdinalMap getOrdinalMap() {
-            return ordinalMap;
+            return GlobalOrdinalsIndexFieldData.this.getOrdinalMap();
+        }
+
+        @Override
+        public LongValues getGlobalOrds(int segmentIndex) {
+            return ordinalMap.getGlobalOrds(segmentIndex);
         }
 
     }
@@ -0,0 +1,274 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.PriorityQueue;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PackedLongValues;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Global ordinals that are built on top of the global ordinals of a previous reader, when the segments of the previous reader are
+ * the first segments of the new reader. A refresh usually only adds a few small segments, so rather than merging the terms
+ * dictionaries of all the segments again this merges the terms of the previous global ordinals with the terms dictionaries of the
+ * new segments. The previous global ordinals are renumbered by a monotonic mapping, so the global ordinals of the previous segments
+ * are their previous global ordinals passed through that mapping and don't need to be rebuilt.
+ * <p>
+ * Every incremental build adds a level of mapping to the global ordinals of the previous segments, so after a few of them the global
+ * ordinals are built from scratch again, see {@link GlobalOrdinalsBuilder#MAX_INCREMENTAL_GENERATIONS}.
+ */
+final class IncrementalOrdinalMap extends GlobalOrdinalMap {
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(IncrementalOrdinalMap.class);
+
+    private final long valueCount;
+    private final LongValues[] segmentToGlobalOrds;
+    private final PackedLongValues firstSegments;
+    private final PackedLongValues globalOrdDeltas;
+    private final int generation;
+    private final long mappingsRamBytesUsed;
+
+    private IncrementalOrdinalMap(
+        long valueCount,
+        LongValues[] segmentToGlobalOrds,
+        PackedLongValues firstSegments,
+        PackedLongValues globalOrdDeltas,
+        int generation,
+        long mappingsRamBytesUsed
+    ) {
+        this.valueCount = valueCount;
+        this.segmentToGlobalOrds = segmentToGlobalOrds;
+        this.firstSegments = firstSegments;
+        this.globalOrdDeltas = globalOrdDeltas;
+        this.generation = generation;
+        this.mappingsRamBytesUsed = mappingsRamBytesUsed;
+    }
+
+    /**
+     * Builds global ordinals on top of the given ones.
+     *
+     * @param previous the global ordinals of the previous reader
+     * @param subs the ordinals of all the segments of the new reader
+     * @param previousSegments the number of segments of the previous reader, which are the first segments of the new reader
+     */
+    static IncrementalOrdinalMap build(GlobalOrdinalMap previous, SortedSetDocValues[] subs, int previousSegments) throws IOException {
+        assert previousSegments > 0 && previousSegments < subs.length;
+        final PackedLongValues.Builder remap = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        final PackedLongValues.Builder[] newSegmentOrds = new PackedLongValues.Builder[subs.length - previousSegments];
+        final PackedLongValues.Builder firstSegments = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+        final PackedLongValues.Builder globalOrdDeltas = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+
+        final PriorityQueue<Terms> queue = new PriorityQueue<>(newSegmentOrds.length + 1) {
+            @Override
+            protected boolean lessThan(Terms a, Terms b) {
+                return a.term.compareTo(b.term) < 0;
+            }
+        };
+        final PreviousTerms previousTerms = new PreviousTerms(previous, subs);
+        if (previousTerms.next()) {
+            queue.add(previousTerms);
+        }
+        for (int i = 0; i < newSegmentOrds.length; i++) {
+            newSegmentOrds[i] = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+            final SegmentTerms segmentTerms = new SegmentTerms(previousSegments + i, subs[previousSegments + i].termsEnum());
+            if (segmentTerms.next()) {
+                queue.add(segmentTerms);
+            }
+        }
+
+        final BytesRefBuilder scratch = new BytesRefBuilder();
+        long globalOrd = 0;
+        while (queue.size() != 0) {
+            scratch.copyBytes(queue.top().term);
+            int firstSegment = Integer.MAX_VALUE;
+            long firstSegmentOrd = -1;
+            boolean inPrevious = false;
+            do {
+                final Terms top = queue.top();
+                if (top == previousTerms) {
+                    remap.add(globalOrd);
+                    inPrevious = true;
+                    firstSegment = previous.getFirstSegmentNumber(top.ord);
+                    firstSegmentOrd = previous.getFirstSegmentOrd(top.ord);
+                } else {
+                    newSegmentOrds[top.segment - previousSegments].add(globalOrd);
+                    if (inPrevious == false && top.segment < firstSegment) {
+                        firstSegment = top.segment;
+                        firstSegmentOrd = top.ord;
+                    }
+                }
+                if (top.next()) {
+                    queue.updateTop();
+                } else {
+                    queue.pop();
+                }
+            } while (queue.size() != 0 && queue.top().term.equals(scratch.get()));
+            firstSegments.add(firstSegment);
+            globalOrdDeltas.add(globalOrd - firstSegmentOrd);
+            globalOrd++;
+        }
+
+        final PackedLongValues remapValues = remap.build();
+        assert remapValues.size() == previous.getValueCount();
+        long mappingsRamBytesUsed = previous.mappingsRamBytesUsed() + remapValues.ramBytesUsed();
+        final LongValues[] segmentToGlobalOrds = new LongValues[subs.length];
+        for (int i = 0; i < previousSegments; i++) {
+            segmentToGlobalOrds[i] = remapped(previous.getGlobalOrds(i), remapValues);
+        }
+        for (int i = 0; i < newSegmentOrds.length; i++) {
+            final PackedLongValues segmentOrds = newSegmentOrds[i].build();
+            mappingsRamBytesUsed += segmentOrds.ramBytesUsed();
+            segmentToGlobalOrds[previousSegments + i] = segmentOrds;
+        }
+        return new IncrementalOrdinalMap(
+            globalOrd,
+            segmentToGlobalOrds,
+            firstSegments.build(),
+            globalOrdDeltas.build(),
+            previous.generation() + 1,
+            mappingsRamBytesUsed
+        );
+    }
+
+    private static LongValues remapped(LongValues previousGlobalOrds, LongValues remap) {
+        return new LongValues() {
+            @Override
+            public long get(long segmentOrd) {
+                return remap.get(previousGlobalOrds.get(segmentOrd));
+            }
+        };
+    }
+
+    @Override
+    long getValueCount() {
+        return valueCount;
+    }
+
+    @Override
+    LongValues getGlobalOrds(int segmentIndex) {
+        return segmentToGlobalOrds[segmentIndex];
+    }
+
+    @Override
+    int getFirstSegmentNumber(long globalOrd) {
+        return (int) firstSegments.get(globalOrd);
+    }
+
+    @Override
+    long getFirstSegmentOrd(long globalOrd) {
+        return globalOrd - globalOrdDeltas.get(globalOrd);
+    }
+
+    @Override
+    int generation() {
+        return generation;
+    }
+
+    @Override
+    OrdinalMap luceneOrdinalMap() {
+        return null;
+    }
+
+    @Override
+    long mappingsRamBytesUsed() {
+        return mappingsRamBytesUsed;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return BASE_RAM_BYTES_USED + RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds) + firstSegments.ramBytesUsed()
+            + globalOrdDeltas.ramBytesUsed() + mappingsRamBytesUsed;
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * The terms of one of the inputs of the merge, in order.
+     */
+    private abstract static class Terms {
+        /**
+         * The index of the segment of the terms, {@code -1} for the terms of the previous global ordinals.
+         */
+        final int segment;
+        /**
+         * The ordinal of the current term in the segment or in the previous global ordinals.
+         */
+        long ord = -1;
+        BytesRef term;
+
+        Terms(int segment) {
+            this.segment = segment;
+        }
+
+        /**
+         * Moves to the next term, returns {@code false} if there are no more terms.
+         */
+        abstract boolean next() throws IOException;
+    }
+
+    /**
+     * The terms of the previous global ordinals, looked up in the segments that held them.
+     */
+    private static class PreviousTerms extends Terms {
+        private final GlobalOrdinalMap previous;
+        private final SortedSetDocValues[] subs;
+
+        PreviousTerms(GlobalOrdinalMap previous, SortedSetDocValues[] subs) {
+            super(-1);
+            this.previous = previous;
+            this.subs = subs;
+        }
+
+        @Override
+        boolean next() throws IOException {
+            if (++ord >= previous.getValueCount()) {
+                return false;
+            }
+            // the ordinals of every segment come in order, so this only ever seeks forward in the terms dictionaries
+            term = subs[previous.getFirstSegmentNumber(ord)].lookupOrd(previous.getFirstSegmentOrd(ord));
+            return true;
+        }
+    }
+
+    /**
+     * The terms of a segment that the previous reader didn't have.
+     */
+    private static class SegmentTerms extends Terms {
+        private final TermsEnum termsEnum;
+
+        SegmentTerms(int segment, TermsEnum termsEnum) {
+            super(segment);
+            this.termsEnum = termsEnum;
+        }
+
+        @Override
+        boolean next() throws IOException {
+            term = termsEnum.next();
+            if (term == null) {
+                return false;
+            }
+            ord++;
+            return true;
+        }
+    }
+}
@@ -139,6 +139,11 @@ public abstract class AbstractIndexOrdinalsFieldData implements IndexOrdinalsFie
         return GlobalOrdinalsBuilder.build(indexReader, this, breakerService, logger, toScriptField);
     }
 
+    @Override
+    public IndexOrdinalsFieldData loadGlobalDirect(DirectoryReader indexReader, IndexOrdinalsFieldData previous) throws Exception {
+        return GlobalOrdinalsBuilder.build(indexReader, this, previous, breakerService, logger, toScriptField);
+    }
+
     @Override
     public boolean supportsGlobalOrdinalsMapping() {
         return false;
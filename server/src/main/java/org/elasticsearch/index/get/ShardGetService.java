@@ -23,6 +23,7 @@ import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
 import org.elasticsearch.index.fieldvisitor.CustomFieldsVisitor;
 import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
 import org.elasticsearch.index.mapper.Mapper;
@@ -30,8 +31,10 @@ import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.MappingLookup;
 import org.elasticsearch.index.mapper.RoutingFieldMapper;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.mapper.SyntheticSourceLoader;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import org.elasticsearch.xcontent.XContentFactory;
 import org.elasticsearch.xcontent.XContentType;
@@ -228,10 +231,13 @@ public final class ShardGetService extends AbstractIndexShardComponent {
         if (fieldVisitor != null) {
             try {
                 docIdAndVersion.reader.document(docIdAndVersion.docId, fieldVisitor);
+                source = fieldVisitor.source();
+                if (source == null && fetchSourceContext.fetchSource() && mappingLookup.isSourceSynthetic()) {
+                    source = loadSyntheticSource(mappingLookup, docIdAndVersion);
+                }
             } catch (IOException e) {
                 throw new ElasticsearchException("Failed to get id [" + id + "]", e);
             }
-            source = fieldVisitor.source();
 
             // put stored fields into result objects
             if (fieldVisitor.fields().isEmpty() == false) {
@@ -281,6 +287,20 @@ public final class ShardGetService extends AbstractIndexShardComponent {
         );
     }
 
+    /**
+     * Rebuilds the source of a document whose {@code _source} is synthetic. Gets don't have a search context, so the field data is
+     * built without cache or circuit breaker, which is fine since loading the values of a single document doesn't load global ordinals.
+     */
+    private BytesReference loadSyntheticSource(MappingLookup mappingLookup, DocIdAndVersion docIdAndVersion) throws IOException {
+        SyntheticSourceLoader loader = new SyntheticSourceLoader(
+            mappingLookup.getMapping(),
+            fieldType -> fieldType.fielddataBuilder(shardId.getIndexName(), () -> {
+                throw new UnsupportedOperationException("SearchLookup not available");
+            }).build(new IndexFieldDataCache.None(), new NoneCircuitBreakerService())
+        );
+        return loader.leaf(docIdAndVersion.reader.getContext()).source(docIdAndVersion.docId);
+    }
+
     private static FieldsVisitor buildFieldsVisitors(String[] fields, FetchSourceContext fetchSourceContext) {
         if (fields == null || fields.length == 0) {
             return fetchSourceContext.fetchSource() ? new FieldsVisitor(true) : null;
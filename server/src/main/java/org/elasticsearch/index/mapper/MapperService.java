@@ -238,7 +238,8 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
     public static Map<String, Object> parseMapping(NamedXContentRegistry xContentRegistry, CompressedXContent mappingSource)
         throws IOException {
         try (
-            InputStream in = CompressorFactory.COMPRESSOR.threadLocalInputStream(mappingSource.compressedReference().streamInput());
+            InputStream in = CompressorFactory.compressor(mappingSource.compressedReference())
+                .threadLocalInputStream(mappingSource.compressedReference().streamInput());
             XContentParser parser = XContentType.JSON.xContent()
                 .createParser(
                     XContentParserConfiguration.EMPTY.withRegistry(xContentRegistry)
@@ -43,11 +43,17 @@ public class SourceFieldMapper extends MetadataFieldMapper {
     public static final String CONTENT_TYPE = "_source";
     private final Function<Map<String, ?>, Map<String, Object>> filter;
 
-    private static final SourceFieldMapper DEFAULT = new SourceFieldMapper(Defaults.ENABLED, Strings.EMPTY_ARRAY, Strings.EMPTY_ARRAY);
+    private static final SourceFieldMapper DEFAULT = new SourceFieldMapper(
+        Defaults.ENABLED,
+        Defaults.SYNTHETIC,
+        Strings.EMPTY_ARRAY,
+        Strings.EMPTY_ARRAY
+    );
 
     public static class Defaults {
         public static final String NAME = SourceFieldMapper.NAME;
         public static final boolean ENABLED = true;
+        public static final boolean SYNTHETIC = false;
 
         public static final FieldType FIELD_TYPE = new FieldType();
 
@@ -80,6 +86,7 @@ public class SourceFieldMapper extends MetadataFieldMapper {
             m -> Arrays.asList(toType(m).excludes),
             Collections.emptyList()
         );
+        private final Parameter<Boolean> synthetic = Parameter.boolParam("synthetic", false, m -> toType(m).synthetic, Defaults.SYNTHETIC);
 
         public Builder() {
             super(Defaults.NAME);
@@ -87,16 +94,24 @@ public class SourceFieldMapper extends MetadataFieldMapper {
 
         @Override
         protected List<Parameter<?>> getParameters() {
-            return List.of(enabled, includes, excludes);
+            return List.of(enabled, synthetic, includes, excludes);
         }
 
         @Override
         public SourceFieldMapper build() {
-            if (enabled.getValue() == Defaults.ENABLED && includes.getValue().isEmpty() && excludes.getValue().isEmpty()) {
+            if (synthetic.getValue()
+                && (enabled.getValue() == false || includes.getValue().isEmpty() == false || excludes.getValue().isEmpty() == false)) {
+                throw new MapperParsingException("[synthetic] _source cannot be combined with [enabled], [includes] or [excludes]");
+            }
+            if (enabled.getValue() == Defaults.ENABLED
+                && synthetic.getValue() == Defaults.SYNTHETIC
+                && includes.getValue().isEmpty()
+                && excludes.getValue().isEmpty()) {
                 return DEFAULT;
             }
             return new SourceFieldMapper(
                 enabled.getValue(),
+                synthetic.getValue(),
                 includes.getValue().toArray(String[]::new),
                 excludes.getValue().toArray(String[]::new)
             );
@@ -133,30 +148,47 @@ public class SourceFieldMapper extends MetadataFieldMapper {
     }
 
     private final boolean enabled;
+    /** indicates whether the source isn't stored but rebuilt from the doc values and stored fields of the document */
+    private final boolean synthetic;
     /** indicates whether the source will always exist and be complete, for use by features like the update API */
     private final boolean complete;
 
     private final String[] includes;
     private final String[] excludes;
 
-    private SourceFieldMapper(boolean enabled, String[] includes, String[] excludes) {
+    private SourceFieldMapper(boolean enabled, boolean synthetic, String[] includes, String[] excludes) {
         super(new SourceFieldType(enabled));
         this.enabled = enabled;
+        this.synthetic = synthetic;
         this.includes = includes;
         this.excludes = excludes;
         final boolean filtered = CollectionUtils.isEmpty(includes) == false || CollectionUtils.isEmpty(excludes) == false;
         this.filter = enabled && filtered ? XContentMapValues.filter(includes, excludes) : null;
-        this.complete = enabled && CollectionUtils.isEmpty(includes) && CollectionUtils.isEmpty(excludes);
+        this.complete = enabled && synthetic == false && CollectionUtils.isEmpty(includes) && CollectionUtils.isEmpty(excludes);
     }
 
     public boolean enabled() {
         return enabled;
     }
 
+    /**
+     * Whether the source is rebuilt from the fields of the document with a {@link SyntheticSourceLoader} instead of being stored.
+     */
+    public boolean isSynthetic() {
+        return synthetic;
+    }
+
     public boolean isComplete() {
         return complete;
     }
 
+    @Override
+    protected void doValidate(MappingLookup mappers) {
+        if (synthetic) {
+            SyntheticSourceLoader.validate(mappers.getMapping());
+        }
+    }
+
     @Override
     public void preParse(DocumentParserContext context) throws IOException {
         BytesReference originalSource = context.sourceToParse().source();
@@ -178,7 +210,7 @@ public class SourceFieldMapper extends MetadataFieldMapper {
 
     @Nullable
     public BytesReference applyFilters(@Nullable BytesReference originalSource, @Nullable XContentType contentType) throws IOException {
-        if (enabled && originalSource != null) {
+        if (enabled && synthetic == false && originalSource != null) {
             // Percolate and tv APIs may not set the source and that is ok, because these APIs will not index any data
             if (filter != null) {
                 // we don't update the context source if we filter, we want to keep it as is...
@@ -0,0 +1,330 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.index.fielddata.FormattedDocValues;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fieldvisitor.CustomFieldsVisitor;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Rebuilds the {@code _source} of documents in indices that don't store it because their {@code _source} is
+ * {@link SourceFieldMapper#isSynthetic() synthetic}. The values of every field are read from its stored field if it is stored and from
+ * its doc values otherwise, so the rebuilt {@code _source} holds the values in the order and with the deduplication of the doc values:
+ * multi-valued fields come back sorted and without duplicates, and none of the values that were not mapped come back. Mappings with
+ * {@code copy_to} targets are rejected since the values copied to a field can't be told apart from its own values.
+ * <p>
+ * A {@link Leaf} opens the doc values of all fields once per segment, which keeps loading the {@code _source} of many documents of the
+ * same segment cheap as long as the documents are visited in increasing doc id order.
+ */
+public final class SyntheticSourceLoader {
+
+    private final Function<MappedFieldType, IndexFieldData<?>> fieldDataLookup;
+    private final List<MappedFieldType> fields = new ArrayList<>();
+    private final Node root;
+
+    public SyntheticSourceLoader(Mapping mapping, Function<MappedFieldType, IndexFieldData<?>> fieldDataLookup) {
+        this.fieldDataLookup = fieldDataLookup;
+        this.root = buildObject(null, mapping.getRoot(), copyToTargets(mapping.getRoot()), fields);
+    }
+
+    /**
+     * Checks that the {@code _source} of documents with the provided mapping can be rebuilt from their fields.
+     * @throws IllegalArgumentException if a field is neither stored nor has doc values, if a field can't be rebuilt with the values it
+     *         was indexed with or if the mapping has nested or disabled objects or {@code copy_to} targets
+     */
+    static void validate(Mapping mapping) {
+        buildObject(null, mapping.getRoot(), copyToTargets(mapping.getRoot()), new ArrayList<>());
+    }
+
+    /**
+     * Collects the names of the fields that other fields of the given object mapper copy their values to.
+     */
+    private static Set<String> copyToTargets(ObjectMapper objectMapper) {
+        Set<String> targets = new HashSet<>();
+        objectMapper.iterator().forEachRemaining(mapper -> {
+            if (mapper instanceof ObjectMapper) {
+                targets.addAll(copyToTargets((ObjectMapper) mapper));
+            } else if (mapper instanceof FieldMapper) {
+                FieldMapper.CopyTo copyTo = ((FieldMapper) mapper).copyTo();
+                if (copyTo != null) {
+                    targets.addAll(copyTo.copyToFields());
+                }
+            }
+        });
+        return targets;
+    }
+
+    /**
+     * Builds the tree of objects and fields to rebuild from the given object mapper. Fields are numbered in depth first order so that
+     * the fields of every object are a contiguous range of {@code fields}.
+     */
+    private static Node buildObject(String name, ObjectMapper objectMapper, Set<String> copyToTargets, List<MappedFieldType> fields) {
+        List<Mapper> mappers = new ArrayList<>();
+        objectMapper.iterator().forEachRemaining(mappers::add);
+        mappers.sort(Comparator.comparing(Mapper::simpleName));
+
+        int firstField = fields.size();
+        List<Node> children = new ArrayList<>(mappers.size());
+        for (Mapper mapper : mappers) {
+            if (mapper instanceof ObjectMapper) {
+                ObjectMapper child = (ObjectMapper) mapper;
+                if (child.isNested()) {
+                    throw new IllegalArgumentException(
+                        "synthetic _source doesn't support nested objects but [" + child.name() + "] is of type [nested]"
+                    );
+                }
+                if (child.isEnabled() == false) {
+                    throw new IllegalArgumentException(
+                        "synthetic _source doesn't support disabled objects but [" + child.name() + "] has [enabled] set to [false]"
+                    );
+                }
+                children.add(buildObject(child.simpleName(), child, copyToTargets, fields));
+            } else if (mapper instanceof FieldMapper) {
+                // multi-fields and aliases are derived from other fields and are not part of the _source
+                FieldMapper fieldMapper = (FieldMapper) mapper;
+                MappedFieldType fieldType = fieldMapper.fieldType();
+                if (fieldType.isStored() == false && (fieldType.hasDocValues() == false || fieldType.isAggregatable() == false)) {
+                    throw new IllegalArgumentException(
+                        "synthetic _source requires every field to be stored or to have doc values but field ["
+                            + fieldType.name()
+                            + "] of type ["
+                            + fieldType.typeName()
+                            + "] is neither"
+                    );
+                }
+                if (copyToTargets.contains(fieldType.name())) {
+                    throw new IllegalArgumentException(
+                        "synthetic _source doesn't support [copy_to] since copied values can't be told apart from the values of the "
+                            + "target field but field ["
+                            + fieldType.name()
+                            + "] is the target of [copy_to]"
+                    );
+                }
+                checkLossless(fieldMapper);
+                children.add(new Node(mapper.simpleName(), fields.size(), fields.size() + 1, List.of()));
+                fields.add(fieldType);
+            }
+        }
+        return new Node(name, firstField, fields.size(), children);
+    }
+
+    /**
+     * Rejects fields whose indexed values differ from the values of the original {@code _source}, since the rebuilt {@code _source}
+     * would silently return other values than the ones that were indexed.
+     */
+    private static void checkLossless(FieldMapper fieldMapper) {
+        MappedFieldType fieldType = fieldMapper.fieldType();
+        if (fieldType instanceof KeywordFieldMapper.KeywordFieldType) {
+            KeywordFieldMapper.KeywordFieldType keywordFieldType = (KeywordFieldMapper.KeywordFieldType) fieldType;
+            if (keywordFieldType.ignoreAbove() != KeywordFieldMapper.Defaults.IGNORE_ABOVE) {
+                throw new IllegalArgumentException(
+                    "synthetic _source doesn't support [ignore_above] since longer values are not indexed but field ["
+                        + fieldType.name()
+                        + "] sets it"
+                );
+            }
+            if (keywordFieldType.normalizer() != Lucene.KEYWORD_ANALYZER) {
+                throw new IllegalArgumentException(
+                    "synthetic _source doesn't support [normalizer] since only normalized values are indexed but field ["
+                        + fieldType.name()
+                        + "] sets it"
+                );
+            }
+        } else if (fieldType instanceof NumberFieldMapper.NumberFieldType) {
+            String typeName = fieldType.typeName();
+            if (typeName.equals(NumberFieldMapper.NumberType.FLOAT.typeName())
+                || typeName.equals(NumberFieldMapper.NumberType.HALF_FLOAT.typeName())) {
+                throw lossyType(fieldType, "its values are loaded as doubles");
+            }
+        } else if (fieldType instanceof GeoPointFieldMapper.GeoPointFieldType) {
+            throw lossyType(fieldType, "its doc values are quantized");
+        } else if (fieldType.typeName().equals("scaled_float")) {
+            // the mapper lives in a module, so it is recognized by its type name
+            throw lossyType(fieldType, "its values are rounded to the scaling factor");
+        }
+        if (ignoresMalformed(fieldMapper)) {
+            throw new IllegalArgumentException(
+                "synthetic _source doesn't support [ignore_malformed] since malformed values are not indexed but field ["
+                    + fieldType.name()
+                    + "] sets it"
+            );
+        }
+    }
+
+    private static IllegalArgumentException lossyType(MappedFieldType fieldType, String reason) {
+        return new IllegalArgumentException(
+            "synthetic _source doesn't support field [" + fieldType.name() + "] of type [" + fieldType.typeName() + "] since " + reason
+        );
+    }
+
+    private static boolean ignoresMalformed(FieldMapper fieldMapper) {
+        if (fieldMapper instanceof NumberFieldMapper) {
+            return ((NumberFieldMapper) fieldMapper).ignoreMalformed();
+        } else if (fieldMapper instanceof DateFieldMapper) {
+            return ((DateFieldMapper) fieldMapper).getIgnoreMalformed();
+        } else if (fieldMapper instanceof IpFieldMapper) {
+            return ((IpFieldMapper) fieldMapper).ignoreMalformed();
+        } else if (fieldMapper instanceof AbstractGeometryFieldMapper) {
+            return ((AbstractGeometryFieldMapper<?>) fieldMapper).ignoreMalformed();
+        }
+        return false;
+    }
+
+    /**
+     * Returns a loader for the documents of the given segment. It is cheap to create since it only opens the doc values of the
+     * segment when it loads the first document.
+     */
+    public Leaf leaf(LeafReaderContext context) {
+        return new Leaf(context);
+    }
+
+    /**
+     * Rebuilds the {@code _source} of the documents of a single segment.
+     */
+    public final class Leaf {
+        private final LeafReaderContext context;
+        private final List<List<Object>> values = new ArrayList<>(fields.size());
+        private FormattedDocValues[] docValues;
+        private CustomFieldsVisitor storedFieldsVisitor;
+        private int lastDocId = -1;
+
+        private Leaf(LeafReaderContext context) {
+            this.context = context;
+            for (int i = 0; i < fields.size(); i++) {
+                values.add(new ArrayList<>(1));
+            }
+        }
+
+        /**
+         * Rebuilds the {@code _source} of a document as json.
+         * @param docId the id of the document within the segment
+         */
+        public BytesReference source(int docId) throws IOException {
+            if (docValues == null || docId < lastDocId) {
+                // doc values only move forward
+                open();
+            }
+            lastDocId = docId;
+            for (List<Object> fieldValues : values) {
+                fieldValues.clear();
+            }
+            if (storedFieldsVisitor != null) {
+                storedFieldsVisitor.reset();
+                context.reader().document(docId, storedFieldsVisitor);
+            }
+            for (int i = 0; i < fields.size(); i++) {
+                MappedFieldType fieldType = fields.get(i);
+                List<Object> fieldValues = values.get(i);
+                if (docValues[i] != null) {
+                    if (docValues[i].advanceExact(docId)) {
+                        for (int count = docValues[i].docValueCount(), v = 0; v < count; v++) {
+                            fieldValues.add(docValues[i].nextValue());
+                        }
+                    }
+                } else {
+                    List<Object> storedValues = storedFieldsVisitor.fields().get(fieldType.name());
+                    if (storedValues != null) {
+                        for (Object value : storedValues) {
+                            fieldValues.add(fieldType.valueForDisplay(value));
+                        }
+                    }
+                }
+            }
+            try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
+                builder.startObject();
+                writeChildren(builder, root);
+                builder.endObject();
+                return BytesReference.bytes(builder);
+            }
+        }
+
+        private void open() throws IOException {
+            docValues = new FormattedDocValues[fields.size()];
+            Set<String> storedFields = new HashSet<>();
+            for (int i = 0; i < fields.size(); i++) {
+                MappedFieldType fieldType = fields.get(i);
+                if (fieldType.isStored()) {
+                    storedFields.add(fieldType.name());
+                } else {
+                    docValues[i] = fieldDataLookup.apply(fieldType).load(context).getFormattedValues(fieldType.docValueFormat(null, null));
+                }
+            }
+            storedFieldsVisitor = storedFields.isEmpty() ? null : new CustomFieldsVisitor(storedFields, false);
+        }
+
+        private void writeChildren(XContentBuilder builder, Node node) throws IOException {
+            for (Node child : node.children) {
+                if (hasValues(child) == false) {
+                    // like missing values, empty objects are left out
+                    continue;
+                }
+                if (child.isField()) {
+                    List<Object> fieldValues = values.get(child.firstField);
+                    if (fieldValues.size() == 1) {
+                        builder.field(child.name).value(fieldValues.get(0));
+                    } else {
+                        builder.startArray(child.name);
+                        for (Object value : fieldValues) {
+                            builder.value(value);
+                        }
+                        builder.endArray();
+                    }
+                } else {
+                    builder.startObject(child.name);
+                    writeChildren(builder, child);
+                    builder.endObject();
+                }
+            }
+        }
+
+        private boolean hasValues(Node node) {
+            for (int i = node.firstField; i < node.endField; i++) {
+                if (values.get(i).isEmpty() == false) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * An object or a field of the mapping, which covers the fields in {@code [firstField, endField)}.
+     */
+    private static final class Node {
+        private final String name;
+        private final int firstField;
+        private final int endField;
+        private final List<Node> children;
+
+        private Node(String name, int firstField, int endField, List<Node> children) {
+            this.name = name;
+            this.firstField = firstField;
+            this.endField = endField;
+            this.children = children;
+        }
+
+        private boolean isField() {
+            // objects without fields are never written so they can't be confused with fields
+            return children.isEmpty();
+        }
+    }
+}
@@ -18,6 +18,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.core.RestApiVersion;
+import org.elasticsearch.index.search.QueryPlanner;
 import org.elasticsearch.xcontent.ObjectParser;
 import org.elasticsearch.xcontent.ParseField;
 import org.elasticsearch.xcontent.XContentBuilder;
@@ -322,11 +323,16 @@ public class BoolQueryBuilder extends AbstractQueryBuilder<BoolQueryBuilder> {
 
     @Override
     protected Query doToQuery(SearchExecutionContext context) throws IOException {
+        List<Query> mustQueries = toQueries(context, mustClauses);
+        List<Query> mustNotQueries = toQueries(context, mustNotClauses);
+        List<Query> shouldQueries = toQueries(context, shouldClauses);
+        List<Query> filterQueries = toQueries(context, filterClauses);
+        QueryPlanner.planFilterClauses(context, filterQueries, mustQueries);
         BooleanQuery.Builder booleanQueryBuilder = new BooleanQuery.Builder();
-        addBooleanClauses(context, booleanQueryBuilder, mustClauses, BooleanClause.Occur.MUST);
-        addBooleanClauses(context, booleanQueryBuilder, mustNotClauses, BooleanClause.Occur.MUST_NOT);
-        addBooleanClauses(context, booleanQueryBuilder, shouldClauses, BooleanClause.Occur.SHOULD);
-        addBooleanClauses(context, booleanQueryBuilder, filterClauses, BooleanClause.Occur.FILTER);
+        addBooleanClauses(booleanQueryBuilder, mustQueries, BooleanClause.Occur.MUST);
+        addBooleanClauses(booleanQueryBuilder, mustNotQueries, BooleanClause.Occur.MUST_NOT);
+        addBooleanClauses(booleanQueryBuilder, shouldQueries, BooleanClause.Occur.SHOULD);
+        addBooleanClauses(booleanQueryBuilder, filterQueries, BooleanClause.Occur.FILTER);
         BooleanQuery booleanQuery = booleanQueryBuilder.build();
         if (booleanQuery.clauses().isEmpty()) {
             return new MatchAllDocsQuery();
@@ -336,14 +342,16 @@ public class BoolQueryBuilder extends AbstractQueryBuilder<BoolQueryBuilder> {
         return adjustPureNegative ? fixNegativeQueryIfNeeded(query) : query;
     }
 
-    private static void addBooleanClauses(
-        SearchExecutionContext context,
-        BooleanQuery.Builder booleanQueryBuilder,
-        List<QueryBuilder> clauses,
-        Occur occurs
-    ) throws IOException {
+    private static List<Query> toQueries(SearchExecutionContext context, List<QueryBuilder> clauses) throws IOException {
+        List<Query> queries = new ArrayList<>(clauses.size());
         for (QueryBuilder query : clauses) {
-            Query luceneQuery = query.toQuery(context);
+            queries.add(query.toQuery(context));
+        }
+        return queries;
+    }
+
+    private static void addBooleanClauses(BooleanQuery.Builder booleanQueryBuilder, List<Query> clauses, Occur occurs) {
+        for (Query luceneQuery : clauses) {
             booleanQueryBuilder.add(new BooleanClause(luceneQuery, occurs));
         }
     }
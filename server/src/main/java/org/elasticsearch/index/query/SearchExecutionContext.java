@@ -47,6 +47,7 @@ import org.elasticsearch.index.mapper.ObjectMapper;
 import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.mapper.RuntimeField;
 import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.index.mapper.SyntheticSourceLoader;
 import org.elasticsearch.index.mapper.TextFieldMapper;
 import org.elasticsearch.index.query.support.NestedScope;
 import org.elasticsearch.index.similarity.SimilarityService;
@@ -63,6 +64,7 @@ import org.elasticsearch.xcontent.XContentParser;
 import org.elasticsearch.xcontent.XContentParserConfiguration;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -105,6 +107,7 @@ public class SearchExecutionContext extends QueryRewriteContext {
     private final BooleanSupplier allowExpensiveQueries;
 
     private final Map<String, Query> namedQueries = new HashMap<>();
+    private List<String> queryPlanDecisions;
     private boolean allowUnmappedFields;
     private boolean mapUnmappedFieldAsString;
     private NestedScope nestedScope;
@@ -297,6 +300,38 @@ public class SearchExecutionContext extends QueryRewriteContext {
         return Map.copyOf(namedQueries);
     }
 
+    /**
+     * Starts recording the decisions of the query planner, which the profile API reports.
+     */
+    public void recordQueryPlan() {
+        if (queryPlanDecisions == null) {
+            queryPlanDecisions = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Returns whether the decisions of the query planner are recorded.
+     */
+    public boolean isRecordingQueryPlan() {
+        return queryPlanDecisions != null;
+    }
+
+    /**
+     * Records a decision of the query planner, callers should check {@link #isRecordingQueryPlan()} before describing the decision.
+     */
+    public void addQueryPlanDecision(String decision) {
+        if (queryPlanDecisions != null) {
+            queryPlanDecisions.add(decision);
+        }
+    }
+
+    /**
+     * Returns the decisions of the query planner that were recorded so far.
+     */
+    public List<String> getQueryPlanDecisions() {
+        return queryPlanDecisions == null ? List.of() : List.copyOf(queryPlanDecisions);
+    }
+
     /**
      * Parse a document with current mapping.
      */
@@ -397,6 +432,18 @@ public class SearchExecutionContext extends QueryRewriteContext {
         return mappingLookup.isSourceEnabled();
     }
 
+    /**
+     * Returns the loader that rebuilds the {@code _source} of documents from their fields if the index has a synthetic
+     * {@code _source}, or {@code null} if the {@code _source} is stored.
+     */
+    @Nullable
+    public SyntheticSourceLoader syntheticSourceLoader() {
+        if (mappingLookup.isSourceSynthetic() == false) {
+            return null;
+        }
+        return new SyntheticSourceLoader(mappingLookup.getMapping(), this::getForField);
+    }
+
     /**
      * Given a type (eg. long, string, ...), returns an anonymous field type that can be used for search operations.
      * Generally used to handle unmapped fields in the context of sorting.
@@ -475,12 +522,21 @@ public class SearchExecutionContext extends QueryRewriteContext {
         if (this.lookup == null) {
             this.lookup = new SearchLookup(
                 this::getFieldType,
-                (fieldType, searchLookup) -> indexFieldDataService.apply(fieldType, fullyQualifiedIndex.getName(), searchLookup)
+                (fieldType, searchLookup) -> indexFieldDataService.apply(fieldType, fullyQualifiedIndex.getName(), searchLookup),
+                syntheticSourceLoader()
             );
         }
         return this.lookup;
     }
 
+    /**
+     * Returns whether {@link #lookup()} was already called. The lookup loads the {@code _source} of the current document once for
+     * all of its users, so it can only be used by one thread at a time.
+     */
+    public boolean hasLookup() {
+        return lookup != null;
+    }
+
     public NestedScope nestedScope() {
         return nestedScope;
     }
@@ -0,0 +1,249 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.search;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.PrefixCodedTerms;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.DocValuesRewriteMethod;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.PointRangeQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.query.SearchExecutionContext;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Plans the execution of the filter clauses of a bool query from the statistics of the shard. The planner estimates the number of
+ * documents that every required clause matches from the term statistics and the points metadata of the index, and runs multi-term
+ * filter clauses, like wildcard, prefix and regexp queries on keyword fields, on doc values instead of the terms index when another
+ * required clause is estimated to be much cheaper, so that they only verify the documents that the cheaper clause leads to instead of
+ * collecting the postings of every matching term up-front.
+ * <p>
+ * The planner doesn't order the clauses: the conjunction already leads with the clause of the lowest cost once it is executed.
+ * Its decisions are recorded in the {@link SearchExecutionContext} when the search is profiled.
+ */
+public final class QueryPlanner {
+
+    /**
+     * Multi-term clauses run on doc values when the cheapest other required clause is estimated to match at most this fraction of the
+     * documents that the multi-term clause might match, like {@link IndexOrDocValuesQuery} does for range queries.
+     */
+    static final int DOC_VALUES_COST_RATIO = 8;
+
+    /**
+     * Term sets with more terms are estimated from the statistics of their field rather than term by term.
+     */
+    static final int MAX_TERMS_TO_ESTIMATE = 128;
+
+    private QueryPlanner() {}
+
+    /**
+     * Plans the filter clauses of a bool query.
+     * @param context the context of the shard, no planning happens without a reader or if the planner is disabled on the index
+     * @param filterClauses the filter clauses of the bool query, clauses that run on doc values are replaced in place
+     * @param mustClauses the scoring required clauses of the bool query
+     */
+    public static void planFilterClauses(SearchExecutionContext context, List<Query> filterClauses, List<Query> mustClauses)
+        throws IOException {
+        final IndexReader reader = context.getIndexReader();
+        if (reader == null
+            || context.getIndexSettings().isQueryPlannerEnabled() == false
+            || filterClauses.isEmpty()
+            || filterClauses.size() + mustClauses.size() < 2) {
+            return;
+        }
+        long mustLeadCost = Long.MAX_VALUE;
+        for (Query mustClause : mustClauses) {
+            mustLeadCost = Math.min(mustLeadCost, estimateCost(mustClause, reader));
+        }
+        final long[] costs = new long[filterClauses.size()];
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = estimateCost(filterClauses.get(i), reader);
+        }
+
+        for (int i = 0; i < costs.length; i++) {
+            if (filterClauses.get(i) instanceof MultiTermQuery == false) {
+                continue;
+            }
+            final MultiTermQuery clause = (MultiTermQuery) filterClauses.get(i);
+            if (clause.getRewriteMethod() != MultiTermQuery.CONSTANT_SCORE_REWRITE
+                || hasSortedDocValues(context, clause.getField()) == false) {
+                // an explicit rewrite method may score the clause or limit its expansion, keep it
+                continue;
+            }
+            long leadCost = mustLeadCost;
+            for (int j = 0; j < costs.length; j++) {
+                if (j != i) {
+                    leadCost = Math.min(leadCost, costs[j]);
+                }
+            }
+            if (leadCost <= costs[i] / DOC_VALUES_COST_RATIO) {
+                // the clause only verifies the documents of the cheaper clauses, it no longer leads the conjunction. The clause is
+                // wrapped in a new query rather than given another rewrite method since it may be shared with other queries.
+                filterClauses.set(i, new DocValuesRewriteMethod().rewrite(reader, clause));
+                if (context.isRecordingQueryPlan()) {
+                    context.addQueryPlanDecision(
+                        "executed ["
+                            + clause
+                            + "] on doc values, its estimated cost ["
+                            + costs[i]
+                            + "] is much higher than the estimated cost ["
+                            + leadCost
+                            + "] of the cheapest other required clause"
+                    );
+                }
+            }
+        }
+    }
+
+    private static boolean hasSortedDocValues(SearchExecutionContext context, String field) {
+        if (context.isFieldMapped(field) == false) {
+            return false;
+        }
+        final MappedFieldType fieldType = context.getFieldType(field);
+        return fieldType instanceof KeywordFieldMapper.KeywordFieldType && fieldType.hasDocValues() && fieldType.isSearchable();
+    }
+
+    /**
+     * Estimates the number of documents that the given query matches in the given reader. Queries that the planner can't estimate are
+     * assumed to match every document.
+     */
+    static long estimateCost(Query query, IndexReader reader) throws IOException {
+        if (query instanceof ConstantScoreQuery) {
+            return estimateCost(((ConstantScoreQuery) query).getQuery(), reader);
+        } else if (query instanceof BoostQuery) {
+            return estimateCost(((BoostQuery) query).getQuery(), reader);
+        } else if (query instanceof MatchNoDocsQuery) {
+            return 0;
+        } else if (query instanceof MatchAllDocsQuery) {
+            return reader.maxDoc();
+        } else if (query instanceof TermQuery) {
+            return reader.docFreq(((TermQuery) query).getTerm());
+        } else if (query instanceof TermInSetQuery) {
+            final PrefixCodedTerms terms = ((TermInSetQuery) query).getTermData();
+            if (terms.size() > MAX_TERMS_TO_ESTIMATE) {
+                return estimateFieldCost(((TermInSetQuery) query).getField(), reader);
+            }
+            long cost = 0;
+            final PrefixCodedTerms.TermIterator it = terms.iterator();
+            for (BytesRef term = it.next(); term != null; term = it.next()) {
+                cost += reader.docFreq(new Term(it.field(), term));
+            }
+            return Math.min(cost, reader.maxDoc());
+        } else if (query instanceof PointRangeQuery) {
+            return estimatePointRangeCost((PointRangeQuery) query, reader);
+        } else if (query instanceof IndexOrDocValuesQuery) {
+            return estimateCost(((IndexOrDocValuesQuery) query).getIndexQuery(), reader);
+        } else if (query instanceof MultiTermQuery) {
+            // the matching terms are only known once the terms dictionary is enumerated, assume that all documents with the field match
+            return estimateFieldCost(((MultiTermQuery) query).getField(), reader);
+        } else if (query instanceof BooleanQuery) {
+            final BooleanQuery bq = (BooleanQuery) query;
+            long requiredCost = Long.MAX_VALUE;
+            long optionalCost = 0;
+            boolean hasOptional = false;
+            for (BooleanClause clause : bq.clauses()) {
+                if (clause.isRequired()) {
+                    requiredCost = Math.min(requiredCost, estimateCost(clause.getQuery(), reader));
+                } else if (clause.getOccur() == BooleanClause.Occur.SHOULD) {
+                    hasOptional = true;
+                    optionalCost += estimateCost(clause.getQuery(), reader);
+                }
+            }
+            if (requiredCost != Long.MAX_VALUE) {
+                return requiredCost;
+            }
+            return hasOptional ? Math.min(optionalCost, reader.maxDoc()) : reader.maxDoc();
+        }
+        return reader.maxDoc();
+    }
+
+    private static long estimateFieldCost(String field, IndexReader reader) throws IOException {
+        final int docCount = reader.getDocCount(field);
+        return docCount > 0 ? docCount : reader.maxDoc();
+    }
+
+    private static long estimatePointRangeCost(PointRangeQuery query, IndexReader reader) throws IOException {
+        final PointValues.IntersectVisitor visitor = new RangeCostVisitor(
+            query.getLowerPoint(),
+            query.getUpperPoint(),
+            query.getNumDims(),
+            query.getBytesPerDim()
+        );
+        long cost = 0;
+        for (LeafReaderContext leaf : reader.leaves()) {
+            final PointValues values = leaf.reader().getPointValues(query.getField());
+            if (values != null) {
+                cost += values.estimateDocCount(visitor);
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Only compares the cells of the points tree with the range, which is all that the estimation of the number of points needs.
+     */
+    private static class RangeCostVisitor implements PointValues.IntersectVisitor {
+
+        private final byte[] lowerPoint;
+        private final byte[] upperPoint;
+        private final int numDims;
+        private final int bytesPerDim;
+
+        RangeCostVisitor(byte[] lowerPoint, byte[] upperPoint, int numDims, int bytesPerDim) {
+            this.lowerPoint = lowerPoint;
+            this.upperPoint = upperPoint;
+            this.numDims = numDims;
+            this.bytesPerDim = bytesPerDim;
+        }
+
+        @Override
+        public void visit(int docID) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void visit(int docID, byte[] packedValue) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PointValues.Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+            boolean crosses = false;
+            for (int dim = 0; dim < numDims; dim++) {
+                final int from = dim * bytesPerDim;
+                final int to = from + bytesPerDim;
+                if (Arrays.compareUnsigned(minPackedValue, from, to, upperPoint, from, to) > 0
+                    || Arrays.compareUnsigned(maxPackedValue, from, to, lowerPoint, from, to) < 0) {
+                    return PointValues.Relation.CELL_OUTSIDE_QUERY;
+                }
+                crosses |= Arrays.compareUnsigned(minPackedValue, from, to, lowerPoint, from, to) < 0
+                    || Arrays.compareUnsigned(maxPackedValue, from, to, upperPoint, from, to) > 0;
+            }
+            return crosses ? PointValues.Relation.CELL_CROSSES_QUERY : PointValues.Relation.CELL_INSIDE_QUERY;
+        }
+    }
+}
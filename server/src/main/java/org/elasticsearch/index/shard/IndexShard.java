@@ -137,6 +137,7 @@ import org.elasticsearch.index.warmer.ShardIndexWarmerService;
 import org.elasticsearch.index.warmer.WarmerStats;
 import org.elasticsearch.indices.IndexingMemoryController;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.TranslogGroupCommitService;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.recovery.PeerRecoveryTargetService;
@@ -226,6 +227,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final PendingReplicationActions pendingReplicationActions;
     private final ReplicationTracker replicationTracker;
     private final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier;
+    @Nullable
+    private final TranslogGroupCommitService translogGroupCommitService;
 
     protected volatile ShardRouting shardRouting;
     protected volatile IndexShardState state;
@@ -311,7 +314,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         final Runnable globalCheckpointSyncer,
         final RetentionLeaseSyncer retentionLeaseSyncer,
         final CircuitBreakerService circuitBreakerService,
-        final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier
+        final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier,
+        final @Nullable TranslogGroupCommitService translogGroupCommitService
     ) throws IOException {
         super(shardRouting.shardId(), indexSettings);
         assert shardRouting.initializing();
@@ -323,6 +327,9 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         Objects.requireNonNull(store, "Store must be provided to the index shard");
         this.engineFactory = Objects.requireNonNull(engineFactory);
         this.snapshotCommitSupplier = Objects.requireNonNull(snapshotCommitSupplier);
+        this.translogGroupCommitService = translogGroupCommitService != null && translogGroupCommitService.isEnabled()
+            ? translogGroupCommitService
+            : null;
         this.store = store;
         this.indexSortSupplier = indexSortSupplier;
         this.indexEventListener = indexEventListener;
@@ -886,6 +893,33 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         long ifPrimaryTerm,
         long autoGeneratedTimestamp,
         boolean isRetry
+    ) throws IOException {
+        return applyIndexOperationOnPrimary(
+            version,
+            versionType,
+            sourceToParse,
+            null,
+            ifSeqNo,
+            ifPrimaryTerm,
+            autoGeneratedTimestamp,
+            isRetry
+        );
+    }
+
+    /**
+     * Same as {@link #applyIndexOperationOnPrimary(long, VersionType, SourceToParse, long, long, long, boolean)} but indexes the given
+     * document rather than parsing the source, if one is given. The document must have been parsed from the given source with the
+     * current {@link DocumentMapper} of this shard.
+     */
+    public Engine.IndexResult applyIndexOperationOnPrimary(
+        long version,
+        VersionType versionType,
+        SourceToParse sourceToParse,
+        @Nullable ParsedDocument parsedDoc,
+        long ifSeqNo,
+        long ifPrimaryTerm,
+        long autoGeneratedTimestamp,
+        boolean isRetry
     ) throws IOException {
         assert versionType.validateVersionForWrites(version);
         return applyIndexOperation(
@@ -899,7 +933,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             autoGeneratedTimestamp,
             isRetry,
             Engine.Operation.Origin.PRIMARY,
-            sourceToParse
+            sourceToParse,
+            parsedDoc
         );
     }
 
@@ -922,7 +957,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             autoGeneratedTimeStamp,
             isRetry,
             Engine.Operation.Origin.REPLICA,
-            sourceToParse
+            sourceToParse,
+            null
         );
     }
 
@@ -937,16 +973,18 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         long autoGeneratedTimeStamp,
         boolean isRetry,
         Engine.Operation.Origin origin,
-        SourceToParse sourceToParse
+        SourceToParse sourceToParse,
+        @Nullable ParsedDocument parsedDoc
     ) throws IOException {
         assert opPrimaryTerm <= getOperationPrimaryTerm()
             : "op term [ " + opPrimaryTerm + " ] > shard term [" + getOperationPrimaryTerm() + "]";
         ensureWriteAllowed(origin);
         Engine.Index operation;
         try {
+            final long startTime = System.nanoTime();
             operation = prepareIndex(
-                mapperService,
-                sourceToParse,
+                parsedDoc == null ? parseDocument(mapperService, sourceToParse, origin) : parsedDoc,
+                startTime,
                 seqNo,
                 opPrimaryTerm,
                 version,
@@ -987,6 +1025,22 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         long ifPrimaryTerm
     ) {
         long startTime = System.nanoTime();
+        return prepareIndex(
+            parseDocument(mapperService, source, origin),
+            startTime,
+            seqNo,
+            primaryTerm,
+            version,
+            versionType,
+            origin,
+            autoGeneratedIdTimestamp,
+            isRetry,
+            ifSeqNo,
+            ifPrimaryTerm
+        );
+    }
+
+    private static ParsedDocument parseDocument(MapperService mapperService, SourceToParse source, Engine.Operation.Origin origin) {
         assert source.dynamicTemplates().isEmpty() || origin == Engine.Operation.Origin.PRIMARY
             : "dynamic_templates parameter can only be associated with primary operations";
         DocumentMapper documentMapper = mapperService.documentMapper();
@@ -1003,6 +1057,22 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             // whether mappings were provided or not.
             doc.addDynamicMappingsUpdate(mapping);
         }
+        return doc;
+    }
+
+    private static Engine.Index prepareIndex(
+        ParsedDocument doc,
+        long startTime,
+        long seqNo,
+        long primaryTerm,
+        long version,
+        VersionType versionType,
+        Engine.Operation.Origin origin,
+        long autoGeneratedIdTimestamp,
+        boolean isRetry,
+        long ifSeqNo,
+        long ifPrimaryTerm
+    ) {
         Term uid = new Term(IdFieldMapper.NAME, Uid.encodeId(doc.id()));
         return new Engine.Index(
             uid,
@@ -1799,7 +1869,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                     index.getAutoGeneratedIdTimestamp(),
                     true,
                     origin,
-                    new SourceToParse(index.id(), index.source(), XContentHelper.xContentType(index.source()), index.routing(), Map.of())
+                    new SourceToParse(index.id(), index.source(), XContentHelper.xContentType(index.source()), index.routing(), Map.of()),
+                    null
                 );
                 break;
             case DELETE:
@@ -1833,8 +1904,13 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     int runTranslogRecovery(Engine engine, Translog.Snapshot snapshot, Engine.Operation.Origin origin, Runnable onOperationRecovered)
         throws IOException {
         int opsRecovered = 0;
+        long readTimeInNanos = 0;
+        long applyTimeInNanos = 0;
         Translog.Operation operation;
+        long startTime = System.nanoTime();
         while ((operation = snapshot.next()) != null) {
+            final long readTime = System.nanoTime();
+            readTimeInNanos += readTime - startTime;
             try {
                 logger.trace("[translog] recover op {}", operation);
                 Engine.Result result = applyTranslogOperation(engine, operation, origin);
@@ -1860,6 +1936,13 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                     throw ExceptionsHelper.convertToRuntime(e);
                 }
             }
+            startTime = System.nanoTime();
+            applyTimeInNanos += startTime - readTime;
+        }
+        readTimeInNanos += System.nanoTime() - startTime;
+        final RecoveryState recoveryState = this.recoveryState;
+        if (origin == Engine.Operation.Origin.LOCAL_TRANSLOG_RECOVERY && recoveryState != null) {
+            recoveryState.getTranslog().addReplayTime(readTimeInNanos, applyTimeInNanos);
         }
         return opsRecovered;
     }
@@ -3606,18 +3689,36 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         };
     }
 
+    /**
+     * Syncs the translog of this shard up to the given locations on behalf of the {@link TranslogGroupCommitService}. The same instance
+     * is used for all syncs so that the service can tell the pending syncs of different shards apart.
+     */
+    private final TranslogGroupCommitService.TranslogSyncer translogGroupCommitSyncer = locations -> {
+        try {
+            getEngine().ensureTranslogSynced(locations);
+        } catch (AlreadyClosedException ex) {
+            // that's fine since we already synced everything on engine close
+        }
+    };
+
     /**
      * Syncs the given location with the underlying storage unless already synced. This method might return immediately without
      * actually fsyncing the location until the sync listener is called. Yet, unless there is already another thread fsyncing
      * the transaction log the caller thread will be hijacked to run the fsync for all pending fsync operations.
      * This method allows indexing threads to continue indexing without blocking on fsync calls. We ensure that there is only
      * one thread blocking on the sync an all others can continue indexing.
+     * If group commit is enabled the sync is instead handed over to the {@link TranslogGroupCommitService} which syncs it together
+     * with the pending syncs of all other shards on the same data path.
      * NOTE: if the syncListener throws an exception when it's processed the exception will only be logged. Users should make sure that the
      * listener handles all exception cases internally.
      */
     public final void sync(Translog.Location location, Consumer<Exception> syncListener) {
         verifyNotClosed();
-        translogSyncProcessor.put(location, syncListener);
+        if (translogGroupCommitService != null) {
+            translogGroupCommitService.sync(path.getRootDataPath(), translogGroupCommitSyncer, location, syncListener);
+        } else {
+            translogSyncProcessor.put(location, syncListener);
+        }
     }
 
     public void sync() throws IOException {
@@ -83,6 +83,14 @@ public abstract class BaseTranslogReader implements Comparable<BaseTranslogReade
         return new TranslogSnapshot(this, sizeInBytes());
     }
 
+    /**
+     * Returns a snapshot that decodes operations straight from a memory mapping of the file if the file is no longer written to,
+     * falling back to {@link #newSnapshot()} otherwise.
+     */
+    public TranslogSnapshot newMappedSnapshot() {
+        return newSnapshot();
+    }
+
     /**
      * reads an operation at the given position and returns it. The buffer length is equal to the number
      * of bytes reads.
@@ -10,6 +10,7 @@ package org.elasticsearch.index.translog;
 
 import com.carrotsearch.hppc.LongObjectHashMap;
 
+import org.elasticsearch.core.IOUtils;
 import org.elasticsearch.index.seqno.CountedBitSet;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 
@@ -64,13 +65,15 @@ final class MultiSnapshot implements Translog.Snapshot {
                     overriddenOperations++;
                 }
             }
+            // release the mapping of a memory mapped generation as soon as it's fully read
+            current.close();
         }
         return null;
     }
 
     @Override
     public void close() throws IOException {
-        onClose.close();
+        IOUtils.close(() -> IOUtils.close(translogs), onClose);
     }
 
     static final class SeqNoSet {
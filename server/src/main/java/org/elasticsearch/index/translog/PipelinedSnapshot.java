@@ -0,0 +1,178 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A snapshot that reads and decodes the operations of another snapshot on a separate thread, so that decoding the next operations
+ * overlaps with the caller applying the previous ones. Operations are handed over in batches through a bounded queue, which caps the
+ * number of decoded operations held in memory at any time.
+ * <p>
+ * The delegate snapshot is only ever accessed by the decoding thread, and is closed once decoding stopped.
+ */
+public final class PipelinedSnapshot implements Translog.Snapshot {
+
+    static final int BATCH_SIZE = 64;
+    static final int MAX_PENDING_BATCHES = 16;
+
+    private static final Translog.Operation[] END = new Translog.Operation[0];
+
+    private final Translog.Snapshot delegate;
+    private final BlockingQueue<Translog.Operation[]> queue = new ArrayBlockingQueue<>(MAX_PENDING_BATCHES);
+    private final CountDownLatch decodingStopped = new CountDownLatch(1);
+    private final int totalOperations;
+
+    private volatile boolean closed;
+    // only written by the decoding thread, and before it enqueues END
+    private volatile Exception failure;
+    private volatile int skippedOperations;
+
+    private Translog.Operation[] batch;
+    private int batchIndex;
+    private boolean exhausted;
+
+    public PipelinedSnapshot(Translog.Snapshot delegate, Executor executor) {
+        this.delegate = delegate;
+        this.totalOperations = delegate.totalOperations();
+        final AbstractRunnable decoder = new AbstractRunnable() {
+            @Override
+            public void onFailure(Exception e) {
+                stopDecoding(e);
+            }
+
+            @Override
+            protected void doRun() {
+                decode();
+            }
+        };
+        try {
+            executor.execute(decoder);
+        } catch (RuntimeException e) {
+            stopDecoding(e);
+        }
+    }
+
+    private void stopDecoding(Exception e) {
+        failure = e;
+        enqueue(END);
+        decodingStopped.countDown();
+    }
+
+    private void decode() {
+        try {
+            Translog.Operation[] pending = new Translog.Operation[BATCH_SIZE];
+            int count = 0;
+            Translog.Operation operation;
+            while (closed == false && (operation = delegate.next()) != null) {
+                pending[count++] = operation;
+                if (count == BATCH_SIZE) {
+                    skippedOperations = delegate.skippedOperations();
+                    enqueue(pending);
+                    pending = new Translog.Operation[BATCH_SIZE];
+                    count = 0;
+                }
+            }
+            skippedOperations = delegate.skippedOperations();
+            if (count > 0) {
+                enqueue(Arrays.copyOf(pending, count));
+            }
+        } catch (Exception e) {
+            stopDecoding(e);
+            return;
+        }
+        enqueue(END);
+        decodingStopped.countDown();
+    }
+
+    /**
+     * Blocks until the batch could be handed over unless the snapshot is closed in the meantime.
+     */
+    private void enqueue(Translog.Operation[] operations) {
+        try {
+            while (closed == false) {
+                if (queue.offer(operations, 100, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (failure == null) {
+                failure = e;
+            }
+            // make sure the consumer doesn't wait forever
+            closed = true;
+            queue.clear();
+            queue.offer(END);
+        }
+    }
+
+    @Override
+    public int totalOperations() {
+        return totalOperations;
+    }
+
+    @Override
+    public int skippedOperations() {
+        return skippedOperations;
+    }
+
+    @Override
+    public Translog.Operation next() throws IOException {
+        if (batch == null || batchIndex == batch.length) {
+            if (exhausted) {
+                return null;
+            }
+            try {
+                batch = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for translog operations", e);
+            }
+            batchIndex = 0;
+            if (batch == END) {
+                exhausted = true;
+                final Exception e = failure;
+                if (e != null) {
+                    if (e instanceof IOException) {
+                        throw (IOException) e;
+                    }
+                    throw ExceptionsHelper.convertToRuntime(e);
+                }
+                return null;
+            }
+        }
+        final Translog.Operation operation = batch[batchIndex];
+        // don't hold on to operations that were already handed out
+        batch[batchIndex++] = null;
+        return operation;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        queue.clear();
+        try {
+            // the delegate isn't thread safe, wait for the decoding thread to let go of it before closing it
+            decodingStopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delegate.close();
+    }
+}
@@ -665,13 +665,28 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
      * @return the new snapshot
      */
     public Snapshot newSnapshot(long fromSeqNo, long toSeqNo) throws IOException {
+        return newSnapshot(fromSeqNo, toSeqNo, false);
+    }
+
+    /**
+     * Creates a new translog snapshot containing operations from the given range.
+     *
+     * @param fromSeqNo    the lower bound of the range (inclusive)
+     * @param toSeqNo      the upper bound of the range (inclusive)
+     * @param memoryMapped whether generations that are no longer written to should be memory mapped and decoded in place. This
+     *                     avoids copying every operation through a buffer when reading large translogs front to back, e.g. when
+     *                     recovering from the translog. Mappings are released as soon as a generation is fully read or the
+     *                     snapshot is closed.
+     * @return the new snapshot
+     */
+    public Snapshot newSnapshot(long fromSeqNo, long toSeqNo, boolean memoryMapped) throws IOException {
         assert fromSeqNo <= toSeqNo : fromSeqNo + " > " + toSeqNo;
         assert fromSeqNo >= 0 : "from_seq_no must be non-negative " + fromSeqNo;
         try (ReleasableLock ignored = readLock.acquire()) {
             ensureOpen();
             TranslogSnapshot[] snapshots = Stream.concat(readers.stream(), Stream.of(current))
                 .filter(reader -> reader.getCheckpoint().minSeqNo <= toSeqNo && fromSeqNo <= reader.getCheckpoint().maxEffectiveSeqNo())
-                .map(BaseTranslogReader::newSnapshot)
+                .map(reader -> memoryMapped ? reader.newMappedSnapshot() : reader.newSnapshot())
                 .toArray(TranslogSnapshot[]::new);
             final Snapshot snapshot = newMultiSnapshot(snapshots);
             return new SeqNoFilterSnapshot(snapshot, fromSeqNo, toSeqNo);
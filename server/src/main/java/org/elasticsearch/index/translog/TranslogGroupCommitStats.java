@@ -0,0 +1,187 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.xcontent.ToXContentFragment;
+import org.elasticsearch.xcontent.ToXContentObject;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Node level statistics of the translog syncs that were grouped together per data path.
+ */
+public class TranslogGroupCommitStats implements Writeable, ToXContentFragment {
+
+    private final List<PathStats> paths;
+
+    public TranslogGroupCommitStats(List<PathStats> paths) {
+        this.paths = Objects.requireNonNull(paths);
+    }
+
+    public TranslogGroupCommitStats(StreamInput in) throws IOException {
+        paths = in.readList(PathStats::new);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeList(paths);
+    }
+
+    public List<PathStats> getPaths() {
+        return paths;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("translog_group_commit");
+        builder.startArray("paths");
+        for (PathStats path : paths) {
+            path.toXContent(builder, params);
+        }
+        builder.endArray();
+        return builder.endObject();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TranslogGroupCommitStats that = (TranslogGroupCommitStats) o;
+        return paths.equals(that.paths);
+    }
+
+    @Override
+    public int hashCode() {
+        return paths.hashCode();
+    }
+
+    /**
+     * Statistics of the group commits of a single data path.
+     */
+    public static class PathStats implements Writeable, ToXContentObject {
+
+        private final String path;
+        private final long rounds;
+        private final long shardSyncs;
+        private final long locations;
+        private final long totalTimeInNanos;
+        private final long maxTimeInNanos;
+
+        public PathStats(String path, long rounds, long shardSyncs, long locations, long totalTimeInNanos, long maxTimeInNanos) {
+            this.path = path;
+            this.rounds = rounds;
+            this.shardSyncs = shardSyncs;
+            this.locations = locations;
+            this.totalTimeInNanos = totalTimeInNanos;
+            this.maxTimeInNanos = maxTimeInNanos;
+        }
+
+        public PathStats(StreamInput in) throws IOException {
+            path = in.readString();
+            rounds = in.readVLong();
+            shardSyncs = in.readVLong();
+            locations = in.readVLong();
+            totalTimeInNanos = in.readVLong();
+            maxTimeInNanos = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(path);
+            out.writeVLong(rounds);
+            out.writeVLong(shardSyncs);
+            out.writeVLong(locations);
+            out.writeVLong(totalTimeInNanos);
+            out.writeVLong(maxTimeInNanos);
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * The number of rounds of syncs that were issued for this path.
+         */
+        public long getRounds() {
+            return rounds;
+        }
+
+        /**
+         * The number of shard translogs that were synced, summed over all rounds.
+         */
+        public long getShardSyncs() {
+            return shardSyncs;
+        }
+
+        /**
+         * The number of {@link Translog.Location}s whose listeners were completed, summed over all rounds.
+         */
+        public long getLocations() {
+            return locations;
+        }
+
+        public TimeValue getTotalTime() {
+            return TimeValue.timeValueNanos(totalTimeInNanos);
+        }
+
+        public TimeValue getMaxTime() {
+            return TimeValue.timeValueNanos(maxTimeInNanos);
+        }
+
+        /**
+         * The average number of locations completed by a single round.
+         */
+        public double getAvgBatchSize() {
+            return rounds == 0 ? 0 : (double) locations / rounds;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("path", path);
+            builder.field("rounds", rounds);
+            builder.field("shard_syncs", shardSyncs);
+            builder.field("locations", locations);
+            builder.field("avg_batch_size", getAvgBatchSize());
+            builder.humanReadableField("total_time_in_millis", "total_time", getTotalTime());
+            builder.humanReadableField(
+                "avg_time_in_millis",
+                "avg_time",
+                TimeValue.timeValueNanos(rounds == 0 ? 0 : totalTimeInNanos / rounds)
+            );
+            builder.humanReadableField("max_time_in_millis", "max_time", getMaxTime());
+            return builder.endObject();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            PathStats that = (PathStats) o;
+            return rounds == that.rounds
+                && shardSyncs == that.shardSyncs
+                && locations == that.locations
+                && totalTimeInNanos == that.totalTimeInNanos
+                && maxTimeInNanos == that.maxTimeInNanos
+                && path.equals(that.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, rounds, shardSyncs, locations, totalTimeInNanos, maxTimeInNanos);
+        }
+    }
+}
@@ -110,6 +110,12 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
         return totalOperations;
     }
 
+    @Override
+    public TranslogSnapshot newMappedSnapshot() {
+        // readers are immutable so their file can safely be mapped
+        return new TranslogSnapshot(this, sizeInBytes(), true);
+    }
+
     @Override
     final Checkpoint getCheckpoint() {
         return checkpoint;
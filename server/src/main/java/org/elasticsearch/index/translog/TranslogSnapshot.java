@@ -8,19 +8,26 @@
 package org.elasticsearch.index.translog;
 
 import org.elasticsearch.common.io.Channels;
+import org.elasticsearch.common.io.stream.ByteBufferStreamInput;
+import org.elasticsearch.directbuffers.DirectBuffers;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 
+import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
-final class TranslogSnapshot extends BaseTranslogReader {
+final class TranslogSnapshot extends BaseTranslogReader implements Closeable {
 
     private final int totalOperations;
     private final Checkpoint checkpoint;
     protected final long length;
 
     private final ByteBuffer reusableBuffer;
+    private final boolean memoryMapped;
+    /** The whole generation mapped into memory, lazily created on the first read if this snapshot is {@link #memoryMapped}. */
+    private ByteBuffer mapped;
     private long position;
     private int skippedOperations;
     private int readOperations;
@@ -30,8 +37,20 @@ final class TranslogSnapshot extends BaseTranslogReader {
      * Create a snapshot of translog file channel.
      */
     TranslogSnapshot(final BaseTranslogReader reader, final long length) {
+        this(reader, length, false);
+    }
+
+    /**
+     * Create a snapshot of translog file channel.
+     *
+     * @param memoryMapped whether to map the file into memory and decode operations straight from the mapping rather than copying
+     *                     them into a buffer first. Must only be used for files that are no longer written to. Files that are too
+     *                     large to be mapped as a single buffer are read through the channel.
+     */
+    TranslogSnapshot(final BaseTranslogReader reader, final long length, final boolean memoryMapped) {
         super(reader.generation, reader.channel, reader.path, reader.header);
         this.length = length;
+        this.memoryMapped = memoryMapped && length <= Integer.MAX_VALUE;
         this.totalOperations = reader.totalOperations();
         this.checkpoint = reader.getCheckpoint();
         this.reusableBuffer = ByteBuffer.allocate(1024);
@@ -67,7 +86,13 @@ final class TranslogSnapshot extends BaseTranslogReader {
 
     private Translog.Operation readOperation() throws IOException {
         final int opSize = readSize(reusableBuffer, position);
-        reuse = checksummedStream(reusableBuffer, position, opSize, reuse);
+        if (memoryMapped) {
+            // the checks in readSize guarantee the operation lies within the mapped region
+            final ByteBuffer operation = mapped.slice(Math.toIntExact(position), opSize);
+            reuse = new BufferedChecksumStreamInput(new ByteBufferStreamInput(operation), path.toString(), reuse);
+        } else {
+            reuse = checksummedStream(reusableBuffer, position, opSize, reuse);
+        }
         Translog.Operation op = read(reuse);
         position += opSize;
         readOperations++;
@@ -78,6 +103,20 @@ final class TranslogSnapshot extends BaseTranslogReader {
         return length;
     }
 
+    /**
+     * Unmaps the generation if it was memory mapped. Operations never hold on to the mapping since they are copied out of it while
+     * being decoded, but the snapshot itself must not be read anymore after this call.
+     */
+    @Override
+    public void close() {
+        if (mapped != null) {
+            final ByteBuffer toUnmap = mapped;
+            mapped = null;
+            reuse = null;
+            DirectBuffers.free(toUnmap);
+        }
+    }
+
     /**
      * reads an operation at the given position into the given buffer.
      */
@@ -109,7 +148,19 @@ final class TranslogSnapshot extends BaseTranslogReader {
                         + "]"
                 );
             }
-            Channels.readFromFileChannelWithEofException(channel, position, buffer);
+            if (memoryMapped) {
+                if (mapped == null) {
+                    assert readOperations == 0 : "snapshot of generation [" + getGeneration() + "] was read after being closed";
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+                }
+                final int toRead = buffer.remaining();
+                if (position + toRead > length) {
+                    throw new EOFException("read past EOF. pos [" + position + "] length: [" + toRead + "] end: [" + length + "]");
+                }
+                buffer.put(mapped.slice(Math.toIntExact(position), toRead));
+            } else {
+                Channels.readFromFileChannelWithEofException(channel, position, buffer);
+            }
         } catch (EOFException e) {
             throw new TranslogCorruptedException(path.toString(), "translog truncated", e);
         }
@@ -130,6 +181,8 @@ final class TranslogSnapshot extends BaseTranslogReader {
             + generation
             + ", reusableBuffer="
             + reusableBuffer
+            + ", memoryMapped="
+            + memoryMapped
             + '}';
     }
 }
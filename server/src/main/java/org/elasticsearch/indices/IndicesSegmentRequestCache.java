@@ -0,0 +1,304 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import com.carrotsearch.hppc.ObjectHashSet;
+import com.carrotsearch.hppc.ObjectSet;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.CacheLoader;
+import org.elasticsearch.common.cache.RemovalListener;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.cache.request.ShardRequestCache;
+import org.elasticsearch.index.mapper.MappingLookup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The segment request cache caches the contribution of a single segment to the shard level result of a request that the
+ * {@link IndicesRequestCache} can cache. Unlike the entries of the {@link IndicesRequestCache}, which are keyed on the version of the
+ * whole reader of the shard, its entries are keyed on the core of the segment and on its number of live documents. A refresh that
+ * adds new segments or deletes documents from some segments therefore keeps the entries of all other segments valid, so that only the
+ * new and changed segments need to be computed again. Entries are evicted in least recently used order once the cache reaches its
+ * maximum size, and all entries of a segment are removed once its core is closed.
+ */
+public final class IndicesSegmentRequestCache implements RemovalListener<IndicesSegmentRequestCache.Key, BytesReference>, Closeable {
+
+    /**
+     * A setting to enable or disable segment level request caching on an index level. The segment level cache is only used for
+     * requests that the shard level request cache can cache but for which it has no entry.
+     */
+    public static final Setting<Boolean> INDEX_CACHE_REQUEST_SEGMENTS_ENABLED_SETTING = Setting.boolSetting(
+        "index.requests.cache.segments.enable",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+    public static final Setting<ByteSizeValue> INDICES_CACHE_REQUEST_SEGMENTS_SIZE = Setting.memorySizeSetting(
+        "indices.requests.cache.segments.size",
+        "1%",
+        Property.NodeScope
+    );
+
+    private final ConcurrentMap<CleanupKey, Boolean> registeredClosedListeners = ConcurrentCollections.newConcurrentMap();
+    private final Set<CleanupKey> keysToClean = ConcurrentCollections.newConcurrentSet();
+    private final Cache<Key, BytesReference> cache;
+
+    IndicesSegmentRequestCache(Settings settings) {
+        long sizeInBytes = INDICES_CACHE_REQUEST_SEGMENTS_SIZE.get(settings).getBytes();
+        cache = CacheBuilder.<Key, BytesReference>builder()
+            .setMaximumWeight(sizeInBytes)
+            .weigher((k, v) -> k.ramBytesUsed() + v.ramBytesUsed())
+            .removalListener(this)
+            .build();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+
+    void clear(CacheEntity entity) {
+        keysToClean.add(new CleanupKey(entity, null));
+        cleanCache();
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<Key, BytesReference> notification) {
+        notification.getKey().entity.stats()
+            .onSegmentRemoval(
+                notification.getKey(),
+                notification.getValue(),
+                notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED
+            );
+    }
+
+    /**
+     * Returns the cached result of the given segment for the given request, computing it with the loader if needed. Segments without
+     * a core cache helper are always computed.
+     */
+    BytesReference getOrCompute(
+        CacheEntity cacheEntity,
+        CheckedSupplier<BytesReference, IOException> loader,
+        MappingLookup.CacheKey mappingCacheKey,
+        LeafReader segmentReader,
+        BytesReference cacheKey
+    ) throws Exception {
+        final IndexReader.CacheHelper cacheHelper = segmentReader.getCoreCacheHelper();
+        if (cacheHelper == null) {
+            cacheEntity.stats().onSegmentMiss();
+            return loader.get();
+        }
+        // deletes are never undone, so the number of live documents identifies the live documents of the core
+        final Key key = new Key(cacheEntity, mappingCacheKey, cacheHelper.getKey(), segmentReader.numDocs(), cacheKey);
+        Loader cacheLoader = new Loader(cacheEntity, loader);
+        BytesReference value = cache.computeIfAbsent(key, cacheLoader);
+        if (cacheLoader.isLoaded()) {
+            cacheEntity.stats().onSegmentMiss();
+            // see if its the first time we see this segment, and make sure to register a cleanup key
+            CleanupKey cleanupKey = new CleanupKey(cacheEntity, cacheHelper.getKey());
+            if (registeredClosedListeners.containsKey(cleanupKey) == false) {
+                Boolean previous = registeredClosedListeners.putIfAbsent(cleanupKey, Boolean.TRUE);
+                if (previous == null) {
+                    cacheHelper.addClosedListener(cleanupKey);
+                }
+            }
+        } else {
+            cacheEntity.stats().onSegmentHit();
+        }
+        return value;
+    }
+
+    private static class Loader implements CacheLoader<Key, BytesReference> {
+
+        private final CacheEntity entity;
+        private final CheckedSupplier<BytesReference, IOException> loader;
+        private boolean loaded;
+
+        Loader(CacheEntity entity, CheckedSupplier<BytesReference, IOException> loader) {
+            this.entity = entity;
+            this.loader = loader;
+        }
+
+        public boolean isLoaded() {
+            return this.loaded;
+        }
+
+        @Override
+        public BytesReference load(Key key) throws Exception {
+            BytesReference value = loader.get();
+            entity.stats().onSegmentCached(key, value);
+            loaded = true;
+            return value;
+        }
+    }
+
+    /**
+     * The shard that cache entries belong to.
+     */
+    interface CacheEntity extends Accountable {
+
+        /**
+         * Returns the {@linkplain ShardRequestCache} used to track cache statistics.
+         */
+        ShardRequestCache stats();
+
+        /**
+         * Returns <code>true</code> iff the resource behind this entity is still open ie.
+         * entities associated with it can remain in the cache. ie. IndexShard is still open.
+         */
+        boolean isOpen();
+
+        /**
+         * Returns the cache identity, the entries of all entities with the same identity are cleared together.
+         */
+        Object getCacheIdentity();
+    }
+
+    static class Key implements Accountable {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
+
+        public final CacheEntity entity; // use as identity equality
+        public final MappingLookup.CacheKey mappingCacheKey;
+        public final Object coreCacheKey;
+        public final int numDocs;
+        public final BytesReference value;
+
+        Key(CacheEntity entity, MappingLookup.CacheKey mappingCacheKey, Object coreCacheKey, int numDocs, BytesReference value) {
+            this.entity = entity;
+            this.mappingCacheKey = Objects.requireNonNull(mappingCacheKey);
+            this.coreCacheKey = Objects.requireNonNull(coreCacheKey);
+            this.numDocs = numDocs;
+            this.value = value;
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return BASE_RAM_BYTES_USED + entity.ramBytesUsed() + value.length();
+        }
+
+        @Override
+        public Collection<Accountable> getChildResources() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            if (numDocs != key.numDocs) return false;
+            if (mappingCacheKey.equals(key.mappingCacheKey) == false) return false;
+            if (coreCacheKey.equals(key.coreCacheKey) == false) return false;
+            if (entity.getCacheIdentity().equals(key.entity.getCacheIdentity()) == false) return false;
+            if (value.equals(key.value) == false) return false;
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = entity.getCacheIdentity().hashCode();
+            result = 31 * result + mappingCacheKey.hashCode();
+            result = 31 * result + coreCacheKey.hashCode();
+            result = 31 * result + numDocs;
+            result = 31 * result + value.hashCode();
+            return result;
+        }
+    }
+
+    private class CleanupKey implements IndexReader.ClosedListener {
+        final CacheEntity entity;
+        final Object coreCacheKey;
+
+        private CleanupKey(CacheEntity entity, Object coreCacheKey) {
+            this.entity = entity;
+            this.coreCacheKey = coreCacheKey;
+        }
+
+        @Override
+        public void onClose(IndexReader.CacheKey cacheKey) {
+            Boolean remove = registeredClosedListeners.remove(this);
+            if (remove != null) {
+                keysToClean.add(this);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CleanupKey that = (CleanupKey) o;
+            if (Objects.equals(coreCacheKey, that.coreCacheKey) == false) return false;
+            if (entity.getCacheIdentity().equals(that.entity.getCacheIdentity()) == false) return false;
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = entity.getCacheIdentity().hashCode();
+            result = 31 * result + Objects.hashCode(coreCacheKey);
+            return result;
+        }
+    }
+
+    synchronized void cleanCache() {
+        final ObjectSet<CleanupKey> currentKeysToClean = new ObjectHashSet<>();
+        final ObjectSet<Object> currentFullClean = new ObjectHashSet<>();
+        for (Iterator<CleanupKey> iterator = keysToClean.iterator(); iterator.hasNext();) {
+            CleanupKey cleanupKey = iterator.next();
+            iterator.remove();
+            if (cleanupKey.coreCacheKey == null || cleanupKey.entity.isOpen() == false) {
+                // null indicates full cleanup, as does a closed shard
+                currentFullClean.add(cleanupKey.entity.getCacheIdentity());
+            } else {
+                currentKeysToClean.add(cleanupKey);
+            }
+        }
+        if (currentKeysToClean.isEmpty() == false || currentFullClean.isEmpty() == false) {
+            for (Iterator<Key> iterator = cache.keys().iterator(); iterator.hasNext();) {
+                Key key = iterator.next();
+                if (currentFullClean.contains(key.entity.getCacheIdentity())) {
+                    iterator.remove();
+                } else if (currentKeysToClean.contains(new CleanupKey(key.entity, key.coreCacheKey))) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        cache.refresh();
+    }
+
+    /**
+     * Returns the current size of the cache
+     */
+    int count() {
+        return cache.count();
+    }
+}
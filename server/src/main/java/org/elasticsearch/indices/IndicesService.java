@@ -110,6 +110,7 @@ import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.IndexingOperationListener;
 import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.translog.TranslogGroupCommitStats;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -127,6 +128,8 @@ import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.search.query.QueryPhase;
 import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.search.query.SegmentAggregationResult;
+import org.elasticsearch.search.query.SegmentResultsCache;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.xcontent.NamedXContentRegistry;
 import org.elasticsearch.xcontent.XContentFactory;
@@ -225,8 +228,10 @@ public class IndicesService extends AbstractLifecycleComponent
     private final NamedWriteableRegistry namedWriteableRegistry;
     private final Map<String, IndexStorePlugin.SnapshotCommitSupplier> snapshotCommitSuppliers;
     private final IndexingMemoryController indexingMemoryController;
+    private final TranslogGroupCommitService translogGroupCommitService;
     private final TimeValue cleanInterval;
     final IndicesRequestCache indicesRequestCache; // pkg-private for testing
+    final IndicesSegmentRequestCache indicesSegmentRequestCache; // pkg-private for testing
     private final IndicesQueryCache indicesQueryCache;
     private final MetaStateService metaStateService;
     private final Collection<Function<IndexSettings, Optional<EngineFactory>>> engineFactoryProviders;
@@ -294,6 +299,7 @@ public class IndicesService extends AbstractLifecycleComponent
         this.analysisRegistry = analysisRegistry;
         this.indexNameExpressionResolver = indexNameExpressionResolver;
         this.indicesRequestCache = new IndicesRequestCache(settings);
+        this.indicesSegmentRequestCache = new IndicesSegmentRequestCache(settings);
         this.indicesQueryCache = new IndicesQueryCache(settings);
         this.mapperRegistry = mapperRegistry;
         this.namedWriteableRegistry = namedWriteableRegistry;
@@ -303,6 +309,7 @@ public class IndicesService extends AbstractLifecycleComponent
             // ensure we pull an iter with new shards - flatten makes a copy
             () -> Iterables.flatten(this).iterator()
         );
+        this.translogGroupCommitService = new TranslogGroupCommitService(settings, threadPool);
         this.indexScopedSettings = indexScopedSettings;
         this.circuitBreakerService = circuitBreakerService;
         this.bigArrays = bigArrays;
@@ -323,7 +330,14 @@ public class IndicesService extends AbstractLifecycleComponent
             }
         });
         this.cleanInterval = INDICES_CACHE_CLEAN_INTERVAL_SETTING.get(settings);
-        this.cacheCleaner = new CacheCleaner(indicesFieldDataCache, indicesRequestCache, logger, threadPool, this.cleanInterval);
+        this.cacheCleaner = new CacheCleaner(
+            indicesFieldDataCache,
+            indicesRequestCache,
+            indicesSegmentRequestCache,
+            logger,
+            threadPool,
+            this.cleanInterval
+        );
         this.metaStateService = metaStateService;
         this.engineFactoryProviders = engineFactoryProviders;
 
@@ -352,6 +366,7 @@ public class IndicesService extends AbstractLifecycleComponent
                     indicesFieldDataCache,
                     cacheCleaner,
                     indicesRequestCache,
+                    indicesSegmentRequestCache,
                     indicesQueryCache
                 );
             } catch (IOException e) {
@@ -737,7 +752,8 @@ public class IndicesService extends AbstractLifecycleComponent
             idFieldMapper,
             valuesSourceRegistry,
             indexFoldersDeletionListeners,
-            snapshotCommitSuppliers
+            snapshotCommitSuppliers,
+            translogGroupCommitService
         );
     }
 
@@ -1405,16 +1421,19 @@ public class IndicesService extends AbstractLifecycleComponent
         private final TimeValue interval;
         private final AtomicBoolean closed = new AtomicBoolean(false);
         private final IndicesRequestCache requestCache;
+        private final IndicesSegmentRequestCache segmentRequestCache;
 
         CacheCleaner(
             IndicesFieldDataCache cache,
             IndicesRequestCache requestCache,
+            IndicesSegmentRequestCache segmentRequestCache,
             Logger logger,
             ThreadPool threadPool,
             TimeValue interval
         ) {
             this.cache = cache;
             this.requestCache = requestCache;
+            this.segmentRequestCache = segmentRequestCache;
             this.logger = logger;
             this.threadPool = threadPool;
             this.interval = interval;
@@ -1443,6 +1462,11 @@ public class IndicesService extends AbstractLifecycleComponent
             } catch (Exception e) {
                 logger.warn("Exception during periodic request cache cleanup:", e);
             }
+            try {
+                this.segmentRequestCache.cleanCache();
+            } catch (Exception e) {
+                logger.warn("Exception during periodic segment request cache cleanup:", e);
+            }
             // Reschedule itself to run again if not closed
             if (closed.get() == false) {
                 threadPool.scheduleUnlessShuttingDown(interval, ThreadPool.Names.SAME, this);
@@ -1522,7 +1546,7 @@ public class IndicesService extends AbstractLifecycleComponent
             directoryReader,
             cacheKey,
             out -> {
-                queryPhase.execute(context);
+                queryPhase.execute(context, segmentResultsCache(context, cacheKey));
                 context.queryResult().writeToNoId(out);
                 loadedFromCache[0] = false;
             }
@@ -1558,10 +1582,40 @@ public class IndicesService extends AbstractLifecycleComponent
         }
     }
 
+    /**
+     * Returns the cache for the results of the segments of the shard of the given context, or null if the index doesn't enable the
+     * segment request cache.
+     */
+    @Nullable
+    private SegmentResultsCache segmentResultsCache(SearchContext context, BytesReference cacheKey) {
+        IndexSettings settings = context.indexShard().indexSettings();
+        if (settings.getValue(IndicesSegmentRequestCache.INDEX_CACHE_REQUEST_SEGMENTS_ENABLED_SETTING) == false) {
+            return null;
+        }
+        final IndexShardCacheEntity cacheEntity = new IndexShardCacheEntity(context.indexShard());
+        final MappingLookup.CacheKey mappingCacheKey = context.getSearchExecutionContext().mappingCacheKey();
+        return (segment, loader) -> {
+            BytesReference bytes = indicesSegmentRequestCache.getOrCompute(cacheEntity, () -> {
+                // a cached segment result is usually small, see cacheShardLevelResult
+                try (BytesStreamOutput out = new BytesStreamOutput(512)) {
+                    loader.get().writeTo(out);
+                    return out.bytes();
+                }
+            }, mappingCacheKey, segment.reader(), cacheKey);
+            try (StreamInput in = new NamedWriteableAwareStreamInput(bytes.streamInput(), namedWriteableRegistry)) {
+                return new SegmentAggregationResult(in);
+            }
+        };
+    }
+
     public ByteSizeValue getTotalIndexingBufferBytes() {
         return indexingMemoryController.indexingBufferSize();
     }
 
+    public TranslogGroupCommitStats getTranslogGroupCommitStats() {
+        return translogGroupCommitService.stats();
+    }
+
     /**
      * Cache something calculated at the shard level.
      * @param shard the shard this item is part of
@@ -1597,7 +1651,7 @@ public class IndicesService extends AbstractLifecycleComponent
         return indicesRequestCache.getOrCompute(cacheEntity, supplier, mappingCacheKey, reader, cacheKey);
     }
 
-    static final class IndexShardCacheEntity extends AbstractIndexShardCacheEntity {
+    static final class IndexShardCacheEntity extends AbstractIndexShardCacheEntity implements IndicesSegmentRequestCache.CacheEntity {
         private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(IndexShardCacheEntity.class);
         private final IndexShard indexShard;
 
@@ -1606,7 +1660,7 @@ public class IndicesService extends AbstractLifecycleComponent
         }
 
         @Override
-        protected ShardRequestCache stats() {
+        public ShardRequestCache stats() {
             return indexShard.requestCache();
         }
 
@@ -1713,6 +1767,7 @@ public class IndicesService extends AbstractLifecycleComponent
             final boolean clearedAtLeastOne = service.clearCaches(queryCache, fieldDataCache, fields);
             if ((requestCache || (clearedAtLeastOne == false && fields.length == 0)) && shard != null) {
                 indicesRequestCache.clear(new IndexShardCacheEntity(shard));
+                indicesSegmentRequestCache.clear(new IndexShardCacheEntity(shard));
             }
         }
     }
@@ -0,0 +1,224 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogGroupCommitStats;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Groups the translog syncs of all shards that live on the same data path. Rather than letting every shard force its translog to disk
+ * as soon as a request asks for it, pending syncs are collected per data path and one round of syncs is issued per tick, after which
+ * all waiting listeners are completed together. Each shard's translog is forced at most once per round, no matter how many locations
+ * are waiting on it, and the forces of all shards on the same disk are issued back to back which lets the filesystem fold them into
+ * fewer journal commits.
+ * <p>
+ * Group commit is disabled unless {@link #INTERVAL_SETTING} is set to a positive value, in which case shards sync their translog through
+ * this service rather than on the indexing thread.
+ */
+public class TranslogGroupCommitService {
+
+    private static final Logger logger = LogManager.getLogger(TranslogGroupCommitService.class);
+
+    /**
+     * How long pending translog syncs are collected before a round of syncs is issued. Defaults to {@code 0} which disables group commit.
+     */
+    public static final Setting<TimeValue> INTERVAL_SETTING = Setting.timeSetting(
+        "indices.translog.group_commit.interval",
+        TimeValue.ZERO,
+        TimeValue.ZERO,
+        Property.NodeScope
+    );
+
+    /**
+     * Syncs the translog of a single shard up to the given locations.
+     */
+    @FunctionalInterface
+    public interface TranslogSyncer {
+        void sync(Stream<Translog.Location> locations) throws IOException;
+    }
+
+    private final ThreadPool threadPool;
+    private final TimeValue interval;
+    private final ConcurrentMap<Path, PathGroup> groups = ConcurrentCollections.newConcurrentMap();
+
+    public TranslogGroupCommitService(Settings settings, ThreadPool threadPool) {
+        this.threadPool = threadPool;
+        this.interval = INTERVAL_SETTING.get(settings);
+    }
+
+    public boolean isEnabled() {
+        return interval.nanos() > 0;
+    }
+
+    /**
+     * Registers a pending sync of the given location. The listener is notified once the round that includes it completed.
+     *
+     * @param dataPath the root data path the shard's translog lives on
+     * @param syncer   syncs the translog of the shard, must be the same instance for all locations of the same shard
+     */
+    public void sync(Path dataPath, TranslogSyncer syncer, Translog.Location location, Consumer<Exception> listener) {
+        assert isEnabled() : "group commit is disabled";
+        Objects.requireNonNull(syncer, "syncer must not be null");
+        Objects.requireNonNull(location, "location must not be null");
+        Objects.requireNonNull(listener, "listener must not be null");
+        final PathGroup group = groups.computeIfAbsent(dataPath, PathGroup::new);
+        if (group.add(new PendingSync(syncer, location, preserveContext(listener)))) {
+            group.scheduleRound();
+        }
+    }
+
+    public TranslogGroupCommitStats stats() {
+        final List<TranslogGroupCommitStats.PathStats> stats = new ArrayList<>(groups.size());
+        for (PathGroup group : groups.values()) {
+            stats.add(group.stats());
+        }
+        return new TranslogGroupCommitStats(stats);
+    }
+
+    private Consumer<Exception> preserveContext(Consumer<Exception> listener) {
+        final Supplier<ThreadContext.StoredContext> restorableContext = threadPool.getThreadContext().newRestorableContext(false);
+        return e -> {
+            try (ThreadContext.StoredContext ignore = restorableContext.get()) {
+                listener.accept(e);
+            }
+        };
+    }
+
+    private static final class PendingSync {
+        final TranslogSyncer syncer;
+        final Translog.Location location;
+        final Consumer<Exception> listener;
+
+        PendingSync(TranslogSyncer syncer, Translog.Location location, Consumer<Exception> listener) {
+            this.syncer = syncer;
+            this.location = location;
+            this.listener = listener;
+        }
+    }
+
+    private final class PathGroup implements Runnable {
+        private final Path path;
+        private List<PendingSync> pending = new ArrayList<>();
+        private boolean scheduled;
+
+        // guarded by the monitor of this group, only updated once per round
+        private long rounds;
+        private long shardSyncs;
+        private long locations;
+        private long totalTimeInNanos;
+        private long maxTimeInNanos;
+
+        PathGroup(Path path) {
+            this.path = path;
+        }
+
+        /**
+         * Adds a pending sync and returns {@code true} if the caller is responsible for scheduling the next round.
+         */
+        synchronized boolean add(PendingSync sync) {
+            pending.add(sync);
+            if (scheduled) {
+                return false;
+            }
+            scheduled = true;
+            return true;
+        }
+
+        void scheduleRound() {
+            // the round runs on behalf of all the shards on this path, not of the request that happened to schedule it
+            try (ThreadContext.StoredContext ignore = threadPool.getThreadContext().stashContext()) {
+                threadPool.schedule(this, interval, ThreadPool.Names.GENERIC);
+            } catch (EsRejectedExecutionException e) {
+                // the node is shutting down, sync on the calling thread so that no listener is left behind
+                logger.debug("group commit round rejected, syncing on the calling thread", e);
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            final List<PendingSync> batch;
+            synchronized (this) {
+                batch = pending;
+                pending = new ArrayList<>();
+            }
+            final Map<TranslogSyncer, List<PendingSync>> byShard = new IdentityHashMap<>();
+            for (PendingSync sync : batch) {
+                byShard.computeIfAbsent(sync.syncer, k -> new ArrayList<>()).add(sync);
+            }
+            final Map<TranslogSyncer, Exception> failures = new IdentityHashMap<>();
+            final long startTimeInNanos = System.nanoTime();
+            for (Map.Entry<TranslogSyncer, List<PendingSync>> entry : byShard.entrySet()) {
+                try {
+                    entry.getKey().sync(entry.getValue().stream().map(sync -> sync.location));
+                } catch (Exception e) {
+                    logger.debug(new ParameterizedMessage("failed to sync translog on [{}]", path), e);
+                    failures.put(entry.getKey(), e);
+                }
+            }
+            final long tookInNanos = System.nanoTime() - startTimeInNanos;
+
+            for (PendingSync sync : batch) {
+                try {
+                    sync.listener.accept(failures.get(sync.syncer));
+                } catch (Exception e) {
+                    logger.warn("failed to notify callback", e);
+                }
+            }
+
+            final boolean scheduleNext;
+            synchronized (this) {
+                rounds++;
+                shardSyncs += byShard.size();
+                locations += batch.size();
+                totalTimeInNanos += tookInNanos;
+                maxTimeInNanos = Math.max(maxTimeInNanos, tookInNanos);
+                scheduleNext = pending.isEmpty() == false;
+                scheduled = scheduleNext;
+            }
+            if (scheduleNext) {
+                scheduleRound();
+            }
+        }
+
+        synchronized TranslogGroupCommitStats.PathStats stats() {
+            return new TranslogGroupCommitStats.PathStats(
+                path.toString(),
+                rounds,
+                shardSyncs,
+                locations,
+                totalTimeInNanos,
+                maxTimeInNanos
+            );
+        }
+    }
+}
@@ -24,18 +24,22 @@ import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.LeafFieldData;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.function.ToLongBiFunction;
 
 public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCache.Key, Accountable>, Releasable {
@@ -79,6 +83,9 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
         assert key != null && key.listeners != null;
         IndexFieldCache indexCache = key.indexCache;
         final Accountable value = notification.getValue();
+        if (value instanceof GlobalOrdinalsIndexFieldData) {
+            ((GlobalOrdinalsIndexFieldData) value).close();
+        }
         for (IndexFieldDataCache.Listener listener : key.listeners) {
             try {
                 listener.onRemoval(
@@ -111,6 +118,12 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
         final String fieldName;
         private final Cache<Key, Accountable> cache;
         private final Listener[] listeners;
+        /**
+         * The key of the last global ordinals that were built for each shard, so that the next global ordinals of the shard can be
+         * built on top of them as long as they are cached, which is the case for eager global ordinals since they are built before
+         * the previous reader is closed.
+         */
+        private final Map<ShardId, Key> lastGlobalOrdinals = ConcurrentCollections.newConcurrentMap();
 
         IndexFieldCache(Logger logger, final Cache<Key, Accountable> cache, Index index, String fieldName, Listener... listeners) {
             this.logger = logger;
@@ -162,28 +175,62 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
             final Accountable accountable = cache.computeIfAbsent(key, k -> {
                 ElasticsearchDirectoryReader.addReaderCloseListener(indexReader, IndexFieldCache.this);
                 Collections.addAll(k.listeners, this.listeners);
-                final Accountable ifd = (Accountable) indexFieldData.loadGlobalDirect(indexReader);
+                final long startTimeNanos = System.nanoTime();
+                final Accountable previous = lastGlobalOrdinals(shardId, k);
+                final Accountable ifd;
+                if (previous instanceof IndexOrdinalsFieldData && indexFieldData instanceof IndexOrdinalsFieldData) {
+                    ifd = (Accountable) ((IndexOrdinalsFieldData) indexFieldData).loadGlobalDirect(
+                        indexReader,
+                        (IndexOrdinalsFieldData) previous
+                    );
+                } else {
+                    ifd = (Accountable) indexFieldData.loadGlobalDirect(indexReader);
+                }
+                final long tookInNanos = System.nanoTime() - startTimeNanos;
                 for (Listener listener : k.listeners) {
                     try {
                         listener.onCache(shardId, fieldName, ifd);
+                        if (ifd instanceof GlobalOrdinalsIndexFieldData) {
+                            final boolean incremental = ((GlobalOrdinalsIndexFieldData) ifd).isBuiltIncrementally();
+                            listener.onGlobalOrdinalsBuilt(shardId, fieldName, incremental, tookInNanos);
+                        }
                     } catch (Exception e) {
                         // load anyway since listeners should not throw exceptions
                         logger.error("Failed to call listener on global ordinals loading", e);
                     }
                 }
+                if (shardId != null) {
+                    // must be the last step of the loading, see lastGlobalOrdinals
+                    lastGlobalOrdinals.put(shardId, k);
+                }
                 return ifd;
             });
             return (IFD) accountable;
         }
 
+        /**
+         * Returns the last global ordinals that were built for the given shard if they are still cached. Getting them waits for them
+         * if they are still loading, which can't deadlock since a key only becomes the last one once its loading is done.
+         */
+        @Nullable
+        private Accountable lastGlobalOrdinals(@Nullable ShardId shardId, Key loading) {
+            final Key last = shardId == null ? null : lastGlobalOrdinals.get(shardId);
+            if (last == null || last.equals(loading)) {
+                return null;
+            }
+            return cache.get(last);
+        }
+
         @Override
         public void onClose(CacheKey key) {
             cache.invalidate(new Key(this, key, null));
+            lastGlobalOrdinals.values().removeIf(last -> last.readerKey == key);
             // don't call cache.cleanUp here as it would have bad performance implications
         }
 
         @Override
         public void clear() {
+            lastGlobalOrdinals.clear();
             for (Key key : cache.keys()) {
                 if (key.indexCache.index.equals(index)) {
                     cache.invalidate(key);
@@ -195,6 +242,9 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
 
         @Override
         public void clear(String fieldName) {
+            if (this.fieldName.equals(fieldName)) {
+                lastGlobalOrdinals.clear();
+            }
             for (Key key : cache.keys()) {
                 if (key.indexCache.index.equals(index)) {
                     if (key.indexCache.fieldName.equals(fieldName)) {
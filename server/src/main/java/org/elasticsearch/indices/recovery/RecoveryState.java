@@ -8,6 +8,7 @@
 
 package org.elasticsearch.indices.recovery;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.RecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
@@ -356,6 +357,10 @@ public class RecoveryState implements ToXContentFragment, Writeable {
         static final String SOURCE_THROTTLE_TIME_IN_MILLIS = "source_throttle_time_in_millis";
         static final String TARGET_THROTTLE_TIME = "target_throttle_time";
         static final String TARGET_THROTTLE_TIME_IN_MILLIS = "target_throttle_time_in_millis";
+        static final String READ_TIME = "read_time";
+        static final String READ_TIME_IN_MILLIS = "read_time_in_millis";
+        static final String APPLY_TIME = "apply_time";
+        static final String APPLY_TIME_IN_MILLIS = "apply_time_in_millis";
     }
 
     public static class Timer implements Writeable {
@@ -473,6 +478,8 @@ public class RecoveryState implements ToXContentFragment, Writeable {
         private int total = UNKNOWN;
         private int totalOnStart = UNKNOWN;
         private int totalLocal = UNKNOWN;
+        private long readTimeInNanos;
+        private long applyTimeInNanos;
 
         public Translog() {}
 
@@ -482,6 +489,10 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             total = in.readVInt();
             totalOnStart = in.readVInt();
             totalLocal = in.readVInt();
+            if (in.getVersion().onOrAfter(Version.V_8_1_0)) {
+                readTimeInNanos = in.readVLong();
+                applyTimeInNanos = in.readVLong();
+            }
         }
 
         @Override
@@ -491,6 +502,10 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             out.writeVInt(total);
             out.writeVInt(totalOnStart);
             out.writeVInt(totalLocal);
+            if (out.getVersion().onOrAfter(Version.V_8_1_0)) {
+                out.writeVLong(readTimeInNanos);
+                out.writeVLong(applyTimeInNanos);
+            }
         }
 
         public synchronized void reset() {
@@ -499,6 +514,34 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             total = UNKNOWN;
             totalOnStart = UNKNOWN;
             totalLocal = UNKNOWN;
+            readTimeInNanos = 0;
+            applyTimeInNanos = 0;
+        }
+
+        /**
+         * Adds the time spent replaying operations from the local translog.
+         *
+         * @param readTimeInNanos  time spent waiting for operations to be read and decoded from the translog
+         * @param applyTimeInNanos time spent applying operations to the engine
+         */
+        public synchronized void addReplayTime(long readTimeInNanos, long applyTimeInNanos) {
+            assert readTimeInNanos >= 0 && applyTimeInNanos >= 0 : readTimeInNanos + ", " + applyTimeInNanos;
+            this.readTimeInNanos += readTimeInNanos;
+            this.applyTimeInNanos += applyTimeInNanos;
+        }
+
+        /**
+         * Returns the time spent waiting for operations to be read and decoded when replaying the local translog.
+         */
+        public synchronized TimeValue readTime() {
+            return TimeValue.timeValueNanos(readTimeInNanos);
+        }
+
+        /**
+         * Returns the time spent applying operations to the engine when replaying the local translog.
+         */
+        public synchronized TimeValue applyTime() {
+            return TimeValue.timeValueNanos(applyTimeInNanos);
         }
 
         public synchronized void incrementRecoveredOperations() {
@@ -588,6 +631,8 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             builder.field(Fields.PERCENT, String.format(Locale.ROOT, "%1.1f%%", recoveredPercent()));
             builder.field(Fields.TOTAL_ON_START, totalOnStart);
             builder.humanReadableField(Fields.TOTAL_TIME_IN_MILLIS, Fields.TOTAL_TIME, new TimeValue(time()));
+            builder.humanReadableField(Fields.READ_TIME_IN_MILLIS, Fields.READ_TIME, readTime());
+            builder.humanReadableField(Fields.APPLY_TIME_IN_MILLIS, Fields.APPLY_TIME, applyTime());
             return builder;
         }
     }
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.node;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -26,30 +27,61 @@ import java.util.stream.Collectors;
 /**
  * Class representing statistics about adaptive replica selection. This includes
  * EWMA of queue size, service time, and response time, as well as outgoing
- * searches to each node and the "rank" based on the ARS formula.
+ * searches to each node and the "rank" based on the ARS formula. It also counts
+ * the shard requests that were hedged on another copy of their shard.
  */
 public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
 
     private final Map<String, Long> clientOutgoingConnections;
     private final Map<String, ResponseCollectorService.ComputedNodeStats> nodeComputedStats;
+    private final long hedgedRequests;
+    private final long hedgedRequestsWon;
+    private final long hedgedRequestsOverBudget;
 
     public AdaptiveSelectionStats(
         Map<String, Long> clientConnections,
         Map<String, ResponseCollectorService.ComputedNodeStats> nodeComputedStats
+    ) {
+        this(clientConnections, nodeComputedStats, 0, 0, 0);
+    }
+
+    public AdaptiveSelectionStats(
+        Map<String, Long> clientConnections,
+        Map<String, ResponseCollectorService.ComputedNodeStats> nodeComputedStats,
+        long hedgedRequests,
+        long hedgedRequestsWon,
+        long hedgedRequestsOverBudget
     ) {
         this.clientOutgoingConnections = clientConnections;
         this.nodeComputedStats = nodeComputedStats;
+        this.hedgedRequests = hedgedRequests;
+        this.hedgedRequestsWon = hedgedRequestsWon;
+        this.hedgedRequestsOverBudget = hedgedRequestsOverBudget;
     }
 
     public AdaptiveSelectionStats(StreamInput in) throws IOException {
         this.clientOutgoingConnections = in.readMap(StreamInput::readString, StreamInput::readLong);
         this.nodeComputedStats = in.readMap(StreamInput::readString, ResponseCollectorService.ComputedNodeStats::new);
+        if (in.getVersion().onOrAfter(Version.V_8_1_0)) {
+            this.hedgedRequests = in.readVLong();
+            this.hedgedRequestsWon = in.readVLong();
+            this.hedgedRequestsOverBudget = in.readVLong();
+        } else {
+            this.hedgedRequests = 0;
+            this.hedgedRequestsWon = 0;
+            this.hedgedRequestsOverBudget = 0;
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeMap(this.clientOutgoingConnections, StreamOutput::writeString, StreamOutput::writeLong);
         out.writeMap(this.nodeComputedStats, StreamOutput::writeString, (stream, stats) -> stats.writeTo(stream));
+        if (out.getVersion().onOrAfter(Version.V_8_1_0)) {
+            out.writeVLong(hedgedRequests);
+            out.writeVLong(hedgedRequestsWon);
+            out.writeVLong(hedgedRequestsOverBudget);
+        }
     }
 
     @Override
@@ -76,6 +108,11 @@ public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
             builder.endObject();
         }
         builder.endObject();
+        builder.startObject("hedged_search_requests");
+        builder.field("total", hedgedRequests);
+        builder.field("won", hedgedRequestsWon);
+        builder.field("over_budget", hedgedRequestsOverBudget);
+        builder.endObject();
         return builder;
     }
 
@@ -93,6 +130,27 @@ public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
         return nodeComputedStats;
     }
 
+    /**
+     * Returns the number of shard requests that this node hedged on another copy of their shard
+     */
+    public long getHedgedRequests() {
+        return hedgedRequests;
+    }
+
+    /**
+     * Returns the number of hedged shard requests that returned before the request that they duplicated
+     */
+    public long getHedgedRequestsWon() {
+        return hedgedRequestsWon;
+    }
+
+    /**
+     * Returns the number of shard requests that were not hedged because hedging would have exceeded its budget
+     */
+    public long getHedgedRequestsOverBudget() {
+        return hedgedRequestsOverBudget;
+    }
+
     /**
      * Returns a map of node id to the ranking of the nodes based on the adaptive replica formula
      */
@@ -60,6 +60,7 @@ import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.component.Lifecycle;
 import org.elasticsearch.common.component.LifecycleComponent;
+import org.elasticsearch.common.compress.Zstd;
 import org.elasticsearch.common.inject.Injector;
 import org.elasticsearch.common.inject.Key;
 import org.elasticsearch.common.inject.ModulesBuilder;
@@ -925,7 +926,15 @@ public class Node implements Closeable {
                 b.bind(MetadataUpdateSettingsService.class).toInstance(metadataUpdateSettingsService);
                 b.bind(SearchService.class).toInstance(searchService);
                 b.bind(SearchTransportService.class).toInstance(searchTransportService);
-                b.bind(SearchPhaseController.class).toInstance(new SearchPhaseController(searchService::aggReduceContextBuilder));
+                // the partially reduced aggregations are accounted for by the consumer, so their pages are not accounted again
+                b.bind(SearchPhaseController.class)
+                    .toInstance(
+                        new SearchPhaseController(
+                            searchService::aggReduceContextBuilder,
+                            namedWriteableRegistry,
+                            new BigArrays(pageCacheRecycler, null, CircuitBreaker.REQUEST)
+                        )
+                    );
                 b.bind(Transport.class).toInstance(transport);
                 b.bind(TransportService.class).toInstance(transportService);
                 b.bind(NetworkService.class).toInstance(networkService);
@@ -1556,7 +1565,11 @@ public class Node implements Closeable {
 
         private LocalNodeFactory(Settings settings, String persistentNodeId) {
             this.persistentNodeId = persistentNodeId;
-            this.settings = settings;
+            // report whether this node can read segments compressed with zstd, whatever the attribute was configured to
+            final String zstdAttr = "node.attr." + Zstd.NODE_ATTR;
+            this.settings = Zstd.isAvailable()
+                ? Settings.builder().put(settings).put(zstdAttr, true).build()
+                : Settings.builder().put(settings).remove(zstdAttr).build();
         }
 
         @Override
@@ -16,6 +16,7 @@ import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 
 import java.io.IOException;
@@ -24,6 +25,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Collects statistics about queue size, response time, and service time of
@@ -37,7 +39,20 @@ public final class ResponseCollectorService implements ClusterStateListener {
      */
     public static final double ALPHA = 0.3;
 
+    /**
+     * The maximum number of hedged shard requests that the budget can save up, which bounds the bursts of hedged requests.
+     */
+    static final int MAX_HEDGE_BUDGET = 10;
+
+    // the budget is counted in thousandths of a hedged request
+    private static final long HEDGE_COST = 1000;
+
     private final ConcurrentMap<String, NodeStatistics> nodeIdToStats = ConcurrentCollections.newConcurrentMap();
+    private final ResponseTimeHistogram shardResponseTimes = new ResponseTimeHistogram();
+    private final AtomicLong hedgeBudget = new AtomicLong();
+    private final CounterMetric hedgedRequests = new CounterMetric();
+    private final CounterMetric hedgedRequestsWon = new CounterMetric();
+    private final CounterMetric hedgedRequestsOverBudget = new CounterMetric();
 
     public ResponseCollectorService(ClusterService clusterService) {
         clusterService.addListener(this);
@@ -71,6 +86,55 @@ public final class ResponseCollectorService implements ClusterStateListener {
         });
     }
 
+    /**
+     * Records the response time of a shard request, from which the percentiles that hedged requests wait for are computed. Only shard
+     * requests that are sent on their own, and that could therefore be hedged, are recorded.
+     */
+    public void addShardResponseTime(long responseTimeNanos) {
+        shardResponseTimes.record(responseTimeNanos);
+    }
+
+    /**
+     * Returns the given percentile of the recent response times of shard requests in nanoseconds, or {@code -1} if too few shard
+     * requests were sent recently.
+     */
+    public long getShardResponseTimePercentile(double percentile) {
+        return shardResponseTimes.percentile(percentile);
+    }
+
+    /**
+     * Adds the share of a hedged request that a shard request earns to the budget of hedged requests.
+     *
+     * @param budget the ratio of hedged requests to shard requests that must not be exceeded
+     */
+    public void onShardRequest(double budget) {
+        final long earned = (long) (budget * HEDGE_COST);
+        hedgeBudget.accumulateAndGet(earned, (current, e) -> Math.min(MAX_HEDGE_BUDGET * HEDGE_COST, current + e));
+    }
+
+    /**
+     * Takes a hedged request out of the budget of hedged requests, and returns whether the budget allowed it.
+     */
+    public boolean tryHedgeRequest() {
+        long current = hedgeBudget.get();
+        while (current >= HEDGE_COST) {
+            if (hedgeBudget.compareAndSet(current, current - HEDGE_COST)) {
+                hedgedRequests.inc();
+                return true;
+            }
+            current = hedgeBudget.get();
+        }
+        hedgedRequestsOverBudget.inc();
+        return false;
+    }
+
+    /**
+     * Called when a hedged request returned before the request that it duplicates.
+     */
+    public void onHedgedRequestWon() {
+        hedgedRequestsWon.inc();
+    }
+
     public Map<String, ComputedNodeStats> getAllNodeStatistics() {
         final int clientNum = nodeIdToStats.size();
         // Transform the mutable object internally used for accounting into the computed version
@@ -80,7 +144,13 @@ public final class ResponseCollectorService implements ClusterStateListener {
     }
 
     public AdaptiveSelectionStats getAdaptiveStats(Map<String, Long> clientSearchConnections) {
-        return new AdaptiveSelectionStats(clientSearchConnections, getAllNodeStatistics());
+        return new AdaptiveSelectionStats(
+            clientSearchConnections,
+            getAllNodeStatistics(),
+            hedgedRequests.count(),
+            hedgedRequestsWon.count(),
+            hedgedRequestsOverBudget.count()
+        );
     }
 
     /**
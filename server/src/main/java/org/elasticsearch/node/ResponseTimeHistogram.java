@@ -0,0 +1,100 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.node;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of the recent response times of shard requests, with buckets that grow exponentially so that every bucket is at most 25%
+ * wider than the smallest value it holds. The counts of all buckets are halved every {@link #DECAY_INTERVAL} recorded values so that the
+ * percentiles follow the current latency of the cluster rather than its whole history. Recording and reading are lock free, and
+ * concurrent updates may make the percentiles slightly off, which is fine for deciding when to hedge a request.
+ */
+final class ResponseTimeHistogram {
+
+    /**
+     * The number of recorded values after which the counts of the buckets are halved.
+     */
+    static final int DECAY_INTERVAL = 1024;
+
+    /**
+     * The minimum number of values that the histogram must hold before it computes percentiles.
+     */
+    static final int MIN_VALUES = 100;
+
+    // every power of two is split into 4 buckets
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // the last bucket holds the values up to Long.MAX_VALUE
+    private static final int NUM_BUCKETS = 62 * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private final AtomicLong recorded = new AtomicLong();
+
+    /**
+     * Records the given response time.
+     */
+    void record(long responseTimeNanos) {
+        buckets.incrementAndGet(bucket(TimeUnit.NANOSECONDS.toMicros(Math.max(0L, responseTimeNanos))));
+        if (recorded.incrementAndGet() % DECAY_INTERVAL == 0) {
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                buckets.getAndUpdate(i, count -> count >>> 1);
+            }
+        }
+    }
+
+    /**
+     * Returns the given percentile of the recent response times in nanoseconds, rounded up to the upper bound of its bucket, or
+     * {@code -1} if the histogram holds too few values.
+     */
+    long percentile(double percentile) {
+        assert percentile >= 0 && percentile <= 100 : percentile;
+        final long[] counts = new long[NUM_BUCKETS];
+        long total = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total < MIN_VALUES) {
+            return -1;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long count = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            count += counts[i];
+            if (count >= rank) {
+                return TimeUnit.MICROSECONDS.toNanos(upperBound(i));
+            }
+        }
+        return TimeUnit.MICROSECONDS.toNanos(upperBound(NUM_BUCKETS - 1));
+    }
+
+    static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        final int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return Math.min(NUM_BUCKETS - 1, (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket);
+    }
+
+    /**
+     * The largest value, in microseconds, of the given bucket.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final int subBucket = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
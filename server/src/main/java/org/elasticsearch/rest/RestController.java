@@ -333,7 +333,7 @@ public class RestController implements HttpServerTransport.Dispatcher {
     private void dispatchRequest(RestRequest request, RestChannel channel, RestHandler handler, ThreadContext threadContext)
         throws Exception {
         final int contentLength = request.contentLength();
-        if (contentLength > 0) {
+        if (contentLength > 0 || request.hasContentStream()) {
             final XContentType xContentType = request.getXContentType();
             if (xContentType == null) {
                 sendContentTypeErrorMessage(request.getAllHeaderValues("Content-Type"), channel);
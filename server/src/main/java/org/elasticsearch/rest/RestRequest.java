@@ -22,6 +22,7 @@ import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.RestApiVersion;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.Tuple;
+import org.elasticsearch.http.HttpBodyStream;
 import org.elasticsearch.http.HttpChannel;
 import org.elasticsearch.http.HttpRequest;
 import org.elasticsearch.xcontent.ParsedMediaType;
@@ -109,7 +110,11 @@ public class RestRequest implements ToXContent.Params {
         }
         this.httpRequest = httpRequest;
         try {
-            this.restApiVersion = RestCompatibleVersionHelper.getCompatibleVersion(parsedAccept, parsedContentType, hasContent());
+            this.restApiVersion = RestCompatibleVersionHelper.getCompatibleVersion(
+                parsedAccept,
+                parsedContentType,
+                hasContent() || hasContentStream()
+            );
         } catch (ElasticsearchStatusException e) {
             throw new MediaTypeHeaderException(e, "Accept", "Content-Type");
         }
@@ -295,6 +300,23 @@ public class RestRequest implements ToXContent.Params {
         return content();
     }
 
+    /**
+     * Returns whether the body of this request is read from the channel as it is consumed, see {@link #contentStream()}.
+     */
+    public boolean hasContentStream() {
+        return httpRequest.bodyStream() != null;
+    }
+
+    /**
+     * Returns the body of this request if it is read from the channel chunk by chunk as it is consumed rather than before the request
+     * was dispatched, in which case {@link #content()} is empty. Returns {@code null} otherwise.
+     */
+    @Nullable
+    public HttpBodyStream contentStream() {
+        this.contentConsumed = true;
+        return httpRequest.bodyStream();
+    }
+
     /**
      * Get the value of the header or {@code null} if not found. This method only retrieves the first header value if multiple values are
      * sent. Use of {@link #getAllHeaderValues(String)} should be preferred
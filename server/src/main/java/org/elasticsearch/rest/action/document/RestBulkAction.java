@@ -16,13 +16,17 @@ import org.elasticsearch.client.internal.Requests;
 import org.elasticsearch.client.internal.node.NodeClient;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.core.RestApiVersion;
+import org.elasticsearch.http.HttpBodyStream;
+import org.elasticsearch.http.HttpTransportSettings;
 import org.elasticsearch.rest.BaseRestHandler;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.action.RestStatusToXContentListener;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.elasticsearch.rest.RestRequest.Method.POST;
 import static org.elasticsearch.rest.RestRequest.Method.PUT;
@@ -40,9 +44,15 @@ public class RestBulkAction extends BaseRestHandler {
     public static final String TYPES_DEPRECATION_MESSAGE = "[types removal]" + " Specifying types in bulk requests is deprecated.";
 
     private final boolean allowExplicitIndex;
+    private final long streamingBatchSizeInBytes;
+    private final int streamingMaxInFlightBatches;
+    private final long maxContentLengthInBytes;
 
     public RestBulkAction(Settings settings) {
         this.allowExplicitIndex = MULTI_ALLOW_EXPLICIT_INDEX.get(settings);
+        this.streamingBatchSizeInBytes = HttpTransportSettings.SETTING_HTTP_BULK_STREAMING_BATCH_SIZE.get(settings).getBytes();
+        this.streamingMaxInFlightBatches = HttpTransportSettings.SETTING_HTTP_BULK_STREAMING_MAX_IN_FLIGHT_BATCHES.get(settings);
+        this.maxContentLengthInBytes = HttpTransportSettings.SETTING_HTTP_MAX_CONTENT_LENGTH.get(settings).getBytes();
     }
 
     @Override
@@ -79,6 +89,41 @@ public class RestBulkAction extends BaseRestHandler {
         Boolean defaultRequireAlias = request.paramAsBoolean(DocWriteRequest.REQUIRE_ALIAS, null);
         bulkRequest.timeout(request.paramAsTime("timeout", BulkShardRequest.DEFAULT_TIMEOUT));
         bulkRequest.setRefreshPolicy(request.param("refresh"));
+        if (request.hasContentStream()) {
+            final XContentType xContentType = request.getXContentType();
+            final RestApiVersion restApiVersion = request.getRestApiVersion();
+            final HttpBodyStream stream = request.contentStream();
+            final StreamingBulkRequestHandler.BatchParser parser = (batch, data, lastData) -> batch.incrementalAdd(
+                data,
+                defaultIndex,
+                defaultRouting,
+                defaultFetchSourceContext,
+                defaultPipeline,
+                defaultRequireAlias,
+                allowExplicitIndex,
+                xContentType,
+                restApiVersion,
+                lastData
+            );
+            final Supplier<BulkRequest> batchSupplier = () -> {
+                final BulkRequest batch = Requests.bulkRequest();
+                batch.waitForActiveShards(bulkRequest.waitForActiveShards());
+                batch.timeout(bulkRequest.timeout());
+                batch.setRefreshPolicy(bulkRequest.getRefreshPolicy());
+                return batch;
+            };
+            return channel -> new StreamingBulkRequestHandler(
+                client,
+                stream,
+                batchSupplier,
+                parser,
+                defaultIndex,
+                streamingBatchSizeInBytes,
+                streamingMaxInFlightBatches,
+                maxContentLengthInBytes,
+                new RestStatusToXContentListener<>(channel)
+            ).start();
+        }
         bulkRequest.add(
             request.requiredContent(),
             defaultIndex,
@@ -0,0 +1,333 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.rest.action.document;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.internal.node.NodeClient;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.http.HttpBodyStream;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Executes a bulk request whose body is streamed from the channel. The items are parsed from each chunk as it arrives and collected into
+ * batches of about {@code batchSizeInBytes}, which are executed as separate bulk requests while the rest of the body is still being
+ * read. The next chunk is only requested while fewer than {@code maxInFlightBatches} batches are executing, which bounds the memory held
+ * by a single request no matter the size of its body. Chunks are not copied, the parsed items hold on to slices of them, and each batch
+ * keeps the chunks it was parsed from until it completed.
+ * <p>
+ * Once the whole body was executed the responses of all batches are combined into a single response whose items are numbered in the
+ * order of the request, the same response as if the request had been executed at once. If a batch fails, or the body can't be parsed,
+ * no further batches are started. If no batch was started yet the request fails as a whole, like a request that isn't streamed.
+ * Otherwise the response holds the results of the batches that were executed, a failed item for each item that was parsed but not
+ * executed, and a last failed item with the cause of the failure if the rest of the body was not parsed.
+ */
+final class StreamingBulkRequestHandler implements HttpBodyStream.ChunkHandler {
+
+    /**
+     * Parses the complete items at the start of the given data into the given batch, and returns the number of bytes consumed.
+     */
+    @FunctionalInterface
+    interface BatchParser {
+        int parse(BulkRequest batch, BytesReference data, boolean lastData) throws IOException;
+    }
+
+    private final NodeClient client;
+    private final HttpBodyStream stream;
+    private final Supplier<BulkRequest> batchSupplier;
+    private final BatchParser parser;
+    private final String defaultIndex;
+    private final long batchSizeInBytes;
+    private final int maxInFlightBatches;
+    private final long maxUnparsedBytes;
+    private final ActionListener<BulkResponse> listener;
+    private final Supplier<ThreadContext.StoredContext> restorableContext;
+    private final long startNanos;
+
+    // all mutable state is guarded by this
+    private final List<BulkItemResponse[]> batchResponses = new ArrayList<>();
+    private ReleasableBytesReference unparsed = ReleasableBytesReference.empty();
+    private BulkRequest batch;
+    // the chunks the items of the current batch hold on to
+    private final List<Releasable> batchChunks = new ArrayList<>();
+    private long ingestTookInMillis = BulkResponse.NO_INGEST_TOOK;
+    private int inFlightBatches;
+    private boolean requested;
+    private boolean lastReceived;
+    private boolean bodyParsed;
+    private boolean completed;
+    private Exception failure;
+
+    StreamingBulkRequestHandler(
+        NodeClient client,
+        HttpBodyStream stream,
+        Supplier<BulkRequest> batchSupplier,
+        BatchParser parser,
+        @Nullable String defaultIndex,
+        long batchSizeInBytes,
+        int maxInFlightBatches,
+        long maxUnparsedBytes,
+        ActionListener<BulkResponse> listener
+    ) {
+        this.client = client;
+        this.stream = stream;
+        this.batchSupplier = batchSupplier;
+        this.parser = parser;
+        this.defaultIndex = defaultIndex;
+        this.batchSizeInBytes = batchSizeInBytes;
+        this.maxInFlightBatches = maxInFlightBatches;
+        this.maxUnparsedBytes = maxUnparsedBytes;
+        this.listener = listener;
+        // chunks are delivered on the network threads, the batches must be executed in the context of the request
+        this.restorableContext = client.threadPool().getThreadContext().newRestorableContext(false);
+        this.startNanos = System.nanoTime();
+        this.batch = batchSupplier.get();
+    }
+
+    /**
+     * Starts reading the body.
+     */
+    void start() {
+        synchronized (this) {
+            requested = true;
+        }
+        stream.setHandler(this);
+        stream.next();
+    }
+
+    @Override
+    public void onNext(ReleasableBytesReference chunk, boolean isLast) {
+        final List<Batch> toExecute = new ArrayList<>(1);
+        try (chunk) {
+            synchronized (this) {
+                requested = false;
+                lastReceived = isLast;
+                if (failure == null) {
+                    try {
+                        parseChunk(chunk, isLast, toExecute);
+                    } catch (Exception e) {
+                        failure = e;
+                    }
+                }
+            }
+        }
+        for (Batch toRun : toExecute) {
+            execute(toRun);
+        }
+        maybeRequestNextOrComplete();
+    }
+
+    @Override
+    public void onClose() {
+        synchronized (this) {
+            requested = false;
+            lastReceived = true;
+            if (failure == null) {
+                failure = new ClosedChannelException();
+            }
+        }
+        maybeRequestNextOrComplete();
+    }
+
+    private void parseChunk(ReleasableBytesReference chunk, boolean isLast, List<Batch> toExecute) throws IOException {
+        assert Thread.holdsLock(this);
+        final ReleasableBytesReference data;
+        if (unparsed.length() == 0) {
+            unparsed.close();
+            data = chunk.retain();
+        } else {
+            data = new ReleasableBytesReference(CompositeBytesReference.of(unparsed, chunk), Releasables.wrap(unparsed, chunk.retain()));
+        }
+        unparsed = ReleasableBytesReference.empty();
+        try (data) {
+            // the parsed items hold on to slices of the data, so the batch keeps it until it completed
+            batchChunks.add(data.retain());
+            final int consumed = parser.parse(batch, data, isLast);
+            final int remaining = data.length() - consumed;
+            if (remaining > maxUnparsedBytes) {
+                throw new IllegalArgumentException(
+                    "bulk item of at least ["
+                        + remaining
+                        + "] bytes is larger than the max content length of ["
+                        + maxUnparsedBytes
+                        + "] bytes"
+                );
+            }
+            if (remaining > 0) {
+                unparsed = data.retainedSlice(consumed, remaining);
+            }
+        }
+        bodyParsed = isLast;
+        // the last batch is always executed if no batch was executed yet, so that an empty body fails the same way it usually does
+        if (batch.estimatedSizeInBytes() >= batchSizeInBytes || (isLast && (batch.numberOfActions() > 0 || batchResponses.isEmpty()))) {
+            toExecute.add(new Batch(batch, Releasables.wrap(batchChunks.toArray(new Releasable[0]))));
+            batch = batchSupplier.get();
+            batchChunks.clear();
+        }
+    }
+
+    private void execute(Batch toRun) {
+        final int slot;
+        synchronized (this) {
+            slot = batchResponses.size();
+            batchResponses.add(null);
+            inFlightBatches++;
+        }
+        try (ThreadContext.StoredContext ignore = restorableContext.get()) {
+            client.bulk(toRun.request, ActionListener.runBefore(new ActionListener<BulkResponse>() {
+                @Override
+                public void onResponse(BulkResponse response) {
+                    synchronized (StreamingBulkRequestHandler.this) {
+                        inFlightBatches--;
+                        batchResponses.set(slot, response.getItems());
+                        if (response.getIngestTookInMillis() != BulkResponse.NO_INGEST_TOOK) {
+                            ingestTookInMillis = Math.max(ingestTookInMillis, 0L) + response.getIngestTookInMillis();
+                        }
+                    }
+                    maybeRequestNextOrComplete();
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    synchronized (StreamingBulkRequestHandler.this) {
+                        inFlightBatches--;
+                        batchResponses.set(slot, failedItems(toRun.request, e));
+                        if (failure == null) {
+                            failure = e;
+                        } else {
+                            failure.addSuppressed(e);
+                        }
+                    }
+                    maybeRequestNextOrComplete();
+                }
+            }, toRun.chunks::close));
+        }
+    }
+
+    private void maybeRequestNextOrComplete() {
+        final boolean requestNext;
+        final BulkResponse response;
+        final Exception e;
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            if (failure == null && lastReceived == false) {
+                requestNext = requested == false && inFlightBatches < maxInFlightBatches;
+                requested |= requestNext;
+                response = null;
+                e = null;
+            } else if (inFlightBatches == 0 && requested == false) {
+                // all chunks that were requested arrived, so they are all released too
+                completed = true;
+                requestNext = false;
+                if (failure != null && batchResponses.isEmpty()) {
+                    // nothing was executed, fail the request as a whole
+                    e = failure;
+                    response = null;
+                } else {
+                    e = null;
+                    response = buildResponse();
+                }
+                releaseUnexecuted();
+            } else {
+                return;
+            }
+        }
+        if (requestNext) {
+            stream.next();
+        } else if (e != null) {
+            listener.onFailure(e);
+        } else if (response != null) {
+            listener.onResponse(response);
+        }
+    }
+
+    private void releaseUnexecuted() {
+        assert Thread.holdsLock(this);
+        Releasables.close(batchChunks);
+        batchChunks.clear();
+        unparsed.close();
+        unparsed = ReleasableBytesReference.empty();
+    }
+
+    private BulkItemResponse[] failedItems(BulkRequest request, Exception e) {
+        final List<DocWriteRequest<?>> requests = request.requests();
+        final BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+        for (int i = 0; i < items.length; i++) {
+            final DocWriteRequest<?> item = requests.get(i);
+            items[i] = BulkItemResponse.failure(i, item.opType(), new BulkItemResponse.Failure(item.index(), item.id(), e));
+        }
+        return items;
+    }
+
+    private BulkResponse buildResponse() {
+        assert Thread.holdsLock(this);
+        final List<BulkItemResponse[]> allItems = new ArrayList<>(batchResponses);
+        if (failure != null) {
+            // the items that were parsed but not executed, and the rest of the body if it was not parsed
+            allItems.add(failedItems(batch, failure));
+            if (bodyParsed == false) {
+                allItems.add(
+                    new BulkItemResponse[] {
+                        BulkItemResponse.failure(
+                            0,
+                            DocWriteRequest.OpType.INDEX,
+                            new BulkItemResponse.Failure(defaultIndex == null ? "" : defaultIndex, null, failure)
+                        ) }
+                );
+            }
+        }
+        int numItems = 0;
+        for (BulkItemResponse[] items : allItems) {
+            numItems += items.length;
+        }
+        final BulkItemResponse[] responses = new BulkItemResponse[numItems];
+        int offset = 0;
+        for (BulkItemResponse[] items : allItems) {
+            for (BulkItemResponse item : items) {
+                final int id = offset + item.getItemId();
+                responses[id] = item.isFailed()
+                    ? BulkItemResponse.failure(id, item.getOpType(), item.getFailure())
+                    : BulkItemResponse.success(id, item.getOpType(), item.getResponse());
+            }
+            offset += items.length;
+        }
+        final long tookInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        return new BulkResponse(responses, tookInMillis, ingestTookInMillis);
+    }
+
+    /**
+     * A batch to execute, and the chunks its items hold on to.
+     */
+    private static final class Batch {
+        final BulkRequest request;
+        final Releasable chunks;
+
+        Batch(BulkRequest request, Releasable chunks) {
+            this.request = request;
+            this.chunks = chunks;
+        }
+    }
+}
@@ -14,12 +14,16 @@ import org.apache.logging.log4j.Logger;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ElasticsearchTimeoutException;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionRunnable;
+import org.elasticsearch.action.search.BottomSortValuesCollector;
 import org.elasticsearch.action.search.CanMatchNodeRequest;
 import org.elasticsearch.action.search.CanMatchNodeResponse;
+import org.elasticsearch.action.search.QueryNodeRequest;
+import org.elasticsearch.action.search.QueryNodeResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchShardTask;
 import org.elasticsearch.action.search.SearchType;
@@ -39,7 +43,10 @@ import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.CollectionUtils;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.TimeValue;
@@ -77,6 +84,7 @@ import org.elasticsearch.search.aggregations.SearchContextAggregations;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.AggregationContext.ProductionAggregationContext;
+import org.elasticsearch.search.aggregations.support.AggregationCursors;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.collapse.CollapseContext;
 import org.elasticsearch.search.dfs.DfsPhase;
@@ -102,6 +110,7 @@ import org.elasticsearch.search.lookup.SearchLookup;
 import org.elasticsearch.search.profile.Profilers;
 import org.elasticsearch.search.query.QueryPhase;
 import org.elasticsearch.search.query.QuerySearchRequest;
+import org.elasticsearch.search.query.QueryNodeResultsReducer;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.search.query.ScrollQuerySearchResult;
 import org.elasticsearch.search.rescore.RescorerBuilder;
@@ -134,6 +143,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
@@ -211,6 +222,16 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         Property.NodeScope
     );
 
+    /**
+     * Whether the aggregations of the requests that use a point in time keep state between the requests, see {@link AggregationCursors}.
+     */
+    public static final Setting<Boolean> ENABLE_AGGS_CURSORS = Setting.boolSetting(
+        "search.aggs.enable_cursors",
+        false,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     public static final Setting<ByteSizeValue> MAX_ASYNC_SEARCH_RESPONSE_SIZE_SETTING = Setting.byteSizeSetting(
         "search.max_async_search_response_size",
         new ByteSizeValue(10, ByteSizeUnit.MB),
@@ -255,6 +276,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private volatile boolean enableRewriteAggsToFilterByFilter;
 
+    private volatile boolean enableAggsCursors;
+
     private final Cancellable keepAliveReaper;
 
     private final AtomicLong idGenerator = new AtomicLong();
@@ -317,6 +340,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         enableRewriteAggsToFilterByFilter = ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER.get(settings);
         clusterService.getClusterSettings()
             .addSettingsUpdateConsumer(ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER, this::setEnableRewriteAggsToFilterByFilter);
+
+        enableAggsCursors = ENABLE_AGGS_CURSORS.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(ENABLE_AGGS_CURSORS, this::setEnableAggsCursors);
     }
 
     private void validateKeepAlives(TimeValue defaultKeepAlive, TimeValue maxKeepAlive) {
@@ -367,6 +393,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.enableRewriteAggsToFilterByFilter = enableRewriteAggsToFilterByFilter;
     }
 
+    private void setEnableAggsCursors(boolean enableAggsCursors) {
+        this.enableAggsCursors = enableAggsCursors;
+    }
+
     @Override
     public void afterIndexRemoved(Index index, IndexSettings indexSettings, IndexRemovalReason reason) {
         // once an index is removed due to deletion or closing, we can just clean up all the pending search context information
@@ -458,7 +488,177 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         }
     }
 
+    /**
+     * Executes the query phase of all the shards of the given request and reduces their results with
+     * {@link QueryNodeResultsReducer} once all shards replied. The bottom sort values of the shards that completed their query phase
+     * are sent to the shards that didn't start yet, like the coordinating node does for the shard requests it sends after the first
+     * results came back.
+     */
+    public void executeQueryPhase(QueryNodeRequest request, SearchShardTask task, ActionListener<QueryNodeResponse> listener) {
+        final List<ShardSearchRequest> shardSearchRequests = request.getShardSearchRequests();
+        final NodeQueryPhase nodeQueryPhase = new NodeQueryPhase(shardSearchRequests, task, listener);
+        final int concurrentShards = Math.min(request.getMaxConcurrentShardRequests(), shardSearchRequests.size());
+        for (int i = 0; i < concurrentShards; i++) {
+            nodeQueryPhase.executeNextShard(null);
+        }
+    }
+
+    /**
+     * The query phase of the shards of a {@link QueryNodeRequest}. The query phase of the next shard starts whenever a shard completed,
+     * so that at most {@link QueryNodeRequest#getMaxConcurrentShardRequests()} shards of the request are searched concurrently.
+     */
+    private final class NodeQueryPhase {
+        private final List<ShardSearchRequest> shardSearchRequests;
+        private final SearchShardTask task;
+        private final ActionListener<QueryNodeResponse> listener;
+        private final AtomicReferenceArray<QueryNodeResponse.ResponseOrFailure> responses;
+        private final CountDown counter;
+        private final AtomicInteger nextShard = new AtomicInteger();
+        private final int topDocsSize;
+        private final int trackTotalHitsUpTo;
+        private final AtomicReference<BottomSortValuesCollector> bottomSortCollector = new AtomicReference<>();
+
+        NodeQueryPhase(List<ShardSearchRequest> shardSearchRequests, SearchShardTask task, ActionListener<QueryNodeResponse> listener) {
+            this.shardSearchRequests = shardSearchRequests;
+            this.task = task;
+            this.listener = listener;
+            this.responses = new AtomicReferenceArray<>(shardSearchRequests.size());
+            this.counter = new CountDown(shardSearchRequests.size());
+            final SearchSourceBuilder source = shardSearchRequests.get(0).source();
+            this.topDocsSize = source == null
+                ? DEFAULT_SIZE
+                : (source.size() == -1 ? DEFAULT_SIZE : source.size()) + (source.from() == -1 ? DEFAULT_FROM : source.from());
+            this.trackTotalHitsUpTo = SearchRequest.resolveTrackTotalHitsUpTo(null, source);
+        }
+
+        /**
+         * Starts the query phase of the next shard, if any.
+         * @param startThread the thread that started the query phase of the shard that just completed, {@code null} for the first shards
+         */
+        void executeNextShard(@Nullable Thread startThread) {
+            final int index = nextShard.getAndIncrement();
+            if (index >= shardSearchRequests.size()) {
+                return;
+            }
+            if (startThread == Thread.currentThread()) {
+                // the previous shard completed without forking, fork so that shards that complete right away don't recurse
+                threadPool.executor(Names.SEARCH).execute(new AbstractRunnable() {
+                    @Override
+                    public void onFailure(Exception e) {
+                        onShardDone(index, new QueryNodeResponse.ResponseOrFailure(e), null);
+                    }
+
+                    @Override
+                    protected void doRun() {
+                        executeShard(index);
+                    }
+                });
+            } else {
+                executeShard(index);
+            }
+        }
+
+        private void executeShard(int index) {
+            final Thread thread = Thread.currentThread();
+            final ShardSearchRequest shardSearchRequest = shardSearchRequests.get(index);
+            try {
+                executeQueryPhase(shardSearchRequest, task, this::beforeQueryPhase, new ActionListener<>() {
+                    @Override
+                    public void onResponse(SearchPhaseResult result) {
+                        final QuerySearchResult queryResult = result.queryResult();
+                        queryResult.setShardIndex(shardSearchRequest.shardRequestIndex());
+                        if (queryResult.isNull() == false
+                            && queryResult.hasConsumedTopDocs() == false
+                            && queryResult.topDocs() != null
+                            && queryResult.topDocs().topDocs.getClass() == TopFieldDocs.class) {
+                            final TopFieldDocs topDocs = (TopFieldDocs) queryResult.topDocs().topDocs;
+                            bottomSortCollector.compareAndSet(null, new BottomSortValuesCollector(topDocsSize, topDocs.fields));
+                            bottomSortCollector.get().consumeTopDocs(topDocs, queryResult.sortValueFormats());
+                        }
+                        onShardDone(index, new QueryNodeResponse.ResponseOrFailure(queryResult), thread);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        onShardDone(index, new QueryNodeResponse.ResponseOrFailure(e), thread);
+                    }
+                });
+            } catch (Exception e) {
+                onShardDone(index, new QueryNodeResponse.ResponseOrFailure(e), thread);
+            }
+        }
+
+        private void beforeQueryPhase(ShardSearchRequest shardSearchRequest) {
+            final BottomSortValuesCollector collector = bottomSortCollector.get();
+            if (collector != null) {
+                collector.rewriteShardSearchRequest(shardSearchRequest, trackTotalHitsUpTo);
+            }
+        }
+
+        private void onShardDone(int index, QueryNodeResponse.ResponseOrFailure response, @Nullable Thread startThread) {
+            responses.set(index, response);
+            executeNextShard(startThread);
+            if (counter.countDown()) {
+                onNodeQueryPhaseDone(responses, task, listener);
+            }
+        }
+    }
+
+    private void onNodeQueryPhaseDone(
+        AtomicReferenceArray<QueryNodeResponse.ResponseOrFailure> responses,
+        SearchShardTask task,
+        ActionListener<QueryNodeResponse> listener
+    ) {
+        final List<QueryNodeResponse.ResponseOrFailure> responseList = new ArrayList<>(responses.length());
+        final List<QuerySearchResult> results = new ArrayList<>(responses.length());
+        for (int i = 0; i < responses.length(); i++) {
+            final QueryNodeResponse.ResponseOrFailure response = responses.get(i);
+            responseList.add(response);
+            if (response.getResult() != null) {
+                results.add(response.getResult());
+            }
+        }
+        try {
+            QueryNodeResultsReducer.reduce(
+                results,
+                new AggregationReduceContext.ForPartial(bigArrays, scriptService, task::isCancelled),
+                result -> freeSingleSessionReaderContext(result.getContextId())
+            );
+        } catch (Exception e) {
+            // the coordinating node can't free the contexts of the shards it doesn't get the results of
+            for (QuerySearchResult result : results) {
+                if (result.isNull() == false) {
+                    freeSingleSessionReaderContext(result.getContextId());
+                }
+            }
+            listener.onFailure(e);
+            return;
+        }
+        listener.onResponse(new QueryNodeResponse(responseList));
+    }
+
+    private void freeSingleSessionReaderContext(ShardSearchContextId contextId) {
+        final ReaderContext readerContext = activeReaders.get(contextId.getId());
+        // point in time readers outlive the search
+        if (readerContext != null && readerContext.singleSession()) {
+            freeReaderContext(contextId);
+        }
+    }
+
     public void executeQueryPhase(ShardSearchRequest request, SearchShardTask task, ActionListener<SearchPhaseResult> listener) {
+        executeQueryPhase(request, task, null, listener);
+    }
+
+    /**
+     * @param beforeQueryPhase called on the search thread right before the query phase of the shard starts, it may rewrite the request
+     *                         with the results of the shards that completed in the meantime
+     */
+    private void executeQueryPhase(
+        ShardSearchRequest request,
+        SearchShardTask task,
+        @Nullable Consumer<ShardSearchRequest> beforeQueryPhase,
+        ActionListener<SearchPhaseResult> listener
+    ) {
         assert request.canReturnNullResponseIfMatchNoDocs() == false || request.numberOfShards() > 1
             : "empty responses require more than one shard";
         final IndexShard shard = getShard(request);
@@ -479,7 +679,22 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                     return;
                 }
             }
-            ensureAfterSeqNoRefreshed(shard, orig, () -> executeQueryPhase(orig, task), l);
+            ensureAfterSeqNoRefreshed(shard, orig, () -> {
+                if (beforeQueryPhase != null) {
+                    final SearchSortValuesAndFormats bottomSortValues = orig.getBottomSortValues();
+                    beforeQueryPhase.accept(orig);
+                    // the shard may no longer be able to beat the bottom sort values of the shards that completed in the meantime. The
+                    // shard requests of a node request never return null responses on their own since the coordinating node needs at
+                    // least one result, but new bottom sort values come from a shard of the node that already returned its top docs.
+                    if (orig.scroll() == null
+                        && orig.getBottomSortValues() != null
+                        && orig.getBottomSortValues() != bottomSortValues
+                        && canMatch(new ShardSearchRequest(orig), false).canMatch() == false) {
+                        return QuerySearchResult.nullInstance();
+                    }
+                }
+                return executeQueryPhase(orig, task);
+            }, l);
         }));
     }
 
@@ -1149,6 +1364,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         context.from(source.from());
         context.size(source.size());
         Map<String, InnerHitContextBuilder> innerHitBuilders = new HashMap<>();
+        if (source.profile()) {
+            searchExecutionContext.recordQueryPlan();
+        }
         if (source.query() != null) {
             InnerHitContextBuilder.extractInnerHits(source.query(), innerHitBuilders);
             context.parsedQuery(searchExecutionContext.toQuery(source.query()));
@@ -1190,6 +1408,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         }
         if (source.profile()) {
             context.setProfilers(new Profilers(context.searcher()));
+            context.getProfilers().getCurrentQueryProfiler().setQueryPlan(searchExecutionContext.getQueryPlanDecisions());
         }
         if (source.timeout() != null) {
             context.timeout(source.timeout());
@@ -1215,7 +1434,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 context::getRelativeTimeInMillis,
                 context::isCancelled,
                 context::buildFilteredQuery,
-                enableRewriteAggsToFilterByFilter
+                enableRewriteAggsToFilterByFilter,
+                enableAggsCursors && context.readerContext().singleSession() == false
+                    ? context.readerContext().aggregationCursors()
+                    : null
             );
             context.addReleasable(aggContext);
             try {
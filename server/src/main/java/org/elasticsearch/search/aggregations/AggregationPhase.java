@@ -43,6 +43,21 @@ public class AggregationPhase {
         context.queryCollectors().put(AggregationPhase.class, collector);
     }
 
+    /**
+     * Creates the aggregation collector of an additional slice of a concurrent search. The slice gets its own top level aggregators, so
+     * that it can be collected concurrently with the other slices, and {@link #execute} reduces their results with the results of the
+     * aggregators created by {@link #preProcess}.
+     */
+    public static Collector createSliceCollector(SearchContext context) throws IOException {
+        Aggregator[] aggregators = context.aggregations().factories().createTopLevelAggregators();
+        context.aggregations().addSliceAggregators(aggregators);
+        BucketCollector bucketCollector = MultiBucketCollector.wrap(true, List.of(aggregators));
+        bucketCollector.preCollection();
+        return context.getProfilers() == null
+            ? bucketCollector
+            : new InternalProfileCollector(bucketCollector, CollectorResult.REASON_AGGREGATION, List.of());
+    }
+
     public void execute(SearchContext context) {
         if (context.aggregations() == null) {
             context.queryResult().aggregations(null);
@@ -54,14 +69,38 @@ public class AggregationPhase {
             return;
         }
 
-        Aggregator[] aggregators = context.aggregations().aggregators();
+        InternalAggregations aggregations = buildTopLevel(context, context.aggregations().aggregators());
+        if (context.aggregations().sliceAggregators().isEmpty() == false) {
+            List<InternalAggregations> slices = new ArrayList<>(context.aggregations().sliceAggregators().size() + 1);
+            slices.add(aggregations);
+            for (Aggregator[] sliceAggregators : context.aggregations().sliceAggregators()) {
+                slices.add(buildTopLevel(context, sliceAggregators));
+            }
+            // a partial reduction, like the one of the coordinating node, leaves pipeline aggregations to the final reduction
+            AggregationReduceContext reduceContext = new AggregationReduceContext.ForPartial(
+                context.aggregations().factories().context().bigArrays(),
+                null,
+                context::isCancelled
+            );
+            aggregations = InternalAggregations.topLevelReduce(slices, reduceContext);
+        }
+        context.queryResult().aggregations(aggregations);
 
+        // disable aggregations so that they don't run on next pages in case of scrolling
+        context.aggregations(null);
+        context.queryCollectors().remove(AggregationPhase.class);
+    }
+
+    /**
+     * Builds the results of the given top level aggregators once they collected all their documents.
+     */
+    public static InternalAggregations buildTopLevel(SearchContext context, Aggregator[] aggregators) {
         List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
         if (context.aggregations().factories().context() != null) {
             // Rollup can end up here with a null context but not null factories.....
             context.aggregations().factories().context().multiBucketConsumer().reset();
         }
-        for (Aggregator aggregator : context.aggregations().aggregators()) {
+        for (Aggregator aggregator : aggregators) {
             try {
                 aggregator.postCollection();
                 aggregations.add(aggregator.buildTopLevel());
@@ -69,10 +108,6 @@ public class AggregationPhase {
                 throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
             }
         }
-        context.queryResult().aggregations(InternalAggregations.from(aggregations));
-
-        // disable aggregations so that they don't run on next pages in case of scrolling
-        context.aggregations(null);
-        context.queryCollectors().remove(AggregationPhase.class);
+        return InternalAggregations.from(aggregations);
     }
 }
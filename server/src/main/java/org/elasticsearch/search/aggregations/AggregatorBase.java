@@ -46,6 +46,7 @@ public abstract class AggregatorBase extends Aggregator {
 
     private Map<String, Aggregator> subAggregatorbyName;
     private long requestBytesUsed;
+    private BlockLeafBucketCollector pendingBlockCollector;
 
     /**
      * Constructs a new Aggregator.
@@ -211,11 +212,39 @@ public abstract class AggregatorBase extends Aggregator {
      */
     @Override
     public final LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+        flushPendingBlock();
         preGetSubLeafCollectors(ctx);
         final LeafBucketCollector sub = collectableSubAggregators.getLeafCollector(ctx);
         return getLeafCollector(ctx, sub);
     }
 
+    /**
+     * Should this aggregator collect through a {@link BlockLeafBucketCollector}?
+     * That is only safe for top level aggregators that don't need scores.
+     */
+    protected final boolean canCollectInBlocks(boolean needsScores) {
+        return parent == null && needsScores == false;
+    }
+
+    /**
+     * Register a {@link BlockLeafBucketCollector} built for the current
+     * segment. Its last partial block is flushed before the next segment is
+     * collected and before {@link #doPostCollection()}.
+     */
+    protected final LeafBucketCollector registerBlockCollector(BlockLeafBucketCollector collector) throws IOException {
+        flushPendingBlock();
+        pendingBlockCollector = collector;
+        return collector;
+    }
+
+    private void flushPendingBlock() throws IOException {
+        if (pendingBlockCollector != null) {
+            BlockLeafBucketCollector collector = pendingBlockCollector;
+            pendingBlockCollector = null;
+            collector.flush();
+        }
+    }
+
     /**
      * Can be overridden by aggregator implementations that like the perform an operation before the leaf collectors
      * of children aggregators are instantiated for the next segment.
@@ -278,6 +307,7 @@ public abstract class AggregatorBase extends Aggregator {
     @Override
     public void postCollection() throws IOException {
         // post-collect this agg before subs to make it possible to buffer and then replay in postCollection()
+        flushPendingBlock();
         doPostCollection();
         collectableSubAggregators.postCollection();
     }
@@ -0,0 +1,106 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.index.fielddata.FieldData;
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+
+import java.io.IOException;
+
+/**
+ * A {@link LeafBucketCollector} for top level aggregators over numeric values
+ * that buffers collected documents and decodes their values in blocks of up to
+ * {@link #BLOCK_SIZE} documents. Aggregators can then fold a whole block into
+ * their state in a tight loop rather than paying for a couple of virtual calls
+ * and big array lookups per document.
+ * <p>
+ * Only top level aggregators may use this because every document has to be
+ * collected into the owning bucket {@code 0}. It is also not safe to use if
+ * the values need scores since the scorer will have moved on by the time the
+ * block is decoded. Register instances with
+ * {@link AggregatorBase#registerBlockCollector} so that the last partial block
+ * of each segment is flushed.
+ */
+public abstract class BlockLeafBucketCollector extends LeafBucketCollector {
+    /**
+     * Number of documents buffered before a block is decoded.
+     */
+    public static final int BLOCK_SIZE = 512;
+
+    private final SortedNumericDoubleValues values;
+    private final NumericDoubleValues singleton;
+    private final int[] docs = new int[BLOCK_SIZE];
+    private final int[] docValueCounts = new int[BLOCK_SIZE];
+    private double[] buffer = new double[BLOCK_SIZE];
+    private int docCount;
+
+    protected BlockLeafBucketCollector(SortedNumericDoubleValues values) {
+        this.values = values;
+        this.singleton = FieldData.unwrapSingleton(values);
+    }
+
+    @Override
+    public final void collect(int doc, long owningBucketOrd) throws IOException {
+        assert owningBucketOrd == 0 : "block collection is only supported for top level aggregators";
+        docs[docCount++] = doc;
+        if (docCount == BLOCK_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Decode the values of all buffered documents and hand them to
+     * {@link #collectBlock}.
+     */
+    public final void flush() throws IOException {
+        if (docCount == 0) {
+            return;
+        }
+        final int count = docCount;
+        docCount = 0;
+        int valueCount = 0;
+        if (singleton != null) {
+            for (int i = 0; i < count; i++) {
+                if (singleton.advanceExact(docs[i])) {
+                    buffer[valueCount++] = singleton.doubleValue();
+                    docValueCounts[i] = 1;
+                } else {
+                    docValueCounts[i] = 0;
+                }
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                if (values.advanceExact(docs[i])) {
+                    final int docValueCount = values.docValueCount();
+                    buffer = ArrayUtil.grow(buffer, valueCount + docValueCount);
+                    for (int v = 0; v < docValueCount; v++) {
+                        buffer[valueCount++] = values.nextValue();
+                    }
+                    docValueCounts[i] = docValueCount;
+                } else {
+                    docValueCounts[i] = 0;
+                }
+            }
+        }
+        collectBlock(docs, docValueCounts, count, buffer, valueCount);
+    }
+
+    /**
+     * Collect a block of documents into the owning bucket {@code 0}.
+     * @param docs the ids of the documents in the block, in increasing order
+     * @param docValueCounts the number of values of each document in the block
+     * @param docCount the number of documents in the block
+     * @param values the values of all documents in the block, laid out document after document
+     * @param valueCount the total number of values in the block
+     */
+    protected abstract void collectBlock(int[] docs, int[] docValueCounts, int docCount, double[] values, int valueCount)
+        throws IOException;
+}
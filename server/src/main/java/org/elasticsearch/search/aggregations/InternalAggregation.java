@@ -15,6 +15,7 @@ import org.elasticsearch.rest.action.search.RestSearchAction;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.search.aggregations.support.AggregationPath;
+import org.elasticsearch.search.aggregations.support.SamplingContext;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
@@ -110,6 +111,28 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
         return reducedAggs;
     }
 
+    /**
+     * Rescales the result of an aggregation that only collected a random sample of the documents to an estimate of the result for all
+     * the documents. It is called once, after the final reduce of the aggregation and before its pipeline aggregations are reduced.
+     * <p>
+     * Aggregations whose results don't grow with the number of documents, like {@code avg}, {@code min} or {@code max}, return
+     * themselves. Aggregations that count or sum documents or values return a rescaled copy. The default implementation fails the
+     * request, so that aggregations that don't know how to rescale their results, like {@code cardinality}, never return the results
+     * of the sample as if they were estimates for all the documents.
+     */
+    public InternalAggregation finalizeSampling(SamplingContext samplingContext) {
+        throw unsupportedSamplingException();
+    }
+
+    /**
+     * The failure of {@link #finalizeSampling} for aggregations whose results can't be rescaled.
+     */
+    protected final IllegalArgumentException unsupportedSamplingException() {
+        return new IllegalArgumentException(
+            "aggregation [" + getName() + "] of type [" + getType() + "] doesn't support rescaling the results of a random sample"
+        );
+    }
+
     /**
      * Reduces the given aggregations to a single one and returns it. In <b>most</b> cases, the assumption will be the all given
      * aggregations are of the same type (the same type as this aggregation). For best efficiency, when implementing,
@@ -13,6 +13,7 @@ import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.pipeline.SiblingPipelineAggregator;
 import org.elasticsearch.search.aggregations.support.AggregationPath;
+import org.elasticsearch.search.aggregations.support.SamplingContext;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -76,6 +77,17 @@ public final class InternalAggregations extends Aggregations implements Writeabl
         return (List<InternalAggregation>) aggregations;
     }
 
+    /**
+     * Rescales the results of aggregations that only collected a random sample of the documents.
+     * @see InternalAggregation#finalizeSampling(SamplingContext)
+     */
+    public InternalAggregations finalizeSampling(SamplingContext samplingContext) {
+        if (samplingContext.isSampled() == false) {
+            return this;
+        }
+        return from(getInternalAggregations().stream().map(agg -> agg.finalizeSampling(samplingContext)).collect(Collectors.toList()));
+    }
+
     /**
      * Get value to use when sorting by a descendant of the aggregation containing this.
      */
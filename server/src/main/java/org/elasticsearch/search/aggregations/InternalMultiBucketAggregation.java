@@ -13,6 +13,7 @@ import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
 import org.elasticsearch.search.aggregations.bucket.SingleBucketAggregation;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
+import org.elasticsearch.search.aggregations.support.SamplingContext;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -59,6 +60,15 @@ public abstract class InternalMultiBucketAggregation<
      */
     public abstract B createBucket(InternalAggregations aggregations, B prototype);
 
+    /**
+     * Create a new {@link InternalBucket} using the provided prototype bucket with a rescaled doc count and aggregations. It is used to
+     * rescale the buckets in {@link #finalizeSampling}, the default implementation fails since the buckets of some aggregations can't be
+     * rescaled by their doc count alone.
+     */
+    protected B createRescaledBucket(long docCount, InternalAggregations aggregations, B prototype) {
+        throw unsupportedSamplingException();
+    }
+
     /**
      * Reduce a list of same-keyed buckets (from multiple shards) to a single bucket. This
      * requires all buckets to have the same key.
@@ -68,6 +78,24 @@ public abstract class InternalMultiBucketAggregation<
     @Override
     public abstract List<B> getBuckets();
 
+    /**
+     * Rescales the doc count and the sub-aggregations of every bucket.
+     */
+    @Override
+    public InternalAggregation finalizeSampling(SamplingContext samplingContext) {
+        List<B> buckets = new ArrayList<>(getBuckets().size());
+        for (B bucket : getBuckets()) {
+            buckets.add(
+                createRescaledBucket(
+                    samplingContext.scaleUp(bucket.getDocCount()),
+                    ((InternalAggregations) bucket.getAggregations()).finalizeSampling(samplingContext),
+                    bucket
+                )
+            );
+        }
+        return create(buckets);
+    }
+
     @Override
     public Object getProperty(List<String> path) {
         if (path.isEmpty()) {
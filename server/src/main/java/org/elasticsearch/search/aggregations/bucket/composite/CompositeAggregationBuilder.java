@@ -251,7 +251,19 @@ public class CompositeAggregationBuilder extends AbstractAggregationBuilder<Comp
         } else {
             afterKey = null;
         }
-        return new CompositeAggregationFactory(name, context, parent, subfactoriesBuilder, metadata, size, configs, afterKey);
+        // the aggregation without its after key identifies the pages of the same aggregation
+        CompositeAggregationBuilder request = new CompositeAggregationBuilder(this, subfactoriesBuilder, metadata).aggregateAfter(null);
+        return new CompositeAggregationFactory(
+            name,
+            context,
+            parent,
+            subfactoriesBuilder,
+            metadata,
+            size,
+            configs,
+            afterKey,
+            request
+        );
     }
 
     @Override
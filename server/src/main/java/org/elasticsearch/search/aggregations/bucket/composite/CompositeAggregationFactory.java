@@ -21,6 +21,7 @@ class CompositeAggregationFactory extends AggregatorFactory {
     private final int size;
     private final CompositeValuesSourceConfig[] sources;
     private final CompositeKey afterKey;
+    private final CompositeAggregationBuilder request;
 
     CompositeAggregationFactory(
         String name,
@@ -30,17 +31,19 @@ class CompositeAggregationFactory extends AggregatorFactory {
         Map<String, Object> metadata,
         int size,
         CompositeValuesSourceConfig[] sources,
-        CompositeKey afterKey
+        CompositeKey afterKey,
+        CompositeAggregationBuilder request
     ) throws IOException {
         super(name, context, parent, subFactoriesBuilder, metadata);
         this.size = size;
         this.sources = sources;
         this.afterKey = afterKey;
+        this.request = request;
     }
 
     @Override
     protected Aggregator createInternal(Aggregator parent, CardinalityUpperBound cardinality, Map<String, Object> metadata)
         throws IOException {
-        return new CompositeAggregator(name, factories, context, parent, metadata, size, sources, afterKey);
+        return new CompositeAggregator(name, factories, context, parent, metadata, size, sources, afterKey, request);
     }
 }
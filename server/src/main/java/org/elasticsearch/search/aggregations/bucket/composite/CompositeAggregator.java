@@ -33,10 +33,12 @@ import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.RoaringDocIdSet;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.Rounding;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.IndexSortConfig;
 import org.elasticsearch.lucene.queries.SearchAfterSortedDocQuery;
 import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregationExecutionException;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
@@ -50,6 +52,7 @@ import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
 import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
 import org.elasticsearch.search.aggregations.bucket.histogram.SizedBucketAggregator;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.aggregations.support.AggregationCursors;
 import org.elasticsearch.search.searchafter.SearchAfterBuilder;
 import org.elasticsearch.search.sort.SortAndFormats;
 
@@ -65,6 +68,16 @@ import java.util.stream.Collectors;
 import static org.elasticsearch.search.aggregations.MultiBucketConsumerService.MAX_BUCKET_SETTING;
 
 public final class CompositeAggregator extends BucketsAggregator implements SizedBucketAggregator {
+    /**
+     * The number of pages that the aggregation collects at once when it can keep the buckets of the next pages in a
+     * {@link CompositeCursor}.
+     */
+    static final int PREFETCH_PAGES = 8;
+    /**
+     * The maximum number of buckets that the aggregation collects at once for a {@link CompositeCursor}, unless a single page holds more.
+     */
+    static final int MAX_PREFETCH_BUCKETS = 10_000;
+
     private final int size;
     private final List<String> sourceNames;
     private final int[] reverseMuls;
@@ -84,6 +97,18 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
 
     private boolean earlyTerminated;
 
+    // the cursors of the point in time that the request uses, null if the aggregation can't keep buckets between requests
+    private final AggregationCursors cursors;
+    // the request breaker, that accounts the buckets of a cursor as long as it is kept
+    private final CircuitBreaker breaker;
+    private final CompositeAggregationBuilder request;
+    // the number of buckets to collect, more than the size of a page if the buckets of the next pages are kept in a cursor
+    private final int collectSize;
+    private final InternalComposite.InternalBucket afterBucket;
+    private CompositeCursor cursor;
+    // the buckets of the cursor that come after the after key, null if the page is collected
+    private List<InternalComposite.InternalBucket> bucketsFromCursor;
+
     CompositeAggregator(
         String name,
         AggregatorFactories factories,
@@ -92,7 +117,8 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
         Map<String, Object> metadata,
         int size,
         CompositeValuesSourceConfig[] sourceConfigs,
-        CompositeKey rawAfterKey
+        CompositeKey rawAfterKey,
+        CompositeAggregationBuilder request
     ) throws IOException {
         super(name, factories, context, parent, CardinalityUpperBound.MANY, metadata);
         this.size = size;
@@ -117,12 +143,17 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
             );
         }
         this.sourceConfigs = sourceConfigs;
+        // the buckets of sub-aggregations count against search.max_buckets, the buckets of the next pages must not
+        this.cursors = parent == null && hasBucketSubAggregations(request) == false ? context.cursors() : null;
+        this.breaker = context.breaker();
+        this.request = request;
+        this.collectSize = cursors == null ? size : (int) Math.min((long) size * PREFETCH_PAGES, Math.max(size, MAX_PREFETCH_BUCKETS));
         List<DateHistogramValuesSource> dateHistogramValuesSources = new ArrayList<>();
         for (int i = 0; i < sourceConfigs.length; i++) {
             this.sources[i] = sourceConfigs[i].createValuesSource(
                 context.bigArrays(),
                 context.searcher().getIndexReader(),
-                size,
+                collectSize,
                 this::addRequestCircuitBreakerBytes
             );
             if (this.sources[i] instanceof DateHistogramValuesSource) {
@@ -130,7 +161,7 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
             }
         }
         this.innerSizedBucketAggregators = dateHistogramValuesSources.toArray(new DateHistogramValuesSource[0]);
-        this.queue = new CompositeValuesCollectorQueue(context.bigArrays(), sources, size);
+        this.queue = new CompositeValuesCollectorQueue(context.bigArrays(), sources, collectSize);
         if (rawAfterKey != null) {
             try {
                 this.queue.setAfterKey(rawAfterKey);
@@ -140,14 +171,31 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
                     ex
                 );
             }
+            // the after key with the same types as the keys of the buckets, to compare it to the buckets of a cursor
+            Comparable<?>[] afterValues = new Comparable<?>[sources.length];
+            for (int i = 0; i < sources.length; i++) {
+                afterValues[i] = sources[i].getAfter();
+            }
+            this.afterBucket = newBucket(new CompositeKey(afterValues), 0, InternalAggregations.EMPTY);
+        } else {
+            this.afterBucket = null;
         }
         this.rawAfterKey = rawAfterKey;
     }
 
+    private static boolean hasBucketSubAggregations(CompositeAggregationBuilder request) {
+        for (AggregationBuilder subAggregation : request.getSubAggregations()) {
+            if (subAggregation.bucketCardinality() != AggregationBuilder.BucketCardinality.NONE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     protected void doClose() {
         try {
-            Releasables.close(queue);
+            Releasables.close(queue, cursor);
         } finally {
             if (sources != null) {
                 Releasables.close(sources);
@@ -157,7 +205,23 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
 
     @Override
     protected void doPreCollection() throws IOException {
-        deferredCollectors = MultiBucketCollector.wrap(false, Arrays.asList(subAggregators));
+        if (cursors != null) {
+            cursor = cursors.take(cursorKey(), CompositeCursor.class);
+            if (cursor != null) {
+                bucketsFromCursor = cursor.bucketsAfter(request, topLevelQuery(), afterBucket, size);
+                if (bucketsFromCursor == null) {
+                    // the page is collected and replaces the cursor
+                    cursor.close();
+                    cursor = null;
+                }
+            }
+        }
+        if (bucketsFromCursor != null) {
+            // the page is served from the cursor, there is nothing to collect
+            deferredCollectors = BucketCollector.NO_OP_COLLECTOR;
+        } else {
+            deferredCollectors = MultiBucketCollector.wrap(false, Arrays.asList(subAggregators));
+        }
         collectableSubAggregators = BucketCollector.NO_OP_COLLECTOR;
     }
 
@@ -170,13 +234,19 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
     public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
         // Composite aggregator must be at the top of the aggregation tree
         assert owningBucketOrds.length == 1 && owningBucketOrds[0] == 0L;
+        if (bucketsFromCursor != null) {
+            final CompositeCursor next = cursor.advance(afterBucket, bucketsFromCursor);
+            cursor = null;
+            cursors.put(cursorKey(), next);
+            return new InternalAggregation[] { buildComposite(bucketsFromCursor, next.earlyTerminated()) };
+        }
         if (deferredCollectors != NO_OP_COLLECTOR) {
             // Replay all documents that contain at least one top bucket (collected during the first pass).
             runDeferredCollections();
         }
 
-        int num = Math.min(size, queue.size());
-        final InternalComposite.InternalBucket[] buckets = new InternalComposite.InternalBucket[num];
+        final int numCollected = queue.size();
+        final InternalComposite.InternalBucket[] buckets = new InternalComposite.InternalBucket[numCollected];
         long[] bucketOrdsToCollect = new long[queue.size()];
         for (int i = 0; i < queue.size(); i++) {
             bucketOrdsToCollect[i] = i;
@@ -187,30 +257,53 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
             CompositeKey key = queue.toCompositeKey(slot);
             InternalAggregations aggs = subAggsForBuckets[slot];
             long docCount = queue.getDocCount(slot);
-            buckets[queue.size()] = new InternalComposite.InternalBucket(
-                sourceNames,
-                formats,
-                key,
-                reverseMuls,
-                missingOrders,
-                docCount,
-                aggs
-            );
+            buckets[queue.size()] = newBucket(key, docCount, aggs);
         }
-        CompositeKey lastBucket = num > 0 ? buckets[num - 1].getRawKey() : null;
-        return new InternalAggregation[] {
-            new InternalComposite(
-                name,
-                size,
-                sourceNames,
-                formats,
+        if (cursors != null) {
+            // keep the buckets of the next pages for the next requests of the point in time
+            boolean exhausted = numCollected < collectSize;
+            CompositeCursor next = CompositeCursor.create(
+                request,
+                topLevelQuery(),
+                afterBucket,
                 Arrays.asList(buckets),
-                lastBucket,
-                reverseMuls,
-                missingOrders,
+                exhausted,
                 earlyTerminated,
-                metadata()
-            ) };
+                breaker
+            );
+            if (next != null) {
+                cursors.put(cursorKey(), next);
+            }
+        }
+        return new InternalAggregation[] { buildComposite(Arrays.asList(buckets), earlyTerminated) };
+    }
+
+    /**
+     * Builds the result of the aggregation with the first page of the given sorted buckets.
+     */
+    private InternalComposite buildComposite(List<InternalComposite.InternalBucket> sortedBuckets, boolean terminatedEarly) {
+        List<InternalComposite.InternalBucket> page = sortedBuckets.subList(0, Math.min(size, sortedBuckets.size()));
+        CompositeKey lastBucket = page.isEmpty() ? null : page.get(page.size() - 1).getRawKey();
+        return new InternalComposite(
+            name,
+            size,
+            sourceNames,
+            formats,
+            new ArrayList<>(page),
+            lastBucket,
+            reverseMuls,
+            missingOrders,
+            terminatedEarly,
+            metadata()
+        );
+    }
+
+    private InternalComposite.InternalBucket newBucket(CompositeKey key, long docCount, InternalAggregations aggs) {
+        return new InternalComposite.InternalBucket(sourceNames, formats, key, reverseMuls, missingOrders, docCount, aggs);
+    }
+
+    private String cursorKey() {
+        return "composite:" + name;
     }
 
     @Override
@@ -438,6 +531,9 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
 
     @Override
     protected LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
+        if (bucketsFromCursor != null) {
+            return LeafBucketCollector.NO_OP_COLLECTOR;
+        }
         finishLeaf();
 
         boolean fillDocIdSet = deferredCollectors != NO_OP_COLLECTOR;
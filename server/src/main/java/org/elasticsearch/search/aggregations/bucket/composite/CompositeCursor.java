@@ -0,0 +1,163 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.search.Query;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.io.stream.DelayableWriteable;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
+
+import java.util.List;
+
+/**
+ * The buckets of a {@code composite} aggregation that a shard computed ahead of the pages that the user asked for. Paging through a
+ * composite aggregation collects all the matching documents on every page, so when the aggregation runs on a point in time the shard
+ * collects several pages at once and keeps the buckets it didn't return in a cursor on the reader of the point in time. The next pages
+ * are served from the cursor without collecting anything, as long as the request doesn't change and the cursor has enough buckets.
+ * <p>
+ * The cursor holds all the buckets of the shard that come after its lower bound, up to its last bucket. The coordinating node may not
+ * emit all the buckets that the shard returned, when other shards have buckets that sort before them, so the after key of the next
+ * page can be anywhere between the lower bound and the last bucket.
+ * <p>
+ * The buckets of a cursor are accounted in the request circuit breaker until the cursor is released.
+ */
+final class CompositeCursor implements Releasable {
+
+    private final CompositeAggregationBuilder request;
+    private final Query query;
+    @Nullable
+    private final InternalComposite.InternalBucket lowerBound;
+    private final List<InternalComposite.InternalBucket> buckets;
+    private final boolean exhausted;
+    private final boolean earlyTerminated;
+    private final CircuitBreaker breaker;
+    private final long ramBytesUsed;
+    private boolean released;
+
+    private CompositeCursor(
+        CompositeAggregationBuilder request,
+        Query query,
+        @Nullable InternalComposite.InternalBucket lowerBound,
+        List<InternalComposite.InternalBucket> buckets,
+        boolean exhausted,
+        boolean earlyTerminated,
+        CircuitBreaker breaker,
+        long ramBytesUsed
+    ) {
+        this.request = request;
+        this.query = query;
+        this.lowerBound = lowerBound;
+        this.buckets = buckets;
+        this.exhausted = exhausted;
+        this.earlyTerminated = earlyTerminated;
+        this.breaker = breaker;
+        this.ramBytesUsed = ramBytesUsed;
+    }
+
+    /**
+     * Creates a cursor and accounts its buckets in the given breaker.
+     * @param request the aggregation without its after key
+     * @param query the top level query of the request
+     * @param lowerBound the after key of the page that created the cursor, {@code null} for the first page
+     * @param buckets all the buckets of the shard that come after the lower bound up to the last one, sorted
+     * @param exhausted whether the shard has no bucket after the last one
+     * @param earlyTerminated whether the collection of the buckets terminated early
+     * @return the cursor, or {@code null} if the breaker doesn't have room for its buckets
+     */
+    @Nullable
+    static CompositeCursor create(
+        CompositeAggregationBuilder request,
+        Query query,
+        @Nullable InternalComposite.InternalBucket lowerBound,
+        List<InternalComposite.InternalBucket> buckets,
+        boolean exhausted,
+        boolean earlyTerminated,
+        CircuitBreaker breaker
+    ) {
+        long ramBytesUsed = 0;
+        for (InternalComposite.InternalBucket bucket : buckets) {
+            // like the buffered results of the shards on the coordinating node, the serialized size stands for the size on the heap
+            ramBytesUsed += DelayableWriteable.getSerializedSize(bucket);
+        }
+        try {
+            breaker.addEstimateBytesAndMaybeBreak(ramBytesUsed, "<composite cursor>");
+        } catch (CircuitBreakingException e) {
+            // the next pages are collected again rather than failing the page that prefetched them
+            return null;
+        }
+        return new CompositeCursor(request, query, lowerBound, buckets, exhausted, earlyTerminated, breaker, ramBytesUsed);
+    }
+
+    /**
+     * Returns all the buckets of the cursor that come after the given key, or {@code null} if the cursor can't serve the page of
+     * <code>size</code> buckets after the key of the given request, which must then be collected.
+     */
+    @Nullable
+    List<InternalComposite.InternalBucket> bucketsAfter(
+        CompositeAggregationBuilder pageRequest,
+        Query pageQuery,
+        @Nullable InternalComposite.InternalBucket after,
+        int size
+    ) {
+        if (request.equals(pageRequest) == false || query.equals(pageQuery) == false) {
+            return null;
+        }
+        if (lowerBound != null && (after == null || after.compareKey(lowerBound) < 0)) {
+            // the cursor doesn't know about the buckets before its lower bound
+            return null;
+        }
+        final List<InternalComposite.InternalBucket> remaining = after == null
+            ? buckets
+            : buckets.subList(firstBucketAfter(after), buckets.size());
+        if (remaining.size() < size && exhausted == false) {
+            // the page goes beyond the last bucket of the cursor
+            return null;
+        }
+        return remaining;
+    }
+
+    /**
+     * Returns the cursor for the pages that come after the given key, that holds the given buckets. The remaining buckets are a view
+     * of the buckets of this cursor, so the returned cursor takes over the bytes that this cursor accounted in the breaker and this
+     * cursor must not be released anymore.
+     */
+    CompositeCursor advance(@Nullable InternalComposite.InternalBucket after, List<InternalComposite.InternalBucket> remaining) {
+        assert released == false : "advancing a released cursor";
+        released = true;
+        return new CompositeCursor(request, query, after, remaining, exhausted, earlyTerminated, breaker, ramBytesUsed);
+    }
+
+    @Override
+    public void close() {
+        if (released == false) {
+            released = true;
+            breaker.addWithoutBreaking(-ramBytesUsed);
+        }
+    }
+
+    boolean earlyTerminated() {
+        return earlyTerminated;
+    }
+
+    private int firstBucketAfter(InternalComposite.InternalBucket after) {
+        int low = 0;
+        int high = buckets.size();
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (buckets.get(mid).compareKey(after) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
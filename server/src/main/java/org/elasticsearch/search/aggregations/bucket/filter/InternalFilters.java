@@ -159,6 +159,11 @@ public class InternalFilters extends InternalMultiBucketAggregation<InternalFilt
         return new InternalBucket(prototype.key, prototype.docCount, aggregations, prototype.keyed);
     }
 
+    @Override
+    protected InternalBucket createRescaledBucket(long docCount, InternalAggregations aggregations, InternalBucket prototype) {
+        return new InternalBucket(prototype.key, docCount, aggregations, prototype.keyed);
+    }
+
     @Override
     public List<InternalBucket> getBuckets() {
         return buckets;
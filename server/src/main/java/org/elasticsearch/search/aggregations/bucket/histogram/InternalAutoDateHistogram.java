@@ -265,6 +265,11 @@ public final class InternalAutoDateHistogram extends InternalMultiBucketAggregat
         return new Bucket(prototype.key, prototype.docCount, prototype.format, aggregations);
     }
 
+    @Override
+    protected Bucket createRescaledBucket(long docCount, InternalAggregations aggregations, Bucket prototype) {
+        return new Bucket(prototype.key, docCount, prototype.format, aggregations);
+    }
+
     /**
      * This method works almost exactly the same as
      * InternalDateHistogram#reduceBuckets(List, ReduceContext), the different
@@ -270,6 +270,11 @@ public final class InternalHistogram extends InternalMultiBucketAggregation<Inte
         return new Bucket(prototype.key, prototype.docCount, prototype.keyed, prototype.format, aggregations);
     }
 
+    @Override
+    protected Bucket createRescaledBucket(long docCount, InternalAggregations aggregations, Bucket prototype) {
+        return new Bucket(prototype.key, docCount, prototype.keyed, prototype.format, aggregations);
+    }
+
     private List<Bucket> reduceBuckets(List<InternalAggregation> aggregations, AggregationReduceContext reduceContext) {
         final PriorityQueue<IteratorAndCurrent<Bucket>> pq = new PriorityQueue<>(aggregations.size()) {
             @Override
@@ -13,6 +13,7 @@ import org.apache.lucene.search.ScoreMode;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.BlockLeafBucketCollector;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.CardinalityUpperBound;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
@@ -84,6 +85,35 @@ public class NumericHistogramAggregator extends AbstractHistogramAggregator {
         }
 
         final SortedNumericDoubleValues values = valuesSource.doubleValues(ctx);
+        if (sub.isNoop() && canCollectInBlocks(valuesSource.needsScores())) {
+            return registerBlockCollector(new BlockLeafBucketCollector(values) {
+                @Override
+                protected void collectBlock(int[] docs, int[] docValueCounts, int docCount, double[] values, int valueCount)
+                    throws IOException {
+                    int v = 0;
+                    for (int d = 0; d < docCount; d++) {
+                        double previousKey = Double.NEGATIVE_INFINITY;
+                        for (int end = v + docValueCounts[d]; v < end; v++) {
+                            double key = Math.floor((values[v] - offset) / interval);
+                            assert key >= previousKey;
+                            if (key == previousKey) {
+                                continue;
+                            }
+                            if (hardBounds == null || hardBounds.contain(key * interval)) {
+                                long bucketOrd = bucketOrds.add(0, Double.doubleToLongBits(key));
+                                if (bucketOrd < 0) { // already seen
+                                    bucketOrd = -1 - bucketOrd;
+                                    collectExistingBucket(sub, docs[d], bucketOrd);
+                                } else {
+                                    collectBucket(sub, docs[d], bucketOrd);
+                                }
+                            }
+                            previousKey = key;
+                        }
+                    }
+                }
+            });
+        }
         return new LeafBucketCollectorBase(sub, values) {
             @Override
             public void collect(int doc, long owningBucketOrd) throws IOException {
@@ -303,6 +303,19 @@ public class InternalRange<B extends InternalRange.Bucket, R extends InternalRan
         return getFactory().createBucket(aggregations, prototype);
     }
 
+    @Override
+    protected B createRescaledBucket(long docCount, InternalAggregations aggregations, B prototype) {
+        return getFactory().createBucket(
+            prototype.getKey(),
+            prototype.from,
+            prototype.to,
+            docCount,
+            aggregations,
+            prototype.keyed,
+            prototype.format
+        );
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public InternalAggregation reduce(List<InternalAggregation> aggregations, AggregationReduceContext reduceContext) {
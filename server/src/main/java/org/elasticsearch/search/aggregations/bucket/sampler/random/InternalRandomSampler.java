@@ -0,0 +1,102 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.sampler.random;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.search.aggregations.AggregationReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.InternalSingleBucketAggregation;
+import org.elasticsearch.search.aggregations.support.SamplingContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class InternalRandomSampler extends InternalSingleBucketAggregation implements RandomSampler {
+
+    private final double probability;
+    private final int seed;
+
+    InternalRandomSampler(
+        String name,
+        long docCount,
+        double probability,
+        int seed,
+        InternalAggregations subAggregations,
+        Map<String, Object> metadata
+    ) {
+        super(name, docCount, subAggregations, metadata);
+        this.probability = probability;
+        this.seed = seed;
+    }
+
+    /**
+     * Read from a stream.
+     */
+    public InternalRandomSampler(StreamInput in) throws IOException {
+        super(in);
+        probability = in.readDouble();
+        seed = in.readInt();
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        super.doWriteTo(out);
+        out.writeDouble(probability);
+        out.writeInt(seed);
+    }
+
+    @Override
+    public String getWriteableName() {
+        return RandomSamplerAggregationBuilder.NAME;
+    }
+
+    public double getProbability() {
+        return probability;
+    }
+
+    public int getSeed() {
+        return seed;
+    }
+
+    @Override
+    protected InternalSingleBucketAggregation newAggregation(String name, long docCount, InternalAggregations subAggregations) {
+        return new InternalRandomSampler(name, docCount, probability, seed, subAggregations, metadata);
+    }
+
+    /**
+     * Sums the sampled documents and reduces the sub-aggregations like any single bucket aggregation, and rescales the doc count and
+     * the sub-aggregations on the final reduce, once the samples of all the shards are merged.
+     */
+    @Override
+    public InternalAggregation reduce(List<InternalAggregation> aggregations, AggregationReduceContext reduceContext) {
+        final InternalAggregation reduced = super.reduce(aggregations, reduceContext);
+        if (reduceContext.isFinalReduce()) {
+            return reduced.finalizeSampling(new SamplingContext(probability));
+        }
+        return reduced;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        if (super.equals(obj) == false) return false;
+        InternalRandomSampler other = (InternalRandomSampler) obj;
+        return probability == other.probability && seed == other.seed;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), probability, seed);
+    }
+}
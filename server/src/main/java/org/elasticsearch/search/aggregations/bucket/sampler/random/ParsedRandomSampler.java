@@ -0,0 +1,26 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.sampler.random;
+
+import org.elasticsearch.search.aggregations.bucket.ParsedSingleBucketAggregation;
+import org.elasticsearch.xcontent.XContentParser;
+
+import java.io.IOException;
+
+public class ParsedRandomSampler extends ParsedSingleBucketAggregation implements RandomSampler {
+
+    @Override
+    public String getType() {
+        return RandomSamplerAggregationBuilder.NAME;
+    }
+
+    public static ParsedRandomSampler fromXContent(XContentParser parser, final String name) throws IOException {
+        return parseXContent(parser, new ParsedRandomSampler(), name);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.sampler.random;
+
+import org.elasticsearch.common.Randomness;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.xcontent.ConstructingObjectParser;
+import org.elasticsearch.xcontent.ParseField;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.elasticsearch.xcontent.ConstructingObjectParser.constructorArg;
+
+public class RandomSamplerAggregationBuilder extends AbstractAggregationBuilder<RandomSamplerAggregationBuilder> {
+    public static final String NAME = "random_sampler";
+
+    static final ParseField PROBABILITY = new ParseField("probability");
+    static final ParseField SEED = new ParseField("seed");
+
+    public static final ConstructingObjectParser<RandomSamplerAggregationBuilder, String> PARSER = new ConstructingObjectParser<>(
+        NAME,
+        false,
+        (args, name) -> new RandomSamplerAggregationBuilder(name, (double) args[0])
+    );
+    static {
+        PARSER.declareDouble(constructorArg(), PROBABILITY);
+        PARSER.declareInt(RandomSamplerAggregationBuilder::setSeed, SEED);
+    }
+
+    private final double probability;
+    private int seed = Randomness.get().nextInt();
+
+    /**
+     * @param probability the probability with which every document is sampled, between 0 exclusive and 1 inclusive
+     */
+    public RandomSamplerAggregationBuilder(String name, double probability) {
+        super(name);
+        if (probability <= 0 || probability > 1) {
+            throw new IllegalArgumentException(
+                "[" + PROBABILITY.getPreferredName() + "] must be between 0 exclusive and 1 inclusive but was [" + probability + "]"
+            );
+        }
+        this.probability = probability;
+    }
+
+    protected RandomSamplerAggregationBuilder(
+        RandomSamplerAggregationBuilder clone,
+        AggregatorFactories.Builder factoriesBuilder,
+        Map<String, Object> metadata
+    ) {
+        super(clone, factoriesBuilder, metadata);
+        this.probability = clone.probability;
+        this.seed = clone.seed;
+    }
+
+    /**
+     * Read from a stream.
+     */
+    public RandomSamplerAggregationBuilder(StreamInput in) throws IOException {
+        super(in);
+        probability = in.readDouble();
+        seed = in.readInt();
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeDouble(probability);
+        out.writeInt(seed);
+    }
+
+    @Override
+    protected AggregationBuilder shallowCopy(AggregatorFactories.Builder factoriesBuilder, Map<String, Object> metadata) {
+        return new RandomSamplerAggregationBuilder(this, factoriesBuilder, metadata);
+    }
+
+    /**
+     * Get the probability with which every document is sampled.
+     */
+    public double getProbability() {
+        return probability;
+    }
+
+    /**
+     * Set the seed of the sampling. The same seed samples the same documents as long as the shards don't change, which makes the
+     * results reproducible. Defaults to a random seed.
+     */
+    public RandomSamplerAggregationBuilder setSeed(int seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Get the seed of the sampling.
+     */
+    public int getSeed() {
+        return seed;
+    }
+
+    @Override
+    public BucketCardinality bucketCardinality() {
+        return BucketCardinality.ONE;
+    }
+
+    @Override
+    protected AggregatorFactory doBuild(
+        AggregationContext context,
+        AggregatorFactory parent,
+        AggregatorFactories.Builder subFactoriesBuilder
+    ) throws IOException {
+        return new RandomSamplerAggregatorFactory(name, probability, seed, context, parent, subFactoriesBuilder, metadata);
+    }
+
+    @Override
+    protected XContentBuilder internalXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        builder.field(PROBABILITY.getPreferredName(), probability);
+        builder.field(SEED.getPreferredName(), seed);
+        builder.endObject();
+        return builder;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), probability, seed);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        if (super.equals(obj) == false) return false;
+        RandomSamplerAggregationBuilder other = (RandomSamplerAggregationBuilder) obj;
+        return probability == other.probability && seed == other.seed;
+    }
+
+    @Override
+    public String getType() {
+        return NAME;
+    }
+}
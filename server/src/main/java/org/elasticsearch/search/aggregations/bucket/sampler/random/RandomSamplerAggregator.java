@@ -0,0 +1,141 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.sampler.random;
+
+import com.carrotsearch.hppc.BitMixer;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.CardinalityUpperBound;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
+import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.bucket.SingleBucketAggregator;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.tasks.TaskCancelledException;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Aggregate a uniform random sample of the docs that match the query.
+ * <p>
+ * Instead of checking every document that the query collects, the sampler intersects the top level query with a
+ * {@link RandomSamplingQuery} and collects the sampled documents itself, so that the sampling skips over the documents that it doesn't
+ * sample and the sub-aggregations only see the sampled ones. This is safe because the sampler must be a top level aggregation.
+ */
+public class RandomSamplerAggregator extends BucketsAggregator implements SingleBucketAggregator {
+
+    // how often the collection checks whether the search was cancelled
+    private static final int CHECK_CANCELLED_INTERVAL = 1 << 12;
+
+    private final double probability;
+    private final int seed;
+    private Weight weight;
+
+    RandomSamplerAggregator(
+        String name,
+        double probability,
+        int seed,
+        AggregatorFactories factories,
+        AggregationContext context,
+        Map<String, Object> metadata
+    ) throws IOException {
+        super(name, factories, context, null, CardinalityUpperBound.ONE, metadata);
+        this.probability = probability;
+        this.seed = seed;
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        if (probability < 1) {
+            // the sampled documents are scored by the sampler itself if the sub-aggregations need scores
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+        return super.scoreMode();
+    }
+
+    /**
+     * Returns the {@link Weight} of the sampled documents that match the top level query, creating it if necessary.
+     */
+    private Weight getWeight() throws IOException {
+        if (weight == null) {
+            final ScoreMode scoreMode = super.scoreMode();
+            // every shard samples different documents, even with the same seed
+            final long shardSeed = BitMixer.mix64(((long) seed << 32) | (context.shardRandomSeed() & 0xFFFFFFFFL));
+            final Query query = new BooleanQuery.Builder().add(
+                context.query(),
+                scoreMode.needsScores() ? BooleanClause.Occur.MUST : BooleanClause.Occur.FILTER
+            ).add(new RandomSamplingQuery(probability, shardSeed), BooleanClause.Occur.FILTER).build();
+            final IndexSearcher searcher = context.searcher();
+            weight = searcher.createWeight(searcher.rewrite(query), scoreMode, 1f);
+        }
+        return weight;
+    }
+
+    @Override
+    protected LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
+        if (probability >= 1) {
+            // every document is sampled, the query drives the collection like for any other aggregation
+            return new LeafBucketCollectorBase(sub, null) {
+                @Override
+                public void collect(int doc, long bucket) throws IOException {
+                    collectBucket(sub, doc, bucket);
+                }
+            };
+        }
+        final Scorer scorer = getWeight().scorer(ctx);
+        if (scorer == null) {
+            return LeafBucketCollector.NO_OP_COLLECTOR;
+        }
+        sub.setScorer(scorer);
+        final Bits liveDocs = ctx.reader().getLiveDocs();
+        final DocIdSetIterator iterator = scorer.iterator();
+        int collected = 0;
+        for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+            if (liveDocs == null || liveDocs.get(doc)) {
+                collectBucket(sub, doc, 0);
+            }
+            if (++collected % CHECK_CANCELLED_INTERVAL == 0 && context.isCancelled()) {
+                throw new TaskCancelledException("cancelled");
+            }
+        }
+        return LeafBucketCollector.NO_OP_COLLECTOR;
+    }
+
+    @Override
+    public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
+        return buildAggregationsForSingleBucket(
+            owningBucketOrds,
+            (owningBucketOrd, subAggregationResults) -> new InternalRandomSampler(
+                name,
+                bucketDocCount(owningBucketOrd),
+                probability,
+                seed,
+                subAggregationResults,
+                metadata()
+            )
+        );
+    }
+
+    @Override
+    public InternalAggregation buildEmptyAggregation() {
+        return new InternalRandomSampler(name, 0, probability, seed, buildEmptySubAggregations(), metadata());
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.sampler.random;
+
+import com.carrotsearch.hppc.BitMixer;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+/**
+ * A query that matches every document with the given probability, independently of the other documents. Rather than drawing a random
+ * number for every document it draws the gaps between the matching documents from a geometric distribution, so that the iteration
+ * skips straight to the next matching document and costs in proportion to the number of sampled documents.
+ */
+final class RandomSamplingQuery extends Query {
+
+    private final double probability;
+    private final long seed;
+
+    /**
+     * @param probability the probability with which every document matches, between 0 and 1 exclusive
+     * @param seed the seed of the sampling, the same seed samples the same documents of the same segments
+     */
+    RandomSamplingQuery(double probability, long seed) {
+        if (probability <= 0 || probability >= 1) {
+            throw new IllegalArgumentException("[probability] must be between 0 and 1 exclusive but was [" + probability + "]");
+        }
+        this.probability = probability;
+        this.seed = seed;
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        return new ConstantScoreWeight(this, boost) {
+            @Override
+            public Scorer scorer(LeafReaderContext context) throws IOException {
+                final SplittableRandom random = new SplittableRandom(BitMixer.mix64(seed ^ context.docBase));
+                return new ConstantScoreScorer(this, score(), scoreMode, new RandomSamplingIterator(context.reader().maxDoc(), random));
+            }
+
+            @Override
+            public boolean isCacheable(LeafReaderContext ctx) {
+                // the sample changes with the seed, caching it would only waste the cache
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        visitor.visitLeaf(this);
+    }
+
+    @Override
+    public String toString(String field) {
+        return "RandomSamplingQuery{probability=" + probability + ", seed=" + seed + "}";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (sameClassAs(obj) == false) {
+            return false;
+        }
+        RandomSamplingQuery other = (RandomSamplingQuery) obj;
+        return probability == other.probability && seed == other.seed;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), probability, seed);
+    }
+
+    /**
+     * Iterates over the sampled documents of a segment. As every document is sampled independently of the others, the documents after
+     * the target of an {@link #advance(int)} are sampled the same way whatever the documents that were skipped, so the iterator only
+     * needs to draw the gap between the target and the next sampled document.
+     */
+    final class RandomSamplingIterator extends DocIdSetIterator {
+        private final int maxDoc;
+        private final SplittableRandom random;
+        // the logarithm of the probability that a document isn't sampled
+        private final double logNotSampled;
+        private int doc = -1;
+
+        RandomSamplingIterator(int maxDoc, SplittableRandom random) {
+            this.maxDoc = maxDoc;
+            this.random = random;
+            this.logNotSampled = Math.log1p(-probability);
+        }
+
+        @Override
+        public int docID() {
+            return doc;
+        }
+
+        @Override
+        public int nextDoc() throws IOException {
+            return advance(doc + 1);
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+            // the number of documents that aren't sampled before the next sampled one follows a geometric distribution
+            final double skipped = Math.floor(Math.log(1 - random.nextDouble()) / logNotSampled);
+            final double next = target + skipped;
+            doc = next < maxDoc ? (int) next : NO_MORE_DOCS;
+            return doc;
+        }
+
+        @Override
+        public long cost() {
+            return (long) Math.ceil(maxDoc * probability);
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
 import org.elasticsearch.search.aggregations.InternalOrder;
 import org.elasticsearch.search.aggregations.TopBucketBuilder;
 import org.elasticsearch.search.aggregations.bucket.IteratorAndCurrent;
+import org.elasticsearch.search.aggregations.support.SamplingContext;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
@@ -341,6 +342,33 @@ public abstract class AbstractInternalTerms<A extends AbstractInternalTerms<A, B
         return create(name, result, reduceContext.isFinalReduce() ? getOrder() : thisReduceOrder, docCountError, otherDocCount[0]);
     }
 
+    @Override
+    public InternalAggregation finalizeSampling(SamplingContext samplingContext) {
+        if (isMapped() == false) {
+            return this;
+        }
+        // the doc counts of all the buckets grow by the same factor so the buckets stay in the same order
+        List<B> buckets = new ArrayList<>(getBuckets().size());
+        for (B bucket : getBuckets()) {
+            buckets.add(
+                createBucket(
+                    samplingContext.scaleUp(bucket.getDocCount()),
+                    ((InternalAggregations) bucket.getAggregations()).finalizeSampling(samplingContext),
+                    bucket.getShowDocCountError() ? samplingContext.scaleUp(bucket.getDocCountError()) : -1,
+                    bucket
+                )
+            );
+        }
+        Long docCountError = getDocCountError();
+        return create(
+            name,
+            buckets,
+            getOrder(),
+            docCountError == null ? 0 : samplingContext.scaleUp(docCountError),
+            samplingContext.scaleUp(getSumOfOtherDocCounts())
+        );
+    }
+
     protected static XContentBuilder doXContentCommon(
         XContentBuilder builder,
         Params params,
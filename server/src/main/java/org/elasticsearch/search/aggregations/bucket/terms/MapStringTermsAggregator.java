@@ -7,12 +7,17 @@
  */
 package org.elasticsearch.search.aggregations.bucket.terms;
 
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.LongHash;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
@@ -40,6 +45,7 @@ import java.util.function.Function;
 import java.util.function.LongConsumer;
 import java.util.function.Supplier;
 
+import static org.apache.lucene.index.SortedSetDocValues.NO_MORE_ORDS;
 import static org.elasticsearch.search.aggregations.InternalOrder.isKeyOrder;
 
 /**
@@ -92,13 +98,22 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
                 ctx,
                 sub,
                 this::addRequestCircuitBreakerBytes,
-                (s, doc, owningBucketOrd, bytes) -> {
-                    long bucketOrdinal = bucketOrds.add(owningBucketOrd, bytes);
-                    if (bucketOrdinal < 0) { // already seen
-                        bucketOrdinal = -1 - bucketOrdinal;
-                        collectExistingBucket(s, doc, bucketOrdinal);
-                    } else {
-                        collectBucket(s, doc, bucketOrdinal);
+                new CollectConsumer() {
+                    @Override
+                    public long accept(LeafBucketCollector s, int doc, long owningBucketOrd, BytesRef bytes) throws IOException {
+                        long bucketOrdinal = bucketOrds.add(owningBucketOrd, bytes);
+                        if (bucketOrdinal < 0) { // already seen
+                            bucketOrdinal = -1 - bucketOrdinal;
+                            collectExistingBucket(s, doc, bucketOrdinal);
+                        } else {
+                            collectBucket(s, doc, bucketOrdinal);
+                        }
+                        return bucketOrdinal;
+                    }
+
+                    @Override
+                    public void acceptExisting(LeafBucketCollector s, int doc, long bucketOrd) throws IOException {
+                        collectExistingBucket(s, doc, bucketOrd);
                     }
                 }
             )
@@ -163,9 +178,16 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
         ) throws IOException;
     }
 
-    @FunctionalInterface
     public interface CollectConsumer {
-        void accept(LeafBucketCollector sub, int doc, long owningBucketOrd, BytesRef bytes) throws IOException;
+        /**
+         * Collect the document into the bucket of the provided value and return the ordinal of that bucket.
+         */
+        long accept(LeafBucketCollector sub, int doc, long owningBucketOrd, BytesRef bytes) throws IOException;
+
+        /**
+         * Collect the document into a bucket that {@link #accept} returned before.
+         */
+        void acceptExisting(LeafBucketCollector sub, int doc, long bucketOrd) throws IOException;
     }
 
     /**
@@ -232,6 +254,137 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
         public void close() {}
     }
 
+    /**
+     * Fetch values from the ordinals of each segment of a {@link ValuesSource.Bytes.WithOrdinals} without
+     * building global ordinals. Building global ordinals takes a long time and a lot of memory on fields
+     * with many unique terms, and it has to be done again after every refresh. Instead this hashes the
+     * term of a segment ordinal the first time that a document of the segment has it, and remembers the
+     * bucket of the ordinal for the other documents of the segment. So every term is hashed at most once
+     * per segment rather than once per value like {@link ValuesSourceCollectorSource} does.
+     * <p>
+     * This only works when collecting from a single owning bucket because the buckets of the ordinals are
+     * remembered for the owning bucket {@code 0}.
+     */
+    public static class SegmentOrdinalsCollectorSource implements CollectorSource {
+        private final ValuesSourceConfig valuesSourceConfig;
+        private final BigArrays bigArrays;
+        /**
+         * The ordinals of the current segment that were seen so far. This only grows with the ordinals
+         * of the matching documents rather than with all the ordinals of the segment, which would cost
+         * a table as large as the terms dictionary of every segment even for selective queries.
+         */
+        private LongHash segmentOrds;
+        /**
+         * The bucket ordinal of every ordinal of {@link #segmentOrds}, by id, or {@code -1} for the
+         * ordinals that are excluded.
+         */
+        private LongArray segmentBucketOrds;
+        private int segmentsCollected;
+        private long segmentTermsHashed;
+
+        public SegmentOrdinalsCollectorSource(ValuesSourceConfig valuesSourceConfig, BigArrays bigArrays) {
+            this.valuesSourceConfig = valuesSourceConfig;
+            this.bigArrays = bigArrays;
+        }
+
+        @Override
+        public String describe() {
+            return "segment ordinals from " + valuesSourceConfig.getDescription();
+        }
+
+        @Override
+        public void collectDebugInfo(BiConsumer<String, Object> add) {
+            add.accept("segments_collected", segmentsCollected);
+            add.accept("segment_terms_hashed", segmentTermsHashed);
+        }
+
+        @Override
+        public boolean needsScores() {
+            return valuesSourceConfig.getValuesSource().needsScores();
+        }
+
+        @Override
+        public LeafBucketCollector getLeafCollector(
+            IncludeExclude.StringFilter includeExclude,
+            LeafReaderContext ctx,
+            LeafBucketCollector sub,
+            LongConsumer addRequestCircuitBreakerBytes,
+            CollectConsumer consumer
+        ) throws IOException {
+            SortedSetDocValues ords = ((ValuesSource.Bytes.WithOrdinals) valuesSourceConfig.getValuesSource()).ordinalsValues(ctx);
+            Releasables.close(segmentOrds);
+            segmentOrds = null;
+            segmentOrds = new LongHash(1, bigArrays);
+            if (segmentBucketOrds == null) {
+                segmentBucketOrds = bigArrays.newLongArray(1, false);
+            }
+            segmentsCollected++;
+            SortedDocValues singleValues = DocValues.unwrapSingleton(ords);
+            if (singleValues != null) {
+                OrdLookup lookup = ord -> singleValues.lookupOrd((int) ord);
+                return new LeafBucketCollectorBase(sub, ords) {
+                    @Override
+                    public void collect(int doc, long owningBucketOrd) throws IOException {
+                        assert owningBucketOrd == 0;
+                        if (singleValues.advanceExact(doc)) {
+                            collectOrd(includeExclude, lookup, sub, doc, singleValues.ordValue(), consumer);
+                        }
+                    }
+                };
+            }
+            OrdLookup lookup = ords::lookupOrd;
+            return new LeafBucketCollectorBase(sub, ords) {
+                @Override
+                public void collect(int doc, long owningBucketOrd) throws IOException {
+                    assert owningBucketOrd == 0;
+                    if (false == ords.advanceExact(doc)) {
+                        return;
+                    }
+                    for (long ord = ords.nextOrd(); ord != NO_MORE_ORDS; ord = ords.nextOrd()) {
+                        collectOrd(includeExclude, lookup, sub, doc, ord, consumer);
+                    }
+                }
+            };
+        }
+
+        private void collectOrd(
+            IncludeExclude.StringFilter includeExclude,
+            OrdLookup lookup,
+            LeafBucketCollector sub,
+            int doc,
+            long ord,
+            CollectConsumer consumer
+        ) throws IOException {
+            long id = segmentOrds.add(ord);
+            if (id < 0) {
+                long bucketOrd = segmentBucketOrds.get(-1 - id);
+                if (bucketOrd >= 0) {
+                    consumer.acceptExisting(sub, doc, bucketOrd);
+                }
+                return;
+            }
+            segmentTermsHashed++;
+            // ids of the previous segments are overwritten before they are read
+            segmentBucketOrds = bigArrays.grow(segmentBucketOrds, id + 1);
+            BytesRef bytes = lookup.lookupOrd(ord);
+            if (includeExclude != null && false == includeExclude.accept(bytes)) {
+                segmentBucketOrds.set(id, -1);
+            } else {
+                segmentBucketOrds.set(id, consumer.accept(sub, doc, 0, bytes));
+            }
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(segmentOrds, segmentBucketOrds);
+        }
+    }
+
+    @FunctionalInterface
+    private interface OrdLookup {
+        BytesRef lookupOrd(long ord) throws IOException;
+    }
+
     /**
      * Strategy for building results.
      */
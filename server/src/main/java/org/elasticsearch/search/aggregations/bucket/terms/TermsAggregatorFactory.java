@@ -10,8 +10,10 @@ package org.elasticsearch.search.aggregations.bucket.terms;
 
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.IndexSearcher;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.AggregationExecutionException;
 import org.elasticsearch.search.aggregations.Aggregator;
@@ -76,6 +78,24 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
      */
     static final long MAX_ORDS_TO_TRY_FILTERS = 1000;
 
+    /**
+     * The minimum number of unique terms that the largest segment of a shard
+     * must have for us to aggregate a field on its segment ordinals rather
+     * than on its global ordinals when there is no execution hint. Building
+     * global ordinals merges the terms dictionaries of all the segments and
+     * is redone after every refresh, which costs more than hashing the terms
+     * that the matching documents hold for fields with that many terms.
+     */
+    static final long MIN_SEGMENT_TERMS_TO_SKIP_GLOBAL_ORDS = 500_000;
+
+    /**
+     * The longest refresh interval for which we consider aggregating on segment
+     * ordinals rather than on global ordinals when there is no execution hint.
+     * Indices that refresh less often amortize the cost of building global
+     * ordinals over more searches.
+     */
+    static final TimeValue MAX_REFRESH_INTERVAL_TO_SKIP_GLOBAL_ORDS = TimeValue.timeValueSeconds(30);
+
     /**
      * This supplier is used for all the field types that should be aggregated as bytes/strings,
      * including those that need global ordinals
@@ -108,7 +128,9 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
                     execution = ExecutionMode.MAP;
                 }
                 if (execution == null) {
-                    execution = ExecutionMode.GLOBAL_ORDINALS;
+                    execution = skipGlobalOrds(valuesSourceConfig, context, cardinality)
+                        ? ExecutionMode.SEGMENT_ORDINALS
+                        : ExecutionMode.GLOBAL_ORDINALS;
                 }
                 final long maxOrd = execution == ExecutionMode.GLOBAL_ORDINALS ? getMaxOrd(valuesSource, context.searcher()) : -1;
                 if (subAggCollectMode == null) {
@@ -146,6 +168,42 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
         };
     }
 
+    /**
+     * Should we aggregate a field that has ordinals on its segment ordinals rather than
+     * on its global ordinals? Global ordinals are cheap to use once they are built but
+     * they are rebuilt after every refresh, so we skip them on fields that don't load
+     * them eagerly, that have many terms and that are on indices that refresh often.
+     * We look at the segment ordinals to count the terms because counting the unique
+     * terms of the shard is what building global ordinals does.
+     */
+    private static boolean skipGlobalOrds(
+        ValuesSourceConfig valuesSourceConfig,
+        AggregationContext context,
+        CardinalityUpperBound cardinality
+    ) throws IOException {
+        if (cardinality != CardinalityUpperBound.ONE || valuesSourceConfig.fieldType() == null) {
+            return false;
+        }
+        List<LeafReaderContext> leaves = context.searcher().getIndexReader().leaves();
+        if (leaves.size() < 2 || valuesSourceConfig.fieldType().eagerGlobalOrdinals()) {
+            // global ordinals are free on a single segment and already built on refresh if they are eager
+            return false;
+        }
+        ValuesSource.Bytes.WithOrdinals valuesSource = (ValuesSource.Bytes.WithOrdinals) valuesSourceConfig.getValuesSource();
+        long maxSegmentTerms = 0;
+        for (LeafReaderContext ctx : leaves) {
+            maxSegmentTerms = Math.max(maxSegmentTerms, valuesSource.ordinalsValues(ctx).getValueCount());
+        }
+        return skipGlobalOrds(maxSegmentTerms, context.getIndexSettings().getRefreshInterval());
+    }
+
+    static boolean skipGlobalOrds(long maxSegmentTerms, TimeValue refreshInterval) {
+        if (refreshInterval.millis() < 0 || refreshInterval.compareTo(MAX_REFRESH_INTERVAL_TO_SKIP_GLOBAL_ORDS) > 0) {
+            return false;
+        }
+        return maxSegmentTerms >= MIN_SEGMENT_TERMS_TO_SKIP_GLOBAL_ORDS;
+    }
+
     /**
      * This supplier is used for all fields that expect to be aggregated as a numeric value.
      * This includes floating points, and formatted types that use numerics internally for storage (date, boolean, etc)
@@ -526,6 +584,52 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
                     metadata
                 );
             }
+        },
+        SEGMENT_ORDINALS(new ParseField("segment_ordinals")) {
+
+            @Override
+            Aggregator create(
+                String name,
+                AggregatorFactories factories,
+                ValuesSourceConfig valuesSourceConfig,
+                BucketOrder order,
+                TermsAggregator.BucketCountThresholds bucketCountThresholds,
+                IncludeExclude includeExclude,
+                AggregationContext context,
+                Aggregator parent,
+                SubAggCollectionMode subAggCollectMode,
+                boolean showTermDocCountError,
+                CardinalityUpperBound cardinality,
+                Map<String, Object> metadata
+            ) throws IOException {
+                assert valuesSourceConfig.getValuesSource() instanceof ValuesSource.Bytes.WithOrdinals;
+                IncludeExclude.StringFilter filter = includeExclude == null
+                    ? null
+                    : includeExclude.convertToStringFilter(valuesSourceConfig.format());
+                /*
+                 * The segment ordinals map to the buckets of a single owning bucket
+                 * so we fall back to hashing every term when we collect many.
+                 */
+                MapStringTermsAggregator.CollectorSource collectorSource = cardinality == CardinalityUpperBound.ONE
+                    ? new MapStringTermsAggregator.SegmentOrdinalsCollectorSource(valuesSourceConfig, context.bigArrays())
+                    : new MapStringTermsAggregator.ValuesSourceCollectorSource(valuesSourceConfig);
+                return new MapStringTermsAggregator(
+                    name,
+                    factories,
+                    collectorSource,
+                    a -> a.new StandardTermsResults(valuesSourceConfig.getValuesSource()),
+                    order,
+                    valuesSourceConfig.format(),
+                    bucketCountThresholds,
+                    filter,
+                    context,
+                    parent,
+                    subAggCollectMode,
+                    showTermDocCountError,
+                    cardinality,
+                    metadata
+                );
+            }
         };
 
         public static ExecutionMode fromString(String value) {
@@ -534,8 +638,12 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
                     return GLOBAL_ORDINALS;
                 case "map":
                     return MAP;
+                case "segment_ordinals":
+                    return SEGMENT_ORDINALS;
                 default:
-                    throw new IllegalArgumentException("Unknown `execution_hint`: [" + value + "], expected any of [map, global_ordinals]");
+                    throw new IllegalArgumentException(
+                        "Unknown `execution_hint`: [" + value + "], expected any of [map, global_ordinals, segment_ordinals]"
+                    );
             }
         }
 
@@ -8,12 +8,15 @@
 
 package org.elasticsearch.search.aggregations.metrics;
 
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.core.Releasable;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -23,13 +26,21 @@ import java.util.Set;
 /**
  * Base class for HLL++ algorithms.
  *
- * It contains methods for cloning and serializing the data structure.
+ * It contains methods for cloning and serializing the data structure. The serialized form is compact: the hashes of linear counting
+ * are sorted and written as variable length deltas, and the registers of HyperLogLog are written either as (index delta, value) pairs
+ * for the registers that are set, or packed on as many bits as the largest register needs, whichever is smaller.
  */
 public abstract class AbstractHyperLogLogPlusPlus extends AbstractCardinalityAlgorithm implements Releasable {
 
     public static final boolean LINEAR_COUNTING = false;
     public static final boolean HYPERLOGLOG = true;
 
+    /**
+     * The HyperLogLog registers are serialized as (index delta, value) pairs for the registers that are set. Otherwise they are
+     * packed on the number of bits per register that the serialized form starts with.
+     */
+    private static final byte SPARSE_REGISTERS = 0;
+
     public AbstractHyperLogLogPlusPlus(int precision) {
         super(precision);
     }
@@ -94,39 +105,143 @@ public abstract class AbstractHyperLogLogPlusPlus extends AbstractCardinalityAlg
 
     public void writeTo(long bucket, StreamOutput out) throws IOException {
         out.writeVInt(precision());
+        final boolean compact = out.getVersion().onOrAfter(Version.V_8_1_0);
         if (getAlgorithm(bucket) == LINEAR_COUNTING) {
             out.writeBoolean(LINEAR_COUNTING);
             AbstractLinearCounting.HashesIterator hashes = getLinearCounting(bucket);
             out.writeVLong(hashes.size());
-            while (hashes.next()) {
-                out.writeInt(hashes.value());
+            if (compact) {
+                writeSortedHashes(hashes, out);
+            } else {
+                while (hashes.next()) {
+                    out.writeInt(hashes.value());
+                }
             }
         } else {
             out.writeBoolean(HYPERLOGLOG);
             AbstractHyperLogLog.RunLenIterator iterator = getHyperLogLog(bucket);
-            while (iterator.next()) {
-                out.writeByte(iterator.value());
+            if (compact) {
+                writeRegisters(iterator, out);
+            } else {
+                while (iterator.next()) {
+                    out.writeByte(iterator.value());
+                }
             }
         }
     }
 
+    private static void writeSortedHashes(AbstractLinearCounting.HashesIterator hashes, StreamOutput out) throws IOException {
+        final long[] sorted = new long[hashes.size()];
+        for (int i = 0; hashes.next(); i++) {
+            sorted[i] = Integer.toUnsignedLong(hashes.value());
+        }
+        Arrays.sort(sorted);
+        long previous = 0;
+        for (long hash : sorted) {
+            out.writeVLong(hash - previous);
+            previous = hash;
+        }
+    }
+
+    private void writeRegisters(AbstractHyperLogLog.RunLenIterator iterator, StreamOutput out) throws IOException {
+        final byte[] registers = new byte[1 << precision()];
+        int maxRunLen = 0;
+        int setRegisters = 0;
+        long sparseBytes = 0;
+        for (int i = 0, previous = 0; iterator.next(); i++) {
+            registers[i] = iterator.value();
+            if (registers[i] != 0) {
+                maxRunLen = Math.max(maxRunLen, registers[i]);
+                setRegisters++;
+                sparseBytes += vIntBytes(i - previous) + 1;
+                previous = i;
+            }
+        }
+        sparseBytes += vIntBytes(setRegisters);
+        final int bitsPerRegister = PackedInts.bitsRequired(maxRunLen);
+        final long packedBytes = ((long) registers.length * bitsPerRegister + Byte.SIZE - 1) / Byte.SIZE;
+        if (sparseBytes <= packedBytes) {
+            out.writeByte(SPARSE_REGISTERS);
+            out.writeVInt(setRegisters);
+            for (int i = 0, previous = 0; i < registers.length; i++) {
+                if (registers[i] != 0) {
+                    out.writeVInt(i - previous);
+                    out.writeByte(registers[i]);
+                    previous = i;
+                }
+            }
+        } else {
+            out.writeByte((byte) bitsPerRegister);
+            long buffer = 0;
+            int bufferedBits = 0;
+            for (byte register : registers) {
+                buffer |= ((long) register) << bufferedBits;
+                bufferedBits += bitsPerRegister;
+                while (bufferedBits >= Byte.SIZE) {
+                    out.writeByte((byte) buffer);
+                    buffer >>>= Byte.SIZE;
+                    bufferedBits -= Byte.SIZE;
+                }
+            }
+            if (bufferedBits > 0) {
+                out.writeByte((byte) buffer);
+            }
+        }
+    }
+
+    private static int vIntBytes(int value) {
+        return (Integer.SIZE - Integer.numberOfLeadingZeros(value | 1) + 6) / 7;
+    }
+
     public static AbstractHyperLogLogPlusPlus readFrom(StreamInput in, BigArrays bigArrays) throws IOException {
         final int precision = in.readVInt();
         final boolean algorithm = in.readBoolean();
+        final boolean compact = in.getVersion().onOrAfter(Version.V_8_1_0);
         if (algorithm == LINEAR_COUNTING) {
             // we use a sparse structure for linear counting
             final long size = in.readVLong();
             HyperLogLogPlusPlusSparse counts = new HyperLogLogPlusPlusSparse(precision, bigArrays, 1);
             counts.ensureCapacity(0, size);
+            long hash = 0;
             for (long i = 0; i < size; ++i) {
-                counts.addEncoded(0, in.readInt());
+                if (compact) {
+                    hash += in.readVLong();
+                    counts.addEncoded(0, (int) hash);
+                } else {
+                    counts.addEncoded(0, in.readInt());
+                }
             }
             return counts;
         } else {
             HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(precision, bigArrays, 1);
+            counts.upgradeToHll(0);
             final int registers = 1 << precision;
-            for (int i = 0; i < registers; ++i) {
-                counts.addRunLen(0, i, in.readByte());
+            if (compact == false) {
+                for (int i = 0; i < registers; ++i) {
+                    counts.addRunLen(0, i, in.readByte());
+                }
+                return counts;
+            }
+            final byte bitsPerRegister = in.readByte();
+            if (bitsPerRegister == SPARSE_REGISTERS) {
+                final int setRegisters = in.readVInt();
+                for (int i = 0, register = 0; i < setRegisters; i++) {
+                    register += in.readVInt();
+                    counts.addRunLen(0, register, in.readByte());
+                }
+            } else {
+                final long mask = (1L << bitsPerRegister) - 1;
+                long buffer = 0;
+                int bufferedBits = 0;
+                for (int i = 0; i < registers; ++i) {
+                    while (bufferedBits < bitsPerRegister) {
+                        buffer |= (in.readByte() & 0xFFL) << bufferedBits;
+                        bufferedBits += Byte.SIZE;
+                    }
+                    counts.addRunLen(0, i, (int) (buffer & mask));
+                    buffer >>>= bitsPerRegister;
+                    bufferedBits -= bitsPerRegister;
+                }
             }
             return counts;
         }
@@ -13,6 +13,7 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.AggregationReduceContext;
 import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.support.SamplingContext;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
@@ -124,6 +125,12 @@ abstract class AbstractInternalTDigestPercentiles extends InternalNumericMetrics
         Map<String, Object> metadata
     );
 
+    @Override
+    public InternalAggregation finalizeSampling(SamplingContext samplingContext) {
+        // percentiles and ranks don't grow with the number of values
+        return this;
+    }
+
     @Override
     public XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
         if (keyed) {
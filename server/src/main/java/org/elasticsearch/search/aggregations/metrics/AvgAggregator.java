@@ -16,6 +16,7 @@ import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.BlockLeafBucketCollector;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
@@ -66,6 +67,20 @@ class AvgAggregator extends NumericMetricsAggregator.SingleValue {
         }
         final SortedNumericDoubleValues values = valuesSource.doubleValues(ctx);
         final CompensatedSum kahanSummation = new CompensatedSum(0, 0);
+        if (canCollectInBlocks(valuesSource.needsScores())) {
+            return registerBlockCollector(new BlockLeafBucketCollector(values) {
+                @Override
+                protected void collectBlock(int[] docs, int[] docValueCounts, int docCount, double[] values, int valueCount) {
+                    counts.increment(0, valueCount);
+                    kahanSummation.reset(sums.get(0), compensations.get(0));
+                    for (int i = 0; i < valueCount; i++) {
+                        kahanSummation.add(values[i]);
+                    }
+                    sums.set(0, kahanSummation.value());
+                    compensations.set(0, kahanSummation.delta());
+                }
+            });
+        }
 
         return new LeafBucketCollectorBase(sub, values) {
             @Override
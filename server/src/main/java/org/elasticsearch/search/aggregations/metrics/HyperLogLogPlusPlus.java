@@ -8,25 +8,21 @@
 
 package org.elasticsearch.search.aggregations.metrics;
 
-import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.BitArray;
 import org.elasticsearch.common.util.ByteArray;
-import org.elasticsearch.common.util.ByteUtils;
 import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.ObjectArray;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-
 /**
  * Hyperloglog++ counter, implemented based on pseudo code from
  * http://static.googleusercontent.com/media/research.google.com/fr//pubs/archive/40671.pdf and its appendix
  * https://docs.google.com/document/d/1gyjfMHy43U9OWBXxfaeG-3MjGzejW1dlpyMwEYAAWEI/view?fullscreen
  *
- * This implementation is different from the original implementation in that it uses a hash table instead of a sorted list for linear
+ * This implementation is different from the original implementation in that it uses hash tables instead of sorted lists for linear
  * counting. Although this requires more space and makes hyperloglog (which is less accurate) used sooner, this is also considerably faster.
  *
  * Trying to understand what this class does without having read the paper is considered adventurous.
@@ -35,11 +31,18 @@ import java.nio.ByteOrder;
  * data structure are processed using the linear counting until a threshold defined by the precision is reached where the data is replayed
  * to the HyperLogLog algorithm and then this is used.
  *
- * It supports storing several HyperLogLogPlusPlus structures which are identified by a bucket number.
+ * It supports storing several HyperLogLogPlusPlus structures which are identified by a bucket number. The memory of a bucket is adaptive:
+ * the hash table of a bucket that uses linear counting starts small and grows with the number of hashes it holds, and the registers of the
+ * HyperLogLog algorithm are only allocated for the buckets that switch to it. So aggregations with many buckets that only see a few
+ * distinct values each don't need the registers of every bucket.
  */
 public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
 
     private static final float MAX_LOAD_FACTOR = 0.75f;
+    /**
+     * The initial capacity of the hash table of a bucket that uses linear counting.
+     */
+    private static final int INITIAL_LINEAR_COUNTING_CAPACITY = 16;
 
     public static final int DEFAULT_PRECISION = 14;
 
@@ -59,7 +62,7 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
     }
 
     /**
-     * Return the expected per-bucket memory usage for the given precision.
+     * Return the maximum per-bucket memory usage for the given precision.
      */
     public static long memoryUsage(int precision) {
         return 1L << precision;
@@ -72,8 +75,8 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
         BitArray algorithm = null;
         boolean success = false;
         try {
-            hll = new HyperLogLog(bigArrays, initialBucketCount, precision);
-            lc = new LinearCounting(bigArrays, initialBucketCount, precision, hll);
+            hll = new HyperLogLog(bigArrays, precision);
+            lc = new LinearCounting(bigArrays, initialBucketCount, precision);
             algorithm = new BitArray(1, bigArrays);
             success = true;
         } finally {
@@ -88,7 +91,7 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
 
     @Override
     public long maxOrd() {
-        return hll.maxOrd();
+        return lc.maxOrd();
     }
 
     @Override
@@ -117,7 +120,7 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
 
     @Override
     public void collect(long bucket, long hash) {
-        hll.ensureCapacity(bucket + 1);
+        lc.ensureCapacity(bucket + 1);
         if (algorithm.get(bucket) == LINEAR_COUNTING) {
             final int newSize = lc.collect(bucket, hash);
             if (newSize > lc.threshold) {
@@ -137,37 +140,25 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
         if (algorithm.get(bucketOrd) == LINEAR_COUNTING) {
             upgradeToHll(bucketOrd);
         }
-        hll.addRunLen(0, register, runLen);
+        hll.addRunLen(bucketOrd, register, runLen);
     }
 
     void upgradeToHll(long bucketOrd) {
-        hll.ensureCapacity(bucketOrd + 1);
+        lc.ensureCapacity(bucketOrd + 1);
+        hll.allocate(bucketOrd);
         final AbstractLinearCounting.HashesIterator hashes = lc.values(bucketOrd);
-        // We need to copy values into an arrays as we will override
-        // the values on the buffer
-        final IntArray values = lc.bigArrays.newIntArray(hashes.size());
-        try {
-            int i = 0;
-            while (hashes.next()) {
-                values.set(i++, hashes.value());
-            }
-            assert i == hashes.size();
-            hll.reset(bucketOrd);
-            for (long j = 0; j < values.size(); ++j) {
-                final int encoded = values.get(j);
-                hll.collectEncoded(bucketOrd, encoded);
-            }
-            algorithm.set(bucketOrd);
-        } finally {
-            Releasables.close(values);
+        while (hashes.next()) {
+            hll.collectEncoded(bucketOrd, hashes.value());
         }
+        lc.release(bucketOrd);
+        algorithm.set(bucketOrd);
     }
 
     public void merge(long thisBucket, AbstractHyperLogLogPlusPlus other, long otherBucket) {
         if (precision() != other.precision()) {
             throw new IllegalArgumentException();
         }
-        hll.ensureCapacity(thisBucket + 1);
+        lc.ensureCapacity(thisBucket + 1);
         if (other.getAlgorithm(otherBucket) == LINEAR_COUNTING) {
             merge(thisBucket, other.getLinearCounting(otherBucket));
         } else {
@@ -199,66 +190,94 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
         }
     }
 
+    /**
+     * The registers of the buckets that use the HyperLogLog algorithm. Every such bucket gets a slot of {@code m} registers the first
+     * time it switches to it, the buckets that use linear counting don't use any register.
+     */
     private static class HyperLogLog extends AbstractHyperLogLog implements Releasable {
         private final BigArrays bigArrays;
         private final HyperLogLogIterator iterator;
-        // array for holding the runlens.
+        // the slot of the registers of each bucket, plus one so that 0 means that the bucket doesn't have registers
+        private IntArray slots;
+        private int numSlots;
+        // array for holding the runlens, m per slot.
         private ByteArray runLens;
 
-        HyperLogLog(BigArrays bigArrays, long initialBucketCount, int precision) {
+        HyperLogLog(BigArrays bigArrays, int precision) {
             super(precision);
-            this.runLens = bigArrays.newByteArray(initialBucketCount << precision);
             this.bigArrays = bigArrays;
-            this.iterator = new HyperLogLogIterator(this, precision, m);
-        }
-
-        public long maxOrd() {
-            return runLens.size() >>> precision();
+            IntArray slots = null;
+            ByteArray runLens = null;
+            boolean success = false;
+            try {
+                slots = bigArrays.newIntArray(0);
+                runLens = bigArrays.newByteArray(0);
+                success = true;
+            } finally {
+                if (success == false) {
+                    Releasables.close(slots, runLens);
+                }
+            }
+            this.slots = slots;
+            this.runLens = runLens;
+            this.iterator = new HyperLogLogIterator(this, m);
         }
 
         @Override
         protected void addRunLen(long bucketOrd, int register, int encoded) {
-            final long bucketIndex = (bucketOrd << p) + register;
+            final long bucketIndex = start(bucketOrd) + register;
             runLens.set(bucketIndex, (byte) Math.max(encoded, runLens.get(bucketIndex)));
         }
 
         @Override
         protected RunLenIterator getRunLens(long bucketOrd) {
-            iterator.reset(bucketOrd);
+            iterator.reset(start(bucketOrd));
             return iterator;
         }
 
-        protected void reset(long bucketOrd) {
-            runLens.fill(bucketOrd << p, (bucketOrd << p) + m, (byte) 0);
+        /**
+         * Gives empty registers to the given bucket.
+         */
+        protected void allocate(long bucketOrd) {
+            slots = bigArrays.grow(slots, bucketOrd + 1);
+            int slot = slots.get(bucketOrd) - 1;
+            if (slot < 0) {
+                slot = numSlots++;
+                runLens = bigArrays.grow(runLens, (long) numSlots << p);
+                slots.set(bucketOrd, slot + 1);
+            }
+            final long start = (long) slot << p;
+            runLens.fill(start, start + m, (byte) 0);
         }
 
-        protected void ensureCapacity(long numBuckets) {
-            runLens = bigArrays.grow(runLens, numBuckets << p);
+        private long start(long bucketOrd) {
+            final int slot = slots.get(bucketOrd) - 1;
+            assert slot >= 0 : "bucket [" + bucketOrd + "] doesn't use hll";
+            return (long) slot << p;
         }
 
         @Override
         public void close() {
-            Releasables.close(runLens);
+            Releasables.close(slots, runLens);
         }
     }
 
     private static class HyperLogLogIterator implements AbstractHyperLogLog.RunLenIterator {
 
         private final HyperLogLog hll;
-        private final int m, p;
+        private final int m;
         int pos;
         long start;
         private byte value;
 
-        HyperLogLogIterator(HyperLogLog hll, int p, int m) {
+        HyperLogLogIterator(HyperLogLog hll, int m) {
             this.hll = hll;
             this.m = m;
-            this.p = p;
         }
 
-        void reset(long bucket) {
+        void reset(long start) {
             pos = 0;
-            start = bucket << p;
+            this.start = start;
         }
 
         @Override
@@ -277,49 +296,111 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
         }
     }
 
+    /**
+     * The hashes of the buckets that use linear counting. Every bucket has its own hash table that starts small and doubles when it
+     * gets full, up to the size of the registers of the HyperLogLog algorithm.
+     */
     private static class LinearCounting extends AbstractLinearCounting implements Releasable {
 
         protected final int threshold;
-        private final int mask;
-        private final BytesRef readSpare;
-        private final ByteBuffer writeSpare;
+        private final int maxCapacity;
         private final BigArrays bigArrays;
         private final LinearCountingIterator iterator;
-        // We are actually using HyperLogLog's runLens array but interpreting it as a hash set for linear counting.
-        private final HyperLogLog hll;
+        // the hash table of each bucket, null until the bucket gets a hash
+        private ObjectArray<IntArray> hashes;
         // Number of elements stored.
         private IntArray sizes;
 
-        LinearCounting(BigArrays bigArrays, long initialBucketCount, int p, HyperLogLog hll) {
+        LinearCounting(BigArrays bigArrays, long initialBucketCount, int p) {
             super(p);
             this.bigArrays = bigArrays;
-            this.hll = hll;
-            final int capacity = (1 << p) / 4; // because ints take 4 bytes
-            threshold = (int) (capacity * MAX_LOAD_FACTOR);
-            mask = capacity - 1;
-            sizes = bigArrays.newIntArray(initialBucketCount);
-            readSpare = new BytesRef();
-            writeSpare = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
-            iterator = new LinearCountingIterator(this, capacity);
+            maxCapacity = (1 << p) / 4; // because ints take 4 bytes
+            threshold = (int) (maxCapacity * MAX_LOAD_FACTOR);
+            ObjectArray<IntArray> hashes = null;
+            IntArray sizes = null;
+            boolean success = false;
+            try {
+                hashes = bigArrays.newObjectArray(initialBucketCount);
+                sizes = bigArrays.newIntArray(initialBucketCount);
+                success = true;
+            } finally {
+                if (success == false) {
+                    Releasables.close(hashes, sizes);
+                }
+            }
+            this.hashes = hashes;
+            this.sizes = sizes;
+            iterator = new LinearCountingIterator();
+        }
+
+        long maxOrd() {
+            return sizes.size();
+        }
+
+        void ensureCapacity(long numBuckets) {
+            hashes = bigArrays.grow(hashes, numBuckets);
+            sizes = bigArrays.grow(sizes, numBuckets);
         }
 
         @Override
         protected int addEncoded(long bucketOrd, int encoded) {
-            sizes = bigArrays.grow(sizes, bucketOrd + 1);
+            ensureCapacity(bucketOrd + 1);
             assert encoded != 0;
+            IntArray table = hashes.get(bucketOrd);
+            if (table == null) {
+                table = bigArrays.newIntArray(Math.min(INITIAL_LINEAR_COUNTING_CAPACITY, maxCapacity));
+                hashes.set(bucketOrd, table);
+            }
+            if (insert(table, encoded) == false) {
+                // k is already in the set
+                return -1;
+            }
+            final int size = sizes.increment(bucketOrd, 1);
+            if (size > table.size() * MAX_LOAD_FACTOR && table.size() < maxCapacity) {
+                grow(bucketOrd, table);
+            }
+            return size;
+        }
+
+        private static boolean insert(IntArray table, int encoded) {
+            final int mask = (int) table.size() - 1;
             for (int i = (encoded & mask);; i = (i + 1) & mask) {
-                final int v = get(bucketOrd, i);
+                final int v = table.get(i);
                 if (v == 0) {
                     // means unused, take it!
-                    set(bucketOrd, i, encoded);
-                    return sizes.increment(bucketOrd, 1);
+                    table.set(i, encoded);
+                    return true;
                 } else if (v == encoded) {
-                    // k is already in the set
-                    return -1;
+                    return false;
                 }
             }
         }
 
+        private void grow(long bucketOrd, IntArray table) {
+            final IntArray grown = bigArrays.newIntArray(table.size() * 2);
+            boolean success = false;
+            try {
+                for (long i = 0; i < table.size(); i++) {
+                    final int v = table.get(i);
+                    if (v != 0) {
+                        insert(grown, v);
+                    }
+                }
+                hashes.set(bucketOrd, grown);
+                success = true;
+            } finally {
+                Releasables.close(success ? table : grown);
+            }
+        }
+
+        /**
+         * Releases the hashes of the given bucket, once it switched to the HyperLogLog algorithm.
+         */
+        void release(long bucketOrd) {
+            Releasables.close(hashes.set(bucketOrd, null));
+            sizes.set(bucketOrd, 0);
+        }
+
         @Override
         protected int size(long bucketOrd) {
             if (bucketOrd >= sizes.size()) {
@@ -332,32 +413,18 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
 
         @Override
         protected HashesIterator values(long bucketOrd) {
-            iterator.reset(bucketOrd, size(bucketOrd));
+            iterator.reset(bucketOrd >= hashes.size() ? null : hashes.get(bucketOrd), size(bucketOrd));
             return iterator;
         }
 
-        private long index(long bucketOrd, int index) {
-            return (bucketOrd << p) + (index << 2);
-        }
-
-        private int get(long bucketOrd, int index) {
-            hll.runLens.get(index(bucketOrd, index), 4, readSpare);
-            return ByteUtils.readIntLE(readSpare.bytes, readSpare.offset);
-        }
-
-        private void set(long bucketOrd, int index, int value) {
-            writeSpare.putInt(0, value);
-            hll.runLens.set(index(bucketOrd, index), writeSpare.array(), 0, 4);
-        }
-
         private int recomputedSize(long bucketOrd) {
-            if (bucketOrd >= hll.maxOrd()) {
+            final IntArray table = hashes.get(bucketOrd);
+            if (table == null) {
                 return 0;
             }
             int size = 0;
-            for (int i = 0; i <= mask; ++i) {
-                final int v = get(bucketOrd, i);
-                if (v != 0) {
+            for (long i = 0; i < table.size(); ++i) {
+                if (table.get(i) != 0) {
                     ++size;
                 }
             }
@@ -366,27 +433,26 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
 
         @Override
         public void close() {
-            Releasables.close(sizes);
+            for (long i = 0; i < hashes.size(); i++) {
+                Releasables.close(hashes.get(i));
+            }
+            Releasables.close(hashes, sizes);
         }
     }
 
     private static class LinearCountingIterator implements AbstractLinearCounting.HashesIterator {
 
-        private final LinearCounting lc;
-        private final int capacity;
-        private int pos, size;
-        private long bucketOrd;
+        private IntArray table;
+        private long capacity;
+        private long pos;
+        private int size;
         private int value;
 
-        LinearCountingIterator(LinearCounting lc, int capacity) {
-            this.lc = lc;
-            this.capacity = capacity;
-        }
-
-        void reset(long bucketOrd, int size) {
-            this.bucketOrd = bucketOrd;
+        void reset(IntArray table, int size) {
+            this.table = table;
             this.size = size;
-            this.pos = size == 0 ? capacity : 0;
+            this.capacity = table == null ? 0 : table.size();
+            this.pos = 0;
         }
 
         @Override
@@ -396,14 +462,12 @@ public final class HyperLogLogPlusPlus extends AbstractHyperLogLogPlusPlus {
 
         @Override
         public boolean next() {
-            if (pos < capacity) {
-                for (; pos < capacity; ++pos) {
-                    final int k = lc.get(bucketOrd, pos);
-                    if (k != 0) {
-                        ++pos;
-                        value = k;
-                        return true;
-                    }
+            for (; pos < capacity; ++pos) {
+                final int k = table.get(pos);
+                if (k != 0) {
+                    ++pos;
+                    value = k;
+                    return true;
                 }
             }
             return false;
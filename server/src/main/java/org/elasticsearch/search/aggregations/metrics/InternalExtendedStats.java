@@ -12,6 +12,7 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.AggregationReduceContext;
 import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.support.SamplingContext;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
@@ -289,6 +290,22 @@ public class InternalExtendedStats extends InternalStats implements ExtendedStat
         );
     }
 
+    @Override
+    public InternalAggregation finalizeSampling(SamplingContext samplingContext) {
+        // the variance and the standard deviation follow from the rescaled count, sum and sum of squares
+        return new InternalExtendedStats(
+            name,
+            samplingContext.scaleUp(count),
+            samplingContext.scaleUp(sum),
+            min,
+            max,
+            samplingContext.scaleUp(sumOfSqrs),
+            sigma,
+            format,
+            getMetadata()
+        );
+    }
+
     static class Fields {
         public static final String SUM_OF_SQRS = "sum_of_squares";
         public static final String SUM_OF_SQRS_AS_STRING = "sum_of_squares_as_string";
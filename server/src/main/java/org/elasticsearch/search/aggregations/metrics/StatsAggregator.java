@@ -16,6 +16,7 @@ import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.BlockLeafBucketCollector;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
@@ -71,6 +72,27 @@ class StatsAggregator extends NumericMetricsAggregator.MultiValue {
         }
         final SortedNumericDoubleValues values = valuesSource.doubleValues(ctx);
         final CompensatedSum kahanSummation = new CompensatedSum(0, 0);
+        if (canCollectInBlocks(valuesSource.needsScores())) {
+            return registerBlockCollector(new BlockLeafBucketCollector(values) {
+                @Override
+                protected void collectBlock(int[] docs, int[] docValueCounts, int docCount, double[] values, int valueCount) {
+                    counts.increment(0, valueCount);
+                    double min = mins.get(0);
+                    double max = maxes.get(0);
+                    kahanSummation.reset(sums.get(0), compensations.get(0));
+                    for (int i = 0; i < valueCount; i++) {
+                        double value = values[i];
+                        kahanSummation.add(value);
+                        min = Math.min(min, value);
+                        max = Math.max(max, value);
+                    }
+                    sums.set(0, kahanSummation.value());
+                    compensations.set(0, kahanSummation.delta());
+                    mins.set(0, min);
+                    maxes.set(0, max);
+                }
+            });
+        }
 
         return new LeafBucketCollectorBase(sub, values) {
             @Override
@@ -14,6 +14,7 @@ import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.BlockLeafBucketCollector;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
@@ -61,6 +62,19 @@ public class SumAggregator extends NumericMetricsAggregator.SingleValue {
         }
         final SortedNumericDoubleValues values = valuesSource.doubleValues(ctx);
         final CompensatedSum kahanSummation = new CompensatedSum(0, 0);
+        if (canCollectInBlocks(valuesSource.needsScores())) {
+            return registerBlockCollector(new BlockLeafBucketCollector(values) {
+                @Override
+                protected void collectBlock(int[] docs, int[] docValueCounts, int docCount, double[] values, int valueCount) {
+                    kahanSummation.reset(sums.get(0), compensations.get(0));
+                    for (int i = 0; i < valueCount; i++) {
+                        kahanSummation.add(values[i]);
+                    }
+                    compensations.set(0, kahanSummation.delta());
+                    sums.set(0, kahanSummation.value());
+                }
+            });
+        }
         return new LeafBucketCollectorBase(sub, values) {
             @Override
             public void collect(int doc, long bucket) throws IOException {
@@ -282,6 +282,14 @@ public abstract class AggregationContext implements Releasable {
      */
     public abstract boolean enableRewriteToFilterByFilter();
 
+    /**
+     * The state that aggregations keep between the requests of a point in
+     * time, or {@code null} if the request doesn't use a point in time or
+     * the aggregations must not keep state between requests.
+     */
+    @Nullable
+    public abstract AggregationCursors cursors();
+
     /**
      * Implementation of {@linkplain AggregationContext} for production usage
      * that wraps our ubiquitous {@link SearchExecutionContext} and anything else
@@ -303,6 +311,7 @@ public abstract class AggregationContext implements Releasable {
         private final Supplier<Boolean> isCancelled;
         private final Function<Query, Query> filterQuery;
         private final boolean enableRewriteToFilterByFilter;
+        private final AggregationCursors cursors;
         private final AnalysisRegistry analysisRegistry;
 
         private final List<Aggregator> releaseMe = new ArrayList<>();
@@ -321,7 +330,8 @@ public abstract class AggregationContext implements Releasable {
             LongSupplier relativeTimeInMillis,
             Supplier<Boolean> isCancelled,
             Function<Query, Query> filterQuery,
-            boolean enableRewriteToFilterByFilter
+            boolean enableRewriteToFilterByFilter,
+            @Nullable AggregationCursors cursors
         ) {
             this.analysisRegistry = analysisRegistry;
             this.context = context;
@@ -354,6 +364,7 @@ public abstract class AggregationContext implements Releasable {
             this.isCancelled = isCancelled;
             this.filterQuery = filterQuery;
             this.enableRewriteToFilterByFilter = enableRewriteToFilterByFilter;
+            this.cursors = cursors;
         }
 
         @Override
@@ -531,6 +542,11 @@ public abstract class AggregationContext implements Releasable {
             return enableRewriteToFilterByFilter;
         }
 
+        @Override
+        public AggregationCursors cursors() {
+            return cursors;
+        }
+
         @Override
         public void close() {
             /*
@@ -0,0 +1,70 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.support;
+
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the state that aggregations keep between the requests of a point in time reader, so that paging through the results of an
+ * aggregation can resume where the previous page stopped instead of starting over. The state lives as long as the reader, and is
+ * released when it is replaced or when the reader is closed.
+ * <p>
+ * The requests of a point in time can run concurrently, so a cursor is taken out of the holder while a request uses it and is put back
+ * once the request is done with it. A request that finds no cursor just computes its page from scratch.
+ */
+public final class AggregationCursors implements Releasable {
+
+    private final Map<String, Releasable> cursors = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * Removes and returns the cursor stored under the given key, or {@code null} if there is none or if it has the wrong type. The caller
+     * is responsible for releasing the returned cursor, or for putting it back.
+     */
+    @Nullable
+    public <T extends Releasable> T take(String key, Class<T> type) {
+        final Releasable cursor = cursors.remove(key);
+        if (type.isInstance(cursor)) {
+            return type.cast(cursor);
+        }
+        Releasables.close(cursor);
+        return null;
+    }
+
+    /**
+     * Stores the given cursor under the given key, releasing the previous one if any.
+     */
+    public void put(String key, Releasable cursor) {
+        Releasables.close(cursors.put(key, cursor));
+        if (closed) {
+            // the reader was closed while the request was using the cursor
+            close();
+        }
+    }
+
+    /**
+     * The number of cursors that are stored.
+     */
+    public int size() {
+        return cursors.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (String key : cursors.keySet()) {
+            Releasables.close(cursors.remove(key));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.support;
+
+/**
+ * The sampling of the documents that an aggregation collected, used to rescale its results to estimates for all the documents.
+ */
+public final class SamplingContext {
+
+    private final double probability;
+
+    /**
+     * @param probability the probability with which every document was sampled, between 0 exclusive and 1 inclusive
+     */
+    public SamplingContext(double probability) {
+        if (probability <= 0 || probability > 1) {
+            throw new IllegalArgumentException("[probability] must be between 0 exclusive and 1 inclusive but was [" + probability + "]");
+        }
+        this.probability = probability;
+    }
+
+    public double probability() {
+        return probability;
+    }
+
+    /**
+     * Whether every document was collected, in which case the results don't need to be rescaled.
+     */
+    public boolean isSampled() {
+        return probability < 1;
+    }
+
+    /**
+     * Rescales a count of the sampled documents or values to an estimate of the count of all the documents or values.
+     */
+    public long scaleUp(long count) {
+        if (isSampled() == false || count < 0) {
+            // negative counts, like an unbounded doc count error, aren't counts
+            return count;
+        }
+        return Math.round(count / probability);
+    }
+
+    /**
+     * Rescales a sum over the sampled documents to an estimate of the sum over all the documents.
+     */
+    public double scaleUp(double sum) {
+        return isSampled() ? sum / probability : sum;
+    }
+}
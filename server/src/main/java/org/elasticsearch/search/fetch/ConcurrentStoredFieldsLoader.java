@@ -0,0 +1,122 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.fetch;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.elasticsearch.common.CheckedBiConsumer;
+import org.elasticsearch.common.lucene.index.SequentialStoredFieldsLeafReader;
+import org.elasticsearch.common.util.concurrent.FutureUtils;
+import org.elasticsearch.core.CheckedRunnable;
+import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.tasks.TaskCancelledException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Loads the stored fields of the hits of the fetch phase concurrently, before the fetch sub phases run. The hits are split by segment,
+ * and the hits of a segment into chunks of consecutive hits if there are many of them, and every chunk is loaded by its own task with
+ * its own stored fields reader. Chunks of adjacent documents are read with the sequential stored fields reader of their segment, which
+ * decompresses a block of stored fields once for all the documents of the block rather than once per document.
+ */
+public final class ConcurrentStoredFieldsLoader {
+
+    /**
+     * Hits are not split into chunks of fewer hits, loading them isn't worth a task.
+     */
+    public static final int MIN_HITS_PER_CHUNK = 32;
+
+    private ConcurrentStoredFieldsLoader() {}
+
+    /**
+     * Loads the stored fields of the given documents. The tasks run on the given executor, the calling thread loads the last chunk and
+     * the chunks that the executor rejects. This method returns or throws only once every chunk is done.
+     *
+     * @param leaves the leaves of the reader that the documents belong to
+     * @param docIds the top level ids of the documents, sorted in ascending order
+     * @param visitorSupplier creates the visitor of a document
+     * @param fieldTypeLookup the lookup of the field types to post-process the loaded fields with
+     * @param isCancelled whether the search was cancelled, checked before every document
+     * @param executor the executor to run the tasks on
+     * @param parallelism the maximum number of chunks that the documents are split into, unless segments split them further
+     * @return the post-processed visitor of every document, in the order of the given ids
+     */
+    public static FieldsVisitor[] load(
+        List<LeafReaderContext> leaves,
+        int[] docIds,
+        Supplier<FieldsVisitor> visitorSupplier,
+        Function<String, MappedFieldType> fieldTypeLookup,
+        BooleanSupplier isCancelled,
+        Executor executor,
+        int parallelism
+    ) throws IOException {
+        final FieldsVisitor[] visitors = new FieldsVisitor[docIds.length];
+        final int maxChunkSize = Math.max(MIN_HITS_PER_CHUNK, (docIds.length + parallelism - 1) / parallelism);
+        final List<CheckedRunnable<IOException>> tasks = new ArrayList<>();
+        int start = 0;
+        while (start < docIds.length) {
+            final LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(docIds[start], leaves));
+            final int leafEnd = leaf.docBase + leaf.reader().maxDoc();
+            int end = start + 1;
+            while (end < docIds.length && end - start < maxChunkSize && docIds[end] < leafEnd) {
+                end++;
+            }
+            final int from = start;
+            final int to = end;
+            tasks.add(() -> loadChunk(leaf, docIds, from, to, visitors, visitorSupplier, fieldTypeLookup, isCancelled));
+            start = end;
+        }
+        // the readers of the segments must not be closed before every chunk is done
+        FutureUtils.runAllAndWait(tasks, executor);
+        return visitors;
+    }
+
+    private static void loadChunk(
+        LeafReaderContext leaf,
+        int[] docIds,
+        int from,
+        int to,
+        FieldsVisitor[] visitors,
+        Supplier<FieldsVisitor> visitorSupplier,
+        Function<String, MappedFieldType> fieldTypeLookup,
+        BooleanSupplier isCancelled
+    ) throws IOException {
+        final CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader;
+        if (leaf.reader() instanceof SequentialStoredFieldsLeafReader && isSequential(docIds, from, to)) {
+            // same as the sequential fetch, but for the documents of the chunk only
+            fieldReader = ((SequentialStoredFieldsLeafReader) leaf.reader()).getSequentialStoredFieldsReader()::visitDocument;
+        } else {
+            fieldReader = leaf.reader()::document;
+        }
+        for (int i = from; i < to; i++) {
+            if (isCancelled.getAsBoolean()) {
+                throw new TaskCancelledException("cancelled");
+            }
+            final FieldsVisitor visitor = visitorSupplier.get();
+            fieldReader.accept(docIds[i] - leaf.docBase, visitor);
+            visitor.postProcess(fieldTypeLookup);
+            visitors[i] = visitor;
+        }
+    }
+
+    /**
+     * Whether the documents of a chunk are adjacent and numerous enough to be read sequentially, like {@link FetchPhase} decides for all
+     * the documents of a fetch.
+     */
+    static boolean isSequential(int[] docIds, int from, int to) {
+        return to - from >= 10 && docIds[to - 1] - docIds[from] == to - from - 1;
+    }
+}
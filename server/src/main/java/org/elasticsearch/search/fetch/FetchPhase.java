@@ -14,6 +14,7 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.common.CheckedBiConsumer;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.document.DocumentField;
 import org.elasticsearch.common.lucene.index.SequentialStoredFieldsLeafReader;
 import org.elasticsearch.common.xcontent.XContentHelper;
@@ -23,6 +24,7 @@ import org.elasticsearch.index.fieldvisitor.CustomFieldsVisitor;
 import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.mapper.SyntheticSourceLoader;
 import org.elasticsearch.index.query.SearchExecutionContext;
 import org.elasticsearch.search.LeafNestedDocuments;
 import org.elasticsearch.search.NestedDocuments;
@@ -38,6 +40,7 @@ import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.lookup.SourceLookup;
 import org.elasticsearch.search.profile.ProfileResult;
 import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
@@ -51,6 +54,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static java.util.Collections.emptyMap;
 
@@ -116,11 +120,20 @@ public class FetchPhase {
 
         List<FetchSubPhaseProcessor> processors = getProcessors(context.shardTarget(), fetchContext, profiler);
         NestedDocuments nestedDocuments = context.getSearchExecutionContext().getNestedDocuments();
+        SyntheticSourceLoader syntheticSourceLoader = fieldsVisitor != null && sourceRequired(context)
+            ? context.getSearchExecutionContext().syntheticSourceLoader()
+            : null;
+
+        FieldsVisitor[] loadedFields = null;
+        if (fieldsVisitor != null && useParallelFetch(context, profiler)) {
+            loadedFields = loadStoredFieldsConcurrently(context, docs, fieldsVisitor, storedToRequestedFields);
+        }
 
         int currentReaderIndex = -1;
         LeafReaderContext currentReaderContext = null;
         LeafNestedDocuments leafNestedDocuments = null;
         CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader = null;
+        SyntheticSourceLoader.Leaf syntheticSource = null;
         boolean hasSequentialDocs = hasSequentialDocs(docs);
         for (int index = 0; index < context.docIdsToLoadSize(); index++) {
             if (context.isCancelled()) {
@@ -134,7 +147,10 @@ public class FetchPhase {
                     try {
                         currentReaderContext = context.searcher().getIndexReader().leaves().get(readerIndex);
                         currentReaderIndex = readerIndex;
-                        if (currentReaderContext.reader() instanceof SequentialStoredFieldsLeafReader
+                        if (loadedFields != null) {
+                            // the stored fields are already loaded
+                            fieldReader = null;
+                        } else if (currentReaderContext.reader() instanceof SequentialStoredFieldsLeafReader
                             && hasSequentialDocs
                             && docs.length >= 10) {
                             // All the docs to fetch are adjacent but Lucene stored fields are optimized
@@ -150,6 +166,9 @@ public class FetchPhase {
                             processor.setNextReader(currentReaderContext);
                         }
                         leafNestedDocuments = nestedDocuments.getLeafNestedDocuments(currentReaderContext);
+                        if (syntheticSourceLoader != null) {
+                            syntheticSource = syntheticSourceLoader.leaf(currentReaderContext);
+                        }
                     } finally {
                         profiler.stopNextReader();
                     }
@@ -159,11 +178,12 @@ public class FetchPhase {
                     context,
                     profiler,
                     leafNestedDocuments,
-                    fieldsVisitor,
+                    loadedFields != null ? loadedFields[index] : fieldsVisitor,
                     docId,
                     storedToRequestedFields,
                     currentReaderContext,
-                    fieldReader
+                    fieldReader,
+                    syntheticSource
                 );
                 for (FetchSubPhaseProcessor processor : processors) {
                     processor.process(hit);
@@ -181,6 +201,51 @@ public class FetchPhase {
         return new SearchHits(hits, totalHits, context.queryResult().getMaxScore());
     }
 
+    /**
+     * Whether the stored fields of the hits should be loaded concurrently, see {@link ConcurrentStoredFieldsLoader}. Only large pages of
+     * hits without nested documents are loaded concurrently, and never when profiling since the profiler isn't thread-safe.
+     */
+    private static boolean useParallelFetch(SearchContext context, Profiler profiler) {
+        SearchExecutionContext searchExecutionContext = context.getSearchExecutionContext();
+        return context.docIdsToLoadSize() >= 2 * ConcurrentStoredFieldsLoader.MIN_HITS_PER_CHUNK
+            && profiler == Profiler.NOOP
+            && context instanceof InnerHitsContext.InnerHitSubContext == false
+            && searchExecutionContext.hasNested() == false
+            && searchExecutionContext.getIndexSettings().isParallelFetch();
+    }
+
+    private FieldsVisitor[] loadStoredFieldsConcurrently(
+        SearchContext context,
+        DocIdToIndex[] docs,
+        FieldsVisitor fieldsVisitor,
+        Map<String, Set<String>> storedToRequestedFields
+    ) {
+        boolean loadSource = sourceRequired(context);
+        Supplier<FieldsVisitor> visitorSupplier = fieldsVisitor instanceof CustomFieldsVisitor
+            ? () -> new CustomFieldsVisitor(storedToRequestedFields.keySet(), loadSource)
+            : () -> new FieldsVisitor(loadSource);
+        int[] docIds = new int[docs.length];
+        for (int i = 0; i < docs.length; i++) {
+            docIds[i] = docs[i].docId;
+        }
+        ThreadPool threadPool = context.indexShard().getThreadPool();
+        try {
+            return ConcurrentStoredFieldsLoader.load(
+                context.searcher().getIndexReader().leaves(),
+                docIds,
+                visitorSupplier,
+                context.getSearchExecutionContext()::getFieldType,
+                context::isCancelled,
+                threadPool.executor(ThreadPool.Names.SEARCH_WORKER),
+                threadPool.info(ThreadPool.Names.SEARCH_WORKER).getMax()
+            );
+        } catch (TaskCancelledException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FetchPhaseExecutionException(context.shardTarget(), "Error loading stored fields", e);
+        }
+    }
+
     List<FetchSubPhaseProcessor> getProcessors(SearchShardTarget target, FetchContext context, Profiler profiler) {
         try {
             List<FetchSubPhaseProcessor> processors = new ArrayList<>();
@@ -264,7 +329,8 @@ public class FetchPhase {
         int docId,
         Map<String, Set<String>> storedToRequestedFields,
         LeafReaderContext subReaderContext,
-        CheckedBiConsumer<Integer, FieldsVisitor, IOException> storedFieldReader
+        CheckedBiConsumer<Integer, FieldsVisitor, IOException> storedFieldReader,
+        SyntheticSourceLoader.Leaf syntheticSource
     ) throws IOException {
         if (nestedDocuments.advance(docId - subReaderContext.docBase) == null) {
             return prepareNonNestedHitContext(
@@ -274,7 +340,8 @@ public class FetchPhase {
                 docId,
                 storedToRequestedFields,
                 subReaderContext,
-                storedFieldReader
+                storedFieldReader,
+                syntheticSource
             );
         } else {
             return prepareNestedHitContext(
@@ -295,6 +362,7 @@ public class FetchPhase {
      *   - Adding an initial {@link SearchHit} instance.
      *   - Loading the document source and setting it on {@link HitContext#sourceLookup()}. This
      *     allows fetch subphases that use the hit context to access the preloaded source.
+     * The stored fields of the document are already loaded in the provided visitor if there is no <code>fieldReader</code>.
      */
     private HitContext prepareNonNestedHitContext(
         SearchContext context,
@@ -303,7 +371,8 @@ public class FetchPhase {
         int docId,
         Map<String, Set<String>> storedToRequestedFields,
         LeafReaderContext subReaderContext,
-        CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader
+        CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader,
+        SyntheticSourceLoader.Leaf syntheticSource
     ) throws IOException {
         int subDocId = docId - subReaderContext.docBase;
         if (fieldsVisitor == null) {
@@ -311,7 +380,9 @@ public class FetchPhase {
             return new HitContext(hit, subReaderContext, subDocId);
         } else {
             SearchHit hit;
-            loadStoredFields(context.getSearchExecutionContext()::getFieldType, profiler, fieldReader, fieldsVisitor, subDocId);
+            if (fieldReader != null) {
+                loadStoredFields(context.getSearchExecutionContext()::getFieldType, profiler, fieldReader, fieldsVisitor, subDocId);
+            }
             if (fieldsVisitor.fields().isEmpty() == false) {
                 Map<String, DocumentField> docFields = new HashMap<>();
                 Map<String, DocumentField> metaFields = new HashMap<>();
@@ -322,14 +393,19 @@ public class FetchPhase {
             }
 
             HitContext hitContext = new HitContext(hit, subReaderContext, subDocId);
-            if (fieldsVisitor.source() != null) {
+            BytesReference source = fieldsVisitor.source();
+            if (source == null && syntheticSource != null) {
+                // the source isn't stored, rebuild it from the doc values and stored fields of the document
+                source = syntheticSource.source(subDocId);
+            }
+            if (source != null) {
                 // Store the loaded source on the hit context so that fetch subphases can access it.
                 // Also make it available to scripts by storing it on the shared SearchLookup instance.
-                hitContext.sourceLookup().setSource(fieldsVisitor.source());
+                hitContext.sourceLookup().setSource(source);
 
                 SourceLookup scriptSourceLookup = context.getSearchExecutionContext().lookup().source();
                 scriptSourceLookup.setSegmentAndDocument(subReaderContext, subDocId);
-                scriptSourceLookup.setSource(fieldsVisitor.source());
+                scriptSourceLookup.setSource(source);
             }
             return hitContext;
         }
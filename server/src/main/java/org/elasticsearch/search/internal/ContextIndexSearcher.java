@@ -16,6 +16,7 @@ import org.apache.lucene.search.BulkScorer;
 import org.apache.lucene.search.CollectionStatistics;
 import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.ConjunctionUtils;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
@@ -33,6 +34,9 @@ import org.apache.lucene.util.BitSet;
 import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.SparseFixedBitSet;
+import org.elasticsearch.common.util.concurrent.FutureUtils;
+import org.elasticsearch.core.CheckedRunnable;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.lucene.util.CombinedBitSet;
 import org.elasticsearch.search.dfs.AggregatedDfs;
@@ -43,11 +47,15 @@ import org.elasticsearch.search.profile.query.QueryProfiler;
 import org.elasticsearch.search.profile.query.QueryTimingType;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -59,9 +67,18 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
      */
     private static int CHECK_CANCELLED_SCORER_INTERVAL = 1 << 11;
 
+    /**
+     * The minimum number of documents in a slice of a concurrent search, smaller slices cost more to hand over to another thread than
+     * what searching them concurrently saves.
+     */
+    static final int MIN_DOCS_PER_SLICE = 50_000;
+
     private AggregatedDfs aggregatedDfs;
     private QueryProfiler profiler;
     private MutableQueryTimeout cancellable;
+    private final Executor executor;
+    private final int maxSliceCount;
+    private LeafSlice[] slices;
 
     public ContextIndexSearcher(
         IndexReader reader,
@@ -70,7 +87,33 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         QueryCachingPolicy queryCachingPolicy,
         boolean wrapWithExitableDirectoryReader
     ) throws IOException {
-        this(reader, similarity, queryCache, queryCachingPolicy, new MutableQueryTimeout(), wrapWithExitableDirectoryReader);
+        this(reader, similarity, queryCache, queryCachingPolicy, wrapWithExitableDirectoryReader, null, 1);
+    }
+
+    /**
+     * Creates a searcher that searches the slices of its leaves concurrently in {@link #search(Query, CollectorManager)}.
+     * @param executor the executor to search the slices on, or {@code null} to search them one after the other on the calling thread
+     * @param maxSliceCount the maximum number of slices to split the leaves into, usually the number of threads of the executor
+     */
+    public ContextIndexSearcher(
+        IndexReader reader,
+        Similarity similarity,
+        QueryCache queryCache,
+        QueryCachingPolicy queryCachingPolicy,
+        boolean wrapWithExitableDirectoryReader,
+        @Nullable Executor executor,
+        int maxSliceCount
+    ) throws IOException {
+        this(
+            reader,
+            similarity,
+            queryCache,
+            queryCachingPolicy,
+            new MutableQueryTimeout(),
+            wrapWithExitableDirectoryReader,
+            executor,
+            maxSliceCount
+        );
     }
 
     private ContextIndexSearcher(
@@ -79,13 +122,17 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         QueryCache queryCache,
         QueryCachingPolicy queryCachingPolicy,
         MutableQueryTimeout cancellable,
-        boolean wrapWithExitableDirectoryReader
+        boolean wrapWithExitableDirectoryReader,
+        Executor executor,
+        int maxSliceCount
     ) throws IOException {
         super(wrapWithExitableDirectoryReader ? new ExitableDirectoryReader((DirectoryReader) reader, cancellable) : reader);
         setSimilarity(similarity);
         setQueryCache(queryCache);
         setQueryCachingPolicy(queryCachingPolicy);
         this.cancellable = cancellable;
+        this.executor = executor;
+        this.maxSliceCount = maxSliceCount;
     }
 
     public void setProfiler(QueryProfiler profiler) {
@@ -162,6 +209,103 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         }
     }
 
+    /**
+     * Returns the slices of leaves that {@link #search(Query, CollectorManager)} searches concurrently. There is a single slice with all
+     * leaves if this searcher has no executor or too few documents to be worth splitting.
+     */
+    public LeafSlice[] getConcurrentSlices() {
+        if (slices == null) {
+            slices = executor == null ? new LeafSlice[] { new LeafSlice(new ArrayList<>(leafContexts)) } : slices(leafContexts);
+        }
+        return slices;
+    }
+
+    @Override
+    protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+        return computeSlices(leaves, maxSliceCount, MIN_DOCS_PER_SLICE);
+    }
+
+    /**
+     * Splits the given leaves into at most {@code maxSliceCount} slices of at least {@code minDocsPerSlice} documents each. Leaves are
+     * assigned from the largest to the smallest to the slice that has the fewest documents so far, which keeps the slices balanced
+     * even though segments sizes are very skewed.
+     */
+    static LeafSlice[] computeSlices(List<LeafReaderContext> leaves, int maxSliceCount, int minDocsPerSlice) {
+        long totalDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            totalDocs += leaf.reader().maxDoc();
+        }
+        final int sliceCount = (int) Math.max(1, Math.min(Math.min(maxSliceCount, leaves.size()), totalDocs / minDocsPerSlice));
+        if (sliceCount == 1) {
+            return new LeafSlice[] { new LeafSlice(new ArrayList<>(leaves)) };
+        }
+        final List<LeafReaderContext> sortedLeaves = new ArrayList<>(leaves);
+        sortedLeaves.sort(Comparator.<LeafReaderContext>comparingInt(leaf -> leaf.reader().maxDoc()).reversed());
+        final PriorityQueue<SliceBuilder> queue = new PriorityQueue<>(sliceCount, Comparator.comparingLong(slice -> slice.docCount));
+        for (int i = 0; i < sliceCount; i++) {
+            queue.add(new SliceBuilder());
+        }
+        for (LeafReaderContext leaf : sortedLeaves) {
+            final SliceBuilder smallest = queue.poll();
+            smallest.leaves.add(leaf);
+            smallest.docCount += leaf.reader().maxDoc();
+            queue.add(smallest);
+        }
+        final LeafSlice[] slices = new LeafSlice[sliceCount];
+        int i = 0;
+        for (SliceBuilder slice : queue) {
+            slices[i++] = new LeafSlice(slice.leaves);
+        }
+        return slices;
+    }
+
+    private static class SliceBuilder {
+        private final List<LeafReaderContext> leaves = new ArrayList<>();
+        private long docCount;
+    }
+
+    /**
+     * Searches every slice of {@link #getConcurrentSlices()} with its own collector and reduces them with the given manager. The slices
+     * are searched concurrently on the executor of this searcher, the calling thread searches the last slice and the slices that the
+     * executor rejects. Cancellation and timeout checks apply to all slices, this method returns or throws only once every slice is done
+     * so that the collectors are never used concurrently with the reduction. Slices are searched one after the other when profiling,
+     * since profiled weights and collectors are not thread-safe.
+     */
+    @Override
+    public <C extends Collector, T> T search(Query query, CollectorManager<C, T> collectorManager) throws IOException {
+        final LeafSlice[] leafSlices = getConcurrentSlices();
+        final List<C> collectors = new ArrayList<>(leafSlices.length);
+        for (int i = 0; i < leafSlices.length; i++) {
+            collectors.add(collectorManager.newCollector());
+        }
+        final ScoreMode scoreMode = collectors.get(0).scoreMode();
+        for (C collector : collectors) {
+            if (collector.scoreMode() != scoreMode) {
+                throw new IllegalStateException("CollectorManager does not always produce collectors with the same score mode");
+            }
+        }
+        final Weight weight = createWeight(rewrite(query), scoreMode, 1f);
+        if (executor == null || leafSlices.length == 1 || profiler != null) {
+            for (int i = 0; i < leafSlices.length; i++) {
+                search(Arrays.asList(leafSlices[i].leaves), weight, collectors.get(i));
+            }
+        } else {
+            searchConcurrently(leafSlices, weight, collectors);
+        }
+        return collectorManager.reduce(collectors);
+    }
+
+    private void searchConcurrently(LeafSlice[] leafSlices, Weight weight, List<? extends Collector> collectors) throws IOException {
+        final List<CheckedRunnable<IOException>> tasks = new ArrayList<>(leafSlices.length);
+        for (int i = 0; i < leafSlices.length; i++) {
+            final List<LeafReaderContext> leaves = Arrays.asList(leafSlices[i].leaves);
+            final Collector collector = collectors.get(i);
+            tasks.add(() -> search(leaves, weight, collector));
+        }
+        // the collectors must not be used before every slice is done
+        FutureUtils.runAllAndWait(tasks, executor);
+    }
+
     public void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
         for (LeafReaderContext ctx : leaves) { // search each subreader
             searchLeaf(ctx, weight, collector);
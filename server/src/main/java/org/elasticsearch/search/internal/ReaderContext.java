@@ -16,6 +16,7 @@ import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.search.RescoreDocIds;
+import org.elasticsearch.search.aggregations.support.AggregationCursors;
 import org.elasticsearch.search.dfs.AggregatedDfs;
 import org.elasticsearch.transport.TransportRequest;
 
@@ -53,6 +54,8 @@ public class ReaderContext implements Releasable {
 
     private Map<String, Object> context;
 
+    private final AggregationCursors aggregationCursors = new AggregationCursors();
+
     public ReaderContext(
         ShardSearchContextId id,
         IndexService indexService,
@@ -87,7 +90,7 @@ public class ReaderContext implements Releasable {
     }
 
     void doClose() {
-        Releasables.close(Releasables.wrap(onCloses), searcherSupplier);
+        Releasables.close(Releasables.wrap(onCloses), aggregationCursors, searcherSupplier);
     }
 
     public void addOnClose(Releasable releasable) {
@@ -189,6 +192,14 @@ public class ReaderContext implements Releasable {
         context.put(key, value);
     }
 
+    /**
+     * The state that aggregations keep between the requests that use this reader, released when the reader is closed. Only readers that
+     * are used by more than one request keep it, see {@link #singleSession()}.
+     */
+    public AggregationCursors aggregationCursors() {
+        return aggregationCursors;
+    }
+
     public long getStartTimeInNano() {
         return startTimeInNano;
     }
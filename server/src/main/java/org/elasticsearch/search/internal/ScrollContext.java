@@ -11,6 +11,7 @@ package org.elasticsearch.search.internal;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.search.Scroll;
+import org.elasticsearch.search.query.ScrollCursor;
 
 /** Wrapper around information that needs to stay around when scrolling. */
 public final class ScrollContext {
@@ -18,4 +19,6 @@ public final class ScrollContext {
     public float maxScore = Float.NaN;
     public ScoreDoc lastEmittedDoc;
     public Scroll scroll;
+    /** The cursor of a scroll sorted by {@code _doc}, created on the second round. */
+    public ScrollCursor cursor;
 }
@@ -9,8 +9,10 @@
 package org.elasticsearch.search.lookup;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.SyntheticSourceLoader;
 
 import java.util.Collections;
 import java.util.LinkedHashSet;
@@ -50,10 +52,22 @@ public class SearchLookup {
     public SearchLookup(
         Function<String, MappedFieldType> fieldTypeLookup,
         BiFunction<MappedFieldType, Supplier<SearchLookup>, IndexFieldData<?>> fieldDataLookup
+    ) {
+        this(fieldTypeLookup, fieldDataLookup, null);
+    }
+
+    /**
+     * Create the top level field lookup for a search request on an index whose {@code _source} is rebuilt from the fields of the
+     * documents by the provided {@link SyntheticSourceLoader}, if it isn't {@code null}.
+     */
+    public SearchLookup(
+        Function<String, MappedFieldType> fieldTypeLookup,
+        BiFunction<MappedFieldType, Supplier<SearchLookup>, IndexFieldData<?>> fieldDataLookup,
+        @Nullable SyntheticSourceLoader syntheticSourceLoader
     ) {
         this.fieldTypeLookup = fieldTypeLookup;
         this.fieldChain = Collections.emptySet();
-        this.sourceLookup = new SourceLookup();
+        this.sourceLookup = new SourceLookup(syntheticSourceLoader);
         this.fieldDataLookup = fieldDataLookup;
     }
 
@@ -18,6 +18,7 @@ import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.index.mapper.SyntheticSourceLoader;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import org.elasticsearch.xcontent.XContentType;
 
@@ -33,6 +34,8 @@ public class SourceLookup implements Map<String, Object> {
 
     private LeafReader reader;
     CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader;
+    private final SyntheticSourceLoader syntheticSourceLoader;
+    private SyntheticSourceLoader.Leaf syntheticSource;
 
     private int docId = -1;
 
@@ -40,6 +43,18 @@ public class SourceLookup implements Map<String, Object> {
     private Map<String, Object> source;
     private XContentType sourceContentType;
 
+    public SourceLookup() {
+        this(null);
+    }
+
+    /**
+     * Creates a lookup that rebuilds the source with the provided {@link SyntheticSourceLoader} instead of loading the stored
+     * {@code _source} if it isn't {@code null}.
+     */
+    public SourceLookup(@Nullable SyntheticSourceLoader syntheticSourceLoader) {
+        this.syntheticSourceLoader = syntheticSourceLoader;
+    }
+
     public XContentType sourceContentType() {
         return sourceContentType;
     }
@@ -69,9 +84,7 @@ public class SourceLookup implements Map<String, Object> {
             return source;
         }
         try {
-            FieldsVisitor sourceFieldVisitor = new FieldsVisitor(true);
-            fieldReader.accept(docId, sourceFieldVisitor);
-            BytesReference source = sourceFieldVisitor.source();
+            BytesReference source = loadSource();
             if (source == null) {
                 this.source = emptyMap();
                 this.sourceContentType = null;
@@ -86,6 +99,15 @@ public class SourceLookup implements Map<String, Object> {
         return this.source;
     }
 
+    private BytesReference loadSource() throws IOException {
+        if (syntheticSource != null) {
+            return syntheticSource.source(docId);
+        }
+        FieldsVisitor sourceFieldVisitor = new FieldsVisitor(true);
+        fieldReader.accept(docId, sourceFieldVisitor);
+        return sourceFieldVisitor.source();
+    }
+
     private static Tuple<XContentType, Map<String, Object>> sourceAsMapAndType(BytesReference source) throws ElasticsearchParseException {
         return XContentHelper.convertToMap(source, false);
     }
@@ -121,6 +143,9 @@ public class SourceLookup implements Map<String, Object> {
             } else {
                 fieldReader = context.reader()::document;
             }
+            if (syntheticSourceLoader != null) {
+                syntheticSource = syntheticSourceLoader.leaf(context);
+            }
         }
         this.source = null;
         this.sourceAsBytes = null;
@@ -179,9 +204,7 @@ public class SourceLookup implements Map<String, Object> {
             );
         }
         try {
-            FieldsVisitor sourceFieldVisitor = new FieldsVisitor(true);
-            fieldReader.accept(docId, sourceFieldVisitor);
-            BytesReference source = sourceFieldVisitor.source();
+            BytesReference source = loadSource();
             return XContentMapValues.extractRawValues(path, XContentHelper.convertToMap(source, false, null, Set.of(path), null).v2());
         } catch (Exception e) {
             throw new ElasticsearchParseException("failed to parse / load source", e);
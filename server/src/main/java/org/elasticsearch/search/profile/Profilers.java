@@ -75,7 +75,9 @@ public final class Profilers {
             QueryProfileShardResult result = new QueryProfileShardResult(
                 queryProfiler.getTree(),
                 queryProfiler.getRewriteTime(),
-                queryProfiler.getCollector()
+                queryProfiler.getCollector(),
+                queryProfiler.getSliceCount(),
+                queryProfiler.getQueryPlan()
             );
             queryResults.add(result);
         }
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.search.profile.query;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -34,6 +35,8 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
     public static final String COLLECTOR = "collector";
     public static final String REWRITE_TIME = "rewrite_time";
     public static final String QUERY_ARRAY = "query";
+    public static final String SLICES = "slices";
+    public static final String QUERY_PLANNER = "query_planner";
 
     private final List<ProfileResult> queryProfileResults;
 
@@ -41,11 +44,43 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
 
     private final long rewriteTime;
 
+    /**
+     * The number of slices that the segments of the shard were split into to be searched concurrently
+     */
+    private final int slices;
+
+    /**
+     * The decisions that the query planner made when the query was built
+     */
+    private final List<String> queryPlan;
+
     public QueryProfileShardResult(List<ProfileResult> queryProfileResults, long rewriteTime, CollectorResult profileCollector) {
+        this(queryProfileResults, rewriteTime, profileCollector, 1);
+    }
+
+    public QueryProfileShardResult(
+        List<ProfileResult> queryProfileResults,
+        long rewriteTime,
+        CollectorResult profileCollector,
+        int slices
+    ) {
+        this(queryProfileResults, rewriteTime, profileCollector, slices, List.of());
+    }
+
+    public QueryProfileShardResult(
+        List<ProfileResult> queryProfileResults,
+        long rewriteTime,
+        CollectorResult profileCollector,
+        int slices,
+        List<String> queryPlan
+    ) {
         assert (profileCollector != null);
+        assert slices > 0 : "slices must be positive but was [" + slices + "]";
         this.queryProfileResults = queryProfileResults;
         this.profileCollector = profileCollector;
         this.rewriteTime = rewriteTime;
+        this.slices = slices;
+        this.queryPlan = Objects.requireNonNull(queryPlan);
     }
 
     /**
@@ -60,6 +95,13 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
 
         profileCollector = new CollectorResult(in);
         rewriteTime = in.readLong();
+        if (in.getVersion().onOrAfter(Version.V_8_1_0)) {
+            slices = in.readVInt();
+            queryPlan = in.readStringList();
+        } else {
+            slices = 1;
+            queryPlan = List.of();
+        }
     }
 
     @Override
@@ -70,6 +112,10 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         }
         profileCollector.writeTo(out);
         out.writeLong(rewriteTime);
+        if (out.getVersion().onOrAfter(Version.V_8_1_0)) {
+            out.writeVInt(slices);
+            out.writeStringCollection(queryPlan);
+        }
     }
 
     public List<ProfileResult> getQueryResults() {
@@ -84,6 +130,21 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         return profileCollector;
     }
 
+    /**
+     * @return the number of slices that the segments of the shard were split into to be searched concurrently, {@code 1} if the
+     * segments were searched one after the other
+     */
+    public int getSlices() {
+        return slices;
+    }
+
+    /**
+     * @return the decisions that the query planner made when the query was built
+     */
+    public List<String> getQueryPlan() {
+        return queryPlan;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject();
@@ -93,6 +154,13 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         }
         builder.endArray();
         builder.field(REWRITE_TIME, rewriteTime);
+        if (slices > 1) {
+            // only concurrent searches report their slices
+            builder.field(SLICES, slices);
+        }
+        if (queryPlan.isEmpty() == false) {
+            builder.field(QUERY_PLANNER, queryPlan);
+        }
         builder.startArray(COLLECTOR);
         profileCollector.toXContent(builder, params);
         builder.endArray();
@@ -108,12 +176,14 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         QueryProfileShardResult other = (QueryProfileShardResult) obj;
         return queryProfileResults.equals(other.queryProfileResults)
             && profileCollector.equals(other.profileCollector)
-            && rewriteTime == other.rewriteTime;
+            && rewriteTime == other.rewriteTime
+            && slices == other.slices
+            && queryPlan.equals(other.queryPlan);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(queryProfileResults, profileCollector, rewriteTime);
+        return Objects.hash(queryProfileResults, profileCollector, rewriteTime, slices, queryPlan);
     }
 
     @Override
@@ -127,6 +197,8 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         String currentFieldName = null;
         List<ProfileResult> queryProfileResults = new ArrayList<>();
         long rewriteTime = 0;
+        int slices = 1;
+        List<String> queryPlan = new ArrayList<>();
         CollectorResult collector = null;
         while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
             if (token == XContentParser.Token.FIELD_NAME) {
@@ -134,6 +206,8 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
             } else if (token.isValue()) {
                 if (REWRITE_TIME.equals(currentFieldName)) {
                     rewriteTime = parser.longValue();
+                } else if (SLICES.equals(currentFieldName)) {
+                    slices = parser.intValue();
                 } else {
                     parser.skipChildren();
                 }
@@ -142,6 +216,10 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
                     while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
                         queryProfileResults.add(ProfileResult.fromXContent(parser));
                     }
+                } else if (QUERY_PLANNER.equals(currentFieldName)) {
+                    while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+                        queryPlan.add(parser.text());
+                    }
                 } else if (COLLECTOR.equals(currentFieldName)) {
                     while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
                         collector = CollectorResult.fromXContent(parser);
@@ -153,6 +231,6 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
                 parser.skipChildren();
             }
         }
-        return new QueryProfileShardResult(queryProfileResults, rewriteTime, collector);
+        return new QueryProfileShardResult(queryProfileResults, rewriteTime, collector, slices, queryPlan);
     }
 }
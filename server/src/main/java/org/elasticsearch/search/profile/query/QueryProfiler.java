@@ -11,6 +11,8 @@ package org.elasticsearch.search.profile.query;
 import org.apache.lucene.search.Query;
 import org.elasticsearch.search.profile.AbstractProfiler;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -26,23 +28,65 @@ import java.util.Objects;
  */
 public final class QueryProfiler extends AbstractProfiler<QueryProfileBreakdown, Query> {
 
+    static final String SLICES_COLLECTOR_NAME = "SliceCollectors";
+
     /**
      * The root Collector used in the search
      */
     private InternalProfileCollector collector;
 
+    /**
+     * The root Collectors of the slices of a concurrent search
+     */
+    private List<InternalProfileCollector> sliceCollectors;
+
+    /**
+     * The decisions of the query planner
+     */
+    private List<String> queryPlan = List.of();
+
     public QueryProfiler() {
         super(new InternalQueryProfileTree());
     }
 
     /** Set the collector that is associated with this profiler. */
     public void setCollector(InternalProfileCollector collector) {
-        if (this.collector != null) {
+        if (this.collector != null || this.sliceCollectors != null) {
             throw new IllegalStateException("The collector can only be set once.");
         }
         this.collector = Objects.requireNonNull(collector);
     }
 
+    /** Set the collectors of the slices of a concurrent search that are associated with this profiler. */
+    public void setSliceCollectors(List<InternalProfileCollector> sliceCollectors) {
+        if (this.collector != null || this.sliceCollectors != null) {
+            throw new IllegalStateException("The collector can only be set once.");
+        }
+        if (sliceCollectors.isEmpty()) {
+            throw new IllegalArgumentException("A concurrent search has at least one slice.");
+        }
+        this.sliceCollectors = List.copyOf(sliceCollectors);
+    }
+
+    /**
+     * @return the number of slices that the search was split into, {@code 1} if it wasn't split
+     */
+    public int getSliceCount() {
+        return sliceCollectors == null ? 1 : sliceCollectors.size();
+    }
+
+    /** Set the decisions that the query planner made when the query was built. */
+    public void setQueryPlan(List<String> queryPlan) {
+        this.queryPlan = List.copyOf(queryPlan);
+    }
+
+    /**
+     * @return the decisions that the query planner made when the query was built
+     */
+    public List<String> getQueryPlan() {
+        return queryPlan;
+    }
+
     /**
      * Begin timing the rewrite phase of a request.  All rewrites are accumulated together into a
      * single metric
@@ -72,7 +116,21 @@ public final class QueryProfiler extends AbstractProfiler<QueryProfileBreakdown,
      * Return the current root Collector for this search
      */
     public CollectorResult getCollector() {
-        return collector.getCollectorTree();
+        if (sliceCollectors == null) {
+            return collector.getCollectorTree();
+        }
+        if (sliceCollectors.size() == 1) {
+            return sliceCollectors.get(0).getCollectorTree();
+        }
+        // the collectors of the slices are reported under a common root that takes the time of all slices
+        List<CollectorResult> children = new ArrayList<>(sliceCollectors.size());
+        long time = 0;
+        for (InternalProfileCollector sliceCollector : sliceCollectors) {
+            CollectorResult child = sliceCollector.getCollectorTree();
+            time += child.getTime();
+            children.add(child);
+        }
+        return new CollectorResult(SLICES_COLLECTOR_NAME, CollectorResult.REASON_SEARCH_SLICES, time, children);
     }
 
 }
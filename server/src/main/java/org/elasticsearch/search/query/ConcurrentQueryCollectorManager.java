@@ -0,0 +1,183 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationPhase;
+import org.elasticsearch.search.aggregations.bucket.terms.SignificantTextAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.TopHitsAggregationBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.lookup.SearchLookup;
+import org.elasticsearch.search.profile.query.InternalProfileCollector;
+import org.elasticsearch.search.sort.SortAndFormats;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.elasticsearch.search.query.QueryCollectorContext.createFilteredCollectorContext;
+import static org.elasticsearch.search.query.QueryCollectorContext.createMinScoreCollectorContext;
+import static org.elasticsearch.search.query.QueryCollectorContext.createMultiCollectorContext;
+import static org.elasticsearch.search.query.TopDocsCollectorContext.createTopDocsCollectorContext;
+import static org.elasticsearch.search.query.TopDocsCollectorContext.shortcutTotalHitCount;
+
+/**
+ * Creates the collectors of the slices that {@link ContextIndexSearcher#search(Query, CollectorManager)} searches concurrently and
+ * merges their top docs. Every slice gets its own top docs collector and its own top level aggregators, the post filter and the
+ * minimum score apply to every slice. The top docs are merged by {@link #postProcess} rather than by {@link #reduce} so that the slices
+ * of a search that timed out still report their partial results.
+ */
+final class ConcurrentQueryCollectorManager implements CollectorManager<Collector, Void> {
+
+    /**
+     * Hits with equal sort values are sorted by doc id, like a search that isn't split into slices sorts them.
+     */
+    private static final Comparator<ScoreDoc> DOC_ID_TIE_BREAKER = Comparator.comparingInt(scoreDoc -> scoreDoc.doc);
+
+    private final SearchContext searchContext;
+    private final boolean hasFilterCollector;
+    private final List<TopDocsCollectorContext> topDocsContexts = new ArrayList<>();
+    private final List<InternalProfileCollector> profileCollectors = new ArrayList<>();
+
+    ConcurrentQueryCollectorManager(SearchContext searchContext) {
+        this.searchContext = searchContext;
+        this.hasFilterCollector = searchContext.parsedPostFilter() != null || searchContext.minimumScore() != null;
+    }
+
+    /**
+     * Returns whether the given search can be split into slices that are searched concurrently. Scrolls, field collapsing and
+     * {@code terminate_after} rely on seeing all hits of the shard in a single collector, so they are searched one leaf after the other.
+     * Scripts, runtime fields, {@code top_hits} and {@code significant_text} read documents through the {@link SearchLookup} of the
+     * shard, which holds the {@code _source} of a single document at a time and can't be shared between slices.
+     */
+    static boolean supportsConcurrentSearch(SearchContext searchContext) {
+        return searchContext.scrollContext() == null
+            && searchContext.collapse() == null
+            && searchContext.terminateAfter() == SearchContext.DEFAULT_TERMINATE_AFTER
+            && (searchContext.queryCollectors().isEmpty()
+                || (searchContext.queryCollectors().size() == 1 && searchContext.queryCollectors().containsKey(AggregationPhase.class)))
+            && searchContext.getSearchExecutionContext().hasLookup() == false
+            && aggregationsUseLookup(searchContext) == false;
+    }
+
+    private static boolean aggregationsUseLookup(SearchContext searchContext) {
+        final SearchSourceBuilder source = searchContext.request().source();
+        return source != null && source.aggregations() != null && usesLookup(source.aggregations().getAggregatorFactories());
+    }
+
+    /**
+     * Returns whether any of the given aggregations reads documents through the {@link SearchLookup} while collecting, even if it
+     * didn't create the lookup yet.
+     */
+    private static boolean usesLookup(Collection<AggregationBuilder> aggregations) {
+        for (AggregationBuilder aggregation : aggregations) {
+            if (aggregation instanceof TopHitsAggregationBuilder
+                || aggregation instanceof SignificantTextAggregationBuilder
+                || usesLookup(aggregation.getSubAggregations())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Collector newCollector() throws IOException {
+        final LinkedList<QueryCollectorContext> collectors = new LinkedList<>();
+        final TopDocsCollectorContext topDocsContext = createTopDocsCollectorContext(searchContext, hasFilterCollector);
+        collectors.add(topDocsContext);
+        if (searchContext.parsedPostFilter() != null) {
+            collectors.add(createFilteredCollectorContext(searchContext.searcher(), searchContext.parsedPostFilter().query()));
+        }
+        if (searchContext.queryCollectors().isEmpty() == false) {
+            // the first slice collects with the aggregators created by AggregationPhase#preProcess
+            final Collector aggregationCollector = topDocsContexts.isEmpty()
+                ? searchContext.queryCollectors().get(AggregationPhase.class)
+                : AggregationPhase.createSliceCollector(searchContext);
+            collectors.add(createMultiCollectorContext(List.of(aggregationCollector)));
+        }
+        if (searchContext.minimumScore() != null) {
+            collectors.add(createMinScoreCollectorContext(searchContext.minimumScore()));
+        }
+        topDocsContexts.add(topDocsContext);
+        if (searchContext.getProfilers() != null) {
+            final InternalProfileCollector profileCollector = QueryCollectorContext.createQueryCollectorWithProfiler(collectors);
+            profileCollectors.add(profileCollector);
+            return profileCollector;
+        }
+        return QueryCollectorContext.createQueryCollector(collectors);
+    }
+
+    @Override
+    public Void reduce(Collection<Collector> collectors) {
+        return null;
+    }
+
+    /**
+     * Returns the profiled collectors of the slices, empty if the search isn't profiled.
+     */
+    List<InternalProfileCollector> profileCollectors() {
+        return profileCollectors;
+    }
+
+    boolean shouldRescore() {
+        return topDocsContexts.get(0).shouldRescore();
+    }
+
+    /**
+     * Merges the top docs of all slices into the given result.
+     */
+    void postProcess(QuerySearchResult result) throws IOException {
+        final SortAndFormats sortAndFormats = searchContext.sort();
+        final TopDocs[] sliceTopDocs = sortAndFormats == null
+            ? new TopDocs[topDocsContexts.size()]
+            : new TopFieldDocs[topDocsContexts.size()];
+        long totalHitCount = 0;
+        TotalHits.Relation relation = TotalHits.Relation.EQUAL_TO;
+        float maxScore = Float.NaN;
+        for (int i = 0; i < sliceTopDocs.length; i++) {
+            final TopDocsAndMaxScore slice = topDocsContexts.get(i).newTopDocs();
+            sliceTopDocs[i] = slice.topDocs;
+            totalHitCount += slice.topDocs.totalHits.value;
+            if (slice.topDocs.totalHits.relation == TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO) {
+                relation = TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO;
+            }
+            if (Float.isNaN(slice.maxScore) == false) {
+                maxScore = Float.isNaN(maxScore) ? slice.maxScore : Math.max(maxScore, slice.maxScore);
+            }
+        }
+
+        final int numHits = topDocsContexts.get(0).numHits();
+        final TopDocs topDocs = sortAndFormats == null
+            ? TopDocs.merge(0, numHits, sliceTopDocs, DOC_ID_TIE_BREAKER)
+            : TopDocs.merge(sortAndFormats.sort, 0, numHits, (TopFieldDocs[]) sliceTopDocs, DOC_ID_TIE_BREAKER);
+        topDocs.totalHits = new TotalHits(totalHitCount, relation);
+        if (hasFilterCollector == false && searchContext.trackTotalHitsUpTo() != SearchContext.TRACK_TOTAL_HITS_DISABLED) {
+            // the total hit count of the whole shard when it can be computed without collecting, every slice reports it
+            final int hitCount = shortcutTotalHitCount(searchContext.searcher().getIndexReader(), searchContext.rewrittenQuery());
+            if (hitCount != -1) {
+                topDocs.totalHits = new TotalHits(hitCount, TotalHits.Relation.EQUAL_TO);
+            }
+        }
+        final boolean hasSortFormats = sortAndFormats != null && searchContext.size() != 0;
+        result.topDocs(new TopDocsAndMaxScore(topDocs, maxScore), hasSortFormats ? sortAndFormats.formats : null);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.lucene.grouping.TopFieldGroups;
+import org.elasticsearch.search.aggregations.AggregationReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reduces the query results of the shards that a node searched for the same search request before the node sends them to the
+ * coordinating node. The results keep one entry per shard so that the coordinating node handles them like the results of shard level
+ * requests, but:
+ * <ul>
+ *     <li>the top docs of every shard only keep the hits that are part of the top hits of the node since no other hit can make it into
+ *     the top hits of the search,</li>
+ *     <li>the aggregations of all shards are partially reduced into the result of the first shard, the other shards carry empty
+ *     aggregations.</li>
+ * </ul>
+ * The shard index of every result must be set to the shard request index, which orders hits with equal sort values the same way that
+ * the coordinating node does.
+ */
+public final class QueryNodeResultsReducer {
+
+    private QueryNodeResultsReducer() {}
+
+    /**
+     * Reduces the given results in place.
+     * @param results the results of the shards, null results are ignored
+     * @param partialReduceContext the context of the partial reduce of the aggregations
+     * @param onIrrelevantContext called with the results that no longer need their reader context for the fetch phase because none of
+     *                            their hits are part of the top hits of the node
+     */
+    public static void reduce(
+        List<QuerySearchResult> results,
+        AggregationReduceContext partialReduceContext,
+        Consumer<QuerySearchResult> onIrrelevantContext
+    ) {
+        final List<QuerySearchResult> nonNullResults = new ArrayList<>(results.size());
+        for (QuerySearchResult result : results) {
+            if (result.isNull() == false) {
+                nonNullResults.add(result);
+            }
+        }
+        if (nonNullResults.size() <= 1) {
+            return;
+        }
+        // the position of a result in the list breaks ties between hits so it must follow the shard index
+        nonNullResults.sort(Comparator.comparingInt(QuerySearchResult::getShardIndex));
+        reduceTopDocs(nonNullResults, onIrrelevantContext);
+        reduceAggs(nonNullResults, partialReduceContext);
+    }
+
+    private static void reduceTopDocs(List<QuerySearchResult> results, Consumer<QuerySearchResult> onIrrelevantContext) {
+        final TopDocs[] shardTopDocs = new TopDocs[results.size()];
+        for (int i = 0; i < shardTopDocs.length; i++) {
+            final QuerySearchResult result = results.get(i);
+            if (result.hasConsumedTopDocs()) {
+                return;
+            }
+            shardTopDocs[i] = result.topDocs().topDocs;
+            if (shardTopDocs[i] instanceof TopFieldGroups || shardTopDocs[i].getClass() != shardTopDocs[0].getClass()) {
+                // collapsed hits are merged by collapse key, leave them to the coordinating node
+                return;
+            }
+        }
+        final QuerySearchResult first = results.get(0);
+        final int topN = first.from() + first.size();
+        for (int i = 0; i < shardTopDocs.length; i++) {
+            for (ScoreDoc scoreDoc : shardTopDocs[i].scoreDocs) {
+                scoreDoc.shardIndex = i;
+            }
+        }
+        final TopDocs merged;
+        if (shardTopDocs[0] instanceof TopFieldDocs) {
+            final TopFieldDocs[] topFieldDocs = Arrays.copyOf(shardTopDocs, shardTopDocs.length, TopFieldDocs[].class);
+            merged = TopDocs.merge(new Sort(topFieldDocs[0].fields), 0, topN, topFieldDocs);
+        } else {
+            merged = TopDocs.merge(0, topN, shardTopDocs);
+        }
+        // every shard contributes a prefix of its hits to the merged hits
+        final int[] keptHits = new int[shardTopDocs.length];
+        for (ScoreDoc scoreDoc : merged.scoreDocs) {
+            keptHits[scoreDoc.shardIndex]++;
+        }
+        for (int i = 0; i < shardTopDocs.length; i++) {
+            final TopDocs topDocs = shardTopDocs[i];
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                // the coordinating node sets the shard index of the hits itself
+                scoreDoc.shardIndex = -1;
+            }
+            if (keptHits[i] == topDocs.scoreDocs.length) {
+                continue;
+            }
+            final QuerySearchResult result = results.get(i);
+            final boolean hadSearchContext = result.hasSearchContext();
+            final ScoreDoc[] scoreDocs = Arrays.copyOf(topDocs.scoreDocs, keptHits[i]);
+            final TopDocs trimmed = topDocs instanceof TopFieldDocs
+                ? new TopFieldDocs(topDocs.totalHits, scoreDocs, ((TopFieldDocs) topDocs).fields)
+                : new TopDocs(topDocs.totalHits, scoreDocs);
+            result.topDocs(new TopDocsAndMaxScore(trimmed, result.getMaxScore()), result.sortValueFormats());
+            if (hadSearchContext && result.hasSearchContext() == false) {
+                onIrrelevantContext.accept(result);
+            }
+        }
+    }
+
+    private static void reduceAggs(List<QuerySearchResult> results, AggregationReduceContext partialReduceContext) {
+        final List<QuerySearchResult> withAggs = new ArrayList<>(results.size());
+        for (QuerySearchResult result : results) {
+            if (result.hasAggs()) {
+                withAggs.add(result);
+            }
+        }
+        if (withAggs.size() <= 1) {
+            return;
+        }
+        final List<InternalAggregations> aggsList = new ArrayList<>(withAggs.size());
+        for (QuerySearchResult result : withAggs) {
+            aggsList.add(result.consumeAggs());
+        }
+        final InternalAggregations reduced = InternalAggregations.topLevelReduce(aggsList, partialReduceContext);
+        withAggs.get(0).aggregations(reduced);
+        for (int i = 1; i < withAggs.size(); i++) {
+            withAggs.get(i).aggregations(InternalAggregations.EMPTY);
+        }
+    }
+}
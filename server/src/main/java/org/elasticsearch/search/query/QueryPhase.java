@@ -16,20 +16,43 @@ import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.MultiCollector;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.search.Weight;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.util.concurrent.EWMATrackingEsThreadPoolExecutor;
 import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.lucene.queries.SearchAfterSortedDocQuery;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchContextSourcePrinter;
 import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregationPhase;
+import org.elasticsearch.search.aggregations.AggregationReduceContext;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.BucketCollector;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.MultiBucketCollector;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.AvgAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.CardinalityAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.ExtendedStatsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MinAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.StatsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.ValueCountAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.WeightedAvgAggregationBuilder;
 import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
@@ -40,7 +63,11 @@ import org.elasticsearch.search.suggest.SuggestPhase;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
 import static org.elasticsearch.search.query.QueryCollectorContext.createEarlyTerminationCollectorContext;
@@ -56,6 +83,21 @@ import static org.elasticsearch.search.query.TopDocsCollectorContext.createTopDo
 public class QueryPhase {
     private static final Logger LOGGER = LogManager.getLogger(QueryPhase.class);
 
+    /**
+     * The metrics aggregations whose partial reduce of the results of the segments of a shard is exactly the result of the shard.
+     */
+    private static final Set<Class<? extends AggregationBuilder>> SEGMENT_REDUCIBLE_AGGREGATIONS = Set.of(
+        AvgAggregationBuilder.class,
+        CardinalityAggregationBuilder.class,
+        ExtendedStatsAggregationBuilder.class,
+        MaxAggregationBuilder.class,
+        MinAggregationBuilder.class,
+        StatsAggregationBuilder.class,
+        SumAggregationBuilder.class,
+        ValueCountAggregationBuilder.class,
+        WeightedAvgAggregationBuilder.class
+    );
+
     private final AggregationPhase aggregationPhase;
     private final SuggestPhase suggestPhase;
     private final RescorePhase rescorePhase;
@@ -67,6 +109,14 @@ public class QueryPhase {
     }
 
     public void execute(SearchContext searchContext) throws QueryPhaseExecutionException {
+        execute(searchContext, null);
+    }
+
+    /**
+     * Executes the query phase, using the given cache for the results of the segments of the shard if the request only aggregates.
+     */
+    public void execute(SearchContext searchContext, @Nullable SegmentResultsCache segmentResultsCache)
+        throws QueryPhaseExecutionException {
         if (searchContext.hasOnlySuggest()) {
             suggestPhase.execute(searchContext);
             searchContext.queryResult()
@@ -85,7 +135,7 @@ public class QueryPhase {
         // request, preProcess is called on the DFS phase, this is why we pre-process them
         // here to make sure it happens during the QUERY phase
         aggregationPhase.preProcess(searchContext);
-        boolean rescore = executeInternal(searchContext);
+        boolean rescore = executeInternal(searchContext, segmentResultsCache);
 
         if (rescore) { // only if we do a regular search
             rescorePhase.execute(searchContext);
@@ -104,6 +154,11 @@ public class QueryPhase {
      * @return whether the rescoring phase should be executed
      */
     static boolean executeInternal(SearchContext searchContext) throws QueryPhaseExecutionException {
+        return executeInternal(searchContext, null);
+    }
+
+    static boolean executeInternal(SearchContext searchContext, @Nullable SegmentResultsCache segmentResultsCache)
+        throws QueryPhaseExecutionException {
         final ContextIndexSearcher searcher = searchContext.searcher();
         final IndexReader reader = searcher.getIndexReader();
         QuerySearchResult queryResult = searchContext.queryResult();
@@ -184,7 +239,23 @@ public class QueryPhase {
             }
 
             try {
-                boolean shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, hasFilterCollector, timeoutSet);
+                final boolean shouldRescore;
+                if (ScrollCursor.canUse(searchContext)) {
+                    // the rounds of a scroll sorted by _doc resume the iteration of the previous round
+                    ScrollCursor.searchNextRound(searchContext);
+                    shouldRescore = false;
+                } else if (segmentResultsCache != null
+                    && timeoutSet == false
+                    && supportsSegmentResultsCache(searchContext)
+                    && searchWithSegmentResultsCache(searchContext, searcher, query, segmentResultsCache)) {
+                    // searches that only count hits and aggregate have nothing to rescore
+                    shouldRescore = false;
+                } else if (searcher.getConcurrentSlices().length > 1
+                    && ConcurrentQueryCollectorManager.supportsConcurrentSearch(searchContext)) {
+                    shouldRescore = searchWithCollectorManager(searchContext, searcher, query, timeoutSet);
+                } else {
+                    shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, hasFilterCollector, timeoutSet);
+                }
                 ExecutorService executor = searchContext.indexShard().getThreadPool().executor(ThreadPool.Names.SEARCH);
                 assert executor instanceof EWMATrackingEsThreadPoolExecutor
                     || (executor instanceof EsThreadPoolExecutor == false /* in case thread pool is mocked out in tests */)
@@ -230,16 +301,17 @@ public class QueryPhase {
         }
         QuerySearchResult queryResult = searchContext.queryResult();
         try {
-            searcher.search(query, queryCollector);
+            final List<LeafReaderContext> orderedLeaves = TopDocsLeafOrdering.orderLeaves(searchContext, searcher.getLeafContexts());
+            if (orderedLeaves != null) {
+                final Weight weight = searcher.createWeight(searcher.rewrite(query), queryCollector.scoreMode(), 1f);
+                searcher.search(orderedLeaves, weight, queryCollector);
+            } else {
+                searcher.search(query, queryCollector);
+            }
         } catch (EarlyTerminatingCollector.EarlyTerminationException e) {
             queryResult.terminatedEarly(true);
         } catch (TimeExceededException e) {
-            assert timeoutSet : "TimeExceededException thrown even though timeout wasn't set";
-            if (searchContext.request().allowPartialSearchResults() == false) {
-                // Can't rethrow TimeExceededException because not serializable
-                throw new QueryPhaseExecutionException(searchContext.shardTarget(), "Time exceeded");
-            }
-            queryResult.searchTimedOut(true);
+            onTimeExceeded(searchContext, timeoutSet);
         }
         if (searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER && queryResult.terminatedEarly() == null) {
             queryResult.terminatedEarly(false);
@@ -250,6 +322,162 @@ public class QueryPhase {
         return topDocsFactory.shouldRescore();
     }
 
+    /**
+     * Searches the slices of the searcher concurrently, each with its own collectors, and merges their results.
+     */
+    private static boolean searchWithCollectorManager(
+        SearchContext searchContext,
+        ContextIndexSearcher searcher,
+        Query query,
+        boolean timeoutSet
+    ) throws IOException {
+        final ConcurrentQueryCollectorManager collectorManager = new ConcurrentQueryCollectorManager(searchContext);
+        try {
+            searcher.search(query, collectorManager);
+        } catch (TimeExceededException e) {
+            onTimeExceeded(searchContext, timeoutSet);
+        }
+        if (searchContext.getProfilers() != null) {
+            searchContext.getProfilers().getCurrentQueryProfiler().setSliceCollectors(collectorManager.profileCollectors());
+        }
+        collectorManager.postProcess(searchContext.queryResult());
+        return collectorManager.shouldRescore();
+    }
+
+    /**
+     * Returns whether the results of the given search can be computed segment by segment and cached per segment: the search must only
+     * count hits and aggregate, the documents that it aggregates must only depend on the query, and its aggregations must all be
+     * {@link #SEGMENT_REDUCIBLE_AGGREGATIONS reducible from segment results}.
+     */
+    static boolean supportsSegmentResultsCache(SearchContext searchContext) {
+        return searchContext.size() == 0
+            && searchContext.aggregations() != null
+            && searchContext.scrollContext() == null
+            && searchContext.parsedPostFilter() == null
+            && searchContext.minimumScore() == null
+            && searchContext.terminateAfter() == SearchContext.DEFAULT_TERMINATE_AFTER
+            && searchContext.getProfilers() == null
+            && searchContext.queryCollectors().size() == 1
+            && searchContext.queryCollectors().containsKey(AggregationPhase.class)
+            && searchContext.request().source() != null
+            && searchContext.request().source().aggregations() != null
+            && supportsSegmentReduce(searchContext.request().source().aggregations().getAggregatorFactories());
+    }
+
+    /**
+     * Returns whether the given aggregations and their sub-aggregations are all either {@link #SEGMENT_REDUCIBLE_AGGREGATIONS} or
+     * {@code terms} aggregations. The buckets of a {@code terms} aggregation only reduce exactly as long as no segment and not the
+     * shard cut them at their size, which {@link #hasSizeCut} checks once the segments are aggregated.
+     */
+    private static boolean supportsSegmentReduce(Collection<AggregationBuilder> aggregations) {
+        for (AggregationBuilder aggregation : aggregations) {
+            final boolean supported;
+            if (aggregation.getClass() == TermsAggregationBuilder.class) {
+                // a segment must not drop terms that are frequent enough over the whole shard
+                supported = ((TermsAggregationBuilder) aggregation).shardMinDocCount() <= 1;
+            } else {
+                supported = SEGMENT_REDUCIBLE_AGGREGATIONS.contains(aggregation.getClass());
+            }
+            if (supported == false || supportsSegmentReduce(aggregation.getSubAggregations()) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether any {@code terms} aggregation of the given reduced segment results left out buckets, or holds more buckets than
+     * its size, in which case the shard would have cut them and the segment results don't reduce to the result of the shard.
+     */
+    private static boolean hasSizeCut(Collection<AggregationBuilder> aggregations, Aggregations results) {
+        for (AggregationBuilder aggregation : aggregations) {
+            if (aggregation instanceof TermsAggregationBuilder) {
+                final Terms terms = results.get(aggregation.getName());
+                if (terms.getSumOfOtherDocCounts() > 0 || terms.getBuckets().size() > ((TermsAggregationBuilder) aggregation).size()) {
+                    return true;
+                }
+                for (Terms.Bucket bucket : terms.getBuckets()) {
+                    if (hasSizeCut(aggregation.getSubAggregations(), bucket.getAggregations())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Searches every segment on its own, with its own top level aggregators, so that the result of every segment can be cached and
+     * reused by the next searches of the same request as long as the segment doesn't change. The results of the segments are then
+     * partially reduced like the results of the slices of a concurrent search.
+     * @return whether the search is done, {@code false} if a {@code terms} aggregation was cut at its size and the shard must be
+     *         searched as a whole
+     */
+    private static boolean searchWithSegmentResultsCache(
+        SearchContext searchContext,
+        ContextIndexSearcher searcher,
+        Query query,
+        SegmentResultsCache segmentResultsCache
+    ) throws Exception {
+        final List<LeafReaderContext> segments = searcher.getIndexReader().leaves();
+        final List<InternalAggregations> segmentAggregations = new ArrayList<>(segments.size());
+        long hitCount = 0;
+        for (LeafReaderContext segment : segments) {
+            SegmentAggregationResult result = segmentResultsCache.getOrCompute(
+                segment,
+                () -> searchSegment(searchContext, searcher, query, segment)
+            );
+            hitCount += result.getHitCount();
+            segmentAggregations.add(result.getAggregations());
+        }
+        final QuerySearchResult queryResult = searchContext.queryResult();
+        if (segmentAggregations.isEmpty() == false) {
+            // without segments the aggregation phase builds empty aggregations
+            AggregationReduceContext reduceContext = new AggregationReduceContext.ForPartial(
+                searchContext.aggregations().factories().context().bigArrays(),
+                null,
+                searchContext::isCancelled
+            );
+            final InternalAggregations aggregations = InternalAggregations.topLevelReduce(segmentAggregations, reduceContext);
+            if (hasSizeCut(searchContext.request().source().aggregations().getAggregatorFactories(), aggregations)) {
+                return false;
+            }
+            queryResult.aggregations(aggregations);
+        }
+        final TotalHits totalHits = searchContext.trackTotalHitsUpTo() == SearchContext.TRACK_TOTAL_HITS_DISABLED
+            ? new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO)
+            : new TotalHits(hitCount, TotalHits.Relation.EQUAL_TO);
+        final TopDocs topDocs = searchContext.sort() != null
+            ? new TopFieldDocs(totalHits, Lucene.EMPTY_SCORE_DOCS, searchContext.sort().sort.getSort())
+            : new TopDocs(totalHits, Lucene.EMPTY_SCORE_DOCS);
+        queryResult.topDocs(new TopDocsAndMaxScore(topDocs, Float.NaN), null);
+        return true;
+    }
+
+    private static SegmentAggregationResult searchSegment(
+        SearchContext searchContext,
+        ContextIndexSearcher searcher,
+        Query query,
+        LeafReaderContext segment
+    ) throws IOException {
+        final Aggregator[] aggregators = searchContext.aggregations().factories().createTopLevelAggregators();
+        final BucketCollector aggregationCollector = MultiBucketCollector.wrap(true, List.of(aggregators));
+        aggregationCollector.preCollection();
+        final TotalHitCountCollector hitCountCollector = new TotalHitCountCollector();
+        final Collector collector = MultiCollector.wrap(hitCountCollector, aggregationCollector);
+        searcher.search(List.of(segment), searcher.createWeight(query, collector.scoreMode(), 1f), collector);
+        return new SegmentAggregationResult(hitCountCollector.getTotalHits(), AggregationPhase.buildTopLevel(searchContext, aggregators));
+    }
+
+    private static void onTimeExceeded(SearchContext searchContext, boolean timeoutSet) {
+        assert timeoutSet : "TimeExceededException thrown even though timeout wasn't set";
+        if (searchContext.request().allowPartialSearchResults() == false) {
+            // Can't rethrow TimeExceededException because not serializable
+            throw new QueryPhaseExecutionException(searchContext.shardTarget(), "Time exceeded");
+        }
+        searchContext.queryResult().searchTimedOut(true);
+    }
+
     /**
      * Returns whether collection within the provided <code>reader</code> can be early-terminated if it sorts
      * with <code>sortAndFormats</code>.
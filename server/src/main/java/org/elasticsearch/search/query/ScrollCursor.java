@@ -0,0 +1,192 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TwoPhaseIterator;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.internal.ScrollContext;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.sort.SortAndFormats;
+import org.elasticsearch.tasks.TaskCancelledException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A cursor over the documents that match the query of a scroll sorted by {@code _doc}. The first round of a scroll collects all
+ * matching documents to count them, but the following rounds only need the next matching documents in index order. The cursor keeps the
+ * weight and the iterator of the query between the rounds of the scroll, so that every round resumes the iteration where the previous
+ * round stopped instead of executing the query again. This works because a scroll keeps the same reader for all its rounds.
+ * <p>
+ * The coordinating node may not emit all the documents of a round, when other shards have documents that sort before them. The cursor
+ * keeps the documents of the last round, and returns the ones that come after the last emitted document again in the next round.
+ */
+public final class ScrollCursor {
+
+    // how often the iteration checks whether the search was cancelled
+    private static final int CHECK_CANCELLED_INTERVAL = 1 << 10;
+
+    private final Weight weight;
+    private final List<LeafReaderContext> leaves;
+    private int leafOrd;
+    private LeafReaderContext leaf;
+    private DocIdSetIterator iterator;
+    private TwoPhaseIterator twoPhase;
+    private Bits liveDocs;
+    // the first document that the iteration returns, unless it doesn't match
+    private final int minDoc;
+    private int[] lastRound = new int[0];
+    private int iterations;
+
+    private ScrollCursor(Weight weight, List<LeafReaderContext> leaves, int minDoc) {
+        this.weight = weight;
+        this.leaves = leaves;
+        this.minDoc = minDoc;
+    }
+
+    /**
+     * Whether the given round of a scroll can be served by a cursor: a round after the first one of a scroll that sorts by ascending
+     * {@code _doc}, without scores, without any collector other than the top docs and without a timeout. The query must not hold state
+     * of the round that created it, like the {@link org.elasticsearch.search.lookup.SearchLookup} of a script query, since the cursor
+     * keeps using its weight in the next rounds.
+     */
+    static boolean canUse(SearchContext searchContext) {
+        final ScrollContext scrollContext = searchContext.scrollContext();
+        final SortAndFormats sort = searchContext.sort();
+        return scrollContext != null
+            && scrollContext.totalHits != null
+            && sort != null
+            && sort.sort.getSort().length == 1
+            && sort.sort.getSort()[0].getType() == SortField.Type.DOC
+            && sort.sort.getSort()[0].getReverse() == false
+            && searchContext.trackScores() == false
+            && searchContext.size() > 0
+            && searchContext.queryCollectors().isEmpty()
+            && searchContext.parsedPostFilter() == null
+            && searchContext.minimumScore() == null
+            && searchContext.terminateAfter() == SearchContext.DEFAULT_TERMINATE_AFTER
+            && searchContext.collapse() == null
+            && searchContext.rescore().isEmpty()
+            && searchContext.getProfilers() == null
+            && (searchContext.timeout() == null || searchContext.timeout().equals(SearchService.NO_TIMEOUT))
+            && searchContext.getSearchExecutionContext().hasLookup() == false;
+    }
+
+    /**
+     * Collects the documents of the next round of the scroll of the given context with its cursor, which is created on the first round
+     * that uses it.
+     */
+    static void searchNextRound(SearchContext searchContext) throws IOException {
+        final ScrollContext scrollContext = searchContext.scrollContext();
+        final ScoreDoc lastEmittedDoc = scrollContext.lastEmittedDoc;
+        if (scrollContext.cursor == null) {
+            final ContextIndexSearcher searcher = searchContext.searcher();
+            final Weight weight = searcher.createWeight(searchContext.rewrittenQuery(), ScoreMode.COMPLETE_NO_SCORES, 1f);
+            final int minDoc = lastEmittedDoc == null ? 0 : lastEmittedDoc.doc + 1;
+            scrollContext.cursor = new ScrollCursor(weight, searcher.getIndexReader().leaves(), minDoc);
+        }
+        final int[] docs = scrollContext.cursor.nextRound(searchContext.size(), lastEmittedDoc, () -> {
+            if (searchContext.isCancelled()) {
+                throw new TaskCancelledException("cancelled");
+            }
+        });
+
+        final ScoreDoc[] scoreDocs = new ScoreDoc[docs.length];
+        for (int i = 0; i < docs.length; i++) {
+            scoreDocs[i] = new FieldDoc(docs[i], Float.NaN, new Object[] { docs[i] });
+        }
+        final SortAndFormats sort = searchContext.sort();
+        // the total number of hits and the maximum score were computed on the first round
+        final TopFieldDocs topDocs = new TopFieldDocs(scrollContext.totalHits, scoreDocs, sort.sort.getSort());
+        if (searchContext.numberOfShards() == 1 && scoreDocs.length > 0) {
+            // if we fetch the document in the same roundtrip, we already know the last emitted doc
+            scrollContext.lastEmittedDoc = scoreDocs[scoreDocs.length - 1];
+        }
+        searchContext.queryResult().topDocs(new TopDocsAndMaxScore(topDocs, scrollContext.maxScore), sort.formats);
+    }
+
+    /**
+     * Returns the top level ids of the next matching documents, at most <code>size</code> of them.
+     * @param lastEmittedDoc the last document of the scroll that the coordinating node emitted, if any
+     */
+    int[] nextRound(int size, @Nullable ScoreDoc lastEmittedDoc, Runnable checkCancelled) throws IOException {
+        // a round may not iterate long enough to reach the periodic check
+        checkCancelled.run();
+        final int lastEmitted = lastEmittedDoc == null ? -1 : lastEmittedDoc.doc;
+        final int[] docs = new int[size];
+        int count = 0;
+        // the documents of the last round that the coordinating node didn't emit come first
+        for (int doc : lastRound) {
+            if (doc > lastEmitted && count < size) {
+                docs[count++] = doc;
+            }
+        }
+        while (count < size) {
+            final int doc = nextDoc(checkCancelled);
+            if (doc == DocIdSetIterator.NO_MORE_DOCS) {
+                break;
+            }
+            docs[count++] = doc;
+        }
+        lastRound = Arrays.copyOf(docs, count);
+        return lastRound;
+    }
+
+    private int nextDoc(Runnable checkCancelled) throws IOException {
+        while (true) {
+            if (++iterations % CHECK_CANCELLED_INTERVAL == 0) {
+                checkCancelled.run();
+            }
+            if (iterator == null && nextLeaf() == false) {
+                return DocIdSetIterator.NO_MORE_DOCS;
+            }
+            final int doc = iterator.docID() == -1 ? iterator.advance(Math.max(0, minDoc - leaf.docBase)) : iterator.nextDoc();
+            if (doc == DocIdSetIterator.NO_MORE_DOCS) {
+                iterator = null;
+                continue;
+            }
+            if ((liveDocs == null || liveDocs.get(doc)) && (twoPhase == null || twoPhase.matches())) {
+                return leaf.docBase + doc;
+            }
+        }
+    }
+
+    private boolean nextLeaf() throws IOException {
+        while (leafOrd < leaves.size()) {
+            leaf = leaves.get(leafOrd++);
+            if (leaf.docBase + leaf.reader().maxDoc() <= minDoc) {
+                // all the documents of this leaf were returned before the cursor was created
+                continue;
+            }
+            final Scorer scorer = weight.scorer(leaf);
+            if (scorer == null) {
+                continue;
+            }
+            twoPhase = scorer.twoPhaseIterator();
+            iterator = twoPhase == null ? scorer.iterator() : twoPhase.approximation();
+            liveDocs = leaf.reader().getLiveDocs();
+            return true;
+        }
+        return false;
+    }
+}
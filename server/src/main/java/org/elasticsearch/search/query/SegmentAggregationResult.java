@@ -0,0 +1,50 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+
+import java.io.IOException;
+
+/**
+ * The contribution of a single segment to the result of a search request that only aggregates: the number of documents of the
+ * segment that match the query and the aggregations of these documents.
+ */
+public final class SegmentAggregationResult implements Writeable {
+
+    private final long hitCount;
+    private final InternalAggregations aggregations;
+
+    public SegmentAggregationResult(long hitCount, InternalAggregations aggregations) {
+        this.hitCount = hitCount;
+        this.aggregations = aggregations;
+    }
+
+    public SegmentAggregationResult(StreamInput in) throws IOException {
+        hitCount = in.readVLong();
+        aggregations = InternalAggregations.readFrom(in);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(hitCount);
+        aggregations.writeTo(out);
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public InternalAggregations getAggregations() {
+        return aggregations;
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.common.CheckedSupplier;
+
+import java.io.IOException;
+
+/**
+ * Caches the results of the segments of a shard for a single search request, see
+ * {@link QueryPhase#execute(org.elasticsearch.search.internal.SearchContext, SegmentResultsCache)}.
+ */
+@FunctionalInterface
+public interface SegmentResultsCache {
+
+    /**
+     * Returns the cached result of the given segment, computing it with the loader if needed.
+     */
+    SegmentAggregationResult getOrCompute(LeafReaderContext segment, CheckedSupplier<SegmentAggregationResult, IOException> loader)
+        throws Exception;
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.search.SearchSortValuesAndFormats;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+import org.elasticsearch.search.sort.ShardDocSortField;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Orders the leaves of a shard for a top docs search that sorts on a numeric field indexed with points. Lucene's comparators skip the
+ * documents that can no longer be competitive once the queue of the top docs is full, using the points of the sort field. Searching the
+ * leaves whose points hold the most competitive values first fills the queue with competitive documents early, so that the remaining
+ * leaves are mostly skipped. For instance a search that sorts on a descending {@code @timestamp} only needs to collect the newest
+ * segments.
+ * <p>
+ * Documents with the same sort values are ordered by the order in which they are collected, so leaves are only reordered when the sort
+ * ends with a tiebreaker that is unique across the shard, like {@code _doc} or {@code _shard_doc}, and the search doesn't resume after
+ * a {@code search_after} document, which breaks ties by document too.
+ * <p>
+ * When the coordinating node sends the bottom sort value of the top docs that it merged so far and the total hits don't need to be
+ * counted, leaves that can't hold a document that sorts before this bottom value are not searched at all.
+ */
+final class TopDocsLeafOrdering {
+
+    private TopDocsLeafOrdering() {}
+
+    /**
+     * Returns the leaves of the searcher in the order in which they should be searched for the top docs of the given context, without
+     * the leaves that can't hold a competitive document, or {@code null} if all leaves should be searched in their natural order.
+     */
+    @Nullable
+    static List<LeafReaderContext> orderLeaves(SearchContext searchContext, List<LeafReaderContext> leaves) throws IOException {
+        if (searchContext.sort() == null
+            || searchContext.from() + searchContext.size() == 0
+            || searchContext.scrollContext() != null
+            || searchContext.collapse() != null
+            || searchContext.queryCollectors().isEmpty() == false
+            || searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            // aggregations collect all documents and terminate_after depends on the order of the documents
+            return null;
+        }
+        final SortField sortField = searchContext.sort().sort.getSort()[0];
+        final SortField.Type type = sortField instanceof SortedNumericSortField
+            ? ((SortedNumericSortField) sortField).getNumericType()
+            : sortField.getType();
+        if (sortField.getOptimizeSortWithPoints() == false || (type != SortField.Type.LONG && type != SortField.Type.DOUBLE)) {
+            return null;
+        }
+        final Object missing = sortField.getMissingValue() != null
+            ? sortField.getMissingValue()
+            : (type == SortField.Type.LONG ? (Object) 0L : (Object) 0d);
+        final byte[] missingValue = encode(type, missing);
+        if (missingValue == null) {
+            return null;
+        }
+        final byte[] bottomValue = bottomValue(searchContext, type);
+        final boolean reverse = sortField.getReverse();
+        // the most competitive value of every leaf, the smallest for ascending sorts and the largest for descending sorts
+        final List<LeafReaderContext> ordered = new ArrayList<>(leaves.size());
+        final List<byte[]> bestValues = new ArrayList<>(leaves.size());
+        for (LeafReaderContext leaf : leaves) {
+            final PointValues values = leaf.reader().getPointValues(sortField.getField());
+            byte[] best = missingValue;
+            if (values != null) {
+                if (values.getNumDimensions() != 1 || values.getBytesPerDimension() != Long.BYTES) {
+                    return null;
+                }
+                best = reverse ? values.getMaxPackedValue() : values.getMinPackedValue();
+                if (values.getDocCount() < leaf.reader().maxDoc() && compare(missingValue, best, reverse) < 0) {
+                    // documents without a value sort with the missing value
+                    best = missingValue;
+                }
+            }
+            if (bottomValue != null && compare(best, bottomValue, reverse) > 0) {
+                // no document of this leaf can make it into the top docs of the search
+                continue;
+            }
+            ordered.add(leaf);
+            bestValues.add(best);
+        }
+        if (canReorder(searchContext) == false) {
+            // keep the natural order of the leaves that may hold competitive documents
+            return ordered.size() == leaves.size() ? null : ordered;
+        }
+        final Integer[] order = new Integer[ordered.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        // the sort is stable so leaves with the same value keep their order
+        Arrays.sort(order, Comparator.comparing(i -> bestValues.get(i), (a, b) -> compare(a, b, reverse)));
+        final List<LeafReaderContext> result = new ArrayList<>(order.length);
+        for (Integer i : order) {
+            result.add(ordered.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether collecting the leaves out of their natural order collects the same top docs, which requires that no two
+     * documents compare equal.
+     */
+    private static boolean canReorder(SearchContext searchContext) {
+        if (searchContext.searchAfter() != null) {
+            return false;
+        }
+        final SortField[] sortFields = searchContext.sort().sort.getSort();
+        final SortField tiebreaker = sortFields[sortFields.length - 1];
+        return tiebreaker.getType() == SortField.Type.DOC || tiebreaker instanceof ShardDocSortField;
+    }
+
+    /**
+     * Compares two encoded values in the order of the sort, negative if the first value sorts first.
+     */
+    private static int compare(byte[] a, byte[] b, boolean reverse) {
+        final int cmp = Arrays.compareUnsigned(a, b);
+        return reverse ? -cmp : cmp;
+    }
+
+    /**
+     * Returns the encoded bottom sort value that the coordinating node sent if the search doesn't count hits, {@code null} otherwise.
+     */
+    @Nullable
+    private static byte[] bottomValue(SearchContext searchContext, SortField.Type type) {
+        final ShardSearchRequest request = searchContext.request();
+        if (request == null || searchContext.trackTotalHitsUpTo() != SearchContext.TRACK_TOTAL_HITS_DISABLED) {
+            return null;
+        }
+        final SearchSortValuesAndFormats bottomSortValues = request.getBottomSortValues();
+        if (bottomSortValues == null || bottomSortValues.getRawSortValues().length == 0) {
+            return null;
+        }
+        return encode(type, bottomSortValues.getRawSortValues()[0]);
+    }
+
+    @Nullable
+    private static byte[] encode(SortField.Type type, Object value) {
+        final byte[] encoded = new byte[Long.BYTES];
+        if (type == SortField.Type.LONG && value instanceof Long) {
+            LongPoint.encodeDimension((Long) value, encoded, 0);
+            return encoded;
+        } else if (type == SortField.Type.DOUBLE && value instanceof Double) {
+            DoublePoint.encodeDimension((Double) value, encoded, 0);
+            return encoded;
+        }
+        return null;
+    }
+}
@@ -46,6 +46,7 @@ import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.cluster.routing.allocation.AllocationService;
+import org.elasticsearch.cluster.routing.allocation.decider.ZstdCodecAllocationDecider;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.Strings;
@@ -1294,6 +1295,16 @@ public class RestoreService implements ClusterStateApplier {
                 } catch (Exception ex) {
                     throw new SnapshotRestoreException(snapshot, "cannot restore index [" + index + "] because it cannot be upgraded", ex);
                 }
+                if ((ZstdCodecAllocationDecider.usesZstd(metadata.index(index.getName()))
+                    || ZstdCodecAllocationDecider.usesZstd(snapshotIndexMetadata))
+                    && ZstdCodecAllocationDecider.anyDataNodeCanReadZstd(currentState.nodes()) == false) {
+                    throw new SnapshotRestoreException(
+                        snapshot,
+                        "cannot restore index ["
+                            + index
+                            + "] because it is compressed with zstd and no data node has the native zstd library [libzstd]"
+                    );
+                }
                 final String renamedIndexName = indexEntry.getKey();
                 final IndexMetadata currentIndexMetadata = currentState.metadata().index(renamedIndexName);
                 final SnapshotRecoverySource recoverySource = new SnapshotRecoverySource(
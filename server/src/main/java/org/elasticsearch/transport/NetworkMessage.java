@@ -8,6 +8,7 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.compress.Zstd;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 
@@ -64,6 +65,11 @@ public abstract class NetworkMessage {
     }
 
     private static Compression.Scheme adjustedScheme(Version version, Compression.Scheme compressionScheme) {
+        if (compressionScheme == Compression.Scheme.ZSTD
+            && (version.before(Compression.Scheme.ZSTD_VERSION) || Zstd.isAvailable() == false)) {
+            // fall back to lz4 if the remote node doesn't know about zstd or this node can't compress with it
+            compressionScheme = Compression.Scheme.LZ4;
+        }
         return compressionScheme == Compression.Scheme.LZ4 && version.before(Compression.Scheme.LZ4_VERSION) ? null : compressionScheme;
     }
 }
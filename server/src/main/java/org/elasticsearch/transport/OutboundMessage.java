@@ -98,6 +98,10 @@ abstract class OutboundMessage extends NetworkMessage {
             return new OutputStreamStreamOutput(CompressorFactory.COMPRESSOR.threadLocalOutputStream(Streams.noCloseStream(bytesStream)));
         } else if (compressionScheme == Compression.Scheme.LZ4) {
             return new OutputStreamStreamOutput(Compression.Scheme.lz4OutputStream(Streams.noCloseStream(bytesStream)));
+        } else if (compressionScheme == Compression.Scheme.ZSTD) {
+            return new OutputStreamStreamOutput(
+                CompressorFactory.ZSTD_COMPRESSOR.threadLocalOutputStream(Streams.noCloseStream(bytesStream))
+            );
         } else {
             throw new IllegalArgumentException("Invalid compression scheme: " + compressionScheme);
         }
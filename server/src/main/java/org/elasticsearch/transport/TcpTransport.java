@@ -223,7 +223,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         private final Compression.Scheme compressionScheme;
         private final AtomicBoolean isClosing = new AtomicBoolean(false);
 
-        NodeChannels(DiscoveryNode node, List<TcpChannel> channels, ConnectionProfile connectionProfile, Version handshakeVersion) {
+        NodeChannels(DiscoveryNode node, List<TcpChannel> channels, ConnectionProfile connectionProfile, HandshakeResult handshake) {
             this.node = node;
             this.channels = Collections.unmodifiableList(channels);
             assert channels.size() == connectionProfile.getNumConnections()
@@ -233,9 +233,14 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
                 for (TransportRequestOptions.Type type : handle.getTypes())
                     typeMapping.put(type, handle);
             }
-            version = handshakeVersion;
+            version = handshake.getVersion();
             compress = connectionProfile.getCompressionEnabled();
-            compressionScheme = connectionProfile.getCompressionScheme();
+            if (connectionProfile.getCompressionScheme() == Compression.Scheme.ZSTD && handshake.isZstdAvailable() == false) {
+                // the remote node did not say that it can decompress zstd
+                compressionScheme = Compression.Scheme.LZ4;
+            } else {
+                compressionScheme = connectionProfile.getCompressionScheme();
+            }
         }
 
         @Override
@@ -898,9 +903,48 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         }
     }
 
-    public void executeHandshake(DiscoveryNode node, TcpChannel channel, ConnectionProfile profile, ActionListener<Version> listener) {
+    public void executeHandshake(
+        DiscoveryNode node,
+        TcpChannel channel,
+        ConnectionProfile profile,
+        ActionListener<HandshakeResult> listener
+    ) {
         long requestId = responseHandlers.newRequestId();
-        handshaker.sendHandshake(requestId, node, channel, profile.getHandshakeTimeout(), listener);
+        handshaker.sendHandshake(
+            requestId,
+            node,
+            channel,
+            profile.getHandshakeTimeout(),
+            listener.map(response -> new HandshakeResult(response.getResponseVersion(), response.isZstdAvailable()))
+        );
+    }
+
+    /**
+     * The outcome of the handshake with a remote node.
+     */
+    public static final class HandshakeResult {
+
+        private final Version version;
+        private final boolean zstdAvailable;
+
+        public HandshakeResult(Version version, boolean zstdAvailable) {
+            this.version = version;
+            this.zstdAvailable = zstdAvailable;
+        }
+
+        /**
+         * The version of the remote node.
+         */
+        public Version getVersion() {
+            return version;
+        }
+
+        /**
+         * Whether the remote node can decompress zstd, which is only used to compress requests to it if it can.
+         */
+        public boolean isZstdAvailable() {
+            return zstdAvailable;
+        }
     }
 
     final TransportKeepAlive getKeepAlive() {
@@ -1052,10 +1096,10 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             if (countDown.countDown()) {
                 final TcpChannel handshakeChannel = channels.get(0);
                 try {
-                    executeHandshake(node, handshakeChannel, connectionProfile, ActionListener.wrap(responseVersion -> {
+                    executeHandshake(node, handshakeChannel, connectionProfile, ActionListener.wrap(handshake -> {
                         final long connectionId = outboundConnectionCount.incrementAndGet();
                         logger.debug("opened transport connection [{}] to [{}] using channels [{}]", connectionId, node, channels);
-                        NodeChannels nodeChannels = new NodeChannels(node, channels, connectionProfile, responseVersion);
+                        NodeChannels nodeChannels = new NodeChannels(node, channels, connectionProfile, handshake);
                         long relativeMillisTime = threadPool.relativeTimeInMillis();
                         nodeChannels.channels.forEach(ch -> {
                             // Mark the channel init time
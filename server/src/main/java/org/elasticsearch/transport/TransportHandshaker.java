@@ -12,10 +12,12 @@ import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.Zstd;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.threadpool.ThreadPool;
 
@@ -52,7 +54,13 @@ final class TransportHandshaker {
         this.ignoreDeserializationErrors = ignoreDeserializationErrors;
     }
 
-    void sendHandshake(long requestId, DiscoveryNode node, TcpChannel channel, TimeValue timeout, ActionListener<Version> listener) {
+    void sendHandshake(
+        long requestId,
+        DiscoveryNode node,
+        TcpChannel channel,
+        TimeValue timeout,
+        ActionListener<HandshakeResponse> listener
+    ) {
         numHandshakes.inc();
         final HandshakeResponseHandler handler = new HandshakeResponseHandler(requestId, version, listener);
         pendingHandshakes.put(requestId, handler);
@@ -84,9 +92,10 @@ final class TransportHandshaker {
     }
 
     void handleHandshake(TransportChannel channel, long requestId, StreamInput stream) throws IOException {
+        final HandshakeRequest handshakeRequest;
         try {
             // Must read the handshake request to exhaust the stream
-            new HandshakeRequest(stream);
+            handshakeRequest = new HandshakeRequest(stream);
         } catch (Exception e) {
             assert ignoreDeserializationErrors : e;
             throw e;
@@ -105,7 +114,13 @@ final class TransportHandshaker {
             assert ignoreDeserializationErrors : exception;
             throw exception;
         }
-        channel.sendResponse(new HandshakeResponse(this.version));
+        // only tell nodes that know about zstd whether we can decompress it, the others could not read the response
+        final Version requestVersion = handshakeRequest.version;
+        if (requestVersion != null && requestVersion.onOrAfter(Compression.Scheme.ZSTD_VERSION)) {
+            channel.sendResponse(new HandshakeResponse(this.version, Zstd.isAvailable()));
+        } else {
+            channel.sendResponse(new HandshakeResponse(this.version));
+        }
     }
 
     TransportResponseHandler<HandshakeResponse> removeHandlerForHandshake(long requestId) {
@@ -124,10 +139,10 @@ final class TransportHandshaker {
 
         private final long requestId;
         private final Version currentVersion;
-        private final ActionListener<Version> listener;
+        private final ActionListener<HandshakeResponse> listener;
         private final AtomicBoolean isDone = new AtomicBoolean(false);
 
-        private HandshakeResponseHandler(long requestId, Version currentVersion, ActionListener<Version> listener) {
+        private HandshakeResponseHandler(long requestId, Version currentVersion, ActionListener<HandshakeResponse> listener) {
             this.requestId = requestId;
             this.currentVersion = currentVersion;
             this.listener = listener;
@@ -153,7 +168,7 @@ final class TransportHandshaker {
                         )
                     );
                 } else {
-                    listener.onResponse(responseVersion);
+                    listener.onResponse(response);
                 }
             }
         }
@@ -212,25 +227,45 @@ final class TransportHandshaker {
     static final class HandshakeResponse extends TransportResponse {
 
         private final Version responseVersion;
+        // whether the responding node can decompress zstd, null if the requesting node doesn't know about zstd and it is not sent
+        @Nullable
+        private final Boolean zstdAvailable;
 
         HandshakeResponse(Version responseVersion) {
+            this(responseVersion, null);
+        }
+
+        HandshakeResponse(Version responseVersion, @Nullable Boolean zstdAvailable) {
             this.responseVersion = responseVersion;
+            this.zstdAvailable = zstdAvailable;
         }
 
         private HandshakeResponse(StreamInput in) throws IOException {
             super(in);
             responseVersion = Version.readVersion(in);
+            // nodes that know about zstd send whether they can decompress it, since we know about it too
+            zstdAvailable = responseVersion.onOrAfter(Compression.Scheme.ZSTD_VERSION) ? in.readBoolean() : null;
         }
 
         @Override
         public void writeTo(StreamOutput out) throws IOException {
             assert responseVersion != null;
             Version.writeVersion(responseVersion, out);
+            if (zstdAvailable != null) {
+                out.writeBoolean(zstdAvailable);
+            }
         }
 
         Version getResponseVersion() {
             return responseVersion;
         }
+
+        /**
+         * Whether the responding node said that it can decompress zstd. Requests must not be compressed with zstd otherwise.
+         */
+        boolean isZstdAvailable() {
+            return zstdAvailable != null && zstdAvailable;
+        }
     }
 
     @FunctionalInterface
@@ -0,0 +1,158 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.compress.Zstd;
+import org.elasticsearch.common.compress.ZstdCompressor;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.recycler.Recycler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Decompresses the blocks that {@link ZstdCompressor} writes as they arrive. A block is only decompressed once all of its bytes arrived,
+ * which is at most {@link ZstdCompressor#BLOCK_SIZE} uncompressed bytes.
+ */
+public class ZstdTransportDecompressor implements TransportDecompressor {
+
+    private static final ThreadLocal<byte[]> DECOMPRESSED = ThreadLocal.withInitial(() -> new byte[ZstdCompressor.BLOCK_SIZE]);
+    private static final ThreadLocal<byte[]> COMPRESSED = ThreadLocal.withInitial(
+        () -> new byte[ZstdCompressor.maxCompressedBlockSize()]
+    );
+
+    private final Recycler<BytesRef> recycler;
+    private final ArrayDeque<Recycler.V<BytesRef>> pages;
+    private final byte[] blockHeader = new byte[ZstdCompressor.BLOCK_HEADER_SIZE];
+    private int pageOffset = 0;
+    private int pageLength = 0;
+    private boolean hasSkippedESHeader = false;
+
+    public ZstdTransportDecompressor(Recycler<BytesRef> recycler) {
+        this.recycler = recycler;
+        this.pages = new ArrayDeque<>(4);
+    }
+
+    @Override
+    public int decompress(BytesReference bytesReference) throws IOException {
+        int bytesConsumed = 0;
+        if (hasSkippedESHeader == false) {
+            hasSkippedESHeader = true;
+            int esHeaderLength = Compression.Scheme.HEADER_LENGTH;
+            bytesReference = bytesReference.slice(esHeaderLength, bytesReference.length() - esHeaderLength);
+            bytesConsumed += esHeaderLength;
+        }
+
+        while (true) {
+            int consumed = decodeBlock(bytesReference);
+            bytesConsumed += consumed;
+            int newLength = bytesReference.length() - consumed;
+            if (consumed > 0 && newLength > 0) {
+                bytesReference = bytesReference.slice(consumed, newLength);
+            } else {
+                break;
+            }
+        }
+
+        return bytesConsumed;
+    }
+
+    private int decodeBlock(BytesReference reference) throws IOException {
+        if (reference.length() < ZstdCompressor.BLOCK_HEADER_SIZE) {
+            return 0;
+        }
+        for (int i = 0; i < blockHeader.length; i++) {
+            blockHeader[i] = reference.get(i);
+        }
+        final byte[] compressedBuffer = COMPRESSED.get();
+        final int uncompressedLength = ZstdCompressor.readUncompressedLength(blockHeader, 0);
+        final int compressedLength = ZstdCompressor.readCompressedLength(blockHeader, 0, compressedBuffer.length);
+        if (reference.length() < ZstdCompressor.BLOCK_HEADER_SIZE + compressedLength) {
+            return 0;
+        }
+
+        final BytesReference block = reference.slice(ZstdCompressor.BLOCK_HEADER_SIZE, compressedLength);
+        final BytesRef ref = block.iterator().next();
+        final ByteBuffer compressed;
+        if (ref.length >= compressedLength) {
+            compressed = ByteBuffer.wrap(ref.bytes, ref.offset, compressedLength);
+        } else {
+            try (StreamInput streamInput = block.streamInput()) {
+                streamInput.readBytes(compressedBuffer, 0, compressedLength);
+            }
+            compressed = ByteBuffer.wrap(compressedBuffer, 0, compressedLength);
+        }
+        final byte[] decompressed = DECOMPRESSED.get();
+        final int decompressedLength = Zstd.decompress(ByteBuffer.wrap(decompressed, 0, uncompressedLength), compressed);
+        if (decompressedLength != uncompressedLength) {
+            throw new IllegalStateException(
+                "stream corrupted: zstd block decompressed to [" + decompressedLength + "] bytes but expected [" + uncompressedLength + "]"
+            );
+        }
+
+        int bytesToCopy = decompressedLength;
+        int uncompressedOffset = 0;
+        while (bytesToCopy > 0) {
+            final boolean isNewPage = pageOffset == pageLength;
+            if (isNewPage) {
+                Recycler.V<BytesRef> newPage = recycler.obtain();
+                pageOffset = 0;
+                pageLength = newPage.v().length;
+                assert newPage.v().length > 0;
+                pages.add(newPage);
+            }
+            final Recycler.V<BytesRef> page = pages.getLast();
+
+            int toCopy = Math.min(bytesToCopy, pageLength - pageOffset);
+            System.arraycopy(decompressed, uncompressedOffset, page.v().bytes, page.v().offset + pageOffset, toCopy);
+            pageOffset += toCopy;
+            bytesToCopy -= toCopy;
+            uncompressedOffset += toCopy;
+        }
+        return ZstdCompressor.BLOCK_HEADER_SIZE + compressedLength;
+    }
+
+    @Override
+    public ReleasableBytesReference pollDecompressedPage(boolean isEOS) {
+        if (pages.isEmpty()) {
+            return null;
+        } else if (pages.size() == 1) {
+            if (isEOS) {
+                Recycler.V<BytesRef> page = pages.pollFirst();
+                BytesArray delegate = new BytesArray(page.v().bytes, page.v().offset, pageOffset);
+                ReleasableBytesReference reference = new ReleasableBytesReference(delegate, page);
+                pageLength = 0;
+                pageOffset = 0;
+                return reference;
+            } else {
+                return null;
+            }
+        } else {
+            Recycler.V<BytesRef> page = pages.pollFirst();
+            return new ReleasableBytesReference(new BytesArray(page.v()), page);
+        }
+    }
+
+    @Override
+    public Compression.Scheme getScheme() {
+        return Compression.Scheme.ZSTD;
+    }
+
+    @Override
+    public void close() {
+        for (Recycler.V<BytesRef> page : pages) {
+            page.close();
+        }
+    }
+}
@@ -22,6 +22,7 @@ import org.elasticsearch.core.Tuple;
 import org.elasticsearch.discovery.DiscoveryStats;
 import org.elasticsearch.http.HttpStats;
 import org.elasticsearch.index.stats.IndexingPressureStats;
+import org.elasticsearch.index.translog.TranslogGroupCommitStats;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
 import org.elasticsearch.indices.breaker.CircuitBreakerStats;
 import org.elasticsearch.ingest.IngestStats;
@@ -471,6 +472,9 @@ public class NodeStatsTests extends ESTestCase {
                 } else {
                     assertEquals(adaptiveStats.getOutgoingConnections(), deserializedAdaptiveStats.getOutgoingConnections());
                     assertEquals(adaptiveStats.getRanks(), deserializedAdaptiveStats.getRanks());
+                    assertEquals(adaptiveStats.getHedgedRequests(), deserializedAdaptiveStats.getHedgedRequests());
+                    assertEquals(adaptiveStats.getHedgedRequestsWon(), deserializedAdaptiveStats.getHedgedRequestsWon());
+                    assertEquals(adaptiveStats.getHedgedRequestsOverBudget(), deserializedAdaptiveStats.getHedgedRequestsOverBudget());
                     adaptiveStats.getComputedStats().forEach((k, v) -> {
                         ResponseCollectorService.ComputedNodeStats aStats = adaptiveStats.getComputedStats().get(k);
                         ResponseCollectorService.ComputedNodeStats bStats = deserializedAdaptiveStats.getComputedStats().get(k);
@@ -508,6 +512,7 @@ public class NodeStatsTests extends ESTestCase {
                     assertEquals(limited, sum.getCompilationLimitTriggered());
                     assertEquals(compilations, sum.getCompilations());
                 }
+                assertEquals(nodeStats.getTranslogGroupCommitStats(), deserializedNodeStats.getTranslogGroupCommitStats());
             }
         }
     }
@@ -857,7 +862,13 @@ public class NodeStatsTests extends ESTestCase {
                     nodeStats.put(nodeId, stats);
                 }
             }
-            adaptiveSelectionStats = new AdaptiveSelectionStats(nodeConnections, nodeStats);
+            adaptiveSelectionStats = new AdaptiveSelectionStats(
+                nodeConnections,
+                nodeStats,
+                randomNonNegativeLong(),
+                randomNonNegativeLong(),
+                randomNonNegativeLong()
+            );
         }
         ScriptCacheStats scriptCacheStats = scriptStats != null ? scriptStats.toScriptCacheStats() : null;
         IndexingPressureStats indexingPressureStats = null;
@@ -884,6 +895,23 @@ public class NodeStatsTests extends ESTestCase {
                 randomLongBetween(0, maxStatValue)
             );
         }
+        TranslogGroupCommitStats translogGroupCommitStats = null;
+        if (frequently()) {
+            List<TranslogGroupCommitStats.PathStats> paths = new ArrayList<>();
+            for (int i = 0; i < randomIntBetween(0, 3); i++) {
+                paths.add(
+                    new TranslogGroupCommitStats.PathStats(
+                        randomAlphaOfLength(10),
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong(),
+                        randomNonNegativeLong()
+                    )
+                );
+            }
+            translogGroupCommitStats = new TranslogGroupCommitStats(paths);
+        }
         // TODO NodeIndicesStats are not tested here, way too complicated to create, also they need to be migrated to Writeable yet
         return new NodeStats(
             node,
@@ -902,7 +930,8 @@ public class NodeStatsTests extends ESTestCase {
             ingestStats,
             adaptiveSelectionStats,
             scriptCacheStats,
-            indexingPressureStats
+            indexingPressureStats,
+            translogGroupCommitStats
         );
     }
 
@@ -0,0 +1,148 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+public class AdaptiveBulkSizerTests extends ESTestCase {
+
+    private static final long MIN = 1024;
+    private static final long MAX = 1024 * 1024;
+
+    public void testSlowStartDoublesSizeUntilMax() {
+        final AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(MIN, MAX, 4);
+        assertThat(sizer.bulkSizeInBytes(), equalTo(MIN));
+        assertThat(sizer.concurrentRequests(), equalTo(1));
+        long expected = MIN;
+        while (expected < MAX) {
+            accept(sizer);
+            expected = Math.min(MAX, expected * 2);
+            assertThat(sizer.bulkSizeInBytes(), equalTo(expected));
+        }
+        assertThat(sizer.concurrentRequests(), equalTo(1));
+    }
+
+    public void testConcurrencyGrowsAdditivelyOnceAtMaxSize() {
+        final int maxConcurrentRequests = between(2, 8);
+        final AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(MIN, MAX, maxConcurrentRequests);
+        while (sizer.bulkSizeInBytes() < MAX) {
+            accept(sizer);
+        }
+        for (int concurrentRequests = 1; concurrentRequests < maxConcurrentRequests; concurrentRequests++) {
+            assertThat(sizer.concurrentRequests(), equalTo(concurrentRequests));
+            // one more concurrent request after a full round of accepted requests
+            for (int i = 0; i < concurrentRequests; i++) {
+                accept(sizer);
+            }
+        }
+        assertThat(sizer.concurrentRequests(), equalTo(maxConcurrentRequests));
+        accept(sizer);
+        assertThat(sizer.concurrentRequests(), equalTo(maxConcurrentRequests));
+    }
+
+    public void testRejectionsHalveConcurrencyThenSize() {
+        final AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(MIN, MAX, 8);
+        while (sizer.concurrentRequests() < 8) {
+            accept(sizer);
+        }
+        sizer.onResponse(sizer.generation(), MAX, 1000, response(true));
+        assertThat(sizer.concurrentRequests(), equalTo(4));
+        assertThat(sizer.bulkSizeInBytes(), equalTo(MAX));
+        sizer.onFailure(sizer.generation(), new EsRejectedExecutionException("rejected"));
+        assertThat(sizer.concurrentRequests(), equalTo(2));
+        sizer.onFailure(sizer.generation(), new EsRejectedExecutionException("rejected"));
+        assertThat(sizer.concurrentRequests(), equalTo(1));
+        sizer.onFailure(sizer.generation(), new EsRejectedExecutionException("rejected"));
+        assertThat(sizer.bulkSizeInBytes(), equalTo(MAX / 2));
+        // other failures are no signal
+        sizer.onFailure(sizer.generation(), new IllegalStateException("boom"));
+        assertThat(sizer.bulkSizeInBytes(), equalTo(MAX / 2));
+    }
+
+    public void testOnlyOneReductionPerRound() {
+        final AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(MIN, MAX, 8);
+        while (sizer.concurrentRequests() < 8) {
+            accept(sizer);
+        }
+        final long generation = sizer.generation();
+        for (int i = 0; i < 8; i++) {
+            sizer.onResponse(generation, MAX, 1000, response(true));
+        }
+        assertThat(sizer.concurrentRequests(), equalTo(4));
+    }
+
+    public void testGrowingLatencyReducesConcurrency() {
+        final AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(MIN, MAX, 4);
+        while (sizer.concurrentRequests() < 4) {
+            accept(sizer);
+        }
+        long took = 1000;
+        while (sizer.concurrentRequests() == 4) {
+            took *= 2;
+            sizer.onResponse(sizer.generation(), MAX, took, response(false));
+        }
+        assertThat(sizer.concurrentRequests(), equalTo(3));
+        assertThat(sizer.bulkSizeInBytes(), equalTo(MAX));
+    }
+
+    public void testRecoversAfterRejections() {
+        final AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(MIN, MAX, 1);
+        while (sizer.bulkSizeInBytes() < MAX) {
+            accept(sizer);
+        }
+        for (int i = 0; i < 5; i++) {
+            sizer.onFailure(sizer.generation(), new EsRejectedExecutionException("rejected"));
+        }
+        final long reduced = sizer.bulkSizeInBytes();
+        assertThat(reduced, lessThan(MAX));
+        accept(sizer);
+        // no more slow start after the cluster pushed back
+        assertThat(sizer.bulkSizeInBytes(), equalTo(reduced + MIN));
+        assertThat(sizer.bulkSizeInBytes(), greaterThan(reduced));
+    }
+
+    public void testValidatesBounds() {
+        expectThrows(IllegalArgumentException.class, () -> new AdaptiveBulkSizer(0, MAX, 1));
+        expectThrows(IllegalArgumentException.class, () -> new AdaptiveBulkSizer(MAX, MIN, 1));
+    }
+
+    private static void accept(AdaptiveBulkSizer sizer) {
+        // a constant latency per byte never looks like queueing
+        final long size = sizer.bulkSizeInBytes();
+        sizer.onResponse(sizer.generation(), size, size * 10, response(false));
+    }
+
+    private static BulkResponse response(boolean rejected) {
+        final BulkItemResponse[] items = new BulkItemResponse[between(1, 5)];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = BulkItemResponse.success(
+                i,
+                DocWriteRequest.OpType.INDEX,
+                new IndexResponse(new ShardId("index", "_na_", 0), Integer.toString(i), 1, 1, 1, true)
+            );
+        }
+        if (rejected) {
+            final int i = between(0, items.length - 1);
+            items[i] = BulkItemResponse.failure(
+                i,
+                DocWriteRequest.OpType.INDEX,
+                new BulkItemResponse.Failure("index", Integer.toString(i), new EsRejectedExecutionException("rejected"))
+            );
+        }
+        return new BulkResponse(items, 1);
+    }
+}
@@ -50,7 +50,9 @@ import java.util.function.BiConsumer;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class BulkProcessorTests extends ESTestCase {
@@ -496,6 +498,58 @@ public class BulkProcessorTests extends ESTestCase {
         }
     }
 
+    public void testAdaptiveBulkSizing() throws Exception {
+        final ByteSizeValue minBulkSize = new ByteSizeValue(1, ByteSizeUnit.KB);
+        final ByteSizeValue maxBulkSize = new ByteSizeValue(16, ByteSizeUnit.KB);
+        final List<Long> requestSizes = new ArrayList<>();
+        final BiConsumer<BulkRequest, ActionListener<BulkResponse>> consumer = (request, listener) -> {
+            synchronized (requestSizes) {
+                requestSizes.add(request.estimatedSizeInBytes());
+            }
+            final BulkItemResponse[] items = new BulkItemResponse[request.numberOfActions()];
+            for (int i = 0; i < items.length; i++) {
+                items[i] = BulkItemResponse.success(i, DocWriteRequest.OpType.INDEX, mockResponse());
+            }
+            listener.onResponse(new BulkResponse(items, 0));
+        };
+        final AtomicInteger docCount = new AtomicInteger();
+        final BulkProcessor.Listener listener = new BulkProcessor.Listener() {
+            @Override
+            public void beforeBulk(long executionId, BulkRequest request) {}
+
+            @Override
+            public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+                docCount.addAndGet(request.numberOfActions());
+            }
+
+            @Override
+            public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+                fail("unexpected failure " + failure);
+            }
+        };
+        final int numDocs = between(500, 1000);
+        try (
+            BulkProcessor bulkProcessor = BulkProcessor.builder(consumer, listener, "BulkProcessorTests")
+                .setConcurrentRequests(0)
+                .setBulkActions(-1)
+                .setAdaptiveBulkSizing(minBulkSize, maxBulkSize)
+                .build()
+        ) {
+            for (int i = 0; i < numDocs; i++) {
+                final IndexRequest request = new IndexRequest("index").id(Integer.toString(i));
+                bulkProcessor.add(request.source(XContentType.JSON, "field", randomAlphaOfLength(64)));
+            }
+        }
+        assertThat(docCount.get(), equalTo(numDocs));
+        assertThat(requestSizes.size(), greaterThan(2));
+        assertThat(requestSizes.get(0), lessThan(2 * minBulkSize.getBytes()));
+        // the size grows from the min size to the max size as long as the requests are accepted
+        assertThat(requestSizes.get(requestSizes.size() - 2), greaterThan(requestSizes.get(0)));
+        for (long requestSize : requestSizes) {
+            assertThat(requestSize, lessThan(2 * maxBulkSize.getBytes()));
+        }
+    }
+
     private BulkProcessor.Listener emptyListener() {
         return new BulkProcessor.Listener() {
             @Override
@@ -16,6 +16,7 @@ import org.elasticsearch.xcontent.XContentType;
 import org.hamcrest.Matchers;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -279,4 +280,88 @@ public class BulkRequestParserTests extends ESTestCase {
         assertSame(first.getPipeline(), second.getPipeline());
         assertSame(first.routing(), second.routing());
     }
+
+    public void testIncrementalParse() throws IOException {
+        final StringBuilder body = new StringBuilder();
+        final int numItems = between(1, 50);
+        final List<String> expectedIds = new ArrayList<>();
+        for (int i = 0; i < numItems; i++) {
+            final String id = Integer.toString(i);
+            expectedIds.add(id);
+            if (randomBoolean()) {
+                body.append("{ \"delete\":{ \"_id\": \"").append(id).append("\" } }\n");
+            } else {
+                body.append("{ \"index\":{ \"_id\": \"").append(id).append("\" } }\n");
+                body.append("{ \"field\": \"").append(randomAlphaOfLength(between(0, 20))).append("\" }\n");
+            }
+        }
+        final byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        final BulkRequestParser parser = new BulkRequestParser(randomBoolean(), RestApiVersion.current());
+        final List<String> ids = new ArrayList<>();
+        int unparsedFrom = 0;
+        int received = 0;
+        while (received < bytes.length) {
+            received = Math.min(bytes.length, received + between(1, 64));
+            final boolean lastData = received == bytes.length;
+            final int consumed = parser.incrementalParse(
+                new BytesArray(bytes, unparsedFrom, received - unparsedFrom),
+                "foo",
+                null,
+                null,
+                null,
+                null,
+                false,
+                XContentType.JSON,
+                (indexRequest, type) -> ids.add(indexRequest.id()),
+                req -> fail(),
+                deleteRequest -> ids.add(deleteRequest.id()),
+                lastData
+            );
+            unparsedFrom += consumed;
+            if (lastData) {
+                assertEquals(bytes.length, unparsedFrom);
+            }
+        }
+        assertEquals(expectedIds, ids);
+    }
+
+    public void testIncrementalParseRequiresTrailingNewlineOnlyForLastData() throws IOException {
+        final BytesArray request = new BytesArray("""
+            { "index":{ "_id": "bar" } }
+            {}""");
+        final BulkRequestParser parser = new BulkRequestParser(randomBoolean(), RestApiVersion.current());
+        final int consumed = parser.incrementalParse(
+            request,
+            "foo",
+            null,
+            null,
+            null,
+            null,
+            false,
+            XContentType.JSON,
+            (indexRequest, type) -> fail(),
+            req -> fail(),
+            req -> fail(),
+            false
+        );
+        assertEquals(0, consumed);
+        final IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> parser.incrementalParse(
+                request,
+                "foo",
+                null,
+                null,
+                null,
+                null,
+                false,
+                XContentType.JSON,
+                (indexRequest, type) -> {},
+                req -> fail(),
+                req -> fail(),
+                true
+            )
+        );
+        assertEquals("The bulk request must be terminated by a newline [\\n]", e.getMessage());
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
+import org.elasticsearch.client.Requests;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.MapperServiceTestCase;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class BulkShardDocumentParserTests extends MapperServiceTestCase {
+
+    public void testNeverWaitsForHelpers() throws IOException {
+        final DocumentMapper mapper = createDocumentMapper(mapping(b -> b.startObject("foo").field("type", "keyword").endObject()));
+        final BulkShardRequest request = bulkShardRequest(between(BulkShardDocumentParser.CHUNK_SIZE + 1, 200));
+        // helpers are forked but never run, the write thread must parse every document inline
+        final Queue<Runnable> forked = new ArrayDeque<>();
+        final BulkShardDocumentParser parser = BulkShardDocumentParser.parse(request, mapper, forked::add, between(1, 4));
+        assertNotNull(parser);
+        assertFalse(forked.isEmpty());
+        for (int i = 0; i < request.items().length; i++) {
+            assertNull(parser.take(i, mapper));
+        }
+        parser.stop();
+        assertThat(parser.parseTimeInNanos(), equalTo(0L));
+    }
+
+    public void testParsesAheadWithinBounds() throws IOException {
+        final DocumentMapper mapper = createDocumentMapper(mapping(b -> b.startObject("foo").field("type", "keyword").endObject()));
+        final int numItems = between(BulkShardDocumentParser.CHUNK_SIZE * 2, 1000);
+        final BulkShardRequest request = bulkShardRequest(numItems);
+        final Queue<Runnable> forked = new ArrayDeque<>();
+        final BulkShardDocumentParser parser = BulkShardDocumentParser.parse(request, mapper, forked::add, between(1, 4));
+        assertNotNull(parser);
+        // the first chunk is left to the write thread, helpers never parse more than MAX_CHUNKS_AHEAD chunks ahead of it
+        runAll(forked);
+        assertThat(parser.parsedChunks(), lessThanOrEqualTo(BulkShardDocumentParser.MAX_CHUNKS_AHEAD));
+        int parsed = 0;
+        for (int i = 0; i < numItems; i++) {
+            final ParsedDocument document = parser.take(i, mapper);
+            if (i < BulkShardDocumentParser.CHUNK_SIZE) {
+                assertNull(document);
+            } else if (document != null) {
+                assertThat(document.id(), equalTo("id_" + i));
+                parsed++;
+            }
+            // the write thread forks helpers again as it moves on
+            runAll(forked);
+            assertThat(parser.parsedChunks(), lessThanOrEqualTo(BulkShardDocumentParser.MAX_CHUNKS_AHEAD));
+        }
+        assertThat(parsed, equalTo(numItems - BulkShardDocumentParser.CHUNK_SIZE));
+        parser.stop();
+    }
+
+    public void testStopsOnMappingUpdate() throws IOException {
+        final DocumentMapper mapper = createDocumentMapper(mapping(b -> b.startObject("foo").field("type", "keyword").endObject()));
+        final DocumentMapper updated = createDocumentMapper(mapping(b -> b.startObject("bar").field("type", "keyword").endObject()));
+        final BulkShardRequest request = bulkShardRequest(between(BulkShardDocumentParser.CHUNK_SIZE * 2, 200));
+        final Queue<Runnable> forked = new ArrayDeque<>();
+        final BulkShardDocumentParser parser = BulkShardDocumentParser.parse(request, mapper, forked::add, 1);
+        runAll(forked);
+        final int updateAt = between(0, request.items().length - 1);
+        for (int i = 0; i < request.items().length; i++) {
+            final ParsedDocument document = parser.take(i, i < updateAt ? mapper : updated);
+            if (i >= updateAt) {
+                assertNull(document);
+            }
+            runAll(forked);
+        }
+    }
+
+    private static void runAll(Queue<Runnable> forked) {
+        Runnable runnable;
+        while ((runnable = forked.poll()) != null) {
+            runnable.run();
+        }
+    }
+
+    private static BulkShardRequest bulkShardRequest(int numItems) {
+        final BulkItemRequest[] items = new BulkItemRequest[numItems];
+        for (int i = 0; i < numItems; i++) {
+            final DocWriteRequest<IndexRequest> writeRequest = new IndexRequest("index").id("id_" + i)
+                .source(Requests.INDEX_CONTENT_TYPE, "foo", "bar_" + i)
+                .opType(DocWriteRequest.OpType.INDEX);
+            items[i] = new BulkItemRequest(i, writeRequest);
+        }
+        return new BulkShardRequest(new ShardId(new Index("index", "_na_"), 0), RefreshPolicy.NONE, items);
+    }
+}
@@ -20,13 +20,16 @@ import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.ActionTestUtils;
+import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
+import org.elasticsearch.action.support.replication.TransportReplicationAction;
 import org.elasticsearch.action.support.replication.TransportWriteAction.WritePrimaryResult;
 import org.elasticsearch.action.update.UpdateHelper;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.action.update.UpdateResponse;
 import org.elasticsearch.client.internal.Requests;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
@@ -51,6 +54,8 @@ import org.elasticsearch.threadpool.ThreadPool.Names;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
@@ -63,6 +68,7 @@ import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.Matchers.arrayWithSize;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
@@ -261,7 +267,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
         IndexShard shard = mock(IndexShard.class);
         when(shard.shardId()).thenReturn(shardId);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
             mappingUpdate
         );
         when(shard.mapperService()).thenReturn(mock(MapperService.class));
@@ -283,9 +289,9 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         assertThat("mappings were \"updated\" once", updateCalled.get(), equalTo(1));
 
         // Verify that the shard "executed" the operation once
-        verify(shard, times(1)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean());
+        verify(shard, times(1)).applyIndexOperationOnPrimary(anyLong(), any(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean());
 
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
             success
         );
 
@@ -300,7 +306,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
         // Verify that the shard "executed" the operation only once (1 for previous invocations plus
         // 1 for this execution)
-        verify(shard, times(2)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean());
+        verify(shard, times(2)).applyIndexOperationOnPrimary(anyLong(), any(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean());
 
         BulkItemResponse primaryResponse = bulkShardRequest.items()[0].getPrimaryResponse();
 
@@ -525,7 +531,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         Exception err = new ElasticsearchException("I'm dead <(x.x)>");
         Engine.IndexResult indexResult = new Engine.IndexResult(err, 0, 0, 0);
         IndexShard shard = mock(IndexShard.class);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
             indexResult
         );
         when(shard.indexSettings()).thenReturn(indexSettings);
@@ -582,7 +588,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         Exception err = new VersionConflictEngineException(shardId, "id", "I'm conflicted <(;_;)>");
         Engine.IndexResult indexResult = new Engine.IndexResult(err, 0, 0, 0);
         IndexShard shard = mock(IndexShard.class);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
             indexResult
         );
         when(shard.indexSettings()).thenReturn(indexSettings);
@@ -638,7 +644,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         Translog.Location resultLocation = new Translog.Location(42, 42, 42);
         Engine.IndexResult indexResult = new FakeIndexResult(1, 1, 13, created, resultLocation);
         IndexShard shard = mock(IndexShard.class);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
             indexResult
         );
         when(shard.indexSettings()).thenReturn(indexSettings);
@@ -856,7 +862,9 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         Engine.IndexResult success = new FakeIndexResult(1, 1, 13, true, resultLocation);
 
         IndexShard shard = mock(IndexShard.class);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenAnswer(ir -> {
+        when(
+            shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())
+        ).thenAnswer(ir -> {
             if (randomBoolean()) {
                 return conflictedResult;
             }
@@ -950,13 +958,16 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
             IndexShard shard = mock(IndexShard.class);
             when(shard.shardId()).thenReturn(shardId);
-            when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
+            when(
+                shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())
+            ).thenReturn(
                 success1,
                 mappingUpdate,
                 success2
             );
             when(shard.getFailedIndexResult(any(EsRejectedExecutionException.class), anyLong())).thenCallRealMethod();
             when(shard.mapperService()).thenReturn(mock(MapperService.class));
+            when(shard.indexSettings()).thenReturn(new IndexSettings(indexMetadata(), Settings.EMPTY));
 
             randomlySetIgnoredPrimaryResponse(items[0]);
 
@@ -992,7 +1003,16 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
             assertThat("mappings were \"updated\" once", updateCalled.get(), equalTo(1));
 
-            verify(shard, times(2)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean());
+            verify(shard, times(2)).applyIndexOperationOnPrimary(
+                anyLong(),
+                any(),
+                any(),
+                any(),
+                anyLong(),
+                anyLong(),
+                anyLong(),
+                anyBoolean()
+            );
 
             BulkItemResponse primaryResponse1 = bulkShardRequest.items()[0].getPrimaryResponse();
             assertThat(primaryResponse1.getItemId(), equalTo(0));
@@ -1064,6 +1084,71 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         latch.await();
     }
 
+    public void testPerformOnPrimaryWithParallelParse() throws Exception {
+        IndexShard shard = newStartedShard(
+            true,
+            Settings.builder().put(IndexSettings.INDEX_BULK_PARALLEL_PARSE_SETTING.getKey(), true).build()
+        );
+        shard.mapperService()
+            .merge(
+                MapperService.SINGLE_MAPPING_NAME,
+                new CompressedXContent("{\"properties\":{\"foo\":{\"type\":\"keyword\"}}}"),
+                MapperService.MergeReason.MAPPING_UPDATE
+            );
+        BulkItemRequest[] items = new BulkItemRequest[randomIntBetween(2, 100)];
+        // a few documents introduce new fields, the documents after them were parsed with an outdated mapping
+        final Set<Integer> withNewField = new HashSet<>();
+        for (int i = between(0, 3); i > 0; i--) {
+            withNewField.add(randomIntBetween(0, items.length - 1));
+        }
+        for (int i = 0; i < items.length; i++) {
+            DocWriteRequest<IndexRequest> writeRequest = new IndexRequest("index").id("id_" + i)
+                .source(Requests.INDEX_CONTENT_TYPE, withNewField.contains(i) ? "new_" + i : "foo", "bar")
+                .opType(DocWriteRequest.OpType.INDEX);
+            items[i] = new BulkItemRequest(i, writeRequest);
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        final AtomicInteger mappingUpdates = new AtomicInteger();
+        final PlainActionFuture<TransportReplicationAction.PrimaryResult<BulkShardRequest, BulkShardResponse>> future =
+            new PlainActionFuture<>();
+        TransportShardBulkAction.performOnPrimary(
+            bulkShardRequest,
+            shard,
+            null,
+            threadPool::absoluteTimeInMillis,
+            (update, shardId, listener) -> {
+                mappingUpdates.incrementAndGet();
+                ActionListener.completeWith(listener, () -> {
+                    shard.mapperService()
+                        .merge(MapperService.SINGLE_MAPPING_NAME, new CompressedXContent(update), MapperService.MergeReason.MAPPING_UPDATE);
+                    return null;
+                });
+            },
+            listener -> listener.onResponse(null),
+            future,
+            threadPool,
+            Names.WRITE
+        );
+        future.actionGet();
+
+        assertThat(mappingUpdates.get(), equalTo(withNewField.size()));
+        for (int i = 0; i < items.length; i++) {
+            BulkItemResponse response = bulkShardRequest.items()[i].getPrimaryResponse();
+            assertFalse(response.isFailed());
+            assertThat(response.getId(), equalTo("id_" + i));
+            // documents are still applied in the order of the request
+            assertThat(response.getResponse().getSeqNo(), equalTo((long) i));
+        }
+        assertDocCount(shard, items.length);
+
+        BulkStats bulkStats = shard.bulkStats();
+        assertThat(bulkStats.getTotalOperations(), equalTo(1L));
+        // documents are parsed ahead of time concurrently with applying them, so only the apply time is part of the bulk time
+        assertThat(bulkStats.getTotalApplyTimeInMillis(), lessThanOrEqualTo(bulkStats.getTotalTimeInMillis()));
+        closeShards(shard);
+    }
+
     private void randomlySetIgnoredPrimaryResponse(BulkItemRequest primaryRequest) {
         if (randomBoolean()) {
             // add a response to the request and thereby check that it is ignored for the primary.
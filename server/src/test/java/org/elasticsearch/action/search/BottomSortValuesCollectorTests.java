@@ -16,7 +16,12 @@ import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.time.DateUtils;
 import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.AliasFilter;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.test.ESTestCase;
 
 import java.time.ZoneId;
@@ -199,6 +204,32 @@ public class BottomSortValuesCollectorTests extends ESTestCase {
         }
     }
 
+    public void testRewriteShardSearchRequest() {
+        SortField[] sortFields = new SortField[] { new SortField("foo", SortField.Type.LONG, true) };
+        DocValueFormat[] sortFormats = new DocValueFormat[] { DocValueFormat.RAW };
+        BottomSortValuesCollector collector = new BottomSortValuesCollector(3, sortFields);
+        ShardSearchRequest request = new ShardSearchRequest(new ShardId("index", "_na_", 0), 0L, AliasFilter.EMPTY);
+        request.source(new SearchSourceBuilder());
+
+        // nothing to send before a shard returned a full page of top docs
+        collector.consumeTopDocs(createTopDocs(sortFields[0], 50, newLongArray(5L)), sortFormats);
+        assertSame(request, collector.rewriteShardSearchRequest(request, 100));
+        assertNull(request.getBottomSortValues());
+        assertNull(request.source().trackTotalHitsUpTo());
+
+        collector.consumeTopDocs(createTopDocs(sortFields[0], 60, newLongArray(30L, 20L, 10L)), sortFormats);
+        collector.rewriteShardSearchRequest(request, 100);
+        assertThat(request.getBottomSortValues().getRawSortValues()[0], equalTo(10L));
+        // the shards already matched more hits than the search needs to count
+        assertThat(request.source().trackTotalHitsUpTo(), equalTo(SearchContext.TRACK_TOTAL_HITS_DISABLED));
+
+        ShardSearchRequest accurateRequest = new ShardSearchRequest(new ShardId("index", "_na_", 1), 0L, AliasFilter.EMPTY);
+        accurateRequest.source(new SearchSourceBuilder().trackTotalHits(true));
+        collector.rewriteShardSearchRequest(accurateRequest, SearchContext.TRACK_TOTAL_HITS_ACCURATE);
+        assertThat(accurateRequest.getBottomSortValues().getRawSortValues()[0], equalTo(10L));
+        assertThat(accurateRequest.source().trackTotalHitsUpTo(), equalTo(SearchContext.TRACK_TOTAL_HITS_ACCURATE));
+    }
+
     private Object[] newDoubleArray(Double... values) {
         return values;
     }
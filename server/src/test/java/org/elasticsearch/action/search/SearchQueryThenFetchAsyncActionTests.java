@@ -20,15 +20,21 @@ import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.cluster.routing.RecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
+import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.lucene.grouping.TopFieldGroups;
+import org.elasticsearch.node.AdaptiveSelectionStats;
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
@@ -42,6 +48,8 @@ import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.InternalAggregationTestCase;
 import org.elasticsearch.test.VersionUtils;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.Transport;
 
 import java.util.ArrayList;
@@ -58,6 +66,7 @@ import static org.elasticsearch.test.VersionUtils.allVersions;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class SearchQueryThenFetchAsyncActionTests extends ESTestCase {
     public void testBottomFieldSort() throws Exception {
@@ -235,6 +244,445 @@ public class SearchQueryThenFetchAsyncActionTests extends ESTestCase {
         assertThat(((FieldDoc) phase.sortedTopDocs.scoreDocs[0]).fields[0], equalTo(0));
     }
 
+    public void testHedgedRequests() throws Exception {
+        final TransportSearchAction.SearchTimeProvider timeProvider = new TransportSearchAction.SearchTimeProvider(
+            0,
+            System.nanoTime(),
+            System::nanoTime
+        );
+        Map<String, Transport.Connection> lookup = new ConcurrentHashMap<>();
+        DiscoveryNode primaryNode = new DiscoveryNode("node1", buildNewFakeTransportAddress(), Version.CURRENT);
+        DiscoveryNode replicaNode = new DiscoveryNode("node2", buildNewFakeTransportAddress(), Version.CURRENT);
+        lookup.put("node1", new SearchAsyncActionTests.MockConnection(primaryNode));
+        lookup.put("node2", new SearchAsyncActionTests.MockConnection(replicaNode));
+        int numShards = randomIntBetween(2, 10);
+        GroupShardsIterator<SearchShardIterator> shardsIter = SearchAsyncActionTests.getShardsIter(
+            "idx",
+            new OriginalIndices(new String[] { "idx" }, SearchRequest.DEFAULT_INDICES_OPTIONS),
+            numShards,
+            true,
+            primaryNode,
+            replicaNode
+        );
+        SearchTask task = new SearchTask(0, "n/a", "n/a", () -> "test", null, Collections.emptyMap());
+
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            ClusterService clusterService = new ClusterService(
+                Settings.EMPTY,
+                new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+                threadPool
+            );
+            ResponseCollectorService responseCollectorService = new ResponseCollectorService(clusterService);
+            for (int i = 0; i < 200; i++) {
+                responseCollectorService.addShardResponseTime(TimeValue.timeValueMillis(1).nanos());
+            }
+            ShardRequestHedging hedging = new ShardRequestHedging(responseCollectorService, threadPool, 95, TimeValue.ZERO, 1);
+
+            // the original requests only return once the search is done, their hedged requests return right away
+            List<Runnable> originalResponses = Collections.synchronizedList(new ArrayList<>());
+            AtomicInteger hedgedRequests = new AtomicInteger();
+            AtomicInteger releasedContexts = new AtomicInteger();
+            SearchTransportService searchTransportService = new SearchTransportService(null, null, null) {
+                @Override
+                public void sendExecuteQuery(
+                    Transport.Connection connection,
+                    ShardSearchRequest request,
+                    SearchTask searchTask,
+                    SearchActionListener<? super SearchPhaseResult> listener
+                ) {
+                    QuerySearchResult queryResult = new QuerySearchResult(
+                        new ShardSearchContextId("N/A", request.shardId().id()),
+                        new SearchShardTarget(connection.getNode().getId(), request.shardId(), null),
+                        null
+                    );
+                    queryResult.topDocs(new TopDocsAndMaxScore(Lucene.EMPTY_TOP_DOCS, Float.NaN), new DocValueFormat[0]);
+                    queryResult.from(0);
+                    queryResult.size(1);
+                    if (searchTask == task) {
+                        originalResponses.add(() -> listener.onResponse(queryResult));
+                    } else {
+                        hedgedRequests.incrementAndGet();
+                        new Thread(() -> listener.onResponse(queryResult)).start();
+                    }
+                }
+
+                @Override
+                public SearchTask registerHedgedRequestTask(SearchTask parentTask, SearchShardTarget shard) {
+                    assertSame(task, parentTask);
+                    return new SearchTask(1, "n/a", "n/a", () -> "hedged", null, Collections.emptyMap());
+                }
+
+                @Override
+                public void cancelHedgedRequestTask(SearchTask hedgeTask, String reason) {
+                    throw new AssertionError("hedged requests return first");
+                }
+
+                @Override
+                public void unregisterHedgedRequestTask(SearchTask hedgeTask) {}
+
+                @Override
+                public void sendFreeContext(Transport.Connection connection, ShardSearchContextId contextId, OriginalIndices indices) {
+                    releasedContexts.incrementAndGet();
+                }
+            };
+            final SearchRequest searchRequest = new SearchRequest();
+            searchRequest.source(new SearchSourceBuilder().size(1));
+            // the original requests hold their permits until they return
+            searchRequest.setMaxConcurrentShardRequests(numShards);
+            searchRequest.allowPartialSearchResults(false);
+            SearchPhaseController controller = new SearchPhaseController(
+                (t, r) -> InternalAggregationTestCase.emptyReduceContextBuilder()
+            );
+            QueryPhaseResultConsumer resultConsumer = new QueryPhaseResultConsumer(
+                searchRequest,
+                EsExecutors.DIRECT_EXECUTOR_SERVICE,
+                new NoopCircuitBreaker(CircuitBreaker.REQUEST),
+                controller,
+                task::isCancelled,
+                task.getProgressListener(),
+                shardsIter.size(),
+                exc -> {}
+            );
+            CountDownLatch latch = new CountDownLatch(1);
+            SearchQueryThenFetchAsyncAction action = new SearchQueryThenFetchAsyncAction(
+                logger,
+                searchTransportService,
+                (clusterAlias, node) -> lookup.get(node),
+                Collections.singletonMap("_na_", new AliasFilter(null, Strings.EMPTY_ARRAY)),
+                Collections.emptyMap(),
+                controller,
+                EsExecutors.DIRECT_EXECUTOR_SERVICE,
+                resultConsumer,
+                searchRequest,
+                null,
+                shardsIter,
+                timeProvider,
+                null,
+                task,
+                SearchResponse.Clusters.EMPTY,
+                false,
+                hedging
+            ) {
+                @Override
+                protected SearchPhase getNextPhase(SearchPhaseResults<SearchPhaseResult> results, SearchPhaseContext context) {
+                    return new SearchPhase("test") {
+                        @Override
+                        public void run() {
+                            latch.countDown();
+                        }
+                    };
+                }
+            };
+            action.start();
+            latch.await();
+            assertThat(hedgedRequests.get(), equalTo(numShards));
+            assertThat(action.results.getSuccessfulResults().count(), equalTo((long) numShards));
+
+            // the results of the original requests are discarded and their reader contexts are released
+            assertThat(originalResponses.size(), equalTo(numShards));
+            originalResponses.forEach(Runnable::run);
+            assertThat(releasedContexts.get(), equalTo(numShards));
+
+            AdaptiveSelectionStats stats = responseCollectorService.getAdaptiveStats(Collections.emptyMap());
+            assertThat(stats.getHedgedRequests(), equalTo((long) numShards));
+            assertThat(stats.getHedgedRequestsWon(), equalTo((long) numShards));
+            assertThat(stats.getHedgedRequestsOverBudget(), equalTo(0L));
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    public void testBatchedQueryPhase() throws Exception {
+        final TransportSearchAction.SearchTimeProvider timeProvider = new TransportSearchAction.SearchTimeProvider(
+            0,
+            System.nanoTime(),
+            System::nanoTime
+        );
+        DiscoveryNode newNode = new DiscoveryNode("node1", buildNewFakeTransportAddress(), Version.CURRENT);
+        DiscoveryNode oldNode = new DiscoveryNode(
+            "node2",
+            buildNewFakeTransportAddress(),
+            VersionUtils.randomVersionBetween(random(), Version.CURRENT.minimumCompatibilityVersion(), Version.V_8_0_0)
+        );
+        Map<String, Transport.Connection> lookup = new ConcurrentHashMap<>();
+        lookup.put("node1", new SearchAsyncActionTests.MockConnection(newNode));
+        lookup.put("node2", new SearchAsyncActionTests.MockConnection(oldNode));
+        OriginalIndices originalIndices = new OriginalIndices(new String[] { "idx1", "idx2" }, SearchRequest.DEFAULT_INDICES_OPTIONS);
+        int numNewShards = randomIntBetween(2, 10);
+        int numOldShards = randomIntBetween(2, 10);
+        List<SearchShardIterator> shardIts = new ArrayList<>();
+        Index newIndex = new Index("idx1", "_na_");
+        Index oldIndex = new Index("idx2", "_na_");
+        shardIts.addAll(SearchAsyncActionTests.getShardsIter(newIndex, originalIndices, numNewShards, false, newNode, null));
+        shardIts.addAll(SearchAsyncActionTests.getShardsIter(oldIndex, originalIndices, numOldShards, false, oldNode, null));
+        GroupShardsIterator<SearchShardIterator> shardsIter = new GroupShardsIterator<>(shardIts);
+        int numConcurrent = randomIntBetween(1, 4);
+
+        List<QueryNodeRequest> nodeRequests = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger shardRequests = new AtomicInteger();
+        AtomicInteger inFlightShardRequests = new AtomicInteger();
+        AtomicInteger maxInFlightShardRequests = new AtomicInteger();
+        SearchTransportService searchTransportService = new SearchTransportService(null, null, null) {
+            @Override
+            public void sendExecuteQuery(
+                Transport.Connection connection,
+                ShardSearchRequest request,
+                SearchTask task,
+                SearchActionListener<? super SearchPhaseResult> listener
+            ) {
+                // nodes that don't know about node level requests get a request per shard
+                assertThat(connection.getNode(), equalTo(oldNode));
+                shardRequests.incrementAndGet();
+                maxInFlightShardRequests.accumulateAndGet(inFlightShardRequests.incrementAndGet(), Math::max);
+                QuerySearchResult queryResult = emptyQueryResult(connection, request);
+                new Thread(() -> {
+                    inFlightShardRequests.decrementAndGet();
+                    listener.onResponse(queryResult);
+                }).start();
+            }
+
+            @Override
+            public void sendExecuteQuery(
+                Transport.Connection connection,
+                QueryNodeRequest request,
+                SearchTask task,
+                List<SearchActionListener<? super SearchPhaseResult>> listeners
+            ) {
+                assertThat(connection.getNode(), equalTo(newNode));
+                nodeRequests.add(request);
+                List<QuerySearchResult> queryResults = new ArrayList<>();
+                for (ShardSearchRequest shardRequest : request.getShardSearchRequests()) {
+                    queryResults.add(emptyQueryResult(connection, shardRequest));
+                }
+                new Thread(() -> {
+                    for (int i = 0; i < listeners.size(); i++) {
+                        listeners.get(i).onResponse(queryResults.get(i));
+                    }
+                }).start();
+            }
+        };
+        final SearchRequest searchRequest = new SearchRequest();
+        searchRequest.source(new SearchSourceBuilder().size(1));
+        searchRequest.setMaxConcurrentShardRequests(numConcurrent);
+        searchRequest.allowPartialSearchResults(false);
+        SearchPhaseController controller = new SearchPhaseController((t, r) -> InternalAggregationTestCase.emptyReduceContextBuilder());
+        SearchTask task = new SearchTask(0, "n/a", "n/a", () -> "test", null, Collections.emptyMap());
+        QueryPhaseResultConsumer resultConsumer = new QueryPhaseResultConsumer(
+            searchRequest,
+            EsExecutors.DIRECT_EXECUTOR_SERVICE,
+            new NoopCircuitBreaker(CircuitBreaker.REQUEST),
+            controller,
+            task::isCancelled,
+            task.getProgressListener(),
+            shardsIter.size(),
+            exc -> {}
+        );
+        CountDownLatch latch = new CountDownLatch(1);
+        SearchQueryThenFetchAsyncAction action = new SearchQueryThenFetchAsyncAction(
+            logger,
+            searchTransportService,
+            (clusterAlias, node) -> lookup.get(node),
+            Collections.singletonMap("_na_", new AliasFilter(null, Strings.EMPTY_ARRAY)),
+            Collections.emptyMap(),
+            controller,
+            EsExecutors.DIRECT_EXECUTOR_SERVICE,
+            resultConsumer,
+            searchRequest,
+            null,
+            shardsIter,
+            timeProvider,
+            null,
+            task,
+            SearchResponse.Clusters.EMPTY,
+            true,
+            null
+        ) {
+            @Override
+            protected SearchPhase getNextPhase(SearchPhaseResults<SearchPhaseResult> results, SearchPhaseContext context) {
+                return new SearchPhase("test") {
+                    @Override
+                    public void run() {
+                        latch.countDown();
+                    }
+                };
+            }
+        };
+        action.start();
+        latch.await();
+        assertThat(action.results.getSuccessfulResults().count(), equalTo((long) (numNewShards + numOldShards)));
+
+        // the node that supports it gets a single request for all of its shards, which carries the limit of concurrent shard requests
+        assertThat(nodeRequests.size(), equalTo(1));
+        assertThat(nodeRequests.get(0).getShardSearchRequests().size(), equalTo(numNewShards));
+        assertThat(nodeRequests.get(0).getMaxConcurrentShardRequests(), equalTo(numConcurrent));
+        // the shard requests to the older node are still throttled by the coordinating node
+        assertThat(shardRequests.get(), equalTo(numOldShards));
+        assertThat(maxInFlightShardRequests.get(), lessThanOrEqualTo(numConcurrent));
+    }
+
+    public void testBatchedShardRequestsAreNotHedged() throws Exception {
+        final TransportSearchAction.SearchTimeProvider timeProvider = new TransportSearchAction.SearchTimeProvider(
+            0,
+            System.nanoTime(),
+            System::nanoTime
+        );
+        Map<String, Transport.Connection> lookup = new ConcurrentHashMap<>();
+        DiscoveryNode primaryNode = new DiscoveryNode("node1", buildNewFakeTransportAddress(), Version.CURRENT);
+        DiscoveryNode replicaNode = new DiscoveryNode("node2", buildNewFakeTransportAddress(), Version.CURRENT);
+        lookup.put("node1", new SearchAsyncActionTests.MockConnection(primaryNode));
+        lookup.put("node2", new SearchAsyncActionTests.MockConnection(replicaNode));
+        int numShards = randomIntBetween(2, 10);
+        GroupShardsIterator<SearchShardIterator> shardsIter = SearchAsyncActionTests.getShardsIter(
+            "idx",
+            new OriginalIndices(new String[] { "idx" }, SearchRequest.DEFAULT_INDICES_OPTIONS),
+            numShards,
+            true,
+            primaryNode,
+            replicaNode
+        );
+        SearchTask task = new SearchTask(0, "n/a", "n/a", () -> "test", null, Collections.emptyMap());
+
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            ClusterService clusterService = new ClusterService(
+                Settings.EMPTY,
+                new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+                threadPool
+            );
+            ResponseCollectorService responseCollectorService = new ResponseCollectorService(clusterService);
+            for (int i = 0; i < 200; i++) {
+                responseCollectorService.addShardResponseTime(TimeValue.timeValueMillis(1).nanos());
+            }
+            final long maxResponseTime = responseCollectorService.getShardResponseTimePercentile(100);
+            ShardRequestHedging hedging = new ShardRequestHedging(responseCollectorService, threadPool, 95, TimeValue.ZERO, 1);
+
+            // the node requests take much longer than the shard requests used to, but their shards must not be hedged
+            AtomicInteger hedgedRequests = new AtomicInteger();
+            SearchTransportService searchTransportService = new SearchTransportService(null, null, null) {
+                @Override
+                public void sendExecuteQuery(
+                    Transport.Connection connection,
+                    QueryNodeRequest request,
+                    SearchTask searchTask,
+                    List<SearchActionListener<? super SearchPhaseResult>> listeners
+                ) {
+                    List<QuerySearchResult> queryResults = new ArrayList<>();
+                    for (ShardSearchRequest shardRequest : request.getShardSearchRequests()) {
+                        queryResults.add(emptyQueryResult(connection, shardRequest));
+                    }
+                    new Thread(() -> {
+                        try {
+                            Thread.sleep(50);
+                        } catch (InterruptedException e) {
+                            throw new AssertionError(e);
+                        }
+                        for (int i = 0; i < listeners.size(); i++) {
+                            listeners.get(i).onResponse(queryResults.get(i));
+                        }
+                    }).start();
+                }
+
+                @Override
+                public void sendExecuteQuery(
+                    Transport.Connection connection,
+                    ShardSearchRequest request,
+                    SearchTask searchTask,
+                    SearchActionListener<? super SearchPhaseResult> listener
+                ) {
+                    // a node that holds a single shard of the search gets a shard request instead
+                    QuerySearchResult queryResult = emptyQueryResult(connection, request);
+                    new Thread(() -> listener.onResponse(queryResult)).start();
+                }
+
+                @Override
+                public SearchTask registerHedgedRequestTask(SearchTask parentTask, SearchShardTarget shard) {
+                    hedgedRequests.incrementAndGet();
+                    return new SearchTask(1, "n/a", "n/a", () -> "hedged", null, Collections.emptyMap());
+                }
+
+                @Override
+                public void cancelHedgedRequestTask(SearchTask hedgeTask, String reason) {}
+
+                @Override
+                public void unregisterHedgedRequestTask(SearchTask hedgeTask) {}
+
+                @Override
+                public void sendFreeContext(Transport.Connection connection, ShardSearchContextId contextId, OriginalIndices indices) {}
+            };
+            final SearchRequest searchRequest = new SearchRequest();
+            searchRequest.source(new SearchSourceBuilder().size(1));
+            searchRequest.allowPartialSearchResults(false);
+            SearchPhaseController controller = new SearchPhaseController(
+                (t, r) -> InternalAggregationTestCase.emptyReduceContextBuilder()
+            );
+            QueryPhaseResultConsumer resultConsumer = new QueryPhaseResultConsumer(
+                searchRequest,
+                EsExecutors.DIRECT_EXECUTOR_SERVICE,
+                new NoopCircuitBreaker(CircuitBreaker.REQUEST),
+                controller,
+                task::isCancelled,
+                task.getProgressListener(),
+                shardsIter.size(),
+                exc -> {}
+            );
+            CountDownLatch latch = new CountDownLatch(1);
+            SearchQueryThenFetchAsyncAction action = new SearchQueryThenFetchAsyncAction(
+                logger,
+                searchTransportService,
+                (clusterAlias, node) -> lookup.get(node),
+                Collections.singletonMap("_na_", new AliasFilter(null, Strings.EMPTY_ARRAY)),
+                Collections.emptyMap(),
+                controller,
+                EsExecutors.DIRECT_EXECUTOR_SERVICE,
+                resultConsumer,
+                searchRequest,
+                null,
+                shardsIter,
+                timeProvider,
+                null,
+                task,
+                SearchResponse.Clusters.EMPTY,
+                true,
+                hedging
+            ) {
+                @Override
+                protected SearchPhase getNextPhase(SearchPhaseResults<SearchPhaseResult> results, SearchPhaseContext context) {
+                    return new SearchPhase("test") {
+                        @Override
+                        public void run() {
+                            latch.countDown();
+                        }
+                    };
+                }
+            };
+            action.start();
+            latch.await();
+            assertThat(action.results.getSuccessfulResults().count(), equalTo((long) numShards));
+            assertThat(hedgedRequests.get(), equalTo(0));
+
+            // the response times of node requests are not recorded as response times of their shards
+            assertThat(responseCollectorService.getShardResponseTimePercentile(100), equalTo(maxResponseTime));
+            AdaptiveSelectionStats stats = responseCollectorService.getAdaptiveStats(Collections.emptyMap());
+            assertThat(stats.getHedgedRequests(), equalTo(0L));
+            assertThat(stats.getHedgedRequestsOverBudget(), equalTo(0L));
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    private static QuerySearchResult emptyQueryResult(Transport.Connection connection, ShardSearchRequest request) {
+        QuerySearchResult queryResult = new QuerySearchResult(
+            new ShardSearchContextId("N/A", request.shardId().id()),
+            new SearchShardTarget(connection.getNode().getId(), request.shardId(), null),
+            null
+        );
+        queryResult.topDocs(new TopDocsAndMaxScore(Lucene.EMPTY_TOP_DOCS, Float.NaN), new DocValueFormat[0]);
+        queryResult.from(0);
+        queryResult.size(1);
+        return queryResult;
+    }
+
     public void testMinimumVersionSameAsNewVersion() throws Exception {
         Version newVersion = Version.CURRENT;
         Version oldVersion = VersionUtils.randomPreviousCompatibleVersion(random(), newVersion);
@@ -0,0 +1,114 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.decider;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ESAllocationTestCase;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RecoverySource;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.UnassignedInfo;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.common.compress.Zstd;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.codec.CodecService;
+import org.elasticsearch.index.engine.EngineConfig;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class ZstdCodecAllocationDeciderTests extends ESAllocationTestCase {
+
+    private static final DiscoveryNode ZSTD_NODE = newNode("zstd-node", Map.of(Zstd.NODE_ATTR, "true"));
+    private static final DiscoveryNode OTHER_NODE = newNode("other-node");
+
+    private final ZstdCodecAllocationDecider decider = new ZstdCodecAllocationDecider();
+    private final ShardRouting shard = ShardRouting.newUnassigned(
+        new ShardId("test-idx", "test-idx-uuid", 0),
+        true,
+        RecoverySource.EmptyStoreRecoverySource.INSTANCE,
+        new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "index created")
+    );
+
+    public void testZstdIndexOnlyAllocatedToNodesThatReadZstd() {
+        IndexMetadata indexMetadata = indexMetadata(
+            randomFrom(CodecService.ZSTD_BEST_SPEED_CODEC, CodecService.ZSTD_BEST_COMPRESSION_CODEC)
+        );
+        RoutingAllocation allocation = allocation(indexMetadata);
+
+        RoutingNode zstdNode = new RoutingNode(ZSTD_NODE.getId(), ZSTD_NODE);
+        RoutingNode otherNode = new RoutingNode(OTHER_NODE.getId(), OTHER_NODE);
+        assertThat(decider.canAllocate(shard, zstdNode, allocation).type(), equalTo(Decision.Type.YES));
+        Decision decision = decider.canAllocate(shard, otherNode, allocation);
+        assertThat(decision.type(), equalTo(Decision.Type.NO));
+        assertThat(
+            decision.getExplanation(),
+            equalTo(
+                "the index compresses its stored fields with zstd but node ["
+                    + OTHER_NODE.getId()
+                    + "] does not have the native zstd library [libzstd]"
+            )
+        );
+        // forcing a primary onto the node would only fail to open it
+        assertThat(decider.canForceAllocatePrimary(shard, otherNode, allocation).type(), equalTo(Decision.Type.NO));
+        assertThat(decider.shouldAutoExpandToNode(indexMetadata, OTHER_NODE, allocation).type(), equalTo(Decision.Type.NO));
+        assertThat(decider.shouldAutoExpandToNode(indexMetadata, ZSTD_NODE, allocation).type(), equalTo(Decision.Type.YES));
+    }
+
+    public void testOtherIndicesAllocatedAnywhere() {
+        IndexMetadata indexMetadata = indexMetadata(randomFrom(null, CodecService.DEFAULT_CODEC, CodecService.BEST_COMPRESSION_CODEC));
+        RoutingAllocation allocation = allocation(indexMetadata);
+        for (DiscoveryNode node : List.of(ZSTD_NODE, OTHER_NODE)) {
+            assertThat(decider.canAllocate(shard, new RoutingNode(node.getId(), node), allocation).type(), equalTo(Decision.Type.YES));
+            assertThat(decider.shouldAutoExpandToNode(indexMetadata, node, allocation).type(), equalTo(Decision.Type.YES));
+        }
+    }
+
+    public void testAnyDataNodeCanReadZstd() {
+        assertTrue(ZstdCodecAllocationDecider.anyDataNodeCanReadZstd(DiscoveryNodes.builder().add(ZSTD_NODE).add(OTHER_NODE).build()));
+        assertFalse(ZstdCodecAllocationDecider.anyDataNodeCanReadZstd(DiscoveryNodes.builder().add(OTHER_NODE).build()));
+    }
+
+    private static IndexMetadata indexMetadata(String codec) {
+        Settings.Builder settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexMetadata.SETTING_INDEX_UUID, "test-idx-uuid")
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0);
+        if (codec != null) {
+            settings.put(EngineConfig.INDEX_CODEC_SETTING.getKey(), codec);
+        }
+        return IndexMetadata.builder("test-idx").settings(settings).build();
+    }
+
+    private RoutingAllocation allocation(IndexMetadata indexMetadata) {
+        ClusterState state = ClusterState.builder(ClusterState.EMPTY_STATE)
+            .nodes(DiscoveryNodes.builder().add(ZSTD_NODE).add(OTHER_NODE).build())
+            .metadata(Metadata.builder().put(indexMetadata, false))
+            .build();
+        RoutingAllocation allocation = new RoutingAllocation(
+            new AllocationDeciders(List.of(decider)),
+            state.getRoutingNodes(),
+            state,
+            null,
+            null,
+            0
+        );
+        allocation.debugDecision(true);
+        return allocation;
+    }
+}
@@ -9,10 +9,19 @@
 package org.elasticsearch.common.bytes;
 
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.ByteArray;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.hamcrest.Matchers;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class PagedBytesReferenceTests extends AbstractBytesReferenceTestCase {
 
@@ -120,4 +129,34 @@ public class PagedBytesReferenceTests extends AbstractBytesReferenceTestCase {
         assertNotEquals(pbr, pbr2);
     }
 
+    public void testIterateOffHeapPages() throws IOException {
+        BigArrays offHeapBigArrays = new BigArrays(
+            new MockPageCacheRecycler(Settings.builder().put(PageCacheRecycler.OFF_HEAP_SETTING.getKey(), true).build()),
+            new NoneCircuitBreakerService(),
+            CircuitBreaker.REQUEST
+        );
+        int length = randomIntBetween(PAGE_SIZE * 2, PAGE_SIZE * 5);
+        byte[] bytes = randomByteArrayOfLength(length);
+        try (ByteArray byteArray = offHeapBigArrays.newByteArray(length, false)) {
+            byteArray.set(0, bytes, 0, length);
+            int offset = randomIntBetween(0, PAGE_SIZE - 1);
+            BytesReference pbr = BytesReference.fromByteArray(byteArray, length).slice(offset, length - offset);
+            assertThat(pbr, Matchers.instanceOf(PagedBytesReference.class));
+
+            // like Netty4Utils#toByteBuf, hold on to all the fragments before looking at them
+            List<BytesRef> fragments = new ArrayList<>();
+            BytesRefIterator iterator = pbr.iterator();
+            BytesRef fragment;
+            while ((fragment = iterator.next()) != null) {
+                fragments.add(fragment);
+            }
+            assertThat(fragments.size(), Matchers.greaterThan(1));
+            int position = offset;
+            for (BytesRef ref : fragments) {
+                assertEquals(new BytesRef(bytes, position, ref.length), ref);
+                position += ref.length;
+            }
+            assertEquals(length, position);
+        }
+    }
 }
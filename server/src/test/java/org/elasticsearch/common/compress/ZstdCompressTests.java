@@ -0,0 +1,130 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.apache.lucene.util.LineFileDocs;
+import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
+import org.junit.Before;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ZstdCompressTests extends ESTestCase {
+
+    private final Compressor compressor = CompressorFactory.ZSTD_COMPRESSOR;
+
+    @Before
+    public void assumeZstdAvailable() {
+        assumeTrue("requires the native zstd library", Zstd.isAvailable());
+    }
+
+    public void testRandom() throws IOException {
+        Random r = random();
+        for (int i = 0; i < 10; i++) {
+            byte[] bytes = new byte[TestUtil.nextInt(r, 1, 300000)];
+            r.nextBytes(bytes);
+            doTest(bytes);
+        }
+    }
+
+    public void testLineDocs() throws IOException {
+        Random r = random();
+        LineFileDocs lineFileDocs = new LineFileDocs(r);
+        for (int i = 0; i < 10; i++) {
+            int numDocs = TestUtil.nextInt(r, 1, 200);
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            for (int j = 0; j < numDocs; j++) {
+                String s = lineFileDocs.nextDoc().get("body");
+                bos.write(s.getBytes(StandardCharsets.UTF_8));
+            }
+            byte[] bytes = bos.toByteArray();
+            doTest(bytes);
+            assertThat(compressor.compress(new BytesArray(bytes)).length(), lessThan(bytes.length));
+        }
+        lineFileDocs.close();
+    }
+
+    public void testFlushWritesBlock() throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        byte[] first = randomByteArrayOfLength(between(1, 1000));
+        byte[] second = randomByteArrayOfLength(between(1, 1000));
+        try (OutputStream os = compressor.threadLocalOutputStream(out)) {
+            os.write(first);
+            os.flush();
+            // everything that was written before the flush can be decompressed
+            try (InputStream in = compressor.threadLocalInputStream(out.bytes().streamInput())) {
+                assertThat(BytesReference.toBytes(Streams.readFully(in)), equalTo(first));
+            }
+            os.write(second);
+        }
+        BytesReference uncompressed = compressor.uncompress(out.bytes());
+        assertThat(BytesReference.toBytes(uncompressed.slice(0, first.length)), equalTo(first));
+        assertThat(BytesReference.toBytes(uncompressed.slice(first.length, second.length)), equalTo(second));
+    }
+
+    public void testDetectedByCompressorFactory() throws IOException {
+        BytesReference compressed = compressor.compress(new BytesArray("{\"field\":\"value\"}"));
+        assertThat(CompressorFactory.compressor(compressed), sameInstance(compressor));
+        assertThat(CompressorFactory.uncompressIfNeeded(compressed).utf8ToString(), equalTo("{\"field\":\"value\"}"));
+    }
+
+    public void testCompressedXContentFromZstd() throws IOException {
+        String json = "{\"_doc\":{\"properties\":{\"message\":{\"type\":\"text\"}}}}";
+        CompressedXContent deflate = new CompressedXContent(json);
+        CompressedXContent zstd = new CompressedXContent(compressor.compress(new BytesArray(json)));
+        assertThat(zstd.string(), equalTo(json));
+        assertThat(zstd, equalTo(deflate));
+
+        // other nodes get deflate compressed bytes since they may not have the native zstd library
+        Version version = VersionUtils.randomCompatibleVersion(random(), Version.CURRENT);
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(version);
+        zstd.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+        in.setVersion(version);
+        CompressedXContent read = CompressedXContent.readCompressedString(in);
+        assertThat(CompressorFactory.compressor(read.compressedReference()), sameInstance(CompressorFactory.COMPRESSOR));
+        assertThat(read, equalTo(deflate));
+    }
+
+    private void doTest(byte[] bytes) throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        try (OutputStream os = compressor.threadLocalOutputStream(out)) {
+            // write in randomly sized chunks to cross block boundaries in all sorts of ways
+            int offset = 0;
+            while (offset < bytes.length) {
+                int length = Math.min(bytes.length - offset, between(1, 100000));
+                os.write(bytes, offset, length);
+                offset += length;
+            }
+        }
+        BytesReference compressed = out.bytes();
+        try (InputStream in = compressor.threadLocalInputStream(compressed.streamInput())) {
+            assertThat(BytesReference.toBytes(Streams.readFully(in)), equalTo(bytes));
+        }
+        assertThat(BytesReference.toBytes(compressor.uncompress(compressed)), equalTo(bytes));
+        assertThat(BytesReference.toBytes(compressor.uncompress(compressor.compress(new BytesArray(bytes)))), equalTo(bytes));
+    }
+}
@@ -9,6 +9,10 @@
 package org.elasticsearch.common.io.stream;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.VersionUtils;
 
@@ -156,6 +160,20 @@ public class DelayableWriteableTests extends ESTestCase {
         assertSame(d, d.asSerialized(Example::new, writableRegistry()));
     }
 
+    public void testAsSerializedInRecycledPages() throws IOException {
+        MockBigArrays bigArrays = new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+        NamedHolder n = new NamedHolder(new Example(randomAlphaOfLength(5)));
+        try (
+            DelayableWriteable<NamedHolder> original = DelayableWriteable.referencing(n)
+                .asSerialized(NamedHolder::new, writableRegistry(), bigArrays)
+        ) {
+            assertTrue(original.isSerialized());
+            assertSame(original, original.asSerialized(NamedHolder::new, writableRegistry(), bigArrays));
+            roundTripTestCase(original, NamedHolder::new);
+        }
+        // MockBigArrays fails the test if the pages weren't released
+    }
+
     private <T extends Writeable> void roundTripTestCase(DelayableWriteable<T> original, Writeable.Reader<T> reader) throws IOException {
         DelayableWriteable<T> roundTripped = roundTrip(original, reader, Version.CURRENT);
         assertThat(roundTripped.expand(), equalTo(original.expand()));
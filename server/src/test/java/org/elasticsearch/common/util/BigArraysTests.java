@@ -16,12 +16,16 @@ import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.core.Releasables;
+import org.elasticsearch.directbuffers.DirectBuffers;
 import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.test.ESTestCase;
 
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -31,6 +35,7 @@ import java.util.function.Function;
 import static org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
@@ -449,6 +454,149 @@ public class BigArraysTests extends ESTestCase {
         }
     }
 
+    public void testOffHeapByteArray() {
+        final BigArrays offHeapBigArrays = offHeapBigArrays();
+        assertTrue(offHeapBigArrays.isOffHeap());
+        final byte[] array1 = new byte[randomIntBetween(PageCacheRecycler.BYTE_PAGE_SIZE + 1, 1000000)];
+        random().nextBytes(array1);
+        ByteArray array2 = offHeapBigArrays.newByteArray(randomIntBetween(PageCacheRecycler.BYTE_PAGE_SIZE + 1, array1.length), false);
+        assertThat(array2, instanceOf(BigDirectByteArray.class));
+        array2 = offHeapBigArrays.grow(array2, array1.length);
+        array2.set(0, array1, 0, array1.length);
+        for (int i = 0; i < array1.length; ++i) {
+            assertEquals(array1[i], array2.get(i));
+        }
+        final BytesRef ref = new BytesRef();
+        for (int i = 0; i < 100; ++i) {
+            final int offset = randomInt(array1.length - 1);
+            final int len = randomInt(Math.min(randomBoolean() ? 10 : Integer.MAX_VALUE, array1.length - offset));
+            assertTrue(array2.get(offset, len, ref));
+            assertEquals(new BytesRef(array1, offset, len), ref);
+        }
+        final int fromIndex = randomInt(array1.length - 1);
+        final int toIndex = randomIntBetween(fromIndex, array1.length);
+        array2.fill(fromIndex, toIndex, (byte) 42);
+        for (int i = fromIndex; i < toIndex; ++i) {
+            assertEquals(42, array2.get(i));
+        }
+        array2.close();
+    }
+
+    public void testOffHeapLongArray() {
+        final BigArrays offHeapBigArrays = offHeapBigArrays();
+        final int totalLen = randomIntBetween(PageCacheRecycler.LONG_PAGE_SIZE, 200000);
+        LongArray array = offHeapBigArrays.newLongArray(PageCacheRecycler.LONG_PAGE_SIZE, true);
+        assertThat(array, instanceOf(BigDirectLongArray.class));
+        final long[] ref = new long[totalLen];
+        for (int i = 0; i < totalLen; ++i) {
+            ref[i] = randomLong();
+            array = offHeapBigArrays.grow(array, i + 1);
+            array.set(i, ref[i]);
+        }
+        for (int i = 0; i < totalLen; ++i) {
+            assertEquals(ref[i], array.get(i));
+            assertEquals(ref[i] + 1, array.increment(i, 1));
+        }
+        final int fromIndex = randomInt(totalLen - 1);
+        final int toIndex = randomIntBetween(fromIndex, totalLen);
+        array.fill(fromIndex, toIndex, -1L);
+        for (int i = fromIndex; i < toIndex; ++i) {
+            assertEquals(-1L, array.get(i));
+        }
+        array.close();
+    }
+
+    public void testOffHeapIntArray() {
+        final BigArrays offHeapBigArrays = offHeapBigArrays();
+        final int totalLen = randomIntBetween(PageCacheRecycler.INT_PAGE_SIZE, 200000);
+        IntArray array = offHeapBigArrays.newIntArray(PageCacheRecycler.INT_PAGE_SIZE, true);
+        assertThat(array, instanceOf(BigDirectIntArray.class));
+        final int[] ref = new int[totalLen];
+        for (int i = 0; i < totalLen; ++i) {
+            ref[i] = randomInt();
+            array = offHeapBigArrays.grow(array, i + 1);
+            array.set(i, ref[i]);
+        }
+        for (int i = 0; i < totalLen; ++i) {
+            assertEquals(ref[i], array.get(i));
+            assertEquals(ref[i] + 1, array.increment(i, 1));
+        }
+        final int fromIndex = randomInt(totalLen - 1);
+        final int toIndex = randomIntBetween(fromIndex, totalLen);
+        array.fill(fromIndex, toIndex, -1);
+        for (int i = fromIndex; i < toIndex; ++i) {
+            assertEquals(-1, array.get(i));
+        }
+        array.close();
+    }
+
+    public void testOffHeapByteArraySlicesReuseCallerBuffer() {
+        final BigArrays offHeapBigArrays = offHeapBigArrays();
+        final byte[] bytes = new byte[PageCacheRecycler.BYTE_PAGE_SIZE * 2];
+        random().nextBytes(bytes);
+        try (ByteArray array = offHeapBigArrays.newByteArray(bytes.length, false)) {
+            array.set(0, bytes, 0, bytes.length);
+            final BytesRef spare = new BytesRef();
+            array.get(0, 16, spare);
+            final byte[] buffer = spare.bytes;
+            // passing the same ref again reuses its buffer
+            array.get(PageCacheRecycler.BYTE_PAGE_SIZE - 8, 16, spare);
+            assertSame(buffer, spare.bytes);
+            assertEquals(new BytesRef(bytes, PageCacheRecycler.BYTE_PAGE_SIZE - 8, 16), spare);
+            // but slices that other callers hold on to are never overwritten
+            final BytesRef other = new BytesRef();
+            array.get(32, 16, other);
+            assertNotSame(buffer, other.bytes);
+            assertEquals(new BytesRef(bytes, PageCacheRecycler.BYTE_PAGE_SIZE - 8, 16), spare);
+            assertEquals(new BytesRef(bytes, 32, 16), other);
+        }
+    }
+
+    public void testFreeDirectPages() {
+        assumeTrue("pages can only be freed eagerly if the JVM lets us", DirectBuffers.canFreeEagerly());
+        final BufferPoolMXBean direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)
+            .stream()
+            .filter(pool -> pool.getName().equals("direct"))
+            .findFirst()
+            .orElseThrow();
+        final ByteBuffer page = DirectPages.allocate();
+        final long used = direct.getMemoryUsed();
+        DirectPages.free(page);
+        assertThat(direct.getMemoryUsed(), lessThanOrEqualTo(used - PageCacheRecycler.BYTE_PAGE_SIZE));
+    }
+
+    public void testOffHeapPagesAreChargedToBreaker() {
+        final long maxSize = 1 << 20;
+        final BigArrays offHeapBigArrays = new BigArrays(
+            new MockPageCacheRecycler(Settings.builder().put(PageCacheRecycler.OFF_HEAP_SETTING.getKey(), true).build()),
+            new HierarchyCircuitBreakerService(
+                Settings.builder()
+                    .put(REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), maxSize, ByteSizeUnit.BYTES)
+                    .put(HierarchyCircuitBreakerService.USE_REAL_MEMORY_USAGE_SETTING.getKey(), false)
+                    .build(),
+                Collections.emptyList(),
+                new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)
+            ),
+            CircuitBreaker.REQUEST
+        ).withCircuitBreaking();
+        final CircuitBreaker breaker = offHeapBigArrays.breakerService().getBreaker(CircuitBreaker.REQUEST);
+        final long size = randomLongBetween(PageCacheRecycler.LONG_PAGE_SIZE + 1, maxSize / Long.BYTES / 2);
+        final LongArray array = offHeapBigArrays.newLongArray(size);
+        assertEquals(BigLongArray.estimateRamBytes(size), array.ramBytesUsed());
+        assertEquals(array.ramBytesUsed(), breaker.getUsed());
+        expectThrows(CircuitBreakingException.class, () -> offHeapBigArrays.newByteArray(maxSize));
+        array.close();
+        assertEquals(0, breaker.getUsed());
+    }
+
+    private static BigArrays offHeapBigArrays() {
+        return new BigArrays(
+            new MockPageCacheRecycler(Settings.builder().put(PageCacheRecycler.OFF_HEAP_SETTING.getKey(), true).build()),
+            new NoneCircuitBreakerService(),
+            CircuitBreaker.REQUEST
+        );
+    }
+
     private List<BigArraysHelper> bigArrayCreators(final long maxSize, final boolean withBreaking) {
         final BigArrays byteBigArrays = newBigArraysInstance(maxSize, withBreaking);
         BigArraysHelper byteHelper = new BigArraysHelper(
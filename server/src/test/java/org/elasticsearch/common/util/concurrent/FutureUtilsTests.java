@@ -8,10 +8,21 @@
 
 package org.elasticsearch.common.util.concurrent;
 
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.test.ESTestCase;
 
+import org.elasticsearch.core.CheckedRunnable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
@@ -27,4 +38,59 @@ public class FutureUtilsTests extends ESTestCase {
         verify(future).cancel(false);
     }
 
+    public void testRunAllAndWaitRunsAllTasks() throws Exception {
+        final ExecutorService executor = EsExecutors.newFixed(
+            getTestName(),
+            between(1, 4),
+            -1,
+            EsExecutors.daemonThreadFactory(getTestName()),
+            new ThreadContext(Settings.EMPTY),
+            false
+        );
+        try {
+            final AtomicInteger ran = new AtomicInteger();
+            final int numTasks = between(0, 20);
+            final List<CheckedRunnable<IOException>> tasks = new ArrayList<>();
+            for (int i = 0; i < numTasks; i++) {
+                tasks.add(ran::incrementAndGet);
+            }
+            FutureUtils.runAllAndWait(tasks, executor);
+            assertThat(ran.get(), equalTo(numTasks));
+        } finally {
+            terminate(executor);
+        }
+    }
+
+    public void testRunAllAndWaitRunsRejectedTasksOnCallingThread() throws Exception {
+        final Thread caller = Thread.currentThread();
+        final AtomicInteger ran = new AtomicInteger();
+        final List<CheckedRunnable<IOException>> tasks = new ArrayList<>();
+        final int numTasks = between(1, 10);
+        for (int i = 0; i < numTasks; i++) {
+            tasks.add(() -> {
+                assertSame(caller, Thread.currentThread());
+                ran.incrementAndGet();
+            });
+        }
+        FutureUtils.runAllAndWait(tasks, command -> {
+            throw new RejectedExecutionException("rejected");
+        });
+        assertThat(ran.get(), equalTo(numTasks));
+    }
+
+    public void testRunAllAndWaitRethrowsFirstFailure() {
+        final List<CheckedRunnable<IOException>> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            throw new IOException("first");
+        });
+        tasks.add(() -> {});
+        tasks.add(() -> {
+            throw new IllegalArgumentException("second");
+        });
+        // runs everything on the calling thread so that the failures are reported in order
+        final IOException e = expectThrows(IOException.class, () -> FutureUtils.runAllAndWait(tasks, Runnable::run));
+        assertThat(e.getMessage(), equalTo("first"));
+        assertThat(e.getSuppressed(), arrayWithSize(1));
+        assertThat(e.getSuppressed()[0].getMessage(), equalTo("second"));
+    }
 }
@@ -198,7 +198,8 @@ public class IndexModuleTests extends ESTestCase {
             IdFieldMapper.NO_FIELD_DATA,
             null,
             indexDeletionListener,
-            emptyMap()
+            emptyMap(),
+            null
         );
     }
 
@@ -26,20 +26,24 @@ public class BulkStatsTests extends AbstractWireSerializingTestCase<BulkStats> {
             randomNonNegativeLong(),
             randomNonNegativeLong(),
             randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
             randomNonNegativeLong()
         );
     }
 
     @Override
     protected BulkStats mutateInstance(BulkStats instance) {
-        switch (between(0, 4)) {
+        switch (between(0, 6)) {
             case 0:
                 return new BulkStats(
                     randomValueOtherThan(instance.getTotalOperations(), ESTestCase::randomNonNegativeLong),
                     instance.getTotalTimeInMillis(),
                     instance.getTotalSizeInBytes(),
                     instance.getAvgTimeInMillis(),
-                    instance.getAvgTimeInMillis()
+                    instance.getAvgTimeInMillis(),
+                    instance.getTotalParseTimeInMillis(),
+                    instance.getTotalApplyTimeInMillis()
                 );
             case 1:
                 return new BulkStats(
@@ -47,7 +51,9 @@ public class BulkStatsTests extends AbstractWireSerializingTestCase<BulkStats> {
                     randomValueOtherThan(instance.getTotalTimeInMillis(), ESTestCase::randomNonNegativeLong),
                     instance.getTotalSizeInBytes(),
                     instance.getAvgTimeInMillis(),
-                    instance.getAvgTimeInMillis()
+                    instance.getAvgTimeInMillis(),
+                    instance.getTotalParseTimeInMillis(),
+                    instance.getTotalApplyTimeInMillis()
                 );
             case 2:
                 return new BulkStats(
@@ -55,7 +61,9 @@ public class BulkStatsTests extends AbstractWireSerializingTestCase<BulkStats> {
                     instance.getTotalTimeInMillis(),
                     randomValueOtherThan(instance.getTotalSizeInBytes(), ESTestCase::randomNonNegativeLong),
                     instance.getAvgTimeInMillis(),
-                    instance.getAvgTimeInMillis()
+                    instance.getAvgTimeInMillis(),
+                    instance.getTotalParseTimeInMillis(),
+                    instance.getTotalApplyTimeInMillis()
                 );
             case 3:
                 return new BulkStats(
@@ -63,7 +71,9 @@ public class BulkStatsTests extends AbstractWireSerializingTestCase<BulkStats> {
                     instance.getTotalTimeInMillis(),
                     instance.getTotalSizeInBytes(),
                     randomValueOtherThan(instance.getAvgTimeInMillis(), ESTestCase::randomNonNegativeLong),
-                    instance.getAvgTimeInMillis()
+                    instance.getAvgTimeInMillis(),
+                    instance.getTotalParseTimeInMillis(),
+                    instance.getTotalApplyTimeInMillis()
                 );
             case 4:
                 return new BulkStats(
@@ -71,7 +81,29 @@ public class BulkStatsTests extends AbstractWireSerializingTestCase<BulkStats> {
                     instance.getTotalTimeInMillis(),
                     instance.getTotalSizeInBytes(),
                     instance.getAvgTimeInMillis(),
-                    randomValueOtherThan(instance.getAvgSizeInBytes(), ESTestCase::randomNonNegativeLong)
+                    randomValueOtherThan(instance.getAvgSizeInBytes(), ESTestCase::randomNonNegativeLong),
+                    instance.getTotalParseTimeInMillis(),
+                    instance.getTotalApplyTimeInMillis()
+                );
+            case 5:
+                return new BulkStats(
+                    instance.getTotalOperations(),
+                    instance.getTotalTimeInMillis(),
+                    instance.getTotalSizeInBytes(),
+                    instance.getAvgTimeInMillis(),
+                    instance.getAvgSizeInBytes(),
+                    randomValueOtherThan(instance.getTotalParseTimeInMillis(), ESTestCase::randomNonNegativeLong),
+                    instance.getTotalApplyTimeInMillis()
+                );
+            case 6:
+                return new BulkStats(
+                    instance.getTotalOperations(),
+                    instance.getTotalTimeInMillis(),
+                    instance.getTotalSizeInBytes(),
+                    instance.getAvgTimeInMillis(),
+                    instance.getAvgSizeInBytes(),
+                    instance.getTotalParseTimeInMillis(),
+                    randomValueOtherThan(instance.getTotalApplyTimeInMillis(), ESTestCase::randomNonNegativeLong)
                 );
             default:
                 throw new AssertionError("failure, got illegal switch case");
@@ -79,8 +111,8 @@ public class BulkStatsTests extends AbstractWireSerializingTestCase<BulkStats> {
     }
 
     public void testAddTotals() {
-        BulkStats bulkStats1 = new BulkStats(1, 1, 1, 2, 2);
-        BulkStats bulkStats2 = new BulkStats(1, 1, 1, 2, 2);
+        BulkStats bulkStats1 = new BulkStats(1, 1, 1, 2, 2, 1, 1);
+        BulkStats bulkStats2 = new BulkStats(1, 1, 1, 2, 2, 1, 1);
 
         // adding these two bulk stats and checking stats are correct
         bulkStats1.add(bulkStats2);
@@ -96,6 +128,8 @@ public class BulkStatsTests extends AbstractWireSerializingTestCase<BulkStats> {
         assertEquals(equalTo, stats.getTotalOperations());
         assertEquals(equalTo, stats.getTotalTimeInMillis());
         assertEquals(equalTo, stats.getTotalSizeInBytes());
+        assertEquals(equalTo, stats.getTotalParseTimeInMillis());
+        assertEquals(equalTo, stats.getTotalApplyTimeInMillis());
     }
 
 }
@@ -12,12 +12,15 @@ import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.lucene90.Lucene90Codec;
 import org.apache.lucene.codecs.lucene90.Lucene90StoredFieldsFormat;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SegmentReader;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.LuceneTestCase.SuppressCodecs;
+import org.elasticsearch.common.compress.Zstd;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.IndexSettings;
@@ -35,6 +38,7 @@ import java.io.IOException;
 import java.util.Collections;
 
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.startsWith;
 
 @SuppressCodecs("*") // we test against default codec so never get a random one here!
 public class CodecTests extends ESTestCase {
@@ -55,6 +59,48 @@ public class CodecTests extends ESTestCase {
         assertStoredFieldsCompressionEquals(Lucene90Codec.Mode.BEST_COMPRESSION, codec);
     }
 
+    public void testZstdBestSpeed() throws Exception {
+        assumeTrue("requires the native zstd library", Zstd.isAvailable());
+        assertStoredFieldsRoundTrip(createCodecService().codec("zstd_best_speed"));
+    }
+
+    public void testZstdBestCompression() throws Exception {
+        assumeTrue("requires the native zstd library", Zstd.isAvailable());
+        assertStoredFieldsRoundTrip(createCodecService().codec("zstd_best_compression"));
+    }
+
+    // write some docs with it, and read them back with the codec that Lucene looks up by name
+    private void assertStoredFieldsRoundTrip(Codec codec) throws Exception {
+        assertThat(codec, instanceOf(ZstdCodec.class));
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = newIndexWriterConfig(null);
+        iwc.setCodec(codec);
+        IndexWriter iw = new IndexWriter(dir, iwc);
+        int numDocs = between(1, 1000);
+        for (int i = 0; i < numDocs; i++) {
+            Document doc = new Document();
+            doc.add(new StoredField("message", "log line " + i + " " + randomAlphaOfLength(between(0, 100))));
+            doc.add(new StoredField("id", i));
+            iw.addDocument(doc);
+        }
+        iw.commit();
+        iw.close();
+        DirectoryReader ir = DirectoryReader.open(dir);
+        int seen = 0;
+        for (LeafReaderContext leaf : ir.leaves()) {
+            SegmentReader sr = (SegmentReader) leaf.reader();
+            assertEquals(ZstdCodec.NAME, sr.getSegmentInfo().info.getCodec().getName());
+            for (int doc = 0; doc < sr.maxDoc(); doc++) {
+                Document document = sr.document(doc);
+                assertThat(document.get("message"), startsWith("log line " + document.getField("id").numericValue() + " "));
+                seen++;
+            }
+        }
+        assertEquals(numDocs, seen);
+        ir.close();
+        dir.close();
+    }
+
     // write some docs with it, inspect .si to see this was the used compression
     private void assertStoredFieldsCompressionEquals(Lucene90Codec.Mode expected, Codec actual) throws Exception {
         Directory dir = newDirectory();
@@ -0,0 +1,113 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageTester;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class StripedVersionMapTests extends ESTestCase {
+
+    public void testAgainstHashMap() {
+        final StripedVersionMap map = new StripedVersionMap(randomIntBetween(0, 1000));
+        final Map<BytesRef, VersionValue> expected = new HashMap<>();
+        final List<BytesRef> uids = new ArrayList<>();
+        for (int i = 0; i < randomIntBetween(1, 2000); i++) {
+            uids.add(new BytesRef(randomAlphaOfLengthBetween(1, 20)));
+        }
+        final int iterations = randomIntBetween(1000, 20000);
+        for (int i = 0; i < iterations; i++) {
+            final BytesRef uid = randomFrom(uids);
+            if (randomBoolean()) {
+                final IndexVersionValue value = randomIndexVersionValue();
+                assertThat(map.put(uid, value), equalTo(expected.put(uid, value) != null));
+            } else if (randomBoolean()) {
+                assertThat(map.remove(uid), equalTo(expected.remove(uid) != null));
+            } else {
+                assertEquals(expected.get(uid), map.get(uid));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map.toMap());
+        assertThat(map.isEmpty(), equalTo(expected.isEmpty()));
+    }
+
+    public void testRamBytesUsed() {
+        final StripedVersionMap map = new StripedVersionMap();
+        assertEquals(0, map.ramBytesUsed());
+        for (int i = 0; i < 100000; i++) {
+            map.put(new BytesRef(randomAlphaOfLengthBetween(10, 20)), randomIndexVersionValue());
+        }
+        assertThat(map.ramBytesUsed(), greaterThan(0L));
+        final long actualRamBytesUsed = RamUsageTester.ramUsed(map);
+        // the stripes themselves and the locks are not accounted for
+        assertEquals(actualRamBytesUsed, map.ramBytesUsed(), actualRamBytesUsed / 10);
+    }
+
+    public void testConcurrentPutsAndGets() throws InterruptedException {
+        final StripedVersionMap map = new StripedVersionMap();
+        final int numThreads = randomIntBetween(2, 8);
+        final int uidsPerThread = randomIntBetween(100, 5000);
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            final int thread = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                // each thread owns its uids, just like the engine serializes operations on the same uid
+                for (int i = 0; i < uidsPerThread; i++) {
+                    final BytesRef uid = new BytesRef(thread + "_" + i);
+                    final IndexVersionValue value = new IndexVersionValue(null, i, i, thread);
+                    map.put(uid, value);
+                    assertEquals(value, map.get(uid));
+                    if (i % 3 == 0) {
+                        assertTrue(map.remove(uid));
+                        assertNull(map.get(uid));
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int t = 0; t < numThreads; t++) {
+            for (int i = 0; i < uidsPerThread; i++) {
+                final VersionValue value = map.get(new BytesRef(t + "_" + i));
+                if (i % 3 == 0) {
+                    assertNull(value);
+                } else {
+                    assertEquals(new IndexVersionValue(null, i, i, t), value);
+                }
+            }
+        }
+    }
+
+    private IndexVersionValue randomIndexVersionValue() {
+        final Translog.Location location = randomBoolean()
+            ? null
+            : new Translog.Location(randomNonNegativeLong(), randomNonNegativeLong(), randomInt());
+        return new IndexVersionValue(location, randomLong(), randomLong(), randomLong());
+    }
+}
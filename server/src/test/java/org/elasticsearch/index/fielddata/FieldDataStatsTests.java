@@ -19,7 +19,15 @@ public class FieldDataStatsTests extends ESTestCase {
 
     public void testSerialize() throws IOException {
         FieldMemoryStats map = randomBoolean() ? null : FieldMemoryStatsTests.randomFieldMemoryStats();
-        FieldDataStats stats = new FieldDataStats(randomNonNegativeLong(), randomNonNegativeLong(), map);
+        FieldDataStats stats = new FieldDataStats(
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            map,
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong()
+        );
         BytesStreamOutput out = new BytesStreamOutput();
         stats.writeTo(out);
         StreamInput input = out.bytes().streamInput();
@@ -28,5 +36,10 @@ public class FieldDataStatsTests extends ESTestCase {
         assertEquals(stats.getEvictions(), read.getEvictions());
         assertEquals(stats.getMemorySize(), read.getMemorySize());
         assertEquals(stats.getFields(), read.getFields());
+        assertEquals(stats.getGlobalOrdinalsBuildCount(), read.getGlobalOrdinalsBuildCount());
+        assertEquals(stats.getGlobalOrdinalsBuildTime(), read.getGlobalOrdinalsBuildTime());
+        assertEquals(stats.getIncrementalGlobalOrdinalsBuildCount(), read.getIncrementalGlobalOrdinalsBuildCount());
+        assertEquals(stats.getIncrementalGlobalOrdinalsBuildTime(), read.getIncrementalGlobalOrdinalsBuildTime());
+        assertEquals(stats, read);
     }
 }
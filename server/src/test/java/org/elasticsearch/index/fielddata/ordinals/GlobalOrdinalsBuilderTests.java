@@ -0,0 +1,169 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.fielddata.FieldData;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
+import org.elasticsearch.index.fielddata.ScriptDocValues;
+import org.elasticsearch.index.fielddata.plain.SortedSetOrdinalsIndexFieldData;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.script.field.DelegateDocValuesField;
+import org.elasticsearch.script.field.ToScriptField;
+import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class GlobalOrdinalsBuilderTests extends ESTestCase {
+    private static final Logger logger = LogManager.getLogger(GlobalOrdinalsBuilderTests.class);
+    private static final ToScriptField<SortedSetDocValues> MOCK_TO_SCRIPT_FIELD = (dv, n) -> new DelegateDocValuesField(
+        new ScriptDocValues.Strings(new ScriptDocValues.StringsSupplier(FieldData.toString(dv))),
+        n
+    );
+
+    public void testIncrementalBuild() throws IOException {
+        IndexWriterConfig iwc = new IndexWriterConfig(null);
+        iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+        try (Directory dir = newDirectory(); IndexWriter iw = new IndexWriter(dir, iwc)) {
+            SortedSetOrdinalsIndexFieldData ifd = new SortedSetOrdinalsIndexFieldData(
+                new IndexFieldDataCache.None(),
+                "field",
+                CoreValuesSourceType.KEYWORD,
+                new NoneCircuitBreakerService(),
+                MOCK_TO_SCRIPT_FIELD
+            );
+            addSegment(iw);
+            addSegment(iw);
+            DirectoryReader reader = DirectoryReader.open(iw);
+            IndexOrdinalsFieldData previous = build(reader, ifd, null);
+            assertFalse(((GlobalOrdinalsIndexFieldData) previous).isBuiltIncrementally());
+
+            int refreshes = GlobalOrdinalsBuilder.MAX_INCREMENTAL_GENERATIONS + 1;
+            for (int refresh = 0; refresh < refreshes; refresh++) {
+                addSegment(iw);
+                DirectoryReader newReader = DirectoryReader.openIfChanged(reader, iw);
+                assertNotNull(newReader);
+                reader.close();
+                reader = newReader;
+
+                GlobalOrdinalsIndexFieldData incremental = (GlobalOrdinalsIndexFieldData) build(reader, ifd, previous);
+                GlobalOrdinalsIndexFieldData full = (GlobalOrdinalsIndexFieldData) build(reader, ifd, null);
+                // the last refresh exceeds the maximum number of incremental builds in a row
+                assertThat(incremental.isBuiltIncrementally(), equalTo(refresh < GlobalOrdinalsBuilder.MAX_INCREMENTAL_GENERATIONS));
+                assertSameGlobalOrdinals(reader, full, incremental);
+                previous = incremental;
+            }
+
+            addSegment(iw);
+            DirectoryReader newReader = DirectoryReader.openIfChanged(reader, iw);
+            reader.close();
+            reader = newReader;
+            GlobalOrdinalsIndexFieldData incremental = (GlobalOrdinalsIndexFieldData) build(reader, ifd, previous);
+            assertTrue(incremental.isBuiltIncrementally());
+            // incrementally built global ordinals build an equivalent OrdinalMap on demand
+            GlobalOrdinalsIndexFieldData full = (GlobalOrdinalsIndexFieldData) build(reader, ifd, null);
+            assertThat(incremental.getOrdinalMap().getValueCount(), equalTo(full.getOrdinalMap().getValueCount()));
+            for (long globalOrd = 0; globalOrd < full.getOrdinalMap().getValueCount(); globalOrd++) {
+                assertThat(
+                    incremental.getOrdinalMap().getFirstSegmentNumber(globalOrd),
+                    equalTo(full.getOrdinalMap().getFirstSegmentNumber(globalOrd))
+                );
+            }
+
+            // global ordinals that needed an OrdinalMap are not extended since the next ones would need one too
+            addSegment(iw);
+            newReader = DirectoryReader.openIfChanged(reader, iw);
+            reader.close();
+            reader = newReader;
+            assertFalse(((GlobalOrdinalsIndexFieldData) build(reader, ifd, incremental)).isBuiltIncrementally());
+            reader.close();
+        }
+    }
+
+    public void testBuildFromScratchWhenSegmentsChange() throws IOException {
+        try (Directory dir = newDirectory(); IndexWriter iw = new IndexWriter(dir, new IndexWriterConfig(null))) {
+            SortedSetOrdinalsIndexFieldData ifd = new SortedSetOrdinalsIndexFieldData(
+                new IndexFieldDataCache.None(),
+                "field",
+                CoreValuesSourceType.KEYWORD,
+                new NoneCircuitBreakerService(),
+                MOCK_TO_SCRIPT_FIELD
+            );
+            for (int i = 0; i < 3; i++) {
+                addSegment(iw);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(iw)) {
+                IndexOrdinalsFieldData previous = build(reader, ifd, null);
+                iw.forceMerge(1);
+                addSegment(iw);
+                addSegment(iw);
+                try (DirectoryReader merged = DirectoryReader.openIfChanged(reader, iw)) {
+                    assertNotNull(merged);
+                    GlobalOrdinalsIndexFieldData global = (GlobalOrdinalsIndexFieldData) build(merged, ifd, previous);
+                    assertFalse(global.isBuiltIncrementally());
+                    assertSameGlobalOrdinals(merged, (GlobalOrdinalsIndexFieldData) build(merged, ifd, null), global);
+                }
+            }
+        }
+    }
+
+    private static IndexOrdinalsFieldData build(DirectoryReader reader, IndexOrdinalsFieldData ifd, IndexOrdinalsFieldData previous)
+        throws IOException {
+        return GlobalOrdinalsBuilder.build(reader, ifd, previous, new NoneCircuitBreakerService(), logger, MOCK_TO_SCRIPT_FIELD);
+    }
+
+    private static void addSegment(IndexWriter iw) throws IOException {
+        int numDocs = randomIntBetween(1, 50);
+        for (int i = 0; i < numDocs; i++) {
+            Document doc = new Document();
+            int numValues = randomIntBetween(1, 3);
+            for (int v = 0; v < numValues; v++) {
+                doc.add(new SortedSetDocValuesField("field", new BytesRef(randomAlphaOfLengthBetween(1, 3))));
+            }
+            iw.addDocument(doc);
+        }
+        iw.flush();
+    }
+
+    private static void assertSameGlobalOrdinals(
+        DirectoryReader reader,
+        GlobalOrdinalsIndexFieldData expected,
+        GlobalOrdinalsIndexFieldData actual
+    ) throws IOException {
+        assertThat(actual.globalOrdinalMap().getValueCount(), equalTo(expected.globalOrdinalMap().getValueCount()));
+        for (LeafReaderContext leaf : reader.leaves()) {
+            SortedSetDocValues expectedValues = expected.load(leaf).getOrdinalsValues();
+            SortedSetDocValues actualValues = actual.load(leaf).getOrdinalsValues();
+            for (long globalOrd = 0; globalOrd < expectedValues.getValueCount(); globalOrd++) {
+                assertThat(actualValues.lookupOrd(globalOrd), equalTo(expectedValues.lookupOrd(globalOrd)));
+            }
+            SortedSetDocValues segmentValues = leaf.reader().getSortedSetDocValues("field");
+            for (long segmentOrd = 0; segmentOrd < segmentValues.getValueCount(); segmentOrd++) {
+                assertThat(
+                    actual.getGlobalOrds(leaf.ord).get(segmentOrd),
+                    equalTo(expected.getGlobalOrds(leaf.ord).get(segmentOrd))
+                );
+            }
+        }
+    }
+}
@@ -8,10 +8,18 @@
 
 package org.elasticsearch.index.mapper;
 
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.index.IndexableField;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.analysis.AnalyzerScope;
+import org.elasticsearch.index.analysis.IndexAnalyzers;
+import org.elasticsearch.index.analysis.LowercaseNormalizer;
+import org.elasticsearch.index.analysis.NamedAnalyzer;
+import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xcontent.XContentFactory;
 import org.elasticsearch.xcontent.XContentParser;
 import org.elasticsearch.xcontent.XContentType;
@@ -30,6 +38,15 @@ public class SourceFieldMapperTests extends MetadataMapperTestCase {
         return SourceFieldMapper.NAME;
     }
 
+    @Override
+    protected IndexAnalyzers createIndexAnalyzers(IndexSettings indexSettings) {
+        return new IndexAnalyzers(
+            Map.of("default", new NamedAnalyzer("default", AnalyzerScope.INDEX, new StandardAnalyzer())),
+            Map.of("lowercase", new NamedAnalyzer("lowercase", AnalyzerScope.INDEX, new LowercaseNormalizer())),
+            Map.of()
+        );
+    }
+
     @Override
     protected void registerParameters(ParameterChecker checker) throws IOException {
         checker.registerConflictCheck(
@@ -44,6 +61,7 @@ public class SourceFieldMapperTests extends MetadataMapperTestCase {
         );
         checker.registerConflictCheck("includes", b -> b.array("includes", "foo*"));
         checker.registerConflictCheck("excludes", b -> b.array("excludes", "foo*"));
+        checker.registerConflictCheck("synthetic", b -> b.field("synthetic", true));
     }
 
     public void testNoFormat() throws Exception {
@@ -127,6 +145,167 @@ public class SourceFieldMapperTests extends MetadataMapperTestCase {
         );
     }
 
+    public void testSyntheticSourceIsNotStored() throws Exception {
+        DocumentMapper documentMapper = createDocumentMapper(
+            topMapping(
+                b -> b.startObject("_source")
+                    .field("synthetic", true)
+                    .endObject()
+                    .startObject("properties")
+                    .startObject("field")
+                    .field("type", "keyword")
+                    .endObject()
+                    .endObject()
+            )
+        );
+        assertTrue(documentMapper.sourceMapper().isSynthetic());
+        assertFalse(documentMapper.sourceMapper().isComplete());
+
+        ParsedDocument doc = documentMapper.parse(source(b -> b.field("field", "value")));
+        assertNull(doc.rootDoc().getField(SourceFieldMapper.NAME));
+        // the original source is still needed for operation based recovery
+        assertNotNull(doc.rootDoc().getField(SourceFieldMapper.RECOVERY_SOURCE_NAME));
+    }
+
+    public void testSyntheticSourceRequiresStoredFieldsOrDocValues() throws Exception {
+        Exception e = expectThrows(
+            IllegalArgumentException.class,
+            () -> createMapperService(
+                topMapping(
+                    b -> b.startObject("_source")
+                        .field("synthetic", true)
+                        .endObject()
+                        .startObject("properties")
+                        .startObject("field")
+                        .field("type", "text")
+                        .endObject()
+                        .endObject()
+                )
+            )
+        );
+        assertThat(
+            e.getMessage(),
+            equalTo("synthetic _source requires every field to be stored or to have doc values but field [field] of type [text] is neither")
+        );
+
+        e = expectThrows(
+            IllegalArgumentException.class,
+            () -> createMapperService(
+                topMapping(
+                    b -> b.startObject("_source")
+                        .field("synthetic", true)
+                        .endObject()
+                        .startObject("properties")
+                        .startObject("field")
+                        .field("type", "nested")
+                        .endObject()
+                        .endObject()
+                )
+            )
+        );
+        assertThat(e.getMessage(), equalTo("synthetic _source doesn't support nested objects but [field] is of type [nested]"));
+    }
+
+    public void testSyntheticSourceRejectsIgnoreAbove() {
+        Exception e = expectThrows(
+            IllegalArgumentException.class,
+            () -> createMapperService(syntheticSourceMapping(b -> b.field("type", "keyword").field("ignore_above", 10)))
+        );
+        assertThat(
+            e.getMessage(),
+            equalTo("synthetic _source doesn't support [ignore_above] since longer values are not indexed but field [field] sets it")
+        );
+    }
+
+    public void testSyntheticSourceRejectsNormalizer() {
+        Exception e = expectThrows(
+            IllegalArgumentException.class,
+            () -> createMapperService(syntheticSourceMapping(b -> b.field("type", "keyword").field("normalizer", "lowercase")))
+        );
+        assertThat(
+            e.getMessage(),
+            equalTo("synthetic _source doesn't support [normalizer] since only normalized values are indexed but field [field] sets it")
+        );
+    }
+
+    public void testSyntheticSourceRejectsFloats() throws IOException {
+        String type = randomFrom("float", "half_float");
+        Exception e = expectThrows(
+            IllegalArgumentException.class,
+            () -> createMapperService(syntheticSourceMapping(b -> b.field("type", type)))
+        );
+        assertThat(
+            e.getMessage(),
+            equalTo("synthetic _source doesn't support field [field] of type [" + type + "] since its values are loaded as doubles")
+        );
+
+        // doubles are loaded as they were indexed
+        createMapperService(syntheticSourceMapping(b -> b.field("type", "double")));
+    }
+
+    public void testSyntheticSourceRejectsGeoPoints() {
+        Exception e = expectThrows(
+            IllegalArgumentException.class,
+            () -> createMapperService(syntheticSourceMapping(b -> b.field("type", "geo_point")))
+        );
+        assertThat(
+            e.getMessage(),
+            equalTo("synthetic _source doesn't support field [field] of type [geo_point] since its doc values are quantized")
+        );
+    }
+
+    public void testSyntheticSourceRejectsIgnoreMalformed() {
+        String type = randomFrom("long", "double", "date", "ip");
+        Exception e = expectThrows(
+            IllegalArgumentException.class,
+            () -> createMapperService(syntheticSourceMapping(b -> b.field("type", type).field("ignore_malformed", true)))
+        );
+        assertThat(
+            e.getMessage(),
+            equalTo("synthetic _source doesn't support [ignore_malformed] since malformed values are not indexed but field [field] sets it")
+        );
+    }
+
+    public void testSyntheticSourceRejectsCopyToTargets() {
+        Exception e = expectThrows(IllegalArgumentException.class, () -> createMapperService(topMapping(b -> {
+            b.startObject("_source").field("synthetic", true).endObject();
+            b.startObject("properties");
+            {
+                b.startObject("source").field("type", "keyword").field("copy_to", "obj.target").endObject();
+                b.startObject("obj").startObject("properties");
+                b.startObject("target").field("type", "keyword").endObject();
+                b.endObject().endObject();
+            }
+            b.endObject();
+        })));
+        assertThat(
+            e.getMessage(),
+            equalTo(
+                "synthetic _source doesn't support [copy_to] since copied values can't be told apart from the values of the target "
+                    + "field but field [obj.target] is the target of [copy_to]"
+            )
+        );
+    }
+
+    private XContentBuilder syntheticSourceMapping(CheckedConsumer<XContentBuilder, IOException> field) throws IOException {
+        return topMapping(b -> {
+            b.startObject("_source").field("synthetic", true).endObject();
+            b.startObject("properties").startObject("field");
+            field.accept(b);
+            b.endObject().endObject();
+        });
+    }
+
+    public void testSyntheticSourceCannotBeFiltered() {
+        Exception e = expectThrows(
+            MapperParsingException.class,
+            () -> createMapperService(
+                topMapping(b -> b.startObject("_source").field("synthetic", true).array("includes", "foo*").endObject())
+            )
+        );
+        assertThat(e.getMessage(), containsString("[synthetic] _source cannot be combined with [enabled], [includes] or [excludes]"));
+    }
+
     public void testSourceObjectContainsExtraTokens() throws Exception {
         DocumentMapper documentMapper = createDocumentMapper(mapping(b -> {}));
 
@@ -0,0 +1,121 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.search.lookup.SourceLookup;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class SyntheticSourceLoaderTests extends MapperServiceTestCase {
+
+    private MapperService syntheticSourceMapperService() throws IOException {
+        return createMapperService(topMapping(b -> {
+            b.startObject("_source").field("synthetic", true).endObject();
+            b.startObject("properties");
+            {
+                b.startObject("kwd").field("type", "keyword").endObject();
+                b.startObject("num").field("type", "long").endObject();
+                b.startObject("obj").startObject("properties");
+                {
+                    b.startObject("date").field("type", "date").endObject();
+                    b.startObject("flag").field("type", "boolean").endObject();
+                }
+                b.endObject().endObject();
+                b.startObject("text").field("type", "text").field("store", true).endObject();
+            }
+            b.endObject();
+        }));
+    }
+
+    private SyntheticSourceLoader loader(MapperService mapperService) {
+        return new SyntheticSourceLoader(
+            mapperService.mappingLookup().getMapping(),
+            fieldType -> fieldType.fielddataBuilder("test", () -> { throw new UnsupportedOperationException(); })
+                .build(new IndexFieldDataCache.None(), new NoneCircuitBreakerService())
+        );
+    }
+
+    public void testRebuildsSourceFromDocValuesAndStoredFields() throws IOException {
+        MapperService mapperService = syntheticSourceMapperService();
+        String source = syntheticSource(mapperService, b -> {
+            b.field("text", "hello world");
+            b.startObject("obj").field("date", "2021-01-01").field("flag", true).endObject();
+            b.array("kwd", "b", "a", "b");
+            b.field("num", 3);
+        });
+        // values come back in doc values order and without duplicates
+        assertThat(
+            source,
+            equalTo(
+                "{\"kwd\":[\"a\",\"b\"],\"num\":3,"
+                    + "\"obj\":{\"date\":\"2021-01-01T00:00:00.000Z\",\"flag\":true},\"text\":\"hello world\"}"
+            )
+        );
+    }
+
+    public void testMissingValuesAndEmptyObjectsAreLeftOut() throws IOException {
+        MapperService mapperService = syntheticSourceMapperService();
+        assertThat(syntheticSource(mapperService, b -> b.field("num", 7)), equalTo("{\"num\":7}"));
+        assertThat(syntheticSource(mapperService, b -> b.startObject("obj").endObject()), equalTo("{}"));
+    }
+
+    public void testLoadsDocumentsInAnyOrder() throws IOException {
+        MapperService mapperService = syntheticSourceMapperService();
+        DocumentMapper mapper = mapperService.documentMapper();
+        withLuceneIndex(mapperService, iw -> {
+            iw.addDocuments(
+                List.of(
+                    mapper.parse(source(b -> b.field("num", 0))).rootDoc(),
+                    mapper.parse(source(b -> b.field("num", 1))).rootDoc(),
+                    mapper.parse(source(b -> b.field("kwd", "two"))).rootDoc()
+                )
+            );
+        }, reader -> {
+            assertThat(reader.leaves().size(), equalTo(1));
+            SyntheticSourceLoader.Leaf leaf = loader(mapperService).leaf(reader.leaves().get(0));
+            assertThat(leaf.source(2).utf8ToString(), equalTo("{\"kwd\":\"two\"}"));
+            assertThat(leaf.source(0).utf8ToString(), equalTo("{\"num\":0}"));
+            assertThat(leaf.source(1).utf8ToString(), equalTo("{\"num\":1}"));
+        });
+    }
+
+    public void testSourceLookup() throws IOException {
+        MapperService mapperService = syntheticSourceMapperService();
+        DocumentMapper mapper = mapperService.documentMapper();
+        withLuceneIndex(mapperService, iw -> iw.addDocument(mapper.parse(source(b -> {
+            b.field("kwd", "value");
+            b.startObject("obj").field("flag", false).endObject();
+        })).rootDoc()), reader -> {
+            LeafReaderContext context = reader.leaves().get(0);
+            SourceLookup lookup = new SourceLookup(loader(mapperService));
+            lookup.setSegmentAndDocument(context, 0);
+            assertThat(lookup.source(), equalTo(Map.of("kwd", "value", "obj", Map.of("flag", false))));
+            assertThat(lookup.extractRawValuesWithoutCaching("obj.flag"), equalTo(List.of(false)));
+        });
+    }
+
+    private String syntheticSource(MapperService mapperService, CheckedConsumer<XContentBuilder, IOException> build) throws IOException {
+        DocumentMapper mapper = mapperService.documentMapper();
+        String[] result = new String[1];
+        withLuceneIndex(mapperService, iw -> iw.addDocument(mapper.parse(source(build)).rootDoc()), reader -> {
+            assertThat(reader.leaves().size(), equalTo(1));
+            result[0] = loader(mapperService).leaf(reader.leaves().get(0)).source(0).utf8ToString();
+        });
+        return result[0];
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.search;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.DocValuesRewriteMethod;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.WildcardQuery;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.MapperServiceTestCase;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.SearchExecutionContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class QueryPlannerTests extends MapperServiceTestCase {
+
+    private static final int NUM_DOCS = 100;
+    private static final Settings ENABLED = Settings.builder()
+        .put(IndexSettings.INDEX_QUERY_PLANNER_ENABLED_SETTING.getKey(), true)
+        .build();
+
+    public void testExpensiveClauseRunsOnDocValues() throws IOException {
+        MapperService mapperService = createMapperService(ENABLED);
+        BoolQueryBuilder query = QueryBuilders.boolQuery()
+            .filter(QueryBuilders.wildcardQuery("status", "s*"))
+            .filter(QueryBuilders.termQuery("tag", "rare"));
+        withIndex(mapperService, reader -> {
+            SearchExecutionContext context = createContext(mapperService, reader);
+            context.recordQueryPlan();
+            List<BooleanClause> clauses = ((BooleanQuery) query.toQuery(context)).clauses();
+
+            // the wildcard clause only verifies the documents of the cheap term clause, the clauses keep their order
+            assertThat(clauses.get(0).getQuery(), instanceOf(ConstantScoreQuery.class));
+            assertThat(clauses.get(1).getQuery(), instanceOf(TermQuery.class));
+            List<String> queryPlan = context.getQueryPlanDecisions();
+            assertThat(queryPlan, hasSize(1));
+            assertThat(queryPlan.get(0), containsString("on doc values"));
+
+            // the plan doesn't change the matching documents
+            IndexSearcher searcher = new IndexSearcher(reader);
+            assertThat(searcher.count(query.toQuery(createContext(mapperService, reader))), equalTo(2));
+            assertThat(searcher.count(query.toQuery(createSearchExecutionContext(mapperService))), equalTo(2));
+        });
+    }
+
+    public void testDoesNotModifyClauses() throws IOException {
+        MapperService mapperService = createMapperService(ENABLED);
+        withIndex(mapperService, reader -> {
+            WildcardQuery wildcard = new WildcardQuery(new Term("status", "s*"));
+            TermQuery term = new TermQuery(new Term("tag", "rare"));
+            List<Query> filterClauses = new ArrayList<>(List.of(wildcard, term));
+            QueryPlanner.planFilterClauses(createContext(mapperService, reader), filterClauses, Collections.emptyList());
+
+            assertThat(filterClauses, equalTo(List.of(new DocValuesRewriteMethod().rewrite(reader, wildcard), term)));
+            // the original query may be shared, it keeps its rewrite method
+            assertThat(wildcard.getRewriteMethod(), sameInstance(MultiTermQuery.CONSTANT_SCORE_REWRITE));
+        });
+    }
+
+    public void testKeepsIndexExecutionWithoutCheapLead() throws IOException {
+        MapperService mapperService = createMapperService(ENABLED);
+        BoolQueryBuilder query = QueryBuilders.boolQuery()
+            .filter(QueryBuilders.termQuery("tag", "common"))
+            .filter(QueryBuilders.wildcardQuery("status", "s1*"));
+        withIndex(mapperService, reader -> {
+            SearchExecutionContext context = createContext(mapperService, reader);
+            context.recordQueryPlan();
+            List<BooleanClause> clauses = ((BooleanQuery) query.toQuery(context)).clauses();
+
+            assertThat(clauses.get(0).getQuery(), instanceOf(TermQuery.class));
+            assertThat(((MultiTermQuery) clauses.get(1).getQuery()).getRewriteMethod(), not(instanceOf(DocValuesRewriteMethod.class)));
+            assertThat(context.getQueryPlanDecisions(), hasSize(0));
+        });
+    }
+
+    public void testDisabled() throws IOException {
+        MapperService mapperService = createMapperService(
+            randomBoolean()
+                ? Settings.EMPTY
+                : Settings.builder().put(IndexSettings.INDEX_QUERY_PLANNER_ENABLED_SETTING.getKey(), false).build()
+        );
+        BoolQueryBuilder query = QueryBuilders.boolQuery()
+            .filter(QueryBuilders.wildcardQuery("status", "s*"))
+            .filter(QueryBuilders.termQuery("tag", "rare"));
+        withIndex(mapperService, reader -> {
+            SearchExecutionContext context = createContext(mapperService, reader);
+            context.recordQueryPlan();
+            List<BooleanClause> clauses = ((BooleanQuery) query.toQuery(context)).clauses();
+
+            Query wildcard = clauses.get(0).getQuery();
+            assertThat(((MultiTermQuery) wildcard).getRewriteMethod(), not(instanceOf(DocValuesRewriteMethod.class)));
+            assertThat(context.getQueryPlanDecisions(), hasSize(0));
+        });
+    }
+
+    private MapperService createMapperService(Settings settings) throws IOException {
+        return createMapperService(settings, mapping(b -> {
+            b.startObject("status").field("type", "keyword").endObject();
+            b.startObject("tag").field("type", "keyword").endObject();
+        }));
+    }
+
+    private void withIndex(MapperService mapperService, CheckedConsumer<IndexReader, IOException> test) throws IOException {
+        withLuceneIndex(mapperService, iw -> {
+            for (int i = 0; i < NUM_DOCS; i++) {
+                String tag = i < 2 ? "rare" : "common";
+                String status = "s" + i;
+                iw.addDocument(mapperService.documentMapper().parse(source(b -> b.field("status", status).field("tag", tag))).rootDoc());
+            }
+        }, test);
+    }
+
+    private SearchExecutionContext createContext(MapperService mapperService, IndexReader reader) {
+        return new SearchExecutionContext(
+            0,
+            0,
+            mapperService.getIndexSettings(),
+            null,
+            null,
+            mapperService,
+            mapperService.mappingLookup(),
+            null,
+            null,
+            xContentRegistry(),
+            writableRegistry(),
+            null,
+            new IndexSearcher(reader),
+            System::currentTimeMillis,
+            null,
+            null,
+            () -> true,
+            null,
+            Collections.emptyMap()
+        );
+    }
+}
@@ -8,6 +8,8 @@
 package org.elasticsearch.index.shard;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.action.update.UpdateHelper;
+import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.VersionType;
@@ -202,4 +204,29 @@ public class ShardGetServiceTests extends IndexShardTestCase {
 
         closeShards(shard);
     }
+
+    public void testUpdateRefusesSyntheticSource() throws IOException {
+        Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 1)
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+            .build();
+        IndexMetadata metadata = IndexMetadata.builder("index").putMapping("""
+            { "_source": { "synthetic": true }, "properties": { "foo":  { "type": "keyword"}}}""")
+            .settings(settings)
+            .primaryTerm(0, 1)
+            .build();
+        IndexShard shard = newShard(new ShardId(metadata.getIndex(), 0), true, "n1", metadata, null);
+        recoverShardFromStore(shard);
+        indexDoc(shard, "_doc", "0", "{\"foo\" : \"bar\"}");
+
+        UpdateRequest request = new UpdateRequest("index", "0").doc("{\"foo\" : \"baz\"}", XContentType.JSON);
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> new UpdateHelper(null).prepare(request, shard, System::currentTimeMillis)
+        );
+        assertEquals("the update API doesn't support index [index] since its [_source] is synthetic", e.getMessage());
+
+        closeShards(shard);
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class PipelinedSnapshotTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        threadPool = new TestThreadPool(getTestName());
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        terminate(threadPool);
+        super.tearDown();
+    }
+
+    public void testReturnsAllOperationsInOrder() throws IOException {
+        final List<Translog.Operation> operations = randomOperations(between(0, 5000));
+        try (Translog.Snapshot snapshot = new PipelinedSnapshot(TestTranslog.newSnapshotFromOperations(operations), threadPool.generic())) {
+            assertThat(snapshot.totalOperations(), equalTo(operations.size()));
+            for (Translog.Operation operation : operations) {
+                assertThat(snapshot.next(), equalTo(operation));
+            }
+            assertNull(snapshot.next());
+            assertNull(snapshot.next());
+        }
+    }
+
+    public void testPropagatesFailures() throws IOException {
+        final int failAfter = between(0, 500);
+        final List<Translog.Operation> operations = randomOperations(failAfter);
+        final Translog.Snapshot delegate = TestTranslog.newSnapshotFromOperations(operations);
+        final Translog.Snapshot failing = new Translog.Snapshot() {
+            @Override
+            public int totalOperations() {
+                return delegate.totalOperations();
+            }
+
+            @Override
+            public Translog.Operation next() throws IOException {
+                final Translog.Operation operation = delegate.next();
+                if (operation == null) {
+                    throw new TranslogCorruptedException("test", "simulated");
+                }
+                return operation;
+            }
+
+            @Override
+            public void close() {}
+        };
+        try (Translog.Snapshot snapshot = new PipelinedSnapshot(failing, threadPool.generic())) {
+            for (Translog.Operation operation : operations) {
+                assertThat(snapshot.next(), equalTo(operation));
+            }
+            expectThrows(TranslogCorruptedException.class, snapshot::next);
+        }
+    }
+
+    public void testCloseBeforeExhausted() throws IOException {
+        final List<Translog.Operation> operations = randomOperations(
+            between(PipelinedSnapshot.BATCH_SIZE * PipelinedSnapshot.MAX_PENDING_BATCHES, 10000)
+        );
+        final AtomicInteger decoded = new AtomicInteger();
+        final AtomicBoolean closed = new AtomicBoolean();
+        final Translog.Snapshot delegate = TestTranslog.newSnapshotFromOperations(operations);
+        final Translog.Snapshot counting = new Translog.Snapshot() {
+            @Override
+            public int totalOperations() {
+                return delegate.totalOperations();
+            }
+
+            @Override
+            public Translog.Operation next() throws IOException {
+                assertFalse("must not read from a closed snapshot", closed.get());
+                final Translog.Operation operation = delegate.next();
+                if (operation != null) {
+                    decoded.incrementAndGet();
+                }
+                return operation;
+            }
+
+            @Override
+            public void close() {
+                assertTrue(closed.compareAndSet(false, true));
+            }
+        };
+        final int toConsume = between(0, 100);
+        try (Translog.Snapshot snapshot = new PipelinedSnapshot(counting, threadPool.generic())) {
+            for (int i = 0; i < toConsume; i++) {
+                assertThat(snapshot.next(), equalTo(operations.get(i)));
+            }
+        }
+        assertTrue(closed.get());
+        // the decoding thread stops once the queue is full and it notices the snapshot was closed
+        assertThat(decoded.get(), lessThanOrEqualTo(operations.size()));
+    }
+
+    private List<Translog.Operation> randomOperations(int count) {
+        final List<Translog.Operation> operations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            operations.add(new Translog.NoOp(i, randomNonNegativeLong(), randomAlphaOfLength(5)));
+        }
+        return operations;
+    }
+}
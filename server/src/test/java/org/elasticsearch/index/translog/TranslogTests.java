@@ -660,6 +660,43 @@ public class TranslogTests extends ESTestCase {
         }
     }
 
+    public void testMemoryMappedSnapshot() throws IOException {
+        final int generations = between(1, 10);
+        long seqNo = 0;
+        for (int gen = 0; gen < generations; gen++) {
+            for (int i = between(0, 100); i > 0; i--) {
+                final byte[] source = randomByteArrayOfLength(between(1, 100));
+                translog.add(new Translog.Index(randomAlphaOfLength(10), seqNo++, primaryTerm.get(), source));
+            }
+            if (randomBoolean()) {
+                translog.rollGeneration();
+            }
+        }
+        final long fromSeqNo = randomLongBetween(0, seqNo);
+        final long toSeqNo = randomLongBetween(fromSeqNo, Long.MAX_VALUE);
+        final List<Translog.Operation> expected = new ArrayList<>();
+        try (Translog.Snapshot snapshot = translog.newSnapshot(fromSeqNo, toSeqNo)) {
+            Translog.Operation op;
+            while ((op = snapshot.next()) != null) {
+                expected.add(op);
+            }
+        }
+        try (Translog.Snapshot snapshot = translog.newSnapshot(fromSeqNo, toSeqNo, true)) {
+            for (Translog.Operation op : expected) {
+                assertEquals(op, snapshot.next());
+            }
+            assertNull(snapshot.next());
+        }
+        // closing a partially read snapshot unmaps its generations, operations that were read must not depend on the mappings
+        final List<Translog.Operation> read = new ArrayList<>();
+        try (Translog.Snapshot snapshot = translog.newSnapshot(fromSeqNo, toSeqNo, true)) {
+            for (int i = between(0, expected.size()); i > 0; i--) {
+                read.add(snapshot.next());
+            }
+        }
+        assertEquals(expected.subList(0, read.size()), read);
+    }
+
     public void testSnapshotOnClosedTranslog() throws IOException {
         assertTrue(Files.exists(translogDir.resolve(Translog.getFilename(1))));
         translog.add(new Translog.Index("1", 0, primaryTerm.get(), new byte[] { 1 }));
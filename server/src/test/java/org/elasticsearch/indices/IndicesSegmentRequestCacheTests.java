@@ -0,0 +1,168 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.cache.request.ShardRequestCache;
+import org.elasticsearch.index.mapper.MappingLookup;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class IndicesSegmentRequestCacheTests extends ESTestCase {
+
+    public void testReuseAcrossRefreshes() throws Exception {
+        ShardRequestCache stats = new ShardRequestCache();
+        IndicesSegmentRequestCache cache = new IndicesSegmentRequestCache(Settings.EMPTY);
+        MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
+        BytesReference requestKey = new BytesArray("request");
+        TestEntity entity = new TestEntity(stats, new AtomicBoolean(true));
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+
+        writer.addDocument(newDoc("0"));
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        assertEquals(1, reader.leaves().size());
+        LeafReader segment = reader.leaves().get(0).reader();
+        Loader loader = new Loader(segment);
+        assertEquals(1, cache.getOrCompute(entity, loader, mappingKey, segment, requestKey).streamInput().readVInt());
+        assertTrue(loader.loaded);
+        assertEquals(0, stats.stats().getSegmentHitCount());
+        assertEquals(1, stats.stats().getSegmentMissCount());
+        assertEquals(1, cache.count());
+        assertTrue(stats.stats().getSegmentMemorySizeInBytes() > 0);
+
+        // a refresh that adds a segment keeps the entry of the first segment
+        writer.addDocument(newDoc("1"));
+        DirectoryReader secondReader = DirectoryReader.openIfChanged(reader);
+        assertEquals(2, secondReader.leaves().size());
+        for (int i = 0; i < secondReader.leaves().size(); i++) {
+            segment = secondReader.leaves().get(i).reader();
+            loader = new Loader(segment);
+            assertEquals(1, cache.getOrCompute(entity, loader, mappingKey, segment, requestKey).streamInput().readVInt());
+            assertEquals(i == 1, loader.loaded);
+        }
+        assertEquals(1, stats.stats().getSegmentHitCount());
+        assertEquals(2, stats.stats().getSegmentMissCount());
+        assertEquals(2, cache.count());
+
+        // deleting a document of the first segment invalidates its entry
+        writer.deleteDocuments(new Term("id", "0"));
+        DirectoryReader thirdReader = DirectoryReader.openIfChanged(secondReader);
+        LeafReader firstSegment = thirdReader.leaves().get(0).reader();
+        loader = new Loader(firstSegment);
+        assertEquals(0, cache.getOrCompute(entity, loader, mappingKey, firstSegment, requestKey).streamInput().readVInt());
+        assertTrue(loader.loaded);
+        assertEquals(3, stats.stats().getSegmentMissCount());
+        assertEquals(3, cache.count());
+
+        // closing the readers of the segments, including the ones that the writer pools, removes their entries
+        IOUtils.close(reader, secondReader, thirdReader, writer);
+        cache.cleanCache();
+        assertEquals(0, cache.count());
+        assertEquals(0L, stats.stats().getSegmentMemorySizeInBytes());
+        assertEquals(0, stats.stats().getHitCount());
+        assertEquals(0, stats.stats().getMissCount());
+
+        IOUtils.close(dir, cache);
+    }
+
+    public void testEvictions() throws Exception {
+        ShardRequestCache stats = new ShardRequestCache();
+        IndicesSegmentRequestCache cache = new IndicesSegmentRequestCache(
+            Settings.builder().put(IndicesSegmentRequestCache.INDICES_CACHE_REQUEST_SEGMENTS_SIZE.getKey(), "1b").build()
+        );
+        MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
+        TestEntity entity = new TestEntity(stats, new AtomicBoolean(true));
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        writer.addDocument(newDoc("0"));
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        LeafReader segment = reader.leaves().get(0).reader();
+
+        cache.getOrCompute(entity, new Loader(segment), mappingKey, segment, new BytesArray("first"));
+        cache.getOrCompute(entity, new Loader(segment), mappingKey, segment, new BytesArray("second"));
+        assertEquals(2, stats.stats().getSegmentEvictions());
+        assertEquals(0, cache.count());
+
+        IOUtils.close(reader, writer, dir, cache);
+    }
+
+    private static Document newDoc(String id) {
+        Document doc = new Document();
+        doc.add(new StringField("id", id, Field.Store.NO));
+        return doc;
+    }
+
+    private static class Loader implements CheckedSupplier<BytesReference, IOException> {
+
+        private final LeafReader segment;
+        private boolean loaded;
+
+        Loader(LeafReader segment) {
+            this.segment = segment;
+        }
+
+        @Override
+        public BytesReference get() throws IOException {
+            try (BytesStreamOutput out = new BytesStreamOutput()) {
+                out.writeVInt(segment.numDocs());
+                loaded = true;
+                return out.bytes();
+            }
+        }
+    }
+
+    private static class TestEntity implements IndicesSegmentRequestCache.CacheEntity {
+        private final ShardRequestCache stats;
+        private final AtomicBoolean open;
+
+        TestEntity(ShardRequestCache stats, AtomicBoolean open) {
+            this.stats = stats;
+            this.open = open;
+        }
+
+        @Override
+        public ShardRequestCache stats() {
+            return stats;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open.get();
+        }
+
+        @Override
+        public Object getCacheIdentity() {
+            return open;
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return 42;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogGroupCommitStats;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class TranslogGroupCommitServiceTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        threadPool = new TestThreadPool(getTestName());
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        terminate(threadPool);
+        super.tearDown();
+    }
+
+    public void testDisabledByDefault() {
+        assertFalse(new TranslogGroupCommitService(Settings.EMPTY, threadPool).isEnabled());
+        assertThat(new TranslogGroupCommitService(Settings.EMPTY, threadPool).stats().getPaths(), hasSize(0));
+    }
+
+    public void testSyncsAreGroupedPerShardAndPath() throws InterruptedException {
+        final TranslogGroupCommitService service = newService();
+        final Path[] paths = new Path[] { createTempDir(), createTempDir() };
+        final int numShards = randomIntBetween(1, 10);
+        final CountingSyncer[] syncers = new CountingSyncer[numShards];
+        for (int i = 0; i < numShards; i++) {
+            syncers[i] = new CountingSyncer();
+        }
+        final int numSyncs = randomIntBetween(1, 1000);
+        final CountDownLatch latch = new CountDownLatch(numSyncs);
+        final AtomicInteger failures = new AtomicInteger();
+        for (int i = 0; i < numSyncs; i++) {
+            final int shard = randomIntBetween(0, numShards - 1);
+            final Translog.Location location = new Translog.Location(randomNonNegativeLong(), i, 1);
+            service.sync(paths[shard % paths.length], syncers[shard], location, e -> {
+                if (e != null) {
+                    failures.incrementAndGet();
+                } else if (syncers[shard].maxSyncedOffset.get() < location.translogLocation) {
+                    // the listener must only be completed once its location was synced
+                    failures.incrementAndGet();
+                }
+                latch.countDown();
+            });
+        }
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertThat(failures.get(), equalTo(0));
+
+        final List<TranslogGroupCommitStats.PathStats> stats = service.stats().getPaths();
+        long rounds = 0;
+        long locations = 0;
+        long shardSyncs = 0;
+        for (TranslogGroupCommitStats.PathStats pathStats : stats) {
+            rounds += pathStats.getRounds();
+            locations += pathStats.getLocations();
+            shardSyncs += pathStats.getShardSyncs();
+            assertThat(pathStats.getShardSyncs(), lessThanOrEqualTo(pathStats.getLocations()));
+        }
+        assertThat(locations, equalTo((long) numSyncs));
+        assertThat(rounds, lessThanOrEqualTo(shardSyncs));
+        long actualSyncs = 0;
+        for (CountingSyncer syncer : syncers) {
+            actualSyncs += syncer.syncs.get();
+        }
+        assertThat(actualSyncs, equalTo(shardSyncs));
+    }
+
+    public void testFailuresAreOnlyReportedToTheFailingShard() throws InterruptedException {
+        final TranslogGroupCommitService service = newService();
+        final Path path = createTempDir();
+        final IOException failure = new IOException("simulated");
+        final TranslogGroupCommitService.TranslogSyncer failing = locations -> { throw failure; };
+        final CountingSyncer succeeding = new CountingSyncer();
+        final List<Exception> failingResults = new CopyOnWriteArrayList<>();
+        final List<Exception> succeedingResults = new CopyOnWriteArrayList<>();
+        final int numSyncs = randomIntBetween(1, 100);
+        final CountDownLatch latch = new CountDownLatch(numSyncs * 2);
+        for (int i = 0; i < numSyncs; i++) {
+            final Translog.Location location = new Translog.Location(0, i, 1);
+            service.sync(path, failing, location, e -> {
+                failingResults.add(e);
+                latch.countDown();
+            });
+            service.sync(path, succeeding, location, e -> {
+                if (e != null) {
+                    succeedingResults.add(e);
+                }
+                latch.countDown();
+            });
+        }
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertThat(failingResults, hasSize(numSyncs));
+        for (Exception e : failingResults) {
+            assertThat(e, sameInstance(failure));
+        }
+        assertThat(succeedingResults, hasSize(0));
+    }
+
+    public void testListenersRestoreTheirThreadContext() throws InterruptedException {
+        final TranslogGroupCommitService service = newService();
+        final AtomicReference<String> header = new AtomicReference<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        threadPool.getThreadContext().putHeader("test", "value");
+        service.sync(createTempDir(), new CountingSyncer(), new Translog.Location(0, 0, 1), e -> {
+            header.set(threadPool.getThreadContext().getHeader("test"));
+            latch.countDown();
+        });
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertThat(header.get(), equalTo("value"));
+    }
+
+    private TranslogGroupCommitService newService() {
+        final TimeValue interval = TimeValue.timeValueMillis(randomIntBetween(1, 10));
+        final Settings settings = Settings.builder()
+            .put(TranslogGroupCommitService.INTERVAL_SETTING.getKey(), interval.getStringRep())
+            .build();
+        final TranslogGroupCommitService service = new TranslogGroupCommitService(settings, threadPool);
+        assertTrue(service.isEnabled());
+        return service;
+    }
+
+    private static class CountingSyncer implements TranslogGroupCommitService.TranslogSyncer {
+        final AtomicInteger syncs = new AtomicInteger();
+        final AtomicLong maxSyncedOffset = new AtomicLong(-1);
+
+        @Override
+        public void sync(Stream<Translog.Location> locations) {
+            syncs.incrementAndGet();
+            final List<Long> offsets = locations.map(location -> location.translogLocation).collect(Collectors.toList());
+            for (long offset : offsets) {
+                maxSyncedOffset.accumulateAndGet(offset, Math::max);
+            }
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.After;
 import org.junit.Before;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
@@ -62,6 +63,32 @@ public class ResponseCollectorServiceTests extends ESTestCase {
         assertThat(nodeStats.get("node1").serviceTime, equalTo(10.0));
     }
 
+    public void testHedgeBudget() {
+        // nothing was saved up yet
+        assertFalse(collector.tryHedgeRequest());
+        for (int i = 0; i < 20; i++) {
+            collector.onShardRequest(0.1);
+        }
+        assertTrue(collector.tryHedgeRequest());
+        assertTrue(collector.tryHedgeRequest());
+        assertFalse(collector.tryHedgeRequest());
+
+        // the budget saves up a limited number of hedged requests
+        for (int i = 0; i < 1000; i++) {
+            collector.onShardRequest(1);
+        }
+        for (int i = 0; i < ResponseCollectorService.MAX_HEDGE_BUDGET; i++) {
+            assertTrue(collector.tryHedgeRequest());
+        }
+        assertFalse(collector.tryHedgeRequest());
+        collector.onHedgedRequestWon();
+
+        AdaptiveSelectionStats stats = collector.getAdaptiveStats(Collections.emptyMap());
+        assertThat(stats.getHedgedRequests(), equalTo(2L + ResponseCollectorService.MAX_HEDGE_BUDGET));
+        assertThat(stats.getHedgedRequestsWon(), equalTo(1L));
+        assertThat(stats.getHedgedRequestsOverBudget(), equalTo(3L));
+    }
+
     /*
      * Test that concurrently adding values and removing nodes does not cause exceptions
      */
@@ -0,0 +1,72 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.node;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ResponseTimeHistogramTests extends ESTestCase {
+
+    public void testBuckets() {
+        long previousUpperBound = -1;
+        for (int bucket = 0; bucket < 62 * 4; bucket++) {
+            long upperBound = ResponseTimeHistogram.upperBound(bucket);
+            assertThat(upperBound, greaterThanOrEqualTo(previousUpperBound + 1));
+            assertThat(ResponseTimeHistogram.bucket(previousUpperBound + 1), equalTo(bucket));
+            assertThat(ResponseTimeHistogram.bucket(upperBound), equalTo(bucket));
+            previousUpperBound = upperBound;
+        }
+        assertThat(previousUpperBound, equalTo(Long.MAX_VALUE));
+    }
+
+    public void testPercentile() {
+        ResponseTimeHistogram histogram = new ResponseTimeHistogram();
+        int numValues = randomIntBetween(ResponseTimeHistogram.MIN_VALUES, ResponseTimeHistogram.DECAY_INTERVAL - 1);
+        long[] values = new long[numValues];
+        for (int i = 0; i < numValues; i++) {
+            values[i] = TimeUnit.MICROSECONDS.toNanos(randomLongBetween(1, 1_000_000));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        double percentile = randomDoubleBetween(1, 100, true);
+        long expected = values[(int) Math.ceil(percentile / 100 * numValues) - 1];
+        long actual = histogram.percentile(percentile);
+        // buckets are at most 25% wider than their lower bound
+        assertThat(actual, greaterThanOrEqualTo(expected));
+        assertThat(actual, lessThanOrEqualTo(expected + expected / 4 + TimeUnit.MICROSECONDS.toNanos(1)));
+    }
+
+    public void testTooFewValues() {
+        ResponseTimeHistogram histogram = new ResponseTimeHistogram();
+        for (int i = 0; i < ResponseTimeHistogram.MIN_VALUES - 1; i++) {
+            histogram.record(randomNonNegativeLong());
+        }
+        assertThat(histogram.percentile(50), equalTo(-1L));
+        histogram.record(randomNonNegativeLong());
+        assertThat(histogram.percentile(50), greaterThanOrEqualTo(0L));
+    }
+
+    public void testDecay() {
+        ResponseTimeHistogram histogram = new ResponseTimeHistogram();
+        for (int i = 0; i < ResponseTimeHistogram.DECAY_INTERVAL; i++) {
+            histogram.record(TimeUnit.SECONDS.toNanos(1));
+        }
+        // the old values weigh less and less as new values are recorded
+        for (int i = 0; i < ResponseTimeHistogram.DECAY_INTERVAL * 2; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        assertThat(histogram.percentile(75), lessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(2)));
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.rest.action.document;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.core.AbstractRefCounted;
+import org.elasticsearch.core.RestApiVersion;
+import org.elasticsearch.http.HttpBodyStream;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.client.NoOpNodeClient;
+import org.elasticsearch.xcontent.XContentType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class StreamingBulkRequestHandlerTests extends ESTestCase {
+
+    private static final String MALFORMED = "[]\n";
+
+    public void testExecutesBatchesAndCombinesResponses() throws Exception {
+        final int numItems = between(1, 100);
+        final String body = indexItems(0, numItems);
+        final List<BulkRequest> batches = new ArrayList<>();
+        try (NoOpNodeClient client = new BulkClient(getTestName(), (batch, listener) -> {
+            batches.add(batch);
+            listener.onResponse(successResponse(batch));
+        })) {
+            final FakeBodyStream stream = new FakeBodyStream(splitIntoChunks(body));
+            final PlainActionFuture<BulkResponse> future = new PlainActionFuture<>();
+            newHandler(client, stream, between(1, 200), future).start();
+            stream.deliverAll();
+
+            final BulkResponse response = future.get();
+            assertFalse(response.hasFailures());
+            assertThat(response.getItems().length, equalTo(numItems));
+            for (int i = 0; i < numItems; i++) {
+                assertThat(response.getItems()[i].getItemId(), equalTo(i));
+                assertThat(response.getItems()[i].getId(), equalTo("id_" + i));
+            }
+            assertThat(batches.size(), greaterThan(0));
+            stream.assertAllChunksReleased();
+        }
+    }
+
+    public void testFailsAsAWholeIfNothingWasExecuted() throws Exception {
+        try (NoOpNodeClient client = new BulkClient(getTestName(), (batch, listener) -> fail("nothing should be executed"))) {
+            final FakeBodyStream stream = new FakeBodyStream(List.of(indexItems(0, 2) + MALFORMED));
+            final PlainActionFuture<BulkResponse> future = new PlainActionFuture<>();
+            newHandler(client, stream, Long.MAX_VALUE, future).start();
+            stream.deliverAll();
+
+            expectThrows(ExecutionException.class, future::get);
+            stream.assertAllChunksReleased();
+        }
+    }
+
+    public void testPartialFailureReportsExecutedItems() throws Exception {
+        final int executed = between(1, 10);
+        final int parsedNotExecuted = between(0, 5);
+        try (NoOpNodeClient client = new BulkClient(getTestName(), (batch, listener) -> listener.onResponse(successResponse(batch)))) {
+            final List<String> chunks = new ArrayList<>();
+            chunks.add(indexItems(0, executed));
+            // these items are parsed into the next batch, which is never executed since the rest of the chunk is malformed
+            chunks.add(indexItems(executed, executed + parsedNotExecuted) + MALFORMED);
+            chunks.add(indexItems(executed + parsedNotExecuted, executed + parsedNotExecuted + 10));
+            final FakeBodyStream stream = new FakeBodyStream(chunks);
+            final PlainActionFuture<BulkResponse> future = new PlainActionFuture<>();
+            // the first chunk is executed as a batch of its own
+            newHandler(client, stream, 1, future).start();
+            stream.deliverAll();
+
+            final BulkResponse response = future.get();
+            assertTrue(response.hasFailures());
+            final BulkItemResponse[] items = response.getItems();
+            assertThat(items.length, equalTo(executed + parsedNotExecuted + 1));
+            for (int i = 0; i < executed; i++) {
+                assertFalse(items[i].isFailed());
+                assertThat(items[i].getId(), equalTo("id_" + i));
+            }
+            for (int i = executed; i < items.length; i++) {
+                assertTrue(items[i].isFailed());
+                assertThat(items[i].getItemId(), equalTo(i));
+            }
+            assertThat(items[items.length - 1].getFailureMessage(), containsString("Malformed action/metadata line"));
+            stream.assertAllChunksReleased();
+        }
+    }
+
+    public void testFailedBatchReportsFailedItems() throws Exception {
+        final int numItems = between(2, 20);
+        final int failingBatch = between(0, numItems - 1);
+        final List<BulkRequest> batches = new ArrayList<>();
+        try (NoOpNodeClient client = new BulkClient(getTestName(), (batch, listener) -> {
+            if (batches.size() == failingBatch) {
+                batches.add(batch);
+                listener.onFailure(new IllegalStateException("boom"));
+            } else {
+                batches.add(batch);
+                listener.onResponse(successResponse(batch));
+            }
+        })) {
+            final List<String> chunks = new ArrayList<>();
+            for (int i = 0; i < numItems; i++) {
+                chunks.add(indexItems(i, i + 1));
+            }
+            final FakeBodyStream stream = new FakeBodyStream(chunks);
+            final PlainActionFuture<BulkResponse> future = new PlainActionFuture<>();
+            // each chunk is a batch of its own
+            newHandler(client, stream, 1, future).start();
+            stream.deliverAll();
+
+            final BulkResponse response = future.get();
+            final BulkItemResponse[] items = response.getItems();
+            // no more of the body is read once a batch failed
+            final boolean bodyParsed = failingBatch == numItems - 1;
+            assertThat(items.length, equalTo(failingBatch + 1 + (bodyParsed ? 0 : 1)));
+            for (int i = 0; i < failingBatch; i++) {
+                assertFalse(items[i].isFailed());
+            }
+            assertTrue(items[failingBatch].isFailed());
+            assertThat(items[failingBatch].getId(), equalTo("id_" + failingBatch));
+            assertThat(items[failingBatch].getFailureMessage(), containsString("boom"));
+            stream.assertAllChunksReleased();
+        }
+    }
+
+    public void testDoesNotCopyChunks() throws Exception {
+        final List<ActionListener<BulkResponse>> pending = new ArrayList<>();
+        final List<BulkRequest> batches = new ArrayList<>();
+        try (NoOpNodeClient client = new BulkClient(getTestName(), (batch, listener) -> {
+            batches.add(batch);
+            pending.add(listener);
+        })) {
+            final FakeBodyStream stream = new FakeBodyStream(List.of(indexItems(0, 3)));
+            final PlainActionFuture<BulkResponse> future = new PlainActionFuture<>();
+            newHandler(client, stream, Long.MAX_VALUE, future).start();
+            stream.deliverAll();
+
+            // the sources of the items are slices of the chunk, which is held until the batch completed
+            assertThat(batches.size(), equalTo(1));
+            assertTrue(stream.chunks.get(0).hasReferences());
+            pending.get(0).onResponse(successResponse(batches.get(0)));
+            assertFalse(future.get().hasFailures());
+            stream.assertAllChunksReleased();
+        }
+    }
+
+    private static StreamingBulkRequestHandler newHandler(
+        NoOpNodeClient client,
+        HttpBodyStream stream,
+        long batchSizeInBytes,
+        ActionListener<BulkResponse> listener
+    ) {
+        return new StreamingBulkRequestHandler(
+            client,
+            stream,
+            BulkRequest::new,
+            (batch, data, lastData) -> batch.incrementalAdd(
+                data,
+                "test",
+                null,
+                null,
+                null,
+                null,
+                true,
+                XContentType.JSON,
+                RestApiVersion.current(),
+                lastData
+            ),
+            "test",
+            batchSizeInBytes,
+            between(1, 3),
+            1024 * 1024,
+            listener
+        );
+    }
+
+    private static String indexItems(int from, int to) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            builder.append("{\"index\":{\"_id\":\"id_").append(i).append("\"}}\n{\"field\":\"value_").append(i).append("\"}\n");
+        }
+        return builder.toString();
+    }
+
+    private static List<String> splitIntoChunks(String body) {
+        final List<String> chunks = new ArrayList<>();
+        int from = 0;
+        while (from < body.length()) {
+            final int to = Math.min(body.length(), from + between(1, 100));
+            chunks.add(body.substring(from, to));
+            from = to;
+        }
+        if (chunks.isEmpty()) {
+            chunks.add("");
+        }
+        return chunks;
+    }
+
+    private static BulkResponse successResponse(BulkRequest batch) {
+        final List<DocWriteRequest<?>> requests = batch.requests();
+        final BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+        for (int i = 0; i < items.length; i++) {
+            final DocWriteRequest<?> request = requests.get(i);
+            items[i] = BulkItemResponse.success(
+                i,
+                request.opType(),
+                new IndexResponse(new ShardId(request.index(), "_na_", 0), request.id(), i, 1, 1, true)
+            );
+        }
+        return new BulkResponse(items, 1);
+    }
+
+    private static class BulkClient extends NoOpNodeClient {
+        private final BiConsumer<BulkRequest, ActionListener<BulkResponse>> onBulk;
+
+        BulkClient(String testName, BiConsumer<BulkRequest, ActionListener<BulkResponse>> onBulk) {
+            super(testName);
+            this.onBulk = onBulk;
+        }
+
+        @Override
+        public void bulk(BulkRequest request, ActionListener<BulkResponse> listener) {
+            onBulk.accept(request, listener);
+        }
+    }
+
+    /**
+     * Delivers the given chunks one at a time, on the calling thread, as they are requested.
+     */
+    private static class FakeBodyStream implements HttpBodyStream {
+        private final List<String> contents;
+        private final List<ReleasableBytesReference> chunks = new ArrayList<>();
+        private ChunkHandler handler;
+        private int requested;
+        private int delivered;
+
+        FakeBodyStream(List<String> contents) {
+            this.contents = contents;
+        }
+
+        @Override
+        public void setHandler(ChunkHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void next() {
+            assertThat("requested another chunk before the previous one was delivered", requested, equalTo(delivered));
+            requested++;
+        }
+
+        void deliverAll() {
+            while (requested > delivered && delivered < contents.size()) {
+                final ReleasableBytesReference chunk = new ReleasableBytesReference(
+                    new BytesArray(contents.get(delivered).getBytes(StandardCharsets.UTF_8)),
+                    AbstractRefCounted.of(() -> {})
+                );
+                chunks.add(chunk);
+                delivered++;
+                handler.onNext(chunk, delivered == contents.size());
+            }
+        }
+
+        void assertAllChunksReleased() {
+            for (ReleasableBytesReference chunk : chunks) {
+                assertFalse(chunk.hasReferences());
+            }
+        }
+    }
+}
@@ -27,6 +27,8 @@ import org.elasticsearch.action.search.ClosePointInTimeRequest;
 import org.elasticsearch.action.search.OpenPointInTimeAction;
 import org.elasticsearch.action.search.OpenPointInTimeRequest;
 import org.elasticsearch.action.search.SearchPhaseExecutionException;
+import org.elasticsearch.action.search.QueryNodeRequest;
+import org.elasticsearch.action.search.QueryNodeResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchScrollRequest;
@@ -76,10 +78,12 @@ import org.elasticsearch.script.Script;
 import org.elasticsearch.script.ScriptType;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.AggregationReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
 import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.global.GlobalAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.Max;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.ValueType;
 import org.elasticsearch.search.builder.PointInTimeBuilder;
@@ -92,6 +96,7 @@ import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchContextId;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.search.suggest.SuggestBuilder;
 import org.elasticsearch.tasks.TaskCancelHelper;
 import org.elasticsearch.tasks.TaskCancelledException;
@@ -133,6 +138,7 @@ import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.mock;
 
@@ -1874,4 +1880,126 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
             false
         );
     }
+
+    public void testExecuteQueryPhaseOfNode() {
+        final int numShards = randomIntBetween(2, 5);
+        createIndex(
+            "index",
+            Settings.builder()
+                .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, numShards)
+                .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+                .build()
+        );
+        final int numDocs = randomIntBetween(1, 50);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("index").setId(Integer.toString(i)).setSource("value", i).get();
+        }
+        client().admin().indices().prepareRefresh("index").get();
+        final SearchService service = getInstanceFromNode(SearchService.class);
+        final IndicesService indicesService = getInstanceFromNode(IndicesService.class);
+        final IndexService indexService = indicesService.indexServiceSafe(resolveIndex("index"));
+
+        final int size = randomIntBetween(1, 5);
+        final SearchRequest searchRequest = new SearchRequest().allowPartialSearchResults(true)
+            .source(
+                new SearchSourceBuilder().size(size)
+                    .sort("value", SortOrder.DESC)
+                    .aggregation(AggregationBuilders.max("max").field("value"))
+            );
+        final List<ShardSearchRequest> shardRequests = new ArrayList<>();
+        for (int shard = 0; shard < numShards; shard++) {
+            shardRequests.add(
+                new ShardSearchRequest(
+                    OriginalIndices.NONE,
+                    searchRequest,
+                    indexService.getShard(shard).shardId(),
+                    shard,
+                    numShards,
+                    new AliasFilter(null, Strings.EMPTY_ARRAY),
+                    1.0f,
+                    -1,
+                    null,
+                    null,
+                    null
+                )
+            );
+        }
+        final SearchShardTask task = new SearchShardTask(123L, "", "", "", null, Collections.emptyMap());
+        final PlainActionFuture<QueryNodeResponse> future = PlainActionFuture.newFuture();
+        service.executeQueryPhase(new QueryNodeRequest(shardRequests, randomIntBetween(1, numShards)), task, future);
+        final List<QueryNodeResponse.ResponseOrFailure> responses = future.actionGet().getResponses();
+
+        assertThat(responses.size(), equalTo(numShards));
+        long totalHits = 0;
+        int hits = 0;
+        for (int shard = 0; shard < numShards; shard++) {
+            assertNull(responses.get(shard).getException());
+            final QuerySearchResult result = responses.get(shard).getResult();
+            assertThat(result.getShardIndex(), equalTo(shard));
+            totalHits += result.topDocs().topDocs.totalHits.value;
+            hits += result.topDocs().topDocs.scoreDocs.length;
+            final InternalAggregations aggs = result.consumeAggs();
+            if (shard == 0) {
+                // the aggregations of all shards are reduced into the first result
+                final Max max = aggs.get("max");
+                assertEquals(numDocs - 1, max.value(), 0d);
+            } else {
+                assertThat(aggs.asList(), empty());
+            }
+            service.freeReaderContext(result.getContextId());
+        }
+        assertThat(totalHits, equalTo((long) numDocs));
+        // only the top hits of the node are kept
+        assertThat(hits, equalTo(Math.min(size, numDocs)));
+    }
+
+    public void testQueryPhaseOfNodeSkipsNonCompetitiveShards() {
+        final String[] indices = new String[] { "high", "low" };
+        for (int i = 0; i < indices.length; i++) {
+            createIndex(indices[i], Settings.builder().put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1).build());
+            // every value of the "high" index sorts before the values of the "low" index
+            for (int value = 0; value < 10; value++) {
+                client().prepareIndex(indices[i]).setSource("value", (indices.length - i) * 100 + value).get();
+            }
+        }
+        client().admin().indices().prepareRefresh(indices).get();
+        final SearchService service = getInstanceFromNode(SearchService.class);
+        final IndicesService indicesService = getInstanceFromNode(IndicesService.class);
+
+        final SearchRequest searchRequest = new SearchRequest().allowPartialSearchResults(true)
+            .source(new SearchSourceBuilder().size(5).sort("value", SortOrder.DESC).trackTotalHits(false));
+        final List<ShardSearchRequest> shardRequests = new ArrayList<>();
+        for (int i = 0; i < indices.length; i++) {
+            shardRequests.add(
+                new ShardSearchRequest(
+                    OriginalIndices.NONE,
+                    searchRequest,
+                    indicesService.indexServiceSafe(resolveIndex(indices[i])).getShard(0).shardId(),
+                    i,
+                    indices.length,
+                    new AliasFilter(null, Strings.EMPTY_ARRAY),
+                    1.0f,
+                    -1,
+                    null,
+                    null,
+                    null
+                )
+            );
+        }
+        final SearchShardTask task = new SearchShardTask(123L, "", "", "", null, Collections.emptyMap());
+        final PlainActionFuture<QueryNodeResponse> future = PlainActionFuture.newFuture();
+        // the shards are searched one after the other, so the "low" shard gets the bottom sort value of the "high" shard
+        service.executeQueryPhase(new QueryNodeRequest(shardRequests, 1), task, future);
+        final List<QueryNodeResponse.ResponseOrFailure> responses = future.actionGet().getResponses();
+
+        assertThat(responses.size(), equalTo(indices.length));
+        final QuerySearchResult high = responses.get(0).getResult();
+        assertFalse(high.isNull());
+        assertThat(high.topDocs().topDocs.scoreDocs.length, equalTo(5));
+        service.freeReaderContext(high.getContextId());
+        // the "low" shard can't beat the bottom sort value of the "high" shard so it isn't searched
+        assertNull(responses.get(1).getException());
+        assertTrue(responses.get(1).getResult().isNull());
+        assertThat(service.getActiveContexts(), equalTo(0));
+    }
 }
@@ -69,6 +69,7 @@ import org.elasticsearch.search.aggregations.metrics.InternalMax;
 import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.TopHits;
 import org.elasticsearch.search.aggregations.metrics.TopHitsAggregationBuilder;
+import org.elasticsearch.search.aggregations.support.AggregationCursors;
 import org.elasticsearch.search.aggregations.support.ValueType;
 import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.test.IndexSettingsModule;
@@ -95,13 +96,16 @@ import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.elasticsearch.search.aggregations.bucket.nested.NestedAggregatorTests.nestedObject;
+import static org.elasticsearch.test.InternalAggregationTestCase.DEFAULT_MAX_BUCKETS;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class CompositeAggregatorTests extends AggregatorTestCase {
     private static MappedFieldType[] FIELD_TYPES;
     private List<ObjectMapper> objectMappers;
+    private AggregationCursors cursors;
 
     @Override
     @Before
@@ -118,6 +122,7 @@ public class CompositeAggregatorTests extends AggregatorTestCase {
         FIELD_TYPES[7] = new GeoPointFieldMapper.GeoPointFieldType("geo_point");
 
         objectMappers = new ArrayList<>();
+        cursors = null;
     }
 
     @Override
@@ -133,6 +138,11 @@ public class CompositeAggregatorTests extends AggregatorTestCase {
         return objectMappers;
     }
 
+    @Override
+    protected AggregationCursors aggregationCursors() {
+        return cursors;
+    }
+
     @Override
     protected IndexReader wrapDirectoryReader(DirectoryReader reader) throws IOException {
         if (false == objectMappers().isEmpty()) {
@@ -597,6 +607,84 @@ public class CompositeAggregatorTests extends AggregatorTestCase {
         });
     }
 
+    public void testPagingWithCursor() throws Exception {
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                int numDocs = randomIntBetween(1, 500);
+                for (int i = 0; i < numDocs; i++) {
+                    Document document = new Document();
+                    addToDocument(
+                        i,
+                        document,
+                        createDocument("keyword", "k" + randomIntBetween(0, 99), "long", (long) randomIntBetween(0, 9))
+                    );
+                    indexWriter.addDocument(document);
+                }
+            }
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = new IndexSearcher(indexReader);
+                int size = randomIntBetween(1, 20);
+                Query query = randomBoolean() ? new MatchAllDocsQuery() : LongPoint.newRangeQuery("long", 2, 7);
+                List<String> expected = pageThrough(indexSearcher, query, size);
+
+                cursors = new AggregationCursors();
+                assertThat(pageThrough(indexSearcher, query, size), equalTo(expected));
+                assertThat(cursors.size(), equalTo(1));
+                // paging again from the start, or with another query, ignores the cursor of the previous pages
+                assertThat(pageThrough(indexSearcher, query, size), equalTo(expected));
+                Query otherQuery = new TermQuery(new Term("keyword", "k" + randomIntBetween(0, 99)));
+                cursors = null;
+                List<String> expectedOther = pageThrough(indexSearcher, otherQuery, size);
+                cursors = new AggregationCursors();
+                pageThrough(indexSearcher, query, size);
+                assertThat(pageThrough(indexSearcher, otherQuery, size), equalTo(expectedOther));
+
+                // prefetched buckets with bucket sub aggregations would count against max_buckets
+                cursors = new AggregationCursors();
+                CompositeAggregationBuilder withTerms = new CompositeAggregationBuilder(
+                    "name",
+                    List.of(new TermsValuesSourceBuilder("keyword").field("keyword"))
+                ).size(size).subAggregation(new TermsAggregationBuilder("terms").field("long"));
+                searchAndReduce(createIndexSettings(null), indexSearcher, query, withTerms, DEFAULT_MAX_BUCKETS, false, FIELD_TYPES);
+                assertThat(cursors.size(), equalTo(0));
+            }
+        }
+    }
+
+    /**
+     * Pages through all the buckets of a composite aggregation on the given searcher and returns their keys, doc counts and sub
+     * aggregations.
+     */
+    private List<String> pageThrough(IndexSearcher indexSearcher, Query query, int size) throws IOException {
+        List<String> buckets = new ArrayList<>();
+        Map<String, Object> afterKey = null;
+        do {
+            CompositeAggregationBuilder builder = new CompositeAggregationBuilder(
+                "name",
+                Arrays.asList(
+                    new TermsValuesSourceBuilder("keyword").field("keyword"),
+                    new TermsValuesSourceBuilder("long").field("long").order(SortOrder.DESC)
+                )
+            ).size(size).aggregateAfter(afterKey).subAggregation(new MaxAggregationBuilder("max").field("long"));
+            InternalComposite result = searchAndReduce(
+                createIndexSettings(null),
+                indexSearcher,
+                query,
+                builder,
+                DEFAULT_MAX_BUCKETS,
+                false,
+                FIELD_TYPES
+            );
+            assertThat(result.getBuckets().size(), lessThanOrEqualTo(size));
+            for (InternalComposite.InternalBucket bucket : result.getBuckets()) {
+                InternalMax max = bucket.getAggregations().get("max");
+                buckets.add(bucket.getKeyAsString() + "=" + bucket.getDocCount() + "/" + max.getValue());
+            }
+            afterKey = result.getBuckets().size() < size ? null : result.afterKey();
+        } while (afterKey != null);
+        return buckets;
+    }
+
     /**
      * This is just a template for migrating to the test case execution in {@link AggregatorTestCase}, it doesn't test anything new.
      */
@@ -0,0 +1,132 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.support.AggregationCursors;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class CompositeCursorTests extends ESTestCase {
+
+    private final CompositeAggregationBuilder request = new CompositeAggregationBuilder(
+        "name",
+        List.of(new TermsValuesSourceBuilder("keyword").field("keyword"))
+    );
+    private final Query query = new MatchAllDocsQuery();
+
+    public void testAccountsBucketsUntilReleased() {
+        TrackingBreaker breaker = new TrackingBreaker(Long.MAX_VALUE);
+        List<InternalComposite.InternalBucket> buckets = buckets(randomIntBetween(2, 50));
+        CompositeCursor cursor = CompositeCursor.create(request, query, null, buckets, true, false, breaker);
+        assertNotNull(cursor);
+        long used = breaker.getUsed();
+        assertThat(used, greaterThan(0L));
+
+        // the next cursor takes over the bytes of the buckets that it shares with the previous one
+        List<InternalComposite.InternalBucket> remaining = cursor.bucketsAfter(request, query, buckets.get(0), 1);
+        assertThat(remaining, equalTo(buckets.subList(1, buckets.size())));
+        CompositeCursor next = cursor.advance(buckets.get(0), remaining);
+        cursor.close();
+        assertThat(breaker.getUsed(), equalTo(used));
+        next.close();
+        assertThat(breaker.getUsed(), equalTo(0L));
+        next.close();
+        assertThat(breaker.getUsed(), equalTo(0L));
+    }
+
+    public void testNoCursorWhenTheBreakerIsFull() {
+        TrackingBreaker breaker = new TrackingBreaker(0);
+        assertNull(CompositeCursor.create(request, query, null, buckets(between(1, 50)), true, false, breaker));
+        assertThat(breaker.getUsed(), equalTo(0L));
+    }
+
+    public void testReleasedWithTheirHolder() {
+        TrackingBreaker breaker = new TrackingBreaker(Long.MAX_VALUE);
+        AggregationCursors cursors = new AggregationCursors();
+        cursors.put("first", CompositeCursor.create(request, query, null, buckets(between(1, 50)), true, false, breaker));
+        long firstBytes = breaker.getUsed();
+        // replacing a cursor releases the previous one
+        CompositeCursor replacement = CompositeCursor.create(request, query, null, buckets(between(1, 50)), true, false, breaker);
+        long replacementBytes = breaker.getUsed() - firstBytes;
+        cursors.put("first", replacement);
+        assertThat(breaker.getUsed(), equalTo(replacementBytes));
+        cursors.put("second", CompositeCursor.create(request, query, null, buckets(between(1, 50)), true, false, breaker));
+        assertThat(cursors.size(), equalTo(2));
+        cursors.close();
+        assertThat(cursors.size(), equalTo(0));
+        assertThat(breaker.getUsed(), equalTo(0L));
+        // a request that was still using a cursor when the reader closed doesn't keep it
+        cursors.put("first", CompositeCursor.create(request, query, null, buckets(between(1, 50)), true, false, breaker));
+        assertThat(cursors.size(), equalTo(0));
+        assertThat(breaker.getUsed(), equalTo(0L));
+    }
+
+    private static List<InternalComposite.InternalBucket> buckets(int numBuckets) {
+        List<InternalComposite.InternalBucket> buckets = new ArrayList<>(numBuckets);
+        for (int i = 0; i < numBuckets; i++) {
+            buckets.add(
+                new InternalComposite.InternalBucket(
+                    List.of("keyword"),
+                    List.of(DocValueFormat.RAW),
+                    new CompositeKey(new BytesRef(String.format(Locale.ROOT, "k%03d", i))),
+                    new int[] { 1 },
+                    new MissingOrder[] { MissingOrder.DEFAULT },
+                    randomLongBetween(1, 100),
+                    InternalAggregations.EMPTY
+                )
+            );
+        }
+        return buckets;
+    }
+
+    /**
+     * A breaker that counts the bytes that it accounts and breaks above its limit.
+     */
+    private static class TrackingBreaker extends NoopCircuitBreaker {
+        private final long limit;
+        private long used;
+
+        TrackingBreaker(long limit) {
+            super(CircuitBreaker.REQUEST);
+            this.limit = limit;
+        }
+
+        @Override
+        public void addEstimateBytesAndMaybeBreak(long bytes, String label) throws CircuitBreakingException {
+            if (used + bytes > limit) {
+                throw new CircuitBreakingException("[" + label + "] would be too large", bytes, limit, Durability.TRANSIENT);
+            }
+            used += bytes;
+        }
+
+        @Override
+        public void addWithoutBreaking(long bytes) {
+            used += bytes;
+        }
+
+        @Override
+        public long getUsed() {
+            return used;
+        }
+    }
+}
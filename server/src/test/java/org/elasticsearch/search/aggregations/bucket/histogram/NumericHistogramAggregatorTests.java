@@ -25,6 +25,7 @@ import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.BlockLeafBucketCollector;
 import org.elasticsearch.search.aggregations.metrics.InternalMin;
 import org.elasticsearch.search.aggregations.metrics.MinAggregationBuilder;
 import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
@@ -190,6 +191,31 @@ public class NumericHistogramAggregatorTests extends AggregatorTestCase {
         }
     }
 
+    public void testManyBlocks() throws Exception {
+        final int numDocs = randomIntBetween(BlockLeafBucketCollector.BLOCK_SIZE, 5 * BlockLeafBucketCollector.BLOCK_SIZE);
+        final long[] expectedCounts = new long[10];
+        try (Directory dir = newDirectory(); RandomIndexWriter w = new RandomIndexWriter(random(), dir)) {
+            for (int i = 0; i < numDocs; i++) {
+                Document doc = new Document();
+                // two values of the same doc that fall in the same bucket only count once
+                long value = randomLongBetween(0, 99);
+                doc.add(new SortedNumericDocValuesField("field", value));
+                doc.add(new SortedNumericDocValuesField("field", value - value % 10 + randomLongBetween(0, 9)));
+                expectedCounts[(int) (value / 10)]++;
+                w.addDocument(doc);
+            }
+
+            HistogramAggregationBuilder aggBuilder = new HistogramAggregationBuilder("my_agg").field("field").interval(10);
+            try (IndexReader reader = w.getReader()) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                InternalHistogram histogram = searchAndReduce(searcher, new MatchAllDocsQuery(), aggBuilder, longField("field"));
+                for (InternalHistogram.Bucket bucket : histogram.getBuckets()) {
+                    assertEquals(expectedCounts[(int) ((double) bucket.getKey() / 10)], bucket.getDocCount());
+                }
+            }
+        }
+    }
+
     public void testMissing() throws Exception {
         try (Directory dir = newDirectory(); RandomIndexWriter w = new RandomIndexWriter(random(), dir)) {
             for (long value : new long[] { 7, 3, -10, -6, 5, 15 }) {
@@ -0,0 +1,117 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.sampler.random;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregationReduceContext;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.InternalSingleBucketAggregationTestCase;
+import org.elasticsearch.search.aggregations.bucket.ParsedSingleBucketAggregation;
+import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
+import org.elasticsearch.search.aggregations.metrics.InternalMax;
+import org.elasticsearch.search.aggregations.metrics.InternalSum;
+import org.elasticsearch.search.aggregations.metrics.InternalValueCount;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.emptyMap;
+import static org.hamcrest.Matchers.equalTo;
+
+public class InternalRandomSamplerTests extends InternalSingleBucketAggregationTestCase<InternalRandomSampler> {
+    @Override
+    protected InternalRandomSampler createTestInstance(
+        String name,
+        long docCount,
+        InternalAggregations aggregations,
+        Map<String, Object> metadata
+    ) {
+        // a probability of 1 collects all the documents and leaves the results as they are
+        return new InternalRandomSampler(name, docCount, 1.0, randomInt(), aggregations, metadata);
+    }
+
+    @Override
+    protected void extraAssertReduced(InternalRandomSampler reduced, List<InternalRandomSampler> inputs) {
+        // Nothing extra to assert
+    }
+
+    @Override
+    protected Class<? extends ParsedSingleBucketAggregation> implementationClass() {
+        return ParsedRandomSampler.class;
+    }
+
+    public void testRescaleOnFinalReduce() {
+        double probability = randomFrom(0.5, 0.25, 0.1);
+        List<InternalAggregation> shards = List.of(shardResult(probability, 10, 3), shardResult(probability, 20, 6));
+
+        AggregationReduceContext partial = emptyReduceContextBuilder().forPartialReduction();
+        InternalRandomSampler partiallyReduced = (InternalRandomSampler) shards.get(0).reduce(shards, partial);
+        // partial reductions merge the samples of the shards as they are
+        assertThat(partiallyReduced.getDocCount(), equalTo(30L));
+
+        AggregationReduceContext last = emptyReduceContextBuilder().forFinalReduction();
+        InternalRandomSampler reduced = (InternalRandomSampler) partiallyReduced.reduce(List.of(partiallyReduced), last);
+        long scale = Math.round(1 / probability);
+        assertThat(reduced.getDocCount(), equalTo(30 * scale));
+        InternalSum sum = reduced.getAggregations().get("sum");
+        assertThat(sum.getValue(), equalTo(60.0 * scale));
+        InternalValueCount count = reduced.getAggregations().get("count");
+        assertThat(count.getValue(), equalTo(30 * scale));
+        // the maximum doesn't grow with the number of documents
+        InternalMax max = reduced.getAggregations().get("max");
+        assertThat(max.getValue(), equalTo(2.0));
+
+        StringTerms terms = reduced.getAggregations().get("terms");
+        assertThat(terms.getBucketByKey("a").getDocCount(), equalTo(21 * scale));
+        assertThat(terms.getBucketByKey("b").getDocCount(), equalTo(9 * scale));
+        InternalSum bucketSum = terms.getBucketByKey("b").getAggregations().get("sum");
+        assertThat(bucketSum.getValue(), equalTo(18.0 * scale));
+    }
+
+    /**
+     * The result of a shard that sampled the given number of documents, every one of them with a value of 2 and a term.
+     */
+    private InternalRandomSampler shardResult(double probability, long docCount, long docCountB) {
+        long docCountA = docCount - docCountB;
+        List<StringTerms.Bucket> buckets = List.of(termsBucket("a", docCountA), termsBucket("b", docCountB));
+        StringTerms terms = new StringTerms(
+            "terms",
+            BucketOrder.count(false),
+            BucketOrder.count(false),
+            10,
+            1,
+            emptyMap(),
+            DocValueFormat.RAW,
+            10,
+            false,
+            0,
+            docCountA >= docCountB ? buckets : List.of(buckets.get(1), buckets.get(0)),
+            0L
+        );
+        InternalAggregations subAggregations = InternalAggregations.from(
+            List.of(
+                new InternalSum("sum", 2.0 * docCount, DocValueFormat.RAW, emptyMap()),
+                new InternalValueCount("count", docCount, emptyMap()),
+                new InternalMax("max", 2.0, DocValueFormat.RAW, emptyMap()),
+                terms
+            )
+        );
+        return new InternalRandomSampler("sampler", docCount, probability, randomInt(), subAggregations, emptyMap());
+    }
+
+    private static StringTerms.Bucket termsBucket(String term, long docCount) {
+        InternalAggregations subAggregations = InternalAggregations.from(
+            List.of(new InternalSum("sum", 2.0 * docCount, DocValueFormat.RAW, emptyMap()))
+        );
+        return new StringTerms.Bucket(new BytesRef(term), docCount, subAggregations, false, 0, DocValueFormat.RAW);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.sampler.random;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.query.MatchAllQueryBuilder;
+import org.elasticsearch.search.aggregations.AggregationExecutionException;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+import org.elasticsearch.search.aggregations.bucket.histogram.InternalDateHistogram;
+import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.CardinalityAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.Sum;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.ValueCount;
+import org.elasticsearch.search.aggregations.metrics.ValueCountAggregationBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+
+public class RandomSamplerAggregatorTests extends AggregatorTestCase {
+
+    private static final int NUM_DOCS = 3000;
+    private static final String KEYWORD = "keyword";
+    private static final String NUMBER = "number";
+    private static final String DATE = "date";
+
+    private static final MappedFieldType KEYWORD_TYPE = new KeywordFieldMapper.KeywordFieldType(KEYWORD);
+    private static final MappedFieldType NUMBER_TYPE = new NumberFieldMapper.NumberFieldType(NUMBER, NumberFieldMapper.NumberType.LONG);
+    private static final MappedFieldType DATE_TYPE = new DateFieldMapper.DateFieldType(DATE);
+
+    public void testSampling() throws IOException {
+        // with a probability of 0.5 the counts are rescaled without rounding
+        RandomSamplerAggregationBuilder builder = sampler(0.5);
+        withIndex(RandomSamplerAggregatorTests::index, searcher -> {
+            InternalRandomSampler result = searchAndReduce(searcher, new MatchAllDocsQuery(), builder, KEYWORD_TYPE, NUMBER_TYPE);
+            long docCount = result.getDocCount();
+            // the doc count of a binomial sample of 3000 documents is almost certainly within 7 standard deviations of its mean
+            assertThat(docCount, allOf(greaterThan(NUM_DOCS - 400L), lessThan(NUM_DOCS + 400L)));
+            assertThat(docCount % 2, equalTo(0L));
+
+            Sum sum = result.getAggregations().get("sum");
+            assertThat(sum.getValue(), equalTo(2.0 * docCount));
+            ValueCount count = result.getAggregations().get("count");
+            assertThat(count.getValue(), equalTo(docCount));
+
+            StringTerms terms = result.getAggregations().get("terms");
+            long a = terms.getBucketByKey("a").getDocCount();
+            long b = terms.getBucketByKey("b").getDocCount();
+            assertThat(a + b, equalTo(docCount));
+            assertThat(a, allOf(greaterThan(2000 - 400L), lessThan(2000 + 400L)));
+            assertThat(b, allOf(greaterThan(1000 - 300L), lessThan(1000 + 300L)));
+            Sum bucketSum = terms.getBucketByKey("b").getAggregations().get("sum");
+            assertThat(bucketSum.getValue(), equalTo(2.0 * b));
+
+            // the same seed samples the same documents
+            InternalRandomSampler again = searchAndReduce(searcher, new MatchAllDocsQuery(), builder, KEYWORD_TYPE, NUMBER_TYPE);
+            assertThat(again.getDocCount(), equalTo(docCount));
+        });
+    }
+
+    public void testSamplesMatchingDocsOnly() throws IOException {
+        Query query = new TermQuery(new Term(KEYWORD, "b"));
+        RandomSamplerAggregationBuilder builder = sampler(randomDoubleBetween(0.1, 0.9, true));
+        testCase(builder, query, RandomSamplerAggregatorTests::index, (InternalRandomSampler result) -> {
+            assertThat(result.getDocCount(), lessThan(2000L));
+            StringTerms terms = result.getAggregations().get("terms");
+            assertThat(terms.getBucketByKey("a"), nullValue());
+            assertThat(terms.getBucketByKey("b").getDocCount(), greaterThan(0L));
+        }, KEYWORD_TYPE, NUMBER_TYPE);
+    }
+
+    public void testProbabilityOne() throws IOException {
+        testCase(sampler(1), new MatchAllDocsQuery(), RandomSamplerAggregatorTests::index, (InternalRandomSampler result) -> {
+            assertThat(result.getDocCount(), equalTo((long) NUM_DOCS));
+            Sum sum = result.getAggregations().get("sum");
+            assertThat(sum.getValue(), equalTo(2.0 * NUM_DOCS));
+            StringTerms terms = result.getAggregations().get("terms");
+            assertThat(terms.getBucketByKey("a").getDocCount(), equalTo(2000L));
+            assertThat(terms.getBucketByKey("b").getDocCount(), equalTo(1000L));
+        }, KEYWORD_TYPE, NUMBER_TYPE);
+    }
+
+    public void testDateHistogramSubAggregation() throws IOException {
+        RandomSamplerAggregationBuilder builder = new RandomSamplerAggregationBuilder("sampler", 0.5).setSeed(randomInt())
+            .subAggregation(
+                new DateHistogramAggregationBuilder("histo").field(DATE)
+                    .calendarInterval(DateHistogramInterval.DAY)
+                    .subAggregation(new SumAggregationBuilder("sum").field(NUMBER))
+            );
+        testCase(builder, new MatchAllDocsQuery(), RandomSamplerAggregatorTests::index, (InternalRandomSampler result) -> {
+            InternalDateHistogram histo = result.getAggregations().get("histo");
+            assertThat(histo.getBuckets(), hasSize(3));
+            long totalDocCount = 0;
+            for (InternalDateHistogram.Bucket bucket : histo.getBuckets()) {
+                // every day has a third of the documents and a probability of 0.5 rescales the counts without rounding
+                assertThat(bucket.getDocCount(), allOf(greaterThan(1000 - 300L), lessThan(1000 + 300L)));
+                assertThat(bucket.getDocCount() % 2, equalTo(0L));
+                Sum sum = bucket.getAggregations().get("sum");
+                assertThat(sum.getValue(), equalTo(2.0 * bucket.getDocCount()));
+                totalDocCount += bucket.getDocCount();
+            }
+            assertThat(totalDocCount, equalTo(result.getDocCount()));
+        }, KEYWORD_TYPE, NUMBER_TYPE, DATE_TYPE);
+    }
+
+    public void testFailsOnAggregationsThatCantBeRescaled() {
+        RandomSamplerAggregationBuilder builder = new RandomSamplerAggregationBuilder("sampler", 0.5).setSeed(randomInt())
+            .subAggregation(new CardinalityAggregationBuilder("cardinality").field(KEYWORD));
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> testCase(builder, new MatchAllDocsQuery(), RandomSamplerAggregatorTests::index, result -> {}, KEYWORD_TYPE, NUMBER_TYPE)
+        );
+        assertThat(
+            e.getMessage(),
+            equalTo("aggregation [cardinality] of type [cardinality] doesn't support rescaling the results of a random sample")
+        );
+    }
+
+    public void testOnlyTopLevel() {
+        FilterAggregationBuilder builder = new FilterAggregationBuilder("filter", new MatchAllQueryBuilder()).subAggregation(sampler(0.5));
+        AggregationExecutionException e = expectThrows(
+            AggregationExecutionException.class,
+            () -> testCase(builder, new MatchAllDocsQuery(), RandomSamplerAggregatorTests::index, result -> {}, KEYWORD_TYPE, NUMBER_TYPE)
+        );
+        assertThat(e.getMessage(), containsString("Random sampler aggregations can only be defined as top level aggregations"));
+    }
+
+    public void testInvalidProbability() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> sampler(randomFrom(0.0, -0.5, 1.5)));
+        assertThat(e.getMessage(), startsWith("[probability] must be between 0 exclusive and 1 inclusive"));
+    }
+
+    private static RandomSamplerAggregationBuilder sampler(double probability) {
+        return new RandomSamplerAggregationBuilder("sampler", probability).setSeed(randomInt())
+            .subAggregation(new SumAggregationBuilder("sum").field(NUMBER))
+            .subAggregation(new ValueCountAggregationBuilder("count").field(NUMBER))
+            .subAggregation(
+                new TermsAggregationBuilder("terms").field(KEYWORD).subAggregation(new SumAggregationBuilder("sum").field(NUMBER))
+            );
+    }
+
+    private static void index(RandomIndexWriter writer) throws IOException {
+        for (int i = 0; i < NUM_DOCS; i++) {
+            String keyword = i % 3 == 0 ? "b" : "a";
+            Document doc = new Document();
+            doc.add(new StringField(KEYWORD, keyword, Field.Store.NO));
+            doc.add(new SortedSetDocValuesField(KEYWORD, new BytesRef(keyword)));
+            doc.add(new SortedNumericDocValuesField(NUMBER, 2));
+            doc.add(new SortedNumericDocValuesField(DATE, TimeUnit.DAYS.toMillis(i % 3)));
+            writer.addDocument(doc);
+        }
+    }
+}
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.search.aggregations.bucket.terms;
 
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.test.ESTestCase;
@@ -40,4 +41,14 @@ public class TermsAggregatorFactoryTests extends ESTestCase {
         assertThat(TermsAggregatorFactory.pickSubAggColectMode(nonEmpty, 1, 2), equalTo(Aggregator.SubAggCollectionMode.BREADTH_FIRST));
         assertThat(TermsAggregatorFactory.pickSubAggColectMode(nonEmpty, 1, 100), equalTo(Aggregator.SubAggCollectionMode.BREADTH_FIRST));
     }
+
+    public void testSkipGlobalOrds() {
+        TimeValue refresh = TimeValue.timeValueSeconds(1);
+        long manyTerms = TermsAggregatorFactory.MIN_SEGMENT_TERMS_TO_SKIP_GLOBAL_ORDS;
+        assertTrue(TermsAggregatorFactory.skipGlobalOrds(manyTerms, refresh));
+        assertTrue(TermsAggregatorFactory.skipGlobalOrds(manyTerms, TermsAggregatorFactory.MAX_REFRESH_INTERVAL_TO_SKIP_GLOBAL_ORDS));
+        assertFalse(TermsAggregatorFactory.skipGlobalOrds(manyTerms - 1, refresh));
+        assertFalse(TermsAggregatorFactory.skipGlobalOrds(manyTerms, TimeValue.timeValueMinutes(1)));
+        assertFalse(TermsAggregatorFactory.skipGlobalOrds(manyTerms, TimeValue.MINUS_ONE));
+    }
 }
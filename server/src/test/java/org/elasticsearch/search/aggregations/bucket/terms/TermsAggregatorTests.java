@@ -2092,6 +2092,62 @@ public class TermsAggregatorTests extends AggregatorTestCase {
         }, keywordFt, dummyFt);
     }
 
+    public void testSegmentOrdinals() throws IOException {
+        long totalDocs = 500;
+        BytesRef[] values = new BytesRef[] { new BytesRef("stuff"), new BytesRef("more_stuff"), new BytesRef("other_stuff"), };
+        TermsAggregationBuilder builder = new TermsAggregationBuilder("t").field("k")
+            .executionHint("segment_ordinals")
+            .includeExclude(new IncludeExclude(null, "other_.*"))
+            .subAggregation(new MaxAggregationBuilder("m").field("n"));
+        debugTestCase(builder, new MatchAllDocsQuery(), iw -> {
+            for (int d = 0; d < totalDocs; d++) {
+                BytesRef value = values[d % values.length];
+                iw.addDocument(List.of(new SortedSetDocValuesField("k", value), new SortedNumericDocValuesField("n", d)));
+                if (d % 100 == 0) {
+                    iw.commit();
+                }
+            }
+        }, (StringTerms r, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+            assertThat(r.getBuckets().stream().map(StringTerms.Bucket::getKey).collect(toList()), equalTo(List.of("more_stuff", "stuff")));
+            assertThat(r.getBuckets().stream().map(StringTerms.Bucket::getDocCount).collect(toList()), equalTo(List.of(167L, 167L)));
+            assertThat(((InternalMax) r.getBuckets().get(0).getAggregations().get("m")).getValue(), equalTo(499.0));
+            assertThat(((InternalMax) r.getBuckets().get(1).getAggregations().get("m")).getValue(), equalTo(498.0));
+
+            assertEquals(impl, MapStringTermsAggregator.class);
+            assertMap(
+                debug,
+                matchesMap().extraOk()
+                    .entry(
+                        "t",
+                        matchesMap().extraOk()
+                            .entry("result_strategy", "terms")
+                            .entry("collection_strategy", "segment ordinals from Field [k] of type [keyword]")
+                            .entry("segments_collected", greaterThan(0))
+                            .entry("segment_terms_hashed", greaterThanOrEqualTo(3L))
+                    )
+            );
+        },
+            new KeywordFieldType("k", true, true, Collections.emptyMap()),
+            new NumberFieldMapper.NumberFieldType("n", NumberFieldMapper.NumberType.LONG)
+        );
+    }
+
+    public void testSegmentOrdinalsOnlyTrackMatchingOrdinals() throws IOException {
+        int totalDocs = 1000;
+        TermsAggregationBuilder builder = new TermsAggregationBuilder("t").field("k").executionHint("segment_ordinals");
+        debugTestCase(builder, new TermQuery(new Term("k", "7")), iw -> {
+            for (int d = 0; d < totalDocs; d++) {
+                BytesRef value = new BytesRef(Integer.toString(d));
+                iw.addDocument(List.of(new SortedSetDocValuesField("k", value), new StringField("k", value, Field.Store.NO)));
+            }
+        }, (StringTerms r, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+            assertThat(r.getBuckets().stream().map(StringTerms.Bucket::getKey).collect(toList()), equalTo(List.of("7")));
+            assertEquals(impl, MapStringTermsAggregator.class);
+            // only the ordinal of the matching document is looked up, whatever the number of terms of the segment
+            assertMap(debug, matchesMap().extraOk().entry("t", matchesMap().extraOk().entry("segment_terms_hashed", 1L)));
+        }, new KeywordFieldType("k", true, true, Collections.emptyMap()));
+    }
+
     private final SeqNoFieldMapper.SequenceIDFields sequenceIDFields = SeqNoFieldMapper.SequenceIDFields.emptySeqID();
 
     private List<Document> generateDocsWithNested(String id, int value, int[] nestedValues) {
@@ -11,22 +11,28 @@ package org.elasticsearch.search.aggregations.metrics;
 import com.carrotsearch.hppc.BitMixer;
 import com.carrotsearch.hppc.IntHashSet;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.MockBigArrays;
 import org.elasticsearch.common.util.PageCacheRecycler;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
 
+import java.io.IOException;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.elasticsearch.search.aggregations.metrics.AbstractCardinalityAlgorithm.MAX_PRECISION;
 import static org.elasticsearch.search.aggregations.metrics.AbstractCardinalityAlgorithm.MIN_PRECISION;
 import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -183,4 +189,94 @@ public class HyperLogLogPlusPlusTests extends ESTestCase {
             bigArrays -> new HyperLogLogPlusPlus(precision, bigArrays, initialBucketCount)
         );
     }
+
+    public void testManyBucketsWithFewValues() {
+        int precision = between(10, MAX_PRECISION);
+        int buckets = between(500, 1000);
+        // the buckets stay in linear counting, so they don't need the registers of hll
+        MockBigArrays.assertFitsIn(ByteSizeValue.ofBytes(buckets * 256L + PageCacheRecycler.PAGE_SIZE_IN_BYTES * 4), bigArrays -> {
+            HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(precision, bigArrays, 1);
+            boolean success = false;
+            try {
+                for (int bucket = 0; bucket < buckets; bucket++) {
+                    for (int i = 0; i < 10; i++) {
+                        counts.collect(bucket, BitMixer.mix64(bucket * 10 + i));
+                    }
+                }
+                success = true;
+                return counts;
+            } finally {
+                if (success == false) {
+                    counts.close();
+                }
+            }
+        });
+    }
+
+    public void testGrowLinearCounting() {
+        final int p = randomIntBetween(MIN_PRECISION, MAX_PRECISION);
+        final HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        final long bucket = randomInt(20);
+        final IntHashSet hashes = new IntHashSet();
+        // as many hashes as linear counting can hold before switching to hll
+        final int numValues = (1 << p) / 4 * 3 / 4;
+        for (int i = 0; i < numValues; i++) {
+            final long hash = BitMixer.mix64(i);
+            counts.collect(bucket, hash);
+            hashes.add(AbstractLinearCounting.encodeHash(hash, p));
+        }
+        assertEquals(AbstractHyperLogLogPlusPlus.LINEAR_COUNTING, counts.getAlgorithm(bucket));
+        final AbstractLinearCounting.HashesIterator iterator = counts.getLinearCounting(bucket);
+        assertEquals(hashes.size(), iterator.size());
+        while (iterator.next()) {
+            assertTrue(hashes.contains(iterator.value()));
+        }
+    }
+
+    public void testSerialization() throws IOException {
+        final int p = randomIntBetween(MIN_PRECISION, MAX_PRECISION);
+        final HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        final long bucket = randomInt(20);
+        final int numValues = randomIntBetween(1, randomBoolean() ? 1 << p : 4 << p);
+        for (int i = 0; i < numValues; i++) {
+            counts.collect(bucket, BitMixer.mix64(randomInt()));
+        }
+        Version version = randomBoolean() ? Version.CURRENT : VersionUtils.randomCompatibleVersion(random(), Version.CURRENT);
+        AbstractHyperLogLogPlusPlus read = copy(counts, bucket, version);
+        assertTrue(counts.equals(bucket, read, 0));
+        assertEquals(counts.cardinality(bucket), read.cardinality(0));
+    }
+
+    public void testCompactSerialization() throws IOException {
+        final int p = randomIntBetween(10, MAX_PRECISION);
+        final HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        // just enough values to switch to hll, or many more
+        final int numValues = randomBoolean() ? (1 << p) / 4 : 8 << p;
+        for (int i = 0; i < numValues; i++) {
+            counts.collect(0, BitMixer.mix64(i));
+        }
+        assertEquals(AbstractHyperLogLogPlusPlus.HYPERLOGLOG, counts.getAlgorithm(0));
+        assertThat(serializedSize(counts, Version.CURRENT), lessThan(serializedSize(counts, Version.V_8_0_0)));
+        assertTrue(counts.equals(0, copy(counts, 0, Version.CURRENT), 0));
+    }
+
+    private static AbstractHyperLogLogPlusPlus copy(AbstractHyperLogLogPlusPlus counts, long bucket, Version version) throws IOException {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            counts.writeTo(bucket, out);
+            StreamInput in = out.bytes().streamInput();
+            in.setVersion(version);
+            AbstractHyperLogLogPlusPlus read = AbstractHyperLogLogPlusPlus.readFrom(in, BigArrays.NON_RECYCLING_INSTANCE);
+            assertEquals(-1, in.read());
+            return read;
+        }
+    }
+
+    private static int serializedSize(AbstractHyperLogLogPlusPlus counts, Version version) throws IOException {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            counts.writeTo(0, out);
+            return out.bytes().length();
+        }
+    }
 }
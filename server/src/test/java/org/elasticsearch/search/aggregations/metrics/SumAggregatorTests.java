@@ -40,6 +40,7 @@ import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.script.ScriptType;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.BlockLeafBucketCollector;
 import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
 import org.elasticsearch.search.aggregations.support.ValuesSourceType;
@@ -121,6 +122,27 @@ public class SumAggregatorTests extends AggregatorTestCase {
         });
     }
 
+    public void testManyBlocks() throws IOException {
+        final int numDocs = randomIntBetween(BlockLeafBucketCollector.BLOCK_SIZE, 5 * BlockLeafBucketCollector.BLOCK_SIZE);
+        final List<List<IndexableField>> docs = new ArrayList<>(numDocs);
+        long sum = 0;
+        for (int i = 0; i < numDocs; i++) {
+            final List<IndexableField> doc = new ArrayList<>();
+            for (int v = randomIntBetween(0, 3); v > 0; v--) {
+                final long value = randomLongBetween(-1000, 1000);
+                sum += value;
+                doc.add(new SortedNumericDocValuesField(FIELD_NAME, value));
+            }
+            docs.add(doc);
+        }
+        final long expected = sum;
+        testAggregation(new MatchAllDocsQuery(), iw -> {
+            for (List<IndexableField> doc : docs) {
+                iw.addDocument(doc);
+            }
+        }, result -> assertEquals(expected, result.getValue(), 0d));
+    }
+
     public void testQueryFiltering() throws IOException {
         testAggregation(new TermQuery(new Term("match", "yes")), iw -> {
             iw.addDocument(Arrays.asList(new StringField("match", "yes", Field.Store.NO), new NumericDocValuesField(FIELD_NAME, 1)));
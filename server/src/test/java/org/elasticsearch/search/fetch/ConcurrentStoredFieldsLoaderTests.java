@@ -0,0 +1,106 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.fetch;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class ConcurrentStoredFieldsLoaderTests extends ESTestCase {
+
+    public void testLoad() throws Exception {
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try (Directory dir = newDirectory()) {
+            int numDocs = 0;
+            try (IndexWriter w = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+                int numSegments = randomIntBetween(1, 5);
+                for (int i = 0; i < numSegments; i++) {
+                    int numSegmentDocs = randomIntBetween(1, 300);
+                    for (int j = 0; j < numSegmentDocs; j++) {
+                        Document doc = new Document();
+                        doc.add(new StoredField(SourceFieldMapper.NAME, new BytesRef("{\"doc\":" + numDocs++ + "}")));
+                        w.addDocument(doc);
+                    }
+                    w.commit();
+                }
+            }
+            try (DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(dir), new ShardId("index", "_na_", 0))) {
+                List<Integer> hits = new ArrayList<>();
+                boolean sequential = randomBoolean();
+                int start = randomIntBetween(0, numDocs - 1);
+                for (int doc = start; doc < numDocs; doc++) {
+                    if (sequential || randomBoolean()) {
+                        hits.add(doc);
+                    }
+                }
+                int[] docIds = hits.stream().mapToInt(Integer::intValue).toArray();
+                FieldsVisitor[] visitors = ConcurrentStoredFieldsLoader.load(
+                    reader.leaves(),
+                    docIds,
+                    () -> new FieldsVisitor(true),
+                    field -> { throw new AssertionError("no field to post-process"); },
+                    () -> false,
+                    threadPool.executor(ThreadPool.Names.SEARCH_WORKER),
+                    randomIntBetween(1, 4)
+                );
+                assertThat(visitors.length, equalTo(docIds.length));
+                for (int i = 0; i < docIds.length; i++) {
+                    assertThat(visitors[i].source().utf8ToString(), equalTo("{\"doc\":" + docIds[i] + "}"));
+                }
+
+                // cancelling the search stops the loading of every chunk
+                if (docIds.length > 0) {
+                    AtomicInteger checks = new AtomicInteger();
+                    expectThrows(
+                        TaskCancelledException.class,
+                        () -> ConcurrentStoredFieldsLoader.load(
+                            reader.leaves(),
+                            docIds,
+                            () -> new FieldsVisitor(true),
+                            field -> null,
+                            () -> checks.incrementAndGet() > docIds.length / 2,
+                            threadPool.executor(ThreadPool.Names.SEARCH_WORKER),
+                            4
+                        )
+                    );
+                }
+            }
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    public void testIsSequential() {
+        int[] docIds = new int[] { 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 20 };
+        assertTrue(ConcurrentStoredFieldsLoader.isSequential(docIds, 0, 10));
+        assertTrue(ConcurrentStoredFieldsLoader.isSequential(docIds, 1, 11));
+        assertFalse(ConcurrentStoredFieldsLoader.isSequential(docIds, 2, 12));
+        // too few documents to be worth a sequential reader
+        assertFalse(ConcurrentStoredFieldsLoader.isSequential(docIds, 0, 9));
+    }
+}
@@ -27,6 +27,7 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.BoostQuery;
 import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
@@ -40,6 +41,7 @@ import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Accountable;
@@ -58,13 +60,18 @@ import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.lucene.util.CombinedBitSet;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.IndexSettingsModule;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Set;
 
 import static org.elasticsearch.search.internal.ContextIndexSearcher.intersectScorerAndBitSet;
@@ -72,7 +79,9 @@ import static org.elasticsearch.search.internal.ExitableDirectoryReader.Exitable
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitablePointValues;
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitableTerms;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class ContextIndexSearcherTests extends ESTestCase {
     public void testIntersectScorerAndRoleBits() throws Exception {
@@ -176,6 +185,109 @@ public class ContextIndexSearcherTests extends ESTestCase {
         doTestContextIndexSearcher(false, true);
     }
 
+    public void testComputeSlices() throws IOException {
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter w = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+                int numSegments = randomIntBetween(2, 10);
+                for (int i = 0; i < numSegments; i++) {
+                    int numDocs = randomIntBetween(1, 100);
+                    for (int j = 0; j < numDocs; j++) {
+                        w.addDocument(new Document());
+                    }
+                    w.commit();
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                List<LeafReaderContext> leaves = reader.leaves();
+                assertThat(ContextIndexSearcher.computeSlices(leaves, randomIntBetween(1, 10), reader.maxDoc() + 1).length, equalTo(1));
+
+                int maxSliceCount = randomIntBetween(1, 10);
+                IndexSearcher.LeafSlice[] slices = ContextIndexSearcher.computeSlices(leaves, maxSliceCount, 1);
+                assertThat(slices.length, equalTo(Math.min(maxSliceCount, leaves.size())));
+                Set<LeafReaderContext> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+                int largestLeaf = 0;
+                int smallestSlice = Integer.MAX_VALUE;
+                int largestSlice = 0;
+                for (IndexSearcher.LeafSlice slice : slices) {
+                    int sliceDocs = 0;
+                    for (LeafReaderContext leaf : slice.leaves) {
+                        assertTrue("leaf is in more than one slice", seen.add(leaf));
+                        sliceDocs += leaf.reader().maxDoc();
+                        largestLeaf = Math.max(largestLeaf, leaf.reader().maxDoc());
+                    }
+                    smallestSlice = Math.min(smallestSlice, sliceDocs);
+                    largestSlice = Math.max(largestSlice, sliceDocs);
+                }
+                assertThat(seen.size(), equalTo(leaves.size()));
+                // assigning the largest leaves first keeps the slices within one leaf of each other
+                assertThat(largestSlice - smallestSlice, lessThanOrEqualTo(largestLeaf));
+            }
+        }
+    }
+
+    public void testConcurrentSearch() throws Exception {
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try (Directory dir = newDirectory()) {
+            int expectedCount = 0;
+            try (IndexWriter w = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+                int numSegments = randomIntBetween(2, 10);
+                for (int i = 0; i < numSegments; i++) {
+                    int numDocs = randomIntBetween(1, 100);
+                    for (int j = 0; j < numDocs; j++) {
+                        Document doc = new Document();
+                        if (randomBoolean()) {
+                            doc.add(new StringField("foo", "bar", Field.Store.NO));
+                            expectedCount++;
+                        }
+                        w.addDocument(doc);
+                    }
+                    w.commit();
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                ContextIndexSearcher searcher = new ContextIndexSearcher(
+                    reader,
+                    IndexSearcher.getDefaultSimilarity(),
+                    IndexSearcher.getDefaultQueryCache(),
+                    IndexSearcher.getDefaultQueryCachingPolicy(),
+                    true,
+                    threadPool.executor(ThreadPool.Names.SEARCH_WORKER),
+                    4
+                ) {
+                    @Override
+                    protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+                        return computeSlices(leaves, 4, 1);
+                    }
+                };
+                assertThat(searcher.getConcurrentSlices().length, greaterThan(1));
+                CollectorManager<TotalHitCountCollector, Integer> countManager = new CollectorManager<>() {
+                    @Override
+                    public TotalHitCountCollector newCollector() {
+                        return new TotalHitCountCollector();
+                    }
+
+                    @Override
+                    public Integer reduce(Collection<TotalHitCountCollector> collectors) {
+                        return collectors.stream().mapToInt(TotalHitCountCollector::getTotalHits).sum();
+                    }
+                };
+                Query query = new TermQuery(new Term("foo", "bar"));
+                assertThat(searcher.search(query, countManager), equalTo(expectedCount));
+
+                // a slice that fails on another thread fails the whole search
+                Thread caller = Thread.currentThread();
+                searcher.addQueryCancellation(() -> {
+                    if (Thread.currentThread() != caller) {
+                        throw new TaskCancelledException("simulated");
+                    }
+                });
+                expectThrows(TaskCancelledException.class, () -> searcher.search(query, countManager));
+            }
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
     public void doTestContextIndexSearcher(boolean sparse, boolean deletions) throws IOException {
         Directory dir = newDirectory();
         IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null));
@@ -33,7 +33,8 @@ public class QueryProfileShardResultTests extends AbstractSerializingTestCase<Qu
         if (randomBoolean()) {
             rewriteTime = rewriteTime % 1000; // make sure to often test this with small values too
         }
-        return new QueryProfileShardResult(queryProfileResults, rewriteTime, profileCollector);
+        List<String> queryPlan = randomList(0, 3, () -> randomAlphaOfLengthBetween(5, 20));
+        return new QueryProfileShardResult(queryProfileResults, rewriteTime, profileCollector, randomIntBetween(1, 8), queryPlan);
     }
 
     @Override
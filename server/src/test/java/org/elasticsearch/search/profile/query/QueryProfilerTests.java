@@ -43,6 +43,7 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -220,6 +221,31 @@ public class QueryProfilerTests extends ESTestCase {
         assertThat(profileCollector.getTime(), greaterThan(time));
     }
 
+    public void testSliceCollectors() throws IOException {
+        QueryProfiler profiler = new QueryProfiler();
+        assertThat(profiler.getSliceCount(), equalTo(1));
+        int numSlices = randomIntBetween(2, 5);
+        List<InternalProfileCollector> sliceCollectors = new ArrayList<>(numSlices);
+        long totalTime = 0;
+        for (int i = 0; i < numSlices; i++) {
+            InternalProfileCollector collector = new InternalProfileCollector(
+                new TotalHitCountCollector(),
+                CollectorResult.REASON_SEARCH_COUNT,
+                List.of()
+            );
+            collector.getLeafCollector(reader.leaves().get(0));
+            totalTime += collector.getTime();
+            sliceCollectors.add(collector);
+        }
+        profiler.setSliceCollectors(sliceCollectors);
+        assertThat(profiler.getSliceCount(), equalTo(numSlices));
+        CollectorResult result = profiler.getCollector();
+        assertThat(result.getReason(), equalTo(CollectorResult.REASON_SEARCH_SLICES));
+        assertThat(result.getTime(), equalTo(totalTime));
+        assertThat(result.getProfiledChildren().size(), equalTo(numSlices));
+        expectThrows(IllegalStateException.class, () -> profiler.setCollector(sliceCollectors.get(0)));
+    }
+
     private static class DummyQuery extends Query {
 
         @Override
@@ -0,0 +1,129 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.AggregationReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.metrics.InternalMax;
+import org.elasticsearch.search.aggregations.metrics.Max;
+import org.elasticsearch.search.internal.ShardSearchContextId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+public class QueryNodeResultsReducerTests extends ESTestCase {
+
+    public void testTrimsTopDocs() {
+        List<QuerySearchResult> results = new ArrayList<>();
+        // shard 0: scores 10, 8, 6 - shard 1: scores 9, 1, 0.5 - shard 2: scores 0.3, 0.2, 0.1
+        results.add(createResult(0, 3, new float[] { 10, 8, 6 }, null));
+        results.add(createResult(1, 3, new float[] { 9, 1, 0.5f }, null));
+        results.add(createResult(2, 3, new float[] { 0.3f, 0.2f, 0.1f }, null));
+        List<QuerySearchResult> irrelevant = new ArrayList<>();
+        QueryNodeResultsReducer.reduce(results, reduceContext(), irrelevant::add);
+
+        assertThat(results.get(0).topDocs().topDocs.scoreDocs.length, equalTo(2));
+        assertThat(results.get(1).topDocs().topDocs.scoreDocs.length, equalTo(1));
+        assertThat(results.get(2).topDocs().topDocs.scoreDocs.length, equalTo(0));
+        for (QuerySearchResult result : results) {
+            assertThat(result.topDocs().topDocs.totalHits.value, equalTo(3L));
+            for (ScoreDoc scoreDoc : result.topDocs().topDocs.scoreDocs) {
+                assertThat(scoreDoc.shardIndex, equalTo(-1));
+            }
+        }
+        assertThat(irrelevant, contains(results.get(2)));
+    }
+
+    public void testEqualScoresPreferLowerShardIndex() {
+        List<QuerySearchResult> results = new ArrayList<>();
+        results.add(createResult(1, 2, new float[] { 1, 1 }, null));
+        results.add(createResult(0, 2, new float[] { 1, 1 }, null));
+        List<QuerySearchResult> irrelevant = new ArrayList<>();
+        QueryNodeResultsReducer.reduce(results, reduceContext(), irrelevant::add);
+
+        assertThat(results.get(1).topDocs().topDocs.scoreDocs.length, equalTo(2));
+        assertThat(results.get(0).topDocs().topDocs.scoreDocs.length, equalTo(0));
+        assertThat(irrelevant, contains(results.get(0)));
+    }
+
+    public void testReducesAggregations() {
+        List<QuerySearchResult> results = new ArrayList<>();
+        int numShards = randomIntBetween(2, 10);
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < numShards; i++) {
+            double value = randomDouble();
+            max = Math.max(max, value);
+            results.add(createResult(i, 10, new float[] { 1 }, new InternalMax("max", value, DocValueFormat.RAW, Map.of())));
+        }
+        List<QuerySearchResult> irrelevant = new ArrayList<>();
+        QueryNodeResultsReducer.reduce(results, reduceContext(), irrelevant::add);
+
+        assertThat(irrelevant, empty());
+        Max reduced = results.get(0).consumeAggs().get("max");
+        assertThat(reduced.value(), equalTo(max));
+        for (int i = 1; i < numShards; i++) {
+            assertThat(results.get(i).consumeAggs().asList(), empty());
+        }
+    }
+
+    public void testIgnoresNullResults() {
+        List<QuerySearchResult> results = new ArrayList<>();
+        results.add(QuerySearchResult.nullInstance());
+        results.add(createResult(0, 1, new float[] { 2 }, null));
+        results.add(QuerySearchResult.nullInstance());
+        results.add(createResult(1, 1, new float[] { 1 }, null));
+        List<QuerySearchResult> irrelevant = new ArrayList<>();
+        QueryNodeResultsReducer.reduce(results, reduceContext(), irrelevant::add);
+
+        assertThat(results.get(1).topDocs().topDocs.scoreDocs.length, equalTo(1));
+        assertThat(results.get(3).topDocs().topDocs.scoreDocs.length, equalTo(0));
+        assertThat(irrelevant, contains(results.get(3)));
+    }
+
+    private static AggregationReduceContext reduceContext() {
+        return new AggregationReduceContext.ForPartial(BigArrays.NON_RECYCLING_INSTANCE, null, () -> false);
+    }
+
+    private static QuerySearchResult createResult(int shardIndex, int size, float[] scores, InternalMax max) {
+        ShardId shardId = new ShardId("index", "uuid", shardIndex);
+        QuerySearchResult result = new QuerySearchResult(
+            new ShardSearchContextId(UUIDs.base64UUID(), randomLong()),
+            new SearchShardTarget("node", shardId, null),
+            null
+        );
+        ScoreDoc[] scoreDocs = new ScoreDoc[scores.length];
+        for (int i = 0; i < scores.length; i++) {
+            scoreDocs[i] = new ScoreDoc(i, scores[i]);
+        }
+        TopDocs topDocs = new TopDocs(new TotalHits(scores.length, TotalHits.Relation.EQUAL_TO), scoreDocs);
+        result.topDocs(new TopDocsAndMaxScore(topDocs, scores.length == 0 ? Float.NaN : scores[0]), null);
+        result.from(0);
+        result.size(size);
+        if (max != null) {
+            result.aggregations(InternalAggregations.from(List.of(max)));
+        }
+        result.setShardIndex(shardIndex);
+        return result;
+    }
+}
@@ -58,6 +58,7 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.FixedBitSet;
 import org.elasticsearch.action.search.SearchShardTask;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.NumberFieldMapper;
@@ -68,6 +69,8 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardTestCase;
 import org.elasticsearch.lucene.queries.MinDocQuery;
 import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.SearchSortValuesAndFormats;
 import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
@@ -76,11 +79,13 @@ import org.elasticsearch.tasks.TaskCancelHelper;
 import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.tasks.TaskId;
 import org.elasticsearch.test.TestSearchContext;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.elasticsearch.search.query.TopDocsCollectorContext.hasInfMaxScore;
 import static org.hamcrest.Matchers.anyOf;
@@ -319,6 +324,85 @@ public class QueryPhaseTests extends IndexShardTestCase {
         dir.close();
     }
 
+    public void testScrollCursor() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, new IndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        List<Integer> expectedDocs = new ArrayList<>();
+        int numDocs = 0;
+        int numSegments = randomIntBetween(1, 5);
+        for (int i = 0; i < numSegments; i++) {
+            int numSegmentDocs = randomIntBetween(1, 50);
+            for (int j = 0; j < numSegmentDocs; j++) {
+                Document doc = new Document();
+                doc.add(new StringField("id", Integer.toString(numDocs), Store.NO));
+                if (randomBoolean()) {
+                    doc.add(new StringField("foo", "bar", Store.NO));
+                    expectedDocs.add(numDocs);
+                }
+                w.addDocument(doc);
+                numDocs++;
+            }
+            w.commit();
+        }
+        for (int i = 0; i < numDocs; i++) {
+            if (randomInt(9) == 0) {
+                w.deleteDocuments(new Term("id", Integer.toString(i)));
+                expectedDocs.remove(Integer.valueOf(i));
+            }
+        }
+        w.close();
+        DirectoryReader reader = DirectoryReader.open(dir);
+
+        ScrollContext scrollContext = new ScrollContext();
+        SearchExecutionContext searchExecutionContext = mock(SearchExecutionContext.class);
+        TestSearchContext context = new TestSearchContext(searchExecutionContext, indexShard, newContextSearcher(reader), scrollContext);
+        context.parsedQuery(new ParsedQuery(new TermQuery(new Term("foo", "bar"))));
+        context.sort(new SortAndFormats(Sort.INDEXORDER, new DocValueFormat[] { DocValueFormat.RAW }));
+        SearchShardTask task = new SearchShardTask(123L, "", "", "", null, Collections.emptyMap());
+        context.setTask(task);
+        context.setSize(randomIntBetween(1, 10));
+        context.timeout(SearchService.NO_TIMEOUT);
+
+        List<Integer> emittedDocs = new ArrayList<>();
+        ScoreDoc lastEmittedDoc = null;
+        int rounds = 0;
+        while (true) {
+            QueryPhase.executeInternal(context);
+            assertThat(context.queryResult().topDocs().topDocs.totalHits.value, equalTo((long) expectedDocs.size()));
+            // only the rounds after the first one use the cursor
+            assertThat(scrollContext.cursor != null, equalTo(rounds++ > 0));
+            ScoreDoc[] scoreDocs = context.queryResult().topDocs().topDocs.scoreDocs;
+            if (scoreDocs.length == 0) {
+                break;
+            }
+            // the coordinating node may only emit some of the documents of the round
+            int emitted = randomBoolean() ? scoreDocs.length : randomIntBetween(1, scoreDocs.length);
+            for (int i = 0; i < emitted; i++) {
+                assertThat(((FieldDoc) scoreDocs[i]).fields[0], equalTo(scoreDocs[i].doc));
+                emittedDocs.add(scoreDocs[i].doc);
+                lastEmittedDoc = scoreDocs[i];
+            }
+            scrollContext.lastEmittedDoc = lastEmittedDoc;
+            // every round of a scroll searches with a new searcher over the same reader
+            context.setSearcher(newContextSearcher(reader));
+        }
+        assertThat(emittedDocs, equalTo(expectedDocs));
+
+        // every round checks whether the search was cancelled before it iterates
+        TaskCancelHelper.cancel(task, "simulated");
+        expectThrows(TaskCancelledException.class, () -> ScrollCursor.searchNextRound(context));
+
+        // rounds with a timeout or a query that holds the state of its round don't use the cursor
+        assertTrue(ScrollCursor.canUse(context));
+        context.timeout(TimeValue.timeValueSeconds(1));
+        assertFalse(ScrollCursor.canUse(context));
+        context.timeout(SearchService.NO_TIMEOUT);
+        when(searchExecutionContext.hasLookup()).thenReturn(true);
+        assertFalse(ScrollCursor.canUse(context));
+        reader.close();
+        dir.close();
+    }
+
     public void testTerminateAfterEarlyTermination() throws Exception {
         Directory dir = newDirectory();
         IndexWriterConfig iwc = newIndexWriterConfig();
@@ -783,6 +867,130 @@ public class QueryPhaseTests extends IndexShardTestCase {
         dir.close();
     }
 
+    public void testNumericSortLeafOrdering() throws Exception {
+        final String fieldName = "long-field";
+        final int numSegments = 5;
+        final int docsPerSegment = 100;
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        // every segment holds newer values than the previous one
+        for (int segment = 0; segment < numSegments; segment++) {
+            for (int i = 0; i < docsPerSegment; i++) {
+                long value = segment * 1000L + i;
+                Document doc = new Document();
+                doc.add(new LongPoint(fieldName, value));
+                doc.add(new NumericDocValuesField(fieldName, value));
+                writer.addDocument(doc);
+            }
+            writer.flush();
+        }
+        writer.close();
+        final IndexReader reader = DirectoryReader.open(dir);
+        assertThat(reader.leaves().size(), equalTo(numSegments));
+
+        final SortField sortField = new SortField(fieldName, SortField.Type.LONG, true);
+        sortField.setMissingValue(Long.MIN_VALUE);
+        // the _doc tiebreaker makes the top docs independent of the order of the leaves
+        final SortAndFormats sort = new SortAndFormats(
+            new Sort(sortField, SortField.FIELD_DOC),
+            new DocValueFormat[] { DocValueFormat.RAW, DocValueFormat.RAW }
+        );
+        final SortAndFormats sortWithoutTiebreaker = new SortAndFormats(new Sort(sortField), new DocValueFormat[] { DocValueFormat.RAW });
+        final SearchExecutionContext searchExecutionContext = mock(SearchExecutionContext.class);
+        final SearchShardTask task = new SearchShardTask(123L, "", "", "", null, Collections.emptyMap());
+
+        // the newest segments are searched first
+        {
+            TestSearchContext searchContext = new TestSearchContext(searchExecutionContext, indexShard, newContextSearcher(reader));
+            searchContext.sort(sort);
+            searchContext.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+            searchContext.setTask(task);
+            searchContext.trackTotalHitsUpTo(10);
+            searchContext.setSize(10);
+            List<LeafReaderContext> leaves = TopDocsLeafOrdering.orderLeaves(searchContext, reader.leaves());
+            assertNotNull(leaves);
+            assertThat(leaves.size(), equalTo(numSegments));
+            for (int i = 0; i < numSegments; i++) {
+                byte[] maxValue = leaves.get(i).reader().getPointValues(fieldName).getMaxPackedValue();
+                assertThat(LongPoint.decodeDimension(maxValue, 0), equalTo((numSegments - 1 - i) * 1000L + docsPerSegment - 1));
+            }
+            QueryPhase.executeInternal(searchContext);
+            assertNewestValues(searchContext.queryResult().topDocs().topDocs, (numSegments - 1) * 1000L + docsPerSegment - 1);
+        }
+
+        // the segments that can't beat the bottom sort value of the coordinating node are skipped when hits aren't counted
+        {
+            TestSearchContext searchContext = new TestSearchContext(searchExecutionContext, indexShard, newContextSearcher(reader));
+            searchContext.sort(sort);
+            searchContext.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+            searchContext.setTask(task);
+            searchContext.trackTotalHitsUpTo(SearchContext.TRACK_TOTAL_HITS_DISABLED);
+            searchContext.setSize(10);
+            searchContext.request()
+                .setBottomSortValues(new SearchSortValuesAndFormats(new Object[] { 3050L }, new DocValueFormat[] { DocValueFormat.RAW }));
+            List<LeafReaderContext> leaves = TopDocsLeafOrdering.orderLeaves(searchContext, reader.leaves());
+            assertNotNull(leaves);
+            assertThat(leaves.size(), equalTo(2));
+            QueryPhase.executeInternal(searchContext);
+            assertNewestValues(searchContext.queryResult().topDocs().topDocs, (numSegments - 1) * 1000L + docsPerSegment - 1);
+        }
+
+        // hits are counted on all segments otherwise
+        {
+            TestSearchContext searchContext = new TestSearchContext(searchExecutionContext, indexShard, newContextSearcher(reader));
+            searchContext.sort(sort);
+            searchContext.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+            searchContext.setTask(task);
+            searchContext.setSize(10);
+            searchContext.request()
+                .setBottomSortValues(new SearchSortValuesAndFormats(new Object[] { 3050L }, new DocValueFormat[] { DocValueFormat.RAW }));
+            assertThat(TopDocsLeafOrdering.orderLeaves(searchContext, reader.leaves()).size(), equalTo(numSegments));
+            QueryPhase.executeInternal(searchContext);
+            assertThat(searchContext.queryResult().topDocs().topDocs.totalHits.value, equalTo((long) numSegments * docsPerSegment));
+        }
+
+        // leaves keep their natural order without a unique tiebreaker, and are only pruned
+        {
+            TestSearchContext searchContext = new TestSearchContext(searchExecutionContext, indexShard, newContextSearcher(reader));
+            searchContext.sort(sortWithoutTiebreaker);
+            searchContext.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+            searchContext.setTask(task);
+            searchContext.trackTotalHitsUpTo(SearchContext.TRACK_TOTAL_HITS_DISABLED);
+            searchContext.setSize(10);
+            assertNull(TopDocsLeafOrdering.orderLeaves(searchContext, reader.leaves()));
+            searchContext.request()
+                .setBottomSortValues(new SearchSortValuesAndFormats(new Object[] { 3050L }, new DocValueFormat[] { DocValueFormat.RAW }));
+            List<LeafReaderContext> leaves = TopDocsLeafOrdering.orderLeaves(searchContext, reader.leaves());
+            assertThat(leaves, equalTo(reader.leaves().subList(numSegments - 2, numSegments)));
+            QueryPhase.executeInternal(searchContext);
+            assertNewestValues(searchContext.queryResult().topDocs().topDocs, (numSegments - 1) * 1000L + docsPerSegment - 1);
+        }
+
+        // and when the search resumes after a document
+        {
+            TestSearchContext searchContext = new TestSearchContext(searchExecutionContext, indexShard, newContextSearcher(reader));
+            searchContext.sort(sort);
+            searchContext.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+            searchContext.setTask(task);
+            searchContext.setSize(10);
+            Object[] after = new Object[] { (numSegments - 1) * 1000L + 5, Integer.MAX_VALUE };
+            searchContext.searchAfter(new FieldDoc(Integer.MAX_VALUE, Float.NaN, after));
+            assertNull(TopDocsLeafOrdering.orderLeaves(searchContext, reader.leaves()));
+            QueryPhase.executeInternal(searchContext);
+            assertNewestValues(searchContext.queryResult().topDocs().topDocs, (numSegments - 1) * 1000L + 4);
+        }
+
+        reader.close();
+        dir.close();
+    }
+
+    private static void assertNewestValues(TopDocs topDocs, long newestValue) {
+        assertThat(topDocs.scoreDocs.length, equalTo(10));
+        for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+            assertThat(((FieldDoc) topDocs.scoreDocs[i]).fields[0], equalTo(newestValue - i));
+        }
+    }
+
     public void testMaxScoreQueryVisitor() {
         BitSetProducer producer = context -> new FixedBitSet(1);
         Query query = new ESToParentBlockJoinQuery(new MatchAllDocsQuery(), producer, ScoreMode.Avg, "nested");
@@ -917,6 +1125,99 @@ public class QueryPhaseTests extends IndexShardTestCase {
         }
     }
 
+    public void testConcurrentSegmentSearch() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter w = new IndexWriter(dir, iwc);
+        final int numDocs = scaledRandomIntBetween(100, 500);
+        for (int i = 0; i < numDocs; i++) {
+            Document doc = new Document();
+            if (i % 3 != 0) {
+                doc.add(new StringField("foo", "bar", Store.NO));
+            }
+            doc.add(new TextField("body", "bar ".repeat(i % 5 + 1), Store.NO));
+            doc.add(new NumericDocValuesField("rank", i % 17));
+            w.addDocument(doc);
+            if (randomInt(20) == 0) {
+                w.commit();
+            }
+        }
+        w.close();
+
+        try (IndexReader reader = DirectoryReader.open(dir)) {
+            Query fooQuery = new TermQuery(new Term("foo", "bar"));
+            Query bodyQuery = new TermQuery(new Term("body", "bar"));
+            for (Query query : List.of(new MatchAllDocsQuery(), fooQuery, bodyQuery)) {
+                assertConcurrentSearch(reader, query, context -> context.setSize(0));
+                assertConcurrentSearch(reader, query, context -> context.setSize(10));
+                assertConcurrentSearch(reader, query, context -> {
+                    context.setSize(5);
+                    context.from(3);
+                    context.trackTotalHitsUpTo(10);
+                });
+                assertConcurrentSearch(reader, query, context -> {
+                    context.setSize(10);
+                    Sort sort = new Sort(new SortField("rank", SortField.Type.INT));
+                    context.sort(new SortAndFormats(sort, new DocValueFormat[] { DocValueFormat.RAW }));
+                    context.trackScores(randomBoolean());
+                });
+                assertConcurrentSearch(reader, query, context -> {
+                    context.setSize(10);
+                    context.parsedPostFilter(new ParsedQuery(new TermQuery(new Term("foo", "bar"))));
+                });
+                assertConcurrentSearch(reader, query, context -> {
+                    context.setSize(10);
+                    context.minimumScore(0.01f);
+                });
+            }
+        }
+        dir.close();
+    }
+
+    private void assertConcurrentSearch(IndexReader reader, Query query, Consumer<TestSearchContext> setup) throws Exception {
+        TestSearchContext sequential = new TestSearchContext(null, indexShard, newContextSearcher(reader));
+        sequential.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+        sequential.parsedQuery(new ParsedQuery(query));
+        setup.accept(sequential);
+        QueryPhase.executeInternal(sequential);
+
+        // one slice per segment so that every search is split into slices
+        ContextIndexSearcher concurrentSearcher = new ContextIndexSearcher(
+            reader,
+            IndexSearcher.getDefaultSimilarity(),
+            IndexSearcher.getDefaultQueryCache(),
+            IndexSearcher.getDefaultQueryCachingPolicy(),
+            true,
+            threadPool.executor(ThreadPool.Names.SEARCH_WORKER),
+            reader.leaves().size()
+        ) {
+            @Override
+            protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+                return leaves.stream().map(leaf -> new LeafSlice(new ArrayList<>(List.of(leaf)))).toArray(LeafSlice[]::new);
+            }
+        };
+        TestSearchContext concurrent = new TestSearchContext(null, indexShard, concurrentSearcher);
+        concurrent.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+        concurrent.parsedQuery(new ParsedQuery(query));
+        setup.accept(concurrent);
+        QueryPhase.executeInternal(concurrent);
+
+        TopDocs expected = sequential.queryResult().topDocs().topDocs;
+        TopDocs actual = concurrent.queryResult().topDocs().topDocs;
+        if (expected.totalHits.relation == TotalHits.Relation.EQUAL_TO) {
+            assertThat(actual.totalHits, equalTo(expected.totalHits));
+        } else {
+            // slices count hits up to the threshold independently of each other
+            assertThat(actual.totalHits.value, greaterThanOrEqualTo((long) sequential.trackTotalHitsUpTo()));
+        }
+        assertThat(actual.scoreDocs.length, equalTo(expected.scoreDocs.length));
+        for (int i = 0; i < expected.scoreDocs.length; i++) {
+            assertThat(actual.scoreDocs[i].doc, equalTo(expected.scoreDocs[i].doc));
+            assertThat(actual.scoreDocs[i].score, equalTo(expected.scoreDocs[i].score));
+        }
+        assertThat(concurrent.queryResult().topDocs().maxScore, equalTo(sequential.queryResult().topDocs().maxScore));
+    }
+
     private static ContextIndexSearcher newContextSearcher(IndexReader reader) throws IOException {
         return new ContextIndexSearcher(
             reader,
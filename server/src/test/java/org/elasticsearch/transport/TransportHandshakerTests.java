@@ -10,11 +10,13 @@ package org.elasticsearch.transport;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.compress.Zstd;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.tasks.TaskId;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
 import org.elasticsearch.threadpool.TestThreadPool;
 
 import java.io.IOException;
@@ -62,7 +64,7 @@ public class TransportHandshakerTests extends ESTestCase {
     }
 
     public void testHandshakeRequestAndResponse() throws IOException {
-        PlainActionFuture<Version> versionFuture = PlainActionFuture.newFuture();
+        PlainActionFuture<TransportHandshaker.HandshakeResponse> versionFuture = PlainActionFuture.newFuture();
         long reqId = randomLongBetween(1, 10);
         handshaker.sendHandshake(reqId, node, channel, new TimeValue(30, TimeUnit.SECONDS), versionFuture);
 
@@ -82,7 +84,55 @@ public class TransportHandshakerTests extends ESTestCase {
         handler.handleResponse((TransportHandshaker.HandshakeResponse) responseFuture.actionGet());
 
         assertTrue(versionFuture.isDone());
-        assertEquals(Version.CURRENT, versionFuture.actionGet());
+        assertEquals(Version.CURRENT, versionFuture.actionGet().getResponseVersion());
+        assertEquals(Zstd.isAvailable(), versionFuture.actionGet().isZstdAvailable());
+    }
+
+    public void testZstdAvailabilityIsOnlySentToNodesThatKnowAboutIt() throws IOException {
+        final Version oldVersion = VersionUtils.randomVersionBetween(
+            random(),
+            Version.CURRENT.minimumCompatibilityVersion(),
+            VersionUtils.getPreviousVersion(Compression.Scheme.ZSTD_VERSION)
+        );
+        final TransportHandshaker.HandshakeResponse toOldNode = handshake(oldVersion);
+        try (BytesStreamOutput actual = new BytesStreamOutput(); BytesStreamOutput expected = new BytesStreamOutput()) {
+            toOldNode.writeTo(actual);
+            // old nodes fail to read a response that has more than the version
+            new TransportHandshaker.HandshakeResponse(Version.CURRENT).writeTo(expected);
+            assertEquals(expected.bytes(), actual.bytes());
+        }
+
+        final TransportHandshaker.HandshakeResponse toNewNode = handshake(Version.CURRENT);
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            toNewNode.writeTo(out);
+            final StreamInput in = out.bytes().streamInput();
+            assertEquals(Zstd.isAvailable(), readResponse(in).isZstdAvailable());
+            assertEquals(0, in.available());
+        }
+
+        // a response from an old node is read as one from a node that can't decompress zstd
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            new TransportHandshaker.HandshakeResponse(oldVersion).writeTo(out);
+            final StreamInput in = out.bytes().streamInput();
+            final TransportHandshaker.HandshakeResponse response = readResponse(in);
+            assertEquals(oldVersion, response.getResponseVersion());
+            assertFalse(response.isZstdAvailable());
+            assertEquals(0, in.available());
+        }
+    }
+
+    private TransportHandshaker.HandshakeResponse handshake(Version requestVersion) throws IOException {
+        final BytesStreamOutput request = new BytesStreamOutput();
+        new TransportHandshaker.HandshakeRequest(requestVersion).writeTo(request);
+        final PlainActionFuture<TransportResponse> responseFuture = PlainActionFuture.newFuture();
+        handshaker.handleHandshake(new TestTransportChannel(responseFuture), randomLongBetween(1, 10), request.bytes().streamInput());
+        return (TransportHandshaker.HandshakeResponse) responseFuture.actionGet();
+    }
+
+    private TransportHandshaker.HandshakeResponse readResponse(StreamInput in) throws IOException {
+        final long reqId = randomLongBetween(11, 20);
+        handshaker.sendHandshake(reqId, node, channel, new TimeValue(30, TimeUnit.SECONDS), PlainActionFuture.newFuture());
+        return handshaker.removeHandlerForHandshake(reqId).read(in);
     }
 
     public void testHandshakeRequestFutureVersionsCompatibility() throws IOException {
@@ -121,7 +171,7 @@ public class TransportHandshakerTests extends ESTestCase {
     }
 
     public void testHandshakeError() throws IOException {
-        PlainActionFuture<Version> versionFuture = PlainActionFuture.newFuture();
+        PlainActionFuture<TransportHandshaker.HandshakeResponse> versionFuture = PlainActionFuture.newFuture();
         long reqId = randomLongBetween(1, 10);
         handshaker.sendHandshake(reqId, node, channel, new TimeValue(30, TimeUnit.SECONDS), versionFuture);
 
@@ -138,7 +188,7 @@ public class TransportHandshakerTests extends ESTestCase {
     }
 
     public void testSendRequestThrowsException() throws IOException {
-        PlainActionFuture<Version> versionFuture = PlainActionFuture.newFuture();
+        PlainActionFuture<TransportHandshaker.HandshakeResponse> versionFuture = PlainActionFuture.newFuture();
         long reqId = randomLongBetween(1, 10);
         Version compatibilityVersion = Version.CURRENT.minimumCompatibilityVersion();
         doThrow(new IOException("boom")).when(requestSender).sendRequest(node, channel, reqId, compatibilityVersion);
@@ -152,7 +202,7 @@ public class TransportHandshakerTests extends ESTestCase {
     }
 
     public void testHandshakeTimeout() throws IOException {
-        PlainActionFuture<Version> versionFuture = PlainActionFuture.newFuture();
+        PlainActionFuture<TransportHandshaker.HandshakeResponse> versionFuture = PlainActionFuture.newFuture();
         long reqId = randomLongBetween(1, 10);
         handshaker.sendHandshake(reqId, node, channel, new TimeValue(100, TimeUnit.MILLISECONDS), versionFuture);
 
@@ -0,0 +1,114 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.Zstd;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.lessThan;
+
+public class ZstdTransportDecompressorTests extends ESTestCase {
+
+    private final Recycler<BytesRef> recycler = new BytesRefRecycler(new MockPageCacheRecycler(Settings.EMPTY));
+
+    @Before
+    public void assumeZstdAvailable() {
+        assumeTrue("requires the native zstd library", Zstd.isAvailable());
+    }
+
+    public void testSimpleCompression() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            byte randomByte = randomByte();
+            try (OutputStream zstdStream = CompressorFactory.ZSTD_COMPRESSOR.threadLocalOutputStream(Streams.noCloseStream(output))) {
+                zstdStream.write(randomByte);
+            }
+
+            BytesReference bytes = output.bytes();
+            assertTrue(Compression.Scheme.isZstd(bytes));
+
+            ZstdTransportDecompressor decompressor = new ZstdTransportDecompressor(recycler);
+            int bytesConsumed = decompressor.decompress(bytes);
+            assertEquals(bytes.length(), bytesConsumed);
+            ReleasableBytesReference releasableBytesReference = decompressor.pollDecompressedPage(true);
+            assertEquals(randomByte, releasableBytesReference.get(0));
+            releasableBytesReference.close();
+        }
+    }
+
+    public void testIncrementalMultiPageCompression() throws IOException {
+        int intsToWrite = 50000;
+        int uncompressedLength = intsToWrite * 4;
+
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            try (
+                StreamOutput zstdStream = new OutputStreamStreamOutput(
+                    CompressorFactory.ZSTD_COMPRESSOR.threadLocalOutputStream(Streams.flushOnCloseStream(output))
+                )
+            ) {
+                for (int i = 0; i < intsToWrite; ++i) {
+                    zstdStream.writeInt((i & 0xFF) < 200 ? 0 : i);
+                }
+            }
+
+            BytesReference bytes = output.bytes();
+            assertThat(bytes.length(), lessThan(uncompressedLength / 2));
+
+            ZstdTransportDecompressor decompressor = new ZstdTransportDecompressor(recycler);
+            // feed the bytes in random slices like they arrive from the network, keeping the bytes that weren't consumed
+            BytesReference pending = bytes.slice(0, 0);
+            int offset = 0;
+            int totalConsumed = 0;
+            while (offset < bytes.length()) {
+                int length = Math.min(bytes.length() - offset, between(1, 20000));
+                BytesReference next = CompositeBytesReference.of(pending, bytes.slice(offset, length));
+                offset += length;
+                int consumed = decompressor.decompress(next);
+                totalConsumed += consumed;
+                pending = next.slice(consumed, next.length() - consumed);
+            }
+            assertEquals(bytes.length(), totalConsumed);
+
+            List<ReleasableBytesReference> polledReferences = new ArrayList<>();
+            ReleasableBytesReference page;
+            while ((page = decompressor.pollDecompressedPage(false)) != null) {
+                polledReferences.add(page);
+            }
+            polledReferences.add(decompressor.pollDecompressedPage(true));
+            assertNull(decompressor.pollDecompressedPage(true));
+
+            BytesReference composite = CompositeBytesReference.of(polledReferences.toArray(new ReleasableBytesReference[0]));
+            assertEquals(uncompressedLength, composite.length());
+            StreamInput streamInput = composite.streamInput();
+            for (int i = 0; i < intsToWrite; ++i) {
+                assertEquals((i & 0xFF) < 200 ? 0 : i, streamInput.readInt());
+            }
+            Releasables.close(polledReferences);
+        }
+    }
+}
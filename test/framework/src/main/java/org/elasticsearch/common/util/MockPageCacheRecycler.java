@@ -13,6 +13,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.transport.LeakTracker;
 
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Random;
 
@@ -42,6 +43,11 @@ public class MockPageCacheRecycler extends PageCacheRecycler {
                     Arrays.fill((Object[]) ref, 0, Array.getLength(ref), null);
                 } else if (ref instanceof byte[]) {
                     Arrays.fill((byte[]) ref, 0, Array.getLength(ref), (byte) random.nextInt(256));
+                } else if (ref instanceof ByteBuffer) {
+                    final ByteBuffer buffer = (ByteBuffer) ref;
+                    for (int i = 0; i < buffer.capacity(); ++i) {
+                        buffer.put(i, (byte) random.nextInt(256));
+                    }
                 } else {
                     for (int i = 0; i < Array.getLength(ref); ++i) {
                         Array.set(ref, i, (byte) random.nextInt(256));
@@ -72,6 +78,18 @@ public class MockPageCacheRecycler extends PageCacheRecycler {
         return wrap(page);
     }
 
+    @Override
+    public V<ByteBuffer> directBytePage(boolean clear) {
+        final V<ByteBuffer> page = super.directBytePage(clear);
+        if (clear == false) {
+            final ByteBuffer buffer = page.v();
+            for (int i = 0; i < buffer.capacity(); ++i) {
+                buffer.put(i, (byte) random.nextInt(1 << 8));
+            }
+        }
+        return wrap(page);
+    }
+
     @Override
     public V<Object[]> objectPage() {
         return wrap(super.objectPage());
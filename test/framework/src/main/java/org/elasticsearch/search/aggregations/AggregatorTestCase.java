@@ -115,6 +115,7 @@ import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.AggregationContext.ProductionAggregationContext;
+import org.elasticsearch.search.aggregations.support.AggregationCursors;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
 import org.elasticsearch.search.aggregations.support.ValuesSourceAggregationBuilder;
 import org.elasticsearch.search.aggregations.support.ValuesSourceRegistry;
@@ -329,12 +330,21 @@ public abstract class AggregatorTestCase extends ESTestCase {
             () -> 0L,
             () -> false,
             q -> q,
-            true
+            true,
+            aggregationCursors()
         );
         releasables.add(context);
         return context;
     }
 
+    /**
+     * The state that the aggregations keep between requests, {@code null} like for requests that don't use a point in time.
+     * {@code protected} so subclasses can test the aggregations that resume from it.
+     */
+    protected AggregationCursors aggregationCursors() {
+        return null;
+    }
+
     /**
      * Build a {@link FieldMapper} to create the {@link MappingLookup} used for the aggs.
      * {@code protected} so subclasses can have it.
@@ -69,6 +69,7 @@ public class TestSearchContext extends SearchContext {
     SortAndFormats sort;
     boolean trackScores = false;
     int trackTotalHitsUpTo = SearchContext.DEFAULT_TRACK_TOTAL_HITS_UP_TO;
+    TimeValue timeout = TimeValue.ZERO;
 
     ContextIndexSearcher searcher;
     int from;
@@ -269,11 +270,13 @@ public class TestSearchContext extends SearchContext {
 
     @Override
     public TimeValue timeout() {
-        return TimeValue.ZERO;
+        return timeout;
     }
 
     @Override
-    public void timeout(TimeValue timeout) {}
+    public void timeout(TimeValue timeout) {
+        this.timeout = timeout;
+    }
 
     @Override
     public int terminateAfter() {
@@ -878,6 +878,7 @@ public class MachineLearningInfoTransportActionTests extends ESTestCase {
             ingestStats,
             null,
             null,
+            null,
             null
         );
 
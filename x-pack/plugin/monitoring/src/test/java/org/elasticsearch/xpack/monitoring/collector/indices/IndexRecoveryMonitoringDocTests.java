@@ -193,7 +193,9 @@ public class IndexRecoveryMonitoringDocTests extends BaseMonitoringDocTestCase<I
                       "total": -1,
                       "percent": "-1.0%%",
                       "total_on_start": -1,
-                      "total_time_in_millis": 0
+                      "total_time_in_millis": 0,
+                      "read_time_in_millis": 0,
+                      "apply_time_in_millis": 0
                     },
                     "verify_index": {
                       "check_index_time_in_millis": 0,
@@ -187,7 +187,7 @@ public class IndicesStatsMonitoringDocTests extends BaseFilteredMonitoringDocTes
         final SearchStats.Stats searchStats = new SearchStats.Stats(6L, 7L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
         commonStats.getSearch().add(new SearchStats(searchStats, 0L, null));
 
-        final BulkStats bulkStats = new BulkStats(0L, 0L, 0L, 0L, 0L);
+        final BulkStats bulkStats = new BulkStats(0L, 0L, 0L, 0L, 0L, 0L, 0L);
         commonStats.getBulk().add(bulkStats);
 
         return commonStats;
@@ -111,6 +111,7 @@ import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.IndexSettingsModule;
 import org.elasticsearch.test.MockLogAppender;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.threadpool.ThreadPool.Names;
@@ -1402,6 +1403,7 @@ public class AuthorizationServiceTests extends ESTestCase {
         IndexShard indexShard = mock(IndexShard.class);
         when(indexShard.getBulkOperationListener()).thenReturn(new BulkOperationListener() {
         });
+        when(indexShard.indexSettings()).thenReturn(IndexSettingsModule.newIndexSettings(index, Settings.EMPTY));
         TransportShardBulkAction.performOnPrimary(
             request,
             indexShard,